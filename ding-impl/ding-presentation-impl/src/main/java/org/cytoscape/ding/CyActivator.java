@@ -126,6 +126,9 @@ import org.osgi.framework.BundleContext;
 
 
 public class CyActivator extends AbstractCyActivator {
+
+	private DingGraphLOD dingGraphLOD;
+
 	public CyActivator() {
 		super();
 	}
@@ -137,6 +140,15 @@ public class CyActivator extends AbstractCyActivator {
 		startPresentationImpl(bc);
 	}
 
+	@Override
+	public void stop(BundleContext bc) {
+		// Stop the tile rendering threads along with the renderer.
+		if (dingGraphLOD != null)
+			dingGraphLOD.dispose();
+
+		super.stop(bc);
+	}
+
 
 	private void startPresentationImpl(BundleContext bc) {
 
@@ -168,7 +180,7 @@ public class CyActivator extends AbstractCyActivator {
 
 		AnnotationFactoryManager annotationFactoryManager = new AnnotationFactoryManager();
 
-		DingGraphLOD dingGraphLOD = new DingGraphLOD(cyPropertyServiceRef, applicationManagerServiceRef);
+		dingGraphLOD = new DingGraphLOD(cyPropertyServiceRef, applicationManagerServiceRef);
 		registerService(bc, dingGraphLOD, PropertyUpdatedListener.class, new Properties());
 		
 		DingGraphLODAll dingGraphLODAll = new DingGraphLODAll();
@@ -40,15 +40,18 @@ import java.awt.Font;
 import java.awt.Paint;
 import java.awt.Stroke;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.WeakHashMap;
 
 import org.cytoscape.ding.DArrowShape;
 import org.cytoscape.ding.DVisualLexicon;
 import org.cytoscape.ding.EdgeView;
+import org.cytoscape.ding.impl.DenseValues.Doubles;
+import org.cytoscape.ding.impl.DenseValues.Flags;
+import org.cytoscape.ding.impl.DenseValues.Floats;
+import org.cytoscape.ding.impl.DenseValues.Ints;
+import org.cytoscape.ding.impl.DenseValues.Interned;
+import org.cytoscape.ding.impl.DenseValues.Objects;
 import org.cytoscape.graph.render.immed.EdgeAnchors;
 import org.cytoscape.graph.render.immed.GraphGraphics;
 import org.cytoscape.graph.render.stateful.EdgeDetails;
@@ -72,35 +75,35 @@ final class DEdgeDetails extends EdgeDetails {
 	private static final float DEFAULT_ARROW_SIZE = 6.0f;
 
 	private final DGraphView dGraphView;
-	private final Object m_deletedEntry = new Object();
 	
 	private final Map<VisualProperty<?>, Object> defaultValues; 
 
-	// Mapped Values
-	// If value found in these map objects, the value will be used by the renderer.
+	// Mapped Values, indexed by DEdgeView.ordinal
+	// If a value is set in these stores, the value will be used by the renderer.
 	// Otherwise, default value will be used.
-	Map<CyEdge, Object> m_colorsLowDetail = new WeakHashMap<CyEdge, Object>();
-	Map<CyEdge, Object> m_selectedColorsLowDetail = new WeakHashMap<CyEdge, Object>();
-	Map<CyEdge, Float> m_segmentThicknesses = new WeakHashMap<CyEdge, Float>();
-	Map<CyEdge, Stroke> m_segmentStrokes = new WeakHashMap<CyEdge, Stroke>();
-	Map<CyEdge, Byte> m_sourceArrows = new WeakHashMap<CyEdge, Byte>();
-	Map<CyEdge, Paint> m_sourceArrowPaints = new WeakHashMap<CyEdge, Paint>();
-	Map<CyEdge, Paint> m_sourceArrowSelectedPaints = new WeakHashMap<CyEdge, Paint>();
-	Map<CyEdge, Byte> m_targetArrows = new WeakHashMap<CyEdge, Byte>();
-	Map<CyEdge, Paint> m_targetArrowPaints = new WeakHashMap<CyEdge, Paint>();
-	Map<CyEdge, Paint> m_targetArrowSelectedPaints = new WeakHashMap<CyEdge, Paint>();
-	Map<CyEdge, Integer> m_labelCounts = new WeakHashMap<CyEdge, Integer>();
-	Map<CyEdge, String> m_labelTexts = new WeakHashMap<CyEdge, String>();
-	Map<CyEdge, Font> m_labelFonts = new WeakHashMap<CyEdge, Font>();
-	Map<CyEdge, Paint> m_labelPaints = new WeakHashMap<CyEdge, Paint>();
-	Map<CyEdge, Double> m_labelWidths = new WeakHashMap<CyEdge, Double>();
-	Map<CyEdge, Paint> m_unselectedPaints = new WeakHashMap<CyEdge, Paint>();
-	Map<CyEdge, Paint> m_selectedPaints = new WeakHashMap<CyEdge, Paint>();
-	Map<CyEdge, Integer> m_lineCurved = new WeakHashMap<CyEdge, Integer>();
-	Map<CyEdge, Bend> m_edgeBends = new WeakHashMap<CyEdge, Bend>();
-	Map<CyEdge, String> m_edgeTooltips = new WeakHashMap<CyEdge, String>();
-	Map<CyEdge, Integer> m_edgeTansparencies = new WeakHashMap<CyEdge, Integer>();
-	Map<CyEdge, Integer> m_edgeLabelTansparencies = new WeakHashMap<CyEdge, Integer>();
+	private final ElementOrdinals ordinals = new ElementOrdinals();
+	final Interned<Color> m_colorsLowDetail = new Interned<Color>();
+	final Interned<Color> m_selectedColorsLowDetail = new Interned<Color>();
+	final Floats m_segmentThicknesses = new Floats();
+	final Interned<Stroke> m_segmentStrokes = new Interned<Stroke>();
+	final Ints m_sourceArrows = new Ints();
+	final Interned<Paint> m_sourceArrowPaints = new Interned<Paint>();
+	final Interned<Paint> m_sourceArrowSelectedPaints = new Interned<Paint>();
+	final Ints m_targetArrows = new Ints();
+	final Interned<Paint> m_targetArrowPaints = new Interned<Paint>();
+	final Interned<Paint> m_targetArrowSelectedPaints = new Interned<Paint>();
+	final Ints m_labelCounts = new Ints();
+	final Objects<String> m_labelTexts = new Objects<String>();
+	final Interned<Font> m_labelFonts = new Interned<Font>();
+	final Interned<Paint> m_labelPaints = new Interned<Paint>();
+	final Doubles m_labelWidths = new Doubles();
+	final Interned<Paint> m_unselectedPaints = new Interned<Paint>();
+	final Interned<Paint> m_selectedPaints = new Interned<Paint>();
+	final Ints m_lineCurved = new Ints();
+	final Objects<Bend> m_edgeBends = new Objects<Bend>();
+	final Objects<String> m_edgeTooltips = new Objects<String>();
+	final Ints m_edgeTansparencies = new Ints();
+	final Ints m_edgeLabelTansparencies = new Ints();
 
 	// Default Values
 	Byte m_sourceArrowDefault;
@@ -126,7 +129,7 @@ final class DEdgeDetails extends EdgeDetails {
 
 	private boolean isCleared = false;
 
-	private final Set<CyEdge> selected = new HashSet<CyEdge>();
+	private final Flags selected = new Flags();
 
 	DEdgeDetails(final DGraphView view) {
 		dGraphView = view;
@@ -137,44 +140,51 @@ final class DEdgeDetails extends EdgeDetails {
 		if (isCleared)
 			return;
 
-		m_segmentThicknesses = new WeakHashMap<CyEdge, Float>();
-		m_segmentStrokes = new WeakHashMap<CyEdge, Stroke>();
-		m_sourceArrows = new WeakHashMap<CyEdge, Byte>();
-		m_sourceArrowPaints = new WeakHashMap<CyEdge, Paint>();
-		m_targetArrows = new WeakHashMap<CyEdge, Byte>();
-		m_targetArrowPaints = new WeakHashMap<CyEdge, Paint>();
-		m_targetArrowSelectedPaints = new WeakHashMap<CyEdge, Paint>();
-		m_labelCounts = new WeakHashMap<CyEdge, Integer>();
-		m_labelTexts = new WeakHashMap<CyEdge, String>();
-		m_labelFonts = new WeakHashMap<CyEdge, Font>();
-		m_labelPaints = new WeakHashMap<CyEdge, Paint>();
-		m_labelWidths = new WeakHashMap<CyEdge, Double>();
-		m_unselectedPaints = new WeakHashMap<CyEdge, Paint>();
-		m_selectedPaints = new WeakHashMap<CyEdge, Paint>();
-		m_colorsLowDetail = new WeakHashMap<CyEdge, Object>();
-		m_selectedColorsLowDetail = new WeakHashMap<CyEdge, Object>();
-		m_lineCurved = new WeakHashMap<CyEdge, Integer>();
-		m_edgeBends = new WeakHashMap<CyEdge, Bend>();
-		m_edgeTooltips = new WeakHashMap<CyEdge, String>();
-		m_edgeTansparencies = new WeakHashMap<CyEdge, Integer>();
-		m_edgeLabelTansparencies = new WeakHashMap<CyEdge, Integer>();
+		m_segmentThicknesses.clear();
+		m_segmentStrokes.clear();
+		m_sourceArrows.clear();
+		m_sourceArrowPaints.clear();
+		m_targetArrows.clear();
+		m_targetArrowPaints.clear();
+		m_targetArrowSelectedPaints.clear();
+		m_labelCounts.clear();
+		m_labelTexts.clear();
+		m_labelFonts.clear();
+		m_labelPaints.clear();
+		m_labelWidths.clear();
+		m_unselectedPaints.clear();
+		m_selectedPaints.clear();
+		m_colorsLowDetail.clear();
+		m_selectedColorsLowDetail.clear();
+		m_lineCurved.clear();
+		m_edgeBends.clear();
+		m_edgeTooltips.clear();
+		m_edgeTansparencies.clear();
+		m_edgeLabelTansparencies.clear();
 
 		isCleared = true;
 	}
 
-	void unregisterEdge(final CyEdge edgeIdx) {
-		final Object colorDetail = m_colorsLowDetail.get(edgeIdx);
-		if ((colorDetail != null) && (colorDetail != m_deletedEntry))
-			m_colorsLowDetail.put(edgeIdx, m_deletedEntry);
+	/**
+	 * Returns the ordinal for a new edge view.
+	 */
+	int registerEdge() {
+		return ordinals.acquire();
+	}
 
-		final Object selectedColorDetail = m_selectedColorsLowDetail.get(edgeIdx);
-		if ((selectedColorDetail != null) && (selectedColorDetail != m_deletedEntry))
-			m_selectedColorsLowDetail.put(edgeIdx, m_deletedEntry);
+	/**
+	 * Drops all values of the removed edge view and frees its ordinal for reuse.
+	 */
+	void unregisterEdge(final DEdgeView edgeView) {
+		final int edgeIdx = edgeView.ordinal;
 
+		m_colorsLowDetail.remove(edgeIdx);
+		m_selectedColorsLowDetail.remove(edgeIdx);
 		m_segmentThicknesses.remove(edgeIdx);
 		m_segmentStrokes.remove(edgeIdx);
 		m_sourceArrows.remove(edgeIdx);
 		m_sourceArrowPaints.remove(edgeIdx);
+		m_sourceArrowSelectedPaints.remove(edgeIdx);
 		m_targetArrows.remove(edgeIdx);
 		m_targetArrowPaints.remove(edgeIdx);
 		m_targetArrowSelectedPaints.remove(edgeIdx);
@@ -187,15 +197,25 @@ final class DEdgeDetails extends EdgeDetails {
 		m_unselectedPaints.remove(edgeIdx);
 		m_lineCurved.remove(edgeIdx);
 		m_edgeBends.remove(edgeIdx);
-		selected.remove(edgeIdx);
+		selected.set(edgeIdx, false);
 		m_edgeTooltips.remove(edgeIdx);
 		m_edgeTansparencies.remove(edgeIdx);
 		m_edgeLabelTansparencies.remove(edgeIdx);
+
+		ordinals.release(edgeIdx);
+	}
+
+	/**
+	 * Returns the ordinal of the edge's view, or -1 if the edge has no view.
+	 */
+	private int ordinal(final CyEdge edge) {
+		final DEdgeView dev = dGraphView.getDEdgeView(edge);
+		return dev == null ? -1 : dev.ordinal;
 	}
 
 	@Override
 	public Color getColorLowDetail(final CyEdge edge) {
-		boolean isSelected = selected.contains(edge);
+		boolean isSelected = selected.get(ordinal(edge));
 
 		if (isSelected)
 			return getSelectedColorLowDetail(edge);
@@ -209,15 +229,15 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_STROKE_UNSELECTED_PAINT))
 			return (Color) dev.getVisualProperty(DVisualLexicon.EDGE_STROKE_UNSELECTED_PAINT);
 
-		final Object o = m_colorsLowDetail.get(edge);
+		final Color o = m_colorsLowDetail.get(dev.ordinal);
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (o == null)
 			if (m_colorLowDetailDefault == null)
 				return super.getColorLowDetail(edge);
 			else
 				return (Color) m_colorLowDetailDefault;
 
-		return (Color) o;
+		return o;
 	}
 
 	private Color getSelectedColorLowDetail(final CyEdge edge) {
@@ -226,15 +246,15 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_STROKE_SELECTED_PAINT))
 			return (Color) dev.getVisualProperty(DVisualLexicon.EDGE_STROKE_SELECTED_PAINT);
 
-		final Object o = m_selectedColorsLowDetail.get(edge);
+		final Color o = m_selectedColorsLowDetail.get(dev.ordinal);
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (o == null)
 			if (m_selectedColorLowDetailDefault == null)
 				return super.getColorLowDetail(edge);
 			else
 				return (Color) m_selectedColorLowDetailDefault;
 
-		return (Color) o;
+		return o;
 	}
 
 	void setSelectedColorLowDetailDefault(Color c) {
@@ -259,14 +279,14 @@ final class DEdgeDetails extends EdgeDetails {
 			return DArrowShape.parseArrowText(shapeID).getRendererTypeID();
 		}
 
-		final Byte arrow = m_sourceArrows.get(edge);
-		if (arrow == null)
+		final int arrow = m_sourceArrows.get(dev.ordinal);
+		if (arrow == Ints.UNSET)
 			if (m_sourceArrowDefault == null)
 				return super.getSourceArrowShape(edge);
 			else
 				return m_sourceArrowDefault.byteValue();
 
-		return arrow;
+		return (byte) arrow;
 	}
 
 	void setSourceArrowDefault(byte arrow) {
@@ -280,17 +300,21 @@ final class DEdgeDetails extends EdgeDetails {
 	 * arrow.
 	 */
 	void overrideSourceArrow(final CyEdge edge, final byte arrowType) {
+		final int ordinal = ordinal(edge);
+		if (ordinal < 0)
+			return;
+
 		if ((arrowType >= 0) || (arrowType == super.getSourceArrowShape(edge)))
-			m_sourceArrows.remove(edge);
+			m_sourceArrows.remove(ordinal);
 		else {
-			m_sourceArrows.put(edge, arrowType);
+			m_sourceArrows.set(ordinal, arrowType);
 			isCleared = false;
 		}
 	}
 
 	@Override
 	public Paint getSourceArrowPaint(final CyEdge edge) {
-		boolean isSelected = selected.contains(edge);
+		boolean isSelected = selected.get(ordinal(edge));
 
 		if (isSelected)
 			return getSelectedPaint(edge);
@@ -304,7 +328,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_SOURCE_ARROW_UNSELECTED_PAINT))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_SOURCE_ARROW_UNSELECTED_PAINT);
 
-		final Paint paint = m_sourceArrowPaints.get(edge);
+		final Paint paint = m_sourceArrowPaints.get(dev.ordinal);
 		if (paint == null) {
 			if (m_sourceArrowPaintDefault == null)
 				return DVisualLexicon.EDGE_SOURCE_ARROW_UNSELECTED_PAINT.getDefault();
@@ -323,19 +347,27 @@ final class DEdgeDetails extends EdgeDetails {
 	 * A null paint has the special meaning to remove overridden paint.
 	 */
 	void overrideSourceArrowPaint(final CyEdge edge, final Paint paint) {
+		final int ordinal = ordinal(edge);
+		if (ordinal < 0)
+			return;
+
 		if ((paint == null) || paint.equals(super.getSourceArrowPaint(edge)))
-			m_sourceArrowPaints.remove(edge);
+			m_sourceArrowPaints.remove(ordinal);
 		else {
-			m_sourceArrowPaints.put(edge, paint);
+			m_sourceArrowPaints.set(ordinal, paint);
 			isCleared = false;
 		}
 	}
 
 	void overrideSourceArrowSelectedPaint(final CyEdge edge, final Paint paint) {
+		final int ordinal = ordinal(edge);
+		if (ordinal < 0)
+			return;
+
 		if ((paint == null) || paint.equals(super.getSourceArrowPaint(edge)))
-			this.m_sourceArrowSelectedPaints.remove(edge);
+			this.m_sourceArrowSelectedPaints.remove(ordinal);
 		else {
-			m_sourceArrowSelectedPaints.put(edge, paint);
+			m_sourceArrowSelectedPaints.set(ordinal, paint);
 			isCleared = false;
 		}
 	}
@@ -350,14 +382,14 @@ final class DEdgeDetails extends EdgeDetails {
 			return DArrowShape.parseArrowText(shapeID).getRendererTypeID();
 		}
 
-		final Byte arrow = m_targetArrows.get(edge);
-		if (arrow == null)
+		final int arrow = m_targetArrows.get(dev.ordinal);
+		if (arrow == Ints.UNSET)
 			if (m_targetArrowDefault == null)
 				return super.getTargetArrowShape(edge);
 			else
 				return m_targetArrowDefault.byteValue();
 
-		return arrow;
+		return (byte) arrow;
 	}
 
 	void setTargetArrowDefault(final byte arrow) {
@@ -369,10 +401,14 @@ final class DEdgeDetails extends EdgeDetails {
 	 * arrow.
 	 */
 	void overrideTargetArrow(final CyEdge edge, final byte arrowType) {
+		final int ordinal = ordinal(edge);
+		if (ordinal < 0)
+			return;
+
 		if ((arrowType >= 0) || (arrowType == super.getTargetArrowShape(edge)))
-			m_targetArrows.remove(edge);
+			m_targetArrows.remove(ordinal);
 		else {
-			m_targetArrows.put(edge, arrowType);
+			m_targetArrows.set(ordinal, arrowType);
 			isCleared = false;
 		}
 	}
@@ -382,7 +418,7 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	@Override
 	public Paint getTargetArrowPaint(final CyEdge edge) {
-		final boolean isSelected = selected.contains(edge);
+		final boolean isSelected = selected.get(ordinal(edge));
 
 		if (isSelected)
 			return getSelectedPaint(edge);
@@ -396,7 +432,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_TARGET_ARROW_UNSELECTED_PAINT))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_TARGET_ARROW_UNSELECTED_PAINT);
 
-		final Paint paint = m_targetArrowPaints.get(edge);
+		final Paint paint = m_targetArrowPaints.get(dev.ordinal);
 
 		if (paint == null) {
 			if (m_targetArrowPaintDefault == null)
@@ -416,10 +452,14 @@ final class DEdgeDetails extends EdgeDetails {
 	 * A null paint has the special meaning to remove overridden paint.
 	 */
 	void overrideTargetArrowPaint(final CyEdge edge, final Paint paint) {
+		final int ordinal = ordinal(edge);
+		if (ordinal < 0)
+			return;
+
 		if (paint == null)
-			m_targetArrowPaints.remove(edge);
+			m_targetArrowPaints.remove(ordinal);
 		else {
-			m_targetArrowPaints.put(edge, paint);
+			m_targetArrowPaints.set(ordinal, paint);
 			isCleared = false;
 		}
 	}
@@ -428,10 +468,14 @@ final class DEdgeDetails extends EdgeDetails {
 	 * A null paint has the special meaning to remove overridden paint.
 	 */
 	void overrideTargetArrowSelectedPaint(final CyEdge edge, final Paint paint) {
+		final int ordinal = ordinal(edge);
+		if (ordinal < 0)
+			return;
+
 		if ((paint == null) || paint.equals(super.getTargetArrowPaint(edge)))
-			this.m_targetArrowSelectedPaints.remove(edge);
+			this.m_targetArrowSelectedPaints.remove(ordinal);
 		else {
-			m_targetArrowSelectedPaints.put(edge, paint);
+			m_targetArrowSelectedPaints.set(ordinal, paint);
 			isCleared = false;
 		}
 	}
@@ -445,7 +489,8 @@ final class DEdgeDetails extends EdgeDetails {
 		if (edv.isValueLocked(DVisualLexicon.EDGE_WIDTH)) {
 			w = edv.getVisualProperty(DVisualLexicon.EDGE_WIDTH).floatValue();
 		} else {
-			w = m_segmentThicknesses.get(edge);
+			final float stored = m_segmentThicknesses.get(edv.ordinal);
+			w = Float.isNaN(stored) ? null : Float.valueOf(stored);
 			if (w == null) {
 				if (m_segmentThicknessDefault == null)
 					w = super.getWidth(edge);
@@ -467,10 +512,14 @@ final class DEdgeDetails extends EdgeDetails {
 	 * thickness.
 	 */
 	void overrideSegmentThickness(final CyEdge edge, final float thickness) {
+		final int ordinal = ordinal(edge);
+		if (ordinal < 0)
+			return;
+
 		if ((thickness < 0.0f) || (thickness == super.getWidth(edge)))
-			m_segmentThicknesses.remove(edge);
+			m_segmentThicknesses.remove(ordinal);
 		else {
-			m_segmentThicknesses.put(edge, thickness);
+			m_segmentThicknesses.set(ordinal, thickness);
 			isCleared = false;
 		}
 	}
@@ -485,7 +534,7 @@ final class DEdgeDetails extends EdgeDetails {
 			final LineType lineType = dev.getVisualProperty(DVisualLexicon.EDGE_LINE_TYPE);
 			stroke = DLineType.getDLineType(lineType).getStroke(getWidth(edge));
 		} else {
-			stroke = m_segmentStrokes.get(edge);
+			stroke = m_segmentStrokes.get(dev.ordinal);
 			
 			if (stroke == null) {
 				if (m_segmentStrokeDefault == null)
@@ -507,10 +556,14 @@ final class DEdgeDetails extends EdgeDetails {
 	 * A null paint has the special meaning to remove overridden paint.
 	 */
 	void overrideSegmentStroke(final CyEdge edge, final Stroke stroke) {
+		final int ordinal = ordinal(edge);
+		if (ordinal < 0)
+			return;
+
 		if ((stroke == null) || stroke.equals(super.getStroke(edge)))
-			m_segmentStrokes.remove(edge);
+			m_segmentStrokes.remove(ordinal);
 		else {
-			m_segmentStrokes.put(edge, stroke);
+			m_segmentStrokes.set(ordinal, stroke);
 			isCleared = false;
 		}
 	}
@@ -520,7 +573,7 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	@Override
 	public Paint getPaint(final CyEdge edge) {
-		final boolean isSelected = selected.contains(edge);
+		final boolean isSelected = selected.get(ordinal(edge));
 
 		if (isSelected)
 			return getSelectedPaint(edge);
@@ -548,7 +601,7 @@ final class DEdgeDetails extends EdgeDetails {
 		} else if (dev.isValueLocked(DVisualLexicon.EDGE_UNSELECTED_PAINT)) {
 			paint = dev.getVisualProperty(DVisualLexicon.EDGE_UNSELECTED_PAINT);
 		} else {
-			paint = m_unselectedPaints.get(edge);
+			paint = m_unselectedPaints.get(dev.ordinal);
 
 			if (paint == null) {
 				if (m_unselectedPaintDefault == null)
@@ -571,7 +624,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_SELECTED_PAINT))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_SELECTED_PAINT);
 
-		final Paint paint = m_selectedPaints.get(edge);
+		final Paint paint = m_selectedPaints.get(dev.ordinal);
 
 		if (paint == null) {
 			if (m_selectedPaintDefault == null)
@@ -590,24 +643,36 @@ final class DEdgeDetails extends EdgeDetails {
 	}
 
 	void select(final CyEdge edge) {
-		selected.add(edge);
+		final int ordinal = ordinal(edge);
+		if (ordinal >= 0)
+			selected.set(ordinal, true);
 	}
 
 	void unselect(final CyEdge edge) {
-		selected.remove(edge);
+		final int ordinal = ordinal(edge);
+		if (ordinal >= 0)
+			selected.set(ordinal, false);
 	}
 
 	void setUnselectedPaint(final CyEdge edge, final Paint paint) {
-		m_unselectedPaints.put(edge, paint);
+		final int ordinal = ordinal(edge);
+		if (ordinal < 0)
+			return;
+
+		m_unselectedPaints.set(ordinal, paint);
 		if (paint instanceof Color)
-			m_colorsLowDetail.put(edge, paint);
+			m_colorsLowDetail.set(ordinal, (Color) paint);
 		isCleared = false;
 	}
 
 	void setSelectedPaint(final CyEdge edge, final Paint paint) {
-		m_selectedPaints.put(edge, paint);
+		final int ordinal = ordinal(edge);
+		if (ordinal < 0)
+			return;
+
+		m_selectedPaints.set(ordinal, paint);
 		if (paint instanceof Color)
-			m_selectedColorsLowDetail.put(edge, paint);
+			m_selectedColorsLowDetail.set(ordinal, (Color) paint);
 
 		isCleared = false;
 	}
@@ -619,8 +684,8 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL) && !dev.getVisualProperty(DVisualLexicon.EDGE_LABEL).isEmpty())
 			return 1;
 		
-		final Integer i = m_labelCounts.get(edge);
-		if (i == null) {
+		final int i = m_labelCounts.get(dev.ordinal);
+		if (i == Ints.UNSET) {
 			if (m_labelCountDefault == null)
 				return super.getLabelCount(edge);
 			else
@@ -638,10 +703,14 @@ final class DEdgeDetails extends EdgeDetails {
 	 * A negative labelCount has the special meaning to remove overridden count.
 	 */
 	void overrideLabelCount(final CyEdge edge, final int labelCount) {
+		final int ordinal = ordinal(edge);
+		if (ordinal < 0)
+			return;
+
 		if ((labelCount < 0) || (labelCount == super.getLabelCount(edge))) {
-			m_labelCounts.remove(edge);
+			m_labelCounts.remove(ordinal);
 		} else {
-			m_labelCounts.put(edge, labelCount);
+			m_labelCounts.set(ordinal, labelCount);
 			isCleared = false;
 		}
 	}
@@ -653,7 +722,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_LABEL);
 
-		final String text = m_labelTexts.get(edge);
+		final String text = m_labelTexts.get(dev.ordinal);
 		if (text == null)
 			if (m_labelTextDefault == null)
 				return super.getLabelText(edge, labelInx);
@@ -673,11 +742,14 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideLabelText(final CyEdge edge, final int labelInx, final String text) {
 		// final long key = (((long) edge) << 32) | ((long) labelInx);
+		final int ordinal = ordinal(edge);
+		if (ordinal < 0)
+			return;
 
 		if ((text == null) || text.equals(super.getLabelText(edge, labelInx)))
-			m_labelTexts.remove(edge);
+			m_labelTexts.remove(ordinal);
 		else {
-			m_labelTexts.put(edge, text);
+			m_labelTexts.set(ordinal, text);
 			isCleared = false;
 		}
 	}
@@ -688,7 +760,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_TOOLTIP))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_TOOLTIP);
 
-		final String text = m_edgeTooltips.get(edge);
+		final String text = m_edgeTooltips.get(dev.ordinal);
 		if (text == null)
 			if (m_edgeTooltipDefault == null)
 				return DVisualLexicon.EDGE_TOOLTIP.getDefault();
@@ -703,11 +775,24 @@ final class DEdgeDetails extends EdgeDetails {
 		defaultValues.put(DVisualLexicon.EDGE_TOOLTIP, m_edgeTooltipDefault);
 	}
 
+	/**
+	 * Unlike {@link #overrideTooltipText}, stores the text as given.
+	 */
+	void setTooltipText(final CyEdge edge, final String text) {
+		final int ordinal = ordinal(edge);
+		if (ordinal >= 0)
+			m_edgeTooltips.set(ordinal, text);
+	}
+
 	void overrideTooltipText(final CyEdge edge, final String text) {
+		final int ordinal = ordinal(edge);
+		if (ordinal < 0)
+			return;
+
 		if ((text == null) || text.equals(""))
-			m_edgeTooltips.remove(edge);
+			m_edgeTooltips.remove(ordinal);
 		else {
-			m_edgeTooltips.put(edge, text);
+			m_edgeTooltips.set(ordinal, text);
 			isCleared = false;
 		}
 	}
@@ -718,7 +803,8 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_TRANSPARENCY))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_TRANSPARENCY);
 
-		Integer trans = m_edgeTansparencies.get(edge);
+		final int stored = m_edgeTansparencies.get(dev.ordinal);
+		Integer trans = stored == Ints.UNSET ? null : Integer.valueOf(stored);
 		if (trans == null) {
 			if (transparencyDefault == null)
 				trans = DVisualLexicon.EDGE_TRANSPARENCY.getDefault();
@@ -735,10 +821,14 @@ final class DEdgeDetails extends EdgeDetails {
 	}
 
 	void overrideTransparency(final CyEdge edge, final Integer transparency) {
+		final int ordinal = ordinal(edge);
+		if (ordinal < 0)
+			return;
+
 		if (transparency == null)
-			m_edgeTansparencies.remove(edge);
+			m_edgeTansparencies.remove(ordinal);
 		else {
-			m_edgeTansparencies.put(edge, transparency);
+			m_edgeTansparencies.set(ordinal, transparency);
 			isCleared = false;
 		}
 	}
@@ -749,7 +839,8 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL_TRANSPARENCY))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_LABEL_TRANSPARENCY);
 
-		Integer trans = m_edgeLabelTansparencies.get(edge);
+		final int stored = m_edgeLabelTansparencies.get(dev.ordinal);
+		Integer trans = stored == Ints.UNSET ? null : Integer.valueOf(stored);
 		if (trans == null) {
 			if (labelTransparencyDefault == null)
 				trans = DVisualLexicon.EDGE_LABEL_TRANSPARENCY.getDefault();
@@ -766,10 +857,14 @@ final class DEdgeDetails extends EdgeDetails {
 	}
 
 	void overrideLabelTransparency(final CyEdge edge, final Integer transparency) {
+		final int ordinal = ordinal(edge);
+		if (ordinal < 0)
+			return;
+
 		if (transparency == null)
-			m_edgeLabelTansparencies.remove(edge);
+			m_edgeLabelTansparencies.remove(ordinal);
 		else {
-			m_edgeLabelTansparencies.put(edge, transparency);
+			m_edgeLabelTansparencies.set(ordinal, transparency);
 			isCleared = false;
 		}
 	}
@@ -787,7 +882,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL_FONT_FACE)) {
 			font = dev.getVisualProperty(DVisualLexicon.EDGE_LABEL_FONT_FACE);
 		} else {
-			font = m_labelFonts.get(edge);
+			font = m_labelFonts.get(dev.ordinal);
 	
 			if (font == null)
 				font = m_labelFontDefault != null ? m_labelFontDefault : super.getLabelFont(edge, labelInx);
@@ -809,11 +904,14 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideLabelFont(final CyEdge edge, final int labelInx, final Font font) {
 		// final long key = (((long) edge) << 32) | ((long) labelInx);
+		final int ordinal = ordinal(edge);
+		if (ordinal < 0)
+			return;
 
 		if ((font == null) || font.equals(super.getLabelFont(edge, labelInx)))
-			m_labelFonts.remove(edge);
+			m_labelFonts.remove(ordinal);
 		else {
-			m_labelFonts.put(edge, font);
+			m_labelFonts.set(ordinal, font);
 			isCleared = false;
 		}
 	}
@@ -832,7 +930,7 @@ final class DEdgeDetails extends EdgeDetails {
 			// Check bypass
 			paint = dev.getVisualProperty(DVisualLexicon.EDGE_LABEL_COLOR);
 		} else {
-			paint = m_labelPaints.get(edge);
+			paint = m_labelPaints.get(dev.ordinal);
 
 			if (paint == null)
 				paint = m_labelPaintDefault != null ? m_labelPaintDefault : super.getLabelPaint(edge, labelInx);
@@ -853,11 +951,14 @@ final class DEdgeDetails extends EdgeDetails {
 	 * A null paint has the special meaning to remove overridden paint.
 	 */
 	void overrideLabelPaint(final CyEdge edge, final int labelInx, final Paint paint) {
+		final int ordinal = ordinal(edge);
+		if (ordinal < 0)
+			return;
 
 		if ((paint == null) || paint.equals(super.getLabelPaint(edge, labelInx)))
-			m_labelPaints.remove(edge);
+			m_labelPaints.remove(ordinal);
 		else {
-			m_labelPaints.put(edge, paint);
+			m_labelPaints.set(ordinal, paint);
 			isCleared = false;
 		}
 	}
@@ -868,8 +969,8 @@ final class DEdgeDetails extends EdgeDetails {
 		final DEdgeView dev = dGraphView.getDEdgeView(edge);
 		// TODO: Edge Label width?
 
-		final Double width = m_labelWidths.get(edge);
-		if (width == null) {
+		final double width = m_labelWidths.get(dev.ordinal);
+		if (Double.isNaN(width)) {
 			if (m_labelWidthDefault == null)
 				return super.getLabelWidth(edge);
 			else
@@ -888,10 +989,14 @@ final class DEdgeDetails extends EdgeDetails {
 	 * width.
 	 */
 	void overrideLabelWidth(final CyEdge edge, final double width) {
+		final int ordinal = ordinal(edge);
+		if (ordinal < 0)
+			return;
+
 		if ((width < 0.0) || (width == super.getLabelWidth(edge)))
-			m_labelWidths.remove(edge);
+			m_labelWidths.remove(ordinal);
 		else {
-			m_labelWidths.put(edge, width);
+			m_labelWidths.set(ordinal, width);
 			isCleared = false;
 		}
 	}
@@ -924,11 +1029,15 @@ final class DEdgeDetails extends EdgeDetails {
 	}
 
 	void overrideLineCurved(final CyEdge edge, final int type) {
+		final int ordinal = ordinal(edge);
+		if (ordinal < 0)
+			return;
+
 		if (EdgeView.STRAIGHT_LINES == type || EdgeView.CURVED_LINES == type) {
-			m_lineCurved.put(edge, type);
+			m_lineCurved.set(ordinal, type);
 			isCleared = false;
 		} else {
-			m_lineCurved.remove(edge);
+			m_lineCurved.remove(ordinal);
 		}
 	}
 
@@ -944,8 +1053,8 @@ final class DEdgeDetails extends EdgeDetails {
 			}
 		}
 
-		final Integer lineType = m_lineCurved.get(edge);
-		if (lineType == null)
+		final int lineType = m_lineCurved.get(dev.ordinal);
+		if (lineType == Ints.UNSET)
 			if (m_lineCurvedDefault == null)
 				return EdgeView.STRAIGHT_LINES;
 			else
@@ -974,11 +1083,11 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_BEND))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_BEND);
 
-		Bend bend = m_edgeBends.get(edge);
+		Bend bend = m_edgeBends.get(dev.ordinal);
 
 		if (bend == null && forceCreate) {
 			bend = new BendImpl();
-			m_edgeBends.put(edge, bend);
+			m_edgeBends.set(dev.ordinal, bend);
 		}
 
 		if (bend == null) {
@@ -991,6 +1100,12 @@ final class DEdgeDetails extends EdgeDetails {
 		return bend;
 	}
 
+	void setBend(final CyEdge edge, final Bend bend) {
+		final int ordinal = ordinal(edge);
+		if (ordinal >= 0)
+			m_edgeBends.set(ordinal, bend);
+	}
+
 	void setEdgeBendDefault(final Bend bend) {
 		this.m_edgeBendDefault = bend;
 		defaultValues.put(DVisualLexicon.EDGE_BEND, m_edgeBendDefault);
@@ -61,8 +61,12 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 	private Integer fontSize;
 	private LineType lineType;
 	private boolean selected;
+
+	// Index of this view's values in the property stores of DEdgeDetails.
+	final int ordinal;
 	
-	DEdgeView(final DGraphView graphView, final CyEdge model, final HandleFactory handleFactory, final VisualLexicon lexicon) {
+	DEdgeView(final DGraphView graphView, final CyEdge model, final int ordinal, final HandleFactory handleFactory,
+			final VisualLexicon lexicon) {
 		super(model, lexicon);
 
 		if (graphView == null)
@@ -70,6 +74,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 
 		this.handleFacgtory = handleFactory;
 		this.graphView = graphView;
+		this.ordinal = ordinal;
 		this.selected = false;
 		this.fontSize = DVisualLexicon.EDGE_LABEL_FONT_SIZE.getDefault();
 	}
@@ -309,7 +314,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 
 	@Override
 	public void setToolTip(String tip) {
-		graphView.m_edgeDetails.m_edgeTooltips.put(model, tip);
+		graphView.m_edgeDetails.setTooltipText(model, tip);
 	}
 
 
@@ -588,7 +593,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 	@Override
 	public void setBend(final Bend bend) {
 		synchronized (graphView.m_lock) {
-			graphView.m_edgeDetails.m_edgeBends.put(model, bend);
+			graphView.m_edgeDetails.setBend(model, bend);
 		}
 		graphView.m_contentChanged = true;
 	}
@@ -192,6 +192,12 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	final float[] m_extentsBuff = new float[4];
 	final double[] m_extentsBuffD = new double[4];
 
+	/**
+	 * Buffers for moving nodes in m_spacial.
+	 */
+	private final long[] m_moveKeyBuff = new long[1];
+	private final float[] m_moveExtentsBuff = new float[4];
+
 	/**
 	 * A common general path variable used for holding lots of shapes.
 	 */
@@ -465,9 +471,30 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 
 		this.title = model.getRow(model).get(CyNetwork.NAME, String.class);
 
-		// Create view model / presentations for the graph
-		for (final CyNode nn : model.getNodeList())
-			addNodeView(nn);
+		// Create view model / presentations for the graph.  All nodes start out
+		// with the same default extents; these are bulk loaded into m_spacial
+		// once all node views exist rather than inserted one at a time.
+		final List<CyNode> nodes = model.getNodeList();
+		final long[] nodeKeys = new long[nodes.size()];
+		final float[] nodeExtents = new float[nodes.size() * 4];
+		int nodeCount = 0;
+
+		synchronized (m_lock) {
+			for (final CyNode nn : nodes) {
+				if (createNodeViewInternal(nn) == null)
+					continue;
+
+				nodeKeys[nodeCount] = nn.getSUID();
+				nodeExtents[nodeCount * 4] = m_defaultNodeXMin;
+				nodeExtents[(nodeCount * 4) + 1] = m_defaultNodeYMin;
+				nodeExtents[(nodeCount * 4) + 2] = m_defaultNodeXMax;
+				nodeExtents[(nodeCount * 4) + 3] = m_defaultNodeYMax;
+				nodeCount++;
+			}
+
+			m_spacial = spacialFactory.createSpacialIndex2D(nodeKeys, nodeExtents, nodeCount);
+			m_contentChanged = true;
+		}
 
 		for (final CyEdge ee : model.getEdgeList())
 			addEdgeView(ee);
@@ -781,7 +808,20 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 * Should synchronize around m_lock.
 	 */
 	private final DNodeView addNodeViewInternal(final CyNode node) {
-		final long nodeInx = node.getSUID();
+		final DNodeView dNodeView = createNodeViewInternal(node);
+
+		if (dNodeView != null)
+			m_spacial.insert(node.getSUID(), m_defaultNodeXMin, m_defaultNodeYMin,
+			                 m_defaultNodeXMax, m_defaultNodeYMax);
+
+		return dNodeView;
+	}
+
+	/**
+	 * Creates the view of a node without adding it to m_spacial.  Should
+	 * synchronize around m_lock.
+	 */
+	private final DNodeView createNodeViewInternal(final CyNode node) {
 		final NodeView oldView = nodeViewMap.get(node);
 
 		if (oldView != null)
@@ -789,7 +829,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 
 		m_drawPersp.addNode(node);
 
-		final DNodeView dNodeView = new DNodeView(lexicon, this, node, vmm, netViewMgr);
+		final DNodeView dNodeView = new DNodeView(lexicon, this, node, m_nodeDetails.registerNode(), vmm, netViewMgr);
 		
 		// WARNING: DO not call the following in view creation.  This is VERY slow.
 		//Boolean selected = getModel().getRow(node).get(CyNetwork.SELECTED, Boolean.class);
@@ -797,12 +837,79 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		//	dNodeView.select();
 
 		nodeViewMap.put(node, dNodeView);
-		m_spacial.insert(nodeInx, m_defaultNodeXMin, m_defaultNodeYMin, m_defaultNodeXMax, m_defaultNodeYMax);
 		
 		cyEventHelper.addEventPayload((CyNetworkView) this, (View<CyNode>) dNodeView, AddedNodeViewsEvent.class);
 		return dNodeView;
 	}
 
+	/**
+	 * Moves a node that is in m_spacial to the given extents.  Should
+	 * synchronize around m_lock.
+	 */
+	final void moveNodeInternal(final long nodeInx, final float xMin, final float yMin,
+	                            final float xMax, final float yMax) {
+		m_moveKeyBuff[0] = nodeInx;
+		m_moveExtentsBuff[0] = xMin;
+		m_moveExtentsBuff[1] = yMin;
+		m_moveExtentsBuff[2] = xMax;
+		m_moveExtentsBuff[3] = yMax;
+		m_spacial.move(m_moveKeyBuff, m_moveExtentsBuff, 1);
+	}
+
+	/**
+	 * Shifts the given nodes by deltaX and deltaY with a single update of
+	 * m_spacial and sets their location visual properties accordingly.
+	 * Hidden nodes are not moved.
+	 */
+	final void moveNodes(final long[] nodeInxs, final double deltaX, final double deltaY) {
+		synchronized (m_lock) {
+			final long[] keys = new long[nodeInxs.length];
+			final float[] extents = new float[nodeInxs.length * 4];
+			final double[] centers = new double[nodeInxs.length * 2];
+			int count = 0;
+
+			for (int i = 0; i < nodeInxs.length; i++) {
+				if (!m_spacial.exists(nodeInxs[i], m_extentsBuff, 0))
+					continue;
+
+				final double wDiv2 = (((double) m_extentsBuff[2]) - m_extentsBuff[0]) / 2.0d;
+				final double hDiv2 = (((double) m_extentsBuff[3]) - m_extentsBuff[1]) / 2.0d;
+				final double x = ((((double) m_extentsBuff[0]) + m_extentsBuff[2]) / 2.0d) + deltaX;
+				final double y = ((((double) m_extentsBuff[1]) + m_extentsBuff[3]) / 2.0d) + deltaY;
+				final int e = count * 4;
+				extents[e] = (float) (x - wDiv2);
+				extents[e + 1] = (float) (y - hDiv2);
+				extents[e + 2] = (float) (x + wDiv2);
+				extents[e + 3] = (float) (y + hDiv2);
+
+				if (!(extents[e + 2] > extents[e]))
+					throw new IllegalStateException("width of node has degenerated to zero after " + "rounding");
+
+				if (!(extents[e + 3] > extents[e + 1]))
+					throw new IllegalStateException("height of node has degenerated to zero after " + "rounding");
+
+				keys[count] = nodeInxs[i];
+				centers[count * 2] = x;
+				centers[(count * 2) + 1] = y;
+				count++;
+			}
+
+			if (count == 0)
+				return;
+
+			m_spacial.move(keys, extents, count);
+			m_contentChanged = true;
+
+			// The node views now see their new extents, so setting the locations
+			// does not move anything again.
+			for (int i = 0; i < count; i++) {
+				final DNodeView nodeView = getDNodeView(keys[i]);
+				nodeView.setVisualProperty(BasicVisualLexicon.NODE_X_LOCATION, centers[i * 2]);
+				nodeView.setVisualProperty(BasicVisualLexicon.NODE_Y_LOCATION, centers[(i * 2) + 1]);
+			}
+		}
+	}
+
 	/**
 	 * Adds EdgeView to the GraphView.
 	 *
@@ -831,7 +938,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 
 			m_drawPersp.addEdge(edge);
 
-			dEdgeView = new DEdgeView(this, edge, handleFactory, lexicon);
+			dEdgeView = new DEdgeView(this, edge, m_edgeDetails.registerEdge(), handleFactory, lexicon);
 
 			edgeViewMap.put(edge, dEdgeView);
 			m_contentChanged = true;
@@ -936,7 +1043,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 			// If this node was hidden, it won't be in m_drawPersp.
 			m_drawPersp.removeNodes(Collections.singletonList(nnode));
 			// m_structPersp.removeNode(nodeInx);
-			m_nodeDetails.unregisterNode(nnode);
+			m_nodeDetails.unregisterNode(returnThis);
 
 			// If this node was hidden, it won't be in m_spacial.
 			m_spacial.delete(nodeInx);
@@ -1044,7 +1151,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		// Now we can remove it
 		edgeViewMap.remove(edge);
 		m_drawPersp.removeEdges(Collections.singletonList(edge)); 
-		m_edgeDetails.unregisterEdge(edge);
+		m_edgeDetails.unregisterEdge(returnThis);
 
 		return returnThis;
 	}
@@ -1193,10 +1300,11 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	@Override
 	public DNodeView getDNodeView(final CyNode node) {
 		// TODO: remove cast!
-		if (node != null && nodeViewMap.containsKey(node))
-			return (DNodeView)nodeViewMap.get(node);
-		else
+		if (node == null)
 			return null;
+
+		// Called for every visual property of every node rendered, so look up only once.
+		return (DNodeView) nodeViewMap.get(node);
 	}
 	
 	@Override
@@ -30,12 +30,8 @@ import java.awt.Paint;
 import java.awt.Stroke;
 import java.awt.TexturePaint;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.WeakHashMap;
 
 import org.cytoscape.ding.DNodeShape;
 import org.cytoscape.ding.DVisualLexicon;
@@ -43,6 +39,12 @@ import org.cytoscape.ding.Justification;
 import org.cytoscape.ding.Label;
 import org.cytoscape.ding.ObjectPosition;
 import org.cytoscape.ding.Position;
+import org.cytoscape.ding.impl.DenseValues.Doubles;
+import org.cytoscape.ding.impl.DenseValues.Flags;
+import org.cytoscape.ding.impl.DenseValues.Floats;
+import org.cytoscape.ding.impl.DenseValues.Ints;
+import org.cytoscape.ding.impl.DenseValues.Interned;
+import org.cytoscape.ding.impl.DenseValues.Objects;
 import org.cytoscape.graph.render.stateful.NodeDetails;
 import org.cytoscape.model.CyNode;
 import org.cytoscape.view.model.View;
@@ -59,37 +61,35 @@ class DNodeDetails extends NodeDetails {
 
 	// Parent Network View
 	private final DGraphView dGraphView;
-	private final Object m_deletedEntry = new Object();
 	
 	private final Map<VisualProperty<?>, Object> defaultValues;
 
-	// Mapped Values
-	Map<CyNode, Object> m_colorsLowDetail = new WeakHashMap<CyNode, Object>();
-	Map<CyNode, Object> m_selectedColorsLowDetail = new WeakHashMap<CyNode, Object>();
-	Map<CyNode, NodeShape> m_shapes = new WeakHashMap<CyNode, NodeShape>();
-	Map<CyNode, Paint> m_unselectedPaints = new WeakHashMap<CyNode, Paint>();
-	Map<CyNode, Paint> m_selectedPaints = new WeakHashMap<CyNode, Paint>();
-	Map<CyNode, Float> m_borderWidths = new WeakHashMap<CyNode, Float>();
-	Map<CyNode, Stroke> m_borderStrokes = new WeakHashMap<CyNode, Stroke>();
-	Map<CyNode, Paint> m_borderPaints = new WeakHashMap<CyNode, Paint>();
-	Map<CyNode, Integer> m_labelCounts = new WeakHashMap<CyNode, Integer>();
-	Map<CyNode, String> m_labelTexts = new WeakHashMap<CyNode, String>();
-	Map<CyNode, String> m_tooltipTexts = new WeakHashMap<CyNode, String>();
-	Map<CyNode, Font> m_labelFonts = new WeakHashMap<CyNode, Font>();
-	Map<CyNode, Paint> m_labelPaints = new WeakHashMap<CyNode, Paint>();
-	Map<CyNode, Double> m_labelWidths = new WeakHashMap<CyNode, Double>();
-	Map<CyNode, Integer> m_labelTextAnchors = new WeakHashMap<CyNode, Integer>();
-	Map<CyNode, Integer> m_labelNodeAnchors = new WeakHashMap<CyNode, Integer>();
-	Map<CyNode, Integer> m_labelJustifys = new WeakHashMap<CyNode, Integer>();
-	Map<CyNode, Double> m_labelOffsetXs = new WeakHashMap<CyNode, Double>();
-	Map<CyNode, Double> m_labelOffsetYs = new WeakHashMap<CyNode, Double>();
-	Map<CyNode, Double> m_width = new WeakHashMap<CyNode, Double>();
-	Map<CyNode, List<CustomGraphicLayer>> m_customGraphics = new WeakHashMap<CyNode, List<CustomGraphicLayer>>();
-	Map<CyNode, Integer> m_nodeTansparencies = new WeakHashMap<CyNode, Integer>();
-	Map<CyNode, Integer> m_nodeBorderTansparencies = new WeakHashMap<CyNode, Integer>();
-	Map<CyNode, Integer> m_nodeLabelTansparencies = new WeakHashMap<CyNode, Integer>();
-
-	private final Set<CyNode> selected = new HashSet<CyNode>();
+	// Mapped Values, indexed by DNodeView.ordinal
+	private final ElementOrdinals ordinals = new ElementOrdinals();
+	final Interned<Color> m_colorsLowDetail = new Interned<Color>();
+	final Interned<Color> m_selectedColorsLowDetail = new Interned<Color>();
+	final Interned<NodeShape> m_shapes = new Interned<NodeShape>();
+	final Interned<Paint> m_unselectedPaints = new Interned<Paint>();
+	final Interned<Paint> m_selectedPaints = new Interned<Paint>();
+	final Floats m_borderWidths = new Floats();
+	final Interned<Stroke> m_borderStrokes = new Interned<Stroke>();
+	final Interned<Paint> m_borderPaints = new Interned<Paint>();
+	final Ints m_labelCounts = new Ints();
+	final Objects<String> m_labelTexts = new Objects<String>();
+	final Objects<String> m_tooltipTexts = new Objects<String>();
+	final Interned<Font> m_labelFonts = new Interned<Font>();
+	final Interned<Paint> m_labelPaints = new Interned<Paint>();
+	final Doubles m_labelWidths = new Doubles();
+	final Ints m_labelTextAnchors = new Ints();
+	final Ints m_labelNodeAnchors = new Ints();
+	final Ints m_labelJustifys = new Ints();
+	final Doubles m_labelOffsetXs = new Doubles();
+	final Doubles m_labelOffsetYs = new Doubles();
+	final Ints m_nodeTansparencies = new Ints();
+	final Ints m_nodeBorderTansparencies = new Ints();
+	final Ints m_nodeLabelTansparencies = new Ints();
+
+	private final Flags selected = new Flags();
 
 	// Default values
 	Color m_colorLowDetailDefault = (Color) DVisualLexicon.NODE_FILL_COLOR.getDefault();
@@ -126,30 +126,28 @@ class DNodeDetails extends NodeDetails {
 		if (isCleared)
 			return;
 
-		m_colorsLowDetail = new WeakHashMap<CyNode, Object>();
-		m_selectedColorsLowDetail = new WeakHashMap<CyNode, Object>();
-		m_shapes = new WeakHashMap<CyNode, NodeShape>();
-		m_unselectedPaints = new WeakHashMap<CyNode, Paint>();
-		m_borderWidths = new WeakHashMap<CyNode, Float>();
-		m_borderStrokes = new WeakHashMap<CyNode, Stroke>();
-		m_borderPaints = new WeakHashMap<CyNode, Paint>();
-		m_labelCounts = new WeakHashMap<CyNode, Integer>();
-		m_labelTexts = new WeakHashMap<CyNode, String>();
-		m_tooltipTexts = new WeakHashMap<CyNode, String>();
-		m_labelFonts = new WeakHashMap<CyNode, Font>();
-		m_labelPaints = new WeakHashMap<CyNode, Paint>();
-		m_labelWidths = new WeakHashMap<CyNode, Double>();
-		m_labelTextAnchors = new WeakHashMap<CyNode, Integer>();
-		m_labelNodeAnchors = new WeakHashMap<CyNode, Integer>();
-		m_labelJustifys = new WeakHashMap<CyNode, Integer>();
-		m_labelOffsetXs = new WeakHashMap<CyNode, Double>();
-		m_labelOffsetYs = new WeakHashMap<CyNode, Double>();
-		m_width = new WeakHashMap<CyNode, Double>();
-		m_selectedPaints = new WeakHashMap<CyNode, Paint>();
-		m_customGraphics = new WeakHashMap<CyNode, List<CustomGraphicLayer>>();
-		this.m_nodeTansparencies = new WeakHashMap<CyNode, Integer>();
-		this.m_nodeBorderTansparencies = new WeakHashMap<CyNode, Integer>();
-		this.m_nodeLabelTansparencies = new WeakHashMap<CyNode, Integer>();
+		m_colorsLowDetail.clear();
+		m_selectedColorsLowDetail.clear();
+		m_shapes.clear();
+		m_unselectedPaints.clear();
+		m_borderWidths.clear();
+		m_borderStrokes.clear();
+		m_borderPaints.clear();
+		m_labelCounts.clear();
+		m_labelTexts.clear();
+		m_tooltipTexts.clear();
+		m_labelFonts.clear();
+		m_labelPaints.clear();
+		m_labelWidths.clear();
+		m_labelTextAnchors.clear();
+		m_labelNodeAnchors.clear();
+		m_labelJustifys.clear();
+		m_labelOffsetXs.clear();
+		m_labelOffsetYs.clear();
+		m_selectedPaints.clear();
+		m_nodeTansparencies.clear();
+		m_nodeBorderTansparencies.clear();
+		m_nodeLabelTansparencies.clear();
 
 		// Clear all Custom Graphics
 		for (final View<CyNode> nv : dGraphView.getNodeViews())
@@ -158,15 +156,21 @@ class DNodeDetails extends NodeDetails {
 		isCleared = true;
 	}
 
-	void unregisterNode(final CyNode nodeIdx) {
-		final Object o = m_colorsLowDetail.get(nodeIdx);
-		if ((o != null) && (o != m_deletedEntry))
-			m_colorsLowDetail.put(nodeIdx, m_deletedEntry);
+	/**
+	 * Returns the ordinal for a new node view.
+	 */
+	int registerNode() {
+		return ordinals.acquire();
+	}
 
-		final Object os = m_selectedColorsLowDetail.get(nodeIdx);
-		if ((os != null) && (os != m_deletedEntry))
-			m_selectedColorsLowDetail.put(nodeIdx, m_deletedEntry);
+	/**
+	 * Drops all values of the removed node view and frees its ordinal for reuse.
+	 */
+	void unregisterNode(final DNodeView nodeView) {
+		final int nodeIdx = nodeView.ordinal;
 
+		m_colorsLowDetail.remove(nodeIdx);
+		m_selectedColorsLowDetail.remove(nodeIdx);
 		m_shapes.remove(nodeIdx);
 		m_unselectedPaints.remove(nodeIdx);
 		m_borderWidths.remove(nodeIdx);
@@ -180,7 +184,7 @@ class DNodeDetails extends NodeDetails {
 		m_labelOffsetYs.remove(nodeIdx);
 		m_selectedPaints.remove(nodeIdx);
 		m_tooltipTexts.remove(nodeIdx);
-		selected.remove(nodeIdx);
+		selected.set(nodeIdx, false);
 		m_labelCounts.remove(nodeIdx);
 		m_labelTexts.remove(nodeIdx);
 		m_labelFonts.remove(nodeIdx);
@@ -188,34 +192,43 @@ class DNodeDetails extends NodeDetails {
 		m_nodeTansparencies.remove(nodeIdx);
 		m_nodeBorderTansparencies.remove(nodeIdx);
 		m_nodeLabelTansparencies.remove(nodeIdx);
+
+		ordinals.release(nodeIdx);
+	}
+
+	/**
+	 * Returns the ordinal of the node's view, or -1 if the node has no view.
+	 */
+	private int ordinal(final CyNode node) {
+		final DNodeView dnv = dGraphView.getDNodeView(node);
+		return dnv == null ? -1 : dnv.ordinal;
 	}
 
 	@Override
 	public Color getColorLowDetail(final CyNode node) {
-		boolean isSelected = selected.contains(node);
+		final DNodeView dnv = dGraphView.getDNodeView(node);
 
-		if (isSelected)
-			return getSelectedColorLowDetail(node);
+		if (selected.get(dnv.ordinal))
+			return getSelectedColorLowDetail(dnv);
 		else
-			return getUnselectedColorLowDetail(node);
+			return getUnselectedColorLowDetail(dnv);
 
 	}
 
-	private Color getUnselectedColorLowDetail(CyNode node) {
+	private Color getUnselectedColorLowDetail(final DNodeView dnv) {
 		// Check bypass
-		final DNodeView dnv = dGraphView.getDNodeView(node);
 		if (dnv.isValueLocked(DVisualLexicon.NODE_FILL_COLOR))
 			return (Color) dnv.getVisualProperty(DVisualLexicon.NODE_FILL_COLOR);
 
-		final Object o = m_colorsLowDetail.get(node);
+		final Color o = m_colorsLowDetail.get(dnv.ordinal);
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (o == null)
 			if (m_colorLowDetailDefault == null)
-				return super.getColorLowDetail(node);
+				return super.getColorLowDetail(dnv.getModel());
 			else
 				return m_colorLowDetailDefault;
 
-		return (Color) o;
+		return o;
 	}
 
 	void setColorLowDetailDefault(Color c) {
@@ -224,21 +237,20 @@ class DNodeDetails extends NodeDetails {
 		defaultValues.put(DVisualLexicon.NODE_PAINT, m_colorLowDetailDefault);
 	}
 
-	private Color getSelectedColorLowDetail(CyNode node) {
+	private Color getSelectedColorLowDetail(final DNodeView dnv) {
 		// Check bypass
-		final DNodeView dnv = dGraphView.getDNodeView(node);
 		if (dnv.isValueLocked(DVisualLexicon.NODE_SELECTED_PAINT))
 			return (Color) dnv.getVisualProperty(DVisualLexicon.NODE_SELECTED_PAINT);
 
-		final Object o = m_selectedColorsLowDetail.get(node);
+		final Color o = m_selectedColorsLowDetail.get(dnv.ordinal);
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (o == null)
 			if (m_selectedColorLowDetailDefault == null)
 				return (Color) DNodeView.DEFAULT_NODE_SELECTED_PAINT;
 			else
 				return m_selectedColorLowDetailDefault;
 
-		return (Color) o;
+		return o;
 	}
 
 	void setSelectedColorLowDetailDefault(Color c) {
@@ -247,12 +259,15 @@ class DNodeDetails extends NodeDetails {
 	}
 
 	Paint getSelectedPaint(final CyNode node) {
+		return getSelectedPaint(dGraphView.getDNodeView(node));
+	}
+
+	private Paint getSelectedPaint(final DNodeView dnv) {
 		// Check bypass
-		final DNodeView dnv = dGraphView.getDNodeView(node);
 		if (dnv.isValueLocked(DVisualLexicon.NODE_SELECTED_PAINT))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_SELECTED_PAINT);
 
-		final Paint o = m_selectedPaints.get(node);
+		final Paint o = m_selectedPaints.get(dnv.ordinal);
 
 		if (o == null)
 			if (m_selectedPaintDefault == null)
@@ -275,7 +290,7 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_SHAPE))
 			return DNodeShape.getDShape(dnv.getVisualProperty(DVisualLexicon.NODE_SHAPE)).getNativeShape();
 
-		final NodeShape originaShape = m_shapes.get(node);
+		final NodeShape originaShape = m_shapes.get(dnv.ordinal);
 
 		if (originaShape == null) {
 			if (m_shapeDefault == null)
@@ -297,10 +312,14 @@ class DNodeDetails extends NodeDetails {
 	 * value has the special meaning to remove overridden shape.
 	 */
 	void overrideShape(CyNode node, NodeShape shape) {
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
+
 		if (shape == null)
-			m_shapes.remove(node);
+			m_shapes.remove(ordinal);
 		else {
-			m_shapes.put(node, shape);
+			m_shapes.set(ordinal, shape);
 			isCleared = false;
 		}
 	}
@@ -309,18 +328,21 @@ class DNodeDetails extends NodeDetails {
 	 * Note: this will be used for BOTH unselected and selected.
 	 */
 	public Paint getUnselectedPaint(final CyNode node) {
+		return getUnselectedPaint(dGraphView.getDNodeView(node));
+	}
+
+	private Paint getUnselectedPaint(final DNodeView dev) {
 		Paint paint = null;
 		Integer trans = null;
-		final DNodeView dev = dGraphView.getDNodeView(node);
 		
 		// First check if transparency is locked, because the stored colors may not contain the correct alpha value
 		if (dev.isValueLocked(DVisualLexicon.NODE_TRANSPARENCY))
-			trans = getTransparency(node);
+			trans = getTransparency(dev.getModel());
 		
 		if (dev.isValueLocked(DVisualLexicon.NODE_FILL_COLOR)) {
 			paint = dev.getVisualProperty(DVisualLexicon.NODE_FILL_COLOR);
 		} else {
-			paint = m_unselectedPaints.get(node);
+			paint = m_unselectedPaints.get(dev.ordinal);
 
 			if (paint == null) {
 				// Mapped Value does not exist; use default
@@ -344,16 +366,24 @@ class DNodeDetails extends NodeDetails {
 	}
 
 	void setUnselectedPaint(final CyNode node, final Paint paint) {
-		m_unselectedPaints.put(node, paint);
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
+
+		m_unselectedPaints.set(ordinal, paint);
 		if (paint instanceof Color)
-			m_colorsLowDetail.put(node, paint);
+			m_colorsLowDetail.set(ordinal, (Color) paint);
 		isCleared = false;
 	}
 
 	void setSelectedPaint(final CyNode node, final Paint paint) {
-		m_selectedPaints.put(node, paint);
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
+
+		m_selectedPaints.set(ordinal, paint);
 		if (paint instanceof Color)
-			m_selectedColorsLowDetail.put(node, paint);
+			m_selectedColorsLowDetail.set(ordinal, (Color) paint);
 
 		isCleared = false;
 	}
@@ -363,18 +393,25 @@ class DNodeDetails extends NodeDetails {
 	 */
 	@Override
 	public Paint getFillPaint(final CyNode node) {
-		if (selected.contains(node))
-			return getSelectedPaint(node);
+		final DNodeView dnv = dGraphView.getDNodeView(node);
+
+		if (selected.get(dnv.ordinal))
+			return getSelectedPaint(dnv);
 		else
-			return getUnselectedPaint(node);
+			return getUnselectedPaint(dnv);
 	}
 
 	void select(final CyNode node) {
-		selected.add(node);
+		final int ordinal = ordinal(node);
+		if (ordinal >= 0)
+			selected.set(ordinal, true);
 	}
 
 	void unselect(final CyNode node) {
-		selected.remove(node);
+		// The view may already be gone; unregisterNode() clears the flag then.
+		final int ordinal = ordinal(node);
+		if (ordinal >= 0)
+			selected.set(ordinal, false);
 	}
 
 	@Override
@@ -384,9 +421,9 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_BORDER_WIDTH))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_BORDER_WIDTH).floatValue();
 
-		final Float o = m_borderWidths.get(node);
+		final float o = m_borderWidths.get(dnv.ordinal);
 		
-		if (o == null)
+		if (Float.isNaN(o))
 			if (m_borderWidthDefault == null)
 				return DVisualLexicon.NODE_BORDER_WIDTH.getDefault().floatValue();
 			else
@@ -404,10 +441,14 @@ class DNodeDetails extends NodeDetails {
 	 * A negative width value has the special meaning to remove overridden width.
 	 */
 	void overrideBorderWidth(final CyNode node, final float width) {
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
+
 		if ((width < 0.0f) || (width == super.getBorderWidth(node)))
-			m_borderWidths.remove(node);
+			m_borderWidths.remove(ordinal);
 		else {
-			m_borderWidths.put(node, width);
+			m_borderWidths.set(ordinal, width);
 			isCleared = false;
 		}
 	}
@@ -422,7 +463,7 @@ class DNodeDetails extends NodeDetails {
 			return DLineType.getDLineType(lockedLineType).getStroke(borderWidth);
 		}
 
-		final Stroke stroke = m_borderStrokes.get(node);
+		final Stroke stroke = m_borderStrokes.get(dnv.ordinal);
 		
 		if (stroke == null) {
 			if (m_borderStrokeDefault == null) {
@@ -443,10 +484,14 @@ class DNodeDetails extends NodeDetails {
 	}
 	
 	void overrideBorderStroke(final CyNode node, final Stroke stroke) {
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
+
 		if (stroke == null)
-			m_borderStrokes.remove(node);
+			m_borderStrokes.remove(ordinal);
 		else {
-			m_borderStrokes.put(node, stroke);
+			m_borderStrokes.set(ordinal, stroke);
 			isCleared = false;
 		}
 	}
@@ -468,7 +513,7 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_BORDER_PAINT)) {
 			paint = dnv.getVisualProperty(DVisualLexicon.NODE_BORDER_PAINT);
 		} else {
-			paint = m_borderPaints.get(node);
+			paint = m_borderPaints.get(dnv.ordinal);
 
 			if (paint == null)
 				paint = m_borderPaintDefault != null ? m_borderPaintDefault : super.getBorderPaint(node);
@@ -489,10 +534,14 @@ class DNodeDetails extends NodeDetails {
 	 * A null paint has the special meaning to remove overridden paint.
 	 */
 	void overrideBorderPaint(final CyNode node, final Paint paint) {
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
+
 		if ((paint == null) || paint.equals(super.getBorderPaint(node)))
-			m_borderPaints.remove(node);
+			m_borderPaints.remove(ordinal);
 		else {
-			m_borderPaints.put(node, paint);
+			m_borderPaints.set(ordinal, paint);
 			isCleared = false;
 		}
 	}
@@ -504,9 +553,9 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_LABEL) && !dnv.getVisualProperty(DVisualLexicon.NODE_LABEL).isEmpty())
 			return 1;
 		
-		final Integer o = m_labelCounts.get(node);
+		final int o = m_labelCounts.get(dnv.ordinal);
 
-		if (o == null)
+		if (o == Ints.UNSET)
 			if (m_labelCountDefault == null)
 				return super.getLabelCount(node);
 			else
@@ -523,10 +572,14 @@ class DNodeDetails extends NodeDetails {
 	 * A negative labelCount has the special meaning to remove overridden count.
 	 */
 	void overrideLabelCount(final CyNode node, final int labelCount) {
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
+
 		if ((labelCount < 0) || (labelCount == super.getLabelCount(node)))
-			m_labelCounts.remove(node);
+			m_labelCounts.remove(ordinal);
 		else {
-			m_labelCounts.put(node, labelCount);
+			m_labelCounts.set(ordinal, labelCount);
 			isCleared = false;
 		}
 	}
@@ -539,7 +592,7 @@ class DNodeDetails extends NodeDetails {
 			return dnv.getVisualProperty(DVisualLexicon.NODE_LABEL);
 
 		// final long key = (((long) node) << 32) | ((long) labelInx);
-		final String o = m_labelTexts.get(node);
+		final String o = m_labelTexts.get(dnv.ordinal);
 
 		if (o == null)
 			if (m_labelTextDefault == null)
@@ -560,11 +613,14 @@ class DNodeDetails extends NodeDetails {
 	 */
 	void overrideLabelText(final CyNode node, final int labelInx, final String text) {
 		// final long key = (((long) node) << 32) | ((long) labelInx);
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
 
 		if ((text == null) || text.equals(super.getLabelText(node, labelInx)))
-			m_labelTexts.remove(node);
+			m_labelTexts.remove(ordinal);
 		else {
-			m_labelTexts.put(node, text);
+			m_labelTexts.set(ordinal, text);
 			isCleared = false;
 		}
 	}
@@ -575,7 +631,7 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_TOOLTIP))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_TOOLTIP);
 
-		final String o = m_tooltipTexts.get(node);
+		final String o = m_tooltipTexts.get(dnv.ordinal);
 
 		if (o == null)
 			if (m_tooltipTextDefault == null)
@@ -595,11 +651,14 @@ class DNodeDetails extends NodeDetails {
 	 * A null text has the special meaning to remove overridden text.
 	 */
 	void overrideTooltipText(final CyNode node, final String text) {
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
 
 		if ((text == null) || text.equals(""))
-			m_tooltipTexts.remove(node);
+			m_tooltipTexts.remove(ordinal);
 		else {
-			m_tooltipTexts.put(node, text);
+			m_tooltipTexts.set(ordinal, text);
 			isCleared = false;
 		}
 	}
@@ -617,7 +676,7 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_LABEL_FONT_FACE)) {
 			font = dnv.getVisualProperty(DVisualLexicon.NODE_LABEL_FONT_FACE);
 		} else {
-			font = m_labelFonts.get(node);
+			font = m_labelFonts.get(dnv.ordinal);
 	
 			if (font == null) {
 				font = m_labelFontDefault != null ? 
@@ -643,10 +702,14 @@ class DNodeDetails extends NodeDetails {
 	 * A null font has the special meaning to remove overridden font.
 	 */
 	void overrideLabelFont(final CyNode node, final Font font) {
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
+
 		if (font == null) {
-			m_labelFonts.remove(node);
+			m_labelFonts.remove(ordinal);
 		} else {
-			m_labelFonts.put(node, font);
+			m_labelFonts.set(ordinal, font);
 			isCleared = false;
 		}
 	}
@@ -665,7 +728,7 @@ class DNodeDetails extends NodeDetails {
 			// Check bypass
 			paint = dnv.getVisualProperty(DVisualLexicon.NODE_LABEL_COLOR);
 		} else {
-			paint = m_labelPaints.get(node);
+			paint = m_labelPaints.get(dnv.ordinal);
 
 			if (paint == null)
 				paint = m_labelPaintDefault != null ? m_labelPaintDefault : DVisualLexicon.NODE_LABEL_COLOR.getDefault();
@@ -686,10 +749,14 @@ class DNodeDetails extends NodeDetails {
 	 * A null paint has the special meaning to remove overridden paint.
 	 */
 	void overrideLabelPaint(CyNode node, int labelInx, Paint paint) {
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
+
 		if (paint == null)
-			m_labelPaints.remove(node);
+			m_labelPaints.remove(ordinal);
 		else {
-			m_labelPaints.put(node, paint);
+			m_labelPaints.set(ordinal, paint);
 			isCleared = false;
 		}
 	}
@@ -716,9 +783,9 @@ class DNodeDetails extends NodeDetails {
 			return convertG2ND(anchor.getConversionConstant());
 		}
 
-		final Integer p = m_labelTextAnchors.get(node);
+		final int p = m_labelTextAnchors.get(dnv.ordinal);
 
-		if (p == null)
+		if (p == Ints.UNSET)
 			if (m_labelTextAnchorDefault == null)
 				return super.getLabelTextAnchor(node, labelInx);
 			else
@@ -732,10 +799,14 @@ class DNodeDetails extends NodeDetails {
 	}
 
 	void overrideLabelTextAnchor(final CyNode node, final int inx, final int anchor) {
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
+
 		if (convertG2ND(anchor) == super.getLabelTextAnchor(node, inx))
-			m_labelTextAnchors.remove(node);
+			m_labelTextAnchors.remove(ordinal);
 		else {
-			m_labelTextAnchors.put(node, Integer.valueOf(anchor));
+			m_labelTextAnchors.set(ordinal, anchor);
 			isCleared = false;
 		}
 	}
@@ -750,9 +821,9 @@ class DNodeDetails extends NodeDetails {
 			return convertG2ND(anchor.getConversionConstant());
 		}
 
-		final Integer o = m_labelNodeAnchors.get(node);
+		final int o = m_labelNodeAnchors.get(dnv.ordinal);
 
-		if (o == null)
+		if (o == Ints.UNSET)
 			if (m_labelNodeAnchorDefault == null)
 				return super.getLabelNodeAnchor(node, labelInx);
 			else
@@ -766,10 +837,14 @@ class DNodeDetails extends NodeDetails {
 	}
 
 	void overrideLabelNodeAnchor(final CyNode node, final int inx, final int anchor) {
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
+
 		if (convertG2ND(anchor) == super.getLabelNodeAnchor(node, inx))
-			m_labelNodeAnchors.remove(node);
+			m_labelNodeAnchors.remove(ordinal);
 		else {
-			m_labelNodeAnchors.put(node, Integer.valueOf(anchor));
+			m_labelNodeAnchors.set(ordinal, anchor);
 			isCleared = false;
 		}
 	}
@@ -783,15 +858,15 @@ class DNodeDetails extends NodeDetails {
 			return (float) lp.getOffsetX();
 		}
 
-		final Object o = m_labelOffsetXs.get(node);
+		final double o = m_labelOffsetXs.get(dnv.ordinal);
 
-		if (o == null)
+		if (Double.isNaN(o))
 			if (m_labelOffsetVectorXDefault == null)
 				return super.getLabelOffsetVectorX(node, labelInx);
 			else
 				return m_labelOffsetVectorXDefault.floatValue();
 
-		return ((Double) o).floatValue();
+		return (float) o;
 	}
 
 	void setLabelOffsetVectorXDefault(double x) {
@@ -799,10 +874,14 @@ class DNodeDetails extends NodeDetails {
 	}
 
 	void overrideLabelOffsetVectorX(final CyNode node, final int inx, final double x) {
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
+
 		if (((float) x) == super.getLabelOffsetVectorX(node, inx))
-			m_labelOffsetXs.remove(node);
+			m_labelOffsetXs.remove(ordinal);
 		else {
-			m_labelOffsetXs.put(node, new Double(x));
+			m_labelOffsetXs.set(ordinal, x);
 			isCleared = false;
 		}
 	}
@@ -816,15 +895,15 @@ class DNodeDetails extends NodeDetails {
 			return (float) lp.getOffsetY();
 		}
 
-		final Object o = m_labelOffsetYs.get(node);
+		final double o = m_labelOffsetYs.get(dnv.ordinal);
 
-		if (o == null)
+		if (Double.isNaN(o))
 			if (m_labelOffsetVectorYDefault == null)
 				return super.getLabelOffsetVectorY(node, labelInx);
 			else
 				return m_labelOffsetVectorYDefault.floatValue();
 
-		return ((Double) o).floatValue();
+		return (float) o;
 	}
 
 	void setLabelOffsetVectorYDefault(double y) {
@@ -832,10 +911,14 @@ class DNodeDetails extends NodeDetails {
 	}
 
 	void overrideLabelOffsetVectorY(final CyNode node, final int inx, final double y) {
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
+
 		if (((float) y) == super.getLabelOffsetVectorY(node, inx))
-			m_labelOffsetYs.remove(node);
+			m_labelOffsetYs.remove(ordinal);
 		else {
-			m_labelOffsetYs.put(node, new Double(y));
+			m_labelOffsetYs.set(ordinal, y);
 			isCleared = false;
 		}
 	}
@@ -850,9 +933,9 @@ class DNodeDetails extends NodeDetails {
 			return convertG2ND(justify.getConversionConstant());
 		}
 
-		Integer o = m_labelJustifys.get(node);
+		final int o = m_labelJustifys.get(dnv.ordinal);
 
-		if (o == null)
+		if (o == Ints.UNSET)
 			if (m_labelJustifyDefault == null)
 				return super.getLabelJustify(node, labelInx);
 			else
@@ -866,19 +949,24 @@ class DNodeDetails extends NodeDetails {
 	}
 
 	void overrideLabelJustify(final CyNode node, final int inx, final int justify) {
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
+
 		if (convertG2ND(justify) == super.getLabelJustify(node, inx))
-			m_labelJustifys.remove(node);
+			m_labelJustifys.remove(ordinal);
 		else {
-			m_labelJustifys.put(node, Integer.valueOf(justify));
+			m_labelJustifys.set(ordinal, justify);
 			isCleared = false;
 		}
 	}
 
 	@Override
 	public double getLabelWidth(CyNode node) {
-		final Double o = m_labelWidths.get(node);
+		final DNodeView dnv = dGraphView.getDNodeView(node);
+		final double o = m_labelWidths.get(dnv.ordinal);
 
-		if (o == null)
+		if (Double.isNaN(o))
 			if (m_labelWidthDefault == null)
 				return super.getLabelWidth(node);
 			else
@@ -896,10 +984,14 @@ class DNodeDetails extends NodeDetails {
 	 * A negative width value has the special meaning to remove overridden width.
 	 */
 	void overrideLabelWidth(final CyNode node, final double width) {
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
+
 		if ((width < 0.0) || (width == super.getLabelWidth(node)))
-			m_labelWidths.remove(node);
+			m_labelWidths.remove(ordinal);
 		else {
-			m_labelWidths.put(node, width);
+			m_labelWidths.set(ordinal, width);
 			isCleared = false;
 		}
 	}
@@ -912,7 +1004,8 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_TRANSPARENCY))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_TRANSPARENCY);
 
-		Integer trans = m_nodeTansparencies.get(node);
+		final int stored = m_nodeTansparencies.get(dnv.ordinal);
+		Integer trans = stored == Ints.UNSET ? null : Integer.valueOf(stored);
 		if (trans == null) {
 			trans = transparencyDefault != null ? transparencyDefault : DVisualLexicon.NODE_TRANSPARENCY.getDefault();
 		}
@@ -926,10 +1019,14 @@ class DNodeDetails extends NodeDetails {
 	}
 
 	void overrideTransparency(final CyNode node, final Integer transparency) {
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
+
 		if (transparency == null)
-			m_nodeTansparencies.remove(node);
+			m_nodeTansparencies.remove(ordinal);
 		else {
-			m_nodeTansparencies.put(node, transparency);
+			m_nodeTansparencies.set(ordinal, transparency);
 			isCleared = false;
 		}
 	}
@@ -940,7 +1037,8 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_LABEL_TRANSPARENCY))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_LABEL_TRANSPARENCY);
 
-		Integer trans = m_nodeLabelTansparencies.get(node);
+		final int stored = m_nodeLabelTansparencies.get(dnv.ordinal);
+		Integer trans = stored == Ints.UNSET ? null : Integer.valueOf(stored);
 		if (trans == null) {
 			trans = transparencyLabelDefault != null ? 
 					transparencyLabelDefault : DVisualLexicon.NODE_LABEL_TRANSPARENCY.getDefault();
@@ -955,10 +1053,14 @@ class DNodeDetails extends NodeDetails {
 	}
 
 	void overrideLabelTransparency(final CyNode node, final Integer transparency) {
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
+
 		if (transparency == null)
-			m_nodeLabelTansparencies.remove(node);
+			m_nodeLabelTansparencies.remove(ordinal);
 		else {
-			m_nodeLabelTansparencies.put(node, transparency);
+			m_nodeLabelTansparencies.set(ordinal, transparency);
 			isCleared = false;
 		}
 	}
@@ -969,7 +1071,8 @@ class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_BORDER_TRANSPARENCY))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_BORDER_TRANSPARENCY);
 
-		Integer trans = m_nodeBorderTansparencies.get(node);
+		final int stored = m_nodeBorderTansparencies.get(dnv.ordinal);
+		Integer trans = stored == Ints.UNSET ? null : Integer.valueOf(stored);
 		if (trans == null) {
 			trans = transparencyBorderDefault != null ? 
 					transparencyBorderDefault : DVisualLexicon.NODE_BORDER_TRANSPARENCY.getDefault();
@@ -984,10 +1087,14 @@ class DNodeDetails extends NodeDetails {
 	}
 
 	void overrideBorderTransparency(final CyNode node, final Integer transparency) {
+		final int ordinal = ordinal(node);
+		if (ordinal < 0)
+			return;
+
 		if (transparency == null)
-			m_nodeBorderTansparencies.remove(node);
+			m_nodeBorderTansparencies.remove(ordinal);
 		else {
-			m_nodeBorderTansparencies.put(node, transparency);
+			m_nodeBorderTansparencies.set(ordinal, transparency);
 			isCleared = false;
 		}
 	}
@@ -131,6 +131,9 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 	private boolean selected;
 
 	private final long modelIdx;
+
+	// Index of this view's values in the property stores of DNodeDetails.
+	final int ordinal;
 	
 	/**
 	 * Stores the position of a nodeView when it's hidden so that when the
@@ -175,8 +178,8 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 	
 	private final CyNetworkViewManager netViewMgr; 
 	
-	DNodeView(final VisualLexicon lexicon, final DGraphView graphView, final CyNode model, final VisualMappingManager vmm,
-			final CyNetworkViewManager netViewMgr) {
+	DNodeView(final VisualLexicon lexicon, final DGraphView graphView, final CyNode model, final int ordinal,
+			final VisualMappingManager vmm, final CyNetworkViewManager netViewMgr) {
 		super(model, lexicon);
 		
 		if (graphView == null)
@@ -189,6 +192,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 		this.netViewMgr = netViewMgr;
 		this.modelIdx = model.getSUID();
+		this.ordinal = ordinal;
 		
 		// Initialize custom graphics pool.
 		cgMap = new HashMap<VisualProperty<?>, Set<CustomGraphicLayer>>();
@@ -355,8 +359,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 			if (!(xMax > xMin))
 				throw new IllegalArgumentException("width is too small");
 
-			graphView.m_spacial.delete(modelIdx);
-			graphView.m_spacial.insert(modelIdx, xMin, graphView.m_extentsBuff[1], xMax,
+			graphView.moveNodeInternal(modelIdx, xMin, graphView.m_extentsBuff[1], xMax,
 					graphView.m_extentsBuff[3]);
 			graphView.m_contentChanged = true;
 
@@ -396,8 +399,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 				throw new IllegalArgumentException("height is too small max:" + yMax + " min:" + yMin + " center:"
 						+ yCenter + " height:" + height);
 
-			graphView.m_spacial.delete(modelIdx);
-			graphView.m_spacial.insert(modelIdx, graphView.m_extentsBuff[0], yMin, graphView.m_extentsBuff[2], yMax);
+			graphView.moveNodeInternal(modelIdx, graphView.m_extentsBuff[0], yMin, graphView.m_extentsBuff[2], yMax);
 			graphView.m_contentChanged = true;
 
 			return true;
@@ -434,8 +436,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 			if (!(yMax > yMin))
 				throw new IllegalStateException("height of node has degenerated to zero after " + "rounding");
 
-			graphView.m_spacial.delete(modelIdx);
-			graphView.m_spacial.insert(modelIdx, xMin, yMin, xMax, yMax);
+			graphView.moveNodeInternal(modelIdx, xMin, yMin, xMax, yMax);
 			graphView.m_contentChanged = true;
 			setVisualProperty(BasicVisualLexicon.NODE_X_LOCATION,x);
 			setVisualProperty(BasicVisualLexicon.NODE_Y_LOCATION,y);
@@ -476,8 +477,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 			// If the node is visible, set the extents.
 			if (nodeVisible) {
-				graphView.m_spacial.delete(modelIdx);
-				graphView.m_spacial.insert(modelIdx, xMin, graphView.m_extentsBuff[1], xMax, graphView.m_extentsBuff[3]);
+				graphView.moveNodeInternal(modelIdx, xMin, graphView.m_extentsBuff[1], xMax, graphView.m_extentsBuff[3]);
 				graphView.m_contentChanged = true;
 
 				// If the node is NOT visible (hidden), then update the hidden
@@ -521,8 +521,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 			// If the node is visible, set the extents.
 			if (nodeVisible) {
-				graphView.m_spacial.delete(modelIdx);
-				graphView.m_spacial.insert(modelIdx, graphView.m_extentsBuff[0], yMin, graphView.m_extentsBuff[2], yMax);
+				graphView.moveNodeInternal(modelIdx, graphView.m_extentsBuff[0], yMin, graphView.m_extentsBuff[2], yMax);
 				graphView.m_contentChanged = true;
 
 				// If the node is NOT visible (hidden), then update the hidden
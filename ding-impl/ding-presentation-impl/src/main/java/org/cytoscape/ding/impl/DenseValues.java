@@ -0,0 +1,286 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Array based stores for the per-element visual property values of
+ * {@link DNodeDetails} and {@link DEdgeDetails}, indexed by the ordinals of
+ * {@link ElementOrdinals}.  Numbers are kept unboxed, and values such as
+ * paints, fonts and strokes, which are usually shared by many elements, are
+ * interned so that every element only stores an int code.
+ * <p>
+ * Like the details classes, these stores are not synchronized.
+ */
+final class DenseValues {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private DenseValues() {
+	}
+
+	static int grownCapacity(final int length, final int ordinal) {
+		return Math.max(Math.max(INITIAL_CAPACITY, length + (length >> 1)), ordinal + 1);
+	}
+
+	/**
+	 * Float values; NaN marks an unset value.
+	 */
+	static final class Floats {
+		private float[] values = new float[0];
+
+		float get(final int ordinal) {
+			return ordinal < values.length ? values[ordinal] : Float.NaN;
+		}
+
+		void set(final int ordinal, final float value) {
+			if (ordinal >= values.length) {
+				final int oldLength = values.length;
+				values = Arrays.copyOf(values, grownCapacity(oldLength, ordinal));
+				Arrays.fill(values, oldLength, values.length, Float.NaN);
+			}
+			values[ordinal] = value;
+		}
+
+		void remove(final int ordinal) {
+			if (ordinal < values.length)
+				values[ordinal] = Float.NaN;
+		}
+
+		void clear() {
+			Arrays.fill(values, Float.NaN);
+		}
+	}
+
+	/**
+	 * Double values; NaN marks an unset value.
+	 */
+	static final class Doubles {
+		private double[] values = new double[0];
+
+		double get(final int ordinal) {
+			return ordinal < values.length ? values[ordinal] : Double.NaN;
+		}
+
+		void set(final int ordinal, final double value) {
+			if (ordinal >= values.length) {
+				final int oldLength = values.length;
+				values = Arrays.copyOf(values, grownCapacity(oldLength, ordinal));
+				Arrays.fill(values, oldLength, values.length, Double.NaN);
+			}
+			values[ordinal] = value;
+		}
+
+		void remove(final int ordinal) {
+			if (ordinal < values.length)
+				values[ordinal] = Double.NaN;
+		}
+
+		void clear() {
+			Arrays.fill(values, Double.NaN);
+		}
+	}
+
+	/**
+	 * Int values, used for anchors, arrows, counts and transparencies;
+	 * {@link #UNSET} marks an unset value.
+	 */
+	static final class Ints {
+		static final int UNSET = Integer.MIN_VALUE;
+
+		private int[] values = new int[0];
+
+		int get(final int ordinal) {
+			return ordinal < values.length ? values[ordinal] : UNSET;
+		}
+
+		void set(final int ordinal, final int value) {
+			if (ordinal >= values.length) {
+				final int oldLength = values.length;
+				values = Arrays.copyOf(values, grownCapacity(oldLength, ordinal));
+				Arrays.fill(values, oldLength, values.length, UNSET);
+			}
+			values[ordinal] = value;
+		}
+
+		void remove(final int ordinal) {
+			if (ordinal < values.length)
+				values[ordinal] = UNSET;
+		}
+
+		void clear() {
+			Arrays.fill(values, UNSET);
+		}
+	}
+
+	/**
+	 * Object values that are mostly distinct per element, such as label texts.
+	 */
+	static final class Objects<T> {
+		private Object[] values = new Object[0];
+
+		@SuppressWarnings("unchecked")
+		T get(final int ordinal) {
+			return ordinal < values.length ? (T) values[ordinal] : null;
+		}
+
+		void set(final int ordinal, final T value) {
+			if (ordinal >= values.length)
+				values = Arrays.copyOf(values, grownCapacity(values.length, ordinal));
+			values[ordinal] = value;
+		}
+
+		void remove(final int ordinal) {
+			if (ordinal < values.length)
+				values[ordinal] = null;
+		}
+
+		void clear() {
+			Arrays.fill(values, null);
+		}
+	}
+
+	/**
+	 * Object values that many elements share, such as paints, fonts and
+	 * strokes.  Each distinct value is stored once, and elements refer to it
+	 * by code.  Values that are no longer referenced are dropped once they
+	 * outnumber the referenced ones.
+	 */
+	static final class Interned<T> {
+		private static final int MIN_COMPACT_SIZE = 1024;
+
+		private int[] codes = new int[0];
+		private final List<T> palette = new ArrayList<T>();
+		private final Map<T, Integer> paletteIndex = new HashMap<T, Integer>();
+		private int live;
+
+		Interned() {
+			palette.add(null); // code 0 means "unset"
+		}
+
+		T get(final int ordinal) {
+			return ordinal < codes.length ? palette.get(codes[ordinal]) : null;
+		}
+
+		void set(final int ordinal, final T value) {
+			if (value == null) {
+				remove(ordinal);
+				return;
+			}
+
+			if (ordinal >= codes.length)
+				codes = Arrays.copyOf(codes, grownCapacity(codes.length, ordinal));
+
+			Integer code = paletteIndex.get(value);
+			if (code == null) {
+				if (palette.size() >= MIN_COMPACT_SIZE && palette.size() > 2 * live)
+					compact();
+
+				code = palette.size();
+				palette.add(value);
+				paletteIndex.put(value, code);
+			}
+
+			if (codes[ordinal] == 0)
+				live++;
+			codes[ordinal] = code;
+		}
+
+		void remove(final int ordinal) {
+			if (ordinal < codes.length && codes[ordinal] != 0) {
+				codes[ordinal] = 0;
+				live--;
+			}
+		}
+
+		void clear() {
+			Arrays.fill(codes, 0);
+			palette.subList(1, palette.size()).clear();
+			paletteIndex.clear();
+			live = 0;
+		}
+
+		/**
+		 * Returns the number of distinct values currently stored.
+		 */
+		int paletteSize() {
+			return palette.size() - 1;
+		}
+
+		private void compact() {
+			final int[] remap = new int[palette.size()];
+			final List<T> used = new ArrayList<T>();
+			used.add(null);
+
+			for (int i = 0; i < codes.length; i++) {
+				final int code = codes[i];
+				if (code == 0)
+					continue;
+				if (remap[code] == 0) {
+					remap[code] = used.size();
+					used.add(palette.get(code));
+				}
+				codes[i] = remap[code];
+			}
+
+			palette.clear();
+			palette.addAll(used);
+			paletteIndex.clear();
+			for (int code = 1; code < palette.size(); code++)
+				paletteIndex.put(palette.get(code), code);
+		}
+	}
+
+	/**
+	 * One flag per element.
+	 */
+	static final class Flags {
+		private long[] words = new long[0];
+
+		boolean get(final int ordinal) {
+			final int word = ordinal >>> 6;
+			return word < words.length && (words[word] & (1L << ordinal)) != 0;
+		}
+
+		void set(final int ordinal, final boolean value) {
+			final int word = ordinal >>> 6;
+			if (word >= words.length) {
+				if (!value)
+					return;
+				words = Arrays.copyOf(words, grownCapacity(words.length, word));
+			}
+
+			if (value)
+				words[word] |= 1L << ordinal;
+			else
+				words[word] &= ~(1L << ordinal);
+		}
+	}
+}
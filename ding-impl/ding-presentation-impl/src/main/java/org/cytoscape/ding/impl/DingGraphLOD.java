@@ -25,6 +25,10 @@ package org.cytoscape.ding.impl;
  */
 
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.cytoscape.application.CyApplicationManager;
 import org.cytoscape.graph.render.stateful.GraphLOD;
@@ -45,12 +49,18 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 	protected int nodeLabelThreshold;
 	protected int edgeArrowThreshold;
 	protected int edgeLabelThreshold;
+	protected int renderThreads;
+	protected int renderTileSize;
+	protected int parallelRenderThreshold;
 
 	private final Properties props;
 	private final CyProperty<Properties> cyProp;
 
 	private final CyApplicationManager appManager;
 
+	// Renders tiles besides the rendering thread; created on first use.
+	private ExecutorService renderExecutor;
+
 
 	public DingGraphLOD(final CyProperty<Properties> defaultProps, final CyApplicationManager appManager) {
 		if (defaultProps == null)
@@ -69,6 +79,15 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 		nodeLabelThreshold = parseInt(props.getProperty("render.nodeLabelThreshold"), 200);
 		edgeArrowThreshold = parseInt(props.getProperty("render.edgeArrowThreshold"), 600);
 		edgeLabelThreshold = parseInt(props.getProperty("render.edgeLabelThreshold"), 200);
+		renderThreads = parseInt(props.getProperty("render.threads"), 1);
+		renderTileSize = parseInt(props.getProperty("render.tileSize"), 256);
+		parallelRenderThreshold = parseInt(props.getProperty("render.parallelThreshold"), 2000);
+
+		// 0 or less means one thread per processor.
+		if (renderThreads <= 0)
+			renderThreads = Runtime.getRuntime().availableProcessors();
+		if (renderTileSize < 16)
+			renderTileSize = 256;
 
 	}
 
@@ -90,7 +109,11 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 		if (!e.getSource().equals(cyProp))
 			return;
 
+		final int oldRenderThreads = renderThreads;
 		init();
+		if (renderThreads != oldRenderThreads)
+			dispose();
+
 		appManager.getCurrentNetworkView().updateView();
 
 	}
@@ -336,6 +359,63 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 		return false;
 	}
 
+	/**
+	 * Determines how many threads render a frame. Frames with fewer rendered
+	 * nodes and edges than the render.parallelThreshold property are always
+	 * rendered on one thread; larger ones use render.threads threads.
+	 * 
+	 * @param renderNodeCount
+	 *            the number of nodes that are about to be rendered.
+	 * @param renderEdgeCount
+	 *            the number of edges that are about to be rendered.
+	 * @return the number of rendering threads.
+	 */
+	public int renderThreads(final int renderNodeCount, final int renderEdgeCount) {
+		if ((renderNodeCount + renderEdgeCount) < parallelRenderThreshold)
+			return 1;
+
+		return renderThreads;
+	}
+
+	public int renderTileSize() {
+		return renderTileSize;
+	}
+
+	/**
+	 * Returns a pool of render.threads - 1 daemon threads, which render tiles
+	 * together with the rendering thread, or null if render.threads is 1.
+	 */
+	@Override
+	public synchronized ExecutorService renderExecutor() {
+		if (renderThreads < 2)
+			return null;
+
+		if (renderExecutor == null) {
+			renderExecutor = Executors.newFixedThreadPool(renderThreads - 1, new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				public Thread newThread(final Runnable r) {
+					final Thread t = new Thread(r, "GraphRenderer-tile-" + count.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+
+		return renderExecutor;
+	}
+
+	/**
+	 * Shuts down the tile rendering threads.  Tiles that are being rendered
+	 * are finished; a later call to renderExecutor() starts a new pool.
+	 */
+	public synchronized void dispose() {
+		if (renderExecutor != null) {
+			renderExecutor.shutdown();
+			renderExecutor = null;
+		}
+	}
+
 	public double getNestedNetworkImageScaleFactor() {
 		final String scaleFactor = props.getProperty("nestedNetwork.imageScaleFactor", "1.0");
 		try {
@@ -0,0 +1,64 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Arrays;
+
+/**
+ * Hands out small, dense ordinals to the node or edge views of one network
+ * view, so that their visual property values can be kept in arrays.  Ordinals
+ * of removed views are reused.
+ */
+final class ElementOrdinals {
+
+	private int[] free = new int[16];
+	private int freeCount;
+	private int next;
+
+	int acquire() {
+		if (freeCount > 0)
+			return free[--freeCount];
+
+		return next++;
+	}
+
+	void release(final int ordinal) {
+		if (freeCount == free.length)
+			free = Arrays.copyOf(free, free.length * 2);
+
+		free[freeCount++] = ordinal;
+	}
+
+	/**
+	 * Returns one more than the largest ordinal handed out so far.
+	 */
+	int capacity() {
+		return next;
+	}
+
+	int size() {
+		return next - freeCount;
+	}
+}
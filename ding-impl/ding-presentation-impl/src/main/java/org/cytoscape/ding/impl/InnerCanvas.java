@@ -1309,13 +1309,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 	
 					// TODO: Optimize to not instantiate new array on every call.
 					final long[] selectedNodes = m_view.getSelectedNodeIndices();
-	
-					for (int i = 0; i < selectedNodes.length; i++) {
-						final NodeView dNodeView = m_view.getDNodeView(selectedNodes[i]);
-						final double oldXPos = dNodeView.getXPosition();
-						final double oldYPos = dNodeView.getYPosition();
-						dNodeView.setOffset(oldXPos + deltaX, oldYPos + deltaY);
-					}
+					m_view.moveNodes(selectedNodes, deltaX, deltaY);
 	
 					final LongEnumerator anchorsToMove = m_view.m_selectedAnchors.searchRange(Integer.MIN_VALUE,
 					                                                                         Integer.MAX_VALUE,
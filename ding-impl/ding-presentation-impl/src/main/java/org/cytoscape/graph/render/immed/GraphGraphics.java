@@ -50,6 +50,7 @@ import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.cytoscape.view.presentation.customgraphics.CustomGraphicLayer;
 import org.cytoscape.view.presentation.customgraphics.ImageCustomGraphicLayer;
@@ -166,10 +167,15 @@ public final class GraphGraphics {
 	private static final double CURVE_ELLIPTICAL = (4.0d * (Math.sqrt(2.0d) - 1.0d)) / 3.0d;
 
 	// Mapping from node to its border stroke object.
-	private static final Map<Float,Stroke> borderStrokes = new HashMap<Float,Stroke>();
+	private static final Map<Float,Stroke> borderStrokes = new ConcurrentHashMap<Float,Stroke>();
 
 	static {		
-		nodeShapes = new HashMap<Byte,NodeShape>();
+		nodeShapes = createNodeShapes();
+		arrows = createArrows();
+	}
+
+	private static Map<Byte,NodeShape> createNodeShapes() {
+		final Map<Byte,NodeShape> nodeShapes = new HashMap<Byte,NodeShape>();
 
 		nodeShapes.put(SHAPE_RECTANGLE, new RectangleNodeShape()); 
 		nodeShapes.put(SHAPE_ELLIPSE, new EllipseNodeShape()); 
@@ -181,7 +187,11 @@ public final class GraphGraphics {
 		nodeShapes.put(SHAPE_TRIANGLE, new TriangleNodeShape()); 
 		nodeShapes.put(SHAPE_VEE, new VeeNodeShape());
 
-		arrows = new HashMap<Byte,Arrow>();
+		return nodeShapes;
+	}
+
+	private static Map<Byte,Arrow> createArrows() {
+		final Map<Byte,Arrow> arrows = new HashMap<Byte,Arrow>();
 
 		arrows.put(ARROW_NONE, new NoArrow() );
 		arrows.put(ARROW_DELTA, new DeltaArrow() );
@@ -191,6 +201,8 @@ public final class GraphGraphics {
 		arrows.put(ARROW_ARROWHEAD, new ArrowheadArrow() );
 		arrows.put(ARROW_HALF_TOP, new HalfTopArrow() );
 		arrows.put(ARROW_HALF_BOTTOM, new HalfBottomArrow() );
+
+		return arrows;
 	}
 
 	private static final float DEF_SHAPE_SIZE = 32;
@@ -226,6 +238,12 @@ public final class GraphGraphics {
 	// This member variable only to be used from within defineCustomNodeShape().
 	private byte m_lastCustomShapeType = s_last_shape;
 
+	// Node shapes and arrows reuse their geometry objects between calls, so
+	// every instance draws with its own set; this lets several instances
+	// render on different threads at the same time.
+	private final Map<Byte,NodeShape> m_nodeShapes = createNodeShapes();
+	private final Map<Byte,Arrow> m_arrows = createArrows();
+
 	// This is only used by computeCubicPolyEdgePath().
 	private final float[] m_floatBuff = new float[2];
 
@@ -388,6 +406,14 @@ public final class GraphGraphics {
 		m_currXform.translate(-xCenter, -yCenter);
 	}
 
+	/**
+	 * Returns true if clear() fills the image with the background paint, false
+	 * if it draws on top of what the image already contains.
+	 */
+	public final boolean clearsImage() {
+		return m_clear;
+	}
+
 	/**
 	 * Uses the current transform to map the specified image coordinates to node
 	 * coordinates. The transform used is defined by the last call to clear().
@@ -882,9 +908,34 @@ public final class GraphGraphics {
 		}
 	}
 
+	/*
+	 * Returns this instance's copy of the node shape, or null if the shape is
+	 * not defined.
+	 */
+	private final NodeShape nodeShape(final byte nodeShape) {
+		NodeShape ns = m_nodeShapes.get(nodeShape);
+
+		if (ns == null) {
+			final NodeShape shared = nodeShapes.get(nodeShape);
+
+			if (shared instanceof LegacyCustomNodeShape) {
+				final float[] coords = ((LegacyCustomNodeShape) shared).getCoords();
+				final double[] copy = new double[coords.length];
+
+				for (int i = 0; i < coords.length; i++)
+					copy[i] = coords[i];
+
+				ns = new LegacyCustomNodeShape(copy, nodeShape);
+				m_nodeShapes.put(nodeShape, ns);
+			}
+		}
+
+		return ns;
+	}
+
 	private final Shape getShape(final byte nodeShape, final float xMin,
 			final float yMin, final float xMax, final float yMax) {
-		NodeShape ns = nodeShapes.get(nodeShape);
+		NodeShape ns = nodeShape(nodeShape);
 		if ( ns != null )
 			return ns.getShape(xMin,yMin,xMax,yMax);
 		else
@@ -1527,7 +1578,7 @@ public final class GraphGraphics {
 	 * specified. 
 	 */
 	private final Shape computeUntransformedArrow(final byte arrowType) {
-		Arrow a = arrows.get(arrowType);
+		Arrow a = m_arrows.get(arrowType);
 		if ( a != null )
 			return a.getArrowShape();
 		else
@@ -1540,7 +1591,7 @@ public final class GraphGraphics {
 	 * only if a cap is necessary for the arrow type specified. 
 	 */
 	private final Shape computeUntransformedArrowCap(final byte arrowType, final double ratio) {
-		Arrow a = arrows.get(arrowType);
+		Arrow a = m_arrows.get(arrowType);
 		if ( a != null )
 			return a.getCapShape(ratio);
 		else
@@ -1805,7 +1856,7 @@ public final class GraphGraphics {
 			}
 		}
 
-		NodeShape ns = nodeShapes.get(nodeShape);
+		NodeShape ns = nodeShape(nodeShape);
 		if (ns == null)
 			return false;
 		else
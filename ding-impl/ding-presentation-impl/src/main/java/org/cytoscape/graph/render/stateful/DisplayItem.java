@@ -0,0 +1,143 @@
+package org.cytoscape.graph.render.stateful;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.awt.Font;
+import java.awt.Paint;
+import java.awt.Shape;
+import java.awt.geom.Rectangle2D;
+
+import org.cytoscape.graph.render.immed.GraphGraphics;
+
+
+/**
+ * A node or edge whose visual properties have been looked up and whose labels
+ * have been laid out, so that it can be drawn without going back to the
+ * NodeDetails or EdgeDetails.  This separates reading the view model, which
+ * has to happen on the rendering thread, from drawing, which may be spread
+ * over several threads; see TiledRenderer.
+ */
+abstract class DisplayItem {
+
+	/**
+	 * The bounds of everything draw() paints, in node coordinates.  Only
+	 * maintained when the item is rendered in tiles.
+	 */
+	float xMin;
+	float yMin;
+	float xMax;
+	float yMax;
+
+	private Label[] labels = new Label[0];
+	private int labelCount;
+	boolean textAsShape;
+
+	/**
+	 * Draws this item; must not call into NodeDetails or EdgeDetails.
+	 */
+	abstract void draw(GraphGraphics grafx);
+
+	final void resetBounds() {
+		xMin = yMin = Float.POSITIVE_INFINITY;
+		xMax = yMax = Float.NEGATIVE_INFINITY;
+	}
+
+	final void include(final double x0, final double y0, final double x1, final double y1) {
+		xMin = (float) Math.min(xMin, Math.floor(x0));
+		yMin = (float) Math.min(yMin, Math.floor(y0));
+		xMax = (float) Math.max(xMax, Math.ceil(x1));
+		yMax = (float) Math.max(yMax, Math.ceil(y1));
+	}
+
+	final void include(final Shape shape, final double xOffset, final double yOffset) {
+		final Rectangle2D bounds = shape.getBounds2D();
+		include(bounds.getMinX() + xOffset, bounds.getMinY() + yOffset,
+		        bounds.getMaxX() + xOffset, bounds.getMaxY() + yOffset);
+	}
+
+	final void includeLabels() {
+		for (int i = 0; i < labelCount; i++) {
+			final Label label = labels[i];
+			final double halfWidth = 0.5d * label.text.getMaxLineWidth();
+			final double halfHeight = 0.5d * label.text.getTotalHeight();
+			include(label.xCenter - halfWidth, label.yCenter - halfHeight,
+			        label.xCenter + halfWidth, label.yCenter + halfHeight);
+		}
+	}
+
+	final void pad(final double amount) {
+		xMin -= amount;
+		yMin -= amount;
+		xMax += amount;
+		yMax += amount;
+	}
+
+	final boolean intersects(final double x0, final double y0, final double x1, final double y1) {
+		return (xMin <= x1) && (xMax >= x0) && (yMin <= y1) && (yMax >= y0);
+	}
+
+	final void clearLabels() {
+		for (int i = 0; i < labelCount; i++)
+			labels[i].text = null;
+
+		labelCount = 0;
+	}
+
+	final Label addLabel() {
+		if (labelCount == labels.length) {
+			final Label[] newLabels = new Label[labels.length + 1];
+			System.arraycopy(labels, 0, newLabels, 0, labels.length);
+			newLabels[labels.length] = new Label();
+			labels = newLabels;
+		}
+
+		return labels[labelCount++];
+	}
+
+	final void drawLabels(final GraphGraphics grafx) {
+		for (int i = 0; i < labelCount; i++) {
+			final Label label = labels[i];
+			TextRenderingUtils.renderHorizontalText(grafx, label.text, label.font,
+			                                        label.fontScaleFactor,
+			                                        label.xCenter, label.yCenter,
+			                                        label.justify, label.paint,
+			                                        textAsShape);
+		}
+	}
+
+	/**
+	 * A measured label and where to draw it.
+	 */
+	static final class Label {
+		MeasuredLineCreator text;
+		Font font;
+		double fontScaleFactor;
+		float xCenter;
+		float yCenter;
+		byte justify;
+		Paint paint;
+	}
+}
@@ -0,0 +1,195 @@
+package org.cytoscape.graph.render.stateful;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Paint;
+import java.awt.Stroke;
+import java.awt.geom.GeneralPath;
+
+import org.cytoscape.graph.render.immed.EdgeAnchors;
+import org.cytoscape.graph.render.immed.GraphGraphics;
+
+
+/**
+ * An edge that is ready to be drawn, at low or at full detail.  The edge
+ * anchors are copied, so that drawing does not touch the edge view.
+ */
+final class EdgeDisplayItem extends DisplayItem implements EdgeAnchors {
+
+	boolean lowDetail;
+
+	// Endpoints; at full detail these are already adjusted for node shapes.
+	float srcX;
+	float srcY;
+	float trgX;
+	float trgY;
+
+	float thickness;
+	Stroke stroke;
+	Paint paint; // The edge color at low detail.
+
+	byte srcArrow;
+	byte trgArrow;
+	float srcArrowSize;
+	float trgArrowSize;
+	Paint srcArrowPaint;
+	Paint trgArrowPaint;
+
+	// Null anchors (not rendering anchors) are distinct from zero anchors.
+	boolean hasAnchors;
+	private int anchorCount;
+	private float[] anchorCoords = new float[0];
+	private float[] anchorSizes = new float[0];
+	private Paint[] anchorPaints = new Paint[0];
+
+	void setLowDetail(final float x0, final float y0, final float x1, final float y1,
+	                  final Color color) {
+		lowDetail = true;
+		srcX = x0;
+		srcY = y0;
+		trgX = x1;
+		trgY = y1;
+		paint = color;
+		hasAnchors = false;
+		anchorCount = 0;
+		clearLabels();
+	}
+
+	/**
+	 * Copies the anchors, or records that there are none if anchors is null.
+	 */
+	void setAnchors(final EdgeAnchors anchors) {
+		hasAnchors = anchors != null;
+		anchorCount = hasAnchors ? anchors.numAnchors() : 0;
+
+		if (anchorCoords.length < (anchorCount * 2)) {
+			anchorCoords = new float[anchorCount * 2];
+			anchorSizes = new float[anchorCount];
+			anchorPaints = new Paint[anchorCount];
+		}
+
+		for (int i = 0; i < anchorCount; i++) {
+			anchors.getAnchor(i, anchorCoords, i * 2);
+			anchorSizes[i] = 0.0f;
+			anchorPaints[i] = null;
+		}
+	}
+
+	void setAnchorHandle(final int anchorInx, final float size, final Paint handlePaint) {
+		anchorSizes[anchorInx] = size;
+		anchorPaints[anchorInx] = handlePaint;
+	}
+
+	/**
+	 * Computes the bounds of the edge, its arrows, anchor handles and labels;
+	 * path is the edge path as returned by GraphGraphics.getEdgePath().
+	 */
+	void computeBounds(final GeneralPath path, final double pixel) {
+		resetBounds();
+
+		if (lowDetail) {
+			include(Math.min(srcX, trgX), Math.min(srcY, trgY), Math.max(srcX, trgX),
+			        Math.max(srcY, trgY));
+			pad(2.0d * pixel);
+
+			return;
+		}
+
+		include(Math.min(srcX, trgX), Math.min(srcY, trgY), Math.max(srcX, trgX),
+		        Math.max(srcY, trgY));
+		include(path, 0.0d, 0.0d);
+
+		if ((stroke != null) && !(stroke instanceof BasicStroke)) {
+			// Decorative strokes may reach well beyond the edge thickness.
+			include(stroke.createStrokedShape(path), 0.0d, 0.0d);
+		}
+
+		double reach = thickness;
+
+		if (stroke instanceof BasicStroke) {
+			final BasicStroke basic = (BasicStroke) stroke;
+			reach = Math.max(reach, basic.getLineWidth() * Math.max(1.0f, basic.getMiterLimit()));
+		}
+
+		reach = Math.max(reach, 2.0d * Math.max(srcArrowSize, trgArrowSize));
+
+		for (int i = 0; i < anchorCount; i++)
+			reach = Math.max(reach, anchorSizes[i]);
+
+		pad(reach + (2.0d * pixel));
+
+		for (int i = 0; i < anchorCount; i++)
+			include(anchorCoords[i * 2] - reach, anchorCoords[(i * 2) + 1] - reach,
+			        anchorCoords[i * 2] + reach, anchorCoords[(i * 2) + 1] + reach);
+
+		includeLabels();
+		pad(2.0d * pixel);
+	}
+
+	@Override
+	void draw(final GraphGraphics grafx) {
+		if (lowDetail) {
+			grafx.drawEdgeLow(srcX, srcY, trgX, trgY, (Color) paint);
+
+			return;
+		}
+
+		grafx.drawEdgeFull(srcArrow, srcArrowSize, srcArrowPaint, trgArrow, trgArrowSize,
+		                   trgArrowPaint, srcX, srcY, hasAnchors ? this : null, trgX, trgY,
+		                   thickness, stroke, paint);
+
+		// Take care of edge anchor rendering.
+		for (int k = 0; k < anchorCount; k++) {
+			final float anchorSize = anchorSizes[k];
+
+			if (anchorSize > 0.0f) {
+				final float x = anchorCoords[k * 2];
+				final float y = anchorCoords[(k * 2) + 1];
+				grafx.drawNodeFull(GraphGraphics.SHAPE_RECTANGLE,
+				                   (float) (x - (anchorSize / 2.0d)),
+				                   (float) (y - (anchorSize / 2.0d)),
+				                   (float) (x + (anchorSize / 2.0d)),
+				                   (float) (y + (anchorSize / 2.0d)),
+				                   anchorPaints[k], 0.0f, null, null);
+			}
+		}
+
+		drawLabels(grafx);
+	}
+
+	@Override
+	public int numAnchors() {
+		return anchorCount;
+	}
+
+	@Override
+	public void getAnchor(final int anchorIndex, final float[] anchorArr, final int offset) {
+		anchorArr[offset] = anchorCoords[anchorIndex * 2];
+		anchorArr[offset + 1] = anchorCoords[(anchorIndex * 2) + 1];
+	}
+}
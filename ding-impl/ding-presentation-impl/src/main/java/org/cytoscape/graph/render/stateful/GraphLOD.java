@@ -25,6 +25,9 @@ package org.cytoscape.graph.render.stateful;
  */
 
 
+import java.util.concurrent.ExecutorService;
+
+
 /**
  * An instance of this class defines the level of detail that goes into
  * a single rendering of a graph.  This class is meant to be subclassed; its
@@ -224,5 +227,43 @@ public class GraphLOD {
 		return false;
 	}
 
+	/**
+	 * Determines how many threads render a frame.  With more than one thread
+	 * the image is split into square tiles of renderTileSize() pixels, which
+	 * are drawn concurrently and then copied into the image; the result is
+	 * the same as when rendering on one thread.  By default this method
+	 * returns 1, so that all rendering happens on the calling thread.
+	 * @param renderNodeCount the number of nodes that are about to be rendered.
+	 * @param renderEdgeCount the number of edges that are about to be rendered.
+	 * @return the number of threads to render with; values below 2 mean that
+	 *   the frame is rendered on the calling thread only.
+	 * @see #renderTileSize()
+	 */
+	public int renderThreads(final int renderNodeCount, final int renderEdgeCount) {
+		return 1;
+	}
+
+	/**
+	 * Returns the width and height, in pixels, of the tiles that are rendered
+	 * concurrently when renderThreads() returns more than 1.  By default this
+	 * method returns 256.
+	 * @see #renderThreads(int, int)
+	 */
+	public int renderTileSize() {
+		return 256;
+	}
+
+	/**
+	 * Returns the executor that renders tiles besides the calling thread when
+	 * renderThreads() returns more than 1.  It should have renderThreads() - 1
+	 * threads and belongs to this object, which has to shut it down.  By
+	 * default this method returns null, so that all tiles are rendered on the
+	 * calling thread.
+	 * @see #renderThreads(int, int)
+	 */
+	public ExecutorService renderExecutor() {
+		return null;
+	}
+
 	public double getNestedNetworkImageScaleFactor() { return 1.0; }
 }
@@ -27,9 +27,7 @@ package org.cytoscape.graph.render.stateful;
 
 import java.awt.Font;
 import java.awt.Paint;
-import java.awt.Shape;
 import java.awt.Stroke;
-import java.awt.TexturePaint;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.PathIterator;
 import java.util.Iterator;
@@ -100,7 +98,10 @@ public final class GraphRenderer {
 	}
 
 	/**
-	 * Renders a graph.
+	 * Renders a graph.  When lod.renderThreads() asks for more than one thread
+	 * and grafx draws onto a BufferedImage with a plain color background, nodes
+	 * and edges are first looked up on the calling thread and then drawn in
+	 * tiles by several threads; this method returns when all tiles are done.
 	 * @param graph the graph topology; nodes in this graph must correspond to
 	 *   objKeys in nodePositions (the SpacialIndex2D parameter) and vice versa.
 	 * @param nodePositions defines the positions and extents of nodes in graph;
@@ -295,6 +296,19 @@ public final class GraphRenderer {
 			grafx.clear(bgPaint, xCenter, yCenter, scaleFactor);
 		}
 
+		// With several rendering threads, nodes and edges are collected and then
+		// drawn in tiles; otherwise each one is drawn as soon as it is prepared.
+		final int renderThreads = lod.renderThreads(renderNodeCount, renderEdgeCount);
+		final TiledRenderer tiles;
+
+		if ((renderThreads > 1) && TiledRenderer.canRender(grafx, bgPaint))
+			tiles = new TiledRenderer(scaleFactor);
+		else
+			tiles = null;
+
+		final EdgeDisplayItem reusedEdge = (tiles == null) ? new EdgeDisplayItem() : null;
+		final NodeDisplayItem reusedNode = (tiles == null) ? new NodeDisplayItem() : null;
+
 		// Render the edges first.  No edge shall be rendered twice.  Render edge
 		// labels.  A label is not necessarily on top of every edge; it is only
 		// on top of the edge it belongs to.
@@ -331,12 +345,14 @@ public final class GraphRenderer {
 
 						if (nodeBuff.get(otherNode) < 0) { // Has not yet been rendered.
 							nodePositions.exists(otherNode, floatBuff2, 0);
-							grafx.drawEdgeLow(nodeX, nodeY, 
+							final EdgeDisplayItem item = (tiles == null) ? reusedEdge : new EdgeDisplayItem();
+							item.setLowDetail(nodeX, nodeY, 
 							                  // Again, casting issue - tradeoff between
 							                  // accuracy and performance.
 							                  (floatBuff2[0] + floatBuff2[2]) / 2,
 							                  (floatBuff2[1] + floatBuff2[3]) / 2,
 							                  edgeDetails.getColorLowDetail(edge));
+							emitEdge(item, grafx, tiles, path2d);
 						}
 					}
 
@@ -379,240 +395,15 @@ public final class GraphRenderer {
 								trgExtents = floatBuff1;
 							}
 
-							// Compute visual attributes that do not depend on LOD.
-							final float thickness = edgeDetails.getWidth(edge);
-							final Stroke edgeStroke = edgeDetails.getStroke(edge);
-							final Paint segPaint = edgeDetails.getPaint(edge);
-
-							// Compute arrows.
-							final byte srcArrow;
-
-							// Compute arrows.
-							final byte trgArrow;
-							final float srcArrowSize;
-							final float trgArrowSize;
-							final Paint srcArrowPaint;
-							final Paint trgArrowPaint;
-
-							if ((lodBits & LOD_EDGE_ARROWS) == 0) { // Not rendering arrows.
-								trgArrow = srcArrow = GraphGraphics.ARROW_NONE;
-								trgArrowSize = srcArrowSize = 0.0f;
-								trgArrowPaint = srcArrowPaint = null;
-							} else { // Rendering edge arrows.
-								srcArrow = edgeDetails.getSourceArrowShape(edge);
-								trgArrow = edgeDetails.getTargetArrowShape(edge);
-								srcArrowSize = ((srcArrow == GraphGraphics.ARROW_NONE) 
-								                 ? 0.0f
-								                 : edgeDetails.getSourceArrowSize(edge));
-								trgArrowSize = ((trgArrow == GraphGraphics.ARROW_NONE)
-								                 ? 0.0f
-								                 : edgeDetails.getTargetArrowSize(edge));
-								srcArrowPaint = ((srcArrow == GraphGraphics.ARROW_NONE)
-								                 ? null : edgeDetails.getSourceArrowPaint(edge));
-								trgArrowPaint = ((trgArrow == GraphGraphics.ARROW_NONE)
-								                 ? null : edgeDetails.getTargetArrowPaint(edge));
-							}
-
-							// Compute the anchors to use when rendering edge.
-							final EdgeAnchors anchors = (((lodBits & LOD_EDGE_ANCHORS) == 0) ? null
-							                                                                 : edgeDetails
-							                                                                   .getAnchors(edge));
+							final EdgeDisplayItem item = (tiles == null) ? reusedEdge : new EdgeDisplayItem();
 
-							if (!computeEdgeEndpoints(grafx, srcExtents, srcShape, srcArrow,
-							                          srcArrowSize, anchors, trgExtents, trgShape,
-							                          trgArrow, trgArrowSize, floatBuff3, floatBuff4))
+							if (!prepareEdgeHigh(item, edge, srcExtents, srcShape, trgExtents,
+							                     trgShape, grafx, edgeDetails, lodBits, floatBuff3,
+							                     floatBuff4, floatBuff5, doubleBuff1, doubleBuff2,
+							                     path2d))
 								continue;
 
-							final float srcXAdj = floatBuff3[0];
-							final float srcYAdj = floatBuff3[1];
-							final float trgXAdj = floatBuff4[0];
-							final float trgYAdj = floatBuff4[1];
-
-							grafx.drawEdgeFull(srcArrow, srcArrowSize, srcArrowPaint, trgArrow,
-							                   trgArrowSize, trgArrowPaint, srcXAdj, srcYAdj,
-							                   anchors, trgXAdj, trgYAdj, thickness, edgeStroke, segPaint);
-
-							// Take care of edge anchor rendering.
-							if (anchors != null) {
-								for (int k = 0; k < anchors.numAnchors(); k++) {
-									final float anchorSize;
-
-									if ((anchorSize = edgeDetails.getAnchorSize(edge, k)) > 0.0f) {
-										anchors.getAnchor(k, floatBuff4, 0);
-										grafx.drawNodeFull(GraphGraphics.SHAPE_RECTANGLE,
-										                   (float) (floatBuff4[0]
-										                   - (anchorSize / 2.0d)),
-										                   (float) (floatBuff4[1]
-										                   - (anchorSize / 2.0d)),
-										                   (float) (floatBuff4[0]
-										                   + (anchorSize / 2.0d)),
-										                   (float) (floatBuff4[1]
-										                   + (anchorSize / 2.0d)),
-										                   edgeDetails.getAnchorPaint(edge, k), 0.0f, null,
-										                   null);
-									}
-								}
-							}
-
-							// Take care of label rendering.
-							if ((lodBits & LOD_EDGE_LABELS) != 0) {
-								
-								final int labelCount = edgeDetails.getLabelCount(edge);
-								for (int labelInx = 0; labelInx < labelCount; labelInx++) {
-									final String text = edgeDetails.getLabelText(edge, labelInx);
-									final Font font = edgeDetails.getLabelFont(edge, labelInx);
-									final double fontScaleFactor = edgeDetails.getLabelScaleFactor(edge, labelInx);
-									final Paint paint = edgeDetails.getLabelPaint(edge, labelInx);
-									final byte textAnchor = edgeDetails.getLabelTextAnchor(edge, labelInx);
-									final byte edgeAnchor = edgeDetails.getLabelEdgeAnchor(edge, labelInx);
-									final float offsetVectorX = edgeDetails.getLabelOffsetVectorX(edge, labelInx);
-									final float offsetVectorY = edgeDetails.getLabelOffsetVectorY(edge, labelInx);
-									final byte justify;
-
-									if (text.indexOf('\n') >= 0)
-										justify = edgeDetails.getLabelJustify(edge, labelInx);
-									else
-										justify = NodeDetails.LABEL_WRAP_JUSTIFY_CENTER;
-
-									final double edgeAnchorPointX;
-									final double edgeAnchorPointY;
-
-									final double edgeLabelWidth = edgeDetails.getLabelWidth(edge);
-
-									if (edgeAnchor == EdgeDetails.EDGE_ANCHOR_SOURCE) {
-										edgeAnchorPointX = srcXAdj;
-										edgeAnchorPointY = srcYAdj;
-									} else if (edgeAnchor == EdgeDetails.EDGE_ANCHOR_TARGET) {
-										edgeAnchorPointX = trgXAdj;
-										edgeAnchorPointY = trgYAdj;
-									} else if (edgeAnchor == EdgeDetails.EDGE_ANCHOR_MIDPOINT) {
-										grafx.getEdgePath(srcArrow, srcArrowSize, trgArrow,
-										                  trgArrowSize, srcXAdj, srcYAdj, anchors,
-										                  trgXAdj, trgYAdj, path2d);
-
-										// Count the number of path segments.  This count
-										// includes the initial SEG_MOVETO.  So, for example, a
-										// path composed of 2 cubic curves would have a numPaths
-										// of 3.  Note that numPaths will be at least 2 in all
-										// cases.
-										final int numPaths;
-
-										{
-											final PathIterator pathIter = path2d.getPathIterator(null);
-											int numPathsTemp = 0;
-
-											while (!pathIter.isDone()) {
-												numPathsTemp++; // pathIter.currentSegment().
-												pathIter.next();
-											}
-
-											numPaths = numPathsTemp;
-										}
-
-										// Compute "midpoint" of edge.
-										if ((numPaths % 2) != 0) {
-											final PathIterator pathIter = path2d.getPathIterator(null);
-
-											for (int i = numPaths / 2; i > 0; i--)
-												pathIter.next();
-
-											final int subPathType = pathIter.currentSegment(floatBuff5);
-
-											if (subPathType == PathIterator.SEG_LINETO) {
-												edgeAnchorPointX = floatBuff5[0];
-												edgeAnchorPointY = floatBuff5[1];
-											} else if (subPathType == PathIterator.SEG_QUADTO) {
-												edgeAnchorPointX = floatBuff5[2];
-												edgeAnchorPointY = floatBuff5[3];
-											} else if (subPathType == PathIterator.SEG_CUBICTO) {
-												edgeAnchorPointX = floatBuff5[4];
-												edgeAnchorPointY = floatBuff5[5];
-											} else
-												throw new IllegalStateException("got unexpected PathIterator segment type: "
-												                                + subPathType);
-										} else { // numPaths % 2 == 0.
-
-											final PathIterator pathIter = path2d.getPathIterator(null);
-
-											for (int i = numPaths / 2; i > 0; i--) {
-												if (i == 1) {
-													final int subPathType = pathIter.currentSegment(floatBuff5);
-
-													if ((subPathType == PathIterator.SEG_MOVETO)
-													    || (subPathType == PathIterator.SEG_LINETO)) {
-														floatBuff5[6] = floatBuff5[0];
-														floatBuff5[7] = floatBuff5[1];
-													} else if (subPathType == PathIterator.SEG_QUADTO) {
-														floatBuff5[6] = floatBuff5[2];
-														floatBuff5[7] = floatBuff5[3];
-													} else if (subPathType == PathIterator.SEG_CUBICTO) {
-														floatBuff5[6] = floatBuff5[4];
-														floatBuff5[7] = floatBuff5[5];
-													} else
-														throw new IllegalStateException("got unexpected PathIterator segment type: "
-														                                + subPathType);
-												}
-
-												pathIter.next();
-											}
-
-											final int subPathType = pathIter.currentSegment(floatBuff5);
-
-											if (subPathType == PathIterator.SEG_LINETO) {
-												edgeAnchorPointX = (0.5d * floatBuff5[6])
-												                   + (0.5d * floatBuff5[0]);
-												edgeAnchorPointY = (0.5d * floatBuff5[7])
-												                   + (0.5d * floatBuff5[1]);
-											} else if (subPathType == PathIterator.SEG_QUADTO) {
-												edgeAnchorPointX = (0.25d * floatBuff5[6])
-												                   + (0.5d * floatBuff5[0])
-												                   + (0.25d * floatBuff5[2]);
-												edgeAnchorPointY = (0.25d * floatBuff5[7])
-												                   + (0.5d * floatBuff5[1])
-												                   + (0.25d * floatBuff5[3]);
-											} else if (subPathType == PathIterator.SEG_CUBICTO) {
-												edgeAnchorPointX = (0.125d * floatBuff5[6])
-												                   + (0.375d * floatBuff5[0])
-												                   + (0.375d * floatBuff5[2])
-												                   + (0.125d * floatBuff5[4]);
-												edgeAnchorPointY = (0.125d * floatBuff5[7])
-												                   + (0.375d * floatBuff5[1])
-												                   + (0.375d * floatBuff5[3])
-												                   + (0.125d * floatBuff5[5]);
-											} else
-												throw new IllegalStateException("got unexpected PathIterator segment type: "
-												                                + subPathType);
-										}
-									} else
-										throw new IllegalStateException("encountered an invalid EDGE_ANCHOR_* constant: "
-										                                + edgeAnchor);
-
-									final MeasuredLineCreator measuredText = 
-										new MeasuredLineCreator(text,font,
-										                         grafx.getFontRenderContextFull(),
-										                         fontScaleFactor, 
-										                         (lodBits&LOD_TEXT_AS_SHAPE)!= 0, 
-										                         edgeLabelWidth);
-
-									doubleBuff1[0] = -0.5d * measuredText.getMaxLineWidth();
-									doubleBuff1[1] = -0.5d * measuredText.getTotalHeight(); 
-									doubleBuff1[2] = 0.5d * measuredText.getMaxLineWidth(); 
-									doubleBuff1[3] = 0.5d * measuredText.getTotalHeight(); 
-									lemma_computeAnchor(textAnchor, doubleBuff1, doubleBuff2);
-
-									final double textXCenter = edgeAnchorPointX - doubleBuff2[0]
-									                           + offsetVectorX;
-									final double textYCenter = edgeAnchorPointY - doubleBuff2[1]
-									                           + offsetVectorY;
-									TextRenderingUtils.renderHorizontalText(grafx, measuredText, 
-									                                        font, fontScaleFactor,
-									                                        (float) textXCenter,
-									                                        (float) textYCenter,
-									                                        justify, paint,
-									                                        (lodBits
-									                                        & LOD_TEXT_AS_SHAPE) != 0);
-								}
-							}
+							emitEdge(item, grafx, tiles, path2d);
 						}
 					}
 
@@ -634,77 +425,29 @@ public final class GraphRenderer {
 				for (int i = 0; i < nodeHitCount; i++) {
 					final CyNode node = graph.getNode( nodeHits.nextExtents(floatBuff1, 0) );
 
-					if ((floatBuff1[0] != floatBuff1[2]) && (floatBuff1[1] != floatBuff1[3]))
-						grafx.drawNodeLow(floatBuff1[0], floatBuff1[1], floatBuff1[2],
-						                  floatBuff1[3], nodeDetails.getColorLowDetail(node));
+					if ((floatBuff1[0] != floatBuff1[2]) && (floatBuff1[1] != floatBuff1[3])) {
+						final NodeDisplayItem item = (tiles == null) ? reusedNode : new NodeDisplayItem();
+						item.setLowDetail(floatBuff1, nodeDetails.getColorLowDetail(node));
+						emitNode(item, grafx, tiles);
+					}
 				}
 			} else { // High detail.
 				while (nodeHits.numRemaining() > 0) {
 					final long node = nodeHits.nextExtents(floatBuff1, 0);
 					final CyNode cyNode = graph.getNode(node);
-					
-					renderNodeHigh(graph, grafx, node, cyNode, floatBuff1, doubleBuff1, doubleBuff2, nodeDetails, lodBits);
-				
-
-					// Take care of label rendering.
-					if ((lodBits & LOD_NODE_LABELS) != 0) { // Potential label rendering.
-
-						final int labelCount = nodeDetails.getLabelCount(cyNode);
-
-						for (int labelInx = 0; labelInx < labelCount; labelInx++) {
-							final String text = nodeDetails.getLabelText(cyNode, labelInx);
-							final Font font = nodeDetails.getLabelFont(cyNode, labelInx);
-							final double fontScaleFactor = nodeDetails.labelScaleFactor(cyNode,
-							                                                            labelInx);
-							final Paint paint = nodeDetails.getLabelPaint(cyNode, labelInx);
-							final byte textAnchor = nodeDetails.getLabelTextAnchor(cyNode, labelInx);
-							final byte nodeAnchor = nodeDetails.getLabelNodeAnchor(cyNode, labelInx);
-							final float offsetVectorX = nodeDetails.getLabelOffsetVectorX(cyNode,
-							                                                           labelInx);
-							final float offsetVectorY = nodeDetails.getLabelOffsetVectorY(cyNode,
-							                                                           labelInx);
-							final byte justify;
-
-							if (text.indexOf('\n') >= 0)
-								justify = nodeDetails.getLabelJustify(cyNode, labelInx);
-							else
-								justify = NodeDetails.LABEL_WRAP_JUSTIFY_CENTER;
-
-							final double nodeLabelWidth = nodeDetails.getLabelWidth(cyNode);
-
-							doubleBuff1[0] = floatBuff1[0];
-							doubleBuff1[1] = floatBuff1[1];
-							doubleBuff1[2] = floatBuff1[2];
-							doubleBuff1[3] = floatBuff1[3];
-							lemma_computeAnchor(nodeAnchor, doubleBuff1, doubleBuff2);
-
-							final double nodeAnchorPointX = doubleBuff2[0];
-							final double nodeAnchorPointY = doubleBuff2[1];
-							final MeasuredLineCreator measuredText = new MeasuredLineCreator(
-							    text, font, grafx.getFontRenderContextFull(), fontScaleFactor,
-							    (lodBits & LOD_TEXT_AS_SHAPE) != 0, nodeLabelWidth);
-
-							doubleBuff1[0] = -0.5d * measuredText.getMaxLineWidth();
-							doubleBuff1[1] = -0.5d * measuredText.getTotalHeight();
-							doubleBuff1[2] = 0.5d * measuredText.getMaxLineWidth();
-							doubleBuff1[3] = 0.5d * measuredText.getTotalHeight();
-							lemma_computeAnchor(textAnchor, doubleBuff1, doubleBuff2);
-
-							final double textXCenter = nodeAnchorPointX - doubleBuff2[0]
-							                           + offsetVectorX;
-							final double textYCenter = nodeAnchorPointY - doubleBuff2[1]
-							                           + offsetVectorY;
-							TextRenderingUtils.renderHorizontalText(grafx, measuredText, font,
-							                                        fontScaleFactor,
-							                                        (float) textXCenter,
-							                                        (float) textYCenter, justify,
-							                                        paint,
-							                                        (lodBits & LOD_TEXT_AS_SHAPE) != 0);
-						}
-					}
+					final NodeDisplayItem item = (tiles == null) ? reusedNode : new NodeDisplayItem();
+
+					prepareNodeHigh(item, cyNode, floatBuff1, grafx, nodeDetails, lodBits,
+					                doubleBuff1, doubleBuff2);
+					emitNode(item, grafx, tiles);
 				}
 			}
 		}
+
+		if (tiles != null)
+			tiles.render(grafx, bgPaint, xCenter, yCenter, scaleFactor, lod.renderExecutor(),
+			             renderThreads, lod.renderTileSize());
+
 		return lodBits;
 	}
 
@@ -1026,66 +769,350 @@ public final class GraphRenderer {
 	}
 	
 	/**
-	 * Render node view with details, including custom graphics.
-	 * 
-	 * @param graph
-	 * @param grafx
-	 * @param node
-	 * @param floatBuff1
-	 * @param doubleBuff1
-	 * @param doubleBuff2
-	 * @param nodeDetails
-	 * @param lodBits
+	 * Draws the edge right away, or hands it to the tile renderer together
+	 * with its bounds.
+	 */
+	private static void emitEdge(final EdgeDisplayItem item, final GraphGraphics grafx,
+	                             final TiledRenderer tiles, final GeneralPath path2d) {
+		if (tiles == null) {
+			item.draw(grafx);
+
+			return;
+		}
+
+		if (!item.lowDetail) {
+			path2d.reset();
+			grafx.getEdgePath(item.srcArrow, item.srcArrowSize, item.trgArrow,
+			                  item.trgArrowSize, item.srcX, item.srcY,
+			                  item.hasAnchors ? item : null, item.trgX, item.trgY, path2d);
+		}
+
+		item.computeBounds(path2d, tiles.pixel());
+		tiles.add(item);
+	}
+
+	/**
+	 * Draws the node right away, or hands it to the tile renderer together
+	 * with its bounds.
+	 */
+	private static void emitNode(final NodeDisplayItem item, final GraphGraphics grafx,
+	                             final TiledRenderer tiles) {
+		if (tiles == null) {
+			item.draw(grafx);
+
+			return;
+		}
+
+		item.computeBounds(tiles.pixel());
+		tiles.add(item);
+	}
+
+	/**
+	 * Looks up everything needed to draw an edge at full detail, including
+	 * its labels, and stores it in item.
+	 *
+	 * @return false if the edge is not to be drawn.
 	 */
-	private static final void renderNodeHigh(final CyNetwork graph, final GraphGraphics grafx, 
-			final long node, final CyNode cyNode, final float[] floatBuff1, final double[] doubleBuff1, 
-			final double[] doubleBuff2, final NodeDetails nodeDetails, final int lodBits) {
+	private static boolean prepareEdgeHigh(final EdgeDisplayItem item, final CyEdge edge,
+	                                       final float[] srcExtents, final byte srcShape,
+	                                       final float[] trgExtents, final byte trgShape,
+	                                       final GraphGraphics grafx,
+	                                       final EdgeDetails edgeDetails, final int lodBits,
+	                                       final float[] floatBuff3, final float[] floatBuff4,
+	                                       final float[] floatBuff5, final double[] doubleBuff1,
+	                                       final double[] doubleBuff2, final GeneralPath path2d) {
+		// Compute visual attributes that do not depend on LOD.
+		final float thickness = edgeDetails.getWidth(edge);
+		final Stroke edgeStroke = edgeDetails.getStroke(edge);
+		final Paint segPaint = edgeDetails.getPaint(edge);
+
+		// Compute arrows.
+		final byte srcArrow;
+
+		// Compute arrows.
+		final byte trgArrow;
+		final float srcArrowSize;
+		final float trgArrowSize;
+		final Paint srcArrowPaint;
+		final Paint trgArrowPaint;
+
+		if ((lodBits & LOD_EDGE_ARROWS) == 0) { // Not rendering arrows.
+			trgArrow = srcArrow = GraphGraphics.ARROW_NONE;
+			trgArrowSize = srcArrowSize = 0.0f;
+			trgArrowPaint = srcArrowPaint = null;
+		} else { // Rendering edge arrows.
+			srcArrow = edgeDetails.getSourceArrowShape(edge);
+			trgArrow = edgeDetails.getTargetArrowShape(edge);
+			srcArrowSize = ((srcArrow == GraphGraphics.ARROW_NONE) 
+			                 ? 0.0f
+			                 : edgeDetails.getSourceArrowSize(edge));
+			trgArrowSize = ((trgArrow == GraphGraphics.ARROW_NONE)
+			                 ? 0.0f
+			                 : edgeDetails.getTargetArrowSize(edge));
+			srcArrowPaint = ((srcArrow == GraphGraphics.ARROW_NONE)
+			                 ? null : edgeDetails.getSourceArrowPaint(edge));
+			trgArrowPaint = ((trgArrow == GraphGraphics.ARROW_NONE)
+			                 ? null : edgeDetails.getTargetArrowPaint(edge));
+		}
 
-		Shape nodeShape = null;
+		// Compute the anchors to use when rendering edge.
+		final EdgeAnchors anchors = (((lodBits & LOD_EDGE_ANCHORS) == 0) ? null
+		                                                                 : edgeDetails
+		                                                                   .getAnchors(edge));
+
+		if (!computeEdgeEndpoints(grafx, srcExtents, srcShape, srcArrow,
+		                          srcArrowSize, anchors, trgExtents, trgShape,
+		                          trgArrow, trgArrowSize, floatBuff3, floatBuff4))
+			return false;
+
+		final float srcXAdj = floatBuff3[0];
+		final float srcYAdj = floatBuff3[1];
+		final float trgXAdj = floatBuff4[0];
+		final float trgYAdj = floatBuff4[1];
+
+		item.lowDetail = false;
+		item.srcX = srcXAdj;
+		item.srcY = srcYAdj;
+		item.trgX = trgXAdj;
+		item.trgY = trgYAdj;
+		item.thickness = thickness;
+		item.stroke = edgeStroke;
+		item.paint = segPaint;
+		item.srcArrow = srcArrow;
+		item.srcArrowSize = srcArrowSize;
+		item.srcArrowPaint = srcArrowPaint;
+		item.trgArrow = trgArrow;
+		item.trgArrowSize = trgArrowSize;
+		item.trgArrowPaint = trgArrowPaint;
+		item.setAnchors(anchors);
+
+		// Take care of edge anchor rendering.
+		for (int k = 0; k < item.numAnchors(); k++) {
+			final float anchorSize;
+
+			if ((anchorSize = edgeDetails.getAnchorSize(edge, k)) > 0.0f)
+				item.setAnchorHandle(k, anchorSize, edgeDetails.getAnchorPaint(edge, k));
+		}
 
-		if ((floatBuff1[0] != floatBuff1[2]) && (floatBuff1[1] != floatBuff1[3])) {
-						
+		item.clearLabels();
+		item.textAsShape = (lodBits & LOD_TEXT_AS_SHAPE) != 0;
+
+		// Take care of label rendering.
+		if ((lodBits & LOD_EDGE_LABELS) != 0) {
+			
+			final int labelCount = edgeDetails.getLabelCount(edge);
+			for (int labelInx = 0; labelInx < labelCount; labelInx++) {
+				final String text = edgeDetails.getLabelText(edge, labelInx);
+				final Font font = edgeDetails.getLabelFont(edge, labelInx);
+				final double fontScaleFactor = edgeDetails.getLabelScaleFactor(edge, labelInx);
+				final Paint paint = edgeDetails.getLabelPaint(edge, labelInx);
+				final byte textAnchor = edgeDetails.getLabelTextAnchor(edge, labelInx);
+				final byte edgeAnchor = edgeDetails.getLabelEdgeAnchor(edge, labelInx);
+				final float offsetVectorX = edgeDetails.getLabelOffsetVectorX(edge, labelInx);
+				final float offsetVectorY = edgeDetails.getLabelOffsetVectorY(edge, labelInx);
+				final byte justify;
+
+				if (text.indexOf('\n') >= 0)
+					justify = edgeDetails.getLabelJustify(edge, labelInx);
+				else
+					justify = NodeDetails.LABEL_WRAP_JUSTIFY_CENTER;
+
+				final double edgeAnchorPointX;
+				final double edgeAnchorPointY;
+
+				final double edgeLabelWidth = edgeDetails.getLabelWidth(edge);
+
+				if (edgeAnchor == EdgeDetails.EDGE_ANCHOR_SOURCE) {
+					edgeAnchorPointX = srcXAdj;
+					edgeAnchorPointY = srcYAdj;
+				} else if (edgeAnchor == EdgeDetails.EDGE_ANCHOR_TARGET) {
+					edgeAnchorPointX = trgXAdj;
+					edgeAnchorPointY = trgYAdj;
+				} else if (edgeAnchor == EdgeDetails.EDGE_ANCHOR_MIDPOINT) {
+					grafx.getEdgePath(srcArrow, srcArrowSize, trgArrow,
+					                  trgArrowSize, srcXAdj, srcYAdj, anchors,
+					                  trgXAdj, trgYAdj, path2d);
+
+					// Count the number of path segments.  This count
+					// includes the initial SEG_MOVETO.  So, for example, a
+					// path composed of 2 cubic curves would have a numPaths
+					// of 3.  Note that numPaths will be at least 2 in all
+					// cases.
+					final int numPaths;
+
+					{
+						final PathIterator pathIter = path2d.getPathIterator(null);
+						int numPathsTemp = 0;
+
+						while (!pathIter.isDone()) {
+							numPathsTemp++; // pathIter.currentSegment().
+							pathIter.next();
+						}
+
+						numPaths = numPathsTemp;
+					}
+
+					// Compute "midpoint" of edge.
+					if ((numPaths % 2) != 0) {
+						final PathIterator pathIter = path2d.getPathIterator(null);
+
+						for (int i = numPaths / 2; i > 0; i--)
+							pathIter.next();
+
+						final int subPathType = pathIter.currentSegment(floatBuff5);
+
+						if (subPathType == PathIterator.SEG_LINETO) {
+							edgeAnchorPointX = floatBuff5[0];
+							edgeAnchorPointY = floatBuff5[1];
+						} else if (subPathType == PathIterator.SEG_QUADTO) {
+							edgeAnchorPointX = floatBuff5[2];
+							edgeAnchorPointY = floatBuff5[3];
+						} else if (subPathType == PathIterator.SEG_CUBICTO) {
+							edgeAnchorPointX = floatBuff5[4];
+							edgeAnchorPointY = floatBuff5[5];
+						} else
+							throw new IllegalStateException("got unexpected PathIterator segment type: "
+							                                + subPathType);
+					} else { // numPaths % 2 == 0.
+
+						final PathIterator pathIter = path2d.getPathIterator(null);
+
+						for (int i = numPaths / 2; i > 0; i--) {
+							if (i == 1) {
+								final int subPathType = pathIter.currentSegment(floatBuff5);
+
+								if ((subPathType == PathIterator.SEG_MOVETO)
+								    || (subPathType == PathIterator.SEG_LINETO)) {
+									floatBuff5[6] = floatBuff5[0];
+									floatBuff5[7] = floatBuff5[1];
+								} else if (subPathType == PathIterator.SEG_QUADTO) {
+									floatBuff5[6] = floatBuff5[2];
+									floatBuff5[7] = floatBuff5[3];
+								} else if (subPathType == PathIterator.SEG_CUBICTO) {
+									floatBuff5[6] = floatBuff5[4];
+									floatBuff5[7] = floatBuff5[5];
+								} else
+									throw new IllegalStateException("got unexpected PathIterator segment type: "
+									                                + subPathType);
+							}
+
+							pathIter.next();
+						}
+
+						final int subPathType = pathIter.currentSegment(floatBuff5);
+
+						if (subPathType == PathIterator.SEG_LINETO) {
+							edgeAnchorPointX = (0.5d * floatBuff5[6])
+							                   + (0.5d * floatBuff5[0]);
+							edgeAnchorPointY = (0.5d * floatBuff5[7])
+							                   + (0.5d * floatBuff5[1]);
+						} else if (subPathType == PathIterator.SEG_QUADTO) {
+							edgeAnchorPointX = (0.25d * floatBuff5[6])
+							                   + (0.5d * floatBuff5[0])
+							                   + (0.25d * floatBuff5[2]);
+							edgeAnchorPointY = (0.25d * floatBuff5[7])
+							                   + (0.5d * floatBuff5[1])
+							                   + (0.25d * floatBuff5[3]);
+						} else if (subPathType == PathIterator.SEG_CUBICTO) {
+							edgeAnchorPointX = (0.125d * floatBuff5[6])
+							                   + (0.375d * floatBuff5[0])
+							                   + (0.375d * floatBuff5[2])
+							                   + (0.125d * floatBuff5[4]);
+							edgeAnchorPointY = (0.125d * floatBuff5[7])
+							                   + (0.375d * floatBuff5[1])
+							                   + (0.375d * floatBuff5[3])
+							                   + (0.125d * floatBuff5[5]);
+						} else
+							throw new IllegalStateException("got unexpected PathIterator segment type: "
+							                                + subPathType);
+					}
+				} else
+					throw new IllegalStateException("encountered an invalid EDGE_ANCHOR_* constant: "
+					                                + edgeAnchor);
+
+				final MeasuredLineCreator measuredText = 
+					new MeasuredLineCreator(text,font,
+					                         grafx.getFontRenderContextFull(),
+					                         fontScaleFactor, 
+					                         (lodBits&LOD_TEXT_AS_SHAPE)!= 0, 
+					                         edgeLabelWidth);
+
+				doubleBuff1[0] = -0.5d * measuredText.getMaxLineWidth();
+				doubleBuff1[1] = -0.5d * measuredText.getTotalHeight(); 
+				doubleBuff1[2] = 0.5d * measuredText.getMaxLineWidth(); 
+				doubleBuff1[3] = 0.5d * measuredText.getTotalHeight(); 
+				lemma_computeAnchor(textAnchor, doubleBuff1, doubleBuff2);
+
+				final double textXCenter = edgeAnchorPointX - doubleBuff2[0]
+				                           + offsetVectorX;
+				final double textYCenter = edgeAnchorPointY - doubleBuff2[1]
+				                           + offsetVectorY;
+				final DisplayItem.Label label = item.addLabel();
+			label.text = measuredText;
+			label.font = font;
+			label.fontScaleFactor = fontScaleFactor;
+			label.xCenter = (float) textXCenter;
+			label.yCenter = (float) textYCenter;
+			label.justify = justify;
+			label.paint = paint;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Looks up everything needed to draw a node at full detail, including its
+	 * custom graphics and labels, and stores it in item.
+	 */
+	private static void prepareNodeHigh(final NodeDisplayItem item, final CyNode cyNode,
+	                                    final float[] floatBuff1, final GraphGraphics grafx,
+	                                    final NodeDetails nodeDetails, final int lodBits,
+	                                    final double[] doubleBuff1, final double[] doubleBuff2) {
+		item.lowDetail = false;
+		item.setExtents(floatBuff1);
+
+		if (item.hasArea()) {
 			// Compute visual attributes that do not depend on LOD.
-			final byte shape = nodeDetails.getShape(cyNode);
-			final Paint fillPaint = nodeDetails.getFillPaint(cyNode);
+			item.shape = nodeDetails.getShape(cyNode);
+			item.fillPaint = nodeDetails.getFillPaint(cyNode);
 
 			// Compute node border information.
-			final float borderWidth;
-			final Paint borderPaint;
-			Stroke borserStroke = null;
+			item.borderStroke = null;
 
 			if ((lodBits & LOD_NODE_BORDERS) == 0) { // Not rendering borders.
-				borderWidth = 0.0f;
-				borderPaint = null;
+				item.borderWidth = 0.0f;
+				item.borderPaint = null;
 			} else { // Rendering node borders.
-				borderWidth = nodeDetails.getBorderWidth(cyNode);
-				borserStroke = nodeDetails.getBorderStroke(cyNode);
-				if (borderWidth == 0.0f)
-					borderPaint = null;
+				item.borderWidth = nodeDetails.getBorderWidth(cyNode);
+				item.borderStroke = nodeDetails.getBorderStroke(cyNode);
+				if (item.borderWidth == 0.0f)
+					item.borderPaint = null;
 				else
-					borderPaint = nodeDetails.getBorderPaint(cyNode);
+					item.borderPaint = nodeDetails.getBorderPaint(cyNode);
 			}
-
-			// Draw the node.
-			nodeShape = grafx.drawNodeFull(shape, floatBuff1[0], floatBuff1[1], floatBuff1[2], floatBuff1[3], 
-			                               fillPaint, borderWidth, borserStroke, borderPaint);
+		} else {
+			item.borderWidth = 0.0f;
 		}
 
 		// Take care of custom graphic rendering.
-		if ((lodBits & LOD_CUSTOM_GRAPHICS) != 0) {
-
-			// draw any nested networks first
-			final TexturePaint nestedNetworkPaint = nodeDetails.getNestedNetworkTexturePaint(cyNode);
-			if (nestedNetworkPaint != null) {
-				doubleBuff1[0] = floatBuff1[0];
-				doubleBuff1[1] = floatBuff1[1];
-				doubleBuff1[2] = floatBuff1[2];
-				doubleBuff1[3] = floatBuff1[3];
-				lemma_computeAnchor(NodeDetails.ANCHOR_CENTER, doubleBuff1, doubleBuff2);
-				grafx.drawCustomGraphicImage(nestedNetworkPaint.getAnchorRect(), (float)doubleBuff2[0],  (float)doubleBuff2[1], nestedNetworkPaint); 
-			}
-
-			// draw custom graphics on top of nested networks 
+		item.customGraphics = (lodBits & LOD_CUSTOM_GRAPHICS) != 0;
+		item.nestedNetworkPaint = null;
+		item.clearGraphics();
+
+		if (item.customGraphics) {
+			doubleBuff1[0] = floatBuff1[0];
+			doubleBuff1[1] = floatBuff1[1];
+			doubleBuff1[2] = floatBuff1[2];
+			doubleBuff1[3] = floatBuff1[3];
+			lemma_computeAnchor(NodeDetails.ANCHOR_CENTER, doubleBuff1, doubleBuff2);
+			item.centerX = (float) doubleBuff2[0];
+			item.centerY = (float) doubleBuff2[1];
+
+			// nested networks are drawn first
+			item.nestedNetworkPaint = nodeDetails.getNestedNetworkTexturePaint(cyNode);
+
+			// custom graphics go on top of nested networks 
 			// don't allow our custom graphics to mutate while we iterate over them:
 			synchronized (nodeDetails.customGraphicsLock(cyNode)) {
 				// This iterator will return CustomGraphicLayers in rendering order:
@@ -1098,16 +1125,73 @@ public final class GraphRenderer {
 					cg = dNodeIt.next();
 					final float offsetVectorX = nodeDetails.graphicOffsetVectorX(cyNode, graphicInx);
 					final float offsetVectorY = nodeDetails.graphicOffsetVectorY(cyNode, graphicInx);
-					doubleBuff1[0] = floatBuff1[0];
-					doubleBuff1[1] = floatBuff1[1];
-					doubleBuff1[2] = floatBuff1[2];
-					doubleBuff1[3] = floatBuff1[3];
-					lemma_computeAnchor(NodeDetails.ANCHOR_CENTER, doubleBuff1, doubleBuff2);
-					grafx.drawCustomGraphicFull(nodeShape, cg, (float) (doubleBuff2[0] + offsetVectorX), 
-					                            (float) (doubleBuff2[1] + offsetVectorY));
+					item.addGraphic(cg, (float) (doubleBuff2[0] + offsetVectorX), 
+					                (float) (doubleBuff2[1] + offsetVectorY));
 					graphicInx++;
 				}
 			}
 		}
+
+		item.clearLabels();
+		item.textAsShape = (lodBits & LOD_TEXT_AS_SHAPE) != 0;
+
+		// Take care of label rendering.
+		if ((lodBits & LOD_NODE_LABELS) != 0) { // Potential label rendering.
+
+			final int labelCount = nodeDetails.getLabelCount(cyNode);
+
+			for (int labelInx = 0; labelInx < labelCount; labelInx++) {
+				final String text = nodeDetails.getLabelText(cyNode, labelInx);
+				final Font font = nodeDetails.getLabelFont(cyNode, labelInx);
+				final double fontScaleFactor = nodeDetails.labelScaleFactor(cyNode,
+				                                                            labelInx);
+				final Paint paint = nodeDetails.getLabelPaint(cyNode, labelInx);
+				final byte textAnchor = nodeDetails.getLabelTextAnchor(cyNode, labelInx);
+				final byte nodeAnchor = nodeDetails.getLabelNodeAnchor(cyNode, labelInx);
+				final float offsetVectorX = nodeDetails.getLabelOffsetVectorX(cyNode,
+				                                                           labelInx);
+				final float offsetVectorY = nodeDetails.getLabelOffsetVectorY(cyNode,
+				                                                           labelInx);
+				final byte justify;
+
+				if (text.indexOf('\n') >= 0)
+					justify = nodeDetails.getLabelJustify(cyNode, labelInx);
+				else
+					justify = NodeDetails.LABEL_WRAP_JUSTIFY_CENTER;
+
+				final double nodeLabelWidth = nodeDetails.getLabelWidth(cyNode);
+
+				doubleBuff1[0] = floatBuff1[0];
+				doubleBuff1[1] = floatBuff1[1];
+				doubleBuff1[2] = floatBuff1[2];
+				doubleBuff1[3] = floatBuff1[3];
+				lemma_computeAnchor(nodeAnchor, doubleBuff1, doubleBuff2);
+
+				final double nodeAnchorPointX = doubleBuff2[0];
+				final double nodeAnchorPointY = doubleBuff2[1];
+				final MeasuredLineCreator measuredText = new MeasuredLineCreator(
+				    text, font, grafx.getFontRenderContextFull(), fontScaleFactor,
+				    (lodBits & LOD_TEXT_AS_SHAPE) != 0, nodeLabelWidth);
+
+				doubleBuff1[0] = -0.5d * measuredText.getMaxLineWidth();
+				doubleBuff1[1] = -0.5d * measuredText.getTotalHeight();
+				doubleBuff1[2] = 0.5d * measuredText.getMaxLineWidth();
+				doubleBuff1[3] = 0.5d * measuredText.getTotalHeight();
+				lemma_computeAnchor(textAnchor, doubleBuff1, doubleBuff2);
+
+				final double textXCenter = nodeAnchorPointX - doubleBuff2[0]
+				                           + offsetVectorX;
+				final double textYCenter = nodeAnchorPointY - doubleBuff2[1]
+				                           + offsetVectorY;
+				final DisplayItem.Label label = item.addLabel();
+				label.text = measuredText;
+				label.font = font;
+				label.fontScaleFactor = fontScaleFactor;
+				label.xCenter = (float) textXCenter;
+				label.yCenter = (float) textYCenter;
+				label.justify = justify;
+				label.paint = paint;
+			}
+		}
 	}
 }
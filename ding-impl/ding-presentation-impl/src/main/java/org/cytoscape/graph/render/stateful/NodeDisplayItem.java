@@ -0,0 +1,177 @@
+package org.cytoscape.graph.render.stateful;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.awt.Color;
+import java.awt.Paint;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.TexturePaint;
+
+import org.cytoscape.graph.render.immed.GraphGraphics;
+import org.cytoscape.view.presentation.customgraphics.CustomGraphicLayer;
+import org.cytoscape.view.presentation.customgraphics.PaintedShape;
+
+
+/**
+ * A node that is ready to be drawn, at low or at full detail.  The custom
+ * graphic layers are copied, so that drawing does not need the custom
+ * graphics lock of the node.
+ */
+final class NodeDisplayItem extends DisplayItem {
+
+	boolean lowDetail;
+
+	// Node extents.
+	float x0;
+	float y0;
+	float x1;
+	float y1;
+
+	byte shape;
+	Paint fillPaint; // The node color at low detail.
+	float borderWidth;
+	Stroke borderStroke;
+	Paint borderPaint;
+
+	boolean customGraphics;
+	TexturePaint nestedNetworkPaint;
+	float centerX;
+	float centerY;
+	private int graphicCount;
+	private CustomGraphicLayer[] graphics = new CustomGraphicLayer[0];
+	private float[] graphicX = new float[0];
+	private float[] graphicY = new float[0];
+
+	void setExtents(final float[] extents) {
+		x0 = extents[0];
+		y0 = extents[1];
+		x1 = extents[2];
+		y1 = extents[3];
+	}
+
+	/**
+	 * Returns false for nodes of zero width or height, which are not drawn.
+	 */
+	boolean hasArea() {
+		return (x0 != x1) && (y0 != y1);
+	}
+
+	void setLowDetail(final float[] extents, final Color color) {
+		lowDetail = true;
+		setExtents(extents);
+		fillPaint = color;
+		customGraphics = false;
+		nestedNetworkPaint = null;
+		clearGraphics();
+		clearLabels();
+	}
+
+	void clearGraphics() {
+		for (int i = 0; i < graphicCount; i++)
+			graphics[i] = null;
+
+		graphicCount = 0;
+	}
+
+	void addGraphic(final CustomGraphicLayer layer, final float x, final float y) {
+		if (graphicCount == graphics.length) {
+			final int newLength = (graphics.length * 2) + 1;
+			final CustomGraphicLayer[] newGraphics = new CustomGraphicLayer[newLength];
+			final float[] newX = new float[newLength];
+			final float[] newY = new float[newLength];
+			System.arraycopy(graphics, 0, newGraphics, 0, graphicCount);
+			System.arraycopy(graphicX, 0, newX, 0, graphicCount);
+			System.arraycopy(graphicY, 0, newY, 0, graphicCount);
+			graphics = newGraphics;
+			graphicX = newX;
+			graphicY = newY;
+		}
+
+		graphics[graphicCount] = layer;
+		graphicX[graphicCount] = x;
+		graphicY[graphicCount] = y;
+		graphicCount++;
+	}
+
+	/**
+	 * Computes the bounds of the node, its border, custom graphics and labels.
+	 */
+	void computeBounds(final double pixel) {
+		resetBounds();
+		include(x0, y0, x1, y1);
+		pad(borderWidth + (2.0d * pixel));
+
+		if (nestedNetworkPaint != null)
+			include(nestedNetworkPaint.getAnchorRect(), centerX, centerY);
+
+		for (int i = 0; i < graphicCount; i++) {
+			final CustomGraphicLayer layer = graphics[i];
+			include(layer.getBounds2D(), graphicX[i], graphicY[i]);
+
+			if (layer instanceof PaintedShape) {
+				final PaintedShape painted = (PaintedShape) layer;
+
+				if (painted.getStroke() != null)
+					include(painted.getStroke().createStrokedShape(painted.getShape()),
+					        graphicX[i], graphicY[i]);
+			}
+		}
+
+		includeLabels();
+		pad(2.0d * pixel);
+	}
+
+	@Override
+	void draw(final GraphGraphics grafx) {
+		if (lowDetail) {
+			if (hasArea())
+				grafx.drawNodeLow(x0, y0, x1, y1, (Color) fillPaint);
+
+			return;
+		}
+
+		Shape nodeShape = null;
+
+		if (hasArea())
+			nodeShape = grafx.drawNodeFull(shape, x0, y0, x1, y1, fillPaint, borderWidth,
+			                               borderStroke, borderPaint);
+
+		// Take care of custom graphic rendering.
+		if (customGraphics) {
+			// draw any nested networks first
+			if (nestedNetworkPaint != null)
+				grafx.drawCustomGraphicImage(nestedNetworkPaint.getAnchorRect(), centerX,
+				                             centerY, nestedNetworkPaint);
+
+			// draw custom graphics on top of nested networks
+			for (int i = 0; i < graphicCount; i++)
+				grafx.drawCustomGraphicFull(nodeShape, graphics[i], graphicX[i], graphicY[i]);
+		}
+
+		drawLabels(grafx);
+	}
+}
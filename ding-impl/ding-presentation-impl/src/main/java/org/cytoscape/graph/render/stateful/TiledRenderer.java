@@ -0,0 +1,201 @@
+package org.cytoscape.graph.render.stateful;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cytoscape.graph.render.immed.GraphGraphics;
+
+
+/**
+ * Draws a frame of display items in square tiles on several threads.  Every
+ * tile draws, in the original order, each item whose bounds reach into the
+ * tile, into its own buffer with the same transform as the whole image, and
+ * the finished tile is copied into the image.  Because tiles do not overlap
+ * and each one sees the items in the same order as a single-threaded render,
+ * the result is the same as drawing all items onto the image directly, except
+ * that Java 2D renderers which clip paths to the drawing area before
+ * rasterizing them may shade anti-aliased pixels of paths that cross a tile
+ * border slightly differently.
+ */
+final class TiledRenderer {
+
+	private final List<DisplayItem> items = new ArrayList<DisplayItem>();
+	private final double pixel;
+
+	/**
+	 * @param scaleFactor the scale factor of the frame; used to pad item bounds
+	 *   by a few pixels for anti-aliasing.
+	 */
+	TiledRenderer(final double scaleFactor) {
+		this.pixel = 1.0d / scaleFactor;
+	}
+
+	/**
+	 * Returns true if the frame can be rendered in tiles: the image must be a
+	 * BufferedImage that is cleared with a plain color before drawing.
+	 */
+	static boolean canRender(final GraphGraphics grafx, final Paint bgPaint) {
+		return (grafx.image instanceof BufferedImage) && (bgPaint instanceof Color)
+		       && grafx.clearsImage();
+	}
+
+	/**
+	 * Returns the size of one pixel in node coordinates.
+	 */
+	double pixel() {
+		return pixel;
+	}
+
+	void add(final DisplayItem item) {
+		items.add(item);
+	}
+
+	/**
+	 * Renders all added items onto grafx.image, which must already have been
+	 * cleared.  The calling thread renders tiles together with up to
+	 * threads - 1 tasks on the executor; with a null or shut down executor it
+	 * renders all tiles itself.  Returns once every tile has been copied into
+	 * the image.
+	 */
+	void render(final GraphGraphics grafx, final Paint bgPaint, final double xCenter,
+	            final double yCenter, final double scaleFactor, final ExecutorService executor,
+	            final int threads, final int tileSize) {
+		final Image image = grafx.image;
+		final int width = image.getWidth(null);
+		final int height = image.getHeight(null);
+		final int columns = (width + tileSize - 1) / tileSize;
+		final int rows = (height + tileSize - 1) / tileSize;
+		final int tileCount = columns * rows;
+
+		if (tileCount == 0)
+			return;
+
+		final AtomicInteger nextTile = new AtomicInteger();
+		final Graphics2D target = (Graphics2D) image.getGraphics();
+		target.setComposite(AlphaComposite.Src);
+
+		final Runnable worker = new Runnable() {
+			public void run() {
+				final BufferedImage buffer = new BufferedImage(tileSize, tileSize,
+				                                               BufferedImage.TYPE_INT_ARGB);
+				final GraphGraphics tileGrafx = new GraphGraphics(buffer, false, true);
+				int tile;
+
+				while ((tile = nextTile.getAndIncrement()) < tileCount) {
+					final int x = (tile % columns) * tileSize;
+					final int y = (tile / columns) * tileSize;
+
+					// Place the tile so that it sees exactly its part of the image.
+					final double tileXCenter = xCenter + ((x + (0.5d * tileSize)) - (0.5d * width)) / scaleFactor;
+					final double tileYCenter = yCenter + ((y + (0.5d * tileSize)) - (0.5d * height)) / scaleFactor;
+					tileGrafx.clear(bgPaint, tileXCenter, tileYCenter, scaleFactor);
+
+					final double tileXMin = tileXCenter - ((0.5d * tileSize) / scaleFactor);
+					final double tileYMin = tileYCenter - ((0.5d * tileSize) / scaleFactor);
+					final double tileXMax = tileXCenter + ((0.5d * tileSize) / scaleFactor);
+					final double tileYMax = tileYCenter + ((0.5d * tileSize) / scaleFactor);
+
+					for (final DisplayItem item : items) {
+						if (item.intersects(tileXMin, tileYMin, tileXMax, tileYMax))
+							item.draw(tileGrafx);
+					}
+
+					final int w = Math.min(tileSize, width - x);
+					final int h = Math.min(tileSize, height - y);
+
+					synchronized (target) {
+						target.drawImage(buffer, x, y, x + w, y + h, 0, 0, w, h, null);
+					}
+				}
+			}
+		};
+
+		final int helpers = (executor == null) ? 0 : (Math.min(threads, tileCount) - 1);
+		final List<Future<?>> futures = new ArrayList<Future<?>>(Math.max(helpers, 0));
+		Throwable failure = null;
+
+		try {
+			try {
+				for (int i = 0; i < helpers; i++)
+					futures.add(executor.submit(worker));
+			} catch (RejectedExecutionException e) {
+				// The executor was shut down; the tiles are left to the threads we have.
+			}
+
+			// The calling thread renders tiles too.
+			worker.run();
+		} catch (RuntimeException e) {
+			failure = e;
+		} catch (Error e) {
+			failure = e;
+		}
+
+		// Stop handing out tiles if this thread failed, and wait for all helpers
+		// so that none of them draws into the image after we return.
+		nextTile.set(tileCount);
+		boolean interrupted = false;
+
+		for (final Future<?> future : futures) {
+			while (true) {
+				try {
+					future.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					if (failure == null)
+						failure = e.getCause();
+					break;
+				}
+			}
+		}
+
+		target.dispose();
+
+		if (interrupted)
+			Thread.currentThread().interrupt();
+
+		if (failure instanceof RuntimeException)
+			throw (RuntimeException) failure;
+		if (failure instanceof Error)
+			throw (Error) failure;
+		if (failure != null)
+			throw new IllegalStateException("tile rendering failed", failure);
+	}
+}
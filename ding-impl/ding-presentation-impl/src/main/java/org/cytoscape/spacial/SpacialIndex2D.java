@@ -151,4 +151,20 @@ public interface SpacialIndex2D {
 	 *   method invocation.
 	 */
 	public boolean delete(long objKey);
+
+	/**
+	 * Changes the extents of several existing entries at once; the effect is
+	 * the same as deleting and re-inserting each of them, but implementations
+	 * are expected to do this considerably faster.
+	 * @param objKeys the entries to move; entries that do not exist in this
+	 *   structure are ignored.
+	 * @param extentsArr the new extents; the new extents of objKeys[i] are at
+	 *   indices 4*i through 4*i+3 and are in the order xMin, yMin, xMax, yMax.
+	 * @param count the number of entries to read from objKeys and extentsArr.
+	 * @return the number of entries that were moved.
+	 * @exception IllegalArgumentException if count is negative, or if
+	 *   the xMin of some extents is not less than or equal to its xMax, or
+	 *   its yMin is not less than or equal to its yMax.
+	 */
+	public int move(long[] objKeys, float[] extentsArr, int count);
 }
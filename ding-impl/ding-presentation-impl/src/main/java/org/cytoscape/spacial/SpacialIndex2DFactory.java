@@ -29,4 +29,17 @@ public interface SpacialIndex2DFactory {
 	
 	SpacialIndex2D createSpacialIndex2D();
 
+	/**
+	 * Creates a spacial index that holds the specified entries.  This is
+	 * meant for building or rebuilding an index over many entries at once
+	 * and is much faster than inserting them one at a time.
+	 * @param objKeys the entries, in the same form as passed to
+	 *   SpacialIndex2D.insert().
+	 * @param extentsArr the extents of the entries; the extents of
+	 *   objKeys[i] are at indices 4*i through 4*i+3 and are in the order
+	 *   xMin, yMin, xMax, yMax.
+	 * @param count the number of entries to read from objKeys and extentsArr.
+	 */
+	SpacialIndex2D createSpacialIndex2D(long[] objKeys, float[] extentsArr, int count);
+
 }
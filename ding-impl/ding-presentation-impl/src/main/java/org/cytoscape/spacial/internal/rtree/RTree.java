@@ -33,6 +33,7 @@ import org.cytoscape.util.intr.LongEnumerator;
 import org.cytoscape.util.intr.LongObjHash;
 import org.cytoscape.util.intr.LongStack;
 
+import java.util.Arrays;
 import java.util.Iterator;
 
 
@@ -45,6 +46,11 @@ import java.util.Iterator;
  */
 public final class RTree implements SpacialIndex2D, java.io.Serializable {
 	public final static int DEFAULT_MAX_BRANCHES = 11;
+
+	// A call to move() that covers at least one in this many entries rebuilds
+	// the whole tree, which is then cheaper than moving entries one by one.
+	private final static int REBUILD_DIVISOR = 4;
+
 	private final float[] m_MBR; // { xMin, yMin, xMax, yMax }.
 	private final static long serialVersionUID = 1213746741383404L;
 	private final int m_maxBranches;
@@ -110,6 +116,58 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		m_nodeStack = new ObjStack();
 	}
 
+	/**
+	 * Instantiates a new R-tree holding the specified entries.  The tree is
+	 * built bottom-up with the Sort-Tile-Recursive algorithm, which is much
+	 * faster than inserting the entries one at a time and yields fully
+	 * packed nodes that overlap little.
+	 * @param objKeys the entries, in the same form as passed to insert().
+	 * @param extentsArr the extents of the entries; the extents of
+	 *   objKeys[i] are at indices 4*i through 4*i+3 and are in the order
+	 *   xMin, yMin, xMax, yMax.
+	 * @param count the number of entries to read from objKeys and extentsArr.
+	 * @exception IllegalStateException if an objKey occurs more than once.
+	 * @exception IllegalArgumentException if count is negative, if an objKey
+	 *   is negative, or if any extents are not valid as defined by insert().
+	 */
+	public RTree(final long[] objKeys, final float[] extentsArr, final int count) {
+		this(DEFAULT_MAX_BRANCHES, objKeys, extentsArr, count);
+	}
+
+	/**
+	 * Instantiates a new R-tree with the specified maximum branching factor
+	 * holding the specified entries.
+	 * @see #RTree(long[], float[], int)
+	 * @exception IllegalArgumentException if maxBranches is less than three.
+	 */
+	public RTree(final int maxBranches, final long[] objKeys, final float[] extentsArr,
+	             final int count) {
+		this(maxBranches);
+
+		if (count < 0)
+			throw new IllegalArgumentException("count is negative");
+
+		final LongObjHash entryMap = new LongObjHash();
+
+		for (int i = 0; i < count; i++) {
+			final long objKey = objKeys[i];
+
+			if (objKey < 0)
+				throw new IllegalArgumentException("objKey is negative");
+
+			if (!(extentsArr[i * 4] <= extentsArr[(i * 4) + 2]))
+				throw new IllegalArgumentException("xMin <= xMax not true for objKey " + objKey);
+
+			if (!(extentsArr[(i * 4) + 1] <= extentsArr[(i * 4) + 3]))
+				throw new IllegalArgumentException("yMin <= yMax not true for objKey " + objKey);
+
+			if (entryMap.put(objKey, m_deletedEntry) != null)
+				throw new IllegalStateException("objkey " + objKey + " occurs more than once");
+		}
+
+		load(objKeys, extentsArr, count, entryMap);
+	}
+
 	/**
 	 * Empties this R-tree of all entries.  This method returns in constant
 	 * time (note however that garbage collection will take place in the
@@ -133,6 +191,141 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		return (isLeafNode(m_root) ? m_root.entryCount : m_root.data.deepCount);
 	}
 
+	/*
+	 * Replaces the contents of this tree with the specified entries, which
+	 * must already have been validated; entryMap must map each objKey to some
+	 * non-null placeholder.  Leaf nodes are filled by sorting the entries into
+	 * vertical slices by x, and each slice by y; the same is then done with
+	 * the nodes of each level until a single root remains.
+	 */
+	private final void load(final long[] objKeys, final float[] extentsArr, final int count,
+	                        final LongObjHash entryMap) {
+		m_entryMap = entryMap;
+		m_deletedEntries = 0;
+		m_mapExpansionThreshold = LongObjHash.maxCapacity(m_entryMap.size());
+		m_MBR[0] = Float.POSITIVE_INFINITY;
+		m_MBR[1] = Float.POSITIVE_INFINITY;
+		m_MBR[2] = Float.NEGATIVE_INFINITY;
+		m_MBR[3] = Float.NEGATIVE_INFINITY;
+
+		if (count == 0) {
+			m_root = new Node(m_maxBranches, true);
+
+			return;
+		}
+
+		Node[] level = packLevel(count, extentsArr, objKeys, null, entryMap);
+
+		while (level.length > 1) {
+			final float[] levelExtents = new float[level.length * 4];
+
+			for (int i = 0; i < level.length; i++)
+				computeMBR(level[i], levelExtents, i * 4);
+
+			level = packLevel(level.length, levelExtents, null, level, null);
+		}
+
+		m_root = level[0];
+		computeMBR(m_root, m_MBR, 0);
+	}
+
+	/*
+	 * Groups count items into new nodes of the next level up using
+	 * Sort-Tile-Recursive, and returns these nodes.  If children is null the
+	 * items are entries and leaf nodes are built, in which case entryMap is
+	 * updated; otherwise the items are the children and internal nodes are
+	 * built.
+	 */
+	private final Node[] packLevel(final int count, final float[] extents, final long[] objKeys,
+	                               final Node[] children, final LongObjHash entryMap) {
+		final int nodeCount = ((count + m_maxBranches) - 1) / m_maxBranches;
+		final int sliceCount = (int) Math.ceil(Math.sqrt((double) nodeCount));
+		final Node[] nodes = new Node[nodeCount + sliceCount];
+		int nodeInx = 0;
+		final long[] order = new long[count];
+
+		for (int i = 0; i < count; i++)
+			order[i] = sortKey((extents[i * 4] * 0.5f) + (extents[(i * 4) + 2] * 0.5f), i);
+
+		Arrays.sort(order);
+
+		for (int slice = 0; slice < sliceCount; slice++) {
+			final int sliceBegin = (int) ((((long) count) * slice) / sliceCount);
+			final int sliceEnd = (int) ((((long) count) * (slice + 1)) / sliceCount);
+
+			for (int i = sliceBegin; i < sliceEnd; i++) {
+				final int inx = (int) order[i];
+				order[i] = sortKey((extents[(inx * 4) + 1] * 0.5f)
+				                   + (extents[(inx * 4) + 3] * 0.5f), inx);
+			}
+
+			Arrays.sort(order, sliceBegin, sliceEnd);
+
+			// Spread the slice evenly over its nodes so that none is underfull.
+			final int sliceLength = sliceEnd - sliceBegin;
+			final int sliceNodes = ((sliceLength + m_maxBranches) - 1) / m_maxBranches;
+
+			for (int k = 0; k < sliceNodes; k++) {
+				final int begin = sliceBegin + (int) ((((long) sliceLength) * k) / sliceNodes);
+				final int end = sliceBegin + (int) ((((long) sliceLength) * (k + 1)) / sliceNodes);
+				final Node n = new Node(m_maxBranches, children == null);
+
+				for (int i = begin; i < end; i++) {
+					final int inx = (int) order[i];
+					final int j = n.entryCount++;
+					System.arraycopy(extents, inx * 4, n.extents, j * 4, 4);
+
+					if (children == null) {
+						n.objKeys[j] = objKeys[inx];
+						entryMap.put(objKeys[inx], n);
+					} else {
+						final Node child = children[inx];
+						child.parent = n;
+						n.data.children[j] = child;
+						n.data.deepCount += (isLeafNode(child) ? child.entryCount
+						                                       : child.data.deepCount);
+					}
+				}
+
+				nodes[nodeInx++] = n;
+			}
+		}
+
+		final Node[] returnThis = new Node[nodeInx];
+		System.arraycopy(nodes, 0, returnThis, 0, nodeInx);
+
+		return returnThis;
+	}
+
+	/*
+	 * Packs a coordinate and an index into a long such that sorting these
+	 * longs sorts by coordinate first and by index second.
+	 */
+	private final static long sortKey(final float coord, final int inx) {
+		int bits = Float.floatToIntBits(coord);
+		bits ^= ((bits >> 31) & 0x7fffffff); // Negative floats sort backwards.
+
+		return (((long) bits) << 32) | inx;
+	}
+
+	/*
+	 * Writes the MBR of all entries in n into mbr starting at offset.
+	 */
+	private final static void computeMBR(final Node n, final float[] mbr, final int offset) {
+		mbr[offset] = Float.POSITIVE_INFINITY;
+		mbr[offset + 1] = Float.POSITIVE_INFINITY;
+		mbr[offset + 2] = Float.NEGATIVE_INFINITY;
+		mbr[offset + 3] = Float.NEGATIVE_INFINITY;
+
+		for (int i = 0; i < n.entryCount; i++) {
+			final int e = i * 4;
+			mbr[offset] = Math.min(mbr[offset], n.extents[e]);
+			mbr[offset + 1] = Math.min(mbr[offset + 1], n.extents[e + 1]);
+			mbr[offset + 2] = Math.max(mbr[offset + 2], n.extents[e + 2]);
+			mbr[offset + 3] = Math.max(mbr[offset + 3], n.extents[e + 3]);
+		}
+	}
+
 	/*
 	 * This gets used a lot.  This test is in the form of a function to make
 	 * the code more readable (as opposed to being inlined).
@@ -215,33 +408,42 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		                              m_childrenBuff, m_xMinBuff, m_yMinBuff, m_xMaxBuff,
 		                              m_yMaxBuff, m_tempBuff1, m_tempBuff2);
 
-		if (rootSplit != null) {
-			final Node newRoot = new Node(m_maxBranches, false);
-			newRoot.entryCount = 2;
-			m_root.parent = newRoot;
-			rootSplit.parent = newRoot;
-			newRoot.data.children[0] = m_root;
-			newRoot.data.children[1] = rootSplit;
-			newRoot.xMins[0] = m_root.xMins[m_maxBranches - 1];
-			newRoot.yMins[0] = m_root.yMins[m_maxBranches - 1];
-			newRoot.xMaxs[0] = m_root.xMaxs[m_maxBranches - 1];
-			newRoot.yMaxs[0] = m_root.yMaxs[m_maxBranches - 1];
-			newRoot.xMins[1] = rootSplit.xMins[m_maxBranches - 1];
-			newRoot.yMins[1] = rootSplit.yMins[m_maxBranches - 1];
-			newRoot.xMaxs[1] = rootSplit.xMaxs[m_maxBranches - 1];
-			newRoot.yMaxs[1] = rootSplit.yMaxs[m_maxBranches - 1];
-
-			if (isLeafNode(m_root))
-				newRoot.data.deepCount = m_root.entryCount + rootSplit.entryCount;
-			else
-				newRoot.data.deepCount = m_root.data.deepCount + rootSplit.data.deepCount;
+		if (rootSplit != null)
+			growRoot(rootSplit);
+	}
 
-			m_root = newRoot;
-			m_MBR[0] = Math.min(m_root.xMins[0], m_root.xMins[1]);
-			m_MBR[1] = Math.min(m_root.yMins[0], m_root.yMins[1]);
-			m_MBR[2] = Math.max(m_root.xMaxs[0], m_root.xMaxs[1]);
-			m_MBR[3] = Math.max(m_root.yMaxs[0], m_root.yMaxs[1]);
-		}
+	/*
+	 * Puts a new root above the current root and rootSplit, which was split
+	 * off the current root.  The overall MBRs of both nodes are expected at
+	 * index m_maxBranches - 1, as left by the insert routines.
+	 */
+	private final void growRoot(final Node rootSplit) {
+		final int mbrOff = (m_maxBranches - 1) * 4; // Where a split node keeps its overall MBR.
+		final Node newRoot = new Node(m_maxBranches, false);
+		newRoot.entryCount = 2;
+		m_root.parent = newRoot;
+		rootSplit.parent = newRoot;
+		newRoot.data.children[0] = m_root;
+		newRoot.data.children[1] = rootSplit;
+		newRoot.extents[0] = m_root.extents[mbrOff];
+		newRoot.extents[1] = m_root.extents[mbrOff + 1];
+		newRoot.extents[2] = m_root.extents[mbrOff + 2];
+		newRoot.extents[3] = m_root.extents[mbrOff + 3];
+		newRoot.extents[4] = rootSplit.extents[mbrOff];
+		newRoot.extents[5] = rootSplit.extents[mbrOff + 1];
+		newRoot.extents[6] = rootSplit.extents[mbrOff + 2];
+		newRoot.extents[7] = rootSplit.extents[mbrOff + 3];
+
+		if (isLeafNode(m_root))
+			newRoot.data.deepCount = m_root.entryCount + rootSplit.entryCount;
+		else
+			newRoot.data.deepCount = m_root.data.deepCount + rootSplit.data.deepCount;
+
+		m_root = newRoot;
+		m_MBR[0] = Math.min(m_root.extents[0], m_root.extents[4]);
+		m_MBR[1] = Math.min(m_root.extents[1], m_root.extents[5]);
+		m_MBR[2] = Math.max(m_root.extents[2], m_root.extents[6]);
+		m_MBR[3] = Math.max(m_root.extents[3], m_root.extents[7]);
 	}
 
 	/*
@@ -266,10 +468,10 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 
 			final int newInx = chosenLeaf.entryCount++;
 			chosenLeaf.objKeys[newInx] = objKey;
-			chosenLeaf.xMins[newInx] = xMin;
-			chosenLeaf.yMins[newInx] = yMin;
-			chosenLeaf.xMaxs[newInx] = xMax;
-			chosenLeaf.yMaxs[newInx] = yMax;
+			chosenLeaf.extents[newInx * 4] = xMin;
+			chosenLeaf.extents[(newInx * 4) + 1] = yMin;
+			chosenLeaf.extents[(newInx * 4) + 2] = xMax;
+			chosenLeaf.extents[(newInx * 4) + 3] = yMax;
 			entryMap.put(objKey, chosenLeaf);
 			adjustTreeNoSplit(chosenLeaf, deepCountIncrease, globalMBR);
 
@@ -316,10 +518,10 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			final int newInx = chosenParent.entryCount++;
 			n.parent = chosenParent;
 			chosenParent.data.children[newInx] = n;
-			chosenParent.xMins[newInx] = xMin;
-			chosenParent.yMins[newInx] = yMin;
-			chosenParent.xMaxs[newInx] = xMax;
-			chosenParent.yMaxs[newInx] = yMax;
+			chosenParent.extents[newInx * 4] = xMin;
+			chosenParent.extents[(newInx * 4) + 1] = yMin;
+			chosenParent.extents[(newInx * 4) + 2] = xMax;
+			chosenParent.extents[(newInx * 4) + 3] = yMax;
 			chosenParent.data.deepCount += deepCountIncrease;
 			adjustTreeNoSplit(chosenParent, deepCountIncrease, globalMBR);
 
@@ -385,13 +587,13 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			// A possible optimization would be to add to each node an area cache
 			// for each entry.  That way we wouldn't have to compute this area on
 			// each insertion.
-			final float currArea = (n.xMaxs[i] - n.xMins[i]) * (n.yMaxs[i] - n.yMins[i]);
-			final float newArea = (Math.max(n.xMaxs[i], xMax) - Math.min(n.xMins[i], xMin)) * (Math
-			                                                                                   .max(n.yMaxs[i],
-			                                                                                        yMax)
-			                                                                                  - Math
-			                                                                                    .min(n.yMins[i],
-			                                                                                         yMin));
+			final int off = i * 4;
+			final float currArea = (n.extents[off + 2] - n.extents[off])
+			                       * (n.extents[off + 3] - n.extents[off + 1]);
+			final float newArea = (Math.max(n.extents[off + 2], xMax)
+			                      - Math.min(n.extents[off], xMin))
+			                      * (Math.max(n.extents[off + 3], yMax)
+			                        - Math.min(n.extents[off + 1], yMin));
 			final float currAreaDelta = newArea - currArea;
 
 			if ((currAreaDelta < bestAreaDelta)
@@ -423,13 +625,14 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 	                                        final float[] yMinBuff, final float[] xMaxBuff,
 	                                        final float[] yMaxBuff, final float[] tempBuff1,
 	                                        final float[] tempBuff2) {
+		final int mbrOff = (maxBranches - 1) * 4; // Where a split node keeps its overall MBR.
 		// Copy node MBRs and objKeys and new MBR and objKey into arrays.
 		for (int i = 0; i < fullLeafNode.entryCount; i++) {
 			objKeyBuff[i] = fullLeafNode.objKeys[i];
-			xMinBuff[i] = fullLeafNode.xMins[i];
-			yMinBuff[i] = fullLeafNode.yMins[i];
-			xMaxBuff[i] = fullLeafNode.xMaxs[i];
-			yMaxBuff[i] = fullLeafNode.yMaxs[i];
+			xMinBuff[i] = fullLeafNode.extents[i * 4];
+			yMinBuff[i] = fullLeafNode.extents[(i * 4) + 1];
+			xMaxBuff[i] = fullLeafNode.extents[(i * 4) + 2];
+			yMaxBuff[i] = fullLeafNode.extents[(i * 4) + 3];
 		}
 
 		objKeyBuff[fullLeafNode.entryCount] = newObjKey;
@@ -445,30 +648,30 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		// tempBuff1 now contains the areas of the MBRs - we won't use this.
 		final int seed1 = (int) (seeds >> 32);
 		fullLeafNode.objKeys[0] = objKeyBuff[seed1];
-		fullLeafNode.xMins[0] = xMinBuff[seed1];
-		fullLeafNode.yMins[0] = yMinBuff[seed1];
-		fullLeafNode.xMaxs[0] = xMaxBuff[seed1];
-		fullLeafNode.yMaxs[0] = yMaxBuff[seed1];
+		fullLeafNode.extents[0] = xMinBuff[seed1];
+		fullLeafNode.extents[1] = yMinBuff[seed1];
+		fullLeafNode.extents[2] = xMaxBuff[seed1];
+		fullLeafNode.extents[3] = yMaxBuff[seed1];
 		fullLeafNode.entryCount = 1;
 
 		final int seed2 = (int) seeds;
 		final Node returnThis = new Node(maxBranches, true);
 		returnThis.objKeys[0] = objKeyBuff[seed2];
-		returnThis.xMins[0] = xMinBuff[seed2];
-		returnThis.yMins[0] = yMinBuff[seed2];
-		returnThis.xMaxs[0] = xMaxBuff[seed2];
-		returnThis.yMaxs[0] = yMaxBuff[seed2];
+		returnThis.extents[0] = xMinBuff[seed2];
+		returnThis.extents[1] = yMinBuff[seed2];
+		returnThis.extents[2] = xMaxBuff[seed2];
+		returnThis.extents[3] = yMaxBuff[seed2];
 		returnThis.entryCount = 1;
 
 		// Initialize the overall MBRs at index maxBranches - 1.
-		fullLeafNode.xMins[maxBranches - 1] = fullLeafNode.xMins[0];
-		fullLeafNode.yMins[maxBranches - 1] = fullLeafNode.yMins[0];
-		fullLeafNode.xMaxs[maxBranches - 1] = fullLeafNode.xMaxs[0];
-		fullLeafNode.yMaxs[maxBranches - 1] = fullLeafNode.yMaxs[0];
-		returnThis.xMins[maxBranches - 1] = returnThis.xMins[0];
-		returnThis.yMins[maxBranches - 1] = returnThis.yMins[0];
-		returnThis.xMaxs[maxBranches - 1] = returnThis.xMaxs[0];
-		returnThis.yMaxs[maxBranches - 1] = returnThis.yMaxs[0];
+		fullLeafNode.extents[mbrOff] = fullLeafNode.extents[0];
+		fullLeafNode.extents[mbrOff + 1] = fullLeafNode.extents[1];
+		fullLeafNode.extents[mbrOff + 2] = fullLeafNode.extents[2];
+		fullLeafNode.extents[mbrOff + 3] = fullLeafNode.extents[3];
+		returnThis.extents[mbrOff] = returnThis.extents[0];
+		returnThis.extents[mbrOff + 1] = returnThis.extents[1];
+		returnThis.extents[mbrOff + 2] = returnThis.extents[2];
+		returnThis.extents[mbrOff + 3] = returnThis.extents[3];
 
 		// Plug the holes where seeds used to be.
 		int entriesRemaining = totalEntries;
@@ -512,19 +715,19 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 					// Add entry to "rest" group.
 					final int newInx = restGroup.entryCount++;
 					restGroup.objKeys[newInx] = objKeyBuff[i];
-					restGroup.xMins[newInx] = xMinBuff[i];
-					restGroup.yMins[newInx] = yMinBuff[i];
-					restGroup.xMaxs[newInx] = xMaxBuff[i];
-					restGroup.yMaxs[newInx] = yMaxBuff[i];
+					restGroup.extents[newInx * 4] = xMinBuff[i];
+					restGroup.extents[(newInx * 4) + 1] = yMinBuff[i];
+					restGroup.extents[(newInx * 4) + 2] = xMaxBuff[i];
+					restGroup.extents[(newInx * 4) + 3] = yMaxBuff[i];
 
 					// Update the overall MBR of "rest" group.
-					restGroup.xMins[maxBranches - 1] = Math.min(restGroup.xMins[maxBranches - 1],
+					restGroup.extents[mbrOff] = Math.min(restGroup.extents[mbrOff],
 					                                            xMinBuff[i]);
-					restGroup.yMins[maxBranches - 1] = Math.min(restGroup.yMins[maxBranches - 1],
+					restGroup.extents[mbrOff + 1] = Math.min(restGroup.extents[mbrOff + 1],
 					                                            yMinBuff[i]);
-					restGroup.xMaxs[maxBranches - 1] = Math.max(restGroup.xMaxs[maxBranches - 1],
+					restGroup.extents[mbrOff + 2] = Math.max(restGroup.extents[mbrOff + 2],
 					                                            xMaxBuff[i]);
-					restGroup.yMaxs[maxBranches - 1] = Math.max(restGroup.yMaxs[maxBranches - 1],
+					restGroup.extents[mbrOff + 3] = Math.max(restGroup.extents[mbrOff + 3],
 					                                            yMaxBuff[i]);
 				}
 
@@ -545,16 +748,16 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 				   // If we had an area cache array field in each node we could prevent
 				   // these two computations.
 
-				final float group1Area = (fullLeafNode.xMaxs[maxBranches - 1]
-				                         - fullLeafNode.xMins[maxBranches - 1]) * (fullLeafNode.yMaxs[maxBranches
-				                                                                  - 1]
-				                                                                  - fullLeafNode.yMins[maxBranches
-				                                                                  - 1]);
-				final float group2Area = (returnThis.xMaxs[maxBranches - 1]
-				                         - returnThis.xMins[maxBranches - 1]) * (returnThis.yMaxs[maxBranches
-				                                                                - 1]
-				                                                                - returnThis.yMins[maxBranches
-				                                                                - 1]);
+				final float group1Area = (fullLeafNode.extents[mbrOff + 2]
+				                         - fullLeafNode.extents[mbrOff]) * (fullLeafNode.extents[((maxBranches
+				                                                                  - 1) * 4) + 3]
+				                                                                  - fullLeafNode.extents[((maxBranches
+				                                                                  - 1) * 4) + 1]);
+				final float group2Area = (returnThis.extents[mbrOff + 2]
+				                         - returnThis.extents[mbrOff]) * (returnThis.extents[((maxBranches
+				                                                                - 1) * 4) + 3]
+				                                                                - returnThis.extents[((maxBranches
+				                                                                - 1) * 4) + 1]);
 
 				if (group1Area < group2Area)
 					chooseGroup1 = true;
@@ -584,23 +787,23 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			// Add next to chosen group.
 			final int newInx = chosenGroup.entryCount++;
 			chosenGroup.objKeys[newInx] = objKeyBuff[next];
-			chosenGroup.xMins[newInx] = xMinBuff[next];
-			chosenGroup.yMins[newInx] = yMinBuff[next];
-			chosenGroup.xMaxs[newInx] = xMaxBuff[next];
-			chosenGroup.yMaxs[newInx] = yMaxBuff[next];
+			chosenGroup.extents[newInx * 4] = xMinBuff[next];
+			chosenGroup.extents[(newInx * 4) + 1] = yMinBuff[next];
+			chosenGroup.extents[(newInx * 4) + 2] = xMaxBuff[next];
+			chosenGroup.extents[(newInx * 4) + 3] = yMaxBuff[next];
 
 			// Update the MBR of chosen group.
 			// Note: If we see that the MBR stays the same, we could mark the
 			// "invalid" temp buff array as valid to save even more on computations.
 			// Because this is a rare occurance (seeds of small area tend to be
 			// chosen), I choose not to make this optimization.
-			chosenGroup.xMins[maxBranches - 1] = Math.min(chosenGroup.xMins[maxBranches - 1],
+			chosenGroup.extents[mbrOff] = Math.min(chosenGroup.extents[mbrOff],
 			                                              xMinBuff[next]);
-			chosenGroup.yMins[maxBranches - 1] = Math.min(chosenGroup.yMins[maxBranches - 1],
+			chosenGroup.extents[mbrOff + 1] = Math.min(chosenGroup.extents[mbrOff + 1],
 			                                              yMinBuff[next]);
-			chosenGroup.xMaxs[maxBranches - 1] = Math.max(chosenGroup.xMaxs[maxBranches - 1],
+			chosenGroup.extents[mbrOff + 2] = Math.max(chosenGroup.extents[mbrOff + 2],
 			                                              xMaxBuff[next]);
-			chosenGroup.yMaxs[maxBranches - 1] = Math.max(chosenGroup.yMaxs[maxBranches - 1],
+			chosenGroup.extents[mbrOff + 3] = Math.max(chosenGroup.extents[mbrOff + 3],
 			                                              yMaxBuff[next]);
 
 			// Plug the hole where next used to be.
@@ -639,13 +842,14 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 	                                            final float[] yMinBuff, final float[] xMaxBuff,
 	                                            final float[] yMaxBuff, final float[] tempBuff1,
 	                                            final float[] tempBuff2) {
+		final int mbrOff = (maxBranches - 1) * 4; // Where a split node keeps its overall MBR.
 		// Copy node MBRs and children and new MBR and child into arrays.
 		for (int i = 0; i < fullInternalNode.entryCount; i++) {
 			childrenBuff[i] = fullInternalNode.data.children[i];
-			xMinBuff[i] = fullInternalNode.xMins[i];
-			yMinBuff[i] = fullInternalNode.yMins[i];
-			xMaxBuff[i] = fullInternalNode.xMaxs[i];
-			yMaxBuff[i] = fullInternalNode.yMaxs[i];
+			xMinBuff[i] = fullInternalNode.extents[i * 4];
+			yMinBuff[i] = fullInternalNode.extents[(i * 4) + 1];
+			xMaxBuff[i] = fullInternalNode.extents[(i * 4) + 2];
+			yMaxBuff[i] = fullInternalNode.extents[(i * 4) + 3];
 		}
 
 		childrenBuff[fullInternalNode.entryCount] = newChild;
@@ -662,31 +866,31 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		final int seed1 = (int) (seeds >> 32);
 		childrenBuff[seed1].parent = fullInternalNode;
 		fullInternalNode.data.children[0] = childrenBuff[seed1];
-		fullInternalNode.xMins[0] = xMinBuff[seed1];
-		fullInternalNode.yMins[0] = yMinBuff[seed1];
-		fullInternalNode.xMaxs[0] = xMaxBuff[seed1];
-		fullInternalNode.yMaxs[0] = yMaxBuff[seed1];
+		fullInternalNode.extents[0] = xMinBuff[seed1];
+		fullInternalNode.extents[1] = yMinBuff[seed1];
+		fullInternalNode.extents[2] = xMaxBuff[seed1];
+		fullInternalNode.extents[3] = yMaxBuff[seed1];
 		fullInternalNode.entryCount = 1;
 
 		final int seed2 = (int) seeds;
 		final Node returnThis = new Node(maxBranches, false);
 		childrenBuff[seed2].parent = returnThis;
 		returnThis.data.children[0] = childrenBuff[seed2];
-		returnThis.xMins[0] = xMinBuff[seed2];
-		returnThis.yMins[0] = yMinBuff[seed2];
-		returnThis.xMaxs[0] = xMaxBuff[seed2];
-		returnThis.yMaxs[0] = yMaxBuff[seed2];
+		returnThis.extents[0] = xMinBuff[seed2];
+		returnThis.extents[1] = yMinBuff[seed2];
+		returnThis.extents[2] = xMaxBuff[seed2];
+		returnThis.extents[3] = yMaxBuff[seed2];
 		returnThis.entryCount = 1;
 
 		// Initialize the overall MBRs at index maxBranches - 1.
-		fullInternalNode.xMins[maxBranches - 1] = fullInternalNode.xMins[0];
-		fullInternalNode.yMins[maxBranches - 1] = fullInternalNode.yMins[0];
-		fullInternalNode.xMaxs[maxBranches - 1] = fullInternalNode.xMaxs[0];
-		fullInternalNode.yMaxs[maxBranches - 1] = fullInternalNode.yMaxs[0];
-		returnThis.xMins[maxBranches - 1] = returnThis.xMins[0];
-		returnThis.yMins[maxBranches - 1] = returnThis.yMins[0];
-		returnThis.xMaxs[maxBranches - 1] = returnThis.xMaxs[0];
-		returnThis.yMaxs[maxBranches - 1] = returnThis.yMaxs[0];
+		fullInternalNode.extents[mbrOff] = fullInternalNode.extents[0];
+		fullInternalNode.extents[mbrOff + 1] = fullInternalNode.extents[1];
+		fullInternalNode.extents[mbrOff + 2] = fullInternalNode.extents[2];
+		fullInternalNode.extents[mbrOff + 3] = fullInternalNode.extents[3];
+		returnThis.extents[mbrOff] = returnThis.extents[0];
+		returnThis.extents[mbrOff + 1] = returnThis.extents[1];
+		returnThis.extents[mbrOff + 2] = returnThis.extents[2];
+		returnThis.extents[mbrOff + 3] = returnThis.extents[3];
 
 		// Plug the holes where seeds used to be.
 		int entriesRemaining = totalEntries;
@@ -731,19 +935,19 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 					final int newInx = restGroup.entryCount++;
 					childrenBuff[i].parent = restGroup;
 					restGroup.data.children[newInx] = childrenBuff[i];
-					restGroup.xMins[newInx] = xMinBuff[i];
-					restGroup.yMins[newInx] = yMinBuff[i];
-					restGroup.xMaxs[newInx] = xMaxBuff[i];
-					restGroup.yMaxs[newInx] = yMaxBuff[i];
+					restGroup.extents[newInx * 4] = xMinBuff[i];
+					restGroup.extents[(newInx * 4) + 1] = yMinBuff[i];
+					restGroup.extents[(newInx * 4) + 2] = xMaxBuff[i];
+					restGroup.extents[(newInx * 4) + 3] = yMaxBuff[i];
 
 					// Update the overall MBR of "rest" group.
-					restGroup.xMins[maxBranches - 1] = Math.min(restGroup.xMins[maxBranches - 1],
+					restGroup.extents[mbrOff] = Math.min(restGroup.extents[mbrOff],
 					                                            xMinBuff[i]);
-					restGroup.yMins[maxBranches - 1] = Math.min(restGroup.yMins[maxBranches - 1],
+					restGroup.extents[mbrOff + 1] = Math.min(restGroup.extents[mbrOff + 1],
 					                                            yMinBuff[i]);
-					restGroup.xMaxs[maxBranches - 1] = Math.max(restGroup.xMaxs[maxBranches - 1],
+					restGroup.extents[mbrOff + 2] = Math.max(restGroup.extents[mbrOff + 2],
 					                                            xMaxBuff[i]);
-					restGroup.yMaxs[maxBranches - 1] = Math.max(restGroup.yMaxs[maxBranches - 1],
+					restGroup.extents[mbrOff + 3] = Math.max(restGroup.extents[mbrOff + 3],
 					                                            yMaxBuff[i]);
 				}
 
@@ -764,16 +968,16 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 				   // If we had an area cache array field in each node we could prevent
 				   // these two computations.
 
-				final float group1Area = (fullInternalNode.xMaxs[maxBranches - 1]
-				                         - fullInternalNode.xMins[maxBranches - 1]) * (fullInternalNode.yMaxs[maxBranches
-				                                                                      - 1]
-				                                                                      - fullInternalNode.yMins[maxBranches
-				                                                                      - 1]);
-				final float group2Area = (returnThis.xMaxs[maxBranches - 1]
-				                         - returnThis.xMins[maxBranches - 1]) * (returnThis.yMaxs[maxBranches
-				                                                                - 1]
-				                                                                - returnThis.yMins[maxBranches
-				                                                                - 1]);
+				final float group1Area = (fullInternalNode.extents[mbrOff + 2]
+				                         - fullInternalNode.extents[mbrOff]) * (fullInternalNode.extents[((maxBranches
+				                                                                      - 1) * 4) + 3]
+				                                                                      - fullInternalNode.extents[((maxBranches
+				                                                                      - 1) * 4) + 1]);
+				final float group2Area = (returnThis.extents[mbrOff + 2]
+				                         - returnThis.extents[mbrOff]) * (returnThis.extents[((maxBranches
+				                                                                - 1) * 4) + 3]
+				                                                                - returnThis.extents[((maxBranches
+				                                                                - 1) * 4) + 1]);
 
 				if (group1Area < group2Area)
 					chooseGroup1 = true;
@@ -804,23 +1008,23 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			final int newInx = chosenGroup.entryCount++;
 			childrenBuff[next].parent = chosenGroup;
 			chosenGroup.data.children[newInx] = childrenBuff[next];
-			chosenGroup.xMins[newInx] = xMinBuff[next];
-			chosenGroup.yMins[newInx] = yMinBuff[next];
-			chosenGroup.xMaxs[newInx] = xMaxBuff[next];
-			chosenGroup.yMaxs[newInx] = yMaxBuff[next];
+			chosenGroup.extents[newInx * 4] = xMinBuff[next];
+			chosenGroup.extents[(newInx * 4) + 1] = yMinBuff[next];
+			chosenGroup.extents[(newInx * 4) + 2] = xMaxBuff[next];
+			chosenGroup.extents[(newInx * 4) + 3] = yMaxBuff[next];
 
 			// Update the MBR of chosen group.
 			// Note: If we see that the MBR stays the same, we could mark the
 			// "invalid" temp buff array as valid to save even more on computations.
 			// Because this is a rare occurance (seeds of small area tend to be
 			// chosen), I choose not to make this optimization.
-			chosenGroup.xMins[maxBranches - 1] = Math.min(chosenGroup.xMins[maxBranches - 1],
+			chosenGroup.extents[mbrOff] = Math.min(chosenGroup.extents[mbrOff],
 			                                              xMinBuff[next]);
-			chosenGroup.yMins[maxBranches - 1] = Math.min(chosenGroup.yMins[maxBranches - 1],
+			chosenGroup.extents[mbrOff + 1] = Math.min(chosenGroup.extents[mbrOff + 1],
 			                                              yMinBuff[next]);
-			chosenGroup.xMaxs[maxBranches - 1] = Math.max(chosenGroup.xMaxs[maxBranches - 1],
+			chosenGroup.extents[mbrOff + 2] = Math.max(chosenGroup.extents[mbrOff + 2],
 			                                              xMaxBuff[next]);
-			chosenGroup.yMaxs[maxBranches - 1] = Math.max(chosenGroup.yMaxs[maxBranches - 1],
+			chosenGroup.extents[mbrOff + 3] = Math.max(chosenGroup.extents[mbrOff + 3],
 			                                              yMaxBuff[next]);
 
 			// Plug the hole where next used to be.
@@ -918,21 +1122,22 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 	                                  final float[] yMaxs, final float[] tempBuff1,
 	                                  final boolean buff1Valid, final float[] tempBuff2,
 	                                  final boolean buff2Valid) {
+		final int mbrOff = (maxBranches - 1) * 4; // Where a split node keeps its overall MBR.
 		if (!buff1Valid) {
 			// If we had an area cache array field in each node we could prevent
 			// this computation.
-			final float group1Area = (group1.xMaxs[maxBranches - 1] - group1.xMins[maxBranches - 1]) * (group1.yMaxs[maxBranches
-			                                                                                           - 1]
-			                                                                                           - group1.yMins[maxBranches
-			                                                                                           - 1]);
+			final float group1Area = (group1.extents[mbrOff + 2] - group1.extents[mbrOff]) * (group1.extents[((maxBranches
+			                                                                                           - 1) * 4) + 3]
+			                                                                                           - group1.extents[((maxBranches
+			                                                                                           - 1) * 4) + 1]);
 
 			for (int i = 0; i < count; i++) {
-				tempBuff1[i] = ((Math.max(group1.xMaxs[maxBranches - 1], xMaxs[i])
-				                - Math.min(group1.xMins[maxBranches - 1], xMins[i])) * (Math.max(group1.yMaxs[maxBranches
-				                                                                                 - 1],
+				tempBuff1[i] = ((Math.max(group1.extents[mbrOff + 2], xMaxs[i])
+				                - Math.min(group1.extents[mbrOff], xMins[i])) * (Math.max(group1.extents[((maxBranches
+				                                                                                 - 1) * 4) + 3],
 				                                                                                 yMaxs[i])
-				                                                                       - Math.min(group1.yMins[maxBranches
-				                                                                                  - 1],
+				                                                                       - Math.min(group1.extents[((maxBranches
+				                                                                                  - 1) * 4) + 1],
 				                                                                                  yMins[i])))
 				               - group1Area;
 			}
@@ -941,18 +1146,18 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		if (!buff2Valid) {
 			// If we had an area cache array field in each node we could prevent
 			// this computation.      
-			final float group2Area = (group2.xMaxs[maxBranches - 1] - group2.xMins[maxBranches - 1]) * (group2.yMaxs[maxBranches
-			                                                                                           - 1]
-			                                                                                           - group2.yMins[maxBranches
-			                                                                                           - 1]);
+			final float group2Area = (group2.extents[mbrOff + 2] - group2.extents[mbrOff]) * (group2.extents[((maxBranches
+			                                                                                           - 1) * 4) + 3]
+			                                                                                           - group2.extents[((maxBranches
+			                                                                                           - 1) * 4) + 1]);
 
 			for (int i = 0; i < count; i++) {
-				tempBuff2[i] = ((Math.max(group2.xMaxs[maxBranches - 1], xMaxs[i])
-				                - Math.min(group2.xMins[maxBranches - 1], xMins[i])) * (Math.max(group2.yMaxs[maxBranches
-				                                                                                 - 1],
+				tempBuff2[i] = ((Math.max(group2.extents[mbrOff + 2], xMaxs[i])
+				                - Math.min(group2.extents[mbrOff], xMins[i])) * (Math.max(group2.extents[((maxBranches
+				                                                                                 - 1) * 4) + 3],
 				                                                                                 yMaxs[i])
-				                                                                       - Math.min(group2.yMins[maxBranches
-				                                                                                  - 1],
+				                                                                       - Math.min(group2.extents[((maxBranches
+				                                                                                  - 1) * 4) + 1],
 				                                                                                  yMins[i])))
 				               - group2Area;
 			}
@@ -991,10 +1196,10 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			// "If N is the root, stop."  Adjust the globalMBR.
 			if (p == null) {
 				if (currModInx >= 0) {
-					globalMBR[0] = Math.min(globalMBR[0], n.xMins[currModInx]);
-					globalMBR[1] = Math.min(globalMBR[1], n.yMins[currModInx]);
-					globalMBR[2] = Math.max(globalMBR[2], n.xMaxs[currModInx]);
-					globalMBR[3] = Math.max(globalMBR[3], n.yMaxs[currModInx]);
+					globalMBR[0] = Math.min(globalMBR[0], n.extents[currModInx * 4]);
+					globalMBR[1] = Math.min(globalMBR[1], n.extents[(currModInx * 4) + 1]);
+					globalMBR[2] = Math.max(globalMBR[2], n.extents[(currModInx * 4) + 2]);
+					globalMBR[3] = Math.max(globalMBR[3], n.extents[(currModInx * 4) + 3]);
 				}
 
 				break;
@@ -1014,22 +1219,22 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 					}
 
 				// Compute the MBR that tightly encloses all entries in n.
-				final float newXMin = Math.min(p.xMins[nInxInP], n.xMins[currModInx]);
-				final float newYMin = Math.min(p.yMins[nInxInP], n.yMins[currModInx]);
-				final float newXMax = Math.max(p.xMaxs[nInxInP], n.xMaxs[currModInx]);
-				final float newYMax = Math.max(p.yMaxs[nInxInP], n.yMaxs[currModInx]);
+				final float newXMin = Math.min(p.extents[nInxInP * 4], n.extents[currModInx * 4]);
+				final float newYMin = Math.min(p.extents[(nInxInP * 4) + 1], n.extents[(currModInx * 4) + 1]);
+				final float newXMax = Math.max(p.extents[(nInxInP * 4) + 2], n.extents[(currModInx * 4) + 2]);
+				final float newYMax = Math.max(p.extents[(nInxInP * 4) + 3], n.extents[(currModInx * 4) + 3]);
 
 				// If the overall MBR of n does not change, we don't need to
 				// update any further MBRs, just deep counts.
-				if ((newXMin == p.xMins[nInxInP]) && (newYMin == p.yMins[nInxInP])
-				    && (newXMax == p.xMaxs[nInxInP]) && (newYMax == p.yMaxs[nInxInP])) {
+				if ((newXMin == p.extents[nInxInP * 4]) && (newYMin == p.extents[(nInxInP * 4) + 1])
+				    && (newXMax == p.extents[(nInxInP * 4) + 2]) && (newYMax == p.extents[(nInxInP * 4) + 3])) {
 					currModInx = -1;
 				}
 				else { // n's overall MBR did increase in size.
-					p.xMins[nInxInP] = newXMin;
-					p.yMins[nInxInP] = newYMin;
-					p.xMaxs[nInxInP] = newXMax;
-					p.yMaxs[nInxInP] = newYMax;
+					p.extents[nInxInP * 4] = newXMin;
+					p.extents[(nInxInP * 4) + 1] = newYMin;
+					p.extents[(nInxInP * 4) + 2] = newXMax;
+					p.extents[(nInxInP * 4) + 3] = newYMax;
 					currModInx = nInxInP;
 				}
 			}
@@ -1058,6 +1263,7 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 	                                              final float[] xMinBuff, final float[] yMinBuff,
 	                                              final float[] xMaxBuff, final float[] yMaxBuff,
 	                                              final float[] tempBuff1, final float[] tempBuff2) {
+		final int mbrOff = (maxBranches - 1) * 4; // Where a split node keeps its overall MBR.
 		int currModInx = -1;
 		boolean newNodeAdded = false; // New node added as last entry in n?
 		                              // (Only when nn is null.)
@@ -1071,18 +1277,18 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			// "If N is the root, stop."  Update globalMBR if root not split.
 			if (p == null) {
 				if ((nn == null) && (currModInx >= 0)) {
-					globalMBR[0] = Math.min(globalMBR[0], n.xMins[currModInx]);
-					globalMBR[1] = Math.min(globalMBR[1], n.yMins[currModInx]);
-					globalMBR[2] = Math.max(globalMBR[2], n.xMaxs[currModInx]);
-					globalMBR[3] = Math.max(globalMBR[3], n.yMaxs[currModInx]);
+					globalMBR[0] = Math.min(globalMBR[0], n.extents[currModInx * 4]);
+					globalMBR[1] = Math.min(globalMBR[1], n.extents[(currModInx * 4) + 1]);
+					globalMBR[2] = Math.max(globalMBR[2], n.extents[(currModInx * 4) + 2]);
+					globalMBR[3] = Math.max(globalMBR[3], n.extents[(currModInx * 4) + 3]);
 
 					if (newNodeAdded) { // Will only be true when currModInx >= 0.
 
 						final int countMin1 = n.entryCount - 1;
-						globalMBR[0] = Math.min(globalMBR[0], n.xMins[countMin1]);
-						globalMBR[1] = Math.min(globalMBR[1], n.yMins[countMin1]);
-						globalMBR[2] = Math.max(globalMBR[2], n.xMaxs[countMin1]);
-						globalMBR[3] = Math.max(globalMBR[3], n.yMaxs[countMin1]);
+						globalMBR[0] = Math.min(globalMBR[0], n.extents[countMin1 * 4]);
+						globalMBR[1] = Math.min(globalMBR[1], n.extents[(countMin1 * 4) + 1]);
+						globalMBR[2] = Math.max(globalMBR[2], n.extents[(countMin1 * 4) + 2]);
+						globalMBR[3] = Math.max(globalMBR[3], n.extents[(countMin1 * 4) + 3]);
 					}
 				}
 
@@ -1103,20 +1309,20 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 						break;
 					}
 
-				p.xMins[nInxInP] = n.xMins[maxBranches - 1]; // A split implies
-				p.yMins[nInxInP] = n.yMins[maxBranches - 1]; // overall MBR at inx
-				p.xMaxs[nInxInP] = n.xMaxs[maxBranches - 1]; // maxBranches - 1.
-				p.yMaxs[nInxInP] = n.yMaxs[maxBranches - 1];
+				p.extents[nInxInP * 4] = n.extents[mbrOff]; // A split implies
+				p.extents[(nInxInP * 4) + 1] = n.extents[mbrOff + 1]; // overall MBR at inx
+				p.extents[(nInxInP * 4) + 2] = n.extents[mbrOff + 2]; // maxBranches - 1.
+				p.extents[(nInxInP * 4) + 3] = n.extents[mbrOff + 3];
 
 				if (p.entryCount < maxBranches) { // No further split is necessary.
 
 					final int newInxInP = p.entryCount++;
 					nn.parent = p;
 					p.data.children[newInxInP] = nn;
-					p.xMins[newInxInP] = nn.xMins[maxBranches - 1]; // A split implies
-					p.yMins[newInxInP] = nn.yMins[maxBranches - 1]; // overall MBR at inx
-					p.xMaxs[newInxInP] = nn.xMaxs[maxBranches - 1]; // maxBranches - 1.
-					p.yMaxs[newInxInP] = nn.yMaxs[maxBranches - 1];
+					p.extents[newInxInP * 4] = nn.extents[mbrOff]; // A split implies
+					p.extents[(newInxInP * 4) + 1] = nn.extents[mbrOff + 1]; // overall MBR at inx
+					p.extents[(newInxInP * 4) + 2] = nn.extents[mbrOff + 2]; // maxBranches - 1.
+					p.extents[(newInxInP * 4) + 3] = nn.extents[mbrOff + 3];
 
 					// The recursive step.
 					currModInx = nInxInP;
@@ -1126,9 +1332,9 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 				else { // A split is necessary as the iterative step.
 					   // We require that the MBR at index maxBranches - 1 in nn contain
 					   // nn's overall MBR at the time this is called.
-					nn = splitInternalNode(p, nn, nn.xMins[maxBranches - 1],
-					                       nn.yMins[maxBranches - 1], nn.xMaxs[maxBranches - 1],
-					                       nn.yMaxs[maxBranches - 1], maxBranches, minBranches,
+					nn = splitInternalNode(p, nn, nn.extents[mbrOff],
+					                       nn.extents[mbrOff + 1], nn.extents[mbrOff + 2],
+					                       nn.extents[mbrOff + 3], maxBranches, minBranches,
 					                       childrenBuff, xMinBuff, yMinBuff, xMaxBuff, yMaxBuff,
 					                       tempBuff1, tempBuff2);
 				}
@@ -1147,29 +1353,29 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 					}
 
 				// Compute the new overall MBR for n (stored in n's parent).
-				float newXMin = Math.min(p.xMins[nInxInP], n.xMins[currModInx]);
-				float newYMin = Math.min(p.yMins[nInxInP], n.yMins[currModInx]);
-				float newXMax = Math.max(p.xMaxs[nInxInP], n.xMaxs[currModInx]);
-				float newYMax = Math.max(p.yMaxs[nInxInP], n.yMaxs[currModInx]);
+				float newXMin = Math.min(p.extents[nInxInP * 4], n.extents[currModInx * 4]);
+				float newYMin = Math.min(p.extents[(nInxInP * 4) + 1], n.extents[(currModInx * 4) + 1]);
+				float newXMax = Math.max(p.extents[(nInxInP * 4) + 2], n.extents[(currModInx * 4) + 2]);
+				float newYMax = Math.max(p.extents[(nInxInP * 4) + 3], n.extents[(currModInx * 4) + 3]);
 
 				if (newNodeAdded) { // Nodes added always as last index.
 
 					final int countMin1 = n.entryCount - 1;
-					newXMin = Math.min(newXMin, n.xMins[countMin1]);
-					newYMin = Math.min(newYMin, n.yMins[countMin1]);
-					newXMax = Math.max(newXMax, n.xMaxs[countMin1]);
-					newYMax = Math.max(newYMax, n.yMaxs[countMin1]);
+					newXMin = Math.min(newXMin, n.extents[countMin1 * 4]);
+					newYMin = Math.min(newYMin, n.extents[(countMin1 * 4) + 1]);
+					newXMax = Math.max(newXMax, n.extents[(countMin1 * 4) + 2]);
+					newYMax = Math.max(newYMax, n.extents[(countMin1 * 4) + 3]);
 					newNodeAdded = false;
 				}
 
-				if ((newXMin == p.xMins[nInxInP]) && (newYMin == p.yMins[nInxInP])
-				    && (newXMax == p.xMaxs[nInxInP]) && (newYMax == p.yMaxs[nInxInP])) {
+				if ((newXMin == p.extents[nInxInP * 4]) && (newYMin == p.extents[(nInxInP * 4) + 1])
+				    && (newXMax == p.extents[(nInxInP * 4) + 2]) && (newYMax == p.extents[(nInxInP * 4) + 3])) {
 					currModInx = -1;
 				} else {
-					p.xMins[nInxInP] = newXMin;
-					p.yMins[nInxInP] = newYMin;
-					p.xMaxs[nInxInP] = newXMax;
-					p.yMaxs[nInxInP] = newYMax;
+					p.extents[nInxInP * 4] = newXMin;
+					p.extents[(nInxInP * 4) + 1] = newYMin;
+					p.extents[(nInxInP * 4) + 2] = newXMax;
+					p.extents[(nInxInP * 4) + 3] = newYMax;
 					currModInx = nInxInP;
 				}
 			}
@@ -1225,10 +1431,11 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			while (n.objKeys[++i] != objKey)
 				;
 
-			extentsArr[offset] = n.xMins[i];
-			extentsArr[offset + 1] = n.yMins[i];
-			extentsArr[offset + 2] = n.xMaxs[i];
-			extentsArr[offset + 3] = n.yMaxs[i];
+			final int e = i * 4;
+			extentsArr[offset] = n.extents[e];
+			extentsArr[offset + 1] = n.extents[e + 1];
+			extentsArr[offset + 2] = n.extents[e + 2];
+			extentsArr[offset + 3] = n.extents[e + 3];
 		}
 
 		return true;
@@ -1270,10 +1477,10 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 
 		if (delInx != n.entryCount) { // Plug the hole at index delInx.
 			n.objKeys[delInx] = n.objKeys[n.entryCount];
-			n.xMins[delInx] = n.xMins[n.entryCount];
-			n.yMins[delInx] = n.yMins[n.entryCount];
-			n.xMaxs[delInx] = n.xMaxs[n.entryCount];
-			n.yMaxs[delInx] = n.yMaxs[n.entryCount];
+			n.extents[delInx * 4] = n.extents[n.entryCount * 4];
+			n.extents[(delInx * 4) + 1] = n.extents[(n.entryCount * 4) + 1];
+			n.extents[(delInx * 4) + 2] = n.extents[(n.entryCount * 4) + 2];
+			n.extents[(delInx * 4) + 3] = n.extents[(n.entryCount * 4) + 3];
 		}
 
 		// Fix up the tree from leaf to root.
@@ -1287,15 +1494,15 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 				final Node rootSplit;
 
 				if (isLeafNode(eliminatedNode)) {
-					rootSplit = insert(m_root, eliminatedNode.objKeys[i], eliminatedNode.xMins[i],
-					                   eliminatedNode.yMins[i], eliminatedNode.xMaxs[i],
-					                   eliminatedNode.yMaxs[i], m_maxBranches, m_minBranches,
+					rootSplit = insert(m_root, eliminatedNode.objKeys[i], eliminatedNode.extents[i * 4],
+					                   eliminatedNode.extents[(i * 4) + 1], eliminatedNode.extents[(i * 4) + 2],
+					                   eliminatedNode.extents[(i * 4) + 3], m_maxBranches, m_minBranches,
 					                   m_entryMap, m_MBR, m_objKeyBuff, m_childrenBuff, m_xMinBuff,
 					                   m_yMinBuff, m_xMaxBuff, m_yMaxBuff, m_tempBuff1, m_tempBuff2);
 				} else {
 					rootSplit = insert(m_root, currentDepth, eliminatedNode.data.children[i],
-					                   eliminatedNode.xMins[i], eliminatedNode.yMins[i],
-					                   eliminatedNode.xMaxs[i], eliminatedNode.yMaxs[i],
+					                   eliminatedNode.extents[i * 4], eliminatedNode.extents[(i * 4) + 1],
+					                   eliminatedNode.extents[(i * 4) + 2], eliminatedNode.extents[(i * 4) + 3],
 					                   m_maxBranches, m_minBranches, m_MBR, m_childrenBuff,
 					                   m_xMinBuff, m_yMinBuff, m_xMaxBuff, m_yMaxBuff, m_tempBuff1,
 					                   m_tempBuff2);
@@ -1303,26 +1510,7 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 				}
 
 				if (rootSplit != null) {
-					final Node newRoot = new Node(m_maxBranches, false);
-					newRoot.entryCount = 2;
-					m_root.parent = newRoot;
-					rootSplit.parent = newRoot;
-					newRoot.data.children[0] = m_root;
-					newRoot.data.children[1] = rootSplit;
-					newRoot.xMins[0] = m_root.xMins[m_maxBranches - 1];
-					newRoot.yMins[0] = m_root.yMins[m_maxBranches - 1];
-					newRoot.xMaxs[0] = m_root.xMaxs[m_maxBranches - 1];
-					newRoot.yMaxs[0] = m_root.yMaxs[m_maxBranches - 1];
-					newRoot.xMins[1] = rootSplit.xMins[m_maxBranches - 1];
-					newRoot.yMins[1] = rootSplit.yMins[m_maxBranches - 1];
-					newRoot.xMaxs[1] = rootSplit.xMaxs[m_maxBranches - 1];
-					newRoot.yMaxs[1] = rootSplit.yMaxs[m_maxBranches - 1];
-					newRoot.data.deepCount = m_root.data.deepCount + rootSplit.data.deepCount;
-					m_root = newRoot;
-					m_MBR[0] = Math.min(m_root.xMins[0], m_root.xMins[1]);
-					m_MBR[1] = Math.min(m_root.yMins[0], m_root.yMins[1]);
-					m_MBR[2] = Math.max(m_root.xMaxs[0], m_root.xMaxs[1]);
-					m_MBR[3] = Math.max(m_root.yMaxs[0], m_root.yMaxs[1]);
+					growRoot(rootSplit);
 					currentDepth++;
 				}
 			}
@@ -1366,6 +1554,181 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		return true;
 	}
 
+	/**
+	 * Changes the extents of several existing entries at once.  This has the
+	 * same effect as deleting and re-inserting each entry, but entries that
+	 * stay within the bounds of their leaf node are updated in place, and a
+	 * batch that moves a large part of this tree rebuilds it with bulk
+	 * loading.
+	 * @param objKeys the entries to move; entries that do not exist in this
+	 *   R-tree are ignored.
+	 * @param extentsArr the new extents; the new extents of objKeys[i] are at
+	 *   indices 4*i through 4*i+3 and are in the order xMin, yMin, xMax, yMax.
+	 * @param count the number of entries to read from objKeys and extentsArr.
+	 * @return the number of entries that were moved.
+	 * @exception IllegalArgumentException if count is negative or if any
+	 *   extents are not valid as defined by insert(); in that case nothing is
+	 *   moved.
+	 */
+	public final int move(final long[] objKeys, final float[] extentsArr, final int count) {
+		if (count < 0)
+			throw new IllegalArgumentException("count is negative");
+
+		for (int i = 0; i < count; i++) {
+			if (!(extentsArr[i * 4] <= extentsArr[(i * 4) + 2]))
+				throw new IllegalArgumentException("xMin <= xMax not true for objKey " + objKeys[i]);
+
+			if (!(extentsArr[(i * 4) + 1] <= extentsArr[(i * 4) + 3]))
+				throw new IllegalArgumentException("yMin <= yMax not true for objKey " + objKeys[i]);
+		}
+
+		if ((count * REBUILD_DIVISOR) >= size() && (size() > m_maxBranches))
+			return moveAndRebuild(objKeys, extentsArr, count);
+
+		int moved = 0;
+
+		for (int i = 0; i < count; i++) {
+			final Object o = (objKeys[i] < 0) ? null : m_entryMap.get(objKeys[i]);
+
+			if ((o == null) || (o == m_deletedEntry))
+				continue;
+
+			final Node leaf = (Node) o;
+			final int e = i * 4;
+
+			if (covers(leaf, extentsArr[e], extentsArr[e + 1], extentsArr[e + 2], extentsArr[e + 3])) {
+				int inx = -1;
+
+				while (leaf.objKeys[++inx] != objKeys[i])
+					;
+
+				System.arraycopy(extentsArr, e, leaf.extents, inx * 4, 4);
+				tightenMBRs(leaf, m_MBR);
+			} else {
+				delete(objKeys[i]);
+				insert(objKeys[i], extentsArr[e], extentsArr[e + 1], extentsArr[e + 2],
+				       extentsArr[e + 3]);
+			}
+
+			moved++;
+		}
+
+		return moved;
+	}
+
+	/*
+	 * Moves the entries in place and then rebuilds the whole tree.
+	 */
+	private final int moveAndRebuild(final long[] objKeys, final float[] extentsArr,
+	                                 final int count) {
+		int moved = 0;
+
+		for (int i = 0; i < count; i++) {
+			final Object o = (objKeys[i] < 0) ? null : m_entryMap.get(objKeys[i]);
+
+			if ((o == null) || (o == m_deletedEntry))
+				continue;
+
+			final Node leaf = (Node) o;
+			int inx = -1;
+
+			while (leaf.objKeys[++inx] != objKeys[i])
+				;
+
+			System.arraycopy(extentsArr, i * 4, leaf.extents, inx * 4, 4);
+			moved++;
+		}
+
+		final int size = size();
+		final long[] allKeys = new long[size];
+		final float[] allExtents = new float[size * 4];
+		final LongObjHash entryMap = new LongObjHash();
+		final ObjStack nodes = new ObjStack();
+		int inx = 0;
+		nodes.push(m_root);
+
+		while (nodes.size() > 0) {
+			final Node n = (Node) nodes.pop();
+
+			if (isLeafNode(n)) {
+				for (int i = 0; i < n.entryCount; i++) {
+					allKeys[inx] = n.objKeys[i];
+					System.arraycopy(n.extents, i * 4, allExtents, inx * 4, 4);
+					entryMap.put(n.objKeys[i], m_deletedEntry);
+					inx++;
+				}
+			} else {
+				for (int i = n.entryCount - 1; i >= 0; i--)
+					nodes.push(n.data.children[i]);
+			}
+		}
+
+		load(allKeys, allExtents, size, entryMap);
+
+		return moved;
+	}
+
+	/*
+	 * Determines whether the given extents lie within the MBR that the parent
+	 * of leaf keeps for it, or within the global MBR if leaf is the root.
+	 */
+	private final boolean covers(final Node leaf, final float xMin, final float yMin,
+	                             final float xMax, final float yMax) {
+		final Node p = leaf.parent;
+		final float[] mbr;
+		final int e;
+
+		if (p == null) {
+			mbr = m_MBR;
+			e = 0;
+		} else {
+			int inx = -1;
+
+			while (p.data.children[++inx] != leaf)
+				;
+
+			mbr = p.extents;
+			e = inx * 4;
+		}
+
+		return (xMin >= mbr[e]) && (yMin >= mbr[e + 1]) && (xMax <= mbr[e + 2])
+		       && (yMax <= mbr[e + 3]);
+	}
+
+	/*
+	 * Recomputes the MBRs from n up to the root after entries in n have
+	 * changed without growing n's MBR.  Stops as soon as an MBR is unchanged.
+	 */
+	private final static void tightenMBRs(Node n, final float[] globalMBR) {
+		while (true) {
+			final Node p = n.parent;
+
+			if (p == null) {
+				computeMBR(n, globalMBR, 0);
+
+				return;
+			}
+
+			int nInxInP = -1;
+
+			while (p.data.children[++nInxInP] != n)
+				;
+
+			final int e = nInxInP * 4;
+			final float oldXMin = p.extents[e];
+			final float oldYMin = p.extents[e + 1];
+			final float oldXMax = p.extents[e + 2];
+			final float oldYMax = p.extents[e + 3];
+			computeMBR(n, p.extents, e);
+
+			if ((oldXMin == p.extents[e]) && (oldYMin == p.extents[e + 1])
+			    && (oldXMax == p.extents[e + 2]) && (oldYMax == p.extents[e + 3]))
+				return;
+
+			n = p;
+		}
+	}
+
 	/*
 	 * This does not re-insert orphaned nodes and entries - instead, the
 	 * stack eliminatedNodes is populated so that the caller of this function
@@ -1395,10 +1758,10 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 					globalMBR[3] = Float.NEGATIVE_INFINITY;
 
 					for (int i = 0; i < n.entryCount; i++) {
-						globalMBR[0] = Math.min(globalMBR[0], n.xMins[i]);
-						globalMBR[1] = Math.min(globalMBR[1], n.yMins[i]);
-						globalMBR[2] = Math.max(globalMBR[2], n.xMaxs[i]);
-						globalMBR[3] = Math.max(globalMBR[3], n.yMaxs[i]);
+						globalMBR[0] = Math.min(globalMBR[0], n.extents[i * 4]);
+						globalMBR[1] = Math.min(globalMBR[1], n.extents[(i * 4) + 1]);
+						globalMBR[2] = Math.max(globalMBR[2], n.extents[(i * 4) + 2]);
+						globalMBR[3] = Math.max(globalMBR[3], n.extents[(i * 4) + 3]);
 					}
 				}
 
@@ -1421,10 +1784,10 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 
 				if (nInxInP != p.entryCount) { // Plug the hole at index nInxInP.
 					p.data.children[nInxInP] = p.data.children[p.entryCount];
-					p.xMins[nInxInP] = p.xMins[p.entryCount];
-					p.yMins[nInxInP] = p.yMins[p.entryCount];
-					p.xMaxs[nInxInP] = p.xMaxs[p.entryCount];
-					p.yMaxs[nInxInP] = p.yMaxs[p.entryCount];
+					p.extents[nInxInP * 4] = p.extents[p.entryCount * 4];
+					p.extents[(nInxInP * 4) + 1] = p.extents[(p.entryCount * 4) + 1];
+					p.extents[(nInxInP * 4) + 2] = p.extents[(p.entryCount * 4) + 2];
+					p.extents[(nInxInP * 4) + 3] = p.extents[(p.entryCount * 4) + 3];
 				}
 
 				p.data.children[p.entryCount] = null; // Important for gc.
@@ -1438,24 +1801,24 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			else { // n has not been eliminated.  Adjust covering rectangle.
 
 				if (updateMBR) {
-					final float oldXMin = p.xMins[nInxInP];
-					final float oldYMin = p.yMins[nInxInP];
-					final float oldXMax = p.xMaxs[nInxInP];
-					final float oldYMax = p.yMaxs[nInxInP];
-					p.xMins[nInxInP] = Float.POSITIVE_INFINITY;
-					p.yMins[nInxInP] = Float.POSITIVE_INFINITY;
-					p.xMaxs[nInxInP] = Float.NEGATIVE_INFINITY;
-					p.yMaxs[nInxInP] = Float.NEGATIVE_INFINITY;
+					final float oldXMin = p.extents[nInxInP * 4];
+					final float oldYMin = p.extents[(nInxInP * 4) + 1];
+					final float oldXMax = p.extents[(nInxInP * 4) + 2];
+					final float oldYMax = p.extents[(nInxInP * 4) + 3];
+					p.extents[nInxInP * 4] = Float.POSITIVE_INFINITY;
+					p.extents[(nInxInP * 4) + 1] = Float.POSITIVE_INFINITY;
+					p.extents[(nInxInP * 4) + 2] = Float.NEGATIVE_INFINITY;
+					p.extents[(nInxInP * 4) + 3] = Float.NEGATIVE_INFINITY;
 
 					for (int i = 0; i < n.entryCount; i++) {
-						p.xMins[nInxInP] = Math.min(p.xMins[nInxInP], n.xMins[i]);
-						p.yMins[nInxInP] = Math.min(p.yMins[nInxInP], n.yMins[i]);
-						p.xMaxs[nInxInP] = Math.max(p.xMaxs[nInxInP], n.xMaxs[i]);
-						p.yMaxs[nInxInP] = Math.max(p.yMaxs[nInxInP], n.yMaxs[i]);
+						p.extents[nInxInP * 4] = Math.min(p.extents[nInxInP * 4], n.extents[i * 4]);
+						p.extents[(nInxInP * 4) + 1] = Math.min(p.extents[(nInxInP * 4) + 1], n.extents[(i * 4) + 1]);
+						p.extents[(nInxInP * 4) + 2] = Math.max(p.extents[(nInxInP * 4) + 2], n.extents[(i * 4) + 2]);
+						p.extents[(nInxInP * 4) + 3] = Math.max(p.extents[(nInxInP * 4) + 3], n.extents[(i * 4) + 3]);
 					}
 
-					if ((oldXMin == p.xMins[nInxInP]) && (oldYMin == p.yMins[nInxInP])
-					    && (oldXMax == p.xMaxs[nInxInP]) && (oldYMax == p.yMaxs[nInxInP]))
+					if ((oldXMin == p.extents[nInxInP * 4]) && (oldYMin == p.extents[(nInxInP * 4) + 1])
+					    && (oldXMax == p.extents[(nInxInP * 4) + 2]) && (oldYMax == p.extents[(nInxInP * 4) + 3]))
 						updateMBR = false;
 				}
 			}
@@ -1630,18 +1993,22 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 				if (isLeafNode(n)) {
 					final LongStack stack = new LongStack();
 
+					final float[] ext = n.extents;
+
 					for (int cntr = n.entryCount, i = reverse ? 0 : (n.entryCount - 1); cntr > 0;
 					     cntr--, i -= incr) {
+						final int e = i * 4;
+
 						// Overlaps test of two rectangles.
-						if ((Math.max(xMinQ, n.xMins[i]) <= Math.min(xMaxQ, n.xMaxs[i]))
-						    && (Math.max(yMinQ, n.yMins[i]) <= Math.min(yMaxQ, n.yMaxs[i]))) {
+						if ((Math.max(xMinQ, ext[e]) <= Math.min(xMaxQ, ext[e + 2]))
+						    && (Math.max(yMinQ, ext[e + 1]) <= Math.min(yMaxQ, ext[e + 3]))) {
 							stack.push(i);
 
 							if (extents != null) {
-								extents[off] = Math.min(extents[off], n.xMins[i]);
-								extents[off + 1] = Math.min(extents[off + 1], n.yMins[i]);
-								extents[off + 2] = Math.max(extents[off + 2], n.xMaxs[i]);
-								extents[off + 3] = Math.max(extents[off + 3], n.yMaxs[i]);
+								extents[off] = Math.min(extents[off], ext[e]);
+								extents[off + 1] = Math.min(extents[off + 1], ext[e + 1]);
+								extents[off + 2] = Math.max(extents[off + 2], ext[e + 2]);
+								extents[off + 3] = Math.max(extents[off + 3], ext[e + 3]);
 							}
 						}
 					}
@@ -1653,16 +2020,20 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 					}
 				} else { // Internal node.
 
+					final float[] ext = n.extents;
+
 					for (int cntr = n.entryCount, i = reverse ? (n.entryCount - 1) : 0; cntr > 0;
 					     cntr--, i += incr) {
+						final int e = i * 4;
+
 						// Overlaps test of two rectangles.
-						if ((Math.max(xMinQ, n.xMins[i]) <= Math.min(xMaxQ, n.xMaxs[i]))
-						    && (Math.max(yMinQ, n.yMins[i]) <= Math.min(yMaxQ, n.yMaxs[i]))) {
+						if ((Math.max(xMinQ, ext[e]) <= Math.min(xMaxQ, ext[e + 2]))
+						    && (Math.max(yMinQ, ext[e + 1]) <= Math.min(yMaxQ, ext[e + 3]))) {
 							unprocessedNodes.push(n.data.children[i]);
-							extStack[extOff++] = n.xMins[i];
-							extStack[extOff++] = n.yMins[i];
-							extStack[extOff++] = n.xMaxs[i];
-							extStack[extOff++] = n.yMaxs[i];
+							extStack[extOff++] = ext[e];
+							extStack[extOff++] = ext[e + 1];
+							extStack[extOff++] = ext[e + 2];
+							extStack[extOff++] = ext[e + 3];
 						}
 					}
 				}
@@ -1673,21 +2044,15 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 	}
 
 	private final static class Node implements java.io.Serializable {
-	private final static long serialVersionUID = 1213746741283564L;
+	private final static long serialVersionUID = 1213746741283565L;
 		private Node parent;
 		private int entryCount = 0;
-		private final float[] xMins;
-		private final float[] yMins;
-		private final float[] xMaxs;
-		private final float[] yMaxs;
+		private final float[] extents; // { xMin, yMin, xMax, yMax } per entry.
 		private final long[] objKeys; // null if and only if internal node.
 		private final InternalNodeData data;
 
 		private Node(final int maxBranches, final boolean leafNode) {
-			xMins = new float[maxBranches];
-			yMins = new float[maxBranches];
-			xMaxs = new float[maxBranches];
-			yMaxs = new float[maxBranches];
+			extents = new float[maxBranches * 4];
 
 			if (leafNode) {
 				objKeys = new long[maxBranches];
@@ -1752,10 +2117,11 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			}
 
 			count--;
-			extentsArr[offset] = leaf.xMins[inx];
-			extentsArr[offset + 1] = leaf.yMins[inx];
-			extentsArr[offset + 2] = leaf.xMaxs[inx];
-			extentsArr[offset + 3] = leaf.yMaxs[inx];
+			final int e = inx * 4;
+			extentsArr[offset] = leaf.extents[e];
+			extentsArr[offset + 1] = leaf.extents[e + 1];
+			extentsArr[offset + 2] = leaf.extents[e + 2];
+			extentsArr[offset + 3] = leaf.extents[e + 3];
 
 			return leaf.objKeys[inx];
 		}
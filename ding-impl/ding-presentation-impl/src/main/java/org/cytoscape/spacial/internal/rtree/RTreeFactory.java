@@ -32,4 +32,9 @@ public class RTreeFactory implements SpacialIndex2DFactory {
 	public SpacialIndex2D createSpacialIndex2D() {
 		return new RTree();
 	}
+
+	public SpacialIndex2D createSpacialIndex2D(final long[] objKeys, final float[] extentsArr,
+	                                           final int count) {
+		return new RTree(objKeys, extentsArr, count);
+	}
 }
@@ -0,0 +1,138 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+
+import org.cytoscape.ding.impl.DenseValues.Flags;
+import org.cytoscape.ding.impl.DenseValues.Floats;
+import org.cytoscape.ding.impl.DenseValues.Ints;
+import org.cytoscape.ding.impl.DenseValues.Interned;
+import org.cytoscape.ding.impl.DenseValues.Objects;
+import org.junit.Test;
+
+public class DenseValuesTest {
+
+	@Test
+	public void testFloatsUnsetUntilSet() {
+		final Floats floats = new Floats();
+		assertTrue(Float.isNaN(floats.get(10)));
+
+		floats.set(10, 2.5f);
+		assertEquals(2.5f, floats.get(10), 0.0f);
+		assertTrue(Float.isNaN(floats.get(9)));
+
+		floats.remove(10);
+		assertTrue(Float.isNaN(floats.get(10)));
+	}
+
+	@Test
+	public void testIntsUnsetUntilSet() {
+		final Ints ints = new Ints();
+		assertEquals(Ints.UNSET, ints.get(3));
+
+		ints.set(3, 0);
+		assertEquals(0, ints.get(3));
+
+		ints.clear();
+		assertEquals(Ints.UNSET, ints.get(3));
+	}
+
+	@Test
+	public void testObjects() {
+		final Objects<String> strings = new Objects<String>();
+		strings.set(100, "a");
+		assertEquals("a", strings.get(100));
+		assertNull(strings.get(99));
+		assertNull(strings.get(1000));
+
+		strings.remove(100);
+		assertNull(strings.get(100));
+	}
+
+	@Test
+	public void testInternedSharesValues() {
+		final Interned<Color> colors = new Interned<Color>();
+		for (int i = 0; i < 500; i++)
+			colors.set(i, new Color(i % 2 == 0 ? 0xff0000 : 0x00ff00));
+
+		assertEquals(2, colors.paletteSize());
+		assertEquals(Color.RED, colors.get(0));
+		assertEquals(Color.GREEN, colors.get(1));
+		assertSame(colors.get(0), colors.get(2));
+
+		colors.set(0, null);
+		assertNull(colors.get(0));
+		assertEquals(Color.GREEN, colors.get(1));
+	}
+
+	@Test
+	public void testInternedDropsUnreferencedValues() {
+		final Interned<Integer> values = new Interned<Integer>();
+		for (int i = 0; i < 5000; i++)
+			values.set(0, i);
+
+		assertEquals(Integer.valueOf(4999), values.get(0));
+		assertTrue(values.paletteSize() < 5000);
+	}
+
+	@Test
+	public void testFlags() {
+		final Flags flags = new Flags();
+		assertFalse(flags.get(-1));
+		assertFalse(flags.get(200));
+
+		flags.set(200, true);
+		flags.set(63, true);
+		assertTrue(flags.get(200));
+		assertTrue(flags.get(63));
+		assertFalse(flags.get(64));
+
+		flags.set(200, false);
+		assertFalse(flags.get(200));
+		flags.set(5000, false);
+		assertFalse(flags.get(5000));
+	}
+
+	@Test
+	public void testOrdinalsAreReused() {
+		final ElementOrdinals ordinals = new ElementOrdinals();
+		assertEquals(0, ordinals.acquire());
+		assertEquals(1, ordinals.acquire());
+		assertEquals(2, ordinals.acquire());
+
+		ordinals.release(1);
+		assertEquals(2, ordinals.size());
+		assertEquals(1, ordinals.acquire());
+		assertEquals(3, ordinals.acquire());
+		assertEquals(4, ordinals.capacity());
+	}
+}
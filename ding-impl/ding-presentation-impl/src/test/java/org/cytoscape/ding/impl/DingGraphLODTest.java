@@ -0,0 +1,70 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.cytoscape.application.CyApplicationManager;
+import org.cytoscape.property.CyProperty;
+import org.junit.Test;
+
+public class DingGraphLODTest {
+
+	@Test
+	public void testRenderExecutorSizedByRenderThreads() {
+		final DingGraphLOD lod = createLOD("3");
+		final ExecutorService executor = lod.renderExecutor();
+
+		assertTrue(executor instanceof ThreadPoolExecutor);
+		assertEquals(2, ((ThreadPoolExecutor) executor).getMaximumPoolSize());
+		assertSame(executor, lod.renderExecutor());
+
+		lod.dispose();
+		assertTrue(executor.isShutdown());
+	}
+
+	@Test
+	public void testNoRenderExecutorForOneThread() {
+		final DingGraphLOD lod = createLOD("1");
+		assertNull(lod.renderExecutor());
+		lod.dispose();
+	}
+
+	private static DingGraphLOD createLOD(final String renderThreads) {
+		final Properties props = new Properties();
+		props.setProperty("render.threads", renderThreads);
+
+		@SuppressWarnings("unchecked")
+		final CyProperty<Properties> cyProp = mock(CyProperty.class);
+		when(cyProp.getProperties()).thenReturn(props);
+
+		return new DingGraphLOD(cyProp, mock(CyApplicationManager.class));
+	}
+}
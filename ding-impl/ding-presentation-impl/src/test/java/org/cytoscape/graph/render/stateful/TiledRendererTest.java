@@ -0,0 +1,229 @@
+package org.cytoscape.graph.render.stateful;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.geom.GeneralPath;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+
+import org.cytoscape.graph.render.immed.EdgeAnchors;
+import org.cytoscape.graph.render.immed.GraphGraphics;
+
+
+public class TiledRendererTest extends TestCase {
+	private static final int SIZE = 300;
+
+	// Newer Java 2D renderers clip anti-aliased paths to the drawing area before
+	// rasterizing them, so a path crossing a tile border may come out a few
+	// levels lighter or darker than in one image.  A missing or cut off item
+	// differs by far more.
+	private static final int ANTIALIAS_TOLERANCE = 32;
+
+	private BufferedImage direct;
+	private BufferedImage tiled;
+	private GraphGraphics directGrafx;
+	private GraphGraphics tiledGrafx;
+	private ExecutorService executor;
+
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(3);
+		direct = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+		tiled = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+		directGrafx = new GraphGraphics(direct, false, true);
+		tiledGrafx = new GraphGraphics(tiled, false, true);
+	}
+
+	public void tearDown() {
+		executor.shutdown();
+	}
+
+	public void testCanRender() {
+		assertTrue(TiledRenderer.canRender(tiledGrafx, Color.WHITE));
+		assertFalse(TiledRenderer.canRender(new GraphGraphics(tiled, false, false), Color.WHITE));
+	}
+
+	public void testIntersects() {
+		final NodeDisplayItem item = new NodeDisplayItem();
+		item.setLowDetail(new float[] { 10.0f, 10.0f, 20.0f, 20.0f }, Color.RED);
+		item.computeBounds(1.0d);
+
+		assertTrue(item.intersects(0.0d, 0.0d, 15.0d, 15.0d));
+		assertTrue(item.intersects(19.0d, 19.0d, 40.0d, 40.0d));
+		assertFalse(item.intersects(30.0d, 30.0d, 40.0d, 40.0d));
+	}
+
+	// Nodes and edges crossing tile borders must come out as if drawn directly.
+	public void testMatchesDirectRendering() {
+		final TiledRenderer renderer = new TiledRenderer(1.0d);
+		directGrafx.clear(Color.WHITE, SIZE / 2, SIZE / 2, 1.0d);
+		tiledGrafx.clear(Color.WHITE, SIZE / 2, SIZE / 2, 1.0d);
+
+		for (int i = 0; i < 20; i++) {
+			final EdgeDisplayItem edge = new EdgeDisplayItem();
+			edge.setLowDetail(i * 14, 5, SIZE - (i * 9), SIZE - 5, Color.BLUE);
+			edge.draw(directGrafx);
+			edge.computeBounds(null, renderer.pixel());
+			renderer.add(edge);
+		}
+
+		for (int i = 0; i < 20; i++) {
+			final float x = 7 + (i * 14);
+			final float y = 3 + (i * 13);
+			final NodeDisplayItem node = new NodeDisplayItem();
+			node.setLowDetail(new float[] { x, y, x + 25, y + 17 }, Color.RED);
+			node.draw(directGrafx);
+			node.computeBounds(renderer.pixel());
+			renderer.add(node);
+		}
+
+		renderer.render(tiledGrafx, Color.WHITE, SIZE / 2, SIZE / 2, 1.0d, executor, 4, 64);
+		assertSameImage(0);
+	}
+
+	// Full detail: anti-aliased shapes, borders, arrows, curved edges and
+	// labels at a fractional scale, many of them crossing tile borders.
+	public void testFullDetailMatchesDirectRendering() {
+		final double scale = 1.37d;
+		final double center = SIZE / (2.0d * scale);
+		final TiledRenderer renderer = new TiledRenderer(scale);
+		final Font font = new Font("SansSerif", Font.PLAIN, 11);
+		final GeneralPath path = new GeneralPath();
+		directGrafx.clear(Color.WHITE, center, center, scale);
+		tiledGrafx.clear(Color.WHITE, center, center, scale);
+
+		for (int i = 0; i < 12; i++) {
+			final EdgeDisplayItem edge = new EdgeDisplayItem();
+			edge.setLowDetail(3 + (i * 17), 8, 210 - (i * 11), 205 - (i * 3), Color.BLUE);
+			edge.lowDetail = false;
+			edge.thickness = 1.5f + (i % 3);
+			edge.stroke = new BasicStroke(edge.thickness, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+			edge.paint = new Color(20 * i, 80, 200, 180);
+			edge.srcArrow = GraphGraphics.ARROW_NONE;
+			edge.trgArrow = (i % 2 == 0) ? GraphGraphics.ARROW_DELTA : GraphGraphics.ARROW_DISC;
+			edge.trgArrowSize = 6.0f;
+			edge.trgArrowPaint = Color.DARK_GRAY;
+			if (i % 3 == 0)
+				edge.setAnchors(anchor(110.0f + (i * 4), 40.0f + (i * 9)));
+			addLabel(edge, renderer, font, "edge " + i, 60 + (i * 12), 100 + (i * 6));
+
+			edge.draw(directGrafx);
+			path.reset();
+			tiledGrafx.getEdgePath(edge.srcArrow, edge.srcArrowSize, edge.trgArrow, edge.trgArrowSize,
+			                       edge.srcX, edge.srcY, edge.hasAnchors ? edge : null,
+			                       edge.trgX, edge.trgY, path);
+			edge.computeBounds(path, renderer.pixel());
+			renderer.add(edge);
+		}
+
+		for (int i = 0; i < 16; i++) {
+			final float x = 5.5f + ((i % 4) * 51.3f);
+			final float y = 4.25f + ((i / 4) * 49.7f);
+			final NodeDisplayItem node = new NodeDisplayItem();
+			node.setLowDetail(new float[] { x, y, x + 30.5f, y + 21.25f }, Color.RED);
+			node.lowDetail = false;
+			node.shape = (i % 2 == 0) ? GraphGraphics.SHAPE_ELLIPSE : GraphGraphics.SHAPE_ROUNDED_RECTANGLE;
+			node.fillPaint = new Color(250, 10 * i, 40, 200);
+			node.borderWidth = 2.5f;
+			node.borderStroke = new BasicStroke(2.5f);
+			node.borderPaint = Color.BLACK;
+			addLabel(node, renderer, font, "node " + i + "\nline 2", x + 15.25f, y + 10.5f);
+
+			node.draw(directGrafx);
+			node.computeBounds(renderer.pixel());
+			renderer.add(node);
+		}
+
+		renderer.render(tiledGrafx, Color.WHITE, center, center, scale, executor, 4, 48);
+		assertSameImage(ANTIALIAS_TOLERANCE);
+	}
+
+	// Without an executor, the calling thread renders every tile.
+	public void testRendersWithoutExecutor() {
+		final TiledRenderer renderer = new TiledRenderer(1.0d);
+		directGrafx.clear(Color.WHITE, SIZE / 2, SIZE / 2, 1.0d);
+		tiledGrafx.clear(Color.WHITE, SIZE / 2, SIZE / 2, 1.0d);
+
+		final EdgeDisplayItem edge = new EdgeDisplayItem();
+		edge.setLowDetail(5, 5, SIZE - 5, SIZE - 7, Color.BLUE);
+		edge.draw(directGrafx);
+		edge.computeBounds(null, renderer.pixel());
+		renderer.add(edge);
+
+		renderer.render(tiledGrafx, Color.WHITE, SIZE / 2, SIZE / 2, 1.0d, null, 4, 64);
+		assertSameImage(0);
+	}
+
+	private void addLabel(final DisplayItem item, final TiledRenderer renderer, final Font font,
+	                      final String text, final float xCenter, final float yCenter) {
+		final DisplayItem.Label label = item.addLabel();
+		label.text = new MeasuredLineCreator(text, font, tiledGrafx.getFontRenderContextFull(), 1.0d,
+		                                     false, 100.0d);
+		label.font = font;
+		label.fontScaleFactor = 1.0d;
+		label.xCenter = xCenter;
+		label.yCenter = yCenter;
+		label.justify = NodeDetails.LABEL_WRAP_JUSTIFY_CENTER;
+		label.paint = Color.BLACK;
+	}
+
+	private static EdgeAnchors anchor(final float x, final float y) {
+		return new EdgeAnchors() {
+			public int numAnchors() {
+				return 1;
+			}
+
+			public void getAnchor(final int anchorIndex, final float[] anchorArr, final int offset) {
+				anchorArr[offset] = x;
+				anchorArr[offset + 1] = y;
+			}
+		};
+	}
+
+	/**
+	 * Checks that no color channel of any pixel differs by more than tolerance.
+	 */
+	private void assertSameImage(final int tolerance) {
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = 0; x < SIZE; x++) {
+				final int expected = direct.getRGB(x, y);
+				final int actual = tiled.getRGB(x, y);
+
+				for (int shift = 0; shift < 32; shift += 8) {
+					final int diff = Math.abs(((expected >> shift) & 0xff) - ((actual >> shift) & 0xff));
+					if (diff > tolerance)
+						fail("pixel " + x + "," + y + ": expected " + Integer.toHexString(expected)
+						     + " but was " + Integer.toHexString(actual));
+				}
+			}
+		}
+	}
+}
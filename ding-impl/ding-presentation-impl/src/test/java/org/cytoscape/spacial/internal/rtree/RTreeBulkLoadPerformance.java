@@ -0,0 +1,206 @@
+package org.cytoscape.spacial.internal.rtree;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Random;
+
+import org.cytoscape.spacial.SpacialEntry2DEnumerator;
+
+
+/**
+ * Compares an R-tree built by bulk loading with one built by inserting its
+ * entries one at a time: build time, memory, query throughput, and the cost
+ * of moving entries with move() versus delete() and insert().<p>
+ * Arguments are the maximum branching factor and the number of entries N.
+ * Entries are N rectangles whose centers are in the space [0,1] X [0,1] and
+ * whose width and height are no greater than 1/sqrt(N).
+ */
+public class RTreeBulkLoadPerformance {
+	public static void main(String[] args) throws Exception {
+		final int branches = Integer.parseInt(args[0]);
+		final int N = Integer.parseInt(args[1]);
+		final Random random = new Random(7);
+		final long[] keys = new long[N];
+		final float[] data = randomExtents(random, N);
+
+		for (int i = 0; i < N; i++)
+			keys[i] = i;
+
+		final RTree inserted;
+		// Build tests.
+		{
+			final long memBegin = usedMemory();
+			final long millisBegin = System.currentTimeMillis();
+			inserted = new RTree(branches);
+
+			for (int i = 0; i < N; i++)
+				inserted.insert(i, data[i * 4], data[(i * 4) + 1], data[(i * 4) + 2],
+				                data[(i * 4) + 3]);
+
+			final long millisEnd = System.currentTimeMillis();
+			System.err.println("one by one insertions took " + (millisEnd - millisBegin)
+			                   + " milliseconds, tree uses about "
+			                   + ((usedMemory() - memBegin) / 1024) + " kilobytes");
+		}
+
+		final RTree loaded;
+		{
+			final long memBegin = usedMemory();
+			final long millisBegin = System.currentTimeMillis();
+			loaded = new RTree(branches, keys, data, N);
+
+			final long millisEnd = System.currentTimeMillis();
+			System.err.println("bulk load took " + (millisEnd - millisBegin)
+			                   + " milliseconds, tree uses about "
+			                   + ((usedMemory() - memBegin) / 1024) + " kilobytes");
+		}
+
+		// Query tests.
+		queries("one by one", inserted, N);
+		queries("bulk loaded", loaded, N);
+
+		// Move tests; each moves every entry once, in batches of the given size.
+		final float[] moved = randomExtents(random, N);
+
+		for (int batch = 1; batch <= N; batch *= 10) {
+			final RTree tree = new RTree(branches, keys, data, N);
+			final long millisBegin = System.currentTimeMillis();
+
+			if (batch == 1) {
+				for (int i = 0; i < N; i++) {
+					tree.delete(i);
+					tree.insert(i, moved[i * 4], moved[(i * 4) + 1], moved[(i * 4) + 2],
+					            moved[(i * 4) + 3]);
+				}
+			} else {
+				final long[] batchKeys = new long[batch];
+				final float[] batchExtents = new float[batch * 4];
+
+				for (int begin = 0; begin < N; begin += batch) {
+					final int count = Math.min(batch, N - begin);
+					System.arraycopy(keys, begin, batchKeys, 0, count);
+					System.arraycopy(moved, begin * 4, batchExtents, 0, count * 4);
+					tree.move(batchKeys, batchExtents, count);
+				}
+			}
+
+			final long millisEnd = System.currentTimeMillis();
+			System.err.println((batch == 1 ? "delete and insert" : ("move in batches of " + batch))
+			                   + " took " + (millisEnd - millisBegin) + " milliseconds");
+		}
+
+		// Small moves, as when dragging nodes, in batches of one.
+		{
+			final RTree tree = new RTree(branches, keys, data, N);
+			final float[] nudged = new float[4];
+			final long[] key = new long[1];
+			final long millisBegin = System.currentTimeMillis();
+
+			for (int i = 0; i < N; i++) {
+				final float dx = (random.nextFloat() - 0.5f) / (float) N;
+				nudged[0] = data[i * 4] + dx;
+				nudged[1] = data[(i * 4) + 1];
+				nudged[2] = data[(i * 4) + 2] + dx;
+				nudged[3] = data[(i * 4) + 3];
+				key[0] = i;
+				tree.move(key, nudged, 1);
+			}
+
+			final long millisEnd = System.currentTimeMillis();
+			System.err.println("nudging every entry took " + (millisEnd - millisBegin)
+			                   + " milliseconds");
+		}
+	}
+
+	private static void queries(final String name, final RTree tree, final int N)
+		throws Exception {
+		final Random random = new Random(11);
+		final float side = (float) (10.0d / Math.sqrt((double) N));
+		final float[] extents = new float[4];
+		long hits = 0;
+		System.gc();
+		Thread.sleep(500);
+
+		final long millisBegin = System.currentTimeMillis();
+
+		for (int i = 0; i < 20000; i++) {
+			final float x = random.nextFloat();
+			final float y = random.nextFloat();
+			final SpacialEntry2DEnumerator en = tree.queryOverlap(x, y, x + side, y + side, null,
+			                                                      0, false);
+
+			while (en.numRemaining() > 0) {
+				en.nextExtents(extents, 0);
+				hits++;
+			}
+		}
+
+		for (int i = 0; i < 20; i++) {
+			final SpacialEntry2DEnumerator en = tree.queryOverlap(Float.NEGATIVE_INFINITY,
+			                                                      Float.NEGATIVE_INFINITY,
+			                                                      Float.POSITIVE_INFINITY,
+			                                                      Float.POSITIVE_INFINITY,
+			                                                      null, 0, false);
+
+			while (en.numRemaining() > 0) {
+				en.nextExtents(extents, 0);
+				hits++;
+			}
+		}
+
+		final long millisEnd = System.currentTimeMillis();
+		System.err.println(name + ": 20000 area queries and 20 full scans (" + hits
+		                   + " hits) took " + (millisEnd - millisBegin) + " milliseconds");
+	}
+
+	private static float[] randomExtents(final Random random, final int N) {
+		final double sqrtN = Math.sqrt((double) N);
+		final float[] data = new float[N * 4];
+
+		for (int i = 0; i < N; i++) {
+			final double centerX = random.nextDouble();
+			final double centerY = random.nextDouble();
+			final double width = random.nextDouble() / sqrtN;
+			final double height = random.nextDouble() / sqrtN;
+			data[i * 4] = (float) (centerX - (width / 2.0d));
+			data[(i * 4) + 1] = (float) (centerY - (height / 2.0d));
+			data[(i * 4) + 2] = (float) (centerX + (width / 2.0d));
+			data[(i * 4) + 3] = (float) (centerY + (height / 2.0d));
+		}
+
+		return data;
+	}
+
+	private static long usedMemory() throws Exception {
+		for (int i = 0; i < 2; i++) {
+			System.gc();
+			Thread.sleep(500);
+		}
+
+		final Runtime runtime = Runtime.getRuntime();
+
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
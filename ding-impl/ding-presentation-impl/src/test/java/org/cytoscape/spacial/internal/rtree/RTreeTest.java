@@ -0,0 +1,450 @@
+package org.cytoscape.spacial.internal.rtree;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.cytoscape.spacial.SpacialEntry2DEnumerator;
+import org.junit.Test;
+
+/**
+ * Checks that bulk loading and moving entries leave an R-tree that answers
+ * every query the same way as a tree built with insert() and delete().
+ */
+public class RTreeTest {
+
+	private static final float SIDE = 1000;
+	private static final int QUERIES = 200;
+
+	@Test
+	public void testBulkLoadMatchesInsertion() {
+		final int[] counts = new int[] { 0, 1, 2, 3, 4, 11, 12, 100, 1000, 5000 };
+
+		for (final int maxBranches : new int[] { 3, 4, RTree.DEFAULT_MAX_BRANCHES }) {
+			for (final int count : counts) {
+				final Random random = new Random(count * 31 + maxBranches);
+				final long[] keys = createKeys(count, random);
+				final float[] extents = createExtents(count, random);
+
+				final RTree expected = insertAll(maxBranches, keys, extents, count);
+				final RTree actual = new RTree(maxBranches, keys, extents, count);
+				assertSameEntries(expected, actual, random);
+			}
+		}
+	}
+
+	@Test
+	public void testBulkLoadReadsOnlyCountEntries() {
+		final Random random = new Random(1);
+		final long[] keys = createKeys(50, random);
+		final float[] extents = createExtents(50, random);
+
+		final RTree tree = new RTree(keys, extents, 20);
+		assertSameEntries(insertAll(RTree.DEFAULT_MAX_BRANCHES, keys, extents, 20), tree, random);
+		assertFalse(tree.exists(keys[20], null, 0));
+	}
+
+	@Test
+	public void testBulkLoadedTreeCanBeUpdated() {
+		final Random random = new Random(2);
+		final int count = 500;
+		final long[] keys = createKeys(count, random);
+		final float[] extents = createExtents(count, random);
+		final RTree expected = insertAll(4, keys, extents, count);
+		final RTree actual = new RTree(4, keys, extents, count);
+
+		for (int i = 0; i < count; i += 2) {
+			assertTrue(expected.delete(keys[i]));
+			assertTrue(actual.delete(keys[i]));
+		}
+		for (int i = 0; i < 100; i++) {
+			final long key = keys[count - 1] + 1 + i;
+			final float[] e = createExtents(1, random);
+			expected.insert(key, e[0], e[1], e[2], e[3]);
+			actual.insert(key, e[0], e[1], e[2], e[3]);
+		}
+
+		assertSameEntries(expected, actual, random);
+	}
+
+	@Test
+	public void testEntriesWithTheSameExtents() {
+		final int count = 200;
+		final long[] keys = new long[count];
+		final float[] extents = new float[count * 4];
+		for (int i = 0; i < count; i++) {
+			keys[i] = count - i;
+			// Five distinct rectangles, points among them
+			final int r = i % 5;
+			extents[i * 4] = r * 10;
+			extents[(i * 4) + 1] = r * 10;
+			extents[(i * 4) + 2] = (r * 10) + (r % 2);
+			extents[(i * 4) + 3] = (r * 10) + (r % 2);
+		}
+
+		final Random random = new Random(3);
+		final RTree actual = new RTree(3, keys, extents, count);
+		assertSameEntries(insertAll(3, keys, extents, count), actual, random);
+		assertEquals(count / 5, keys(actual, 20, 20, 20, 20).length);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testBulkLoadRejectsDuplicateKeys() {
+		new RTree(new long[] { 1, 2, 1 }, new float[12], 3);
+	}
+
+	@Test
+	public void testInsertRejectsDuplicateKeys() {
+		final RTree tree = new RTree();
+		tree.insert(7, 0, 0, 1, 1);
+
+		try {
+			tree.insert(7, 5, 5, 6, 6);
+		} catch (IllegalStateException e) {
+			final float[] extents = new float[4];
+			assertTrue(tree.exists(7, extents, 0));
+			assertArrayEquals(new float[] { 0, 0, 1, 1 }, extents, 0);
+			assertEquals(1, tree.size());
+
+			return;
+		}
+
+		throw new AssertionError("expected an IllegalStateException");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBulkLoadRejectsNegativeKeys() {
+		new RTree(new long[] { 1, -2, 3 }, new float[12], 3);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBulkLoadRejectsInvertedExtents() {
+		new RTree(new long[] { 1 }, new float[] { 1, 0, 0, 1 }, 1);
+	}
+
+	@Test
+	public void testNegativeKeysAreNeverFound() {
+		final Random random = new Random(4);
+		final long[] keys = createKeys(100, random);
+		final float[] extents = createExtents(100, random);
+		final RTree tree = new RTree(keys, extents, 100);
+		final RTree expected = insertAll(RTree.DEFAULT_MAX_BRANCHES, keys, extents, 100);
+
+		assertFalse(tree.exists(-1, null, 0));
+		assertFalse(tree.exists(Long.MIN_VALUE, null, 0));
+		assertFalse(tree.delete(-1));
+		assertEquals(0, tree.move(new long[] { -1, -keys[5] }, new float[8], 2));
+		assertSameEntries(expected, tree, random);
+	}
+
+	@Test
+	public void testEmptyTree() {
+		final Random random = new Random(5);
+		final RTree tree = new RTree(new long[0], new float[0], 0);
+
+		assertEquals(0, tree.size());
+		assertEquals(0, tree.move(new long[] { 0 }, new float[4], 1));
+		assertEquals(0, tree.move(new long[0], new float[0], 0));
+		assertSameEntries(new RTree(), tree, random);
+
+		tree.insert(0, 1, 2, 3, 4);
+		final RTree expected = new RTree();
+		expected.insert(0, 1, 2, 3, 4);
+		assertSameEntries(expected, tree, random);
+	}
+
+	@Test
+	public void testSingleEntryTree() {
+		final Random random = new Random(6);
+		final RTree tree = new RTree(new long[] { 0 }, new float[] { 1, 2, 3, 4 }, 1);
+		final RTree expected = new RTree();
+		expected.insert(0, 1, 2, 3, 4);
+		assertSameEntries(expected, tree, random);
+
+		// Within the bounds of the root, then outside of them
+		assertEquals(1, tree.move(new long[] { 0 }, new float[] { 2, 2, 2, 3 }, 1));
+		expected.delete(0);
+		expected.insert(0, 2, 2, 2, 3);
+		assertSameEntries(expected, tree, random);
+
+		assertEquals(1, tree.move(new long[] { 0 }, new float[] { 50, 60, 70, 80 }, 1));
+		expected.delete(0);
+		expected.insert(0, 50, 60, 70, 80);
+		assertSameEntries(expected, tree, random);
+	}
+
+	@Test
+	public void testMovesWithinTheirLeaf() {
+		final Random random = new Random(7);
+		final int count = 2000;
+		final long[] keys = createKeys(count, random);
+		final float[] extents = createExtents(count, random);
+		final RTree tree = new RTree(4, keys, extents, count);
+		final RTree expected = insertAll(4, keys, extents, count);
+
+		// Shrinking an entry keeps it within the MBR of its leaf
+		for (int round = 0; round < 20; round++) {
+			final int moves = 1 + random.nextInt(count / RTree.DEFAULT_MAX_BRANCHES);
+			final long[] moveKeys = new long[moves];
+			final float[] moveExtents = new float[moves * 4];
+			for (int i = 0; i < moves; i++) {
+				final int inx = random.nextInt(count);
+				moveKeys[i] = keys[inx];
+				final float[] e = new float[4];
+				assertTrue(tree.exists(keys[inx], e, 0));
+				final float xMid = (e[0] + e[2]) / 2;
+				final float yMid = (e[1] + e[3]) / 2;
+				moveExtents[i * 4] = (e[0] + xMid) / 2;
+				moveExtents[(i * 4) + 1] = (e[1] + yMid) / 2;
+				moveExtents[(i * 4) + 2] = Math.max(moveExtents[i * 4], (e[2] + xMid) / 2);
+				moveExtents[(i * 4) + 3] = Math.max(moveExtents[(i * 4) + 1], (e[3] + yMid) / 2);
+			}
+
+			assertEquals(moves, tree.move(moveKeys, moveExtents, moves));
+			deleteAndInsert(expected, moveKeys, moveExtents, moves);
+			assertSameEntries(expected, tree, random);
+		}
+	}
+
+	@Test
+	public void testMovesLeavingTheirLeaf() {
+		final Random random = new Random(8);
+		final int count = 2000;
+		final long[] keys = createKeys(count, random);
+		final float[] extents = createExtents(count, random);
+		final RTree tree = new RTree(4, keys, extents, count);
+		final RTree expected = insertAll(4, keys, extents, count);
+
+		for (int round = 0; round < 20; round++) {
+			final int moves = 1 + random.nextInt(count / RTree.DEFAULT_MAX_BRANCHES);
+			final long[] moveKeys = new long[moves];
+			for (int i = 0; i < moves; i++)
+				moveKeys[i] = keys[random.nextInt(count)];
+			// Some of the new locations are outside of the current tree
+			final float[] moveExtents = createExtents(moves, random);
+			for (int i = 0; i < moveExtents.length; i++)
+				moveExtents[i] = (moveExtents[i] * 1.5f) - (SIDE / 4);
+
+			assertEquals(moves, tree.move(moveKeys, moveExtents, moves));
+			deleteAndInsert(expected, moveKeys, moveExtents, moves);
+			assertSameEntries(expected, tree, random);
+		}
+	}
+
+	@Test
+	public void testLargeMoveRebuildsTheTree() {
+		final Random random = new Random(9);
+		final int count = 1000;
+		final long[] keys = createKeys(count, random);
+		final float[] extents = createExtents(count, random);
+		final RTree tree = insertAll(3, keys, extents, count);
+		final RTree expected = insertAll(3, keys, extents, count);
+
+		// Half of the entries, some missing and some twice, with small and large moves
+		final int moves = count / 2;
+		final long[] moveKeys = new long[moves];
+		final float[] moveExtents = createExtents(moves, random);
+		int moved = 0;
+		for (int i = 0; i < moves; i++) {
+			if (i % 50 == 0) {
+				moveKeys[i] = keys[count - 1] + 1 + i;
+			} else {
+				moveKeys[i] = keys[random.nextInt(count)];
+				moved++;
+			}
+			if (i % 2 == 0) {
+				assertTrue(i % 50 == 0 || tree.exists(moveKeys[i], moveExtents, i * 4));
+				moveExtents[(i * 4) + 2] = moveExtents[i * 4];
+				moveExtents[(i * 4) + 3] = moveExtents[(i * 4) + 1];
+			}
+		}
+
+		assertEquals(moved, tree.move(moveKeys, moveExtents, moves));
+		deleteAndInsert(expected, moveKeys, moveExtents, moves);
+		assertSameEntries(expected, tree, random);
+
+		// The rebuilt tree can be updated further
+		for (int i = 0; i < count; i += 3) {
+			assertTrue(tree.delete(keys[i]));
+			assertTrue(expected.delete(keys[i]));
+		}
+		assertEquals(count - ((count + 2) / 3), tree.move(keys, extents, count));
+		deleteAndInsert(expected, keys, extents, count);
+		assertSameEntries(expected, tree, random);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMoveRejectsInvertedExtents() {
+		final RTree tree = new RTree(new long[] { 0, 1 }, new float[] { 0, 0, 1, 1, 2, 2, 3, 3 }, 2);
+
+		try {
+			tree.move(new long[] { 0, 1 }, new float[] { 5, 5, 6, 6, 1, 0, 0, 1 }, 2);
+		} finally {
+			final float[] extents = new float[4];
+			tree.exists(0, extents, 0);
+			assertArrayEquals(new float[] { 0, 0, 1, 1 }, extents, 0);
+		}
+	}
+
+	/**
+	 * Creates distinct, non-negative keys in no particular order, including 0
+	 * and keys above the int range.
+	 */
+	private static long[] createKeys(final int count, final Random random) {
+		final long[] keys = new long[count];
+		long key = 0;
+		for (int i = 0; i < count; i++) {
+			keys[i] = key;
+			key += 1 + random.nextInt(i % 10 == 0 ? Integer.MAX_VALUE : 3);
+		}
+		for (int i = count - 1; i > 0; i--) {
+			final int j = random.nextInt(i + 1);
+			final long k = keys[i];
+			keys[i] = keys[j];
+			keys[j] = k;
+		}
+		// Later keys are expected to be above all of these
+		if (count > 0) {
+			int max = 0;
+			for (int i = 1; i < count; i++)
+				if (keys[i] > keys[max])
+					max = i;
+			final long k = keys[count - 1];
+			keys[count - 1] = keys[max];
+			keys[max] = k;
+		}
+		return keys;
+	}
+
+	/**
+	 * Creates rectangles of different sizes, some of them points or lines.
+	 */
+	private static float[] createExtents(final int count, final Random random) {
+		final float[] extents = new float[count * 4];
+		for (int i = 0; i < count; i++) {
+			final float x = random.nextFloat() * SIDE;
+			final float y = random.nextFloat() * SIDE;
+			final int shape = random.nextInt(4);
+			extents[i * 4] = x;
+			extents[(i * 4) + 1] = y;
+			extents[(i * 4) + 2] = x + (shape == 0 ? 0 : random.nextFloat() * 20);
+			extents[(i * 4) + 3] = y + (shape == 1 ? 0 : random.nextFloat() * 20);
+		}
+		return extents;
+	}
+
+	private static RTree insertAll(final int maxBranches, final long[] keys, final float[] extents,
+	                               final int count) {
+		final RTree tree = new RTree(maxBranches);
+		for (int i = 0; i < count; i++)
+			tree.insert(keys[i], extents[i * 4], extents[(i * 4) + 1], extents[(i * 4) + 2],
+			            extents[(i * 4) + 3]);
+		return tree;
+	}
+
+	private static void deleteAndInsert(final RTree tree, final long[] keys, final float[] extents,
+	                                    final int count) {
+		for (int i = 0; i < count; i++) {
+			if (tree.delete(keys[i]))
+				tree.insert(keys[i], extents[i * 4], extents[(i * 4) + 1], extents[(i * 4) + 2],
+				            extents[(i * 4) + 3]);
+		}
+	}
+
+	/**
+	 * Asserts that both trees hold the same entries and return the same
+	 * results for the whole plane and for random windows.
+	 */
+	private static void assertSameEntries(final RTree expected, final RTree actual, final Random random) {
+		assertEquals(expected.size(), actual.size());
+
+		final Map<Long, float[]> entries = entries(expected);
+		assertEquals(expected.size(), entries.size());
+		assertEquals(entries.keySet(), entries(actual).keySet());
+		final float[] extents = new float[4];
+		for (final Map.Entry<Long, float[]> entry : entries.entrySet()) {
+			assertTrue(actual.exists(entry.getKey(), extents, 0));
+			assertArrayEquals(entry.getValue(), extents, 0);
+		}
+
+		assertSameQuery(expected, actual, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY,
+		                Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+		for (int i = 0; i < QUERIES; i++) {
+			final float xMin = (random.nextFloat() * SIDE * 1.2f) - (SIDE * 0.1f);
+			final float yMin = (random.nextFloat() * SIDE * 1.2f) - (SIDE * 0.1f);
+			// Mostly small windows, a few points
+			final float size = i % 10 == 0 ? 0 : random.nextFloat() * SIDE / 5;
+			assertSameQuery(expected, actual, xMin, yMin, xMin + size, yMin + size);
+		}
+	}
+
+	private static void assertSameQuery(final RTree expected, final RTree actual, final float xMin,
+	                                    final float yMin, final float xMax, final float yMax) {
+		final String window = "[" + xMin + ", " + yMin + ", " + xMax + ", " + yMax + "]";
+		final float[] expectedMBR = new float[4];
+		final float[] actualMBR = new float[4];
+		expected.queryOverlap(xMin, yMin, xMax, yMax, expectedMBR, 0, false);
+		actual.queryOverlap(xMin, yMin, xMax, yMax, actualMBR, 0, false);
+		assertArrayEquals(window, expectedMBR, actualMBR, 0);
+		assertArrayEquals(window, keys(expected, xMin, yMin, xMax, yMax),
+		                  keys(actual, xMin, yMin, xMax, yMax));
+	}
+
+	/**
+	 * Returns the sorted keys of the entries overlapping the given window.
+	 */
+	private static long[] keys(final RTree tree, final float xMin, final float yMin, final float xMax,
+	                           final float yMax) {
+		final SpacialEntry2DEnumerator entries = tree.queryOverlap(xMin, yMin, xMax, yMax, null, 0, false);
+		final long[] keys = new long[entries.numRemaining()];
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = entries.nextLong();
+		assertEquals(0, entries.numRemaining());
+		Arrays.sort(keys);
+		return keys;
+	}
+
+	private static Map<Long, float[]> entries(final RTree tree) {
+		final Map<Long, float[]> entries = new HashMap<Long, float[]>();
+		final SpacialEntry2DEnumerator all = tree.queryOverlap(Float.NEGATIVE_INFINITY,
+		                                                        Float.NEGATIVE_INFINITY,
+		                                                        Float.POSITIVE_INFINITY,
+		                                                        Float.POSITIVE_INFINITY, null, 0, false);
+		while (all.numRemaining() > 0) {
+			final float[] extents = new float[4];
+			final long key = all.nextExtents(extents, 0);
+			assertEquals(null, entries.put(key, extents));
+		}
+		return entries;
+	}
+}
@@ -24,49 +24,261 @@ package org.cytoscape.edge.bundler.internal;
  * #L%
  */
 
-public final class EdgeBundlerRunner implements Runnable {
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-	private final int ni;
+/**
+ * Runs the iterations of the edge bundling simulation.  The handles ("nubs") and
+ * forces are kept in flat arrays with the handles of each edge next to each other,
+ * and the compatible pairs are kept in a symmetric adjacency list, so that the force
+ * on every handle is gathered from its own compatible edges.  Each worker computes
+ * the forces and new positions of the handles of a range of edges only, reading the
+ * positions of the previous iteration, so workers never write to the same element
+ * and the result does not depend on the number of threads.
+ */
+public final class EdgeBundlerRunner {
+
+	// Fewer edges per worker are not worth a thread
+	private static final int MIN_EDGES_PER_CHUNK = 256;
+	// Chunks per thread, to even out differences in the number of compatible edges
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private final int numEdges;
 	private final int numNubs;
-	private final boolean[][] edgeAlign;
-	private final double[][][] nubs;
-	private final double[][][] forces;
-	private final double[][] edgeCompatability;
-	private final int[][] edgeMatcher;
-
-	public EdgeBundlerRunner(final int ni, final int numNubs, final boolean[][] edgeAlign, final double[][][] nubs, final double[][][] forces,
-			final double[][] edgeCompatability, final int[][] edgeMatcher) {
-		this.ni = ni;
-		this.numNubs = numNubs;
-		this.edgeAlign = edgeAlign;
-		this.nubs = nubs;
-		this.forces = forces;
-		this.edgeCompatability = edgeCompatability;
-		this.edgeMatcher = edgeMatcher;
-	}
+	private final double K;
+
+	private final double[] edgeEnds; // edgeIndex * 4 + (source X, source Y, target X, target Y)
+	private double[] nubs; // (edgeIndex * numNubs + nubIndex) * 2 + X/Y
+	private double[] nextNubs; // nubs of the iteration being computed
+	private final double[] forces; // laid out like nubs
+
+	// The edges compatible with edge e are partners[partnerStart[e]] to
+	// partners[partnerStart[e + 1] - 1], in ascending order.
+	private final int[] partnerStart;
+	private final int[] partners;
+	private final double[] partnerCompatability;
+	private final boolean[] partnerAlign;
+
+	private final List<Callable<Object>> chunks;
+	private final ExecutorService exec;
+
+	/**
+	 * @param edgePos the edge end points: source/target, X/Y, edgeIndex
+	 * @param nubs the initial handle positions: nubIndex, X/Y, edgeIndex
+	 * @param K the spring constant
+	 * @param edgeMatcher for each edge, the compatible edges with a lower index
+	 * @param edgeCompatability the compatibility of each pair in edgeMatcher
+	 * @param edgeAlign whether the edges of each pair in edgeMatcher point in the same direction
+	 * @param numThreads the number of threads to iterate with; the threads live
+	 *   until {@link #shutdown()} is called
+	 */
+	public EdgeBundlerRunner(final double[][][] edgePos, final double[][][] nubs, final double K,
+			final int[][] edgeMatcher, final double[][] edgeCompatability, final boolean[][] edgeAlign,
+			final int numThreads) {
+		this.numEdges = edgeMatcher.length;
+		this.numNubs = nubs.length;
+		this.K = K;
+
+		edgeEnds = new double[numEdges * 4];
+		for (int ei = 0; ei < numEdges; ei++) {
+			edgeEnds[ei * 4] = edgePos[0][0][ei];
+			edgeEnds[ei * 4 + 1] = edgePos[0][1][ei];
+			edgeEnds[ei * 4 + 2] = edgePos[1][0][ei];
+			edgeEnds[ei * 4 + 3] = edgePos[1][1][ei];
+		}
+
+		this.nubs = new double[numEdges * numNubs * 2];
+		nextNubs = new double[this.nubs.length];
+		forces = new double[this.nubs.length];
+		for (int ei = 0; ei < numEdges; ei++)
+			for (int ni = 0; ni < numNubs; ni++) {
+				this.nubs[(ei * numNubs + ni) * 2] = nubs[ni][0][ei];
+				this.nubs[(ei * numNubs + ni) * 2 + 1] = nubs[ni][1][ei];
+			}
 
-	@Override
-	public void run() {
-		final int size = edgeAlign.length;
-		for (int ei = 0; ei < size; ei++)
+		// Store each pair with both of its edges.
+		partnerStart = new int[numEdges + 1];
+		for (int ei = 0; ei < numEdges; ei++)
+			for (final int ej : edgeMatcher[ei]) {
+				partnerStart[ei + 1]++;
+				partnerStart[ej + 1]++;
+			}
+		for (int ei = 0; ei < numEdges; ei++)
+			partnerStart[ei + 1] += partnerStart[ei];
+
+		partners = new int[partnerStart[numEdges]];
+		partnerCompatability = new double[partners.length];
+		partnerAlign = new boolean[partners.length];
+		final int[] fill = new int[numEdges];
+		System.arraycopy(partnerStart, 0, fill, 0, numEdges);
+		// Visiting ei in ascending order appends the lower-index partners of each
+		// edge first, followed by the higher-index ones, in ascending order.
+		for (int ei = 0; ei < numEdges; ei++)
 			for (int em = 0; em < edgeMatcher[ei].length; em++) {
 				final int ej = edgeMatcher[ei][em];
-				final int nj = (edgeAlign[ei][ej]) ? ni : numNubs - ni - 1;
+				partners[fill[ei]] = ej;
+				partnerCompatability[fill[ei]] = edgeCompatability[ei][em];
+				partnerAlign[fill[ei]++] = edgeAlign[ei][em];
+				partners[fill[ej]] = ei;
+				partnerCompatability[fill[ej]] = edgeCompatability[ei][em];
+				partnerAlign[fill[ej]++] = edgeAlign[ei][em];
+			}
 
-				final double diffx = (nubs[ni][0][ei] - nubs[nj][0][ej]);
-				final double diffy = (nubs[ni][1][ei] - nubs[nj][1][ej]);
+		final int numChunks = numThreads < 2 ? 1
+				: Math.max(1, Math.min(numThreads * CHUNKS_PER_THREAD, numEdges / MIN_EDGES_PER_CHUNK));
+		chunks = createChunks(numChunks);
+		exec = numChunks > 1 ? Executors.newFixedThreadPool(Math.min(numThreads, numChunks)) : null;
+	}
 
-				if (Math.abs(diffx) > 1) {
-					final double fx = edgeCompatability[ei][ej] / diffx;
-					forces[ni][0][ei] -= fx;
-					forces[nj][0][ej] += fx;
-				}
+	/**
+	 * Splits the edges into ranges with about the same number of compatible pairs.
+	 */
+	private List<Callable<Object>> createChunks(final int numChunks) {
+		final List<Callable<Object>> chunks = new ArrayList<Callable<Object>>(numChunks);
+		final long totalWork = (long) partners.length + 2L * numEdges;
+		int start = 0;
+		for (int c = 1; c <= numChunks && start < numEdges; c++) {
+			final long targetWork = totalWork * c / numChunks;
+			int end = start + 1;
+			while (end < numEdges && (long) partnerStart[end] + 2L * end < targetWork)
+				end++;
+			if (c == numChunks)
+				end = numEdges;
+			chunks.add(new Chunk(start, end));
+			start = end;
+		}
+		return chunks;
+	}
+
+	public int getNumEdges() {
+		return numEdges;
+	}
+
+	/**
+	 * Moves every handle once by the spring and electrostatic forces acting on it.
+	 */
+	public void iterate() {
+		if (exec == null) {
+			for (final Callable<Object> chunk : chunks)
+				((Chunk) chunk).call();
+		} else {
+			try {
+				for (final Future<Object> future : exec.invokeAll(chunks))
+					future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while bundling edges.", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Could not compute the edge bundling forces.", e.getCause());
+			}
+		}
+
+		final double[] tmp = nubs;
+		nubs = nextNubs;
+		nextNubs = tmp;
+	}
+
+	/**
+	 * Returns true if no force of the last iteration exceeds the given threshold
+	 * in either direction.
+	 */
+	public boolean isConverged(final double threshold) {
+		for (int i = 0; i < forces.length; i++)
+			if (Math.abs(forces[i]) > threshold)
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Copies the current handle positions into the given nubIndex, X/Y, edgeIndex array.
+	 */
+	public void getNubs(final double[][][] out) {
+		for (int ei = 0; ei < numEdges; ei++)
+			for (int ni = 0; ni < numNubs; ni++) {
+				out[ni][0][ei] = nubs[(ei * numNubs + ni) * 2];
+				out[ni][1][ei] = nubs[(ei * numNubs + ni) * 2 + 1];
+			}
+	}
+
+	/**
+	 * Stops the threads of this runner.
+	 */
+	public void shutdown() {
+		if (exec != null)
+			exec.shutdown();
+	}
+
+	private final class Chunk implements Callable<Object> {
+		private final int start;
+		private final int end;
+
+		Chunk(final int start, final int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public Object call() {
+			final double[] nubs = EdgeBundlerRunner.this.nubs;
+			final double[] nextNubs = EdgeBundlerRunner.this.nextNubs;
+
+			for (int ei = start; ei < end; ei++) {
+				final int base = ei * numNubs * 2;
+				for (int ni = 0; ni < numNubs; ni++) {
+					final int i = base + ni * 2;
+					final double x = nubs[i];
+					final double y = nubs[i + 1];
+
+					// Spring forces
+					double fx;
+					double fy;
+					if (ni == 0) {
+						fx = x - edgeEnds[ei * 4];
+						fy = y - edgeEnds[ei * 4 + 1];
+					} else {
+						fx = x - nubs[i - 2];
+						fy = y - nubs[i - 1];
+					}
+
+					if (ni == numNubs - 1) {
+						fx += x - edgeEnds[ei * 4 + 2];
+						fy += y - edgeEnds[ei * 4 + 3];
+					} else {
+						fx += x - nubs[i + 2];
+						fy += y - nubs[i + 3];
+					}
+
+					fx *= -K;
+					fy *= -K;
+
+					// Electrostatic forces
+					for (int p = partnerStart[ei]; p < partnerStart[ei + 1]; p++) {
+						final int nj = partnerAlign[p] ? ni : numNubs - ni - 1;
+						final int j = (partners[p] * numNubs + nj) * 2;
+
+						final double diffx = x - nubs[j];
+						final double diffy = y - nubs[j + 1];
+
+						if (Math.abs(diffx) > 1)
+							fx -= partnerCompatability[p] / diffx;
+
+						if (Math.abs(diffy) > 1)
+							fy -= partnerCompatability[p] / diffy;
+					}
 
-				if (Math.abs(diffy) > 1) {
-					final double fy = edgeCompatability[ei][ej] / diffy;
-					forces[ni][1][ei] -= fy;
-					forces[nj][1][ej] += fy;
+					forces[i] = fx;
+					forces[i + 1] = fy;
+					nextNubs[i] = x + fx;
+					nextNubs[i + 1] = y + fy;
 				}
 			}
+			return null;
+		}
 	}
 }
@@ -0,0 +1,493 @@
+package org.cytoscape.edge.bundler.internal;
+
+/*
+ * #%L
+ * Cytoscape Edge Bundler Impl (edge-bundler-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Computes the compatibility of pairs of edges for the edge bundler.  Only pairs
+ * whose compatibility exceeds the threshold are kept: for each edge ei,
+ * getEdgeMatcher()[ei] lists the compatible edges ej &lt; ei in ascending order, and
+ * getEdgeCompatability()[ei] and getEdgeAlign()[ei] hold the compatibility and
+ * the alignment of each listed pair.<p>
+ * The product of the scale and position compatibilities bounds the compatibility
+ * of a pair from above, so a pair can only exceed a positive threshold if the
+ * lengths of the two edges are similar enough and their midpoints close enough,
+ * relative to the edge lengths.  The midpoints are put into a uniform grid and each
+ * edge is only compared with the edges in the grid cells within that distance,
+ * which yields the same pairs as comparing all pairs.
+ */
+final class EdgeCompatibilityCalculator {
+
+	// Number of edges a worker takes at a time
+	private static final int CHUNK_SIZE = 64;
+	// Fewer edges are processed on the calling thread
+	private static final int MIN_PARALLEL_EDGES = 1000;
+	// Widens the pruning bounds so that rounding never drops a compatible pair
+	private static final double SLACK = 1e-9;
+
+	private final double[][][] edgePos; // source/target, X/Y, edgeIndex
+	private final double[] edgeLength;
+	private final double threshold;
+	private final int numEdges;
+	private final double[] midX;
+	private final double[] midY;
+
+	private int[][] edgeMatcher;
+	private double[][] edgeCompatability;
+	private boolean[][] edgeAlign;
+	private final AtomicLong candidatePairCount = new AtomicLong();
+
+	// Uniform grid over the edge midpoints; the edges of cell c are
+	// cellEdges[cellStart[c]] to cellEdges[cellStart[c + 1] - 1]
+	private double gridMinX;
+	private double gridMinY;
+	private double cellSize;
+	private int gridCols;
+	private int gridRows;
+	private int[] cellStart;
+	private int[] cellEdges;
+
+	EdgeCompatibilityCalculator(final double[][][] edgePos, final double[] edgeLength, final double threshold) {
+		this.edgePos = edgePos;
+		this.edgeLength = edgeLength;
+		this.threshold = threshold;
+		this.numEdges = edgeLength.length;
+
+		midX = new double[numEdges];
+		midY = new double[numEdges];
+		for (int ei = 0; ei < numEdges; ei++) {
+			midX[ei] = (edgePos[1][0][ei] + edgePos[0][0][ei]) / 2.0;
+			midY[ei] = (edgePos[1][1][ei] + edgePos[0][1][ei]) / 2.0;
+		}
+	}
+
+	int[][] getEdgeMatcher() {
+		return edgeMatcher;
+	}
+
+	double[][] getEdgeCompatability() {
+		return edgeCompatability;
+	}
+
+	boolean[][] getEdgeAlign() {
+		return edgeAlign;
+	}
+
+	/**
+	 * Returns the number of pairs whose compatibility was considered, which is
+	 * numEdges * (numEdges - 1) / 2 when all pairs are compared.
+	 */
+	long getCandidatePairCount() {
+		return candidatePairCount.get();
+	}
+
+	/**
+	 * Computes the compatible pairs using the midpoint grid.
+	 * @param numThreads the number of threads to compute with; values below 2
+	 *   mean that everything is computed on the calling thread.
+	 */
+	void compute(final int numThreads) {
+		// Without a positive threshold, every pair can be compatible.
+		if (!(threshold > 0.0)) {
+			computeAllPairs();
+			return;
+		}
+
+		allocate();
+		buildGrid();
+
+		final AtomicInteger nextEdge = new AtomicInteger();
+		if (numThreads < 2 || numEdges < MIN_PARALLEL_EDGES) {
+			new Worker(nextEdge).call();
+			return;
+		}
+
+		final ExecutorService exec = Executors.newFixedThreadPool(numThreads);
+		try {
+			final List<Future<Object>> futures = new ArrayList<Future<Object>>(numThreads);
+			for (int i = 0; i < numThreads; i++)
+				futures.add(exec.submit(new Worker(nextEdge)));
+			for (final Future<Object> future : futures)
+				future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while computing edge compatibilities.", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Could not compute edge compatibilities.", e.getCause());
+		} finally {
+			exec.shutdownNow();
+		}
+	}
+
+	/**
+	 * Computes the compatible pairs by comparing every pair of edges.
+	 */
+	void computeAllPairs() {
+		allocate();
+
+		final int[] matches = new int[numEdges];
+		final double[] compatabilities = new double[numEdges];
+		final boolean[] aligns = new boolean[numEdges];
+		for (int ei = 1; ei < numEdges; ei++) {
+			int numMatches = 0;
+			for (int ej = 0; ej < ei; ej++) {
+				final double compatability = compatability(ei, ej);
+				if (compatability > threshold) {
+					matches[numMatches] = ej;
+					compatabilities[numMatches] = compatability;
+					aligns[numMatches] = cangleSign(ei, ej) > 0;
+					numMatches++;
+				}
+			}
+			store(ei, matches, compatabilities, aligns, numMatches);
+			candidatePairCount.addAndGet(ei);
+		}
+	}
+
+	private void allocate() {
+		edgeMatcher = new int[numEdges][];
+		edgeCompatability = new double[numEdges][];
+		edgeAlign = new boolean[numEdges][];
+		edgeMatcher[0] = new int[0];
+		edgeCompatability[0] = new double[0];
+		edgeAlign[0] = new boolean[0];
+		candidatePairCount.set(0L);
+	}
+
+	private void store(final int ei, final int[] matches, final double[] compatabilities, final boolean[] aligns,
+			final int numMatches) {
+		edgeMatcher[ei] = Arrays.copyOf(matches, numMatches);
+		edgeCompatability[ei] = Arrays.copyOf(compatabilities, numMatches);
+		edgeAlign[ei] = Arrays.copyOf(aligns, numMatches);
+	}
+
+	/**
+	 * Returns the largest ratio of the lengths of two edges for which their scale
+	 * compatibility still exceeds the given threshold.
+	 */
+	static double getMaxLengthRatio(final double threshold) {
+		if (threshold >= 1.0)
+			return 1.0;
+
+		// With r = lmax / lmin and s = 1 + r, cscale = 2 / (s / 2 + 2 (s - 1) / s),
+		// which decreases in s; solve cscale = threshold for s.
+		final double a = 1.0 / threshold - 1.0;
+		final double s = 2.0 * (a + Math.sqrt(a * a + 1.0));
+		return s - 1.0;
+	}
+
+	/**
+	 * Returns the factor that, multiplied by the length of an edge, bounds the
+	 * distance of its midpoint from the midpoint of any edge whose scale and
+	 * position compatibilities with it have a product above the given threshold.
+	 */
+	static double getMaxDistanceFactor(final double threshold) {
+		// With lj = r * li and s = 1 + r, cscale * cpos > threshold requires
+		// distance < li * g(s), where g(s) = h(s) / threshold - s / 2 and
+		// h(s) = s^2 / (s^2 / 2 + 2 s - 2).  For s <= 2, g(s) <= g(2).  Above 2, the
+		// maximum is sampled up to the largest length ratio and widened by the
+		// sampling error, using |g'(s)| <= 2 / threshold + 1 / 2.
+		final int samples = 4096;
+		final double maxS = 1.0 + getMaxLengthRatio(threshold);
+		final double step = (maxS - 2.0) / samples;
+		double max = 1.0 / threshold - 1.0;
+		for (int i = 1; i <= samples; i++) {
+			final double s = 2.0 + i * step;
+			max = Math.max(max, s * s / (s * s / 2.0 + 2.0 * s - 2.0) / threshold - s / 2.0);
+		}
+		return max + step * (2.0 / threshold + 0.5);
+	}
+
+	private void buildGrid() {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		double totalLength = 0.0;
+		for (int ei = 0; ei < numEdges; ei++) {
+			minX = Math.min(minX, midX[ei]);
+			minY = Math.min(minY, midY[ei]);
+			maxX = Math.max(maxX, midX[ei]);
+			maxY = Math.max(maxY, midY[ei]);
+			totalLength += edgeLength[ei];
+		}
+		final double width = maxX - minX;
+		final double height = maxY - minY;
+
+		// Cells about as large as the distance within which edges of the mean
+		// length can be compatible, but no more than about four cells per edge.
+		final double minCellSize = Math.max(Math.sqrt(width * height / (4.0 * numEdges)),
+				Math.max(width, height) / (4.0 * numEdges));
+		cellSize = Math.max(getMaxDistanceFactor(threshold) * totalLength / numEdges, minCellSize);
+		if (!(cellSize > 0.0) || Double.isInfinite(cellSize))
+			cellSize = 1.0;
+
+		gridMinX = minX;
+		gridMinY = minY;
+		gridCols = (int) Math.min(width / cellSize, 4.0 * numEdges) + 1;
+		gridRows = (int) Math.min(height / cellSize, 4.0 * numEdges) + 1;
+
+		// Counting sort of the edges by cell
+		final int[] edgeCell = new int[numEdges];
+		cellStart = new int[gridCols * gridRows + 1];
+		for (int ei = 0; ei < numEdges; ei++) {
+			edgeCell[ei] = getRow(midY[ei]) * gridCols + getColumn(midX[ei]);
+			cellStart[edgeCell[ei] + 1]++;
+		}
+		for (int c = 0; c < gridCols * gridRows; c++)
+			cellStart[c + 1] += cellStart[c];
+
+		cellEdges = new int[numEdges];
+		final int[] fill = Arrays.copyOf(cellStart, gridCols * gridRows);
+		for (int ei = 0; ei < numEdges; ei++)
+			cellEdges[fill[edgeCell[ei]]++] = ei;
+	}
+
+	private int getColumn(final double x) {
+		final int col = (int) Math.floor((x - gridMinX) / cellSize);
+		return Math.max(0, Math.min(gridCols - 1, col));
+	}
+
+	private int getRow(final double y) {
+		final int row = (int) Math.floor((y - gridMinY) / cellSize);
+		return Math.max(0, Math.min(gridRows - 1, row));
+	}
+
+	private final class Worker implements Callable<Object> {
+		private final AtomicInteger nextEdge;
+		private final double maxLengthRatio = getMaxLengthRatio(threshold) * (1.0 + SLACK);
+		private final double maxDistanceFactor = getMaxDistanceFactor(threshold) * (1.0 + SLACK);
+
+		private int[] candidates = new int[256];
+		private int[] matches = new int[64];
+		private double[] compatabilities = new double[64];
+		private boolean[] aligns = new boolean[64];
+
+		Worker(final AtomicInteger nextEdge) {
+			this.nextEdge = nextEdge;
+		}
+
+		@Override
+		public Object call() {
+			int start;
+			while ((start = nextEdge.getAndAdd(CHUNK_SIZE)) < numEdges) {
+				final int end = Math.min(start + CHUNK_SIZE, numEdges);
+				for (int ei = Math.max(start, 1); ei < end; ei++)
+					computeEdge(ei);
+			}
+			return null;
+		}
+
+		private void computeEdge(final int ei) {
+			final double li = edgeLength[ei];
+			final double radius = maxDistanceFactor * li + SLACK;
+
+			final int col0 = getColumn(midX[ei] - radius);
+			final int col1 = getColumn(midX[ei] + radius);
+			final int row0 = getRow(midY[ei] - radius);
+			final int row1 = getRow(midY[ei] + radius);
+
+			int numCandidates = 0;
+			for (int row = row0; row <= row1; row++) {
+				for (int col = col0; col <= col1; col++) {
+					final int cell = row * gridCols + col;
+					for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+						final int ej = cellEdges[k];
+						if (ej >= ei)
+							continue;
+						if (numCandidates == candidates.length)
+							candidates = Arrays.copyOf(candidates, 2 * numCandidates);
+						candidates[numCandidates++] = ej;
+					}
+				}
+			}
+			candidatePairCount.addAndGet(numCandidates);
+
+			// Keep the order of comparing all pairs, so that forces are summed up
+			// in the same order.
+			Arrays.sort(candidates, 0, numCandidates);
+
+			int numMatches = 0;
+			for (int i = 0; i < numCandidates; i++) {
+				final int ej = candidates[i];
+				final double lj = edgeLength[ej];
+				if (lj > li * maxLengthRatio + SLACK || li > lj * maxLengthRatio + SLACK)
+					continue;
+
+				// cpos > threshold / cscale requires distance < lavg * (cscale / threshold - 1)
+				final double maxDistance =
+					(li + lj) / 2.0 * (cscale(ei, ej) / threshold - 1.0) * (1.0 + SLACK) + SLACK;
+				if (maxDistance < 0.0)
+					continue;
+				final double dx = midX[ei] - midX[ej];
+				final double dy = midY[ei] - midY[ej];
+				if (dx * dx + dy * dy > maxDistance * maxDistance)
+					continue;
+
+				final double compatability = compatability(ei, ej);
+				if (compatability > threshold) {
+					if (numMatches == matches.length) {
+						matches = Arrays.copyOf(matches, 2 * numMatches);
+						compatabilities = Arrays.copyOf(compatabilities, 2 * numMatches);
+						aligns = Arrays.copyOf(aligns, 2 * numMatches);
+					}
+					matches[numMatches] = ej;
+					compatabilities[numMatches] = compatability;
+					aligns[numMatches] = cangleSign(ei, ej) > 0;
+					numMatches++;
+				}
+			}
+			store(ei, matches, compatabilities, aligns, numMatches);
+		}
+	}
+
+	private double compatability(final int ei, final int ej) {
+		return cangle(ei, ej) * cscale(ei, ej) * cpos(ei, ej) * cvis(ei, ej);
+	}
+
+	private double cangle(int ei, int ej) {
+		double a = edgePos[1][0][ei] - edgePos[0][0][ei];
+		double b = edgePos[1][1][ei] - edgePos[0][1][ei];
+		double c = edgePos[1][0][ej] - edgePos[0][0][ej];
+		double d = edgePos[1][1][ej] - edgePos[0][1][ej];
+
+		double cosAlpha = ((a * c) + (b * d)) / (edgeLength[ei] * edgeLength[ej]);
+
+		double out = Math.abs(cosAlpha);
+
+		if (Double.isNaN(out) || Double.isInfinite(out))
+			return 0;
+		return out;
+	}
+
+	private double cangleSign(int ei, int ej) {
+		double a = edgePos[1][0][ei] - edgePos[0][0][ei];
+		double b = edgePos[1][1][ei] - edgePos[0][1][ei];
+		double c = edgePos[1][0][ej] - edgePos[0][0][ej];
+		double d = edgePos[1][1][ej] - edgePos[0][1][ej];
+
+		double cosAlpha = ((a * c) + (b * d)) / (edgeLength[ei] * edgeLength[ej]);
+
+		double out = Math.signum(cosAlpha);
+
+		if (Double.isNaN(out) || Double.isInfinite(out))
+			return 0;
+		return out;
+	}
+
+	private double cscale(int ei, int ej) {
+		double lavg = (edgeLength[ei] + edgeLength[ej]) / 2.0;
+
+		// Note: the formula in the paper is wrong (*min vs. /min)
+		double out = 2.0 / ((lavg / Math.min(edgeLength[ei], edgeLength[ej])) + (Math.max(edgeLength[ei],
+				edgeLength[ej]) / lavg));
+
+		if (Double.isNaN(out) || Double.isInfinite(out))
+			return 0;
+		return out;
+	}
+
+	private double cpos(int ei, int ej) {
+		double lavg = (edgeLength[ei] + edgeLength[ej]) / 2.0;
+
+		double out = lavg / (lavg + distance(mid(ei), mid(ej)));
+
+		if (Double.isNaN(out) || Double.isInfinite(out))
+			return 0;
+
+		return out;
+	}
+
+	private double[] mid(int ei) {
+		return new double[] { midX[ei], midY[ei] };
+	}
+
+	private static double distance(double[] p, double[] q) {
+		double x = p[0] - q[0];
+		double y = p[1] - q[1];
+		return Math.sqrt(x * x + y * y);
+	}
+
+	private double cvis(int ei, int ej) {
+		return Math.min(vis(ei, ej), vis(ej, ei));
+	}
+
+	private double vis(int ei, int ej) {
+		double[] I0 = getProjection(ei, ej, new double[] { edgePos[0][0][ei], edgePos[0][1][ei] });
+		if (I0 == null)
+			return 0;
+
+		double[] I1 = getProjection(ei, ej, new double[] { edgePos[1][0][ei], edgePos[1][1][ei] });
+		if (I1 == null)
+			return 0;
+
+		double[] Im = new double[] { (I1[0] - I0[0]) / 2 + I0[0], (I1[1] - I0[1]) / 2 + I0[1] };
+
+		double[] Pm = mid(ej);
+
+		double a = distance(Pm, Im);
+		double b = distance(I0, I1);
+		return Math.max(1.0 - 2 * a / b, 0);
+	}
+
+	private double[] getProjection(int ei, int ej, double[] m) {
+		double dx1 = edgePos[1][0][ei] - edgePos[0][0][ei];
+		double dy1 = edgePos[1][1][ei] - edgePos[0][1][ei];
+
+		double dx2 = edgePos[1][0][ej] - edgePos[0][0][ej];
+		double dy2 = edgePos[1][1][ej] - edgePos[0][1][ej];
+
+		double cx = edgePos[0][0][ej];
+		double cy = edgePos[0][1][ej];
+
+		// PROJECTION
+		double A1 = dx1;
+		double B1 = dy1;
+		double A2 = dy2;
+		double B2 = -dx2;
+
+		double C1 = A1 * m[0] + B1 * m[1];
+		double C2 = A2 * cx + B2 * cy;
+
+		double det = A1 * B2 - A2 * B1;
+		if (Math.abs(det) < 1e-10)
+			return null;
+
+		double x = (B2 * C1 - B1 * C2) / det;
+		double y = (A1 * C2 - A2 * C1) / det;
+
+		return new double[] { x, y };
+	}
+}
@@ -0,0 +1,153 @@
+package org.cytoscape.edge.bundler.internal;
+
+/*
+ * #%L
+ * Cytoscape Edge Bundler Impl (edge-bundler-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+import static org.cytoscape.edge.bundler.internal.EdgeCompatibilityCalculatorTest.createEdgePositions;
+import static org.cytoscape.edge.bundler.internal.EdgeCompatibilityCalculatorTest.getEdgeLengths;
+
+import org.junit.Test;
+
+public class EdgeBundlerRunnerTest {
+
+	private static final double K = 3e-3;
+	private static final double THRESHOLD = 0.3;
+
+	private double[][][] edgePos;
+	private EdgeCompatibilityCalculator calculator;
+
+	@Test
+	public void testMultiThreadedRunMatchesSingleThreadedRun() {
+		for (final int numNubs : new int[] { 3, 4 }) {
+			init(3000, 1L);
+			final double[][][] expected = run(numNubs, 1, 50);
+			for (final int numThreads : new int[] { 2, 3, 4 }) {
+				final double[][][] actual = run(numNubs, numThreads, 50);
+				for (int ni = 0; ni < numNubs; ni++) {
+					assertArrayEquals(expected[ni][0], actual[ni][0], 0.0);
+					assertArrayEquals(expected[ni][1], actual[ni][1], 0.0);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRunMatchesSequentialSimulation() {
+		final int numNubs = 3;
+		final int iterations = 20;
+		init(1000, 2L);
+		final double[][][] actual = run(numNubs, 4, iterations);
+
+		// Accumulate the forces pair by pair, as the simulation used to.
+		final double[][][] nubs = createNubs(numNubs);
+		final double[][][] forces = new double[numNubs][2][edgePos[0][0].length];
+		final int[][] edgeMatcher = calculator.getEdgeMatcher();
+		for (int iteri = 0; iteri < iterations; iteri++) {
+			for (int ei = 0; ei < edgeMatcher.length; ei++)
+				for (int ni = 0; ni < numNubs; ni++)
+					for (int xy = 0; xy < 2; xy++) {
+						final double prev = ni == 0 ? edgePos[0][xy][ei] : nubs[ni - 1][xy][ei];
+						final double next = ni == numNubs - 1 ? edgePos[1][xy][ei] : nubs[ni + 1][xy][ei];
+						forces[ni][xy][ei] = -K * ((nubs[ni][xy][ei] - prev) + (nubs[ni][xy][ei] - next));
+					}
+
+			for (int ni = 0; ni < numNubs; ni++)
+				for (int ei = 0; ei < edgeMatcher.length; ei++)
+					for (int em = 0; em < edgeMatcher[ei].length; em++) {
+						final int ej = edgeMatcher[ei][em];
+						final int nj = calculator.getEdgeAlign()[ei][em] ? ni : numNubs - ni - 1;
+						for (int xy = 0; xy < 2; xy++) {
+							final double diff = nubs[ni][xy][ei] - nubs[nj][xy][ej];
+							if (Math.abs(diff) > 1) {
+								final double f = calculator.getEdgeCompatability()[ei][em] / diff;
+								forces[ni][xy][ei] -= f;
+								forces[nj][xy][ej] += f;
+							}
+						}
+					}
+
+			for (int ni = 0; ni < numNubs; ni++)
+				for (int xy = 0; xy < 2; xy++)
+					for (int ei = 0; ei < edgeMatcher.length; ei++)
+						nubs[ni][xy][ei] += forces[ni][xy][ei];
+		}
+
+		for (int ni = 0; ni < numNubs; ni++) {
+			assertArrayEquals(nubs[ni][0], actual[ni][0], 1e-6);
+			assertArrayEquals(nubs[ni][1], actual[ni][1], 1e-6);
+		}
+	}
+
+	@Test
+	public void testBenchmark() {
+		final int numNubs = 3;
+		final int iterations = 100;
+		init(50000, 3L);
+
+		long singleThreaded = 0L;
+		final int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+		for (int numThreads = 1; numThreads <= maxThreads; numThreads *= 2) {
+			final long start = System.nanoTime();
+			run(numNubs, numThreads, iterations);
+			final long time = System.nanoTime() - start;
+			if (numThreads == 1)
+				singleThreaded = time;
+			System.out.println(edgePos[0][0].length + " edges, " + numThreads + " threads: "
+			                   + (time / iterations / 1000L) + " us per iteration, speedup "
+			                   + ((double) singleThreaded / time));
+		}
+	}
+
+	private void init(final int numEdges, final long seed) {
+		edgePos = createEdgePositions(numEdges, seed);
+		calculator = new EdgeCompatibilityCalculator(edgePos, getEdgeLengths(edgePos), THRESHOLD);
+		calculator.compute(1);
+	}
+
+	private double[][][] createNubs(final int numNubs) {
+		final int numEdges = edgePos[0][0].length;
+		final double[][][] nubs = new double[numNubs][2][numEdges];
+		for (int ei = 0; ei < numEdges; ei++)
+			for (int ni = 0; ni < numNubs; ni++)
+				for (int xy = 0; xy < 2; xy++)
+					nubs[ni][xy][ei] = (edgePos[1][xy][ei] - edgePos[0][xy][ei]) * (ni + 1) / (numNubs + 1)
+						+ edgePos[0][xy][ei];
+		return nubs;
+	}
+
+	private double[][][] run(final int numNubs, final int numThreads, final int iterations) {
+		final double[][][] nubs = createNubs(numNubs);
+		final EdgeBundlerRunner runner = new EdgeBundlerRunner(edgePos, nubs, K, calculator.getEdgeMatcher(),
+				calculator.getEdgeCompatability(), calculator.getEdgeAlign(), numThreads);
+		try {
+			for (int iteri = 0; iteri < iterations; iteri++)
+				runner.iterate();
+		} finally {
+			runner.shutdown();
+		}
+		runner.getNubs(nubs);
+		return nubs;
+	}
+}
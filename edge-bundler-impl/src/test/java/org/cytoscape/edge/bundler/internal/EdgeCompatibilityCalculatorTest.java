@@ -0,0 +1,137 @@
+package org.cytoscape.edge.bundler.internal;
+
+/*
+ * #%L
+ * Cytoscape Edge Bundler Impl (edge-bundler-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class EdgeCompatibilityCalculatorTest {
+
+	private static final double THRESHOLD = 0.3;
+
+	@Test
+	public void testGridMatchesAllPairs() {
+		for (final double threshold : new double[] { 0.05, 0.1, THRESHOLD, 0.6, 0.9 }) {
+			final double[][][] edgePos = createEdgePositions(3000, 1L);
+			// Some zero-length edges
+			for (int ei = 0; ei < 20; ei++) {
+				edgePos[1][0][ei] = edgePos[0][0][ei];
+				edgePos[1][1][ei] = edgePos[0][1][ei];
+			}
+			final double[] edgeLength = getEdgeLengths(edgePos);
+
+			final EdgeCompatibilityCalculator grid = new EdgeCompatibilityCalculator(edgePos, edgeLength, threshold);
+			grid.compute(4);
+			final EdgeCompatibilityCalculator allPairs =
+				new EdgeCompatibilityCalculator(edgePos, edgeLength, threshold);
+			allPairs.computeAllPairs();
+
+			assertTrue(grid.getCandidatePairCount() < allPairs.getCandidatePairCount());
+			for (int ei = 0; ei < edgeLength.length; ei++) {
+				assertArrayEquals(allPairs.getEdgeMatcher()[ei], grid.getEdgeMatcher()[ei]);
+				assertArrayEquals(allPairs.getEdgeCompatability()[ei], grid.getEdgeCompatability()[ei], 0.0);
+				assertTrue(Arrays.equals(allPairs.getEdgeAlign()[ei], grid.getEdgeAlign()[ei]));
+			}
+		}
+	}
+
+	@Test
+	public void testNonPositiveThresholdComparesAllPairs() {
+		final double[][][] edgePos = createEdgePositions(500, 2L);
+		final EdgeCompatibilityCalculator calculator =
+			new EdgeCompatibilityCalculator(edgePos, getEdgeLengths(edgePos), 0.0);
+		calculator.compute(4);
+		assertEquals(500L * 499L / 2L, calculator.getCandidatePairCount());
+	}
+
+	@Test
+	public void testMaxLengthRatio() {
+		assertEquals(1.0, EdgeCompatibilityCalculator.getMaxLengthRatio(1.0), 0.0);
+		final double ratio = EdgeCompatibilityCalculator.getMaxLengthRatio(THRESHOLD);
+		final double lavg = (1.0 + ratio) / 2.0;
+		assertEquals(THRESHOLD, 2.0 / (lavg + ratio / lavg), 1e-12);
+	}
+
+	@Test
+	public void testBenchmark() {
+		final int numThreads = Runtime.getRuntime().availableProcessors();
+		for (final int numEdges : new int[] { 10000, 50000, 200000 }) {
+			final double[][][] edgePos = createEdgePositions(numEdges, 3L);
+			final double[] edgeLength = getEdgeLengths(edgePos);
+
+			final EdgeCompatibilityCalculator calculator =
+				new EdgeCompatibilityCalculator(edgePos, edgeLength, THRESHOLD);
+			long start = System.nanoTime();
+			calculator.compute(numThreads);
+			final long grid = System.nanoTime() - start;
+
+			String allPairsTime = "not run";
+			if (numEdges <= 10000) {
+				start = System.nanoTime();
+				new EdgeCompatibilityCalculator(edgePos, edgeLength, THRESHOLD).computeAllPairs();
+				allPairsTime = ((System.nanoTime() - start) / 1000000L) + " ms";
+			}
+
+			System.out.println(numEdges + " edges: grid " + (grid / 1000000L) + " ms on " + numThreads
+			                   + " threads, " + calculator.getCandidatePairCount() + " candidate pairs; all pairs "
+			                   + allPairsTime);
+		}
+	}
+
+	/**
+	 * Creates edges of random direction and a length between 30 and 200, spread
+	 * over a square whose area grows with the number of edges, as in a layout.
+	 */
+	static double[][][] createEdgePositions(final int numEdges, final long seed) {
+		final Random random = new Random(seed);
+		final double side = Math.sqrt(numEdges) * 100.0;
+		final double[][][] edgePos = new double[2][2][numEdges];
+		for (int ei = 0; ei < numEdges; ei++) {
+			final double x = random.nextDouble() * side;
+			final double y = random.nextDouble() * side;
+			final double angle = random.nextDouble() * 2.0 * Math.PI;
+			final double length = 30.0 + random.nextDouble() * 170.0;
+			edgePos[0][0][ei] = x;
+			edgePos[0][1][ei] = y;
+			edgePos[1][0][ei] = x + length * Math.cos(angle);
+			edgePos[1][1][ei] = y + length * Math.sin(angle);
+		}
+		return edgePos;
+	}
+
+	static double[] getEdgeLengths(final double[][][] edgePos) {
+		final double[] edgeLength = new double[edgePos[0][0].length];
+		for (int ei = 0; ei < edgeLength.length; ei++) {
+			final double diffx = edgePos[1][0][ei] - edgePos[0][0][ei];
+			final double diffy = edgePos[1][1][ei] - edgePos[0][1][ei];
+			edgeLength[ei] = Math.sqrt(diffx * diffx + diffy * diffy);
+		}
+		return edgeLength;
+	}
+}
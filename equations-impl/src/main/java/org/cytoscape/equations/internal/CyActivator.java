@@ -47,7 +47,7 @@ public class CyActivator extends AbstractCyActivator {
 	public void start(BundleContext bc) {
 
 		
-		InterpreterImpl interpreter = new InterpreterImpl();
+		InterpreterImpl interpreter = new InterpreterImpl(Boolean.getBoolean(InterpreterImpl.COMPILE_EQUATIONS_PROPERTY));
 		EquationParserImpl parser = new EquationParserImpl();
 		EquationCompilerImpl compiler = new EquationCompilerImpl(parser);
 		
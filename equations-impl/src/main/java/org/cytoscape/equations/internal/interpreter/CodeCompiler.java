@@ -0,0 +1,505 @@
+package org.cytoscape.equations.internal.interpreter;
+
+/*
+ * #%L
+ * Cytoscape Equations Impl (equations-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.EmptyStackException;
+import java.util.Map;
+import java.util.Stack;
+
+import org.cytoscape.equations.Function;
+import org.cytoscape.equations.FunctionError;
+import org.cytoscape.equations.IdentDescriptor;
+
+
+/** Turns the stack code generated by the equation compiler into a tree of {@link CompiledCode}
+ *  nodes by running the code symbolically.  Operands are always evaluated in the order in which
+ *  the stack interpreter would have produced them, so that side effects and errors surface in
+ *  the same order.
+ */
+final class CodeCompiler {
+	static final int MAX_ARG_COUNT = 100;
+
+	private CodeCompiler() { }
+
+	/** @return the expression tree for "code" or null if "code" can't be compiled, in which case
+	 *          it has to be run by the stack interpreter which will report the problem.
+	 */
+	static CompiledCode compile(final Object[] code) {
+		final Stack<CompiledCode> stack = new Stack<CompiledCode>();
+		try {
+			for (final Object instrOrArg : code) {
+				if (!(instrOrArg instanceof Instruction)) {
+					stack.push(new Constant(instrOrArg));
+					continue;
+				}
+
+				final Instruction instr = (Instruction)instrOrArg;
+				switch (instr) {
+				case FADD:
+				case FSUB:
+				case FMUL:
+				case FDIV:
+				case FPOW:
+					stack.push(new FloatArithmetic(instr, stack.pop(), stack.pop()));
+					break;
+				case BEQLF:
+				case BNEQLF:
+				case BGTF:
+				case BLTF:
+				case BGTEF:
+				case BLTEF:
+					stack.push(new FloatComparison(instr, stack.pop(), stack.pop()));
+					break;
+				case SCONCAT:
+					stack.push(new StringConcatenation(stack.pop(), stack.pop()));
+					break;
+				case BEQLS:
+				case BNEQLS:
+				case BGTS:
+				case BLTS:
+				case BGTES:
+				case BLTES:
+					stack.push(new StringComparison(instr, stack.pop(), stack.pop()));
+					break;
+				case BGTB:
+				case BLTB:
+				case BGTEB:
+				case BLTEB:
+				case BEQLB:
+				case BNEQLB:
+					stack.push(new BooleanComparison(instr, stack.pop(), stack.pop()));
+					break;
+				case CALL: {
+					final Object func = stack.pop().getConstant();
+					final Object argCount = stack.pop().getConstant();
+					if (!(func instanceof Function) || !(argCount instanceof Integer))
+						return null;
+					final int count = (Integer)argCount;
+					if (count < 0 || count > MAX_ARG_COUNT)
+						return null;
+					final CompiledCode[] args = new CompiledCode[count];
+					for (int argNo = 0; argNo < count; ++argNo)
+						args[argNo] = stack.pop();
+					stack.push(new FunctionCall((Function)func, args));
+					break;
+				}
+				case FUMINUS:
+					stack.push(new UnaryMinus(stack.pop()));
+					break;
+				case FUPLUS:
+					stack.push(new UnaryPlus(stack.pop()));
+					break;
+				case AREF: {
+					final Object name = stack.pop().getConstant();
+					if (!(name instanceof String))
+						return null;
+					stack.push(new AttribReference((String)name));
+					break;
+				}
+				case AREF2: {
+					final Object name = stack.pop().getConstant();
+					if (!(name instanceof String))
+						return null;
+					stack.push(new AttribReferenceWithDefault((String)name, stack.pop()));
+					break;
+				}
+				case FCONVI:
+					stack.push(new LongToFloat(stack.pop()));
+					break;
+				case FCONVB:
+					stack.push(new BooleanToFloat(stack.pop()));
+					break;
+				case FCONVS:
+					stack.push(new StringToFloat(stack.pop()));
+					break;
+				case SCONVF:
+				case SCONVI:
+					stack.push(new ToString(stack.pop()));
+					break;
+				case SCONVB:
+					stack.push(new BooleanToString(stack.pop()));
+					break;
+				default:
+					return null;
+				}
+			}
+		} catch (final EmptyStackException e) {
+			return null;
+		}
+
+		return stack.size() == 1 ? stack.peek() : null;
+	}
+
+	private static final class Constant extends CompiledCode {
+		private final Object value;
+
+		Constant(final Object value) {
+			this.value = value;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			return value;
+		}
+
+		Object getConstant() {
+			return value;
+		}
+	}
+
+	/** Binary operations take their first operand from the top of the stack.  The second operand
+	 *  was pushed by earlier code, hence it is evaluated first.
+	 */
+	private static final class FloatArithmetic extends CompiledCode {
+		private final Instruction instr;
+		private final CompiledCode operand1;
+		private final CompiledCode operand2;
+
+		FloatArithmetic(final Instruction instr, final CompiledCode operand1, final CompiledCode operand2) {
+			this.instr    = instr;
+			this.operand1 = operand1;
+			this.operand2 = operand2;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			return evalDouble(nameToDescriptorMap);
+		}
+
+		double evalDouble(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			final double float2 = operand2.evalDouble(nameToDescriptorMap);
+			final double float1 = operand1.evalDouble(nameToDescriptorMap);
+			switch (instr) {
+			case FADD:
+				return float1 + float2;
+			case FSUB:
+				return float1 - float2;
+			case FMUL:
+				return float1 * float2;
+			case FDIV:
+				if (float2 == 0.0)
+					throw new ArithmeticException("illegal division by zero.");
+				return float1 / float2;
+			default:
+				return Math.pow(float1, float2);
+			}
+		}
+	}
+
+	private static final class FloatComparison extends CompiledCode {
+		private final Instruction instr;
+		private final CompiledCode operand1;
+		private final CompiledCode operand2;
+
+		FloatComparison(final Instruction instr, final CompiledCode operand1, final CompiledCode operand2) {
+			this.instr    = instr;
+			this.operand1 = operand1;
+			this.operand2 = operand2;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			return evalBoolean(nameToDescriptorMap);
+		}
+
+		boolean evalBoolean(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			final double float2 = operand2.evalDouble(nameToDescriptorMap);
+			final double float1 = operand1.evalDouble(nameToDescriptorMap);
+			switch (instr) {
+			case BEQLF:
+				return float1 == float2;
+			case BNEQLF:
+				return float1 != float2;
+			case BGTF:
+				return float1 > float2;
+			case BLTF:
+				return float1 < float2;
+			case BGTEF:
+				return float1 >= float2;
+			default:
+				return float1 <= float2;
+			}
+		}
+	}
+
+	private static final class StringConcatenation extends CompiledCode {
+		private final CompiledCode operand1;
+		private final CompiledCode operand2;
+
+		StringConcatenation(final CompiledCode operand1, final CompiledCode operand2) {
+			this.operand1 = operand1;
+			this.operand2 = operand2;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			return evalString(nameToDescriptorMap);
+		}
+
+		String evalString(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			final String string2 = operand2.evalString(nameToDescriptorMap);
+			final String string1 = operand1.evalString(nameToDescriptorMap);
+			return string1 + string2;
+		}
+	}
+
+	private static final class StringComparison extends CompiledCode {
+		private final Instruction instr;
+		private final CompiledCode operand1;
+		private final CompiledCode operand2;
+
+		StringComparison(final Instruction instr, final CompiledCode operand1, final CompiledCode operand2) {
+			this.instr    = instr;
+			this.operand1 = operand1;
+			this.operand2 = operand2;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			return evalBoolean(nameToDescriptorMap);
+		}
+
+		boolean evalBoolean(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			final String string2 = operand2.evalString(nameToDescriptorMap);
+			final String string1 = operand1.evalString(nameToDescriptorMap);
+			switch (instr) {
+			case BEQLS:
+				return string1.equals(string2);
+			case BNEQLS:
+				return !string1.equals(string2);
+			case BGTS:
+				return string1.compareTo(string2) > 0;
+			case BLTS:
+				return string1.compareTo(string2) < 0;
+			case BGTES:
+				return string1.compareTo(string2) >= 0;
+			default:
+				return string1.compareTo(string2) <= 0;
+			}
+		}
+	}
+
+	private static final class BooleanComparison extends CompiledCode {
+		private final Instruction instr;
+		private final CompiledCode operand1;
+		private final CompiledCode operand2;
+
+		BooleanComparison(final Instruction instr, final CompiledCode operand1, final CompiledCode operand2) {
+			this.instr    = instr;
+			this.operand1 = operand1;
+			this.operand2 = operand2;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			return evalBoolean(nameToDescriptorMap);
+		}
+
+		boolean evalBoolean(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			final boolean bool2 = operand2.evalBoolean(nameToDescriptorMap);
+			final boolean bool1 = operand1.evalBoolean(nameToDescriptorMap);
+			switch (instr) {
+			case BGTB:
+				return bool1 && !bool2;
+			case BLTB:
+				return !bool1 && bool2;
+			case BGTEB:
+				return (bool1 && !bool2) || (bool1 == bool2);
+			case BLTEB:
+				return (!bool1 && bool2) || (bool1 == bool2);
+			case BEQLB:
+				return bool1 == bool2;
+			default:
+				return bool1 != bool2;
+			}
+		}
+	}
+
+	/** The first argument was on top of the stack, hence the arguments are evaluated last to first. */
+	private static final class FunctionCall extends CompiledCode {
+		private final Function func;
+		private final CompiledCode[] args;
+
+		FunctionCall(final Function func, final CompiledCode[] args) {
+			this.func = func;
+			this.args = args;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			final Object[] actualArgs = new Object[args.length];
+			for (int argNo = args.length - 1; argNo >= 0; --argNo)
+				actualArgs[argNo] = args[argNo].eval(nameToDescriptorMap);
+
+			try {
+				return func.evaluateFunction(actualArgs);
+			} catch (final FunctionError e) {
+				throw new IllegalStateException(e.getMessage());
+			}
+		}
+	}
+
+	private static final class UnaryMinus extends CompiledCode {
+		private final CompiledCode operand;
+
+		UnaryMinus(final CompiledCode operand) {
+			this.operand = operand;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			return evalDouble(nameToDescriptorMap);
+		}
+
+		double evalDouble(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			return -operand.evalDouble(nameToDescriptorMap);
+		}
+	}
+
+	private static final class UnaryPlus extends CompiledCode {
+		private final CompiledCode operand;
+
+		UnaryPlus(final CompiledCode operand) {
+			this.operand = operand;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			return evalDouble(nameToDescriptorMap);
+		}
+
+		double evalDouble(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			return +operand.evalDouble(nameToDescriptorMap);
+		}
+	}
+
+	private static final class AttribReference extends CompiledCode {
+		private final String attribName;
+
+		AttribReference(final String attribName) {
+			this.attribName = attribName;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			final IdentDescriptor identDescriptor = nameToDescriptorMap.get(attribName);
+			if (identDescriptor == null)
+				throw new IllegalStateException("unknown column reference: \"" + attribName + "\" (1).");
+			final Object value = identDescriptor.getValue();
+			if (value == null)
+				throw new IllegalStateException("undefined column reference: \"" + attribName + "\".");
+			return value;
+		}
+	}
+
+	private static final class AttribReferenceWithDefault extends CompiledCode {
+		private final String attribName;
+		private final CompiledCode defaultValue;
+
+		AttribReferenceWithDefault(final String attribName, final CompiledCode defaultValue) {
+			this.attribName   = attribName;
+			this.defaultValue = defaultValue;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			final Object defaultVal = defaultValue.eval(nameToDescriptorMap);
+			final IdentDescriptor identDescriptor = nameToDescriptorMap.get(attribName);
+			if (identDescriptor == null)
+				throw new IllegalStateException("unknown column reference: \"" + attribName + "\" (2).");
+			final Object value = identDescriptor.getValue();
+			return value != null ? value : defaultVal;
+		}
+	}
+
+	private static final class LongToFloat extends CompiledCode {
+		private final CompiledCode operand;
+
+		LongToFloat(final CompiledCode operand) {
+			this.operand = operand;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			return evalDouble(nameToDescriptorMap);
+		}
+
+		double evalDouble(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			return (double)operand.evalLong(nameToDescriptorMap);
+		}
+	}
+
+	private static final class BooleanToFloat extends CompiledCode {
+		private final CompiledCode operand;
+
+		BooleanToFloat(final CompiledCode operand) {
+			this.operand = operand;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			return evalDouble(nameToDescriptorMap);
+		}
+
+		double evalDouble(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			return operand.evalBoolean(nameToDescriptorMap) ? 1.0 : 0.0;
+		}
+	}
+
+	private static final class StringToFloat extends CompiledCode {
+		private final CompiledCode operand;
+
+		StringToFloat(final CompiledCode operand) {
+			this.operand = operand;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			return evalDouble(nameToDescriptorMap);
+		}
+
+		double evalDouble(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			final String s = operand.evalString(nameToDescriptorMap);
+			try {
+				return Double.parseDouble(s);
+			} catch(final NumberFormatException e) {
+				throw new IllegalStateException("can't convert \"" + s + "\" to a number.");
+			}
+		}
+	}
+
+	private static final class ToString extends CompiledCode {
+		private final CompiledCode operand;
+
+		ToString(final CompiledCode operand) {
+			this.operand = operand;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			return operand.eval(nameToDescriptorMap).toString();
+		}
+	}
+
+	/** See InterpreterImpl.sconvb() for why both truth values become the same string. */
+	private static final class BooleanToString extends CompiledCode {
+		private final CompiledCode operand;
+
+		BooleanToString(final CompiledCode operand) {
+			this.operand = operand;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> nameToDescriptorMap) {
+			operand.eval(nameToDescriptorMap);
+			return "\uFFFF\uFFFF\uFFFF";
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package org.cytoscape.equations.internal.interpreter;
+
+/*
+ * #%L
+ * Cytoscape Equations Impl (equations-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Map;
+
+import org.cytoscape.equations.IdentDescriptor;
+
+
+/** A node of an equation's code after it has been turned into an expression tree by
+ *  {@link CodeCompiler}.  Evaluating a tree has the same results and errors as running
+ *  the original code through the stack interpreter, but arithmetic and comparisons work
+ *  on primitive values and no argument stack is needed, so a tree can be evaluated by
+ *  several threads at once.
+ */
+abstract class CompiledCode {
+	/** @return the boxed result of evaluating this node. */
+	abstract Object eval(final Map<String, IdentDescriptor> variableNameToDescriptorMap);
+
+	/** @return the result of evaluating this node, which must be a Double. */
+	double evalDouble(final Map<String, IdentDescriptor> variableNameToDescriptorMap) {
+		return getFloat(eval(variableNameToDescriptorMap));
+	}
+
+	/** @return the result of evaluating this node, which must be a Boolean. */
+	boolean evalBoolean(final Map<String, IdentDescriptor> variableNameToDescriptorMap) {
+		return getBoolean(eval(variableNameToDescriptorMap));
+	}
+
+	/** @return the result of evaluating this node, which must be a Long. */
+	long evalLong(final Map<String, IdentDescriptor> variableNameToDescriptorMap) {
+		return getLong(eval(variableNameToDescriptorMap));
+	}
+
+	/** @return the result of evaluating this node, which must be a String. */
+	String evalString(final Map<String, IdentDescriptor> variableNameToDescriptorMap) {
+		return getString(eval(variableNameToDescriptorMap));
+	}
+
+	/** @return the value of this node if it is a constant that was pushed by the code, otherwise null. */
+	Object getConstant() {
+		return null;
+	}
+
+	static double getFloat(final Object o) throws IllegalStateException {
+		if (o instanceof Double)
+			return (Double)o;
+
+		throw new IllegalStateException("can't convert a " + o.getClass() + " (" + o + ") to a floating point number.");
+	}
+
+	static long getLong(final Object o) throws IllegalStateException {
+		if (o instanceof Long)
+			return (Long)o;
+
+		throw new IllegalStateException("can't convert a " + o.getClass() + " (" + o + ") to an integer number.");
+	}
+
+	static String getString(final Object o) throws IllegalStateException {
+		if (o instanceof String)
+			return (String)o;
+
+		throw new IllegalStateException("can't convert a " + o.getClass() + " to a string.");
+	}
+
+	static boolean getBoolean(final Object o) throws IllegalStateException {
+		if (o instanceof Boolean)
+			return (Boolean)o;
+
+		throw new IllegalStateException("can't convert a " + o.getClass() + " to a boolean.");
+	}
+}
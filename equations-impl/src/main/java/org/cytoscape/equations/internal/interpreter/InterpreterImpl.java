@@ -25,9 +25,11 @@ package org.cytoscape.equations.internal.interpreter;
  */
 
 
+import java.util.Collections;
 import java.util.EmptyStackException;
 import java.util.Map;
 import java.util.Stack;
+import java.util.WeakHashMap;
 
 import org.cytoscape.equations.Equation;
 import org.cytoscape.equations.Function;
@@ -41,10 +43,42 @@ import org.cytoscape.equations.internal.StringList;
 
 
 public class InterpreterImpl implements Interpreter {
+	/** Marks code that CodeCompiler rejected, so that we don't try to compile it again. */
+	private static final CompiledCode NOT_COMPILABLE = new CompiledCode() {
+		Object eval(final Map<String, IdentDescriptor> variableNameToDescriptorMap) {
+			throw new IllegalStateException("not compilable.");
+		}
+	};
+
+	/**
+	 * System property that makes the interpreter registered by the activator
+	 * compile equations into expression trees.  Off unless set to "true".
+	 */
+	public static final String COMPILE_EQUATIONS_PROPERTY = "cytoscape.equations.compile";
+
+	private final boolean compileEquations;
+	// Keyed on the code array of an equation, which is only weakly held so that the
+	// expression trees go away together with their equations.
+	private final Map<Object[], CompiledCode> compiledCodeCache;
 	private Stack<Object> argumentStack;
 	private Map<String, IdentDescriptor> variableNameToDescriptorMap;
 
-	public InterpreterImpl() { }
+	public InterpreterImpl() {
+		this(false);
+	}
+
+	/** @param compileEquations  if true, equations are turned into expression trees on their first
+	 *                           execution and the cached trees are evaluated from then on, otherwise
+	 *                           all code is run by the stack interpreter
+	 */
+	public InterpreterImpl(final boolean compileEquations) {
+		this.compileEquations  = compileEquations;
+		this.compiledCodeCache = Collections.synchronizedMap(new WeakHashMap<Object[], CompiledCode>());
+	}
+
+	public boolean isCompilingEquations() {
+		return compileEquations;
+	}
 
 	/** Executes the code that is passed in and returns the result of an equation's evaluation.
 	 *  @return a Double, Boolean, String etc. object that is the result of a successful execution.
@@ -58,6 +92,28 @@ public class InterpreterImpl implements Interpreter {
 		if (equation == null || variableNameToDescriptorMap == null)
 			throw new NullPointerException("null equation or variableNameToDescriptorMap.");
 
+		if (compileEquations) {
+			final CompiledCode compiledCode = getCompiledCode(equation.getCode());
+			if (compiledCode != NOT_COMPILABLE)
+				return checkResult(compiledCode.eval(variableNameToDescriptorMap));
+		}
+
+		return interpret(equation, variableNameToDescriptorMap);
+	}
+
+	private CompiledCode getCompiledCode(final Object[] code) {
+		CompiledCode compiledCode = compiledCodeCache.get(code);
+		if (compiledCode == null) {
+			compiledCode = CodeCompiler.compile(code);
+			if (compiledCode == null)
+				compiledCode = NOT_COMPILABLE;
+			compiledCodeCache.put(code, compiledCode);
+		}
+
+		return compiledCode;
+	}
+
+	private synchronized Object interpret(final Equation equation, final Map<String, IdentDescriptor> variableNameToDescriptorMap) {
 		this.argumentStack               = new Stack<Object>();
 		this.variableNameToDescriptorMap = variableNameToDescriptorMap;
 
@@ -189,7 +245,10 @@ public class InterpreterImpl implements Interpreter {
 
 		if (argumentStack.size() != 1)
 			throw new IllegalStateException("invalid argument stack size " + argumentStack.size() + ", must be 1.");
-		final Object retVal = argumentStack.peek();
+		return checkResult(argumentStack.peek());
+	}
+
+	private static Object checkResult(final Object retVal) throws IllegalStateException {
 		final Class retValClass = retVal.getClass();
 		if (retValClass == Double.class || retValClass == String.class || retValClass == Boolean.class || retValClass == Long.class
 		    || retValClass == DoubleList.class || retValClass == BooleanList.class || retValClass == LongList.class
@@ -0,0 +1,183 @@
+package org.cytoscape.equations.internal.interpreter;
+
+/*
+ * #%L
+ * Cytoscape Equations Impl (equations-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.*;
+
+import org.cytoscape.equations.Equation;
+import org.cytoscape.equations.EquationCompiler;
+import org.cytoscape.equations.IdentDescriptor;
+import org.cytoscape.equations.Interpreter;
+
+import org.cytoscape.equations.internal.EquationCompilerImpl;
+import org.cytoscape.equations.internal.EquationParserImpl;
+
+
+/** Checks that compiled equations behave exactly like interpreted ones and reports how long both
+ *  take for every builtin function.
+ */
+public class CompiledCodeTest extends TestCase {
+	private static final String[] EQUATIONS = {
+		"=ABS($y)", "=ACOS(0.5)", "=AND($b, $x > 1)", "=ASIN(-1)", "=ATAN2(1, $x)",
+		"=AVERAGE($numbers)", "=BLIST(TRUE, \"false\", $b)", "=COMBIN(10, 3)",
+		"=CONCATENATE($s, \"ab\", $x)", "=COS($x / 6)", "=COSH(2)", "=COUNT($numbers)",
+		"=DEGREES(PI())", "=ERROR(\"broken\")", "=EXP(-$x)", "=FLIST(1, 2, $x)", "=FIRST($numbers)",
+		"=GEOMEAN($numbers, 3)", "=HARMEAN($numbers, 3)", "=ILIST(1, 2, 3)", "=IF($x >= 1, \"Xx\", \"Yz\")",
+		"=LARGEST($numbers, 2)", "=LAST($numbers)", "=LEFT($s, 3)", "=LEN($s)", "=LISTTOSTRING($list, \",\")",
+		"=LN($x)", "=LOG(100)", "=LOWER($s)", "=MAX($numbers)", "=MEDIAN(3, 2, 5, 1, 4)", "=MID($s, 2, 3)",
+		"=MIN($numbers)", "=MOD(7, $x)", "=MODE($numbers, 3)", "=NORMDIST(50, 40, 20, FALSE)", "=NOT($b)",
+		"=NOW()", "=NTH($numbers, 3)", "=OR($list, \"false\", FALSE)", "=PERMUT(6, 3)", "=PI()",
+		"=PRODUCT($numbers, 2.2)", "=RADIANS(180)", "=RIGHT($s, 3)", "=ROUND($x, 1)", "=SIGN($y)",
+		"=SIN($x)", "=SINH(1)", "=SLIST(\"a\", $s)", "=SQRT($x)", "=STDEV($numbers)",
+		"=SUBSTITUTE($s, \"c\", \"X\")", "=SUM($numbers, \"5\", 2.2)", "=TAN(1)", "=TANH(-2)", "=TEXT($x)",
+		"=TODAY()", "=TRUNC($x)", "=UPPER($s)", "=VALUE(\"-1.3\")", "=VAR($numbers)",
+		"=$x + $n * 2 - -$y / 4 ^ 2", "=$s & \"/\" & $n", "=IF($s < \"Dog\", $x <= $y, $b >= FALSE)",
+		"=$x / ($y + 2)", "=VALUE($s)"
+	};
+
+	// Their results depend on the time at which they are evaluated.
+	private static final String[] TIME_DEPENDENT_EQUATIONS = { "=NOW()", "=TODAY()" };
+
+	private final EquationCompiler compiler = new EquationCompilerImpl(new EquationParserImpl());
+	private final Map<String, Class<?>> attribNameToTypeMap = new HashMap<String, Class<?>>();
+	private final Map<String, IdentDescriptor> nameToDescriptorMap = new HashMap<String, IdentDescriptor>();
+
+	protected void setUp() {
+		final List<Double> numbers = new ArrayList<Double>();
+		for (int i = 1; i <= 5; ++i)
+			numbers.add(Double.valueOf(i));
+		final List<Object> list = new ArrayList<Object>();
+		list.add("false");
+		list.add(Long.valueOf(0L));
+		list.add(Double.valueOf(1.3));
+
+		addVariable("x", Double.valueOf(3.5));
+		addVariable("y", Double.valueOf(-2.0));
+		addVariable("n", Long.valueOf(4L));
+		addVariable("s", "Circus");
+		addVariable("b", Boolean.TRUE);
+		addVariable("numbers", numbers);
+		addVariable("list", list);
+	}
+
+	private void addVariable(final String name, final Object value) {
+		attribNameToTypeMap.put(name, value.getClass());
+		nameToDescriptorMap.put(name, new IdentDescriptor(value));
+	}
+
+	private Equation compile(final String equation) {
+		assertTrue(equation + ": " + compiler.getLastErrorMsg(), compiler.compile(equation, attribNameToTypeMap));
+		return compiler.getEquation();
+	}
+
+	/** @return the result of the execution or the class and message of the exception that it threw. */
+	private Object execute(final Interpreter interpreter, final Equation equation) {
+		try {
+			return interpreter.execute(equation, nameToDescriptorMap);
+		} catch (final Exception e) {
+			return e.getClass().getName() + ": " + e.getMessage();
+		}
+	}
+
+	private static boolean isTimeDependent(final String equation) {
+		for (final String timeDependentEquation : TIME_DEPENDENT_EQUATIONS) {
+			if (timeDependentEquation.equals(equation))
+				return true;
+		}
+		return false;
+	}
+
+	public void testCompiledCodeMatchesInterpretedCode() throws Exception {
+		final Interpreter interpreter = new InterpreterImpl(false);
+		final Interpreter compiledInterpreter = new InterpreterImpl(true);
+		for (final String equation : EQUATIONS) {
+			if (isTimeDependent(equation))
+				continue;
+
+			final Equation eqn = compile(equation);
+			final Object expected = execute(interpreter, eqn);
+			assertEquals(equation, expected, execute(compiledInterpreter, eqn));
+
+			// The second execution uses the cached expression tree.
+			assertEquals(equation, expected, execute(compiledInterpreter, eqn));
+		}
+	}
+
+	public void testErrorsMatchInterpretedCode() throws Exception {
+		final Interpreter interpreter = new InterpreterImpl(false);
+		final Interpreter compiledInterpreter = new InterpreterImpl(true);
+
+		final Equation division = compile("=$x / $y");
+		nameToDescriptorMap.put("y", new IdentDescriptor(Double.valueOf(0.0)));
+		final Object expected = execute(interpreter, division);
+		assertEquals("java.lang.ArithmeticException: illegal division by zero.", expected);
+		assertEquals(expected, execute(compiledInterpreter, division));
+
+		final Equation reference = compile("=$x + 1");
+		nameToDescriptorMap.remove("x");
+		assertEquals(execute(interpreter, reference), execute(compiledInterpreter, reference));
+	}
+
+	public void testBenchmark() throws Exception {
+		final int ITERATIONS = 2000;
+		final Interpreter interpreter = new InterpreterImpl(false);
+		final Interpreter compiledInterpreter = new InterpreterImpl(true);
+		long totalInterpreted = 0L;
+		long totalCompiled = 0L;
+		for (final String equation : EQUATIONS) {
+			final Equation eqn = compile(equation);
+
+			// Warm up both code paths.
+			for (int i = 0; i < ITERATIONS; ++i) {
+				execute(interpreter, eqn);
+				execute(compiledInterpreter, eqn);
+			}
+
+			long start = System.nanoTime();
+			for (int i = 0; i < ITERATIONS; ++i)
+				execute(interpreter, eqn);
+			final long interpreted = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int i = 0; i < ITERATIONS; ++i)
+				execute(compiledInterpreter, eqn);
+			final long compiled = System.nanoTime() - start;
+
+			totalInterpreted += interpreted;
+			totalCompiled += compiled;
+			System.out.println(equation + ": interpreted " + (interpreted / ITERATIONS) + " ns, compiled "
+			                   + (compiled / ITERATIONS) + " ns");
+		}
+
+		System.out.println("all builtins: interpreted " + (totalInterpreted / 1000000L) + " ms, compiled "
+		                   + (totalCompiled / 1000000L) + " ms");
+	}
+}
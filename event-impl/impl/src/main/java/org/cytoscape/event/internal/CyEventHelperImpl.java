@@ -29,15 +29,19 @@ import org.cytoscape.event.CyPayloadEvent;
 import org.cytoscape.event.CyEventHelper;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.WeakHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,27 +52,101 @@ public class CyEventHelperImpl implements CyEventHelper {
 
 	private static final Object DUMMY = new Object();
 
+	/** Number of pending payloads that triggers a flush before the next scheduled one. */
+	public static final int DEFAULT_FLUSH_THRESHOLD = 5000;
+
+	/** Number of pending payloads at which the thread adding a payload waits for the flusher, for a while. */
+	public static final int DEFAULT_MAX_PENDING_PAYLOADS = 100000;
+
+	// How long a blocked producer waits before checking the backlog again.
+	private static final long BACK_PRESSURE_PAUSE_MILLIS = 10;
+
+	// How long a producer waits at most, since it may hold a lock that a listener needs.
+	private static final long MAX_BACK_PRESSURE_MILLIS = 500;
+
+	// Must be a power of two.
+	private static final int STRIPES = 16;
+
 	private final CyListenerAdapter normal;
-	private final Map<Object,Map<Class<?>,PayloadAccumulator<?,?,?>>> sourceAccMap;
+	private final Stripe[] stripes;
 	private final ScheduledExecutorService payloadEventMonitor;
+	private final Runnable thresholdFlusher;
 	private final Map<Object, Object> silencedSources;
-	private boolean havePayload;
+	private final int flushThreshold;
+	private final int maxPendingPayloads;
+
+	private final AtomicInteger pendingPayloads;
+	private final AtomicBoolean flushRequested;
+	private final AtomicBoolean draining;
+	// Set when a producer gave up waiting, until the flusher takes the next backlog.
+	private final AtomicBoolean stalled;
+	private final AtomicLong sourceSequence;
+	private final Object backlog;
+	// Set while the current thread delivers payload events.
+	private final ThreadLocal<Boolean> delivering;
+
+	private final AtomicLong payloadsQueued;
+	private final AtomicLong payloadEventsFired;
+	private final AtomicLong flushCount;
+	private final AtomicLong totalFlushNanos;
+	private final AtomicLong maxFlushNanos;
+	private final AtomicLong largestBatch;
 	
 	public CyEventHelperImpl(final CyListenerAdapter normal) {
+		this(normal, DEFAULT_FLUSH_THRESHOLD, DEFAULT_MAX_PENDING_PAYLOADS);
+	}
+
+	/**
+	 * @param normal the adapter that delivers events to the listeners
+	 * @param flushThreshold the number of pending payloads that schedules an immediate flush
+	 * @param maxPendingPayloads the number of pending payloads at which 
+	 * {@link #addEventPayload} waits a while for the flusher to take them
+	 */
+	public CyEventHelperImpl(final CyListenerAdapter normal, final int flushThreshold, final int maxPendingPayloads) {
+		if ( flushThreshold < 1 )
+			throw new IllegalArgumentException("flushThreshold must be positive: " + flushThreshold);
+		if ( maxPendingPayloads < flushThreshold )
+			throw new IllegalArgumentException("maxPendingPayloads must not be less than flushThreshold: " + maxPendingPayloads);
+
 		this.normal = normal;
-		sourceAccMap = new LinkedHashMap<Object,Map<Class<?>,PayloadAccumulator<?,?,?>>>();
+		this.flushThreshold = flushThreshold;
+		this.maxPendingPayloads = maxPendingPayloads;
+		stripes = new Stripe[STRIPES];
+		for ( int i = 0; i < STRIPES; i++ )
+			stripes[i] = new Stripe();
 		payloadEventMonitor = Executors.newSingleThreadScheduledExecutor();
 		silencedSources = new WeakHashMap<Object, Object>();
-		havePayload = false;
+
+		pendingPayloads = new AtomicInteger();
+		flushRequested = new AtomicBoolean();
+		draining = new AtomicBoolean();
+		stalled = new AtomicBoolean();
+		sourceSequence = new AtomicLong();
+		backlog = new Object();
+		delivering = new ThreadLocal<Boolean>();
+		payloadsQueued = new AtomicLong();
+		payloadEventsFired = new AtomicLong();
+		flushCount = new AtomicLong();
+		totalFlushNanos = new AtomicLong();
+		maxFlushNanos = new AtomicLong();
+		largestBatch = new AtomicLong();
 
 		// This thread just flushes any accumulated payload events.
 		// It is scheduled to run repeatedly at a fixed interval.
         final Runnable payloadChecker = new Runnable() {
             public void run() {
-                flushPayloadEvents();
+                drainPayloadEvents();
             }
         };
         payloadEventMonitor.scheduleAtFixedRate(payloadChecker, CyEventHelper.DEFAULT_PAYLOAD_INTERVAL_MILLIS, CyEventHelper.DEFAULT_PAYLOAD_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+		// Runs on the same thread when many payloads arrive between two scheduled flushes.
+		thresholdFlusher = new Runnable() {
+			public void run() {
+				flushRequested.set(false);
+				drainPayloadEvents();
+			}
+		};
 	}	
 
 	@Override 
@@ -112,19 +190,22 @@ public class CyEventHelperImpl implements CyEventHelper {
 		if ( silencedSources.containsKey(source))
 			return;
 
-		synchronized (this) {
-			Map<Class<?>,PayloadAccumulator<?,?,?>> cmap = sourceAccMap.get(source);
-			if ( cmap == null ) { 
-				cmap = new LinkedHashMap<Class<?>,PayloadAccumulator<?,?,?>>();
-				sourceAccMap.put(source,cmap);
+		final Stripe stripe = stripes[stripeIndex(source)];
+		final int pending;
+
+		synchronized (stripe) {
+			SourcePayloads sp = stripe.sources.get(source);
+			if ( sp == null ) { 
+				sp = new SourcePayloads(source, sourceSequence.getAndIncrement());
+				stripe.sources.put(source,sp);
 			}
 	
-			PayloadAccumulator<S,P,E> acc = (PayloadAccumulator<S,P,E>) cmap.get(eventType);
+			PayloadAccumulator<S,P,E> acc = (PayloadAccumulator<S,P,E>) sp.accumulators.get(eventType);
 	
 			if ( acc == null ) {
 				try {
 					acc = new PayloadAccumulator<S,P,E>(source, eventType);
-					cmap.put(eventType,acc);
+					sp.accumulators.put(eventType,acc);
 				} catch (NoSuchMethodException nsme) {
 					logger.warn("Unable to add payload to event, because of missing event constructor.", nsme);
 					return;
@@ -132,44 +213,194 @@ public class CyEventHelperImpl implements CyEventHelper {
 			}
 			
 			acc.addPayload(payload);
-			havePayload = true;
-		}		
+			stripe.payloads++;
+			// Counted while holding the stripe lock, so a flush that takes
+			// this payload never subtracts it before it has been added.
+			pending = pendingPayloads.incrementAndGet();
+		}
+
+		payloadsQueued.incrementAndGet();
+
+		if ( pending >= flushThreshold )
+			requestFlush();
+		if ( pending >= maxPendingPayloads )
+			applyBackPressure(source);
+	}
+
+	private void requestFlush() {
+		if ( !flushRequested.compareAndSet(false, true) )
+			return;
+
+		try {
+			payloadEventMonitor.execute(thresholdFlusher);
+		} catch (RejectedExecutionException ree) {
+			flushRequested.set(false);
+		}
+	}
+
+	/**
+	 * Lets a producer that found the queue full wait a while for the flusher
+	 * thread to take the backlog, so that producers can't easily outrun the
+	 * listeners.  The events are still delivered on the flusher thread.
+	 * <p>
+	 * The producer may hold a lock that a listener needs, so the wait is
+	 * bounded.  If the flusher doesn't take the backlog in time, the payloads
+	 * are simply delivered later and no producer waits again until it does.
+	 * Producers holding the lock of the event source, as CyTableImpl does
+	 * while it sets values, never wait, and neither do listeners that add
+	 * payloads while events are delivered on their thread.
+	 */
+	private void applyBackPressure(final Object source) {
+		if ( delivering.get() != null )
+			return;
+
+		// Without a flusher, as after cleanup(), nothing else would deliver the backlog.
+		if ( payloadEventMonitor.isShutdown() ) {
+			drainPayloadEvents();
+			return;
+		}
+
+		requestFlush();
+		if ( stalled.get() || Thread.holdsLock(source) )
+			return;
+
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_BACK_PRESSURE_MILLIS);
+		try {
+			synchronized (backlog) {
+				while ( pendingPayloads.get() >= maxPendingPayloads && !stalled.get() ) {
+					final long remaining = deadline - System.nanoTime();
+					if ( remaining <= 0 ) {
+						stalled.set(true);
+						logger.warn("Payload events are not delivered in time, " + pendingPayloads.get() + " are pending");
+						return;
+					}
+					requestFlush();
+					backlog.wait(Math.max(1, Math.min(BACK_PRESSURE_PAUSE_MILLIS, TimeUnit.NANOSECONDS.toMillis(remaining))));
+				}
+			}
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Flushes unless another background, threshold or back-pressure flush is 
+	 * running, so that those never deliver events of the same source concurrently.
+	 * Returns false if the flush was left to the other thread.
+	 */
+	private boolean drainPayloadEvents() {
+		if ( !draining.compareAndSet(false, true) )
+			return false;
+
+		try {
+			flushPayloadEvents();
+		} finally {
+			draining.set(false);
+		}
+		return true;
 	}
 
 	public void flushPayloadEvents() {
-		List<CyPayloadEvent<?,?>> flushList;
-		
-		synchronized (this) {
+		if ( pendingPayloads.get() == 0 )
+			return;
 
-			if ( !havePayload )
-				return;
-			
-			flushList = new ArrayList<CyPayloadEvent<?,?>>();
-			havePayload = false;
-			
-			Iterator<Entry<Object, Map<Class<?>, PayloadAccumulator<?, ?, ?>>>> iterator = sourceAccMap.entrySet().iterator();
-			while (iterator.hasNext()) {
-				Entry<Object, Map<Class<?>, PayloadAccumulator<?, ?, ?>>> entry = iterator.next();
-				Object source = entry.getKey();
-				for ( PayloadAccumulator<?,?,?> acc : entry.getValue().values() ) {
-					try {
-						CyPayloadEvent<?,?> event = acc.newEventInstance( source );
-						if ( event != null ) {
-							flushList.add(event);
-						}
-					} catch (Exception ie) {
-						logger.warn("Couldn't instantiate event for source: " + source, ie);
+		final long begin = System.nanoTime();
+		final List<SourcePayloads> taken = new ArrayList<SourcePayloads>();
+		int payloads = 0;
+
+		for ( final Stripe stripe : stripes ) {
+			synchronized (stripe) {
+				if ( stripe.payloads == 0 )
+					continue;
+				taken.addAll(stripe.sources.values());
+				payloads += stripe.payloads;
+				pendingPayloads.addAndGet(-stripe.payloads);
+				stripe.sources = new LinkedHashMap<Object,SourcePayloads>();
+				stripe.payloads = 0;
+			}
+		}
+
+		if ( taken.isEmpty() )
+			return;
+
+		// Producers waiting in applyBackPressure() can go on, and may wait again.
+		synchronized (backlog) {
+			stalled.set(false);
+			backlog.notifyAll();
+		}
+
+		// Fire in the order in which the sources first queued a payload,
+		// as a single map would have kept them.
+		Collections.sort(taken, SEQUENCE_ORDER);
+
+		final List<CyPayloadEvent<?,?>> flushList = new ArrayList<CyPayloadEvent<?,?>>(taken.size());
+		for ( final SourcePayloads sp : taken ) {
+			for ( PayloadAccumulator<?,?,?> acc : sp.accumulators.values() ) {
+				try {
+					CyPayloadEvent<?,?> event = acc.newEventInstance( sp.source );
+					if ( event != null ) {
+						flushList.add(event);
 					}
+				} catch (Exception ie) {
+					logger.warn("Couldn't instantiate event for source: " + sp.source, ie);
 				}
-				iterator.remove();
 			}
-			
 		}
 		
-		// Actually fire the events outside of the synchronized block.
-		for (CyPayloadEvent<?,?> event : flushList) {
-			normal.fireEvent(event);
-		}	
+		// Actually fire the events outside of any lock.
+		final boolean nested = delivering.get() != null;
+		delivering.set(Boolean.TRUE);
+		try {
+			for (CyPayloadEvent<?,?> event : flushList) {
+				normal.fireEvent(event);
+			}
+		} finally {
+			if ( !nested )
+				delivering.remove();
+		}
+
+		final long duration = System.nanoTime() - begin;
+		payloadEventsFired.addAndGet(flushList.size());
+		flushCount.incrementAndGet();
+		totalFlushNanos.addAndGet(duration);
+		updateMax(maxFlushNanos, duration);
+		updateMax(largestBatch, payloads);
+	}
+
+	/** Returns the total number of payloads added since this helper was created. */
+	public long getPayloadsQueued() {
+		return payloadsQueued.get();
+	}
+
+	/** Returns the number of payloads waiting for the next flush. */
+	public int getPendingPayloadCount() {
+		return pendingPayloads.get();
+	}
+
+	/** Returns the number of payload events fired by all flushes. */
+	public long getPayloadEventsFired() {
+		return payloadEventsFired.get();
+	}
+
+	/** Returns the number of flushes that found at least one payload. */
+	public long getFlushCount() {
+		return flushCount.get();
+	}
+
+	/** Returns the mean time, in nanoseconds, to build and fire the events of one flush. */
+	public long getAverageFlushLatencyNanos() {
+		final long count = flushCount.get();
+		return count == 0 ? 0 : totalFlushNanos.get() / count;
+	}
+
+	/** Returns the longest time, in nanoseconds, to build and fire the events of one flush. */
+	public long getMaxFlushLatencyNanos() {
+		return maxFlushNanos.get();
+	}
+
+	/** Returns the largest number of payloads delivered by a single flush. */
+	public long getLargestBatch() {
+		return largestBatch.get();
 	}
 	
 	// Used only for unit testing to prevent the confusion of multiple 
@@ -177,5 +408,38 @@ public class CyEventHelperImpl implements CyEventHelper {
 	public void cleanup() {
 		payloadEventMonitor.shutdown();
 	}
-}
 
+	private static int stripeIndex(final Object source) {
+		final int h = source.hashCode();
+		return (h ^ (h >>> 16)) & (STRIPES - 1);
+	}
+
+	private static void updateMax(final AtomicLong max, final long value) {
+		long current = max.get();
+		while ( value > current && !max.compareAndSet(current, value) )
+			current = max.get();
+	}
+
+	private static final Comparator<SourcePayloads> SEQUENCE_ORDER = new Comparator<SourcePayloads>() {
+		public int compare(SourcePayloads a, SourcePayloads b) {
+			return a.sequence < b.sequence ? -1 : (a.sequence > b.sequence ? 1 : 0);
+		}
+	};
+
+	/** The pending payloads of the sources that hash to the same stripe, guarded by the stripe itself. */
+	private static final class Stripe {
+		Map<Object,SourcePayloads> sources = new LinkedHashMap<Object,SourcePayloads>();
+		int payloads;
+	}
+
+	private static final class SourcePayloads {
+		final Object source;
+		final long sequence;
+		final Map<Class<?>,PayloadAccumulator<?,?,?>> accumulators = new LinkedHashMap<Class<?>,PayloadAccumulator<?,?,?>>();
+
+		SourcePayloads(final Object source, final long sequence) {
+			this.source = source;
+			this.sequence = sequence;
+		}
+	}
+}
@@ -27,10 +27,10 @@ package org.cytoscape.event.internal;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.Arrays;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.cytoscape.event.CyEvent;
 import org.osgi.framework.BundleContext;
@@ -44,11 +44,10 @@ import org.slf4j.LoggerFactory;
  */
 public class CyListenerAdapter {
 	private static final Logger logger = LoggerFactory.getLogger(CyListenerAdapter.class);
-	private static final ServiceComparator serviceComparator = new ServiceComparator(); 
 
 	private static final Object DUMMY = new Object();
 	
-	private final Map<Class<?>,ServiceTracker> serviceTrackers; 
+	private final ConcurrentMap<Class<?>,ListenerDispatcher> dispatchers; 
 	private final BundleContext bc;
 	private final Map<Object, Object> silencedSources;
 	private final StringBuilder traceString; 
@@ -62,7 +61,7 @@ public class CyListenerAdapter {
 	 */
 	public CyListenerAdapter(BundleContext bc) {
 		this.bc = bc;
-		serviceTrackers = new HashMap<Class<?>,ServiceTracker>();
+		dispatchers = new ConcurrentHashMap<Class<?>,ListenerDispatcher>();
 		silencedSources = new WeakHashMap<Object, Object>();
 
 		// used only for printing a coherent event trace
@@ -87,7 +86,8 @@ public class CyListenerAdapter {
 		
 		final Class<?> listenerClass = event.getListenerClass();
 		
-		final Object[] listeners = getListeners(listenerClass);
+		final ListenerDispatcher dispatcher = getDispatcher(listenerClass);
+		final Object[] listeners = dispatcher.getListeners();
 		if ( listeners == null ) 
 			return;
 	
@@ -101,7 +101,7 @@ public class CyListenerAdapter {
 		}
 		
 		try {
-			final Method method = listenerClass.getMethod("handleEvent", event.getClass());
+			final Method method = dispatcher.getHandler(event.getClass());
 
 			for (final Object listener : listeners) {
 				lastListener = listener;
@@ -113,7 +113,7 @@ public class CyListenerAdapter {
 					begin = System.currentTimeMillis();
 				}
 
-				method.invoke(listenerClass.cast(listener), event);
+				method.invoke(listener, event);
 
 				if ( printEventTrace ) {
 					final long end = System.currentTimeMillis();
@@ -138,22 +138,22 @@ public class CyListenerAdapter {
 		}
 	}
 
-	private Object[] getListeners(Class<?> listenerClass) {
-		ServiceTracker tracker = serviceTrackers.get(listenerClass);
-		if ( tracker == null ) {
+	private ListenerDispatcher getDispatcher(final Class<?> listenerClass) {
+		ListenerDispatcher dispatcher = dispatchers.get(listenerClass);
+		if ( dispatcher == null ) {
 			//logger.debug("added new service tracker for " + listenerClass);
-			tracker = new ServiceTracker(bc, listenerClass.getName(), null);
+			final ServiceTracker tracker = new ServiceTracker(bc, listenerClass.getName(), null);
 			tracker.open();
-			serviceTrackers.put( listenerClass, tracker );
-		}
-
-		Object[] services = tracker.getServices();
+			dispatcher = new ListenerDispatcher(listenerClass, tracker);
 
-		if ( services == null )
-			return null;
+			final ListenerDispatcher existing = dispatchers.putIfAbsent(listenerClass, dispatcher);
+			if ( existing != null ) {
+				dispatcher.close();
+				dispatcher = existing;
+			}
+		}
 
-		Arrays.sort(services, serviceComparator);
-		return services; 
+		return dispatcher;
 	}
 
 	void silenceEventSource(Object eventSource) {
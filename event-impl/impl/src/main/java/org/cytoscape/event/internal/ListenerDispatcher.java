@@ -0,0 +1,113 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.osgi.util.tracker.ServiceTracker;
+
+/**
+ * The dispatch table for a single listener interface.  It caches the sorted
+ * listener services until the service tracker reports a change and resolves
+ * each "handleEvent" method once per event class, so firing an event neither
+ * copies and sorts the services nor looks up the method again.
+ */
+final class ListenerDispatcher {
+	private static final ServiceComparator serviceComparator = new ServiceComparator();
+
+	private final Class<?> listenerClass;
+	private final ServiceTracker tracker;
+	private final ConcurrentMap<Class<?>, Method> handlers;
+	private volatile Snapshot snapshot;
+
+	ListenerDispatcher(final Class<?> listenerClass, final ServiceTracker tracker) {
+		this.listenerClass = listenerClass;
+		this.tracker = tracker;
+		this.handlers = new ConcurrentHashMap<Class<?>, Method>();
+	}
+
+	/**
+	 * Returns the listeners in a consistent order, or null if there are none.
+	 * The returned array is shared and must not be modified.
+	 */
+	Object[] getListeners() {
+		// Read the count before the services, so that a concurrent change
+		// leaves a stale count behind and the next call rebuilds the snapshot.
+		final int trackingCount = tracker.getTrackingCount();
+		final Snapshot current = snapshot;
+
+		if (current != null && current.trackingCount == trackingCount)
+			return current.listeners;
+
+		final Object[] services = tracker.getServices();
+		if (services != null)
+			Arrays.sort(services, serviceComparator);
+
+		snapshot = new Snapshot(trackingCount, services);
+
+		return services;
+	}
+
+	/**
+	 * Returns the "handleEvent" method of the listener interface that accepts
+	 * the given event class.
+	 */
+	Method getHandler(final Class<?> eventClass) throws NoSuchMethodException {
+		Method handler = handlers.get(eventClass);
+
+		if (handler == null) {
+			handler = listenerClass.getMethod("handleEvent", eventClass);
+
+			// Skips the access check that Method.invoke would otherwise repeat for every listener.
+			try {
+				handler.setAccessible(true);
+			} catch (SecurityException e) {
+				// keep the checked invocation
+			}
+
+			handlers.put(eventClass, handler);
+		}
+
+		return handler;
+	}
+
+	void close() {
+		tracker.close();
+	}
+
+	private static final class Snapshot {
+		final int trackingCount;
+		final Object[] listeners;
+
+		Snapshot(final int trackingCount, final Object[] listeners) {
+			this.trackingCount = trackingCount;
+			this.listeners = listeners;
+		}
+	}
+}
@@ -27,19 +27,46 @@ package org.cytoscape.event.internal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import org.cytoscape.event.CyPayloadEvent;
 
+/**
+ * Collects the payloads of one event type for one source.  Instances are not
+ * thread safe: CyEventHelperImpl only touches them while holding the lock of
+ * the stripe that owns them, or after removing them from that stripe.
+ */
 class PayloadAccumulator<S,P,E extends CyPayloadEvent<S,P>> {
 
+	// Accumulators are discarded on every flush, so the reflective constructor
+	// lookup is done once per event type rather than once per accumulator.
+	private static final ConcurrentMap<Class<?>,Constructor<?>> constructors = 
+		new ConcurrentHashMap<Class<?>,Constructor<?>>();
+
 	private List<P> payloadList; 
 	private final Constructor<E> constructor;
-	private Class<?> sourceClass;
+	private final Class<?> sourceClass;
 
+	@SuppressWarnings("unchecked")
 	PayloadAccumulator(S source, Class<E> eventType) throws NoSuchMethodException {
 		//System.out.println(" payload accumulator: source.getClass():  " + source + "   " + source.getClass());
 
+		Constructor<E> cons = (Constructor<E>) constructors.get(eventType);
+		if ( cons == null ) {
+			cons = findConstructor(eventType);
+			constructors.put(eventType, cons);
+		}
+
+		constructor = cons;
+		sourceClass = cons.getParameterTypes()[0];
+		payloadList = new ArrayList<P>();
+	}
+
+	private static <E> Constructor<E> findConstructor(Class<E> eventType) throws NoSuchMethodException {
+		Class<?> sourceClass = null;
+
 		for ( Constructor<?> cons : eventType.getConstructors() ) {
 			Class<?>[] params = cons.getParameterTypes();
 			if ( params.length == 2 && params[1] == Collection.class ) {
@@ -50,8 +77,7 @@ class PayloadAccumulator<S,P,E extends CyPayloadEvent<S,P>> {
 		if ( sourceClass == null )
 			throw new IllegalArgumentException("no valid source class found.");
 			
-		constructor = eventType.getConstructor(sourceClass, Collection.class);
-		payloadList = new ArrayList<P>();
+		return eventType.getConstructor(sourceClass, Collection.class);
 	}
 
 	E newEventInstance(Object source) throws InstantiationException, IllegalAccessException, InvocationTargetException, ClassCastException {
@@ -66,12 +92,12 @@ class PayloadAccumulator<S,P,E extends CyPayloadEvent<S,P>> {
 		return constructor.newInstance( sourceClass.cast(source), coll );			
 	}
 
-	synchronized void addPayload(P t) {
+	void addPayload(P t) {
 		if ( t != null ) 
 			payloadList.add(t);
 	}
 
-	synchronized private Collection<P> getPayloadCollection() {
+	private Collection<P> getPayloadCollection() {
 		if ( payloadList.isEmpty() )
 			return null;
 
@@ -0,0 +1,140 @@
+package org.cytoscape.event;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cytoscape.event.internal.CyListenerAdapter;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceReference;
+import org.springframework.osgi.mock.MockBundleContext;
+import org.springframework.osgi.mock.MockServiceReference;
+
+
+public class CyListenerAdapterTest {
+
+	public static interface CountingListener extends CyListener {
+		void handleEvent(CountingEvent e);
+	}
+
+	public static class CountingEvent extends AbstractCyEvent<Object> {
+		public CountingEvent(Object source) {
+			super(source, CountingListener.class);
+		}
+	}
+
+	static class CountingListenerImpl implements CountingListener {
+		int calls;
+
+		public void handleEvent(CountingEvent e) {
+			calls++;
+		}
+	}
+
+	private List<ServiceReference> refs;
+	private List<Object> services;
+	private MockBundleContext bc;
+	private CyListenerAdapter adapter;
+
+	@Before
+	public void setUp() {
+		refs = new ArrayList<ServiceReference>();
+		services = new ArrayList<Object>();
+
+		bc = new MockBundleContext() {
+				public ServiceReference[] getServiceReferences(String clazz, String filter) {
+					if ( !clazz.equals(CountingListener.class.getName()) || refs.isEmpty() )
+						return null;
+					return refs.toArray(new ServiceReference[refs.size()]);
+				}
+
+				public Object getService(ServiceReference ref) {
+					final int i = refs.indexOf(ref);
+					return i < 0 ? null : services.get(i);
+				}
+			};
+
+		adapter = new CyListenerAdapter(bc);
+	}
+
+	@Test
+	public void testRegisteredListenersAreNotified() {
+		final CountingListenerImpl first = register();
+		adapter.fireEvent(new CountingEvent(this));
+		assertEquals(1, first.calls);
+
+		final CountingListenerImpl second = register();
+		adapter.fireEvent(new CountingEvent(this));
+		assertEquals(2, first.calls);
+		assertEquals(1, second.calls);
+	}
+
+	@Test
+	public void testUnregisteredListenersAreNotNotified() {
+		final CountingListenerImpl first = register();
+		final CountingListenerImpl second = register();
+		adapter.fireEvent(new CountingEvent(this));
+
+		notifyTrackers(ServiceEvent.UNREGISTERING, refs.get(1));
+		adapter.fireEvent(new CountingEvent(this));
+
+		assertEquals(2, first.calls);
+		assertEquals(1, second.calls);
+	}
+
+	@Test
+	public void testRepeatedEventsReachEveryListener() {
+		final CountingListenerImpl first = register();
+		final CountingListenerImpl second = register();
+
+		for (int i = 0; i < 100; i++)
+			adapter.fireEvent(new CountingEvent(this));
+
+		assertEquals(100, first.calls);
+		assertEquals(100, second.calls);
+	}
+
+	private CountingListenerImpl register() {
+		final CountingListenerImpl listener = new CountingListenerImpl();
+		final ServiceReference ref = new MockServiceReference(new String[] { CountingListener.class.getName() });
+		refs.add(ref);
+		services.add(listener);
+		notifyTrackers(ServiceEvent.REGISTERED, ref);
+		return listener;
+	}
+
+	private void notifyTrackers(final int type, final ServiceReference ref) {
+		final ServiceEvent event = new ServiceEvent(type, ref);
+		for (Object listener : bc.getServiceListeners())
+			((ServiceListener) listener).serviceChanged(event);
+	}
+}
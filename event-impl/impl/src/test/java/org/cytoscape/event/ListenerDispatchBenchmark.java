@@ -0,0 +1,116 @@
+package org.cytoscape.event;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cytoscape.event.internal.CyListenerAdapter;
+import org.osgi.framework.ServiceReference;
+import org.springframework.osgi.mock.MockBundleContext;
+import org.springframework.osgi.mock.MockServiceReference;
+
+
+/**
+ * Measures how many events per second CyListenerAdapter dispatches to 1, 10
+ * and 100 registered listeners.  Run it with the test classpath, e.g.
+ * "mvn exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.cytoscape.event.ListenerDispatchBenchmark".
+ */
+public class ListenerDispatchBenchmark {
+
+	private static final int WARMUP_EVENTS = 200000;
+	private static final int MEASURED_EVENTS = 1000000;
+	private static final int ROUNDS = 5;
+
+	public static interface BenchListener extends CyListener {
+		void handleEvent(BenchEvent e);
+	}
+
+	public static class BenchEvent extends AbstractCyEvent<Object> {
+		public BenchEvent(Object source) {
+			super(source, BenchListener.class);
+		}
+	}
+
+	static class BenchListenerImpl implements BenchListener {
+		long calls;
+
+		public void handleEvent(BenchEvent e) {
+			calls++;
+		}
+	}
+
+	public static void main(String[] args) {
+		for (int listeners : new int[] { 1, 10, 100 }) {
+			final int events = MEASURED_EVENTS / listeners;
+			final CyListenerAdapter adapter = createAdapter(listeners);
+			final BenchEvent event = new BenchEvent(new Object());
+
+			fire(adapter, event, WARMUP_EVENTS / listeners);
+
+			double best = 0.0;
+			for (int round = 0; round < ROUNDS; round++) {
+				final long begin = System.nanoTime();
+				fire(adapter, event, events);
+				final long duration = System.nanoTime() - begin;
+				best = Math.max(best, events / (duration / 1.0e9));
+			}
+
+			System.out.printf("%3d listeners: %,12.0f events/s %,14.0f handleEvent calls/s%n",
+			                  listeners, best, best * listeners);
+		}
+	}
+
+	private static void fire(final CyListenerAdapter adapter, final BenchEvent event, final int count) {
+		for (int i = 0; i < count; i++)
+			adapter.fireEvent(event);
+	}
+
+	private static CyListenerAdapter createAdapter(final int count) {
+		final List<ServiceReference> refs = new ArrayList<ServiceReference>();
+		final List<Object> services = new ArrayList<Object>();
+
+		for (int i = 0; i < count; i++) {
+			refs.add(new MockServiceReference(new String[] { BenchListener.class.getName() }));
+			services.add(new BenchListenerImpl());
+		}
+
+		final MockBundleContext bc = new MockBundleContext() {
+				public ServiceReference[] getServiceReferences(String clazz, String filter) {
+					if ( !clazz.equals(BenchListener.class.getName()) )
+						return null;
+					return refs.toArray(new ServiceReference[refs.size()]);
+				}
+
+				public Object getService(ServiceReference ref) {
+					return services.get(refs.indexOf(ref));
+				}
+			};
+
+		return new CyListenerAdapter(bc);
+	}
+}
@@ -0,0 +1,257 @@
+package org.cytoscape.event;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cytoscape.event.internal.CyEventHelperImpl;
+import org.cytoscape.event.internal.CyListenerAdapter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.ServiceReference;
+import org.springframework.osgi.mock.MockBundleContext;
+import org.springframework.osgi.mock.MockServiceReference;
+
+
+public class PayloadFlushTest {
+
+	public static interface CountingPayloadListener extends CyListener {
+		void handleEvent(CountingPayloadEvent e);
+	}
+
+	public static class CountingPayloadEvent extends AbstractCyPayloadEvent<Object,Integer> {
+		public CountingPayloadEvent(Object source, Collection<Integer> payload) {
+			super(source, CountingPayloadListener.class, payload);
+		}
+	}
+
+	private final AtomicInteger payloadsReceived = new AtomicInteger();
+	private final AtomicInteger eventsReceived = new AtomicInteger();
+	private final Set<Thread> deliveryThreads = Collections.newSetFromMap(new ConcurrentHashMap<Thread,Boolean>());
+	private volatile Runnable onDelivery;
+	private CyListenerAdapter adapter;
+	private CyEventHelperImpl helper;
+
+	@Before
+	public void setUp() {
+		final ServiceReference ref = new MockServiceReference(new String[] { CountingPayloadListener.class.getName() });
+		final CountingPayloadListener listener = new CountingPayloadListener() {
+				public void handleEvent(CountingPayloadEvent e) {
+					deliveryThreads.add(Thread.currentThread());
+					final Runnable r = onDelivery;
+					if ( r != null )
+						r.run();
+					eventsReceived.incrementAndGet();
+					payloadsReceived.addAndGet(e.getPayloadCollection().size());
+				}
+			};
+
+		final MockBundleContext bc = new MockBundleContext() {
+				public ServiceReference[] getServiceReferences(String clazz, String filter) {
+					if ( clazz.equals(CountingPayloadListener.class.getName()) )
+						return new ServiceReference[] { ref };
+					return null;
+				}
+
+				public Object getService(ServiceReference r) {
+					return r == ref ? listener : null;
+				}
+			};
+
+		adapter = new CyListenerAdapter(bc);
+	}
+
+	@After
+	public void cleanup() {
+		if ( helper != null )
+			helper.cleanup();
+	}
+
+	@Test
+	public void testProducerFlushesAtPendingLimit() {
+		helper = new CyEventHelperImpl(adapter, 5, 5);
+		// stop the scheduled flushes so that only the producer flushes
+		helper.cleanup();
+		final Object source = new Object();
+
+		for (int i = 0; i < 5; i++)
+			helper.addEventPayload(source, Integer.valueOf(i), CountingPayloadEvent.class);
+
+		assertEquals(0, helper.getPendingPayloadCount());
+		assertEquals(1, eventsReceived.get());
+		assertEquals(5, payloadsReceived.get());
+		assertEquals(5, helper.getLargestBatch());
+		assertEquals(1, helper.getPayloadEventsFired());
+	}
+
+	@Test
+	public void testProducerWaitsForFlusher() throws InterruptedException {
+		helper = new CyEventHelperImpl(adapter, 5, 5);
+		final Object source = new Object();
+
+		for (int i = 0; i < 50; i++) {
+			helper.addEventPayload(source, Integer.valueOf(i), CountingPayloadEvent.class);
+			assertTrue(helper.getPendingPayloadCount() < 5);
+		}
+
+		awaitPayloads(50);
+		assertEquals(50, payloadsReceived.get());
+		assertFalse(deliveryThreads.contains(Thread.currentThread()));
+	}
+
+	@Test
+	public void testListenerAddingPayloadsIsNotBlocked() throws InterruptedException {
+		helper = new CyEventHelperImpl(adapter, 5, 5);
+		final Object a = new Object();
+		final Object b = new Object();
+		final AtomicBoolean echoed = new AtomicBoolean();
+		onDelivery = new Runnable() {
+				public void run() {
+					if ( echoed.compareAndSet(false, true) ) {
+						for (int i = 0; i < 20; i++)
+							helper.addEventPayload(b, Integer.valueOf(i), CountingPayloadEvent.class);
+					}
+				}
+			};
+
+		for (int i = 0; i < 5; i++)
+			helper.addEventPayload(a, Integer.valueOf(i), CountingPayloadEvent.class);
+
+		awaitPayloads(25);
+		assertEquals(25, payloadsReceived.get());
+		assertFalse(deliveryThreads.contains(Thread.currentThread()));
+	}
+
+	@Test(timeout = 10000)
+	public void testProducerHoldingSourceLockDoesNotWait() throws InterruptedException {
+		helper = new CyEventHelperImpl(adapter, 5, 5);
+		final Object source = new Object();
+		// the listener reads the source, as listeners of tables do
+		onDelivery = new Runnable() {
+				public void run() {
+					synchronized (source) {
+					}
+				}
+			};
+
+		synchronized (source) {
+			for (int i = 0; i < 50; i++)
+				helper.addEventPayload(source, Integer.valueOf(i), CountingPayloadEvent.class);
+		}
+
+		awaitPayloads(50);
+		assertEquals(50, payloadsReceived.get());
+	}
+
+	@Test(timeout = 10000)
+	public void testProducerHoldingLockListenerNeedsIsNotStuck() throws InterruptedException {
+		helper = new CyEventHelperImpl(adapter, 5, 5);
+		final Object source = new Object();
+		final Object lock = new Object();
+		onDelivery = new Runnable() {
+				public void run() {
+					synchronized (lock) {
+					}
+				}
+			};
+
+		synchronized (lock) {
+			for (int i = 0; i < 50; i++)
+				helper.addEventPayload(source, Integer.valueOf(i), CountingPayloadEvent.class);
+		}
+
+		awaitPayloads(50);
+		assertEquals(50, payloadsReceived.get());
+		assertFalse(deliveryThreads.contains(Thread.currentThread()));
+	}
+
+	@Test
+	public void testOneEventPerSourcePerFlush() {
+		helper = new CyEventHelperImpl(adapter);
+		helper.cleanup();
+		final Object a = new Object();
+		final Object b = new Object();
+
+		for (int i = 0; i < 10; i++) {
+			helper.addEventPayload(a, Integer.valueOf(i), CountingPayloadEvent.class);
+			helper.addEventPayload(b, Integer.valueOf(i), CountingPayloadEvent.class);
+		}
+		helper.flushPayloadEvents();
+
+		assertEquals(20, helper.getPayloadsQueued());
+		assertEquals(2, eventsReceived.get());
+		assertEquals(20, payloadsReceived.get());
+	}
+
+	@Test
+	public void testConcurrentProducersLoseNoPayloads() throws InterruptedException {
+		helper = new CyEventHelperImpl(adapter, 100, 1000);
+		final int threads = 8;
+		final int perThread = 10000;
+		final Thread[] producers = new Thread[threads];
+
+		for (int t = 0; t < threads; t++) {
+			final Object source = new Object();
+			producers[t] = new Thread() {
+				public void run() {
+					for (int i = 0; i < perThread; i++)
+						helper.addEventPayload(source, Integer.valueOf(i), CountingPayloadEvent.class);
+				}
+			};
+			producers[t].start();
+		}
+		for (Thread producer : producers)
+			producer.join();
+
+		helper.flushPayloadEvents();
+
+		// a flush on the scheduler thread may still be delivering its events
+		final long deadline = System.currentTimeMillis() + 5000;
+		while ( payloadsReceived.get() < threads * perThread && System.currentTimeMillis() < deadline )
+			Thread.sleep(10);
+
+		assertEquals(threads * perThread, helper.getPayloadsQueued());
+		assertEquals(threads * perThread, payloadsReceived.get());
+		assertEquals(0, helper.getPendingPayloadCount());
+		assertTrue(helper.getLargestBatch() <= threads * perThread);
+	}
+
+	private void awaitPayloads(final int count) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 5000;
+		while ( payloadsReceived.get() < count && System.currentTimeMillis() < deadline )
+			Thread.sleep(10);
+	}
+}
@@ -38,6 +38,7 @@ import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNetworkFactory;
 import org.cytoscape.model.CyNetworkManager;
 import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
 import org.cytoscape.model.subnetwork.CyRootNetworkManager;
 import org.cytoscape.model.subnetwork.CySubNetwork;
 import org.cytoscape.view.layout.CyLayoutAlgorithm;
@@ -166,35 +167,36 @@ public class SIFNetworkReader extends AbstractNetworkReader {
 	}
 
 	private void createEdge(final Interaction itr, final CySubNetwork subNetwork) {
-		CyNode sourceNode = nMap.get(itr.getSource());
-		if (sourceNode == null) {
-			sourceNode = subNetwork.addNode();
-			subNetwork.getRow(sourceNode).set(CyNetwork.NAME, itr.getSource());
-			nMap.put(itr.getSource(), subNetwork.getRootNetwork().getNode(sourceNode.getSUID()));
-		}
+		final CyNode sourceNode = getNode(itr.getSource(), subNetwork);
 
 		for (final String target : itr.getTargets()) {
-			CyNode targetNode = nMap.get(target);
-			if (targetNode == null) {
-				targetNode = subNetwork.addNode();
-				subNetwork.getRow(targetNode).set(CyNetwork.NAME, target);
-				nMap.put(target, subNetwork.getRootNetwork().getNode(targetNode.getSUID()));
-			}
-			
-			// Add the sourceNode and targetNode to subNetwork
-			if (!subNetwork.containsNode(sourceNode)){
-				subNetwork.addNode(sourceNode);				
-			}
-			if (!subNetwork.containsNode(targetNode)){
-				subNetwork.addNode(targetNode);				
-			}
-			
+			final CyNode targetNode = getNode(target, subNetwork);
 			final CyEdge edge = subNetwork.addEdge(sourceNode, targetNode, true);
-			subNetwork.getRow(edge).set(CyNetwork.NAME, getEdgeName(itr,target));
-			subNetwork.getRow(edge).set(CyEdge.INTERACTION, itr.getType());
+			final CyRow edgeRow = subNetwork.getRow(edge);
+			edgeRow.set(CyNetwork.NAME, getEdgeName(itr,target));
+			edgeRow.set(CyEdge.INTERACTION, itr.getType());
 		}
 	}
 
+	/**
+	 * Returns the node with the given name, creating it or adding it from
+	 * the collection to the subnetwork if necessary.
+	 */
+	private CyNode getNode(final String name, final CySubNetwork subNetwork) {
+		CyNode node = nMap.get(name);
+		if (node == null) {
+			// Subnetwork nodes are the root network's node objects, no need to look them up.
+			node = subNetwork.addNode();
+			subNetwork.getRow(node).set(CyNetwork.NAME, name);
+			nMap.put(name, node);
+		} else if (!subNetwork.containsNode(node)) {
+			// Node of another network of the same collection
+			subNetwork.addNode(node);
+		}
+
+		return node;
+	}
+
 	private String getEdgeName(Interaction itr, String target) {
 		edgeNameBuilder.delete(0,edgeNameBuilder.length());
 		edgeNameBuilder.append(itr.getSource());
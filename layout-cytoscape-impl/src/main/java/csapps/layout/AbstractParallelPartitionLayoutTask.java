@@ -0,0 +1,343 @@
+package csapps.layout;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.cytoscape.model.CyNode;
+import org.cytoscape.view.layout.AbstractPartitionLayoutTask;
+import org.cytoscape.view.layout.LayoutNode;
+import org.cytoscape.view.layout.LayoutPartition;
+import org.cytoscape.view.layout.PartitionUtil;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.View;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.undo.UndoSupport;
+
+
+/**
+ * A partition layout that lays out the partitions of a network at the same
+ * time.  Every partition with more than one node is laid out by its own copy
+ * of the task, created by {@link #createPartitionTask()}, on a thread pool,
+ * largest partitions first.  When all of them are done, the partitions are
+ * moved next to each other on the calling thread, in the same order and to
+ * the same places as AbstractPartitionLayoutTask would put them, so the
+ * result does not depend on the order in which the partitions finish.<p>
+ * Single partition layouts, layouts of selected nodes and layouts on a
+ * single processor are done by AbstractPartitionLayoutTask, one partition
+ * after another.
+ */
+public abstract class AbstractParallelPartitionLayoutTask extends AbstractPartitionLayoutTask {
+
+	/**
+	 * The space between partitions, as in AbstractPartitionLayoutTask
+	 */
+	private static final double PARTITION_SPACING = 100.0;
+
+	protected final String displayName;
+	protected final UndoSupport undo;
+
+	private final boolean singlePartition;
+	private final boolean parallelPartitions;
+
+	/**
+	 * The copies of this task that lay out the partitions, so that they
+	 * can be cancelled along with it
+	 */
+	private final List<AbstractParallelPartitionLayoutTask> partitionTasks =
+		new ArrayList<AbstractParallelPartitionLayoutTask>();
+
+	/**
+	 * The number of nodes in the partitions laid out so far, and the sum of
+	 * the node counts of the running partitions weighted by their progress
+	 */
+	private final Object progressLock = new Object();
+	private int completedNodes;
+	private double runningNodes;
+	private int completedPartitions;
+
+	public AbstractParallelPartitionLayoutTask(final String displayName, final boolean singlePartition,
+	                                           final boolean parallelPartitions, CyNetworkView networkView,
+	                                           Set<View<CyNode>> nodesToLayOut, String attrName, UndoSupport undo) {
+		super(displayName, singlePartition, networkView, nodesToLayOut, attrName, undo);
+		this.displayName = displayName;
+		this.undo = undo;
+		this.singlePartition = singlePartition;
+		this.parallelPartitions = parallelPartitions;
+	}
+
+	/**
+	 * Returns a new task with the same settings as this one, whose
+	 * layoutPartition() will be called for one partition while other
+	 * partitions are laid out by other copies.  The copy must not share
+	 * any mutable state with this task or with the other copies.
+	 */
+	protected abstract AbstractParallelPartitionLayoutTask createPartitionTask();
+
+	@Override
+	public void doLayout(final TaskMonitor taskMonitor) {
+		final int nodeCount = networkView.getModel().getNodeCount();
+		final int numThreads = Runtime.getRuntime().availableProcessors();
+
+		if (singlePartition || !parallelPartitions || numThreads < 2
+		    || (!nodesToLayOut.isEmpty() && nodesToLayOut.size() < nodeCount)) {
+			super.doLayout(taskMonitor);
+			return;
+		}
+
+		this.taskMonitor = taskMonitor;
+
+		if (edgeWeighter != null)
+			edgeWeighter.reset();
+
+		final List<LayoutPartition> partitionList = PartitionUtil.partition(networkView, false, edgeWeighter);
+
+		if (partitionList.isEmpty())
+			return;
+
+		// Set up offsets -- we start with the overall min and max
+		double xStart = partitionList.get(0).getMinX();
+		double yStart = partitionList.get(0).getMinY();
+
+		for (final LayoutPartition partition : partitionList) {
+			xStart = Math.min(xStart, partition.getMinX());
+			yStart = Math.min(yStart, partition.getMinY());
+		}
+
+		if (!layoutPartitions(partitionList, numThreads))
+			return;
+
+		taskMonitor.setStatusMessage("Placing " + partitionList.size() + " partitions");
+		placePartitions(partitionList, xStart, yStart, nodeCount);
+		taskMonitor.setProgress(1.0);
+	}
+
+	@Override
+	public void cancel() {
+		super.cancel();
+		cancelPartitionTasks();
+	}
+
+	private void cancelPartitionTasks() {
+		synchronized (partitionTasks) {
+			for (final AbstractParallelPartitionLayoutTask task : partitionTasks)
+				task.cancel();
+		}
+	}
+
+	/**
+	 * Lays out the partitions with more than one node, largest first.
+	 * If a partition fails, the others are cancelled and its exception is
+	 * thrown, so that the task monitor reports it.
+	 *
+	 * @return false if the layout was cancelled
+	 */
+	private boolean layoutPartitions(final List<LayoutPartition> partitionList, final int numThreads) {
+		final List<LayoutPartition> pending = new ArrayList<LayoutPartition>();
+		int totalNodes = 0;
+
+		for (final LayoutPartition partition : partitionList) {
+			if (partition.nodeCount() > 1) {
+				pending.add(partition);
+				totalNodes += partition.nodeCount();
+			}
+		}
+
+		// The sort is stable, so partitions of the same size keep their order
+		Collections.sort(pending, new Comparator<LayoutPartition>() {
+			public int compare(LayoutPartition p1, LayoutPartition p2) {
+				return (p2.nodeCount() + p2.edgeCount()) - (p1.nodeCount() + p1.edgeCount());
+			}
+		});
+
+		completedNodes = 0;
+		runningNodes = 0.0;
+		completedPartitions = 0;
+
+		final int partitionCount = pending.size();
+		final ExecutorService exec = Executors.newFixedThreadPool(Math.min(numThreads, Math.max(1, partitionCount)));
+		final List<Future<Void>> futures = new ArrayList<Future<Void>>(partitionCount);
+
+		try {
+			for (final LayoutPartition partition : pending) {
+				final AbstractParallelPartitionLayoutTask task = createPartitionTask();
+				task.taskMonitor = new PartitionTaskMonitor(partition.nodeCount(), partitionCount, totalNodes);
+
+				synchronized (partitionTasks) {
+					if (cancelled)
+						break;
+
+					partitionTasks.add(task);
+				}
+
+				futures.add(exec.submit(new Callable<Void>() {
+					public Void call() {
+						if (!task.cancelled)
+							task.layoutPartition(partition);
+
+						((PartitionTaskMonitor) task.taskMonitor).done();
+
+						return null;
+					}
+				}));
+			}
+
+			for (final Future<Void> future : futures)
+				future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			cancel();
+		} catch (ExecutionException e) {
+			cancelPartitionTasks();
+
+			for (final Future<Void> future : futures)
+				future.cancel(true);
+
+			final Throwable cause = e.getCause();
+
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+
+			throw new IllegalStateException("Could not lay out a partition.", cause);
+		} finally {
+			exec.shutdownNow();
+
+			synchronized (partitionTasks) {
+				partitionTasks.clear();
+			}
+		}
+
+		return !cancelled;
+	}
+
+	/**
+	 * Moves the partitions next to each other, in rows that are roughly as
+	 * wide as the square root of the number of nodes times the spacing.
+	 */
+	private void placePartitions(final List<LayoutPartition> partitionList, final double xStart,
+	                             final double yStart, final int nodeCount) {
+		double next_x_start = xStart;
+		double next_y_start = yStart;
+		double current_max_y = 0;
+
+		// give each node room
+		final double max_dimensions = Math.sqrt((double) nodeCount) * PARTITION_SPACING + xStart;
+
+		for (final LayoutPartition partition : partitionList) {
+			if (partition.nodeCount() > 1) {
+				partition.offset(next_x_start, next_y_start);
+			} else if (partition.nodeCount() == 1) {
+				// Reset our bounds
+				partition.resetNodes();
+
+				// Single node -- get it
+				final LayoutNode node = partition.getNodeList().get(0);
+				node.setX(next_x_start);
+				node.setY(next_y_start);
+				partition.moveNodeToLocation(node);
+			} else {
+				continue;
+			}
+
+			final double last_max_x = partition.getMaxX();
+			final double last_max_y = partition.getMaxY();
+
+			if (last_max_y > current_max_y)
+				current_max_y = last_max_y;
+
+			if (last_max_x > max_dimensions) {
+				next_x_start = xStart;
+				next_y_start = current_max_y + PARTITION_SPACING;
+			} else {
+				next_x_start = last_max_x + PARTITION_SPACING;
+			}
+		}
+	}
+
+	/**
+	 * Reports the progress of one partition as its share of the progress of
+	 * the whole layout.
+	 */
+	private final class PartitionTaskMonitor implements TaskMonitor {
+		private final int nodeCount;
+		private final int partitionCount;
+		private final int totalNodes;
+		private double progress;
+
+		PartitionTaskMonitor(final int nodeCount, final int partitionCount, final int totalNodes) {
+			this.nodeCount = nodeCount;
+			this.partitionCount = partitionCount;
+			this.totalNodes = totalNodes;
+		}
+
+		public void setTitle(final String title) {
+		}
+
+		public void setStatusMessage(final String statusMessage) {
+			// Only partitions of at least average size run long enough for
+			// their messages to be worth showing
+			if (nodeCount * partitionCount >= totalNodes) {
+				synchronized (progressLock) {
+					taskMonitor.setStatusMessage(statusMessage);
+				}
+			}
+		}
+
+		public void setProgress(final double progress) {
+			if (progress < 0.0 || progress > 1.0)
+				return;
+
+			synchronized (progressLock) {
+				runningNodes += (progress - this.progress) * nodeCount;
+				this.progress = progress;
+				taskMonitor.setProgress((completedNodes + runningNodes) / totalNodes);
+			}
+		}
+
+		void done() {
+			synchronized (progressLock) {
+				runningNodes -= progress * nodeCount;
+				progress = 0.0;
+				completedNodes += nodeCount;
+				completedPartitions++;
+				taskMonitor.setStatusMessage("Laid out " + completedPartitions + " of " + partitionCount
+				                             + " partitions");
+				taskMonitor.setProgress((double) completedNodes / totalNodes);
+			}
+		}
+	}
+}
@@ -29,6 +29,11 @@ package csapps.layout.algorithms.bioLayout;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.cytoscape.model.CyNode;
 import org.cytoscape.view.layout.LayoutEdge;
@@ -41,6 +46,17 @@ import org.cytoscape.work.undo.UndoSupport;
 
 
 public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
+	/**
+	 * Partitions with fewer nodes are laid out on a single thread
+	 */
+	private static final int MIN_PARALLEL_NODES = 500;
+
+	/**
+	 * The number of node ranges per thread over which the repulsive
+	 * forces are calculated, to balance the load between threads
+	 */
+	private static final int CHUNKS_PER_THREAD = 4;
+
 	private double attraction_constant;
 	private double repulsion_constant;
 	private double gravity_constant;
@@ -73,6 +89,18 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 	 */
 	private LayoutPartition partition;
 
+	/**
+	 * The nodes of the partition, indexed as in the repulsion quadtree
+	 */
+	private List<LayoutNode> nodeList;
+
+	/**
+	 * The threads calculating the repulsive forces, or null to calculate
+	 * them on the calling thread
+	 */
+	private ExecutorService exec;
+	private int numThreads;
+
 	/**
 	 * The width and height of the layout
 	 */
@@ -91,7 +119,7 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 	 */
 
 	public BioLayoutFRAlgorithmTask(final String displayName, CyNetworkView networkView, Set<View<CyNode>> nodesToLayOut, final BioLayoutFRContext context, final boolean supportWeights, String attrName, UndoSupport undo) {		
-		super(displayName, networkView, nodesToLayOut,  context.singlePartition, attrName, undo);
+		super(displayName, networkView, nodesToLayOut,  context.singlePartition, context.parallelPartitions, attrName, undo);
 		this.context = context;
 
 		this.supportWeights =supportWeights;
@@ -101,6 +129,11 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 		displacementArray = new ArrayList<Double>(100);
 	}
 
+	@Override
+	protected BioLayoutFRAlgorithmTask createPartitionTask() {
+		return new BioLayoutFRAlgorithmTask(displayName, networkView, nodesToLayOut, context, supportWeights, layoutAttribute, undo);
+	}
+
 	/**
 	 * Required methods (and overrides) for AbstractLayoutAlgorithm
 	 */
@@ -185,36 +218,47 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 		taskMonitor.setStatusMessage("Calculating new node positions");
 		taskMonitor.setProgress(0.01);
 
+		nodeList = new ArrayList<LayoutNode>(partition.getNodeList());
+		numThreads = Runtime.getRuntime().availableProcessors();
+		if (numThreads > 1 && nodeList.size() >= MIN_PARALLEL_NODES)
+			exec = Executors.newFixedThreadPool(numThreads);
+
 		// Main algorithm
 		// iterProfile.start();
 		int iteration = 0;
 
-		for (iteration = 0; (iteration < context.nIterations) && !cancelled; iteration++) {
-			if ((temp = doOneIteration(iteration, temp)) == 0)
-				break;
-
-			if (debug || ((context.update_iterations > 0) && ((iteration % context.update_iterations) == 0))) {
-				if (iteration > 0) {
-					// Actually move the pieces around
-					for (LayoutNode v: partition.getNodeList()) {
-						// if this is locked, the move just resets X and Y
-						v.moveToLocation();
-
+		try {
+			for (iteration = 0; (iteration < context.nIterations) && !cancelled; iteration++) {
+				if ((temp = doOneIteration(iteration, temp)) == 0)
+					break;
+
+				if (debug || ((context.update_iterations > 0) && ((iteration % context.update_iterations) == 0))) {
+					if (iteration > 0) {
+						// Actually move the pieces around
+						for (LayoutNode v: partition.getNodeList()) {
+							// if this is locked, the move just resets X and Y
+							v.moveToLocation();
+
+						}
+						// This fires events to presentation layer.
+						networkView.updateView();
 					}
-					// This fires events to presentation layer.
-					networkView.updateView();
-				}
 
-				if (debug) {
-					try {
-						Thread.sleep(100);
-					} catch (InterruptedException e) {
+					if (debug) {
+						try {
+							Thread.sleep(100);
+						} catch (InterruptedException e) {
+						}
 					}
 				}
-			}
 
-			taskMonitor.setStatusMessage("Calculating new node positions - " + iteration);
-			taskMonitor.setProgress(iteration / context.nIterations);
+				taskMonitor.setStatusMessage("Calculating new node positions - " + iteration);
+				taskMonitor.setProgress(iteration / context.nIterations);
+			}
+		} finally {
+			if (exec != null)
+				exec.shutdown();
+			exec = null;
 		}
 
 		// iterProfile.done("Iterations complete in ");
@@ -270,13 +314,14 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 			}
 		}
 
-		for (LayoutNode v: partition.getNodeList()) {
-			if (!v.isLocked()) {
-				calculateRepulsion(v);
-				if (gravity_constant != 0)
-					calculateGravity(v,xAverage,yAverage);
-			}
-		}
+		final RepulsionQuadTree tree;
+		if (context.barnesHut)
+			tree = new RepulsionQuadTree(nodeList, repulsion_constant, maxDistance, context.conflict_avoidance,
+			                             EPSILON, context.theta);
+		else
+			tree = null;
+
+		calculateRepulsionAndGravity(tree, xAverage, yAverage);
 
 		// repulseProfile.checkpoint();
 
@@ -370,6 +415,69 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 		return false;
 	}
 
+	/**
+	 * Calculate the repulsive and gravity forces for all unlocked vertices.
+	 * Each vertex only updates its own displacement, so ranges of vertices
+	 * are calculated in parallel when we have a thread pool.
+	 *
+	 * @param tree the quadtree approximating the repulsive forces, or null
+	 *   to calculate them exactly
+	 * @param xAverage the X portion of the location that's pulling us
+	 * @param yAverage the Y portion of the location that's pulling us
+	 */
+	private void calculateRepulsionAndGravity(final RepulsionQuadTree tree, final double xAverage,
+	                                          final double yAverage) {
+		final int nodeCount = nodeList.size();
+		final int numChunks = (exec == null) ? 1 : Math.min(numThreads * CHUNKS_PER_THREAD, nodeCount);
+		final List<Callable<Object>> chunks = new ArrayList<Callable<Object>>(numChunks);
+		for (int c = 0; c < numChunks; c++) {
+			final int start = (int) ((long) nodeCount * c / numChunks);
+			final int end = (int) ((long) nodeCount * (c + 1) / numChunks);
+			chunks.add(new Callable<Object>() {
+				@Override
+				public Object call() {
+					final double[] disp = new double[2];
+					for (int i = start; i < end; i++) {
+						final LayoutNode v = nodeList.get(i);
+						if (v.isLocked())
+							continue;
+
+						if (tree != null) {
+							tree.calculateRepulsion(i, disp);
+							v.setDisp(disp[0], disp[1]);
+						} else {
+							calculateRepulsion(v);
+						}
+						if (gravity_constant != 0)
+							calculateGravity(v, xAverage, yAverage);
+					}
+					return null;
+				}
+			});
+		}
+
+		if (exec == null) {
+			for (final Callable<Object> chunk : chunks) {
+				try {
+					chunk.call();
+				} catch (Exception e) {
+					throw new IllegalStateException("Could not calculate the repulsive forces.", e);
+				}
+			}
+			return;
+		}
+
+		try {
+			for (final Future<Object> future : exec.invokeAll(chunks))
+				future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			cancelled = true;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Could not calculate the repulsive forces.", e.getCause());
+		}
+	}
+
 	/**
 	 * calculate the repulsive forces and offsets for
 	 * each vertex.
@@ -383,7 +491,7 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 		double radius = v.getWidth() / 2;
 
 /// for u in V do
-		for (LayoutNode u: partition.getNodeList()) {
+		for (LayoutNode u: nodeList) {
 			double dx = v.getX() - u.getX();
 			double dy = v.getY() - u.getY();
 
@@ -79,8 +79,27 @@ public class BioLayoutFRContext extends BioLayoutContext implements TunableValid
 	@Tunable(description="Number of iterations")
 	public int nIterations = 500;
 
+	/**
+	 * Whether to approximate the repulsive forces of distant groups of
+	 * nodes with a Barnes-Hut quadtree, which takes O(N log N) rather than
+	 * O(N^2) time per iteration.  Off by default, so that existing layouts
+	 * are unchanged.
+	 */
+	@Tunable(description="Approximate repulsion of distant nodes (Barnes-Hut)")
+	public boolean barnesHut = false;
+
+	/**
+	 * The Barnes-Hut accuracy: a group of nodes is treated as a single
+	 * node when its size divided by its distance is less than theta.
+	 * Smaller values are more accurate; 0 calculates all forces exactly.
+	 */
+	@Tunable(description="Barnes-Hut theta (0: exact repulsion)", dependsOn="barnesHut=true")
+	public double theta = 0.5;
+
 	@Tunable(description="Don't partition graph before layout", groups="Standard settings")
 	public boolean singlePartition;
+	@Tunable(description="Lay out partitions in parallel", groups="Standard settings", dependsOn="singlePartition=false")
+	public boolean parallelPartitions = true;
 
 	@Override // TODO
 	public ValidationState getValidationState(final Appendable errMsg) {
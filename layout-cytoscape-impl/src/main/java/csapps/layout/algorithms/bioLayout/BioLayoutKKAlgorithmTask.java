@@ -126,7 +126,7 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 	 *                                                  behave as if we support weights
 	 */
 	public BioLayoutKKAlgorithmTask(final String displayName, CyNetworkView networkView, Set<View<CyNode>> nodesToLayOut, final BioLayoutKKContext context, final boolean supportWeights, String attrName, UndoSupport undo) {
-		super(displayName, networkView, nodesToLayOut, context.singlePartition, attrName, undo);
+		super(displayName, networkView, nodesToLayOut, context.singlePartition, context.parallelPartitions, attrName, undo);
 		this.context = context;
 		this.supportWeights = supportWeights;
 		this.m_layoutPass = context.m_layoutPass;
@@ -134,6 +134,11 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 		this.edgeWeighter.setWeightAttribute(layoutAttribute);
 	}
 
+	@Override
+	protected BioLayoutKKAlgorithmTask createPartitionTask() {
+		return new BioLayoutKKAlgorithmTask(displayName, networkView, nodesToLayOut, context, supportWeights, layoutAttribute, undo);
+	}
+
 	/**
 	 * Overrides for LayoutAlgorithm support
 	 */
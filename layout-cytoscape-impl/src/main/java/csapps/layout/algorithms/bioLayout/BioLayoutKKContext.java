@@ -47,6 +47,8 @@ public class BioLayoutKKContext extends BioLayoutContext implements TunableValid
 	public int m_layoutPass = 2;
 	@Tunable(description="Don't partition graph before layout", groups="Standard settings")
 	public boolean singlePartition;
+	@Tunable(description="Lay out partitions in parallel", groups="Standard settings", dependsOn="singlePartition=false")
+	public boolean parallelPartitions = true;
 	@Tunable(description="Use unweighted edges", groups="Standard settings")
 	public boolean unweighted;
 	@Override // TODO
@@ -0,0 +1,322 @@
+package csapps.layout.algorithms.bioLayout;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.List;
+
+import org.cytoscape.view.layout.LayoutNode;
+
+
+/**
+ * A quadtree over the nodes of a partition that approximates the repulsive forces
+ * of the Fruchterman-Reingold layout in O(log N) time per node, following
+ * Barnes and Hut.  A group of nodes that is far away compared to its size is
+ * treated as a single node at its center of mass; nearby nodes, nodes that may be
+ * close enough for the conflict avoidance force and groups that straddle the
+ * maximum repulsion distance are visited one by one with the exact force.
+ * Groups beyond the maximum repulsion distance are skipped.  The tree is
+ * read-only once built, so forces can be computed from several threads.
+ */
+final class RepulsionQuadTree {
+	// Maximum number of nodes in a leaf
+	private static final int LEAF_SIZE = 8;
+	// Stops splitting nodes that share a location
+	private static final int MAX_DEPTH = 32;
+
+	private final double repulsionSquared;
+	private final double maxDistance;
+	private final double conflictAvoidance;
+	private final double epsilon;
+	private final double theta;
+
+	// The nodes; locked nodes repel twice as strongly
+	private final double[] x;
+	private final double[] y;
+	private final double[] radius;
+	private final double[] weight;
+	private final int[] order; // node indices, sorted by cell
+
+	// The cells; the children of a cell are consecutive
+	private int numCells;
+	private double[] cellX;
+	private double[] cellY;
+	private double[] cellSize;
+	private double[] cellWeight;
+	private double[] cellCenterX;
+	private double[] cellCenterY;
+	private double[] cellMaxRadius;
+	private int[] cellFirstChild; // -1 for leaves
+	private int[] cellStart; // range of order
+	private int[] cellEnd;
+
+	/**
+	 * @param nodes the nodes of the partition
+	 * @param repulsionConstant the repulsion constant k, the force being k^2/distance
+	 * @param maxDistance the distance beyond which nodes do not repel
+	 * @param conflictAvoidance the force added when two nodes overlap
+	 * @param epsilon the distance used for nodes that share a location
+	 * @param theta groups whose size divided by their distance is below theta are
+	 *   approximated; 0 or less computes all forces exactly
+	 */
+	RepulsionQuadTree(final List<LayoutNode> nodes, final double repulsionConstant, final double maxDistance,
+	                  final double conflictAvoidance, final double epsilon, final double theta) {
+		this.repulsionSquared = repulsionConstant * repulsionConstant;
+		this.maxDistance = maxDistance;
+		this.conflictAvoidance = conflictAvoidance;
+		this.epsilon = epsilon;
+		this.theta = Math.max(theta, 0);
+
+		final int n = nodes.size();
+		x = new double[n];
+		y = new double[n];
+		radius = new double[n];
+		weight = new double[n];
+		order = new int[n];
+
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < n; i++) {
+			final LayoutNode node = nodes.get(i);
+			x[i] = node.getX();
+			y[i] = node.getY();
+			radius[i] = node.getWidth() / 2;
+			weight[i] = node.isLocked() ? 2 : 1;
+			order[i] = i;
+			minX = Math.min(minX, x[i]);
+			minY = Math.min(minY, y[i]);
+			maxX = Math.max(maxX, x[i]);
+			maxY = Math.max(maxY, y[i]);
+		}
+
+		final int capacity = Math.max(16, 4 * (n / LEAF_SIZE + 1));
+		cellX = new double[capacity];
+		cellY = new double[capacity];
+		cellSize = new double[capacity];
+		cellWeight = new double[capacity];
+		cellCenterX = new double[capacity];
+		cellCenterY = new double[capacity];
+		cellMaxRadius = new double[capacity];
+		cellFirstChild = new int[capacity];
+		cellStart = new int[capacity];
+		cellEnd = new int[capacity];
+
+		if (n == 0)
+			return;
+
+		double size = Math.max(maxX - minX, maxY - minY);
+		if (!(size > 0) || Double.isInfinite(size))
+			size = 1;
+		numCells = 1;
+		build(0, 0, n, minX, minY, size, 0);
+	}
+
+	private void build(final int cell, final int start, final int end, final double x0, final double y0,
+	                   final double size, final int depth) {
+		cellX[cell] = x0;
+		cellY[cell] = y0;
+		cellSize[cell] = size;
+		cellStart[cell] = start;
+		cellEnd[cell] = end;
+
+		double w = 0;
+		double cx = 0;
+		double cy = 0;
+		double maxRadius = 0;
+		for (int k = start; k < end; k++) {
+			final int i = order[k];
+			w += weight[i];
+			cx += weight[i] * x[i];
+			cy += weight[i] * y[i];
+			maxRadius = Math.max(maxRadius, radius[i]);
+		}
+		cellWeight[cell] = w;
+		cellCenterX[cell] = cx / w;
+		cellCenterY[cell] = cy / w;
+		cellMaxRadius[cell] = maxRadius;
+
+		if (end - start <= LEAF_SIZE || depth >= MAX_DEPTH) {
+			cellFirstChild[cell] = -1;
+			return;
+		}
+
+		// Sort the nodes of this cell into its quadrants.
+		final double half = size / 2;
+		final double midX = x0 + half;
+		final double midY = y0 + half;
+		final int[] counts = new int[4];
+		final int[] quadrant = new int[end - start];
+		for (int k = start; k < end; k++) {
+			final int i = order[k];
+			final int q = (x[i] < midX ? 0 : 1) + (y[i] < midY ? 0 : 2);
+			quadrant[k - start] = q;
+			counts[q]++;
+		}
+		final int[] next = new int[4];
+		next[0] = start;
+		for (int q = 1; q < 4; q++)
+			next[q] = next[q - 1] + counts[q - 1];
+		final int[] sorted = new int[end - start];
+		for (int k = start; k < end; k++)
+			sorted[next[quadrant[k - start]]++ - start] = order[k];
+		System.arraycopy(sorted, 0, order, start, end - start);
+
+		final int firstChild = allocateCells(4);
+		cellFirstChild[cell] = firstChild;
+		int childStart = start;
+		for (int q = 0; q < 4; q++) {
+			final int childEnd = childStart + counts[q];
+			build(firstChild + q, childStart, childEnd, (q & 1) == 0 ? x0 : midX, (q & 2) == 0 ? y0 : midY,
+			      half, depth + 1);
+			childStart = childEnd;
+		}
+	}
+
+	private int allocateCells(final int count) {
+		if (numCells + count > cellX.length) {
+			final int capacity = Math.max(2 * cellX.length, numCells + count);
+			cellX = grow(cellX, capacity);
+			cellY = grow(cellY, capacity);
+			cellSize = grow(cellSize, capacity);
+			cellWeight = grow(cellWeight, capacity);
+			cellCenterX = grow(cellCenterX, capacity);
+			cellCenterY = grow(cellCenterY, capacity);
+			cellMaxRadius = grow(cellMaxRadius, capacity);
+			cellFirstChild = grow(cellFirstChild, capacity);
+			cellStart = grow(cellStart, capacity);
+			cellEnd = grow(cellEnd, capacity);
+		}
+		final int first = numCells;
+		numCells += count;
+		return first;
+	}
+
+	private static double[] grow(final double[] array, final int capacity) {
+		final double[] grown = new double[capacity];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+	private static int[] grow(final int[] array, final int capacity) {
+		final int[] grown = new int[capacity];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+	/**
+	 * Computes the displacement of a node caused by the repulsion of all other
+	 * nodes.
+	 *
+	 * @param v the index of the node in the list the tree was built from
+	 * @param disp receives the X and Y displacement
+	 */
+	void calculateRepulsion(final int v, final double[] disp) {
+		double xDisp = 0;
+		double yDisp = 0;
+		if (numCells == 0) {
+			disp[0] = disp[1] = 0;
+			return;
+		}
+
+		final double vx = x[v];
+		final double vy = y[v];
+		final double vRadius = radius[v];
+
+		final int[] stack = new int[3 * MAX_DEPTH + 4];
+		int top = 0;
+		stack[top++] = 0;
+		while (top > 0) {
+			final int cell = stack[--top];
+
+			// Distance from the node to the nearest and farthest point of the cell
+			final double x0 = cellX[cell];
+			final double y0 = cellY[cell];
+			final double size = cellSize[cell];
+			final double nearX = Math.max(Math.max(x0 - vx, vx - (x0 + size)), 0);
+			final double nearY = Math.max(Math.max(y0 - vy, vy - (y0 + size)), 0);
+			final double minDistance = Math.sqrt(nearX * nearX + nearY * nearY);
+			final double conflictDistance = vRadius + cellMaxRadius[cell];
+
+			// Nothing in this cell repels the node.
+			if (minDistance > maxDistance && minDistance >= conflictDistance)
+				continue;
+
+			if (cellFirstChild[cell] < 0) {
+				for (int k = cellStart[cell]; k < cellEnd[cell]; k++) {
+					final int u = order[k];
+					if (u == v)
+						continue;
+
+					final double dx = vx - x[u];
+					final double dy = vy - y[u];
+					double deltaDistance = Math.sqrt(dx * dx + dy * dy);
+					if (deltaDistance == 0.0)
+						deltaDistance = epsilon;
+
+					double fr = deltaDistance > maxDistance ? 0 : repulsionSquared / deltaDistance;
+
+					// If its too close, increase the force by a constant
+					if (deltaDistance < (vRadius + radius[u]))
+						fr += conflictAvoidance;
+
+					if (Double.isNaN(fr))
+						fr = 500;
+
+					xDisp += dx * fr / deltaDistance * weight[u];
+					yDisp += dy * fr / deltaDistance * weight[u];
+				}
+				continue;
+			}
+
+			if (minDistance > 0 && minDistance >= conflictDistance) {
+				final double farX = Math.max(vx - x0, x0 + size - vx);
+				final double farY = Math.max(vy - y0, y0 + size - vy);
+				final double dx = vx - cellCenterX[cell];
+				final double dy = vy - cellCenterY[cell];
+				final double distanceSquared = dx * dx + dy * dy;
+
+				// Treat the whole cell as one node at its center of mass, if it is
+				// far away compared to its size and entirely within the repulsion
+				// distance.
+				if (size * size < theta * theta * distanceSquared
+				    && farX * farX + farY * farY <= maxDistance * maxDistance) {
+					final double f = repulsionSquared * cellWeight[cell] / distanceSquared;
+					xDisp += dx * f;
+					yDisp += dy * f;
+					continue;
+				}
+			}
+
+			final int firstChild = cellFirstChild[cell];
+			for (int q = 0; q < 4; q++)
+				if (cellEnd[firstChild + q] > cellStart[firstChild + q])
+					stack[top++] = firstChild + q;
+		}
+
+		disp[0] = xDisp;
+		disp[1] = yDisp;
+	}
+}
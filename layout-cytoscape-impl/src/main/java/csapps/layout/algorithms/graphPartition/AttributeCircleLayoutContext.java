@@ -38,6 +38,8 @@ public class AttributeCircleLayoutContext  implements TunableValidator {
 	public double spacing = 100.0;
 	@Tunable(description = "Don't partition graph before layout", groups = "Standard settings")
 	public boolean singlePartition;
+	@Tunable(description = "Lay out partitions in parallel", groups = "Standard settings", dependsOn = "singlePartition=false")
+	public boolean parallelPartitions = true;
 
 
 	@Override
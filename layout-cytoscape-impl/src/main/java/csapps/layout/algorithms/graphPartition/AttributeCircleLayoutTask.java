@@ -34,25 +34,31 @@ import java.util.Set;
 
 import org.cytoscape.model.CyColumn;
 import org.cytoscape.model.CyNode;
-import org.cytoscape.view.layout.AbstractPartitionLayoutTask;
 import org.cytoscape.view.layout.LayoutNode;
 import org.cytoscape.view.layout.LayoutPartition;
 import org.cytoscape.view.model.CyNetworkView;
 import org.cytoscape.view.model.View;
 import org.cytoscape.work.undo.UndoSupport;
 
+import csapps.layout.AbstractParallelPartitionLayoutTask;
 
-public class AttributeCircleLayoutTask extends AbstractPartitionLayoutTask {
+
+public class AttributeCircleLayoutTask extends AbstractParallelPartitionLayoutTask {
 	private final AttributeCircleLayoutContext context;
 
 	/**
 	 * Creates a new ForceDirectedLayout object.
 	 */
 	public AttributeCircleLayoutTask(final String displayName, CyNetworkView networkView, Set<View<CyNode>> nodesToLayOut,  final AttributeCircleLayoutContext context, String attrName, UndoSupport undo) {
-		super(displayName, context.singlePartition, networkView, nodesToLayOut,attrName, undo);
+		super(displayName, context.singlePartition, context.parallelPartitions, networkView, nodesToLayOut,attrName, undo);
 		this.context = context;
 	}
 
+	@Override
+	protected AttributeCircleLayoutTask createPartitionTask() {
+		return new AttributeCircleLayoutTask(displayName, networkView, nodesToLayOut, context, layoutAttribute, undo);
+	}
+
 	/**
 	 *  DOCUMENT ME!
 	 *
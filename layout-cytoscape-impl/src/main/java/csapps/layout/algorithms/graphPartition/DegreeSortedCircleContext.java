@@ -30,6 +30,8 @@ import org.cytoscape.work.TunableValidator;
 public class DegreeSortedCircleContext implements TunableValidator {
 	@Tunable(description="Don't partition graph before layout", groups="Standard settings")
 	public boolean singlePartition;
+	@Tunable(description="Lay out partitions in parallel", groups="Standard settings", dependsOn="singlePartition=false")
+	public boolean parallelPartitions = true;
 
 	@Override // TODO
 	public ValidationState getValidationState(final Appendable errMsg) {
@@ -46,6 +46,8 @@ public class ISOMLayoutContext implements TunableValidator {
 	public double coolingFactor = 2;
 	@Tunable(description="Don't partition graph before layout", groups="Standard settings")
 	public boolean singlePartition;
+	@Tunable(description="Lay out partitions in parallel", groups="Standard settings", dependsOn="singlePartition=false")
+	public boolean parallelPartitions = true;
 
 	@Override // TODO
 	public ValidationState getValidationState(final Appendable errMsg) {
@@ -0,0 +1,169 @@
+package csapps.layout.algorithms.bioLayout;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.cytoscape.ding.NetworkViewTestSupport;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.view.layout.LayoutNode;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.View;
+import org.cytoscape.view.presentation.property.BasicVisualLexicon;
+import org.junit.Test;
+
+public class RepulsionQuadTreeTest {
+
+	private static final double REPULSION = 30;
+	private static final double CONFLICT_AVOIDANCE = 20;
+	private static final double EPSILON = 0.0000001;
+
+	private final NetworkViewTestSupport support = new NetworkViewTestSupport();
+
+	@Test
+	public void testThetaZeroIsExact() {
+		final List<LayoutNode> nodes = createNodes(1000, 1);
+		final double maxDistance = 0.2 * side(nodes.size());
+		final RepulsionQuadTree tree = new RepulsionQuadTree(nodes, REPULSION, maxDistance, CONFLICT_AVOIDANCE,
+		                                                     EPSILON, 0);
+
+		final double[] disp = new double[2];
+		for (int v = 0; v < nodes.size(); v++) {
+			final double[] exact = exactRepulsion(nodes, v, maxDistance);
+			tree.calculateRepulsion(v, disp);
+
+			// Only the order of the sums differs
+			final double tolerance = 1e-9 * Math.max(1, Math.hypot(exact[0], exact[1]));
+			assertEquals("x displacement of node " + v, exact[0], disp[0], tolerance);
+			assertEquals("y displacement of node " + v, exact[1], disp[1], tolerance);
+		}
+	}
+
+	@Test
+	public void testDefaultThetaErrorIsBounded() {
+		final List<LayoutNode> nodes = createNodes(2000, 2);
+		final double maxDistance = 0.2 * side(nodes.size());
+		final RepulsionQuadTree tree = new RepulsionQuadTree(nodes, REPULSION, maxDistance, CONFLICT_AVOIDANCE,
+		                                                     EPSILON, new BioLayoutFRContext().theta);
+
+		final double[] disp = new double[2];
+		double error = 0;
+		double magnitude = 0;
+		for (int v = 0; v < nodes.size(); v++) {
+			final double[] exact = exactRepulsion(nodes, v, maxDistance);
+			tree.calculateRepulsion(v, disp);
+			error += Math.hypot(exact[0] - disp[0], exact[1] - disp[1]);
+			magnitude += Math.hypot(exact[0], exact[1]);
+		}
+
+		assertTrue("Relative error " + error / magnitude, error / magnitude < 0.01);
+	}
+
+	@Test
+	public void testNothingRepelsASingleNode() {
+		final List<LayoutNode> nodes = createNodes(1, 3);
+		final RepulsionQuadTree tree = new RepulsionQuadTree(nodes, REPULSION, 100, CONFLICT_AVOIDANCE, EPSILON, 0.5);
+
+		final double[] disp = new double[] { 1, 1 };
+		tree.calculateRepulsion(0, disp);
+		assertEquals(0, disp[0], 0.0);
+		assertEquals(0, disp[1], 0.0);
+	}
+
+	/**
+	 * The pairwise repulsion of BioLayoutFRAlgorithmTask, which the tree must
+	 * reproduce when theta is 0.
+	 */
+	private static double[] exactRepulsion(final List<LayoutNode> nodes, final int v, final double maxDistance) {
+		final LayoutNode node = nodes.get(v);
+		double xDisp = 0;
+		double yDisp = 0;
+
+		for (int u = 0; u < nodes.size(); u++) {
+			if (u == v)
+				continue;
+
+			final LayoutNode other = nodes.get(u);
+			final double dx = node.getX() - other.getX();
+			final double dy = node.getY() - other.getY();
+			double deltaDistance = Math.sqrt(dx * dx + dy * dy);
+			if (deltaDistance == 0.0)
+				deltaDistance = EPSILON;
+
+			double fr = deltaDistance > maxDistance ? 0 : REPULSION * REPULSION / deltaDistance;
+			if (deltaDistance < (node.getWidth() / 2 + other.getWidth() / 2))
+				fr += CONFLICT_AVOIDANCE;
+			if (Double.isNaN(fr))
+				fr = 500;
+
+			final double weight = other.isLocked() ? 2 : 1;
+			xDisp += dx * fr / deltaDistance * weight;
+			yDisp += dy * fr / deltaDistance * weight;
+		}
+
+		return new double[] { xDisp, yDisp };
+	}
+
+	private static double side(final int nodeCount) {
+		return Math.sqrt(nodeCount) * 60;
+	}
+
+	/**
+	 * Creates nodes of different sizes at random locations, a few of them
+	 * locked and two of them at the same location.
+	 */
+	private List<LayoutNode> createNodes(final int nodeCount, final long seed) {
+		final CyNetwork network = support.getNetworkFactory().createNetwork();
+		for (int i = 0; i < nodeCount; i++)
+			network.addNode();
+		final CyNetworkView networkView = support.getNetworkViewFactory().createNetworkView(network);
+
+		final Random random = new Random(seed);
+		final double side = side(nodeCount);
+		final List<LayoutNode> nodes = new ArrayList<LayoutNode>(nodeCount);
+		for (final CyNode node : network.getNodeList()) {
+			final View<CyNode> nv = networkView.getNodeView(node);
+			nv.setVisualProperty(BasicVisualLexicon.NODE_X_LOCATION, random.nextDouble() * side);
+			nv.setVisualProperty(BasicVisualLexicon.NODE_Y_LOCATION, random.nextDouble() * side);
+			nv.setVisualProperty(BasicVisualLexicon.NODE_WIDTH, 20 + random.nextDouble() * 30);
+
+			final LayoutNode layoutNode = new LayoutNode(nv, nodes.size(), network.getRow(node));
+			if (random.nextInt(20) == 0)
+				layoutNode.lock();
+			nodes.add(layoutNode);
+		}
+
+		if (nodeCount > 1)
+			nodes.get(1).setLocation(nodes.get(0).getX(), nodes.get(0).getY());
+
+		return nodes;
+	}
+}
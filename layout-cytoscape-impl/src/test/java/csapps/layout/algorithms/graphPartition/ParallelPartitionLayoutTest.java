@@ -0,0 +1,187 @@
+package csapps.layout.algorithms.graphPartition;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import csapps.layout.AbstractParallelPartitionLayoutTask;
+
+import org.cytoscape.ding.NetworkViewTestSupport;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.view.layout.LayoutPartition;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.View;
+import org.cytoscape.view.presentation.property.BasicVisualLexicon;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.undo.UndoSupport;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelPartitionLayoutTest {
+
+	private final NetworkViewTestSupport support = new NetworkViewTestSupport();
+
+	private CyNetwork network;
+	private CyNetworkView networkView;
+	private Set<View<CyNode>> nodesToLayOut;
+
+	@Before
+	public void setUp() throws Exception {
+		network = createComponents(3000, 1);
+		networkView = support.getNetworkViewFactory().createNetworkView(network);
+		nodesToLayOut = new HashSet<View<CyNode>>(networkView.getNodeViews());
+	}
+
+	@Test
+	public void testParallelLayoutIsSameAsSequential() throws Exception {
+		final double[] sequential = layout(false);
+		final double[] parallel = layout(true);
+
+		assertEquals(sequential.length, parallel.length);
+		for (int i = 0; i < sequential.length; i++)
+			assertEquals(sequential[i], parallel[i], 0.0);
+	}
+
+	@Test
+	public void testParallelLayoutIsRepeatable() throws Exception {
+		final double[] first = layout(true);
+		final double[] second = layout(true);
+
+		for (int i = 0; i < first.length; i++)
+			assertEquals(first[i], second[i], 0.0);
+	}
+
+	@Test
+	public void testFailedPartitionIsReported() throws Exception {
+		final FailingLayoutTask task = new FailingLayoutTask(networkView, nodesToLayOut);
+
+		try {
+			task.run(mock(TaskMonitor.class));
+			fail("The layout must report the failed partition");
+		} catch (IllegalStateException e) {
+			assertSame(FailingLayoutTask.FAILURE, e);
+		}
+	}
+
+	@Test
+	public void testLayoutBenchmark() throws Exception {
+		// Warm up
+		layout(false);
+		layout(true);
+
+		long start = System.currentTimeMillis();
+		layout(false);
+		final long sequentialTime = System.currentTimeMillis() - start;
+
+		start = System.currentTimeMillis();
+		layout(true);
+		final long parallelTime = System.currentTimeMillis() - start;
+
+		System.out.println("Degree sorted layout of " + network.getNodeCount() + " nodes in 3000 partitions on "
+		                   + Runtime.getRuntime().availableProcessors() + " processors: sequential "
+		                   + sequentialTime + " ms, parallel " + parallelTime + " ms");
+	}
+
+	/**
+	 * Lays out the network from the same starting point and returns the
+	 * node positions.
+	 */
+	private double[] layout(final boolean parallelPartitions) throws Exception {
+		for (final View<CyNode> nv : networkView.getNodeViews()) {
+			nv.setVisualProperty(BasicVisualLexicon.NODE_X_LOCATION, 0.0);
+			nv.setVisualProperty(BasicVisualLexicon.NODE_Y_LOCATION, 0.0);
+		}
+
+		final DegreeSortedCircleContext context = new DegreeSortedCircleContext();
+		context.parallelPartitions = parallelPartitions;
+		final DegreeSortedCircleLayoutTask task = new DegreeSortedCircleLayoutTask("Degree Sorted Circle Layout",
+				networkView, nodesToLayOut, context, "", mock(UndoSupport.class));
+		task.run(mock(TaskMonitor.class));
+
+		final double[] positions = new double[2 * network.getNodeCount()];
+		int i = 0;
+		for (final CyNode node : network.getNodeList()) {
+			final View<CyNode> nv = networkView.getNodeView(node);
+			positions[i++] = nv.getVisualProperty(BasicVisualLexicon.NODE_X_LOCATION);
+			positions[i++] = nv.getVisualProperty(BasicVisualLexicon.NODE_Y_LOCATION);
+		}
+
+		return positions;
+	}
+
+	/**
+	 * Fails on the largest partition and does nothing on the others.
+	 */
+	private static final class FailingLayoutTask extends AbstractParallelPartitionLayoutTask {
+
+		static final IllegalStateException FAILURE = new IllegalStateException("Partition failed");
+
+		private final CyNetworkView view;
+		private final Set<View<CyNode>> nodes;
+
+		FailingLayoutTask(final CyNetworkView view, final Set<View<CyNode>> nodes) {
+			super("Failing Layout", false, true, view, nodes, "", mock(UndoSupport.class));
+			this.view = view;
+			this.nodes = nodes;
+		}
+
+		@Override
+		protected AbstractParallelPartitionLayoutTask createPartitionTask() {
+			return new FailingLayoutTask(view, nodes);
+		}
+
+		@Override
+		public void layoutPartition(final LayoutPartition partition) {
+			if (partition.nodeCount() >= 200)
+				throw FAILURE;
+		}
+	}
+
+	/**
+	 * Creates a network of stars with a few large ones, as in networks
+	 * of many small complexes and a few large ones.
+	 */
+	private CyNetwork createComponents(final int componentCount, final long seed) {
+		final CyNetwork network = support.getNetworkFactory().createNetwork();
+		final Random random = new Random(seed);
+
+		for (int i = 0; i < componentCount; i++) {
+			final int size = (i % 100 == 0) ? 200 : 1 + random.nextInt(8);
+			final CyNode center = network.addNode();
+
+			for (int j = 1; j < size; j++)
+				network.addEdge(center, network.addNode(), false);
+		}
+
+		return network;
+	}
+}
@@ -0,0 +1,81 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Collection;
+
+
+/**
+ * The cells of a single table column, keyed by primary key.  Values are
+ * either of the column's type, lists for list columns, or equations.
+ * <p>
+ * Implementations are not thread safe; {@link CyTableImpl} only accesses
+ * them while holding its lock.
+ */
+interface ColumnData {
+
+	/**
+	 * @return the stored value or equation, or null if the cell is not set.
+	 */
+	Object get(Object key);
+
+	/**
+	 * @return the previously stored value or equation, or null.
+	 */
+	Object put(Object key, Object value);
+
+	/**
+	 * @return the previously stored value or equation, or null.
+	 */
+	Object remove(Object key);
+
+	/**
+	 * @return the number of cells that are set.
+	 */
+	int size();
+
+	/**
+	 * @return the primary keys of all cells that are set.
+	 */
+	Collection<Object> keys();
+
+	/**
+	 * Scans the column for cells holding <code>value</code>. Equations are
+	 * never matched.
+	 * @return the primary keys of all matching cells.
+	 */
+	Collection<Object> findKeys(Object value);
+
+	/**
+	 * @return the number of cells that {@link #findKeys} would return.
+	 */
+	int countKeys(Object value);
+
+	/**
+	 * @return an estimate of the heap used by this column in bytes.
+	 */
+	long getMemoryFootprint();
+}
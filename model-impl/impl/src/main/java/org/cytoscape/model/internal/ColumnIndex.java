@@ -0,0 +1,183 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.Collection;
+
+import org.cytoscape.equations.Equation;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.SetMultimap;
+
+
+/**
+ * A lazily built reverse index (value to primary keys) of one table column.
+ * <p>
+ * The index is only built by the first lookup and is then maintained
+ * incrementally.  Unless it is pinned, it is discarded again once it has
+ * absorbed more updates than the column has cells without being used, so
+ * that bulk writes to a column that is rarely searched don't pay for it.
+ * The statistics survive discarding, so a column that keeps being rebuilt
+ * shows up as a high miss count.
+ * <p>
+ * Not thread safe; {@link CyTableImpl} only accesses it while holding its lock.
+ */
+final class ColumnIndex {
+
+	// Never discard small indexes, rebuilding them costs next to nothing anyway.
+	private static final int MIN_UPDATES_BEFORE_DISCARD = 1024;
+
+	// Each distinct value costs a map entry and a HashSet; each key a set entry.
+	private static final int VALUE_BYTES = 96;
+	private static final int KEY_BYTES = 40;
+
+	private SetMultimap<Object, Object> valueToKeys;
+	private boolean pinned;
+	private int updatesSinceLookup;
+
+	private long hits;
+	private long misses;
+	private long discards;
+
+	/**
+	 * @return the primary keys of all cells holding <code>value</code>,
+	 * building the index from <code>column</code> first if necessary.
+	 */
+	Collection<Object> lookup(final ColumnData column, final Object value) {
+		if (valueToKeys == null) {
+			misses++;
+			build(column);
+		} else {
+			hits++;
+		}
+
+		updatesSinceLookup = 0;
+		return valueToKeys.get(value);
+	}
+
+	/**
+	 * @return the number of cells holding <code>value</code>.  Without an
+	 * index, the column is scanned instead of building one.
+	 */
+	int count(final ColumnData column, final Object value) {
+		if (valueToKeys == null) {
+			misses++;
+			return column.countKeys(value);
+		}
+
+		hits++;
+		updatesSinceLookup = 0;
+		return valueToKeys.get(value).size();
+	}
+
+	private void build(final ColumnData column) {
+		valueToKeys = HashMultimap.create();
+		for (final Object key : column.keys()) {
+			final Object value = column.get(key);
+			if (!(value instanceof Equation))
+				valueToKeys.put(value, key);
+		}
+	}
+
+	/**
+	 * Records that the cell of <code>key</code> changed from <code>oldValue</code>
+	 * to <code>newValue</code>.  Either may be null or an equation, which are not indexed.
+	 */
+	void update(final Object key, final Object oldValue, final Object newValue, final int columnSize) {
+		if (valueToKeys == null)
+			return;
+
+		if (!pinned && ++updatesSinceLookup > Math.max(MIN_UPDATES_BEFORE_DISCARD, columnSize)) {
+			discard();
+			return;
+		}
+
+		if (oldValue != null && !(oldValue instanceof Equation))
+			valueToKeys.remove(oldValue, key);
+		if (newValue != null && !(newValue instanceof Equation))
+			valueToKeys.put(newValue, key);
+	}
+
+	/**
+	 * Builds the index now and keeps it maintained regardless of how often it is used.
+	 */
+	void pin(final ColumnData column) {
+		if (valueToKeys == null)
+			build(column);
+		pinned = true;
+	}
+
+	void unpin() {
+		pinned = false;
+	}
+
+	boolean isPinned() {
+		return pinned;
+	}
+
+	boolean isBuilt() {
+		return valueToKeys != null;
+	}
+
+	/**
+	 * Frees the index; the next lookup rebuilds it.
+	 */
+	void discard() {
+		if (valueToKeys == null)
+			return;
+
+		valueToKeys = null;
+		updatesSinceLookup = 0;
+		discards++;
+	}
+
+	long getHits() {
+		return hits;
+	}
+
+	long getMisses() {
+		return misses;
+	}
+
+	long getDiscards() {
+		return discards;
+	}
+
+	long getMemoryFootprint() {
+		if (valueToKeys == null)
+			return 0;
+
+		return (long) valueToKeys.keySet().size() * VALUE_BYTES + (long) valueToKeys.size() * KEY_BYTES;
+	}
+
+	@Override
+	public String toString() {
+		return (valueToKeys == null ? "not built" : (pinned ? "pinned" : "built"))
+			+ ", hits: " + hits + ", misses: " + misses + ", discards: " + discards
+			+ ", " + getMemoryFootprint() + " bytes";
+	}
+}
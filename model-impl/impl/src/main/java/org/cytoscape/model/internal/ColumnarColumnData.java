@@ -0,0 +1,277 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Base class of the type specialized column stores.  Cells are addressed
+ * by the row ordinal from a {@link RowOrdinals} that is shared by all columns
+ * of a table.  A bitmask records which cells are set; cells holding values
+ * the subclass can't store natively (equations) are kept in a small side map.
+ */
+abstract class ColumnarColumnData implements ColumnData {
+
+	protected final RowOrdinals ordinals;
+
+	private long[] present;
+	private long[] special;
+	private Map<Integer, Object> specialValues;
+	private int size;
+
+	ColumnarColumnData(final RowOrdinals ordinals) {
+		this.ordinals = ordinals;
+		this.present = new long[0];
+	}
+
+	/**
+	 * @return true if <code>value</code> can be stored natively.
+	 */
+	protected abstract boolean accepts(Object value);
+
+	/**
+	 * Makes room for at least <code>capacity</code> cells.
+	 */
+	protected abstract void grow(int capacity);
+
+	protected abstract int capacity();
+
+	protected abstract Object getCell(int ordinal);
+
+	protected abstract void setCell(int ordinal, Object value);
+
+	/**
+	 * Called before a natively stored cell is overwritten or removed.
+	 */
+	protected void clearCell(final int ordinal) {
+	}
+
+	/**
+	 * Converts a value that passed {@link #accepts} into the form compared by
+	 * {@link #cellEquals}, once per scan.
+	 * @return null if no cell can possibly match.
+	 */
+	protected Object toProbe(final Object value) {
+		return value;
+	}
+
+	/**
+	 * @return true if the natively stored cell matches <code>probe</code>.
+	 */
+	protected abstract boolean cellEquals(int ordinal, Object probe);
+
+	/**
+	 * @return the heap used by the typed storage of the subclass.
+	 */
+	protected abstract long getCellMemoryFootprint();
+
+	@Override
+	public Object get(final Object key) {
+		final int ordinal = ordinals.get(key);
+		if (ordinal < 0)
+			return null;
+
+		return getOrdinal(ordinal);
+	}
+
+	Object getOrdinal(final int ordinal) {
+		if (!isSet(present, ordinal))
+			return null;
+		if (isSet(special, ordinal))
+			return specialValues.get(Integer.valueOf(ordinal));
+
+		return getCell(ordinal);
+	}
+
+	@Override
+	public Object put(final Object key, final Object value) {
+		final int ordinal = ordinals.getOrCreate(key);
+		if (ordinal >= capacity())
+			grow(Math.max(ordinal + 1, capacity() + (capacity() >> 1) + 1));
+		present = ensureBits(present, ordinal + 1);
+
+		final Object old = removeOrdinal(ordinal);
+
+		if (accepts(value)) {
+			setCell(ordinal, value);
+		} else {
+			if (specialValues == null) {
+				specialValues = new HashMap<Integer, Object>();
+				special = new long[present.length];
+			}
+			special = ensureBits(special, capacity());
+			setBit(special, ordinal);
+			specialValues.put(Integer.valueOf(ordinal), value);
+		}
+
+		setBit(present, ordinal);
+		size++;
+
+		return old;
+	}
+
+	@Override
+	public Object remove(final Object key) {
+		final int ordinal = ordinals.get(key);
+		if (ordinal < 0)
+			return null;
+
+		return removeOrdinal(ordinal);
+	}
+
+	private Object removeOrdinal(final int ordinal) {
+		if (!isSet(present, ordinal))
+			return null;
+
+		final Object old;
+		if (isSet(special, ordinal)) {
+			old = specialValues.remove(Integer.valueOf(ordinal));
+			clearBit(special, ordinal);
+		} else {
+			old = getCell(ordinal);
+			clearCell(ordinal);
+		}
+
+		clearBit(present, ordinal);
+		size--;
+
+		return old;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Collection<Object> keys() {
+		final List<Object> keys = new ArrayList<Object>(size);
+		final int limit = Math.min(ordinals.getLimit(), capacity());
+		for (int i = nextSet(present, 0, limit); i >= 0; i = nextSet(present, i + 1, limit))
+			keys.add(ordinals.getKey(i));
+
+		return keys;
+	}
+
+	@Override
+	public Collection<Object> findKeys(final Object value) {
+		final List<Object> keys = new ArrayList<Object>();
+		final Object probe = accepts(value) ? toProbe(value) : null;
+		if (probe == null)
+			return keys;
+
+		final int limit = Math.min(ordinals.getLimit(), capacity());
+		for (int i = nextSet(present, 0, limit); i >= 0; i = nextSet(present, i + 1, limit)) {
+			if (!isSet(special, i) && cellEquals(i, probe))
+				keys.add(ordinals.getKey(i));
+		}
+
+		return keys;
+	}
+
+	@Override
+	public int countKeys(final Object value) {
+		final Object probe = accepts(value) ? toProbe(value) : null;
+		if (probe == null)
+			return 0;
+
+		int count = 0;
+		final int limit = Math.min(ordinals.getLimit(), capacity());
+		for (int i = nextSet(present, 0, limit); i >= 0; i = nextSet(present, i + 1, limit)) {
+			if (!isSet(special, i) && cellEquals(i, probe))
+				count++;
+		}
+
+		return count;
+	}
+
+	@Override
+	public long getMemoryFootprint() {
+		long bytes = getCellMemoryFootprint();
+		bytes += MemoryEstimates.arraySize(present.length * 8L);
+		if (special != null) {
+			bytes += MemoryEstimates.arraySize(special.length * 8L);
+			for (final Object value : specialValues.values())
+				bytes += 40 + MemoryEstimates.OBJECT_HEADER + MemoryEstimates.boxedSize(value);
+		}
+
+		return bytes;
+	}
+
+	static long[] ensureBits(final long[] bits, final int capacity) {
+		final int words = (capacity + 63) >>> 6;
+		if (bits.length >= words)
+			return bits;
+
+		final long[] newBits = new long[words];
+		System.arraycopy(bits, 0, newBits, 0, bits.length);
+		return newBits;
+	}
+
+	static boolean isSet(final long[] bits, final int i) {
+		if (bits == null)
+			return false;
+
+		final int word = i >>> 6;
+		return word < bits.length && (bits[word] & (1L << i)) != 0;
+	}
+
+	static void setBit(final long[] bits, final int i) {
+		bits[i >>> 6] |= 1L << i;
+	}
+
+	static void clearBit(final long[] bits, final int i) {
+		bits[i >>> 6] &= ~(1L << i);
+	}
+
+	/**
+	 * @return the index of the first set bit in [from,limit), or -1.
+	 */
+	static int nextSet(final long[] bits, final int from, final int limit) {
+		if (from >= limit)
+			return -1;
+
+		int word = from >>> 6;
+		if (word >= bits.length)
+			return -1;
+
+		long w = bits[word] & (-1L << from);
+		while (true) {
+			if (w != 0) {
+				final int i = (word << 6) + Long.numberOfTrailingZeros(w);
+				return i < limit ? i : -1;
+			}
+			if (++word >= bits.length)
+				return -1;
+			w = bits[word];
+		}
+	}
+}
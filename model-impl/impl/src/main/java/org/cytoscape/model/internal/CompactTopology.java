@@ -0,0 +1,576 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+
+import cern.colt.map.tlong.OpenLongIntHashMap;
+
+
+/**
+ * A memory efficient network topology that keeps all adjacency information
+ * in primitive arrays instead of one {@link NodePointer}/{@link EdgePointer}
+ * object per element.
+ * <p>
+ * Nodes and edges are identified by dense ordinals.  Edges that existed at
+ * the last compaction are stored in compressed sparse row (CSR) form: the
+ * edges adjacent to node <code>n</code> are
+ * <code>rowEdges[rowStart[n]] .. rowEdges[rowStart[n+1]-1]</code>.  Edges added
+ * since then live in an append-only delta segment, threaded into per-node
+ * singly linked lists of primitive slots.  Removed elements are simply
+ * cleared and skipped.  Once the delta segment or the number of removed
+ * elements grows large relative to the CSR part, everything is renumbered
+ * and compacted back into CSR form, so the cost of compaction is amortized
+ * over the modifications that caused it.
+ * <p>
+ * This class is not thread safe; {@link SimpleNetwork} guards it with the
+ * network lock.
+ */
+final class CompactTopology {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	// The delta segment is compacted once it holds this many edges or more
+	// than half as many edges as the CSR segment, whichever is larger.
+	private static final int MIN_DELTA_EDGES = 1024;
+
+	// Estimated size of one entry of an OpenLongIntHashMap: key, value and
+	// state plus the default free space.
+	private static final int MAP_ENTRY_BYTES = 20;
+	private static final int REFERENCE_BYTES = 8;
+
+	// node ordinal -> node, null once removed
+	private CyNode[] nodes;
+	private int[] degree;
+	private int nodeTop;
+	private int nodeCount;
+	private final OpenLongIntHashMap nodeIndex;
+
+	// edge ordinal -> edge, null once removed
+	private CyEdge[] edges;
+	private int[] sources;
+	private int[] targets;
+	private long[] directed;
+	private int edgeTop;
+	private int edgeCount;
+	private final OpenLongIntHashMap edgeIndex;
+
+	// CSR segment, covering nodes [0,csrNodes) and edges [0,csrEdges)
+	private int[] rowStart;
+	private int[] rowEdges;
+	private int csrNodes;
+	private int csrEdges;
+
+	// Delta segment.  Each delta edge owns two slots (one per end point);
+	// slot 2*(e-csrEdges)+side links to the next slot of the same node.
+	private int[] deltaHead;
+	private int[] deltaNext;
+
+	CompactTopology() {
+		nodes = new CyNode[INITIAL_CAPACITY];
+		degree = new int[INITIAL_CAPACITY];
+		nodeIndex = new OpenLongIntHashMap();
+
+		edges = new CyEdge[INITIAL_CAPACITY];
+		sources = new int[INITIAL_CAPACITY];
+		targets = new int[INITIAL_CAPACITY];
+		directed = new long[bitWords(INITIAL_CAPACITY)];
+		edgeIndex = new OpenLongIntHashMap();
+
+		rowStart = new int[1];
+		rowEdges = new int[0];
+		deltaHead = new int[INITIAL_CAPACITY];
+		Arrays.fill(deltaHead, -1);
+		deltaNext = new int[2 * INITIAL_CAPACITY];
+	}
+
+	int getNodeCount() {
+		return nodeCount;
+	}
+
+	int getEdgeCount() {
+		return edgeCount;
+	}
+
+	CyNode getNode(final long suid) {
+		if (!nodeIndex.containsKey(suid))
+			return null;
+
+		return nodes[nodeIndex.get(suid)];
+	}
+
+	CyEdge getEdge(final long suid) {
+		if (!edgeIndex.containsKey(suid))
+			return null;
+
+		return edges[edgeIndex.get(suid)];
+	}
+
+	boolean containsNode(final CyNode node) {
+		return nodeOrdinal(node) >= 0;
+	}
+
+	boolean containsEdge(final CyEdge edge) {
+		return edgeOrdinal(edge) >= 0;
+	}
+
+	boolean containsEdge(final CyNode n1, final CyNode n2) {
+		final int v1 = nodeOrdinal(n1);
+		final int v2 = nodeOrdinal(n2);
+		if (v1 < 0 || v2 < 0)
+			return false;
+
+		return new Adjacency(v1, CyEdge.Type.ANY).connecting(v2).next() >= 0;
+	}
+
+	List<CyNode> getNodeList() {
+		final List<CyNode> ret = new ArrayList<CyNode>(nodeCount);
+		for (int i = 0; i < nodeTop; i++) {
+			if (nodes[i] != null)
+				ret.add(nodes[i]);
+		}
+
+		return ret;
+	}
+
+	List<CyEdge> getEdgeList() {
+		final List<CyEdge> ret = new ArrayList<CyEdge>(edgeCount);
+		for (int i = 0; i < edgeTop; i++) {
+			if (edges[i] != null)
+				ret.add(edges[i]);
+		}
+
+		return ret;
+	}
+
+	List<CyNode> getNeighborList(final CyNode n, final CyEdge.Type type) {
+		final int v = nodeOrdinal(n);
+		if (v < 0)
+			return Collections.emptyList();
+
+		final List<CyNode> ret = new ArrayList<CyNode>(degree[v]);
+		final Adjacency adj = new Adjacency(v, type);
+		for (int e = adj.next(); e >= 0; e = adj.next())
+			ret.add(nodes[sources[e] ^ targets[e] ^ v]);
+
+		return ret;
+	}
+
+	List<CyEdge> getAdjacentEdgeList(final CyNode n, final CyEdge.Type type) {
+		final int v = nodeOrdinal(n);
+		if (v < 0)
+			return Collections.emptyList();
+
+		final List<CyEdge> ret = new ArrayList<CyEdge>(degree[v]);
+		final Adjacency adj = new Adjacency(v, type);
+		for (int e = adj.next(); e >= 0; e = adj.next())
+			ret.add(edges[e]);
+
+		return ret;
+	}
+
+	List<CyEdge> getConnectingEdgeList(final CyNode src, final CyNode trg, final CyEdge.Type type) {
+		final int v1 = nodeOrdinal(src);
+		final int v2 = nodeOrdinal(trg);
+		if (v1 < 0 || v2 < 0)
+			return Collections.emptyList();
+
+		// scan the node with the shorter adjacency
+		final Adjacency adj = degree[v1] <= degree[v2] ? new Adjacency(v1, type).connecting(v2)
+		                                               : new Adjacency(v2, type).connecting(v1);
+		final List<CyEdge> ret = new ArrayList<CyEdge>();
+		for (int e = adj.next(); e >= 0; e = adj.next())
+			ret.add(edges[e]);
+
+		return ret;
+	}
+
+	/**
+	 * @return false if the node is already part of this topology.
+	 */
+	boolean addNode(final CyNode node) {
+		if (containsNode(node))
+			return false;
+
+		if (nodeTop == nodes.length)
+			growNodes(nodes.length + 1);
+
+		final int v = nodeTop++;
+		nodes[v] = node;
+		degree[v] = 0;
+		deltaHead[v] = -1;
+		nodeIndex.put(node.getSUID(), v);
+		nodeCount++;
+
+		return true;
+	}
+
+	/**
+	 * Removes a node and all of its adjacent edges.
+	 * @return false if the node is not part of this topology.
+	 */
+	boolean removeNode(final CyNode node) {
+		final int v = nodeOrdinal(node);
+		if (v < 0)
+			return false;
+
+		final Adjacency adj = new Adjacency(v, CyEdge.Type.ANY);
+		for (int e = adj.next(); e >= 0; e = adj.next())
+			removeEdgeOrdinal(e);
+
+		nodes[v] = null;
+		nodeIndex.removeKey(node.getSUID());
+		nodeCount--;
+
+		maybeCompact();
+		return true;
+	}
+
+	/**
+	 * @return false if the edge is already part of this topology.
+	 */
+	boolean addEdge(final CyNode s, final CyNode t, final boolean isDirected, final CyEdge edge) {
+		final int source = nodeOrdinal(s);
+		if (source < 0)
+			throw new IllegalArgumentException("source node is not a member of this network");
+
+		final int target = nodeOrdinal(t);
+		if (target < 0)
+			throw new IllegalArgumentException("target node is not a member of this network");
+
+		if (containsEdge(edge))
+			return false;
+
+		if (edgeTop == edges.length)
+			growEdges(edges.length + 1);
+
+		final int e = edgeTop++;
+		edges[e] = edge;
+		sources[e] = source;
+		targets[e] = target;
+		if (isDirected)
+			directed[e >>> 6] |= 1L << e;
+		else
+			directed[e >>> 6] &= ~(1L << e);
+		edgeIndex.put(edge.getSUID(), e);
+		edgeCount++;
+
+		// link the new edge into the delta lists of its end points
+		final int slot = 2 * (e - csrEdges);
+		deltaNext[slot] = deltaHead[source];
+		deltaHead[source] = slot;
+		degree[source]++;
+		if (source != target) {
+			deltaNext[slot + 1] = deltaHead[target];
+			deltaHead[target] = slot + 1;
+			degree[target]++;
+		}
+
+		maybeCompact();
+		return true;
+	}
+
+	/**
+	 * @return false if the edge is not part of this topology.
+	 */
+	boolean removeEdge(final CyEdge edge) {
+		final int e = edgeOrdinal(edge);
+		if (e < 0)
+			return false;
+
+		removeEdgeOrdinal(e);
+		maybeCompact();
+		return true;
+	}
+
+	/**
+	 * Returns an estimate of the heap used by this topology in bytes,
+	 * excluding the CyNode and CyEdge objects themselves, which are shared
+	 * with the root network.
+	 */
+	long getMemoryFootprint() {
+		long bytes = 0;
+		bytes += (long) nodes.length * REFERENCE_BYTES;
+		bytes += (long) degree.length * 4;
+		bytes += (long) deltaHead.length * 4;
+		bytes += (long) nodeIndex.size() * MAP_ENTRY_BYTES;
+		bytes += (long) edges.length * REFERENCE_BYTES;
+		bytes += (long) sources.length * 4;
+		bytes += (long) targets.length * 4;
+		bytes += (long) directed.length * 8;
+		bytes += (long) edgeIndex.size() * MAP_ENTRY_BYTES;
+		bytes += (long) rowStart.length * 4;
+		bytes += (long) rowEdges.length * 4;
+		bytes += (long) deltaNext.length * 4;
+		return bytes;
+	}
+
+	private void removeEdgeOrdinal(final int e) {
+		final CyEdge edge = edges[e];
+		if (edge == null)
+			return;
+
+		edges[e] = null;
+		edgeIndex.removeKey(edge.getSUID());
+		edgeCount--;
+
+		degree[sources[e]]--;
+		if (sources[e] != targets[e])
+			degree[targets[e]]--;
+	}
+
+	private int nodeOrdinal(final CyNode node) {
+		if (node == null || !nodeIndex.containsKey(node.getSUID()))
+			return -1;
+
+		final int v = nodeIndex.get(node.getSUID());
+		return node.equals(nodes[v]) ? v : -1;
+	}
+
+	private int edgeOrdinal(final CyEdge edge) {
+		if (edge == null || !edgeIndex.containsKey(edge.getSUID()))
+			return -1;
+
+		final int e = edgeIndex.get(edge.getSUID());
+		return edge.equals(edges[e]) ? e : -1;
+	}
+
+	private boolean isDirected(final int e) {
+		return (directed[e >>> 6] & (1L << e)) != 0;
+	}
+
+	private static boolean matches(final int v, final int source, final int target,
+	                               final boolean isDirected, final CyEdge.Type type) {
+		if (!isDirected)
+			return type == CyEdge.Type.ANY || type == CyEdge.Type.UNDIRECTED;
+
+		switch (type) {
+			case ANY:
+			case DIRECTED: return true;
+			case OUTGOING: return source == v;
+			case INCOMING: return target == v;
+			default:       return false;
+		}
+	}
+
+	private void maybeCompact() {
+		final int deltaEdges = edgeTop - csrEdges;
+		final int removedEdges = edgeTop - edgeCount;
+		final int removedNodes = nodeTop - nodeCount;
+
+		if (deltaEdges > Math.max(MIN_DELTA_EDGES, csrEdges / 2)
+		    || removedEdges > Math.max(MIN_DELTA_EDGES, edgeCount)
+		    || removedNodes > Math.max(MIN_DELTA_EDGES, nodeCount))
+			compact();
+	}
+
+	/**
+	 * Renumbers all live nodes and edges and rebuilds the CSR segment so
+	 * that the delta segment is empty afterwards.
+	 */
+	void compact() {
+		// renumber nodes
+		final int[] nodeMap = new int[nodeTop];
+		final CyNode[] newNodes = new CyNode[capacity(nodeCount)];
+		int nv = 0;
+		for (int v = 0; v < nodeTop; v++) {
+			if (nodes[v] == null) {
+				nodeMap[v] = -1;
+			} else {
+				nodeMap[v] = nv;
+				newNodes[nv] = nodes[v];
+				nodeIndex.put(nodes[v].getSUID(), nv);
+				nv++;
+			}
+		}
+
+		// renumber edges
+		final CyEdge[] newEdges = new CyEdge[capacity(edgeCount)];
+		final int[] newSources = new int[newEdges.length];
+		final int[] newTargets = new int[newEdges.length];
+		final long[] newDirected = new long[bitWords(newEdges.length)];
+		final int[] newDegree = new int[newNodes.length];
+		int ne = 0;
+		for (int e = 0; e < edgeTop; e++) {
+			if (edges[e] == null)
+				continue;
+
+			newEdges[ne] = edges[e];
+			newSources[ne] = nodeMap[sources[e]];
+			newTargets[ne] = nodeMap[targets[e]];
+			if (isDirected(e))
+				newDirected[ne >>> 6] |= 1L << ne;
+			edgeIndex.put(edges[e].getSUID(), ne);
+
+			newDegree[newSources[ne]]++;
+			if (newSources[ne] != newTargets[ne])
+				newDegree[newTargets[ne]]++;
+			ne++;
+		}
+
+		// build the CSR rows from the degrees
+		final int[] newRowStart = new int[nv + 1];
+		for (int v = 0; v < nv; v++)
+			newRowStart[v + 1] = newRowStart[v] + newDegree[v];
+
+		final int[] fill = new int[nv];
+		System.arraycopy(newRowStart, 0, fill, 0, nv);
+		final int[] newRowEdges = new int[newRowStart[nv]];
+		for (int e = 0; e < ne; e++) {
+			newRowEdges[fill[newSources[e]]++] = e;
+			if (newSources[e] != newTargets[e])
+				newRowEdges[fill[newTargets[e]]++] = e;
+		}
+
+		nodes = newNodes;
+		degree = newDegree;
+		nodeTop = nv;
+		edges = newEdges;
+		sources = newSources;
+		targets = newTargets;
+		directed = newDirected;
+		edgeTop = ne;
+		rowStart = newRowStart;
+		rowEdges = newRowEdges;
+		csrNodes = nv;
+		csrEdges = ne;
+
+		deltaHead = new int[newNodes.length];
+		Arrays.fill(deltaHead, -1);
+		deltaNext = new int[2 * (newEdges.length - ne)];
+	}
+
+	/**
+	 * Grows all arrays at once so that <code>moreNodes</code> nodes and
+	 * <code>moreEdges</code> edges can be added without reallocation.
+	 */
+	void ensureCapacity(final int moreNodes, final int moreEdges) {
+		if (nodeTop + moreNodes > nodes.length)
+			growNodes(nodeTop + moreNodes);
+		if (edgeTop + moreEdges > edges.length)
+			growEdges(edgeTop + moreEdges);
+
+		nodeIndex.ensureCapacity(nodeCount + moreNodes);
+		edgeIndex.ensureCapacity(edgeCount + moreEdges);
+	}
+
+	private void growNodes(final int minimum) {
+		final int newLength = capacity(minimum);
+		nodes = Arrays.copyOf(nodes, newLength);
+		degree = Arrays.copyOf(degree, newLength);
+
+		final int oldLength = deltaHead.length;
+		deltaHead = Arrays.copyOf(deltaHead, newLength);
+		Arrays.fill(deltaHead, oldLength, newLength, -1);
+	}
+
+	private void growEdges(final int minimum) {
+		final int newLength = capacity(minimum);
+		edges = Arrays.copyOf(edges, newLength);
+		sources = Arrays.copyOf(sources, newLength);
+		targets = Arrays.copyOf(targets, newLength);
+		directed = Arrays.copyOf(directed, bitWords(newLength));
+		deltaNext = Arrays.copyOf(deltaNext, 2 * (newLength - csrEdges));
+	}
+
+	private static int capacity(final int minimum) {
+		return Math.max(INITIAL_CAPACITY, minimum + (minimum >> 1));
+	}
+
+	private static int bitWords(final int bits) {
+		return (bits + 63) >>> 6;
+	}
+
+	/**
+	 * Iterates over the ordinals of the live edges adjacent to one node that
+	 * match an edge type, first through the CSR row and then through the
+	 * delta list.  Returns -1 when exhausted.
+	 */
+	private final class Adjacency {
+		private final int v;
+		private final CyEdge.Type type;
+		private int other = -1;
+		private int rowPos;
+		private final int rowEnd;
+		private int slot;
+
+		Adjacency(final int v, final CyEdge.Type type) {
+			this.v = v;
+			this.type = type;
+			if (v < csrNodes) {
+				rowPos = rowStart[v];
+				rowEnd = rowStart[v + 1];
+			} else {
+				rowPos = 0;
+				rowEnd = 0;
+			}
+			slot = deltaHead[v];
+		}
+
+		/**
+		 * Restricts the iteration to edges whose other end point is <code>w</code>.
+		 */
+		Adjacency connecting(final int w) {
+			other = w;
+			return this;
+		}
+
+		int next() {
+			while (rowPos < rowEnd) {
+				final int e = rowEdges[rowPos++];
+				if (accept(e))
+					return e;
+			}
+
+			while (slot >= 0) {
+				final int e = csrEdges + (slot >>> 1);
+				slot = deltaNext[slot];
+				if (accept(e))
+					return e;
+			}
+
+			return -1;
+		}
+
+		private boolean accept(final int e) {
+			if (edges[e] == null)
+				return false;
+
+			final int source = sources[e];
+			final int target = targets[e];
+			if (other >= 0 && (source ^ target ^ v) != other)
+				return false;
+
+			return matches(v, source, target, isDirected(e), type);
+		}
+	}
+}
@@ -40,11 +40,26 @@ import org.slf4j.LoggerFactory;
 public class CyNetworkFactoryImpl implements CyNetworkFactory {
 	private static final Logger logger = LoggerFactory.getLogger(CyNetworkFactoryImpl.class);
 	
+	/**
+	 * System property that makes new networks serve topology queries from
+	 * lock-free snapshots instead of synchronizing on the network.
+	 */
+	public static final String CONCURRENT_TOPOLOGY_PROPERTY = "cytoscape.model.concurrentTopology";
+	
+	/**
+	 * System property that selects the {@link TopologyStorage} of new
+	 * networks, either "LINKED" (the default) or "COMPACT".
+	 */
+	public static final String TOPOLOGY_STORAGE_PROPERTY = "cytoscape.model.topologyStorage";
+	
 	private final CyEventHelper help;
 	private final CyTableManagerImpl mgr;
 	private final CyNetworkTableManager networkTableMgr;
 	private final CyTableFactory tableFactory;
 	private final CyServiceRegistrar serviceRegistrar;
+	
+	private volatile boolean concurrentTopology;
+	private volatile TopologyStorage topologyStorage;
 
 	/**
 	 * Creates a new CyNetworkFactoryImpl object.
@@ -73,6 +88,46 @@ public class CyNetworkFactoryImpl implements CyNetworkFactory {
 		this.networkTableMgr  = networkTableMgr;
 		this.tableFactory     = tableFactory;
 		this.serviceRegistrar = serviceRegistrar;
+		this.concurrentTopology = Boolean.getBoolean(CONCURRENT_TOPOLOGY_PROPERTY);
+		this.topologyStorage = getStorageProperty();
+	}
+
+	private static TopologyStorage getStorageProperty() {
+		final String value = System.getProperty(TOPOLOGY_STORAGE_PROPERTY);
+		if (value == null)
+			return TopologyStorage.LINKED;
+
+		try {
+			return TopologyStorage.valueOf(value.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			logger.warn("Unknown topology storage \"" + value + "\"; using " + TopologyStorage.LINKED);
+			return TopologyStorage.LINKED;
+		}
+	}
+
+	/**
+	 * Sets the topology storage used by networks created from now on.
+	 */
+	public void setTopologyStorage(final TopologyStorage topologyStorage) {
+		if (topologyStorage == null)
+			throw new NullPointerException("topologyStorage is null.");
+
+		this.topologyStorage = topologyStorage;
+	}
+
+	public TopologyStorage getTopologyStorage() {
+		return topologyStorage;
+	}
+
+	/**
+	 * Sets whether networks created from now on use lock-free topology reads.
+	 */
+	public void setConcurrentTopology(final boolean concurrentTopology) {
+		this.concurrentTopology = concurrentTopology;
+	}
+
+	public boolean isConcurrentTopology() {
+		return concurrentTopology;
 	}
 
 	@Override
@@ -83,7 +138,8 @@ public class CyNetworkFactoryImpl implements CyNetworkFactory {
 	@Override
 	public CyNetwork createNetwork(final SavePolicy policy) {
 		final CyRootNetworkImpl net = new CyRootNetworkImpl(help, mgr, networkTableMgr, tableFactory, serviceRegistrar,
-				true, policy);
+				true, policy, topologyStorage);
+		net.setConcurrentTopology(concurrentTopology);
 		logger.info("CyNetwork w/ public tables created: ID = " +  net.getSUID());
 		logger.info("CyNetwork w/ public tables created: Base Graph ID = " +  net.getBaseNetwork().getSUID());
 		
@@ -98,7 +154,8 @@ public class CyNetworkFactoryImpl implements CyNetworkFactory {
 	@Override
 	public CyNetwork createNetworkWithPrivateTables(final SavePolicy policy) {
 		CyRootNetworkImpl net = new CyRootNetworkImpl(help, mgr, networkTableMgr, tableFactory, serviceRegistrar,
-				false, policy);
+				false, policy, topologyStorage);
+		net.setConcurrentTopology(concurrentTopology);
 		logger.info("CyNetwork w/ private tables created: ID = " + net.getSUID());
 		logger.info("CyNetwork w/ private tables created: Base Graph ID = " + net.getBaseNetwork().getSUID());
 
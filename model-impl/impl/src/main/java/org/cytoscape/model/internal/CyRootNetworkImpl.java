@@ -75,10 +75,12 @@ public final class CyRootNetworkImpl extends DefaultTablesNetwork implements CyR
 	private final NetworkAddedListenerDelegator networkAddedListenerDelegator;
 	private final NetworkNameSetListener networkNameSetListener;
 	private final CyServiceRegistrar serviceRegistrar;
+	private final TopologyStorage storage;
 
 
 	private int nextNodeIndex;
 	private int nextEdgeIndex;
+	private boolean concurrentTopology;
 
 	public CyRootNetworkImpl(final CyEventHelper eh, 
 	                         final CyTableManagerImpl tableMgr,
@@ -88,7 +90,20 @@ public final class CyRootNetworkImpl extends DefaultTablesNetwork implements CyR
 	                         final boolean publicTables,
 	                         final SavePolicy savePolicy)
 	{
-		super(SUIDFactory.getNextSUID(), networkTableMgr, tableFactory,publicTables,0,eh);
+		this(eh, tableMgr, networkTableMgr, tableFactory, serviceRegistrar, publicTables, savePolicy,
+		     TopologyStorage.LINKED);
+	}
+
+	public CyRootNetworkImpl(final CyEventHelper eh, 
+	                         final CyTableManagerImpl tableMgr,
+	                         final CyNetworkTableManager networkTableMgr,
+	                         final CyTableFactory tableFactory,
+	                         final CyServiceRegistrar serviceRegistrar, 
+	                         final boolean publicTables,
+	                         final SavePolicy savePolicy,
+	                         final TopologyStorage storage)
+	{
+		super(SUIDFactory.getNextSUID(), networkTableMgr, tableFactory,publicTables,0,eh,storage);
 		
 		assert(savePolicy != null);
 		
@@ -98,6 +113,7 @@ public final class CyRootNetworkImpl extends DefaultTablesNetwork implements CyR
 		this.serviceRegistrar = serviceRegistrar;
 		this.publicTables = publicTables;
 		this.savePolicy = savePolicy;
+		this.storage = storage;
 		suid = super.getSUID(); 
 		subNetworks = new ArrayList<CySubNetwork>();
 		nextNodeIndex = 0;
@@ -226,13 +242,20 @@ public final class CyRootNetworkImpl extends DefaultTablesNetwork implements CyR
 		final CyNode node; 
 
 		synchronized (this) {
-			node = new CyNodeImpl( SUIDFactory.getNextSUID(), getNextNodeIndex(), eventHelper );
+			node = createNode();
 			addNodeInternal( node );
 		}
 
 		return node; 
 	}
 
+	/**
+	 * Creates a node object without adding it to any network.
+	 */
+	synchronized CyNode createNode() {
+		return new CyNodeImpl( SUIDFactory.getNextSUID(), getNextNodeIndex(), eventHelper );
+	}
+
 	@Override
 	public synchronized boolean removeNodes(final Collection<CyNode> nodes) {
 		for ( CySubNetwork sub : subNetworks ) {
@@ -250,13 +273,55 @@ public final class CyRootNetworkImpl extends DefaultTablesNetwork implements CyR
 		final CyEdge edge;
 
 		synchronized (this) {
-			edge = new CyEdgeImpl(SUIDFactory.getNextSUID(), s, t, directed, getNextEdgeIndex());
+			edge = createEdge(s, t, directed);
 			addEdgeInternal(s,t, directed, edge);
 		}
 
 		return edge; 
 	}
 
+	/**
+	 * Creates an edge object without adding it to any network.
+	 */
+	synchronized CyEdge createEdge(final CyNode s, final CyNode t, final boolean directed) {
+		return new CyEdgeImpl(SUIDFactory.getNextSUID(), s, t, directed, getNextEdgeIndex());
+	}
+
+	/**
+	 * Adds nodes and edges created by {@link #createNode()} and
+	 * {@link #createEdge} after growing the storage once.
+	 */
+	synchronized void addAllInternal(final Collection<CyNode> nodes, final Collection<CyEdge> edges) {
+		ensureCapacity(nodes.size(), edges.size());
+		for (final CyNode node : nodes)
+			addNodeInternal(node);
+		for (final CyEdge edge : edges)
+			addEdgeInternal(edge.getSource(), edge.getTarget(), edge.isDirected(), edge);
+	}
+
+	/**
+	 * Removes nodes and edges added by {@link #addAllInternal} again, together
+	 * with their rows, without firing any events.
+	 */
+	synchronized void removeAllInternal(final Collection<CyNode> nodes, final Collection<CyEdge> edges) {
+		removeEdgesInternal(edges);
+		removeNodesInternal(nodes);
+		removeRows(edges, CyEdge.class);
+		removeRows(nodes, CyNode.class);
+	}
+
+	/**
+	 * Starts collecting changes to one of the subnetworks of this root
+	 * network, which are applied and announced together by
+	 * {@link NetworkBatch#commit()}.
+	 */
+	public NetworkBatch beginBatch(final CySubNetwork network) {
+		if (!(network instanceof CySubNetworkImpl) || network.getRootNetwork() != this)
+			throw new IllegalArgumentException("network is not a subnetwork of this root network.");
+
+		return new NetworkBatch(this, (CySubNetworkImpl) network, networkTableMgr);
+	}
+
 	@Override
 	public synchronized boolean removeEdges(final Collection<CyEdge> edges) {
 		for ( CySubNetwork sub : subNetworks ) {
@@ -278,14 +343,16 @@ public final class CyRootNetworkImpl extends DefaultTablesNetwork implements CyR
 		// Only addSubNetwork() modifies the internal state of CyRootNetworkImpl (this object), 
 		// so because it's synchronized, we don't need to synchronize this method.
 		final CySubNetwork sub = addSubNetwork(policy);
+		final NetworkBatch batch = beginBatch(sub);
 		
 		if (nodes != null)
 			for (CyNode n : nodes)
-				sub.addNode(n);
+				batch.addNode(n);
 		if (edges != null)
 			for (CyEdge e : edges)
-				sub.addEdge(e);
+				batch.addEdge(e);
 		
+		batch.commit();
 		return sub;
 	}
 
@@ -307,8 +374,9 @@ public final class CyRootNetworkImpl extends DefaultTablesNetwork implements CyR
 		final long newSUID = SUIDFactory.getNextSUID();
 		
 		final CySubNetworkImpl sub = new CySubNetworkImpl(this, newSUID, eventHelper, tableMgr, networkTableMgr,
-				tableFactory, publicTables, subNetworks.size(), policy);	
+				tableFactory, publicTables, subNetworks.size(), policy, storage);	
 		networkAddedListenerDelegator.addListener(sub);
+		sub.setConcurrentReads(concurrentTopology);
 		
 		subNetworks.add(sub);
 		nameSetListener.addInterestedTables(sub.getDefaultNetworkTable(),networkTableMgr.getTable(this, CyNetwork.class, CyRootNetwork.SHARED_DEFAULT_ATTRS));
@@ -355,6 +423,46 @@ public final class CyRootNetworkImpl extends DefaultTablesNetwork implements CyR
 		sub.dispose();
 	}
 
+	/**
+	 * Enables or disables lock-free topology reads for this root network and
+	 * all of its current and future subnetworks.
+	 */
+	public void setConcurrentTopology(final boolean concurrentTopology) {
+		final List<CySubNetwork> subs;
+
+		// Subnetworks lock themselves before the root, so don't hold our
+		// own lock while switching them.
+		synchronized (this) {
+			this.concurrentTopology = concurrentTopology;
+			setConcurrentReads(concurrentTopology);
+			subs = new ArrayList<CySubNetwork>(subNetworks);
+		}
+
+		for (final CySubNetwork sub : subs)
+			((CySubNetworkImpl) sub).setConcurrentReads(concurrentTopology);
+	}
+
+	public synchronized boolean isConcurrentTopology() {
+		return concurrentTopology;
+	}
+
+	/**
+	 * Returns an estimate of the heap used by the topology of this root
+	 * network and all of its subnetworks, in bytes.
+	 */
+	public long getTotalTopologyMemoryFootprint() {
+		final List<CySubNetwork> subs;
+		synchronized (this) {
+			subs = new ArrayList<CySubNetwork>(subNetworks);
+		}
+
+		long bytes = getTopologyMemoryFootprint();
+		for (final CySubNetwork sub : subs)
+			bytes += ((CySubNetworkImpl) sub).getTopologyMemoryFootprint();
+
+		return bytes;
+	}
+
 	@Override
 	public List<CySubNetwork> getSubNetworkList() {
 		return Collections.synchronizedList(subNetworks);
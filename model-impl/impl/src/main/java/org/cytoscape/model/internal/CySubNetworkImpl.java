@@ -75,8 +75,9 @@ public final class CySubNetworkImpl extends DefaultTablesNetwork implements CySu
 	                 final CyTableFactory tableFactory, 
 	                 boolean publicTables,
 	                 int tableSizeDeterminer,
-	                 final SavePolicy savePolicy) {
-		super(suid, netTableMgr, tableFactory,publicTables,tableSizeDeterminer,eventHelper);
+	                 final SavePolicy savePolicy,
+	                 final TopologyStorage storage) {
+		super(suid, netTableMgr, tableFactory,publicTables,tableSizeDeterminer,eventHelper,storage);
 
 		assert(par != null);
 		assert(savePolicy != null);
@@ -189,6 +190,78 @@ public final class CySubNetworkImpl extends DefaultTablesNetwork implements CySu
 		return true;
 	}
 
+	/**
+	 * Adds the nodes and edges of a {@link NetworkBatch} under a single lock.
+	 * New nodes and edges are added to the root network first.  Everything
+	 * that was actually added is appended to <code>addedNodes</code> and
+	 * <code>addedEdges</code>, in order to fire the events afterwards.
+	 */
+	void addBatchInternal(final Collection<CyNode> newNodes, final Collection<CyEdge> newEdges,
+	                      final Collection<CyNode> existingNodes, final Collection<CyEdge> existingEdges,
+	                      final Collection<CyNode> addedNodes, final Collection<CyEdge> addedEdges) {
+		synchronized (this) {
+			parent.addAllInternal(newNodes, newEdges);
+			ensureCapacity(newNodes.size() + existingNodes.size(), newEdges.size() + existingEdges.size());
+
+			for (final CyNode node : newNodes) {
+				addNodeInternal(node);
+				addedNodes.add(node);
+				getRow(node).set(SELECTED, false);
+			}
+
+			for (final CyNode node : existingNodes) {
+				if (containsNode(node))
+					continue;
+
+				addNodeInternal(node);
+				addedNodes.add(node);
+				copyTableData(node);
+			}
+
+			for (final CyEdge edge : newEdges) {
+				addEdgeInternal(edge.getSource(), edge.getTarget(), edge.isDirected(), edge);
+				addedEdges.add(edge);
+				getRow(edge).set(CyNetwork.SELECTED, false);
+			}
+
+			for (final CyEdge edge : existingEdges) {
+				if (containsEdge(edge))
+					continue;
+
+				addEdgeInternal(edge.getSource(), edge.getTarget(), edge.isDirected(), edge);
+				addedEdges.add(edge);
+				copyTableData(edge);
+			}
+		}
+	}
+
+	/**
+	 * Takes back what {@link #addBatchInternal} added, without firing any
+	 * events, when a {@link NetworkBatch} fails.
+	 */
+	void removeBatchInternal(final Collection<CyNode> addedNodes, final Collection<CyEdge> addedEdges) {
+		synchronized (this) {
+			removeEdgesInternal(addedEdges);
+			removeNodesInternal(addedNodes);
+		}
+
+		removeRows(addedEdges, CyEdge.class);
+		removeRows(addedNodes, CyNode.class);
+	}
+
+	/**
+	 * Fires one event for all nodes and one for all edges added by a batch.
+	 */
+	void fireAddedNodesAndEdges(final Collection<CyNode> nodes, final Collection<CyEdge> edges) {
+		if (!fireAddedNodesAndEdgesEvents)
+			return;
+
+		if (!nodes.isEmpty())
+			eventHelper.fireEvent(new AddedNodesEvent(this, nodes));
+		if (!edges.isEmpty())
+			eventHelper.fireEvent(new AddedEdgesEvent(this, edges));
+	}
+
 	/**
 	 * This method is called when an edge or a node is added to the networks
 	 * which is indeed a copy of another edge/node. Hence, it copies all of the
@@ -39,6 +39,8 @@ import org.cytoscape.model.events.TableAddedEvent;
 import org.cytoscape.equations.Interpreter;
 import org.cytoscape.event.CyEventHelper;
 import org.cytoscape.service.util.CyServiceRegistrar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
@@ -47,10 +49,20 @@ import org.cytoscape.service.util.CyServiceRegistrar;
  * provided as a service through Spring/OSGi.
  */
 public class CyTableFactoryImpl implements CyTableFactory {
+	
+	private static final Logger logger = LoggerFactory.getLogger(CyTableFactoryImpl.class);
+
+	/**
+	 * System property that selects the {@link TableStorage} of new tables,
+	 * either "MAP" (the default) or "COLUMNAR".
+	 */
+	public static final String TABLE_STORAGE_PROPERTY = "cytoscape.model.tableStorage";
+
 	private final CyEventHelper help;
 	private final Interpreter interpreter;
 	private final CyServiceRegistrar serviceRegistrar;
 	private final WeakEventDelegator eventDelegator; 
+	private volatile TableStorage tableStorage;
 
 	public CyTableFactoryImpl(final CyEventHelper help, final Interpreter interpreter,
 	                          final CyServiceRegistrar serviceRegistrar)
@@ -60,6 +72,34 @@ public class CyTableFactoryImpl implements CyTableFactory {
 		this.serviceRegistrar = serviceRegistrar;
 		this.eventDelegator = new WeakEventDelegator();
 		this.serviceRegistrar.registerService(eventDelegator, TableAddedListener.class, new Properties()); 
+		this.tableStorage = getStorageProperty();
+	}
+
+	private static TableStorage getStorageProperty() {
+		final String value = System.getProperty(TABLE_STORAGE_PROPERTY);
+		if (value == null)
+			return TableStorage.MAP;
+
+		try {
+			return TableStorage.valueOf(value.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			logger.warn("Unknown table storage \"" + value + "\"; using " + TableStorage.MAP);
+			return TableStorage.MAP;
+		}
+	}
+
+	/**
+	 * Sets the storage used by tables created from now on.
+	 */
+	public void setTableStorage(final TableStorage tableStorage) {
+		if (tableStorage == null)
+			throw new NullPointerException("tableStorage is null.");
+
+		this.tableStorage = tableStorage;
+	}
+
+	public TableStorage getTableStorage() {
+		return tableStorage;
 	}
 
 	public CyTable createTable(final String name, final String primaryKey, final Class<?> primaryKeyType,
@@ -71,7 +111,8 @@ public class CyTableFactoryImpl implements CyTableFactory {
 				   final boolean pub, final boolean isMutable, final CyTableFactory.InitialTableSize size)
 	{
 		final CyTableImpl table = new CyTableImpl(name, primaryKey, primaryKeyType, pub, isMutable,
-		                                      SavePolicy.SESSION_FILE, help, interpreter, size.getSize());
+		                                      SavePolicy.SESSION_FILE, help, interpreter, size.getSize(),
+		                                      tableStorage);
 		eventDelegator.addListener(table);
 		return table;
 	}
@@ -32,9 +32,15 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.cytoscape.equations.Equation;
+import org.cytoscape.equations.IdentDescriptor;
 import org.cytoscape.equations.Interpreter;
 import org.cytoscape.event.CyEventHelper;
 import org.cytoscape.model.CyColumn;
@@ -56,17 +62,21 @@ import org.cytoscape.model.events.TableTitleChangedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.SetMultimap;
 
 
 public final class CyTableImpl implements CyTable, TableAddedListener {
 	
 	private static final Logger logger = LoggerFactory.getLogger(CyTableImpl.class);
 
+	// Columns with fewer stale cells are recalculated on the calling thread.
+	private static final int MIN_PARALLEL_RECALCULATION = 256;
+
 	private Set<String> currentlyActiveAttributes;
-	private Map<String, Map<Object, Object>> attributes; // Maps column names to (key,value) pairs, where "key" is the primary key.
-	private Map<String, SetMultimap<Object,Object>> reverse;
+	private Map<String, ColumnData> attributes; // Maps column names to (key,value) pairs, where "key" is the primary key.
+	private Map<String, ColumnIndex> indexes; // Reverse indexes, only for columns that have been searched or pinned.
+	private EquationCache equationCache; // Memoized equation results and the dependencies between columns.
+	private TableStorage storage;
+	private RowOrdinals rowOrdinals; // Shared by all columns if storage is TableStorage.COLUMNAR.
 	private Map<Object, CyRow> rows; // Maps the primary key to CyRow.
 	private Map<String, CyColumn> types;
 	private Map<String, Set<CyColumn>> dependents;
@@ -98,6 +108,12 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 	private SavePolicy savePolicy;
 	private boolean fireEvents;
+
+	// Payloads collected instead of being fired while a batch is open, see beginBatch().
+	// A batch belongs to the thread that opened it, so changes made by other
+	// threads in the meantime are still passed to the event helper one by one.
+	private final ThreadLocal<TableBatch> batch = new ThreadLocal<TableBatch>();
+	private final AtomicInteger openBatches = new AtomicInteger();
 	
 	/**
 	 * Creates a new CyTableImpl object.
@@ -111,6 +127,26 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 						final CyEventHelper eventHelper,
 						final Interpreter interpreter,
 						final int defaultInitSize) {
+		this(title, primaryKey, primaryKeyType, pub, isMutable, savePolicy, eventHelper, interpreter,
+		     defaultInitSize, TableStorage.MAP);
+	}
+
+	/**
+	 * Creates a new CyTableImpl object that keeps its cells in the given kind of storage.
+	 */
+	public CyTableImpl(	final String title,
+						final String primaryKey,
+						Class<?> primaryKeyType,
+						final boolean pub,
+						final boolean isMutable,
+						SavePolicy savePolicy,
+						final CyEventHelper eventHelper,
+						final Interpreter interpreter,
+						final int defaultInitSize,
+						final TableStorage storage) {
+		if (storage == null)
+			throw new NullPointerException("storage is null");
+
 		this.title = title;
 		this.primaryKey = primaryKey;
 		this.pub = pub;
@@ -121,10 +157,14 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		this.savePolicy = savePolicy;
 		this.fireEvents = false;
 		this.defaultInitSize = defaultInitSize;
+		this.storage = storage;
 
 		currentlyActiveAttributes = new HashSet<String>();
-		attributes = new HashMap<String, Map<Object, Object>>();
-		reverse =  new HashMap<String, SetMultimap<Object,Object>>();
+		attributes = new HashMap<String, ColumnData>();
+		indexes = new HashMap<String, ColumnIndex>();
+		equationCache = new EquationCache();
+		if (storage == TableStorage.COLUMNAR)
+			rowOrdinals = new RowOrdinals(primaryKeyType, defaultInitSize);
 		
 		rows = new ConcurrentHashMap<Object, CyRow>(defaultInitSize, 0.5f);
 		types = new ConcurrentHashMap<String, CyColumn>();
@@ -142,12 +182,376 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 						                             /* isPrimaryKey = */ true,
 						                             /* isImmutable = */ true,
 						                             null));
-		attributes.put(normalizedPKName, new HashMap<Object, Object>());
-		reverse.put(normalizedPKName, HashMultimap.create());
+		attributes.put(normalizedPKName, createColumnData(primaryKeyType));
 
 		virtualColumnMap = new HashMap<String, VirtualColumn>();
 	}
 
+	private ColumnData createColumnData(final Class<?> type) {
+		if (storage == TableStorage.MAP)
+			return new MapColumnData(defaultInitSize);
+
+		if (type == Double.class)
+			return new DoubleColumnData(rowOrdinals);
+		if (type == Long.class)
+			return new LongColumnData(rowOrdinals);
+		if (type == Integer.class)
+			return new IntegerColumnData(rowOrdinals);
+		if (type == Boolean.class)
+			return new BooleanColumnData(rowOrdinals);
+		if (type == String.class)
+			return new StringColumnData(rowOrdinals);
+
+		return new ObjectColumnData(rowOrdinals);
+	}
+
+	TableStorage getStorage() {
+		return storage;
+	}
+
+	/**
+	 * @return an estimate of the heap used by the cells and indexes of this table in bytes.
+	 */
+	public synchronized long getMemoryFootprint() {
+		long bytes = rowOrdinals == null ? 0 : rowOrdinals.getMemoryFootprint();
+		for (final String normalizedColName : attributes.keySet())
+			bytes += getColumnMemoryFootprint(normalizedColName);
+
+		return bytes;
+	}
+
+	/**
+	 * @return a human readable breakdown of {@link #getMemoryFootprint()} by column.
+	 */
+	public synchronized String getMemoryReport() {
+		final StringBuilder report = new StringBuilder();
+		report.append(title).append(" (").append(storage).append(", ").append(rows.size()).append(" rows): ")
+		      .append(getMemoryFootprint()).append(" bytes\n");
+		if (rowOrdinals != null)
+			report.append("  <row ordinals>: ").append(rowOrdinals.getMemoryFootprint()).append(" bytes\n");
+
+		for (final CyColumn column : types.values()) {
+			final String normalizedColName = normalizeColumnName(column.getName());
+			report.append("  ").append(column.getName()).append(": ")
+			      .append(getColumnMemoryFootprint(normalizedColName)).append(" bytes\n");
+		}
+
+		return report.toString();
+	}
+
+	private long getColumnMemoryFootprint(final String normalizedColName) {
+		final ColumnData keyToValueMap = attributes.get(normalizedColName);
+		long bytes = keyToValueMap == null ? 0 : keyToValueMap.getMemoryFootprint();
+
+		final ColumnIndex index = indexes.get(normalizedColName);
+		if (index != null)
+			bytes += index.getMemoryFootprint();
+
+		return bytes;
+	}
+
+	/**
+	 * Builds the reverse index of a column, if it doesn't exist yet, and
+	 * keeps it maintained on every update until {@link #dropIndex} is called.
+	 * Without pinning, indexes are built by the first search of a column and
+	 * discarded again if the column is updated a lot without being searched.
+	 */
+	public synchronized void pinIndex(final String columnName) {
+		final String normalizedColName = normalizeColumnName(columnName);
+		final ColumnData keyToValueMap = attributes.get(normalizedColName);
+		if (keyToValueMap == null || virtualColumnMap.containsKey(normalizedColName))
+			throw new IllegalArgumentException("column \"" + columnName + "\" does not exist or is virtual.");
+
+		getIndex(normalizedColName).pin(keyToValueMap);
+	}
+
+	/**
+	 * Frees the reverse index of a column and unpins it.  The next search of
+	 * the column builds it again.
+	 */
+	public synchronized void dropIndex(final String columnName) {
+		final ColumnIndex index = indexes.get(normalizeColumnName(columnName));
+		if (index != null) {
+			index.unpin();
+			index.discard();
+		}
+	}
+
+	/**
+	 * @return the number of searches of a column that were answered by an existing index.
+	 */
+	public synchronized long getIndexHitCount(final String columnName) {
+		final ColumnIndex index = indexes.get(normalizeColumnName(columnName));
+		return index == null ? 0 : index.getHits();
+	}
+
+	/**
+	 * @return the number of searches of a column that had to build the index first.
+	 */
+	public synchronized long getIndexMissCount(final String columnName) {
+		final ColumnIndex index = indexes.get(normalizeColumnName(columnName));
+		return index == null ? 0 : index.getMisses();
+	}
+
+	/**
+	 * @return an estimate of the heap used by the reverse index of a column in bytes.
+	 */
+	public synchronized long getIndexMemoryFootprint(final String columnName) {
+		final ColumnIndex index = indexes.get(normalizeColumnName(columnName));
+		return index == null ? 0 : index.getMemoryFootprint();
+	}
+
+	/**
+	 * @return the state and statistics of every reverse index of this table, one per line.
+	 */
+	public synchronized String getIndexReport() {
+		final StringBuilder report = new StringBuilder();
+		for (final CyColumn column : types.values()) {
+			final ColumnIndex index = indexes.get(normalizeColumnName(column.getName()));
+			if (index != null)
+				report.append(column.getName()).append(": ").append(index).append('\n');
+		}
+
+		return report.toString();
+	}
+
+	private ColumnIndex getIndex(final String normalizedColName) {
+		ColumnIndex index = indexes.get(normalizedColName);
+		if (index == null) {
+			index = new ColumnIndex();
+			indexes.put(normalizedColName, index);
+		}
+
+		return index;
+	}
+
+	/**
+	 * @return the number of equation cells that were read without being evaluated.
+	 */
+	public synchronized long getEquationCacheHitCount() {
+		return equationCache.getHits();
+	}
+
+	/**
+	 * @return the number of equation cells that had to be evaluated when they were read.
+	 */
+	public synchronized long getEquationCacheMissCount() {
+		return equationCache.getMisses();
+	}
+
+	/**
+	 * @return the fraction of equation cell reads that used a memoized value.
+	 */
+	public synchronized double getEquationCacheHitRate() {
+		final long lookups = equationCache.getHits() + equationCache.getMisses();
+		return lookups == 0 ? 0.0 : (double)equationCache.getHits() / lookups;
+	}
+
+	/**
+	 * @return the number of changes of cells that are referenced by an equation.
+	 */
+	public synchronized long getEquationChangeCount() {
+		return equationCache.getChanges();
+	}
+
+	/**
+	 * @return the number of equation cells that were evaluated again because
+	 * a cell that they depend on changed.
+	 */
+	public synchronized long getRecomputedCellCount() {
+		return equationCache.getRecomputations();
+	}
+
+	/**
+	 * @return the average number of equation cells that were recomputed per
+	 * change of a cell referenced by an equation.
+	 */
+	public synchronized double getRecomputedCellsPerChange() {
+		final long changes = equationCache.getChanges();
+		return changes == 0 ? 0.0 : (double)equationCache.getRecomputations() / changes;
+	}
+
+	/**
+	 * @return the statistics of the memoized equation results of this table.
+	 */
+	public synchronized String getEquationCacheReport() {
+		return title + ": " + equationCache;
+	}
+
+	/**
+	 * Recomputes all equation cells whose memoized values were invalidated by
+	 * changes, one column after another in the order of their references.
+	 * Otherwise such cells are only recomputed when they are read.
+	 * @param executor if not null, the cells of each column are evaluated by
+	 * this executor in parallel, as long as the references between columns
+	 * have no cycle
+	 */
+	public void recalculateEquations(final ExecutorService executor) {
+		List<String> columns;
+		synchronized (this) {
+			columns = equationCache.getStaleColumnsInEvaluationOrder();
+		}
+
+		// With a cycle, evaluate cells one at a time and let the evaluation report the recursion.
+		final boolean parallel = executor != null && columns != null;
+		if (columns == null) {
+			synchronized (this) {
+				columns = equationCache.getStaleColumns();
+			}
+		}
+
+		for (final String normalizedColName : columns) {
+			final List<Object> keys;
+			synchronized (this) {
+				keys = equationCache.getStaleKeys(normalizedColName);
+			}
+
+			if (!parallel || keys.size() < MIN_PARALLEL_RECALCULATION) {
+				for (final Object key : keys)
+					recalculateCell(key, normalizedColName);
+			} else {
+				recalculateCells(executor, keys, normalizedColName);
+			}
+		}
+	}
+
+	private void recalculateCells(final ExecutorService executor, final List<Object> keys,
+				      final String normalizedColName) {
+		final int taskCount = Math.min(Runtime.getRuntime().availableProcessors(),
+					       keys.size() / MIN_PARALLEL_RECALCULATION + 1);
+		final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(taskCount);
+		for (int i = 0; i < taskCount; i++) {
+			final List<Object> taskKeys = keys.subList(keys.size() * i / taskCount,
+								   keys.size() * (i + 1) / taskCount);
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					for (final Object key : taskKeys)
+						recalculateCell(key, normalizedColName);
+					return null;
+				}
+			});
+		}
+
+		try {
+			for (final Future<Void> future : executor.invokeAll(tasks))
+				future.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException)e.getCause();
+			throw new IllegalStateException("equation recalculation failed", e.getCause());
+		}
+	}
+
+	/**
+	 * Collects the arguments of a stale cell while holding the lock, but runs
+	 * the interpreter without it so that cells can be evaluated in parallel.
+	 */
+	private void recalculateCell(final Object key, final String normalizedColName) {
+		final String columnName;
+		final Equation equation;
+		final Map<String, IdentDescriptor> nameToDescriptorMap;
+		final long generation;
+		synchronized (this) {
+			final ColumnData keyToValueMap = attributes.get(normalizedColName);
+			final Object value = keyToValueMap == null ? null : keyToValueMap.get(key);
+			if (!equationCache.isStale(normalizedColName, key) || !(value instanceof Equation)) {
+				equationCache.unmarkStale(normalizedColName, key);
+				return;
+			}
+
+			columnName = types.get(normalizedColName).getName();
+			equation = (Equation)value;
+			final StringBuilder errorMsg = new StringBuilder();
+			currentlyActiveAttributes.add(columnName);
+			nameToDescriptorMap = EqnSupport.getArguments(equation, key, currentlyActiveAttributes,
+								      columnName, errorMsg, this);
+			currentlyActiveAttributes.remove(columnName);
+			if (nameToDescriptorMap == null) {
+				lastInternalError = errorMsg.toString();
+				equationCache.put(normalizedColName, key, null);
+				return;
+			}
+			generation = equationCache.getGeneration();
+		}
+
+		final StringBuilder errorMsg = new StringBuilder();
+		final Object result = EqnSupport.execute(equation, key, interpreter, nameToDescriptorMap,
+							 columnName, errorMsg);
+
+		synchronized (this) {
+			if (result == null)
+				lastInternalError = errorMsg.toString();
+
+			// Some cell changed in the meantime, the result may already be outdated.
+			if (equationCache.getGeneration() == generation)
+				memoize(equation, key, normalizedColName, result);
+		}
+	}
+
+	/**
+	 * Evaluates an equation cell or returns its memoized value.
+	 */
+	private Object evalEquation(final Equation equation, final Object key, final String columnName,
+				    final StringBuilder errorMsg) {
+		final String normalizedColName = normalizeColumnName(columnName);
+		final Object memoizedValue = equationCache.get(normalizedColName, key);
+		if (memoizedValue != null)
+			return memoizedValue;
+
+		final Object value = EqnSupport.evalEquation(equation, key, interpreter, currentlyActiveAttributes,
+							     columnName, errorMsg, this);
+		memoize(equation, key, normalizedColName, value);
+		return value;
+	}
+
+	/**
+	 * Memoizes the result of an equation unless it is mutable, could change
+	 * without a cell of this table changing, or is not in a regular column.
+	 */
+	private void memoize(final Equation equation, final Object key, final String normalizedColName,
+			     final Object value) {
+		final boolean immutable = value instanceof Double || value instanceof Long
+			|| value instanceof Boolean || value instanceof String;
+		final ColumnData keyToValueMap = attributes.get(normalizedColName);
+		if (immutable && keyToValueMap != null && keyToValueMap.get(key) == equation
+		    && isMemoizable(normalizedColName, equation, key, new HashSet<String>()))
+			equationCache.put(normalizedColName, key, value);
+		else
+			equationCache.put(normalizedColName, key, null);
+	}
+
+	/**
+	 * @return false if the equation in the given cell, or one that it
+	 * references directly or indirectly, depends on a virtual column, whose
+	 * values are changed through another table, or calls a function that may
+	 * return another result for the same arguments, e.g. NOW() or DEGREE().
+	 */
+	private boolean isMemoizable(final String normalizedColName, final Equation equation, final Object key,
+				     final Set<String> visited) {
+		if (virtualColumnMap.containsKey(normalizedColName) || !EquationCache.callsPureFunctionsOnly(equation))
+			return false;
+
+		visited.add(normalizedColName);
+		for (final String reference : equation.getVariableReferences()) {
+			final String normalizedReference = normalizeColumnName(reference);
+			if (virtualColumnMap.containsKey(normalizedReference))
+				return false;
+			if (visited.contains(normalizedReference))
+				continue;
+
+			final ColumnData keyToValueMap = attributes.get(normalizedReference);
+			final Object value = keyToValueMap == null ? null : keyToValueMap.get(key);
+			if (value instanceof Equation
+			    && !isMemoizable(normalizedReference, (Equation)value, key, visited))
+				return false;
+		}
+
+		return true;
+	}
+
 
 	@Override
 	public synchronized void swap(final CyTable otherTable) {
@@ -157,13 +561,25 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		currentlyActiveAttributes = other.currentlyActiveAttributes;
 		other.currentlyActiveAttributes = tempCurrentlyActiveAttributes;
 
-		final Map<String, Map<Object, Object>> tempAttributes = attributes;
+		final Map<String, ColumnData> tempAttributes = attributes;
 		attributes = other.attributes;
 		other.attributes = tempAttributes;
 
-		final Map<String, SetMultimap<Object,Object>> tempReverse = reverse;
-		reverse = other.reverse;
-		other.reverse = tempReverse;
+		final Map<String, ColumnIndex> tempIndexes = indexes;
+		indexes = other.indexes;
+		other.indexes = tempIndexes;
+
+		final EquationCache tempEquationCache = equationCache;
+		equationCache = other.equationCache;
+		other.equationCache = tempEquationCache;
+
+		final TableStorage tempStorage = storage;
+		storage = other.storage;
+		other.storage = tempStorage;
+
+		final RowOrdinals tempRowOrdinals = rowOrdinals;
+		rowOrdinals = other.rowOrdinals;
+		other.rowOrdinals = tempRowOrdinals;
 
 		final Map<Object, CyRow> tempRows = rows;
 		rows = other.rows;
@@ -229,17 +645,16 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 			String normalizedOldColName = normalizeColumnName(oldColumnName);
 			String normalizedNewColName = normalizeColumnName(newColumnName);
-			final Map<Object, Object> keyValuePairs = attributes.get(normalizedOldColName);
+			final ColumnData keyValuePairs = attributes.get(normalizedOldColName);
 			if (keyValuePairs != null) {
 				attributes.remove(normalizedOldColName);
 				attributes.put(normalizedNewColName, keyValuePairs);
 			}
 
-			final SetMultimap<Object,Object> valueKeysPairs = reverse.get(normalizedOldColName);
-			if (valueKeysPairs != null) {
-				reverse.remove(normalizedOldColName);
-				reverse.put(normalizedNewColName, valueKeysPairs);
-			}
+			final ColumnIndex index = indexes.remove(normalizedOldColName);
+			if (index != null)
+				indexes.put(normalizedNewColName, index);
+			equationCache.columnRenamed(normalizedOldColName, normalizedNewColName);
 
 			final CyColumn column = types.get(normalizedOldColName);
 			types.put(normalizedNewColName, column);
@@ -365,9 +780,10 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 					((CyTableImpl) info.getSourceTable()).removeDependent(info.getSourceColumn(), cyColumn);
 				} else {
 					attributes.remove(normalizedColName);
-					reverse.remove(normalizedColName);
+					indexes.remove(normalizedColName);
 					types.remove(normalizedColName);
 				}
+				equationCache.columnRemoved(normalizedColName);
 			}
 		}
 
@@ -429,8 +845,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 							                              /* isPrimaryKey = */ false,
 							                              isImmutable,
 							                              defaultValue));
-			attributes.put(normalizedColName, new HashMap<Object, Object>(defaultInitSize));
-			reverse.put(normalizedColName, HashMultimap.create());
+			attributes.put(normalizedColName, createColumnData(type));
 		}
 		
 		eventHelper.fireEvent(new ColumnCreatedEvent(this, columnName));
@@ -469,8 +884,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 							       /* isPrimaryKey = */ false,
 							       isImmutable,
 								   defaultValue));
-			attributes.put(normalizedColName, new HashMap<Object, Object>(defaultInitSize));
-			reverse.put(normalizedColName, HashMultimap.create());
+			attributes.put(normalizedColName, createColumnData(List.class));
 		}
 
 		eventHelper.fireEvent(new ColumnCreatedEvent(this, columnName));
@@ -496,19 +910,16 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		if (virtColumn != null)
 			return virtColumn.getColumnValues();
 
-		Map<Object, Object> vals = attributes.get(normalizedColName);
+		ColumnData vals = attributes.get(normalizedColName);
 		if (vals == null)
 			throw new IllegalArgumentException("column \"" + columnName + "\" does not exist.");
 
 		List l = new ArrayList(vals.size());
-		for (final Object suid : vals.keySet()) {
+		for (final Object suid : vals.keys()) {
 			final Object value = vals.get(suid);
 			if (value instanceof Equation) {
 				final StringBuilder errorMsg = new StringBuilder();
-				final Object eqnValue =
-					EqnSupport.evalEquation((Equation)value, suid, interpreter,
-								currentlyActiveAttributes,
-								columnName, errorMsg, this);
+				final Object eqnValue = evalEquation((Equation)value, suid, columnName, errorMsg);
 				lastInternalError = errorMsg.toString();
 				if (eqnValue == null)
 					throw new IllegalStateException("can't convert an equation to a value.");
@@ -539,10 +950,85 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		rows.put(key, row);
 
 		if (fireEvents)
-			eventHelper.addEventPayload((CyTable) this, (Object) key, RowsCreatedEvent.class);
+			addRowCreated(key);
 		return row;
 	}
 
+	/**
+	 * Starts collecting the RowsCreatedEvent and RowsSetEvent payloads caused
+	 * by the calling thread in this table, instead of passing each one to the
+	 * event helper.  Batches nest; the outermost {@link #endBatch()} fires at
+	 * most one event of each kind.
+	 */
+	public void beginBatch() {
+		TableBatch b = batch.get();
+		if (b == null) {
+			b = new TableBatch();
+			batch.set(b);
+			openBatches.incrementAndGet();
+		}
+		b.depth++;
+	}
+
+	public void endBatch() {
+		final TableBatch b = closeBatch();
+		if (b == null || b.discarded)
+			return;
+
+		if (!b.keys.isEmpty())
+			eventHelper.fireEvent(new RowsCreatedEvent(this, b.keys));
+		if (!b.records.isEmpty())
+			eventHelper.fireEvent(new RowsSetEvent(this, b.records));
+	}
+
+	/**
+	 * Ends a batch of the calling thread like {@link #endBatch()}, but drops
+	 * everything collected by the outermost batch, for changes that have been
+	 * undone.
+	 */
+	public void discardBatch() {
+		final TableBatch b = batch.get();
+		if (b != null)
+			b.discarded = true;
+		closeBatch();
+	}
+
+	/**
+	 * @return the batch of the calling thread if this call ended it, or null
+	 * if it is still open.
+	 */
+	private TableBatch closeBatch() {
+		final TableBatch b = batch.get();
+		if (b == null)
+			throw new IllegalStateException("no batch in progress for table: " + title);
+		if (--b.depth > 0)
+			return null;
+
+		batch.remove();
+		openBatches.decrementAndGet();
+		return b;
+	}
+
+	private TableBatch getBatch() {
+		return openBatches.get() > 0 ? batch.get() : null;
+	}
+
+	private void addRowCreated(final Object key) {
+		final TableBatch b = getBatch();
+		if (b != null)
+			b.keys.add(key);
+		else
+			eventHelper.addEventPayload((CyTable) this, key, RowsCreatedEvent.class);
+	}
+
+	private void addRowSetRecord(final RowSetRecord record) {
+		final TableBatch b = getBatch();
+		if (b != null)
+			b.records.add(record);
+		else
+			eventHelper.addEventPayload((CyTable) this, record, RowsSetEvent.class);
+	}
+
 	@Override
 	public boolean rowExists(final Object primaryKey) {
 		return (primaryKey != null && rows.containsKey(primaryKey));	
@@ -585,19 +1071,29 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			return matchingRows;
 		}
 
-		final SetMultimap<Object,Object> valueToKeysMap = reverse.get(normalizedColName);
-
-		final Set<Object> keys = valueToKeysMap.get(value);
+		final Collection<Object> keys = getMatchingKeys(normalizedColName, value);
 		if (keys == null)
 			return new ArrayList<CyRow>();
 
-		final ArrayList<CyRow> matchingRows = new ArrayList<CyRow>(rows.size());
+		final ArrayList<CyRow> matchingRows = new ArrayList<CyRow>(keys.size());
 		for (final Object key : keys)
 			matchingRows.add(rows.get(key));
 
 		return matchingRows;
 	}
 
+	/**
+	 * @return the primary keys of all cells of a non-virtual column that hold
+	 * <code>value</code>, or null if the column doesn't exist.
+	 */
+	private Collection<Object> getMatchingKeys(final String normalizedColName, final Object value) {
+		final ColumnData keyToValueMap = attributes.get(normalizedColName);
+		if (keyToValueMap == null)
+			return null;
+
+		return getIndex(normalizedColName).lookup(keyToValueMap, value);
+	}
+
 	@Override
 	synchronized public int countMatchingRows(final String columnName, final Object value) {
 		final String normalizedColName = normalizeColumnName(columnName);
@@ -606,12 +1102,11 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		if (virtColumn != null)
 			return virtColumn.countMatchingRows(value);
 
-		final SetMultimap<Object,Object> valueToKeysMap = reverse.get(normalizedColName);
-
-		if ( valueToKeysMap == null )
+		final ColumnData keyToValueMap = attributes.get(normalizedColName);
+		if (keyToValueMap == null)
 			return 0;
-		else
-			return valueToKeysMap.get(value).size();
+
+		return getIndex(normalizedColName).count(keyToValueMap, value);
 	}
 
 	private final void setX(final Object key, final String columnName, final Object value) {
@@ -647,7 +1142,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				newValue = virtColumn.getValue(key);
 				newRawValue = virtColumn.getRawValue(key);
 			} else {
-				Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+				ColumnData keyToValueMap = attributes.get(normalizedColName);
 
 				if (!columnType.isAssignableFrom(value.getClass())
 				    && !EqnSupport.scalarEquationIsCompatible(value, columnType))
@@ -657,21 +1152,19 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 					newRawValue = value;
 					final Equation equation = (Equation)value;
 					// TODO this is an implicit addRow - not sure if we want to refactor this or not
-					keyToValueMap.put(key, equation);
+					final Object oldValue = keyToValueMap.put(key, equation);
+					cellChanged(normalizedColName, key, oldValue, equation);
 
 					final StringBuilder errorMsg = new StringBuilder();
-					newValue = EqnSupport.evalEquation(equation, key, interpreter,
-									   currentlyActiveAttributes, columnName,
-									   errorMsg, this);
+					newValue = evalEquation(equation, key, columnName, errorMsg);
 					lastInternalError = errorMsg.toString();
 					if (newValue == null)
 						logger.warn("attempted premature evaluation evaluation for " + equation);
 				} else {
 					// TODO this is an implicit addRow - not sure if we want to refactor this or not
 					newRawValue = newValue = columnType.cast(value);
-					final Object oldValue = keyToValueMap.get(key);
-					keyToValueMap.put(key, newValue);
-					addToReverseMap(columnName, key, oldValue, newValue);
+					final Object oldValue = keyToValueMap.put(key, newValue);
+					cellChanged(normalizedColName, key, oldValue, newValue);
 				}
 			}
 		}
@@ -688,7 +1181,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		if (row == null) {
 			return;
 		}
-		eventHelper.addEventPayload((CyTable) table, new RowSetRecord(row, columnName, newValue, newRawValue), RowsSetEvent.class);
+		table.addRowSetRecord(new RowSetRecord(row, columnName, newValue, newRawValue));
 		
 		// ...then fire events for all dependents
 		String normalizedColumnName = normalizeColumnName(columnName);
@@ -704,10 +1197,16 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			if (targetJoinKey.equals(table2.getPrimaryKey().getName())) {
 				fireVirtualColumnRowSetEvent(table2, key, targetJoinKey, newValue, newRawValue);
 			} else {
-				String normalizedTargetJoinKey = table2.normalizeColumnName(targetJoinKey);			
-				SetMultimap<Object, Object> reverseMap = table2.reverse.get(normalizedTargetJoinKey);
-				if(reverseMap != null) {
-					for (Object key2 : reverseMap.get(key)) {
+				String normalizedTargetJoinKey = table2.normalizeColumnName(targetJoinKey);
+				// The lookup may build table2's index and returns a live view of it.
+				List<Object> keys2 = null;
+				synchronized (table2) {
+					Collection<Object> matchingKeys = table2.getMatchingKeys(normalizedTargetJoinKey, key);
+					if (matchingKeys != null)
+						keys2 = new ArrayList<Object>(matchingKeys);
+				}
+				if(keys2 != null) {
+					for (Object key2 : keys2) {
 						fireVirtualColumnRowSetEvent(table2, key2, targetJoinKey, newValue, newRawValue);
 					}
 				}
@@ -715,12 +1214,35 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		}
 	}
 
-	private final void addToReverseMap(final String columnName, final Object key,
+	/**
+	 * Maintains the reverse index and the equation dependencies of a column
+	 * after the cell of <code>key</code> changed from <code>oldValue</code> to
+	 * <code>newValue</code>, and drops the memoized results of all equations
+	 * in the same row that depend on it.
+	 */
+	private final void cellChanged(final String normalizedColName, final Object key,
+				       final Object oldValue, final Object newValue) {
+		updateIndex(normalizedColName, key, oldValue, newValue);
+		equationCache.cellChanged(normalizedColName, key, oldValue, newValue,
+					  getNormalizedReferences(oldValue), getNormalizedReferences(newValue));
+	}
+
+	private final Collection<String> getNormalizedReferences(final Object value) {
+		if (!(value instanceof Equation))
+			return null;
+
+		final Set<String> references = ((Equation)value).getVariableReferences();
+		final List<String> normalizedReferences = new ArrayList<String>(references.size());
+		for (final String reference : references)
+			normalizedReferences.add(normalizeColumnName(reference));
+		return normalizedReferences;
+	}
+
+	private final void updateIndex(final String normalizedColName, final Object key,
 				     final Object oldValue, final Object newValue) {
-		final String normalizedColName = normalizeColumnName(columnName);
-		final SetMultimap<Object,Object> valueTokeysMap = reverse.get(normalizedColName);
-		valueTokeysMap.remove(oldValue,key);
-		valueTokeysMap.put(newValue,key);
+		final ColumnIndex index = indexes.get(normalizedColName);
+		if (index != null)
+			index.update(key, oldValue, newValue, attributes.get(normalizedColName).size());
 	}
 
 	private final void setListX(final Object key, final String columnName, final Object value) {
@@ -760,11 +1282,11 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			if (virtColumn != null && !(rawValue instanceof Equation)) {
 				newValue = virtColumn.getListValue(key);
 			} else {
-				Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+				ColumnData keyToValueMap = attributes.get(normalizedColName);
 
 				// TODO this is an implicit addRow - not sure if we want to refactor this or not
-				final Object oldValue = keyToValueMap.get(key);
-				keyToValueMap.put(key, rawValue);
+				final Object oldValue = keyToValueMap.put(key, rawValue);
+				cellChanged(normalizedColName, key, oldValue, rawValue);
 				if (rawValue instanceof Equation) {
 					final StringBuilder errorMsg = new StringBuilder();
 					newValue = EqnSupport.evalEquation((Equation)rawValue, suid, interpreter,
@@ -773,15 +1295,12 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 					lastInternalError = errorMsg.toString();
 				} else {
 					newValue = rawValue;
-					addToReverseMap(columnName, key, oldValue, rawValue);
 				}
 			}
 		}
 
 		if (fireEvents)
-			eventHelper.addEventPayload((CyTable)this,
-			                            new RowSetRecord(getRow(key),columnName,newValue, rawValue),
-			                            RowsSetEvent.class);
+			addRowSetRecord(new RowSetRecord(getRow(key),columnName,newValue, rawValue));
 	}
 
 	synchronized private void unSetX(final Object key, final String columnName) {
@@ -792,30 +1311,20 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			if (virtColumn != null)
 				virtColumn.setValue(key, null);
 			else {
-				final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+				final ColumnData keyToValueMap = attributes.get(normalizedColName);
 				if (!types.containsKey(normalizedColName) || keyToValueMap == null)
 					throw new IllegalArgumentException("column: '" + columnName + "' does not yet exist.");
 
-				final Object value = keyToValueMap.get(key);
+				final Object value = keyToValueMap.remove(key);
 				if (value == null)
 					return;
 
-				if (!(value instanceof Equation))
-					removeFromReverseMap(columnName, key, value);
-				keyToValueMap.remove(key);
+				cellChanged(normalizedColName, key, value, null);
 			}
 		}
 
 		if (fireEvents)
-			eventHelper.addEventPayload((CyTable)this,
-			                            new RowSetRecord(getRow(key), columnName, null, null),
-			                            RowsSetEvent.class);
-	}
-
-	private final void removeFromReverseMap(final String columnName, final Object key, final Object value) {
-		final String normalizedColName = normalizeColumnName(columnName);
-		final SetMultimap<Object,Object> valueTokeysMap = reverse.get(normalizedColName);
-		valueTokeysMap.remove(key,value);
+			addRowSetRecord(new RowSetRecord(getRow(key), columnName, null, null));
 	}
 
 	synchronized Object getValueOrEquation(final Object key, final String columnName) {
@@ -836,7 +1345,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		if (virtualValue != null && !(virtualValue instanceof Equation))
 			return virtualValue;
 		
-		final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+		final ColumnData keyToValueMap = attributes.get(normalizedColName);
 		if (keyToValueMap == null)
 			return null;
 		
@@ -873,10 +1382,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 		if (vl instanceof Equation) {
 			final StringBuilder errorMsg = new StringBuilder();
-			final Object value =
-				EqnSupport.evalEquation((Equation)vl, key, interpreter,
-							currentlyActiveAttributes, columnName,
-							errorMsg, this);
+			final Object value = evalEquation((Equation)vl, key, columnName, errorMsg);
 			lastInternalError = errorMsg.toString();
 			if ( type == null )
 				return value;
@@ -935,10 +1441,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 		if (vl instanceof Equation) {
 			final StringBuilder errorMsg = new StringBuilder();
-			final Object result =
-				EqnSupport.evalEquation((Equation)vl, key, interpreter,
-							currentlyActiveAttributes, columnName,
-							errorMsg, this);
+			final Object result = evalEquation((Equation)vl, key, columnName, errorMsg);
 			lastInternalError = errorMsg.toString();
 			return (List)result;
 		} else
@@ -956,7 +1459,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 		if (virtColumn != null) {
 			return virtColumn.getRawValue(key) != null;
 		} else {
-			final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+			final ColumnData keyToValueMap = attributes.get(normalizedColName);
 			
 			return keyToValueMap != null && keyToValueMap.get(key) != null;
 		}
@@ -1033,7 +1536,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 			final String normalizedTargetName = normalizeColumnName(targetName);
 			types.put(normalizedTargetName, targetColumn);
-			attributes.put(normalizedTargetName, new HashMap<Object, Object>(defaultInitSize));
+			attributes.put(normalizedTargetName, createColumnData(sourceColumn.getType()));
 			virtualColumnMap.put(normalizedTargetName, virtualColumn);
 		}
 
@@ -1140,18 +1643,16 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 				for (CyColumn col : getColumns()) {
 		            final String normalizedColName = normalizeColumnName(col.getName());
-		            final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+		            final ColumnData keyToValueMap = attributes.get(normalizedColName);
 		            if (keyToValueMap != null) {
 		                Object val = keyToValueMap.remove(key);
-		                SetMultimap<Object,Object> valueToKeysMap = reverse.get(normalizedColName);
-		                if (valueToKeysMap != null) {
-		                    Set<Object> keys = valueToKeysMap.get(val);
-		                    if (keys != null) {
-		                        keys.remove(key);
-		                    }
-		                }
+		                if (val != null)
+		                    cellChanged(normalizedColName, key, val, null);
 		            }
 				}
+
+				if (rowOrdinals != null)
+					rowOrdinals.release(key);
 	        }
 		}
 		
@@ -1236,4 +1737,14 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			*/
 		}
 	}
+
+	/**
+	 * The payloads collected by one thread between beginBatch() and endBatch().
+	 */
+	private static final class TableBatch {
+		final List<Object> keys = new ArrayList<Object>();
+		final List<RowSetRecord> records = new ArrayList<RowSetRecord>();
+		int depth;
+		boolean discarded;
+	}
 }
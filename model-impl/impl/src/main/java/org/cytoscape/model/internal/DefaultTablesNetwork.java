@@ -58,7 +58,13 @@ abstract class DefaultTablesNetwork extends SimpleNetwork {
 
 	DefaultTablesNetwork(final long suid, final CyNetworkTableManager tableManager, final CyTableFactory tableFactory,
 			final boolean publicTables, final int tableSizeDeterminer, final CyEventHelper eventHelper) {
-		super(suid);
+		this(suid, tableManager, tableFactory, publicTables, tableSizeDeterminer, eventHelper, TopologyStorage.LINKED);
+	}
+
+	DefaultTablesNetwork(final long suid, final CyNetworkTableManager tableManager, final CyTableFactory tableFactory,
+			final boolean publicTables, final int tableSizeDeterminer, final CyEventHelper eventHelper,
+			final TopologyStorage storage) {
+		super(suid, storage);
 		this.networkTableManager = tableManager;
 		this.publicTables = publicTables;
 		this.tableFactory = tableFactory;
@@ -118,6 +118,30 @@ class EqnSupport {
 		} else
 			currentlyActiveAttributes.add(columnName);
 
+		final Map<String, IdentDescriptor> nameToDescriptorMap =
+			getArguments(equation, key, currentlyActiveAttributes, columnName,
+				     lastInternalError, tableImpl);
+		if (nameToDescriptorMap == null)
+			return null;
+
+		final Object result = execute(equation, key, interpreter, nameToDescriptorMap, columnName,
+					      lastInternalError);
+		if (result != null)
+			currentlyActiveAttributes.remove(columnName);
+		else
+			currentlyActiveAttributes.clear();
+		return result;
+	}
+
+	/**
+	 *  Looks up the values of all columns referenced by "equation", evaluating other equations as necessary.
+	 *  @return the arguments for the interpreter or null if a referenced value is missing or invalid
+	 */
+	static Map<String, IdentDescriptor> getArguments(final Equation equation, final Object key,
+							 final Set<String> currentlyActiveAttributes,
+							 final String columnName, final Appendable lastInternalError,
+							 final CyTableImpl tableImpl)
+	{
 		final Collection<String> attribReferences = equation.getVariableReferences();
 		final Map<String, Object> defaultValues = equation.getDefaultVariableValues();
 
@@ -166,12 +190,21 @@ class EqnSupport {
 			}
 		}
 
+		return nameToDescriptorMap;
+	}
+
+	/**
+	 *  Runs "equation" on arguments previously collected by getArguments().  Doesn't access the table
+	 *  and can therefore be called without holding its lock.
+	 *  @return the result or null if the evaluation failed
+	 */
+	static Object execute(final Equation equation, final Object key, final Interpreter interpreter,
+			      final Map<String, IdentDescriptor> nameToDescriptorMap,
+			      final String columnName, final Appendable lastInternalError)
+	{
 		try {
-			final Object result = interpreter.execute(equation, nameToDescriptorMap);
-			currentlyActiveAttributes.remove(columnName);
-			return result;
+			return interpreter.execute(equation, nameToDescriptorMap);
 		} catch (final Exception e) {
-			currentlyActiveAttributes.clear();
 			try {
 				lastInternalError.append(e.getMessage());
 			} catch (Exception e2) {
@@ -0,0 +1,412 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+
+import org.cytoscape.equations.Equation;
+import org.cytoscape.equations.Function;
+import org.cytoscape.model.internal.tsort.TopoGraphNode;
+import org.cytoscape.model.internal.tsort.TopologicalSort;
+
+
+/**
+ * Memoized results of the equations of one table together with the
+ * dependencies between its columns.
+ * <p>
+ * Equations only reference cells of their own row, so a column that is
+ * referenced by an equation of another column is enough to describe the
+ * dependencies of all rows.  When a cell changes, only the memoized values
+ * of the same row in the columns that depend on it, directly or through
+ * other equations, are dropped.  Those cells are marked stale so that
+ * {@link CyTableImpl#recalculateEquations} can recompute them in
+ * topological order; otherwise they are recomputed when they are read.
+ * <p>
+ * Column names are always normalized.  Not thread safe; {@link CyTableImpl}
+ * only accesses it while holding its lock.
+ */
+final class EquationCache {
+
+	// Built-in functions whose results only depend on their arguments.  NOW()
+	// and TODAY() are missing on purpose, as are the functions that read the
+	// current network, such as DEGREE(), and all functions registered by apps.
+	private static final String BUILTINS_PACKAGE = "org.cytoscape.equations.internal.builtins.";
+	private static final Set<String> PURE_FUNCTIONS = new HashSet<String>();
+	static {
+		final String[] names = {
+			"ACos", "ASin", "ATan2", "Abs", "And", "Average", "BList", "Combin", "Concatenate",
+			"Cos", "Cosh", "Count", "Degrees", "Error", "Exp", "FList", "First", "GeoMean",
+			"HarMean", "IList", "If", "Largest", "Last", "Left", "Len", "ListToString", "Ln",
+			"Log", "Lower", "Max", "Median", "Mid", "Min", "Mod", "Mode", "NormDist", "Not",
+			"Nth", "Or", "Permut", "Pi", "Product", "Radians", "Right", "Round", "SList",
+			"Sign", "Sin", "Sinh", "Sqrt", "StDev", "Substitute", "Sum", "Tan", "Tanh", "Text",
+			"Trunc", "Upper", "Value", "Var"
+		};
+		for (final String name : names)
+			PURE_FUNCTIONS.add(BUILTINS_PACKAGE + name);
+	}
+
+	private final Map<String, Map<Object, Object>> values = new HashMap<String, Map<Object, Object>>();
+
+	// Referenced column -> dependent column -> number of equations in the dependent column with that reference.
+	private final Map<String, Map<String, Integer>> dependents = new HashMap<String, Map<String, Integer>>();
+
+	private final Map<String, Set<Object>> staleCells = new HashMap<String, Set<Object>>();
+
+	// Incremented by every change, so that values computed from older cells can be recognized.
+	private long generation;
+
+	private long hits;
+	private long misses;
+	private long changes;
+	private long recomputations;
+
+	/**
+	 * @return the memoized value of a cell or null if there is none.
+	 */
+	Object get(final String column, final Object key) {
+		final Map<Object, Object> columnValues = values.get(column);
+		final Object value = columnValues == null ? null : columnValues.get(key);
+		if (value != null)
+			hits++;
+		else
+			misses++;
+
+		return value;
+	}
+
+	/**
+	 * Records that a cell has been evaluated.  A null <code>value</code>
+	 * means that the result can't be memoized, e.g. because evaluation
+	 * failed, but the cell is no longer stale either.
+	 */
+	void put(final String column, final Object key, final Object value) {
+		final Set<Object> keys = staleCells.get(column);
+		if (keys != null && keys.remove(key))
+			recomputations++;
+
+		if (value == null)
+			return;
+
+		Map<Object, Object> columnValues = values.get(column);
+		if (columnValues == null) {
+			columnValues = new HashMap<Object, Object>();
+			values.put(column, columnValues);
+		}
+		columnValues.put(key, value);
+	}
+
+	/**
+	 * Records that the cell of <code>key</code> in <code>column</code>
+	 * changed from <code>oldValue</code> to <code>newValue</code>, either of
+	 * which may be null or an equation, and invalidates all cells that depend on it.
+	 * @param oldReferences the normalized column references of <code>oldValue</code> if it is an equation
+	 * @param newReferences the normalized column references of <code>newValue</code> if it is an equation
+	 */
+	void cellChanged(final String column, final Object key, final Object oldValue, final Object newValue,
+			 final Collection<String> oldReferences, final Collection<String> newReferences) {
+		if (oldValue instanceof Equation)
+			removeReferences(column, oldReferences);
+		if (newValue instanceof Equation)
+			addReferences(column, newReferences);
+
+		generation++;
+		removeValue(column, key);
+		unmarkStale(column, key);
+
+		final Map<String, Integer> columnDependents = dependents.get(column);
+		if (columnDependents == null || columnDependents.isEmpty())
+			return;
+
+		changes++;
+		final Set<String> visited = new HashSet<String>();
+		final Stack<String> pending = new Stack<String>();
+		visited.add(column);
+		pending.push(column);
+		while (!pending.isEmpty()) {
+			final Map<String, Integer> next = dependents.get(pending.pop());
+			if (next == null)
+				continue;
+
+			// Keep going even if a dependent has no memoized value, its own
+			// dependents may have used a default value instead.
+			for (final String dependent : next.keySet()) {
+				if (!visited.add(dependent))
+					continue;
+				if (removeValue(dependent, key))
+					markStale(dependent, key);
+				pending.push(dependent);
+			}
+		}
+	}
+
+	/**
+	 * Forgets a deleted column and the memoized values of all columns that depend on it.
+	 */
+	void columnRemoved(final String column) {
+		generation++;
+		values.remove(column);
+		staleCells.remove(column);
+		for (final Map<String, Integer> columnDependents : dependents.values())
+			columnDependents.remove(column);
+		invalidateDependentColumns(column);
+	}
+
+	/**
+	 * Moves everything that is known about a column to its new name.  Equations
+	 * keep referencing the old name, so their results change with the rename.
+	 */
+	void columnRenamed(final String oldColumn, final String newColumn) {
+		generation++;
+		final Map<Object, Object> columnValues = values.remove(oldColumn);
+		if (columnValues != null)
+			values.put(newColumn, columnValues);
+		final Set<Object> keys = staleCells.remove(oldColumn);
+		if (keys != null)
+			staleCells.put(newColumn, keys);
+		for (final Map<String, Integer> columnDependents : dependents.values()) {
+			final Integer count = columnDependents.remove(oldColumn);
+			if (count != null)
+				columnDependents.put(newColumn, count);
+		}
+
+		invalidateDependentColumns(oldColumn);
+		invalidateDependentColumns(newColumn);
+	}
+
+	private void invalidateDependentColumns(final String column) {
+		final Set<String> visited = new HashSet<String>();
+		final Stack<String> pending = new Stack<String>();
+		pending.push(column);
+		while (!pending.isEmpty()) {
+			final Map<String, Integer> next = dependents.get(pending.pop());
+			if (next == null)
+				continue;
+
+			for (final String dependent : next.keySet()) {
+				if (visited.add(dependent)) {
+					values.remove(dependent);
+					pending.push(dependent);
+				}
+			}
+		}
+	}
+
+	private void addReferences(final String column, final Collection<String> references) {
+		for (final String reference : references) {
+			Map<String, Integer> columnDependents = dependents.get(reference);
+			if (columnDependents == null) {
+				columnDependents = new HashMap<String, Integer>();
+				dependents.put(reference, columnDependents);
+			}
+			final Integer count = columnDependents.get(column);
+			columnDependents.put(column, count == null ? 1 : count + 1);
+		}
+	}
+
+	private void removeReferences(final String column, final Collection<String> references) {
+		for (final String reference : references) {
+			final Map<String, Integer> columnDependents = dependents.get(reference);
+			if (columnDependents == null)
+				continue;
+			final Integer count = columnDependents.get(column);
+			if (count == null)
+				continue;
+			if (count > 1)
+				columnDependents.put(column, count - 1);
+			else
+				columnDependents.remove(column);
+			if (columnDependents.isEmpty())
+				dependents.remove(reference);
+		}
+	}
+
+	private boolean removeValue(final String column, final Object key) {
+		final Map<Object, Object> columnValues = values.get(column);
+		return columnValues != null && columnValues.remove(key) != null;
+	}
+
+	private void markStale(final String column, final Object key) {
+		Set<Object> keys = staleCells.get(column);
+		if (keys == null) {
+			keys = new HashSet<Object>();
+			staleCells.put(column, keys);
+		}
+		keys.add(key);
+	}
+
+	void unmarkStale(final String column, final Object key) {
+		final Set<Object> keys = staleCells.get(column);
+		if (keys != null)
+			keys.remove(key);
+	}
+
+	boolean isStale(final String column, final Object key) {
+		final Set<Object> keys = staleCells.get(column);
+		return keys != null && keys.contains(key);
+	}
+
+	/**
+	 * @return a copy of the keys of the stale cells of <code>column</code>.
+	 */
+	List<Object> getStaleKeys(final String column) {
+		final Set<Object> keys = staleCells.get(column);
+		return keys == null ? new ArrayList<Object>() : new ArrayList<Object>(keys);
+	}
+
+	/**
+	 * @return the columns with stale cells, ordered so that every column comes
+	 * after all columns that it references, or null if the references contain a cycle.
+	 */
+	List<String> getStaleColumnsInEvaluationOrder() {
+		final Map<String, ColumnNode> nodes = new HashMap<String, ColumnNode>();
+		for (final Map.Entry<String, Map<String, Integer>> entry : dependents.entrySet()) {
+			final ColumnNode reference = getNode(nodes, entry.getKey());
+			for (final String dependent : entry.getValue().keySet())
+				getNode(nodes, dependent).references.add(reference);
+		}
+		for (final String column : staleCells.keySet())
+			getNode(nodes, column);
+
+		final List<TopoGraphNode> order;
+		try {
+			order = TopologicalSort.sort(new ArrayList<TopoGraphNode>(nodes.values()));
+		} catch (final IllegalStateException e) {
+			return null;
+		}
+
+		final List<String> columns = new ArrayList<String>();
+		for (final TopoGraphNode node : order) {
+			final String column = ((ColumnNode)node).column;
+			final Set<Object> keys = staleCells.get(column);
+			if (keys != null && !keys.isEmpty())
+				columns.add(column);
+		}
+
+		return columns;
+	}
+
+	/**
+	 * @return the columns with stale cells in no particular order.
+	 */
+	List<String> getStaleColumns() {
+		final List<String> columns = new ArrayList<String>();
+		for (final Map.Entry<String, Set<Object>> entry : staleCells.entrySet()) {
+			if (!entry.getValue().isEmpty())
+				columns.add(entry.getKey());
+		}
+
+		return columns;
+	}
+
+	private static ColumnNode getNode(final Map<String, ColumnNode> nodes, final String column) {
+		ColumnNode node = nodes.get(column);
+		if (node == null) {
+			node = new ColumnNode(column);
+			nodes.put(column, node);
+		}
+
+		return node;
+	}
+
+	long getGeneration() {
+		return generation;
+	}
+
+	long getHits() {
+		return hits;
+	}
+
+	long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the number of changed cells that were referenced by at least one equation.
+	 */
+	long getChanges() {
+		return changes;
+	}
+
+	/**
+	 * @return the number of stale cells that have been evaluated again.
+	 */
+	long getRecomputations() {
+		return recomputations;
+	}
+
+	/**
+	 * @return true if <code>equation</code> only calls functions whose results
+	 * depend on nothing but their arguments, so that its result can only
+	 * change when a cell changes.
+	 */
+	static boolean callsPureFunctionsOnly(final Equation equation) {
+		for (final Object instrOrArg : equation.getCode()) {
+			if (instrOrArg instanceof Function
+			    && !PURE_FUNCTIONS.contains(instrOrArg.getClass().getName()))
+				return false;
+		}
+
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		final long lookups = hits + misses;
+		return "hits: " + hits + ", misses: " + misses
+			+ ", hit rate: " + (lookups == 0 ? 0 : (100 * hits / lookups)) + "%"
+			+ ", changes: " + changes + ", recomputed cells: " + recomputations;
+	}
+
+	/**
+	 * A column whose dependents, in the sense of {@link TopologicalSort},
+	 * are the columns it references and which therefore have to be evaluated first.
+	 */
+	private static final class ColumnNode implements TopoGraphNode {
+		private final String column;
+		private final Collection<TopoGraphNode> references = new HashSet<TopoGraphNode>();
+
+		ColumnNode(final String column) {
+			this.column = column;
+		}
+
+		public Collection<TopoGraphNode> getDependents() {
+			return references;
+		}
+
+		@Override
+		public String toString() {
+			return column;
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Arrays;
+
+
+/**
+ * A column of Long values stored in a <code>long[]</code>.
+ */
+final class LongColumnData extends ColumnarColumnData {
+
+	private long[] values;
+
+	LongColumnData(final RowOrdinals ordinals) {
+		super(ordinals);
+		values = new long[0];
+	}
+
+	@Override
+	protected boolean accepts(final Object value) {
+		return value instanceof Long;
+	}
+
+	@Override
+	protected void grow(final int capacity) {
+		values = Arrays.copyOf(values, capacity);
+	}
+
+	@Override
+	protected int capacity() {
+		return values.length;
+	}
+
+	@Override
+	protected Object getCell(final int ordinal) {
+		return Long.valueOf(values[ordinal]);
+	}
+
+	@Override
+	protected void setCell(final int ordinal, final Object value) {
+		values[ordinal] = ((Long) value).longValue();
+	}
+
+	@Override
+	protected boolean cellEquals(final int ordinal, final Object probe) {
+		return values[ordinal] == ((Long) probe).longValue();
+	}
+
+	@Override
+	protected long getCellMemoryFootprint() {
+		return MemoryEstimates.arraySize(values.length * 8L);
+	}
+}
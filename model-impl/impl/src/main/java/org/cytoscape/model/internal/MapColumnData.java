@@ -0,0 +1,104 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * The original column storage: a HashMap from boxed primary key to boxed value.
+ */
+final class MapColumnData implements ColumnData {
+
+	// HashMap.Entry plus its share of the bucket array.
+	private static final int ENTRY_BYTES = 40;
+
+	private final Map<Object, Object> values;
+
+	MapColumnData(final int initialSize) {
+		values = new HashMap<Object, Object>(initialSize);
+	}
+
+	@Override
+	public Object get(final Object key) {
+		return values.get(key);
+	}
+
+	@Override
+	public Object put(final Object key, final Object value) {
+		return values.put(key, value);
+	}
+
+	@Override
+	public Object remove(final Object key) {
+		return values.remove(key);
+	}
+
+	@Override
+	public int size() {
+		return values.size();
+	}
+
+	@Override
+	public Collection<Object> keys() {
+		return values.keySet();
+	}
+
+	@Override
+	public Collection<Object> findKeys(final Object value) {
+		final List<Object> keys = new ArrayList<Object>();
+		for (final Map.Entry<Object, Object> entry : values.entrySet()) {
+			if (value.equals(entry.getValue()))
+				keys.add(entry.getKey());
+		}
+
+		return keys;
+	}
+
+	@Override
+	public int countKeys(final Object value) {
+		int count = 0;
+		for (final Object v : values.values()) {
+			if (value.equals(v))
+				count++;
+		}
+
+		return count;
+	}
+
+	@Override
+	public long getMemoryFootprint() {
+		long bytes = 0;
+		for (final Object value : values.values())
+			bytes += ENTRY_BYTES + MemoryEstimates.boxedSize(value);
+
+		return bytes;
+	}
+}
@@ -0,0 +1,73 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.List;
+
+
+/**
+ * Rough heap size estimates used by the memory footprint reports.  They
+ * assume a 64-bit JVM with compressed references.
+ */
+final class MemoryEstimates {
+
+	static final int OBJECT_HEADER = 16;
+	static final int REFERENCE = 4;
+
+	private MemoryEstimates() {
+	}
+
+	/**
+	 * @return the estimated size of a boxed cell value, not counting the
+	 * reference to it.
+	 */
+	static long boxedSize(final Object value) {
+		if (value == null)
+			return 0;
+		if (value instanceof Integer || value instanceof Boolean)
+			return OBJECT_HEADER;
+		if (value instanceof Long || value instanceof Double)
+			return OBJECT_HEADER + 8;
+		if (value instanceof String)
+			return stringSize((String) value);
+		if (value instanceof List) {
+			long bytes = OBJECT_HEADER * 2;
+			for (final Object element : (List<?>) value)
+				bytes += REFERENCE + boxedSize(element);
+			return bytes;
+		}
+
+		return OBJECT_HEADER * 4;
+	}
+
+	static long stringSize(final String s) {
+		return OBJECT_HEADER + 8 + arraySize(2L * s.length());
+	}
+
+	static long arraySize(final long payloadBytes) {
+		return OBJECT_HEADER + ((payloadBytes + 7) & ~7L);
+	}
+}
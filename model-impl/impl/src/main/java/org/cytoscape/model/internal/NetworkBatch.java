@@ -0,0 +1,306 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNetworkTableManager;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+
+
+/**
+ * Collects additions and removals of nodes, edges and row values for one
+ * subnetwork and applies them together in {@link #commit()}.
+ * <p>
+ * Compared to calling addNode/addEdge and CyRow.set one at a time, the
+ * commit grows the topology storage once, takes the network locks once and
+ * fires a single AddedNodesEvent and AddedEdgesEvent for the network and a
+ * single RowsCreatedEvent and RowsSetEvent per table, instead of one payload
+ * per element.
+ * <p>
+ * Nodes and edges created by a batch get their SUIDs right away, so they can
+ * be used for further calls on the batch, but they are not part of any
+ * network before the commit.  The commit applies additions first, then row
+ * values and finally removals.  A batch is not thread safe and can only be
+ * committed once, from the thread that collects the row events.
+ */
+public final class NetworkBatch {
+
+	private final CyRootNetworkImpl root;
+	private final CySubNetworkImpl network;
+	private final CyNetworkTableManager networkTableMgr;
+
+	// New nodes and edges, not yet in the root network.
+	private final List<CyNode> newNodes = new ArrayList<CyNode>();
+	private final List<CyEdge> newEdges = new ArrayList<CyEdge>();
+	private final Set<CyNode> pendingNodes = new HashSet<CyNode>();
+
+	// Nodes and edges of the root network to add to the subnetwork.
+	private final Set<CyNode> existingNodes = new LinkedHashSet<CyNode>();
+	private final Set<CyEdge> existingEdges = new LinkedHashSet<CyEdge>();
+
+	private final List<RowValue> values = new ArrayList<RowValue>();
+	private final List<CyNode> removedNodes = new ArrayList<CyNode>();
+	private final List<CyEdge> removedEdges = new ArrayList<CyEdge>();
+
+	private boolean committed;
+
+	NetworkBatch(final CyRootNetworkImpl root, final CySubNetworkImpl network,
+	             final CyNetworkTableManager networkTableMgr) {
+		this.root = root;
+		this.network = network;
+		this.networkTableMgr = networkTableMgr;
+	}
+
+	public CySubNetworkImpl getNetwork() {
+		return network;
+	}
+
+	/**
+	 * Creates a new node that is added to the root network and the
+	 * subnetwork on commit.
+	 */
+	public CyNode addNode() {
+		checkNotCommitted();
+		final CyNode node = root.createNode();
+		newNodes.add(node);
+		pendingNodes.add(node);
+		return node;
+	}
+
+	/**
+	 * Adds a node of the root network to the subnetwork on commit, copying
+	 * its shared attributes like CySubNetwork.addNode(CyNode) does.
+	 */
+	public void addNode(final CyNode node) {
+		checkNotCommitted();
+		if (node == null)
+			throw new NullPointerException("node is null");
+		if (!root.containsNode(node))
+			throw new IllegalArgumentException("node is not contained in parent network.");
+
+		existingNodes.add(node);
+	}
+
+	/**
+	 * Creates a new edge that is added to the root network and the
+	 * subnetwork on commit.  Both nodes must be in the subnetwork or be
+	 * added by this batch.
+	 */
+	public CyEdge addEdge(final CyNode source, final CyNode target, final boolean isDirected) {
+		checkNotCommitted();
+		checkEndPoint(source);
+		checkEndPoint(target);
+
+		final CyEdge edge = root.createEdge(source, target, isDirected);
+		newEdges.add(edge);
+		return edge;
+	}
+
+	/**
+	 * Adds an edge of the root network, and its nodes, to the subnetwork on commit.
+	 */
+	public void addEdge(final CyEdge edge) {
+		checkNotCommitted();
+		if (edge == null)
+			throw new NullPointerException("edge is null");
+		if (!root.containsEdge(edge))
+			throw new IllegalArgumentException("edge is not contained in parent network.");
+
+		existingNodes.add(edge.getSource());
+		existingNodes.add(edge.getTarget());
+		existingEdges.add(edge);
+	}
+
+	/**
+	 * Removes nodes, and their adjacent edges, from the subnetwork on commit.
+	 */
+	public void removeNodes(final Collection<CyNode> nodes) {
+		checkNotCommitted();
+		removedNodes.addAll(nodes);
+	}
+
+	/**
+	 * Removes edges from the subnetwork on commit.
+	 */
+	public void removeEdges(final Collection<CyEdge> edges) {
+		checkNotCommitted();
+		removedEdges.addAll(edges);
+	}
+
+	/**
+	 * Sets a value in the default table of the subnetwork on commit.
+	 */
+	public void set(final CyIdentifiable entry, final String columnName, final Object value) {
+		set(entry, CyNetwork.DEFAULT_ATTRS, columnName, value);
+	}
+
+	/**
+	 * Sets a value in the named table of the subnetwork on commit.
+	 * A null value unsets the cell.
+	 */
+	public void set(final CyIdentifiable entry, final String tableName, final String columnName,
+	                final Object value) {
+		checkNotCommitted();
+		if (entry == null)
+			throw new NullPointerException("entry is null");
+		if (tableName == null)
+			throw new NullPointerException("tableName is null");
+		if (columnName == null)
+			throw new NullPointerException("columnName is null");
+
+		values.add(new RowValue(entry, tableName, columnName, value));
+	}
+
+	/**
+	 * Applies all collected changes and fires the coalesced events.  The row
+	 * events of each table are fired before the AddedNodesEvent and
+	 * AddedEdgesEvent, so listeners of the latter see the new rows and values
+	 * as already announced.  If the additions or row values cannot be applied,
+	 * whatever was applied is undone, no events are fired and the exception
+	 * is passed on.
+	 */
+	public void commit() {
+		checkNotCommitted();
+		committed = true;
+
+		final List<CyTableImpl> tables = getTables();
+		for (final CyTableImpl table : tables)
+			table.beginBatch();
+
+		final List<CyNode> addedNodes = new ArrayList<CyNode>(newNodes.size() + existingNodes.size());
+		final List<CyEdge> addedEdges = new ArrayList<CyEdge>(newEdges.size() + existingEdges.size());
+		final List<RowValue> oldValues = new ArrayList<RowValue>(values.size());
+		boolean applied = false;
+		try {
+			network.addBatchInternal(newNodes, newEdges, existingNodes, existingEdges, addedNodes, addedEdges);
+
+			for (final RowValue v : values) {
+				final CyRow row = network.getRow(v.entry, v.tableName);
+				oldValues.add(new RowValue(v.entry, v.tableName, v.columnName, row.getRaw(v.columnName)));
+				row.set(v.columnName, v.value);
+			}
+
+			applied = true;
+		} finally {
+			if (!applied)
+				rollback(addedNodes, addedEdges, oldValues);
+
+			for (final CyTableImpl table : tables) {
+				if (applied)
+					table.endBatch();
+				else
+					table.discardBatch();
+			}
+		}
+
+		network.fireAddedNodesAndEdges(addedNodes, addedEdges);
+
+		if (!removedEdges.isEmpty())
+			network.removeEdges(removedEdges);
+		if (!removedNodes.isEmpty())
+			network.removeNodes(removedNodes);
+	}
+
+	/**
+	 * Restores the previous row values in reverse order and takes the added
+	 * nodes and edges out of the subnetwork, and the new ones out of the root
+	 * network, together with their rows.
+	 */
+	private void rollback(final List<CyNode> addedNodes, final List<CyEdge> addedEdges,
+	                      final List<RowValue> oldValues) {
+		for (int i = oldValues.size() - 1; i >= 0; i--) {
+			final RowValue v = oldValues.get(i);
+			network.getRow(v.entry, v.tableName).set(v.columnName, v.value);
+		}
+
+		network.removeBatchInternal(addedNodes, addedEdges);
+		root.removeAllInternal(newNodes, newEdges);
+	}
+
+	private void checkNotCommitted() {
+		if (committed)
+			throw new IllegalStateException("batch has already been committed.");
+	}
+
+	private void checkEndPoint(final CyNode node) {
+		if (node == null)
+			throw new NullPointerException("node is null");
+		if (!pendingNodes.contains(node) && !existingNodes.contains(node) && !network.containsNode(node))
+			throw new IllegalArgumentException("node is neither in the network nor added by this batch.");
+	}
+
+	/**
+	 * @return the actual tables behind the node and edge tables of the root
+	 * network and the subnetwork, which are the ones that fire row events.
+	 */
+	private List<CyTableImpl> getTables() {
+		final Set<CyTableImpl> tables = new LinkedHashSet<CyTableImpl>();
+		for (final CyNetwork net : new CyNetwork[] { root, network }) {
+			for (final Class<? extends CyIdentifiable> type : new Class[] { CyNode.class, CyEdge.class }) {
+				for (final CyTable table : networkTableMgr.getTables(net, type).values()) {
+					final CyTable actual;
+					if (table instanceof LocalTableFacade)
+						actual = ((LocalTableFacade) table).getLocalTable();
+					else if (table instanceof SharedTableFacade)
+						actual = ((SharedTableFacade) table).getActualTable();
+					else
+						actual = table;
+
+					if (actual instanceof CyTableImpl)
+						tables.add((CyTableImpl) actual);
+				}
+			}
+		}
+
+		return new ArrayList<CyTableImpl>(tables);
+	}
+
+	private static final class RowValue {
+		final CyIdentifiable entry;
+		final String tableName;
+		final String columnName;
+		final Object value;
+
+		RowValue(final CyIdentifiable entry, final String tableName, final String columnName, final Object value) {
+			this.entry = entry;
+			this.tableName = tableName;
+			this.columnName = columnName;
+			this.value = value;
+		}
+	}
+}
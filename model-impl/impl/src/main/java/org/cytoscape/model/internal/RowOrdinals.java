@@ -0,0 +1,147 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import cern.colt.map.tlong.OpenLongIntHashMap;
+
+
+/**
+ * Assigns a dense int ordinal to every primary key of a columnar table, so
+ * that all columns can store their cells in plain arrays indexed by ordinal.
+ * Ordinals of deleted rows are recycled.
+ */
+final class RowOrdinals {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	// Used for Long primary keys, which avoids one Integer per row.
+	private final OpenLongIntHashMap longKeys;
+	private final Map<Object, Integer> otherKeys;
+
+	private Object[] keys;
+	private int top;
+	private int[] free;
+	private int freeCount;
+
+	RowOrdinals(final Class<?> primaryKeyType, final int initialSize) {
+		final int capacity = Math.max(INITIAL_CAPACITY, initialSize);
+		if (primaryKeyType == Long.class) {
+			longKeys = new OpenLongIntHashMap(capacity);
+			otherKeys = null;
+		} else {
+			longKeys = null;
+			otherKeys = new HashMap<Object, Integer>(capacity);
+		}
+
+		keys = new Object[capacity];
+		free = new int[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * @return the ordinal of <code>key</code> or -1 if it has none.
+	 */
+	int get(final Object key) {
+		if (longKeys != null) {
+			if (!(key instanceof Long))
+				return -1;
+
+			final long k = ((Long) key).longValue();
+			return longKeys.containsKey(k) ? longKeys.get(k) : -1;
+		}
+
+		final Integer ordinal = otherKeys.get(key);
+		return ordinal == null ? -1 : ordinal.intValue();
+	}
+
+	int getOrCreate(final Object key) {
+		final int existing = get(key);
+		if (existing >= 0)
+			return existing;
+
+		final int ordinal;
+		if (freeCount > 0) {
+			ordinal = free[--freeCount];
+		} else {
+			if (top == keys.length)
+				keys = Arrays.copyOf(keys, top + (top >> 1) + 1);
+			ordinal = top++;
+		}
+
+		keys[ordinal] = key;
+		if (longKeys != null)
+			longKeys.put(((Long) key).longValue(), ordinal);
+		else
+			otherKeys.put(key, Integer.valueOf(ordinal));
+
+		return ordinal;
+	}
+
+	/**
+	 * Frees the ordinal of <code>key</code> for reuse.  All columns must
+	 * have cleared their cells for this key beforehand.
+	 */
+	void release(final Object key) {
+		final int ordinal = get(key);
+		if (ordinal < 0)
+			return;
+
+		if (longKeys != null)
+			longKeys.removeKey(((Long) key).longValue());
+		else
+			otherKeys.remove(key);
+
+		keys[ordinal] = null;
+		if (freeCount == free.length)
+			free = Arrays.copyOf(free, freeCount * 2);
+		free[freeCount++] = ordinal;
+	}
+
+	Object getKey(final int ordinal) {
+		return keys[ordinal];
+	}
+
+	/**
+	 * @return one more than the highest ordinal handed out so far.
+	 */
+	int getLimit() {
+		return top;
+	}
+
+	long getMemoryFootprint() {
+		long bytes = MemoryEstimates.arraySize((long) keys.length * MemoryEstimates.REFERENCE);
+		bytes += MemoryEstimates.arraySize(free.length * 4L);
+		if (longKeys != null)
+			bytes += (long) longKeys.size() * 20; // long key, int value and state
+		else
+			bytes += (long) otherKeys.size() * (40 + MemoryEstimates.OBJECT_HEADER);
+
+		return bytes;
+	}
+}
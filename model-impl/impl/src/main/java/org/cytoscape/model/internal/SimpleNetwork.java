@@ -30,6 +30,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNode;
@@ -42,9 +43,24 @@ import cern.colt.map.tobject.OpenLongObjectHashMap;
  * operations not fully represented here are addNode and addEdge.
  * Instead we provide addNodeInternal and addEdgeInternal, which
  * add a provided CyNode/CyEdge object to the network topology. 
+ * <p>
+ * By default every read is synchronized on the network.  When concurrent
+ * reads are enabled, readers instead query an immutable {@link TopologySnapshot}
+ * without taking the lock.  Writers still mutate the live structure under
+ * the lock and simply discard the snapshot, which is rebuilt lazily once
+ * enough reads have arrived to pay for the copy.
+ * <p>
+ * With {@link TopologyStorage#COMPACT} storage the pointer structure is
+ * replaced by a {@link CompactTopology}.  That store is always accessed
+ * under the network lock, so concurrent reads have no effect on it.
  */
 class SimpleNetwork {
 	
+	// Minimum number of locked reads after a modification before the
+	// snapshot is rebuilt.  The actual threshold also grows with the size
+	// of the network so that a rebuild is amortized over the reads it serves.
+	private static final int MIN_STALE_READS = 16;
+	
 	// Unique ID for this
 	private final Long suid;
 
@@ -61,44 +77,178 @@ class SimpleNetwork {
 	
 	private NodePointer firstNode;
 
+	// Only used for COMPACT storage, in which case the pointer maps are null.
+	private final CompactTopology compact;
+
+	private volatile boolean concurrentReads;
+	private volatile TopologySnapshot snapshot;
+	private final AtomicInteger staleReads;
+
 	SimpleNetwork(final long suid) {
+		this(suid, TopologyStorage.LINKED);
+	}
+
+	SimpleNetwork(final long suid, final TopologyStorage storage) {
 		this.suid = suid; 
 		nodeCount = 0;
 		edgeCount = 0;
 		firstNode = null; 
-		nodePointers = new OpenLongObjectHashMap();
-		edgePointers = new OpenLongObjectHashMap();
+		if (storage == TopologyStorage.COMPACT) {
+			compact = new CompactTopology();
+			nodePointers = null;
+			edgePointers = null;
+		} else {
+			compact = null;
+			nodePointers = new OpenLongObjectHashMap();
+			edgePointers = new OpenLongObjectHashMap();
+		}
+		concurrentReads = false;
+		snapshot = null;
+		staleReads = new AtomicInteger();
 	}
 
 	public Long getSUID() {
 		return suid;
 	}
 
-	public synchronized int getNodeCount() {
-		return nodeCount; 
+	/**
+	 * Switches between monitor based reads (the default) and lock-free
+	 * reads from an immutable topology snapshot.
+	 */
+	void setConcurrentReads(final boolean concurrentReads) {
+		synchronized (this) {
+			this.concurrentReads = concurrentReads;
+			topologyChanged();
+		}
+	}
+
+	boolean isConcurrentReads() {
+		return concurrentReads;
 	}
 
-	public synchronized int getEdgeCount() {
-		return edgeCount; 
+	TopologyStorage getTopologyStorage() {
+		return compact == null ? TopologyStorage.LINKED : TopologyStorage.COMPACT;
 	}
 
-	public synchronized CyEdge getEdge(final long e) {
-		final EdgePointer ep = (EdgePointer)edgePointers.get(e);
-		if ( ep != null )
-			return ep.cyEdge;
-		else
-			return null;
+	/**
+	 * Returns an estimate of the heap used by the topology of this network
+	 * in bytes, not counting the CyNode and CyEdge objects themselves.
+	 */
+	public synchronized long getTopologyMemoryFootprint() {
+		if (compact != null)
+			return compact.getMemoryFootprint();
+
+		// NodePointer: header, 2 longs/ints, 4 references and 4 ints.
+		// EdgePointer: header, long, boolean and 6 references.
+		// Each map entry: key, value reference and state with free space.
+		final long nodeBytes = 16 + 8 + 4 * 8 + 4 * 4 + 20;
+		final long edgeBytes = 16 + 8 + 8 + 6 * 8 + 20;
+		long bytes = nodeCount * nodeBytes + edgeCount * edgeBytes;
+		if (snapshot != null)
+			bytes *= 2;
+
+		return bytes;
 	}
 
-	public synchronized CyNode getNode(final long n) {
-		final NodePointer np = (NodePointer)nodePointers.get(n);
-		if ( np != null )
-			return np.cyNode;
-		else
+	/**
+	 * Returns a snapshot that is consistent with the current topology, or
+	 * null if readers should fall back to the locked path.
+	 */
+	private TopologySnapshot currentSnapshot() {
+		if (!concurrentReads || compact != null)
+			return null;
+
+		final TopologySnapshot s = snapshot;
+		if (s != null)
+			return s;
+
+		if (staleReads.incrementAndGet() < MIN_STALE_READS + ((nodeCount + edgeCount) >>> 3))
 			return null;
+
+		synchronized (this) {
+			if (snapshot == null && concurrentReads)
+				snapshot = TopologySnapshot.build(firstNode, nodeCount, edgeCount);
+			return snapshot;
+		}
 	}
 
-	public synchronized List<CyNode> getNodeList() {
+	/**
+	 * Must be called while holding the lock, before the live topology is
+	 * modified.
+	 */
+	private void topologyChanged() {
+		snapshot = null;
+		staleReads.set(0);
+	}
+
+	public int getNodeCount() {
+		final TopologySnapshot s = currentSnapshot();
+		if (s != null)
+			return s.getNodeCount();
+
+		synchronized (this) {
+			return nodeCount; 
+		}
+	}
+
+	public int getEdgeCount() {
+		final TopologySnapshot s = currentSnapshot();
+		if (s != null)
+			return s.getEdgeCount();
+
+		synchronized (this) {
+			return edgeCount; 
+		}
+	}
+
+	public CyEdge getEdge(final long e) {
+		final TopologySnapshot s = currentSnapshot();
+		if (s != null)
+			return s.getEdge(e);
+
+		synchronized (this) {
+			if (compact != null)
+				return compact.getEdge(e);
+
+			final EdgePointer ep = (EdgePointer)edgePointers.get(e);
+			if ( ep != null )
+				return ep.cyEdge;
+			else
+				return null;
+		}
+	}
+
+	public CyNode getNode(final long n) {
+		final TopologySnapshot s = currentSnapshot();
+		if (s != null)
+			return s.getNode(n);
+
+		synchronized (this) {
+			if (compact != null)
+				return compact.getNode(n);
+
+			final NodePointer np = (NodePointer)nodePointers.get(n);
+			if ( np != null )
+				return np.cyNode;
+			else
+				return null;
+		}
+	}
+
+	public List<CyNode> getNodeList() {
+		final TopologySnapshot s = currentSnapshot();
+		if (s != null)
+			return s.getNodeList();
+
+		synchronized (this) {
+			return getNodeListInternal();
+		}
+	}
+
+	private List<CyNode> getNodeListInternal() {
+		if (compact != null)
+			return compact.getNodeList();
+
 		final List<CyNode> ret = new ArrayList<CyNode>(nodeCount);
 		int numRemaining = nodeCount;
 		NodePointer node = firstNode;
@@ -115,7 +265,20 @@ class SimpleNetwork {
 		return ret;
 	}
 
-	public synchronized List<CyEdge> getEdgeList() {
+	public List<CyEdge> getEdgeList() {
+		final TopologySnapshot s = currentSnapshot();
+		if (s != null)
+			return s.getEdgeList();
+
+		synchronized (this) {
+			return getEdgeListInternal();
+		}
+	}
+
+	private List<CyEdge> getEdgeListInternal() {
+		if (compact != null)
+			return compact.getEdgeList();
+
 		final List<CyEdge> ret = new ArrayList<CyEdge>(edgeCount);
 		EdgePointer edge = null;
 
@@ -144,8 +307,21 @@ class SimpleNetwork {
 		return ret;
 	}
 
-	public synchronized List<CyNode> getNeighborList(final CyNode n, final CyEdge.Type e) {
-		if (!containsNode(n)) 
+	public List<CyNode> getNeighborList(final CyNode n, final CyEdge.Type e) {
+		final TopologySnapshot s = currentSnapshot();
+		if (s != null)
+			return s.getNeighborList(n, e);
+
+		synchronized (this) {
+			return getNeighborListInternal(n, e);
+		}
+	}
+
+	private List<CyNode> getNeighborListInternal(final CyNode n, final CyEdge.Type e) {
+		if (compact != null)
+			return compact.getNeighborList(n, e);
+
+		if (!containsNodeInternal(n)) 
 			return Collections.emptyList(); 
 
 		final NodePointer np = getNodePointer(n);
@@ -154,14 +330,27 @@ class SimpleNetwork {
 		while (it.hasNext()) {
 			final EdgePointer edge = it.next();
 			final long neighborIndex = np.index ^ edge.source.index ^ edge.target.index;
-			ret.add(getNode(neighborIndex));
+			ret.add(((NodePointer)nodePointers.get(neighborIndex)).cyNode);
 		}
 
 		return ret;
 	}
 
-	public synchronized List<CyEdge> getAdjacentEdgeList(final CyNode n, final CyEdge.Type e) {
-		if (!containsNode(n)) 
+	public List<CyEdge> getAdjacentEdgeList(final CyNode n, final CyEdge.Type e) {
+		final TopologySnapshot s = currentSnapshot();
+		if (s != null)
+			return s.getAdjacentEdgeList(n, e);
+
+		synchronized (this) {
+			return getAdjacentEdgeListInternal(n, e);
+		}
+	}
+
+	private List<CyEdge> getAdjacentEdgeListInternal(final CyNode n, final CyEdge.Type e) {
+		if (compact != null)
+			return compact.getAdjacentEdgeList(n, e);
+
+		if (!containsNodeInternal(n)) 
 			return Collections.emptyList(); 
 
 		final NodePointer np = getNodePointer(n);
@@ -175,12 +364,23 @@ class SimpleNetwork {
 		return ret;
 	}
 
-	public synchronized Iterable<CyEdge> getAdjacentEdgeIterable(final CyNode n, final CyEdge.Type e) {
-		if (!containsNode(n)) 
-			return Collections.emptyList();
+	public Iterable<CyEdge> getAdjacentEdgeIterable(final CyNode n, final CyEdge.Type e) {
+		final TopologySnapshot s = currentSnapshot();
+		if (s != null)
+			return s.getAdjacentEdgeIterable(n, e);
 
-		final NodePointer np = getNodePointer(n);
-		return new IterableEdgeIterator( edgesAdjacent(np, e) ); 
+		synchronized (this) {
+			// the compact store may be compacted under an iterator, so
+			// hand out a copy instead
+			if (compact != null)
+				return compact.getAdjacentEdgeList(n, e);
+
+			if (!containsNodeInternal(n)) 
+				return Collections.emptyList();
+
+			final NodePointer np = getNodePointer(n);
+			return new IterableEdgeIterator( edgesAdjacent(np, e) ); 
+		}
 	}
 
 
@@ -193,11 +393,24 @@ class SimpleNetwork {
 		public Iterator<CyEdge> iterator() { return this; }
 	}
 
-	public synchronized List<CyEdge> getConnectingEdgeList(final CyNode src, final CyNode trg, final CyEdge.Type e) {
-		if (!containsNode(src)) 
+	public List<CyEdge> getConnectingEdgeList(final CyNode src, final CyNode trg, final CyEdge.Type e) {
+		final TopologySnapshot s = currentSnapshot();
+		if (s != null)
+			return s.getConnectingEdgeList(src, trg, e);
+
+		synchronized (this) {
+			return getConnectingEdgeListInternal(src, trg, e);
+		}
+	}
+
+	private List<CyEdge> getConnectingEdgeListInternal(final CyNode src, final CyNode trg, final CyEdge.Type e) {
+		if (compact != null)
+			return compact.getConnectingEdgeList(src, trg, e);
+
+		if (!containsNodeInternal(src)) 
 			return Collections.emptyList(); 
 
-		if (!containsNode(trg)) 
+		if (!containsNodeInternal(trg)) 
 			return Collections.emptyList(); 
 
 		final NodePointer srcP = getNodePointer(src);
@@ -213,15 +426,36 @@ class SimpleNetwork {
 		return ret;
 	}
 
+	/**
+	 * Allocates room for <code>moreNodes</code> nodes and <code>moreEdges</code>
+	 * edges up front, so that bulk additions don't grow the storage repeatedly.
+	 */
+	synchronized void ensureCapacity(final int moreNodes, final int moreEdges) {
+		if (compact != null) {
+			compact.ensureCapacity(moreNodes, moreEdges);
+			return;
+		}
+
+		nodePointers.ensureCapacity(nodeCount + moreNodes);
+		edgePointers.ensureCapacity(edgeCount + moreEdges);
+	}
+
 	/**
 	 * IMPORTANT: this is not protected by synchronized 
 	 * because caller always uses lock.
 	 */
 	CyNode addNodeInternal(final CyNode node) {
+		if (compact != null) {
+			if (compact.addNode(node))
+				nodeCount++;
+			return node;
+		}
+
 		// node already exists in this network
-		if (containsNode(node))
+		if (containsNodeInternal(node))
 			return node;
 
+		topologyChanged();
 		final NodePointer n = new NodePointer(node);
 		nodePointers.put(node.getSUID(), n);
 		nodeCount++;
@@ -237,11 +471,22 @@ class SimpleNetwork {
 		boolean madeChanges = false;
 		synchronized (this) {
 			for ( CyNode n : nodes ) {
-				if (!containsNode(n)) 
+				if (compact != null) {
+					if (compact.removeNode(n)) {
+						nodeCount = compact.getNodeCount();
+						edgeCount = compact.getEdgeCount();
+						madeChanges = true;
+					}
+					continue;
+				}
+
+				if (!containsNodeInternal(n)) 
 					continue;
 
+				topologyChanged();
+
 				// remove adjacent edges from network
-				removeEdgesInternal(getAdjacentEdgeList(n, CyEdge.Type.ANY));
+				removeEdgesInternal(getAdjacentEdgeListInternal(n, CyEdge.Type.ANY));
 	
 				final NodePointer node = (NodePointer)nodePointers.get(n.getSUID());
 				nodePointers.removeKey(n.getSUID());
@@ -260,18 +505,26 @@ class SimpleNetwork {
 		final EdgePointer e;
 
 		synchronized (this) {
+			if (compact != null) {
+				if (compact.addEdge(s, t, directed, edge))
+					edgeCount++;
+				return edge;
+			}
+
 			// here we check with possible sub node, not just root node
-			if (!containsNode(s))
+			if (!containsNodeInternal(s))
 				throw new IllegalArgumentException("source node is not a member of this network");
 
 			// here we check with possible sub node, not just root node
-			if (!containsNode(t))
+			if (!containsNodeInternal(t))
 				throw new IllegalArgumentException("target node is not a member of this network");
 
 			// edge already exists in this network
-			if ( containsEdge(edge) )
+			if ( containsEdgeInternal(edge) )
 				return edge;
 
+			topologyChanged();
+
 			final NodePointer source = getNodePointer(s);
 			final NodePointer target = getNodePointer(t);
 
@@ -292,9 +545,18 @@ class SimpleNetwork {
 		boolean madeChanges = false;
 		synchronized (this) {
 			for (CyEdge edge : edges) {
-				if (!containsEdge(edge))
+				if (compact != null) {
+					if (compact.removeEdge(edge)) {
+						edgeCount--;
+						madeChanges = true;
+					}
+					continue;
+				}
+
+				if (!containsEdgeInternal(edge))
 					continue;
 	
+				topologyChanged();
 				final EdgePointer e = (EdgePointer)edgePointers.get(edge.getSUID());
 				edgePointers.removeKey(edge.getSUID());
 	
@@ -312,9 +574,23 @@ class SimpleNetwork {
 		if (node == null)
 			return false;
 
+		final TopologySnapshot s = currentSnapshot();
+		if (s != null)
+			return s.containsNode(node);
+
+		return containsNodeInternal(node);
+	}
+
+	private boolean containsNodeInternal(final CyNode node) {
+		if (node == null)
+			return false;
+
 		final NodePointer thisNode; 
 
 		synchronized (this) {
+			if (compact != null)
+				return compact.containsNode(node);
+
 			thisNode = (NodePointer)nodePointers.get(node.getSUID());
 		}
 
@@ -328,9 +604,23 @@ class SimpleNetwork {
 		if (edge == null)
 			return false;
 
+		final TopologySnapshot s = currentSnapshot();
+		if (s != null)
+			return s.containsEdge(edge);
+
+		return containsEdgeInternal(edge);
+	}
+
+	private boolean containsEdgeInternal(final CyEdge edge) {
+		if (edge == null)
+			return false;
+
 		final EdgePointer thisEdge; 
 
 		synchronized (this) {
+			if (compact != null)
+				return compact.containsEdge(edge);
+
 			thisEdge = (EdgePointer)edgePointers.get(edge.getSUID());
 		}
 
@@ -340,14 +630,27 @@ class SimpleNetwork {
 		return thisEdge.cyEdge.equals(edge);
 	}
 
-	public synchronized boolean containsEdge(final CyNode n1, final CyNode n2) {
+	public boolean containsEdge(final CyNode n1, final CyNode n2) {
+		final TopologySnapshot s = currentSnapshot();
+		if (s != null)
+			return s.containsEdge(n1, n2);
+
+		synchronized (this) {
+			return containsEdgeInternal(n1, n2);
+		}
+	}
+
+	private boolean containsEdgeInternal(final CyNode n1, final CyNode n2) {
+		if (compact != null)
+			return compact.containsEdge(n1, n2);
+
 		//System.out.println("private containsEdge");
-		if (!containsNode(n1)) {
+		if (!containsNodeInternal(n1)) {
 			//System.out.println("private containsEdge doesn't contain node1 " + inId);
 			return false;
 		}
 
-		if (!containsNode(n2)) {
+		if (!containsNodeInternal(n2)) {
 			//System.out.println("private containsEdge doesn't contain node2 " + inId);
 			return false;
 		}
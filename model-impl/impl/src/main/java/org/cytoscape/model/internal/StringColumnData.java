@@ -0,0 +1,141 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * A dictionary encoded column of String values.  Every distinct string is
+ * stored once and cells only hold an <code>int</code> code.  Codes are
+ * reference counted so that the dictionary doesn't grow without bound when
+ * values keep changing.
+ */
+final class StringColumnData extends ColumnarColumnData {
+
+	private int[] codes;
+
+	private final Map<String, Integer> dictionary;
+	private final List<String> strings;
+	private int[] refCounts;
+	private int[] freeCodes;
+	private int freeCount;
+
+	StringColumnData(final RowOrdinals ordinals) {
+		super(ordinals);
+		codes = new int[0];
+		dictionary = new HashMap<String, Integer>();
+		strings = new ArrayList<String>();
+		refCounts = new int[16];
+		freeCodes = new int[16];
+	}
+
+	@Override
+	protected boolean accepts(final Object value) {
+		return value instanceof String;
+	}
+
+	@Override
+	protected void grow(final int capacity) {
+		codes = Arrays.copyOf(codes, capacity);
+	}
+
+	@Override
+	protected int capacity() {
+		return codes.length;
+	}
+
+	@Override
+	protected Object getCell(final int ordinal) {
+		return strings.get(codes[ordinal]);
+	}
+
+	@Override
+	protected void setCell(final int ordinal, final Object value) {
+		final String s = (String) value;
+		final Integer existing = dictionary.get(s);
+		final int code;
+		if (existing != null) {
+			code = existing.intValue();
+		} else {
+			if (freeCount > 0) {
+				code = freeCodes[--freeCount];
+				strings.set(code, s);
+			} else {
+				code = strings.size();
+				strings.add(s);
+				if (code == refCounts.length)
+					refCounts = Arrays.copyOf(refCounts, code * 2);
+			}
+			dictionary.put(s, Integer.valueOf(code));
+		}
+
+		refCounts[code]++;
+		codes[ordinal] = code;
+	}
+
+	@Override
+	protected void clearCell(final int ordinal) {
+		final int code = codes[ordinal];
+		if (--refCounts[code] == 0) {
+			dictionary.remove(strings.get(code));
+			strings.set(code, null);
+			if (freeCount == freeCodes.length)
+				freeCodes = Arrays.copyOf(freeCodes, freeCount * 2);
+			freeCodes[freeCount++] = code;
+		}
+	}
+
+	/**
+	 * Resolves the dictionary code once, so that scans only compare ints.
+	 */
+	@Override
+	protected Object toProbe(final Object value) {
+		return dictionary.get(value);
+	}
+
+	@Override
+	protected boolean cellEquals(final int ordinal, final Object probe) {
+		return codes[ordinal] == ((Integer) probe).intValue();
+	}
+
+	@Override
+	protected long getCellMemoryFootprint() {
+		long bytes = MemoryEstimates.arraySize(codes.length * 4L);
+		bytes += MemoryEstimates.arraySize(refCounts.length * 4L);
+		bytes += MemoryEstimates.arraySize(freeCodes.length * 4L);
+		bytes += MemoryEstimates.arraySize((long) strings.size() * MemoryEstimates.REFERENCE);
+		for (final String s : dictionary.keySet())
+			// the string itself plus its dictionary entry and boxed code
+			bytes += MemoryEstimates.stringSize(s) + 40 + MemoryEstimates.OBJECT_HEADER;
+
+		return bytes;
+	}
+}
@@ -26,6 +26,8 @@ package org.cytoscape.model.internal;
 
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
 
@@ -38,6 +40,8 @@ import org.cytoscape.model.events.ColumnCreatedEvent;
 import org.cytoscape.model.events.ColumnDeletedEvent;
 import org.cytoscape.model.events.ColumnNameChangedEvent;
 import org.cytoscape.model.events.RowSetRecord;
+import org.cytoscape.model.events.RowsCreatedEvent;
+import org.cytoscape.model.events.RowsSetEvent;
 import org.cytoscape.model.events.TablePrivacyChangedEvent;
 import org.cytoscape.model.events.TableTitleChangedEvent;
 
@@ -93,6 +97,18 @@ public class TableEventHelperFacade implements CyEventHelper {
 		} else if ( event instanceof ColumnCreatedEvent ) {
 			ColumnCreatedEvent e = (ColumnCreatedEvent)event;
 			facadeEvent = new ColumnCreatedEvent(facade, e.getColumnName());
+
+		} else if ( event instanceof RowsCreatedEvent ) {
+			// fired by CyTableImpl.endBatch() instead of individual payloads
+			RowsCreatedEvent e = (RowsCreatedEvent)event;
+			facadeEvent = new RowsCreatedEvent(facade, e.getPayloadCollection());
+
+		} else if ( event instanceof RowsSetEvent ) {
+			RowsSetEvent e = (RowsSetEvent)event;
+			List<RowSetRecord> records = new ArrayList<RowSetRecord>(e.getPayloadCollection().size());
+			for ( RowSetRecord record : e.getPayloadCollection() )
+				records.add(toFacadeRecord(facade, record));
+			facadeEvent = new RowsSetEvent(facade, records);
 		}
 
 
@@ -115,17 +131,21 @@ public class TableEventHelperFacade implements CyEventHelper {
 				return;
 			if (payload instanceof RowSetRecord){
 				@SuppressWarnings("unchecked")
-				P newRSC = (P) new RowSetRecord(facade.getRow(((RowSetRecord) payload).getRow().get(CyNetwork.SUID, Long.class)), 
-						((RowSetRecord) payload).getColumn(), 
-						((RowSetRecord) payload).getValue(), 
-						((RowSetRecord) payload).getRawValue()
-						);
+				P newRSC = (P) toFacadeRecord(facade, (RowSetRecord) payload);
 				actualHelper.addEventPayload((S)facade,newRSC,eventType);
 			}else
 				actualHelper.addEventPayload((S)facade,payload,eventType);
 		}
 	}
 
+	private static RowSetRecord toFacadeRecord(LocalTableFacade facade, RowSetRecord record) {
+		return new RowSetRecord(facade.getRow(record.getRow().get(CyNetwork.SUID, Long.class)), 
+				record.getColumn(), 
+				record.getValue(), 
+				record.getRawValue()
+				);
+	}
+
 	public void flushPayloadEvents() {
 		actualHelper.flushPayloadEvents();
 	}
@@ -0,0 +1,357 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+
+import cern.colt.map.tobject.OpenLongObjectHashMap;
+
+
+/**
+ * An immutable copy of the topology of a {@link SimpleNetwork}. Once
+ * published, a snapshot is never modified again, so any number of threads
+ * may query it without holding the network lock.
+ * <p>
+ * The adjacent edges of every node are stored in a single array ordered as
+ * [outgoing, directed self-loops, incoming, undirected], so that each
+ * {@link CyEdge.Type} maps onto one contiguous range of that array.
+ */
+final class TopologySnapshot {
+
+	private final CyNode[] nodes;
+	private final CyEdge[] edges;
+
+	// Read-only after construction, so concurrent lookups are safe.
+	private final OpenLongObjectHashMap nodeEntries;
+	private final OpenLongObjectHashMap edgeMap;
+
+	private TopologySnapshot(final CyNode[] nodes, final CyEdge[] edges,
+	                         final OpenLongObjectHashMap nodeEntries, final OpenLongObjectHashMap edgeMap) {
+		this.nodes = nodes;
+		this.edges = edges;
+		this.nodeEntries = nodeEntries;
+		this.edgeMap = edgeMap;
+	}
+
+	/**
+	 * Copies the topology reachable from <code>firstNode</code>. The caller
+	 * must hold the network lock for the duration of this call.
+	 */
+	static TopologySnapshot build(final NodePointer firstNode, final int nodeCount, final int edgeCount) {
+		final CyNode[] nodes = new CyNode[nodeCount];
+		final CyEdge[] edges = new CyEdge[edgeCount];
+		final OpenLongObjectHashMap nodeEntries = new OpenLongObjectHashMap(nodeCount);
+		final OpenLongObjectHashMap edgeMap = new OpenLongObjectHashMap(edgeCount);
+
+		int nodeIndex = 0;
+		int edgeIndex = 0;
+
+		for (NodePointer np = firstNode; np != null && nodeIndex < nodeCount; np = np.nextNode) {
+			final NodeEntry entry = new NodeEntry(np);
+			nodeEntries.put(np.index, entry);
+			nodes[nodeIndex++] = np.cyNode;
+
+			// Every edge is in exactly one outgoing list, which makes that
+			// list the natural place to collect the network's edges.
+			for (EdgePointer ep = np.firstOutEdge; ep != null; ep = ep.nextOutEdge) {
+				edges[edgeIndex++] = ep.cyEdge;
+				edgeMap.put(ep.index, ep.cyEdge);
+			}
+		}
+
+		return new TopologySnapshot(nodes, edges, nodeEntries, edgeMap);
+	}
+
+	int getNodeCount() {
+		return nodes.length;
+	}
+
+	int getEdgeCount() {
+		return edges.length;
+	}
+
+	CyNode getNode(final long suid) {
+		final NodeEntry entry = (NodeEntry) nodeEntries.get(suid);
+		return entry == null ? null : entry.cyNode;
+	}
+
+	CyEdge getEdge(final long suid) {
+		return (CyEdge) edgeMap.get(suid);
+	}
+
+	boolean containsNode(final CyNode node) {
+		final NodeEntry entry = (NodeEntry) nodeEntries.get(node.getSUID());
+		return entry != null && entry.cyNode.equals(node);
+	}
+
+	boolean containsEdge(final CyEdge edge) {
+		final CyEdge thisEdge = (CyEdge) edgeMap.get(edge.getSUID());
+		return thisEdge != null && thisEdge.equals(edge);
+	}
+
+	List<CyNode> getNodeList() {
+		final List<CyNode> ret = new ArrayList<CyNode>(nodes.length);
+		Collections.addAll(ret, nodes);
+		return ret;
+	}
+
+	List<CyEdge> getEdgeList() {
+		final List<CyEdge> ret = new ArrayList<CyEdge>(edges.length);
+		Collections.addAll(ret, edges);
+		return ret;
+	}
+
+	List<CyNode> getNeighborList(final CyNode n, final CyEdge.Type type) {
+		final NodeEntry entry = getEntry(n);
+		if (entry == null)
+			return Collections.emptyList();
+
+		final int from = entry.from(type);
+		final int to = entry.to(type);
+		final List<CyNode> ret = new ArrayList<CyNode>(to - from);
+
+		for (int i = from; i < to; i++)
+			ret.add(entry.neighbors[i]);
+
+		return ret;
+	}
+
+	List<CyEdge> getAdjacentEdgeList(final CyNode n, final CyEdge.Type type) {
+		final NodeEntry entry = getEntry(n);
+		if (entry == null)
+			return Collections.emptyList();
+
+		final int from = entry.from(type);
+		final int to = entry.to(type);
+		final List<CyEdge> ret = new ArrayList<CyEdge>(to - from);
+
+		for (int i = from; i < to; i++)
+			ret.add(entry.edges[i]);
+
+		return ret;
+	}
+
+	Iterable<CyEdge> getAdjacentEdgeIterable(final CyNode n, final CyEdge.Type type) {
+		final NodeEntry entry = getEntry(n);
+		if (entry == null)
+			return Collections.emptyList();
+
+		return new EdgeRange(entry.edges, entry.from(type), entry.to(type));
+	}
+
+	List<CyEdge> getConnectingEdgeList(final CyNode src, final CyNode trg, final CyEdge.Type type) {
+		final NodeEntry srcEntry = getEntry(src);
+		final NodeEntry trgEntry = getEntry(trg);
+		if (srcEntry == null || trgEntry == null)
+			return Collections.emptyList();
+
+		// scan the shorter of the two adjacency ranges
+		final NodeEntry entry;
+		final CyNode other;
+		if (srcEntry.count(type) <= trgEntry.count(type)) {
+			entry = srcEntry;
+			other = trgEntry.cyNode;
+		} else {
+			entry = trgEntry;
+			other = srcEntry.cyNode;
+		}
+
+		final int to = entry.to(type);
+		final List<CyEdge> ret = new ArrayList<CyEdge>();
+		for (int i = entry.from(type); i < to; i++) {
+			if (entry.neighbors[i] == other)
+				ret.add(entry.edges[i]);
+		}
+
+		return ret;
+	}
+
+	boolean containsEdge(final CyNode n1, final CyNode n2) {
+		final NodeEntry e1 = getEntry(n1);
+		final NodeEntry e2 = getEntry(n2);
+		if (e1 == null || e2 == null)
+			return false;
+
+		final NodeEntry entry = e1.edges.length <= e2.edges.length ? e1 : e2;
+		final CyNode other = entry == e1 ? e2.cyNode : e1.cyNode;
+
+		for (final CyNode neighbor : entry.neighbors) {
+			if (neighbor == other)
+				return true;
+		}
+
+		return false;
+	}
+
+	private NodeEntry getEntry(final CyNode n) {
+		if (n == null)
+			return null;
+
+		final NodeEntry entry = (NodeEntry) nodeEntries.get(n.getSUID());
+		if (entry == null || !entry.cyNode.equals(n))
+			return null;
+
+		return entry;
+	}
+
+	/**
+	 * The adjacency of a single node. <code>neighbors[i]</code> is the node at
+	 * the other end of <code>edges[i]</code>.
+	 */
+	private static final class NodeEntry {
+		final CyNode cyNode;
+		final CyEdge[] edges;
+		final CyNode[] neighbors;
+
+		// Range boundaries: [0,outEnd) outgoing, [outEnd,selfEnd) directed
+		// self-loops, [selfEnd,inEnd) incoming, [inEnd,length) undirected.
+		final int outEnd;
+		final int selfEnd;
+		final int inEnd;
+
+		NodeEntry(final NodePointer np) {
+			cyNode = np.cyNode;
+
+			final int self = np.selfEdges;
+			outEnd = np.outDegree - self;
+			selfEnd = outEnd + self;
+			inEnd = selfEnd + np.inDegree - self;
+
+			final int length = inEnd + np.undDegree;
+			edges = new CyEdge[length];
+			neighbors = new CyNode[length];
+
+			int out = 0;
+			int loop = outEnd;
+			int in = selfEnd;
+			int und = inEnd;
+
+			for (EdgePointer ep = np.firstOutEdge; ep != null; ep = ep.nextOutEdge) {
+				final CyNode other = ep.target.cyNode;
+				if (!ep.directed)
+					put(und++, ep.cyEdge, other);
+				else if (ep.target == np)
+					put(loop++, ep.cyEdge, other);
+				else
+					put(out++, ep.cyEdge, other);
+			}
+
+			for (EdgePointer ep = np.firstInEdge; ep != null; ep = ep.nextInEdge) {
+				// self-loops were already picked up from the outgoing list
+				if (ep.source == np)
+					continue;
+
+				final CyNode other = ep.source.cyNode;
+				if (ep.directed)
+					put(in++, ep.cyEdge, other);
+				else
+					put(und++, ep.cyEdge, other);
+			}
+		}
+
+		private void put(final int i, final CyEdge edge, final CyNode neighbor) {
+			edges[i] = edge;
+			neighbors[i] = neighbor;
+		}
+
+		int from(final CyEdge.Type type) {
+			switch (type) {
+				case INCOMING:   return outEnd;
+				case UNDIRECTED: return inEnd;
+				default:         return 0;
+			}
+		}
+
+		int to(final CyEdge.Type type) {
+			switch (type) {
+				case OUTGOING: return selfEnd;
+				case INCOMING:
+				case DIRECTED: return inEnd;
+				default:       return edges.length;
+			}
+		}
+
+		int count(final CyEdge.Type type) {
+			return to(type) - from(type);
+		}
+	}
+
+	/**
+	 * A read-only view of a range of an adjacency array.
+	 */
+	private static final class EdgeRange extends AbstractList<CyEdge> {
+		private final CyEdge[] edges;
+		private final int from;
+		private final int to;
+
+		EdgeRange(final CyEdge[] edges, final int from, final int to) {
+			this.edges = edges;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public CyEdge get(final int index) {
+			if (index < 0 || index >= to - from)
+				throw new IndexOutOfBoundsException("index: " + index);
+			return edges[from + index];
+		}
+
+		@Override
+		public int size() {
+			return to - from;
+		}
+
+		@Override
+		public Iterator<CyEdge> iterator() {
+			return new Iterator<CyEdge>() {
+				private int i = from;
+
+				public boolean hasNext() {
+					return i < to;
+				}
+
+				public CyEdge next() {
+					if (i >= to)
+						throw new NoSuchElementException();
+					return edges[i++];
+				}
+
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+}
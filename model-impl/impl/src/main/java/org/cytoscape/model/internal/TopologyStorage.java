@@ -0,0 +1,45 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+/**
+ * The backing store used for the topology of a network.
+ */
+public enum TopologyStorage {
+
+	/**
+	 * One pointer object per node and edge, linked through doubly linked
+	 * adjacency lists.  Cheap to modify, but uses a lot of memory per edge.
+	 */
+	LINKED,
+
+	/**
+	 * Primitive arrays in compressed sparse row form with an append-only
+	 * delta segment.  Uses far less memory per edge, at the cost of
+	 * occasional compaction while the network is being modified.
+	 */
+	COMPACT;
+}
@@ -0,0 +1,157 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.cytoscape.equations.Interpreter;
+import org.cytoscape.equations.internal.interpreter.InterpreterImpl;
+import org.cytoscape.event.DummyCyEventHelper;
+import org.cytoscape.model.events.TableAddedEvent;
+import org.cytoscape.model.internal.CyNetworkManagerImpl;
+import org.cytoscape.model.internal.CyNetworkTableManagerImpl;
+import org.cytoscape.model.internal.CyTableImpl;
+import org.cytoscape.model.internal.CyTableManagerImpl;
+import org.cytoscape.model.internal.TableStorage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Runs the CyTable tests against tables that use the columnar storage.
+ */
+public class ColumnarCyTableTest extends AbstractCyTableTest {
+
+	private Interpreter interpreter;
+
+	@Before
+	public void setUp() {
+		eventHelper = new DummyCyEventHelper();
+		interpreter = new InterpreterImpl();
+		table = new CyTableImpl("homer", CyIdentifiable.SUID, Long.class, false, true, SavePolicy.SESSION_FILE,
+					eventHelper, interpreter, 1000, TableStorage.COLUMNAR);
+		attrs = table.getRow(1L);
+		table2 = new CyTableImpl("marge", CyIdentifiable.SUID, Long.class, false, true, SavePolicy.SESSION_FILE,
+					 eventHelper, interpreter, 1000, TableStorage.COLUMNAR);
+
+		CyTableManagerImpl tblMgr = new CyTableManagerImpl(eventHelper,new CyNetworkTableManagerImpl(), new CyNetworkManagerImpl(eventHelper));
+		tblMgr.addTable(table);
+		((CyTableImpl)table).handleEvent(new TableAddedEvent(tblMgr, table));
+		tblMgr.addTable(table2);
+		((CyTableImpl)table2).handleEvent(new TableAddedEvent(tblMgr, table2));
+	}
+
+	@After
+	public void tearDown() {
+		eventHelper = null;
+		table = null;
+		attrs = null;
+	}
+
+	@Test
+	public void testMatchingRowsAfterUpdates() {
+		table.createColumn("name", String.class, false);
+		table.createColumn("weight", Double.class, false);
+		for (long i = 0; i < 100; i++) {
+			final CyRow row = table.getRow(i);
+			row.set("name", i % 2 == 0 ? "even" : "odd");
+			row.set("weight", Double.valueOf(i % 10));
+		}
+
+		assertEquals(50, table.countMatchingRows("name", "even"));
+		assertEquals(10, table.getMatchingRows("weight", 3.0).size());
+
+		table.getRow(0L).set("name", "zero");
+		table.getRow(1L).set("name", null);
+		assertEquals(49, table.countMatchingRows("name", "even"));
+		assertEquals(49, table.countMatchingRows("name", "odd"));
+		assertEquals(1, table.getMatchingRows("name", "zero").size());
+		assertTrue(table.getMatchingRows("name", "unknown").isEmpty());
+		assertEquals(0, table.countMatchingRows("weight", "not a double"));
+	}
+
+	@Test
+	public void testDeletedRowsAreReused() {
+		table.createColumn("count", Integer.class, false);
+		table.createColumn("flag", Boolean.class, false);
+		table.createListColumn("tags", String.class, false);
+		for (long i = 0; i < 10; i++) {
+			final CyRow row = table.getRow(i);
+			row.set("count", Integer.valueOf((int) i));
+			row.set("flag", Boolean.valueOf(i < 5));
+			row.set("tags", Arrays.asList("a", "b"));
+		}
+
+		final Collection<Long> deleted = new ArrayList<Long>();
+		for (long i = 0; i < 5; i++)
+			deleted.add(Long.valueOf(i));
+		table.deleteRows(deleted);
+
+		// new rows must not see the cells of the deleted ones
+		for (long i = 100; i < 105; i++) {
+			final CyRow row = table.getRow(i);
+			assertFalse(row.isSet("count"));
+			assertNull(row.get("flag", Boolean.class));
+			row.set("count", Integer.valueOf(7));
+		}
+
+		assertEquals(0, table.countMatchingRows("flag", Boolean.TRUE));
+		assertEquals(5, table.countMatchingRows("flag", Boolean.FALSE));
+		assertEquals(6, table.countMatchingRows("count", 7));
+		final List<Integer> counts = table.getColumn("count").getValues(Integer.class);
+		assertEquals(10, counts.size());
+		assertEquals(Arrays.asList("a", "b"), table.getRow(9L).getList("tags", String.class));
+	}
+
+	@Test
+	public void testUsesLessMemoryThanMapStorage() {
+		final CyTableImpl mapTable = new CyTableImpl("bart", CyIdentifiable.SUID, Long.class, false, true,
+				SavePolicy.SESSION_FILE, eventHelper, interpreter, 1000, TableStorage.MAP);
+		for (final CyTable t : Arrays.asList(table, mapTable)) {
+			t.createColumn("name", String.class, false);
+			t.createColumn("score", Double.class, false);
+			for (long i = 0; i < 10000; i++) {
+				final CyRow row = t.getRow(i);
+				row.set("name", "type" + (i % 20));
+				row.set("score", Double.valueOf(i));
+			}
+		}
+
+		final long columnar = ((CyTableImpl) table).getMemoryFootprint();
+		final long map = mapTable.getMemoryFootprint();
+		assertTrue("columnar: " + columnar + " map: " + map, columnar * 2 < map);
+	}
+}
@@ -0,0 +1,151 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.cytoscape.event.DummyCyEventHelper;
+import org.cytoscape.model.internal.CyRootNetworkImpl;
+import org.cytoscape.model.internal.TopologyStorage;
+import org.cytoscape.model.subnetwork.CyRootNetwork;
+import org.cytoscape.model.subnetwork.CySubNetwork;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Runs the CyNetwork tests against a network that uses the compact
+ * primitive array topology store.
+ */
+public class CompactTopologyCyNetworkTest extends AbstractCyNetworkTest {
+	
+	@Before
+	public void setUp() {
+		net = TestCyNetworkFactory.getPublicRootInstance(new DummyCyEventHelper(), SavePolicy.SESSION_FILE,
+				TopologyStorage.COMPACT).getBaseNetwork();
+	}
+
+	@After
+	public void tearDown() {
+		net = null;
+	}
+
+	@Test
+	public void testMatchesLinkedStorageAcrossCompactions() {
+		final CyRootNetwork linkedRoot = TestCyNetworkFactory.getPublicRootInstance(new DummyCyEventHelper(),
+				SavePolicy.SESSION_FILE, TopologyStorage.LINKED);
+		final CyNetwork linked = linkedRoot.getBaseNetwork();
+
+		final int nodeCount = 500;
+		final List<CyNode> nodes = new ArrayList<CyNode>();
+		final List<CyNode> linkedNodes = new ArrayList<CyNode>();
+		for (int i = 0; i < nodeCount; i++) {
+			nodes.add(net.addNode());
+			linkedNodes.add(linked.addNode());
+		}
+
+		// enough edges, and removals, to go through several compactions
+		final Random rand = new Random(42L);
+		final List<CyEdge> edges = new ArrayList<CyEdge>();
+		final List<CyEdge> linkedEdges = new ArrayList<CyEdge>();
+		for (int i = 0; i < 6000; i++) {
+			final int s = rand.nextInt(nodeCount);
+			final int t = rand.nextInt(10) == 0 ? s : rand.nextInt(nodeCount);
+			final boolean directed = rand.nextBoolean();
+			edges.add(net.addEdge(nodes.get(s), nodes.get(t), directed));
+			linkedEdges.add(linked.addEdge(linkedNodes.get(s), linkedNodes.get(t), directed));
+
+			if (i % 3 == 0) {
+				final int r = rand.nextInt(edges.size());
+				net.removeEdges(Collections.singletonList(edges.remove(r)));
+				linked.removeEdges(Collections.singletonList(linkedEdges.remove(r)));
+			}
+		}
+
+		for (int i = 0; i < nodeCount; i += 50) {
+			net.removeNodes(Collections.singletonList(nodes.get(i)));
+			linked.removeNodes(Collections.singletonList(linkedNodes.get(i)));
+		}
+
+		assertEquals(linked.getNodeCount(), net.getNodeCount());
+		assertEquals(linked.getEdgeCount(), net.getEdgeCount());
+
+		for (int i = 0; i < nodeCount; i++) {
+			final CyNode n = nodes.get(i);
+			final CyNode ln = linkedNodes.get(i);
+			assertEquals(linked.containsNode(ln), net.containsNode(n));
+
+			for (final CyEdge.Type type : CyEdge.Type.values()) {
+				assertEquals(linked.getAdjacentEdgeList(ln, type).size(), net.getAdjacentEdgeList(n, type).size());
+				assertEquals(linked.getNeighborList(ln, type).size(), net.getNeighborList(n, type).size());
+				assertEquals(new HashSet<CyEdge>(net.getAdjacentEdgeList(n, type)).size(),
+				             net.getAdjacentEdgeList(n, type).size());
+			}
+
+			final int j = (i * 31) % nodeCount;
+			assertEquals(linked.containsEdge(ln, linkedNodes.get(j)), net.containsEdge(n, nodes.get(j)));
+			assertEquals(linked.getConnectingEdgeList(ln, linkedNodes.get(j), CyEdge.Type.ANY).size(),
+			             net.getConnectingEdgeList(n, nodes.get(j), CyEdge.Type.ANY).size());
+		}
+
+		for (final CyEdge e : edges) {
+			assertTrue(net.containsEdge(e));
+			assertEquals(e, net.getEdge(e.getSUID()));
+		}
+	}
+
+	@Test
+	public void testCompactStorageUsesLessMemory() {
+		final CyRootNetworkImpl linkedRoot = (CyRootNetworkImpl) TestCyNetworkFactory.getPublicRootInstance(
+				new DummyCyEventHelper(), SavePolicy.SESSION_FILE, TopologyStorage.LINKED);
+		final CyRootNetworkImpl compactRoot = (CyRootNetworkImpl) ((CySubNetwork) net)
+				.getRootNetwork();
+		final CyNetwork linked = linkedRoot.getBaseNetwork();
+
+		CyNode prev = net.addNode();
+		CyNode linkedPrev = linked.addNode();
+		for (int i = 0; i < 5000; i++) {
+			final CyNode n = net.addNode();
+			final CyNode ln = linked.addNode();
+			net.addEdge(prev, n, true);
+			linked.addEdge(linkedPrev, ln, true);
+			prev = n;
+			linkedPrev = ln;
+		}
+
+		assertTrue(compactRoot.getTotalTopologyMemoryFootprint() < linkedRoot.getTotalTopologyMemoryFootprint());
+		assertFalse(compactRoot.getTotalTopologyMemoryFootprint() == 0);
+	}
+}
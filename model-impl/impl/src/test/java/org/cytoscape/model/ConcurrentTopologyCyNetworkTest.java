@@ -0,0 +1,114 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.cytoscape.model.internal.CyRootNetworkImpl;
+import org.cytoscape.model.subnetwork.CyRootNetwork;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Runs the CyNetwork tests against a network whose topology reads are
+ * served from lock-free snapshots.
+ */
+public class ConcurrentTopologyCyNetworkTest extends AbstractCyNetworkTest {
+	
+	// Enough reads to make sure the snapshot is rebuilt for a small network.
+	private static final int READS = 50;
+
+	@Before
+	public void setUp() {
+		final CyRootNetwork root = TestCyNetworkFactory.getPublicRootInstance();
+		((CyRootNetworkImpl) root).setConcurrentTopology(true);
+		net = root.getBaseNetwork();
+	}
+
+	@After
+	public void tearDown() {
+		net = null;
+	}
+
+	@Test
+	public void testSnapshotAdjacency() {
+		final CyNode n0 = net.addNode();
+		final CyNode n1 = net.addNode();
+		final CyNode n2 = net.addNode();
+		final CyEdge e01 = net.addEdge(n0, n1, true);
+		final CyEdge e10 = net.addEdge(n1, n0, true);
+		final CyEdge e12 = net.addEdge(n1, n2, false);
+		final CyEdge e00 = net.addEdge(n0, n0, true);
+		final CyEdge e22 = net.addEdge(n2, n2, false);
+
+		for (int i = 0; i < READS; i++) {
+			assertEquals(3, net.getNodeCount());
+			assertEquals(5, net.getEdgeCount());
+
+			assertEquals(edges(e01, e00), adjacent(n0, CyEdge.Type.OUTGOING));
+			assertEquals(edges(e00, e10), adjacent(n0, CyEdge.Type.INCOMING));
+			assertEquals(edges(e01, e00, e10), adjacent(n0, CyEdge.Type.DIRECTED));
+			assertEquals(edges(), adjacent(n0, CyEdge.Type.UNDIRECTED));
+			assertEquals(edges(e01, e00, e10), adjacent(n0, CyEdge.Type.ANY));
+			assertEquals(edges(e12), adjacent(n1, CyEdge.Type.UNDIRECTED));
+			assertEquals(edges(e12, e22), adjacent(n2, CyEdge.Type.ANY));
+
+			assertEquals(3, net.getNeighborList(n0, CyEdge.Type.ANY).size());
+			assertEquals(edges(e01, e10), new HashSet<CyEdge>(net.getConnectingEdgeList(n0, n1, CyEdge.Type.ANY)));
+			assertEquals(edges(e00), new HashSet<CyEdge>(net.getConnectingEdgeList(n0, n0, CyEdge.Type.ANY)));
+			assertTrue(net.containsEdge(n2, n1));
+			assertFalse(net.containsEdge(n0, n2));
+		}
+
+		// A modification must be visible to the very next read.
+		net.removeEdges(Collections.singletonList(e10));
+		assertEquals(4, net.getEdgeCount());
+		assertFalse(net.containsEdge(e10));
+		assertEquals(edges(e00), adjacent(n0, CyEdge.Type.INCOMING));
+	}
+
+	private Set<CyEdge> adjacent(final CyNode n, final CyEdge.Type type) {
+		final Set<CyEdge> ret = new HashSet<CyEdge>();
+		for (final CyEdge e : net.getAdjacentEdgeIterable(n, type))
+			ret.add(e);
+
+		assertEquals(ret, new HashSet<CyEdge>(net.getAdjacentEdgeList(n, type)));
+		return ret;
+	}
+
+	private static Set<CyEdge> edges(final CyEdge... edges) {
+		return new HashSet<CyEdge>(Arrays.asList(edges));
+	}
+}
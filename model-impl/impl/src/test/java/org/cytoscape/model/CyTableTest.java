@@ -25,11 +25,18 @@ package org.cytoscape.model;
  */
 
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.cytoscape.equations.AbstractFunction;
+import org.cytoscape.equations.ArgDescriptor;
+import org.cytoscape.equations.ArgType;
 import org.cytoscape.equations.EquationCompiler;
+import org.cytoscape.equations.FunctionUtil;
 import org.cytoscape.equations.Equation;
 import org.cytoscape.equations.Interpreter;
 import org.cytoscape.equations.internal.BooleanList;
@@ -44,6 +51,8 @@ import org.cytoscape.model.internal.CyNetworkTableManagerImpl;
 import org.cytoscape.model.internal.CyTableImpl;
 import org.cytoscape.model.internal.CyTableManagerImpl;
 import org.cytoscape.model.events.RowSetRecord;
+import org.cytoscape.model.events.RowsCreatedEvent;
+import org.cytoscape.model.events.RowsSetEvent;
 import org.cytoscape.model.events.TableAddedEvent;
 
 import static org.junit.Assert.*;
@@ -233,4 +242,287 @@ public class CyTableTest extends AbstractCyTableTest {
 
 		assertEquals(row1.get("ss", String.class), "XXXabc");
 	}
+
+	@Test
+	public void testReverseIndexIsBuiltLazily() {
+		final CyTableImpl impl = (CyTableImpl) table;
+		table.createColumn("name", String.class, false);
+		for (long i = 0; i < 10; i++)
+			table.getRow(i).set("name", i < 3 ? "a" : "b");
+
+		assertEquals(0, impl.getIndexMemoryFootprint("name"));
+		assertEquals(3, table.getMatchingRows("name", "a").size());
+		assertEquals(1, impl.getIndexMissCount("name"));
+		assertTrue(impl.getIndexMemoryFootprint("name") > 0);
+
+		// maintained incrementally from now on
+		table.getRow(0L).set("name", "b");
+		table.getRow(1L).set("name", null);
+		assertEquals(1, table.getMatchingRows("name", "a").size());
+		assertEquals(8, table.countMatchingRows("name", "b"));
+		assertEquals(2, impl.getIndexHitCount("name"));
+
+		// replacing a value by an equation must remove it from the index
+		compiler.compile("=\"a\"", new HashMap<String, Class<?>>());
+		table.getRow(2L).set("name", compiler.getEquation());
+		assertEquals(0, table.getMatchingRows("name", "a").size());
+
+		impl.dropIndex("name");
+		assertEquals(0, impl.getIndexMemoryFootprint("name"));
+		assertEquals(8, table.countMatchingRows("name", "b"));
+		assertEquals(2, impl.getIndexMissCount("name"));
+	}
+
+	@Test
+	public void testOnlyPinnedIndexesSurviveBulkUpdates() {
+		final CyTableImpl impl = (CyTableImpl) table;
+		table.createColumn("pinned", Integer.class, false);
+		table.createColumn("unpinned", Integer.class, false);
+		impl.pinIndex("pinned");
+		table.getMatchingRows("unpinned", 0);
+
+		for (int i = 0; i < 5000; i++) {
+			final CyRow row = table.getRow(Long.valueOf(i));
+			row.set("pinned", i % 7);
+			row.set("unpinned", i % 7);
+		}
+
+		assertEquals(0, impl.getIndexMemoryFootprint("unpinned"));
+		assertTrue(impl.getIndexMemoryFootprint("pinned") > 0);
+		assertEquals(715, table.getMatchingRows("pinned", 0).size());
+		assertEquals(1, impl.getIndexHitCount("pinned"));
+		assertEquals(715, table.getMatchingRows("unpinned", 0).size());
+		assertEquals(2, impl.getIndexMissCount("unpinned"));
+	}
+
+	@Test
+	public void testBatchFiresCoalescedRowEvents() {
+		final DummyCyEventHelper deh = new DummyCyEventHelper(true);
+		final CyTableImpl batchTable = new CyTableImpl("bart", CyIdentifiable.SUID, Long.class, false, true,
+				SavePolicy.SESSION_FILE, deh, new InterpreterImpl(), 100);
+		final CyTableManagerImpl tblMgr = new CyTableManagerImpl(deh, new CyNetworkTableManagerImpl(),
+				new CyNetworkManagerImpl(deh));
+		tblMgr.addTable(batchTable);
+		batchTable.handleEvent(new TableAddedEvent(tblMgr, batchTable));
+		batchTable.createColumn("x", Integer.class, false);
+
+		batchTable.beginBatch();
+		batchTable.beginBatch();
+		for (long i = 0; i < 10; i++)
+			batchTable.getRow(i).set("x", Integer.valueOf((int) i));
+		batchTable.endBatch();
+		assertNull(findEvent(deh, RowsSetEvent.class));
+		batchTable.endBatch();
+
+		final RowsSetEvent setEvent = (RowsSetEvent) findEvent(deh, RowsSetEvent.class);
+		assertEquals(10, setEvent.getPayloadCollection().size());
+		final RowsCreatedEvent createdEvent = (RowsCreatedEvent) findEvent(deh, RowsCreatedEvent.class);
+		assertEquals(10, createdEvent.getPayloadCollection().size());
+	}
+
+	@Test
+	public void testBatchOnlyCollectsItsOwnThread() throws Exception {
+		final DummyCyEventHelper deh = new DummyCyEventHelper(true);
+		final CyTableImpl batchTable = new CyTableImpl("bart", CyIdentifiable.SUID, Long.class, false, true,
+				SavePolicy.SESSION_FILE, deh, new InterpreterImpl(), 100);
+		final CyTableManagerImpl tblMgr = new CyTableManagerImpl(deh, new CyNetworkTableManagerImpl(),
+				new CyNetworkManagerImpl(deh));
+		tblMgr.addTable(batchTable);
+		batchTable.handleEvent(new TableAddedEvent(tblMgr, batchTable));
+		batchTable.createColumn("x", Integer.class, false);
+
+		batchTable.beginBatch();
+		batchTable.getRow(1L).set("x", 1);
+
+		final Thread other = new Thread() {
+			@Override
+			public void run() {
+				batchTable.getRow(2L).set("x", 2);
+			}
+		};
+		other.start();
+		other.join();
+
+		final Object payload = deh.getLastPayload();
+		assertTrue(payload instanceof RowSetRecord);
+		assertEquals(2L, ((RowSetRecord) payload).getRow().get(CyIdentifiable.SUID, Long.class).longValue());
+
+		batchTable.endBatch();
+		final RowsSetEvent setEvent = (RowsSetEvent) findEvent(deh, RowsSetEvent.class);
+		assertEquals(1, setEvent.getPayloadCollection().size());
+		assertEquals(1, setEvent.getPayloadCollection().iterator().next().getValue());
+	}
+
+	@Test
+	public void testDiscardedBatchFiresNothing() {
+		final DummyCyEventHelper deh = new DummyCyEventHelper(true);
+		final CyTableImpl batchTable = new CyTableImpl("bart", CyIdentifiable.SUID, Long.class, false, true,
+				SavePolicy.SESSION_FILE, deh, new InterpreterImpl(), 100);
+		batchTable.createColumn("x", Integer.class, false);
+
+		batchTable.beginBatch();
+		batchTable.getRow(1L).set("x", 1);
+		batchTable.discardBatch();
+		assertNull(findEvent(deh, RowsCreatedEvent.class));
+		assertNull(findEvent(deh, RowsSetEvent.class));
+
+		batchTable.getRow(2L).set("x", 2);
+		assertNotNull(deh.getLastPayload());
+	}
+
+	private Equation compileEquation(final String equation) {
+		final Map<String, Class<?>> varnameToTypeMap = new HashMap<String, Class<?>>();
+		varnameToTypeMap.put("a", Double.class);
+		varnameToTypeMap.put("b", Double.class);
+		varnameToTypeMap.put("d", Double.class);
+		assertTrue(compiler.compile(equation, varnameToTypeMap));
+		return compiler.getEquation();
+	}
+
+	@Test
+	public void testOnlyDependentEquationsAreRecomputed() {
+		final CyTableImpl impl = (CyTableImpl) table;
+		table.createColumn("a", Double.class, false);
+		table.createColumn("b", Double.class, false);
+		table.createColumn("c", Double.class, false);
+		table.createColumn("d", Double.class, false);
+		table.createColumn("e", Double.class, false);
+		final Equation b = compileEquation("=$a*2");
+		final Equation c = compileEquation("=$b+1");
+		final Equation e = compileEquation("=$d");
+		for (long i = 0; i < 10; i++) {
+			final CyRow row = table.getRow(i);
+			row.set("a", Double.valueOf(i));
+			row.set("d", Double.valueOf(i));
+			row.set("b", b);
+			row.set("c", c);
+			row.set("e", e);
+		}
+
+		for (long i = 0; i < 10; i++)
+			assertEquals(2.0 * i + 1.0, table.getRow(i).get("c", Double.class), 0.0);
+		final long hits = impl.getEquationCacheHitCount();
+		final long misses = impl.getEquationCacheMissCount();
+		for (long i = 0; i < 10; i++)
+			assertEquals(2.0 * i + 1.0, table.getRow(i).get("c", Double.class), 0.0);
+		assertEquals(hits + 10, impl.getEquationCacheHitCount());
+		assertEquals(misses, impl.getEquationCacheMissCount());
+
+		// only b and c of row 3 depend on a of row 3
+		final long changes = impl.getEquationChangeCount();
+		final long recomputed = impl.getRecomputedCellCount();
+		table.getRow(3L).set("a", 5.0);
+		assertEquals(11.0, table.getRow(3L).get("c", Double.class), 0.0);
+		assertEquals(misses + 2, impl.getEquationCacheMissCount());
+		assertEquals(changes + 1, impl.getEquationChangeCount());
+		assertEquals(recomputed + 2, impl.getRecomputedCellCount());
+		assertEquals(9.0, table.getRow(4L).get("c", Double.class), 0.0);
+		assertEquals(misses + 2, impl.getEquationCacheMissCount());
+
+		// nothing depends on c
+		table.getRow(3L).set("d", 7.0);
+		table.getRow(3L).set("c", 0.0);
+		assertEquals(7.0, table.getRow(3L).get("e", Double.class), 0.0);
+		assertEquals(changes + 2, impl.getEquationChangeCount());
+		assertEquals(recomputed + 3, impl.getRecomputedCellCount());
+	}
+
+	@Test
+	public void testRecalculateEquationsInParallel() {
+		final CyTableImpl impl = (CyTableImpl) table;
+		table.createColumn("a", Double.class, false);
+		table.createColumn("b", Double.class, false);
+		table.createColumn("c", Double.class, false);
+		final Equation b = compileEquation("=$a+1");
+		final Equation c = compileEquation("=$b*$b");
+		final int rowCount = 2000;
+		for (long i = 0; i < rowCount; i++) {
+			final CyRow row = table.getRow(i);
+			row.set("a", Double.valueOf(i));
+			row.set("b", b);
+			row.set("c", c);
+		}
+		for (long i = 0; i < rowCount; i++)
+			table.getRow(i).get("c", Double.class);
+
+		final long changes = impl.getEquationChangeCount();
+		final long recomputed = impl.getRecomputedCellCount();
+		for (long i = 0; i < rowCount; i++)
+			table.getRow(i).set("a", Double.valueOf(-i));
+
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			impl.recalculateEquations(executor);
+		} finally {
+			executor.shutdown();
+		}
+
+		final long misses = impl.getEquationCacheMissCount();
+		for (long i = 0; i < rowCount; i++)
+			assertEquals((1.0 - i) * (1.0 - i), table.getRow(i).get("c", Double.class), 0.0);
+		assertEquals(misses, impl.getEquationCacheMissCount());
+		assertEquals(changes + rowCount, impl.getEquationChangeCount());
+		assertEquals(recomputed + 2 * rowCount, impl.getRecomputedCellCount());
+	}
+
+	@Test
+	public void testEquationsReadingTheNetworkAreNotMemoized() {
+		final CyNetwork network = new NetworkTestSupport().getNetwork();
+		final CyNode node1 = network.addNode();
+		final CyNode node2 = network.addNode();
+		network.addEdge(node1, node2, false);
+
+		final EquationParserImpl parser = new EquationParserImpl();
+		parser.registerFunction(new Degree(network));
+		final EquationCompiler degreeCompiler = new EquationCompilerImpl(parser);
+		final Map<String, Class<?>> varnameToTypeMap = new HashMap<String, Class<?>>();
+		varnameToTypeMap.put(CyIdentifiable.SUID, Long.class);
+		assertTrue(degreeCompiler.compile("=DEGREE($" + CyIdentifiable.SUID + ")", varnameToTypeMap));
+
+		table.createColumn("degree", Long.class, false);
+		final CyRow row = table.getRow(node1.getSUID());
+		row.set("degree", degreeCompiler.getEquation());
+		assertEquals(Long.valueOf(1L), row.get("degree", Long.class));
+
+		final CyEdge edge = network.addEdge(node1, network.addNode(), false);
+		assertEquals(Long.valueOf(2L), row.get("degree", Long.class));
+
+		network.removeEdges(Collections.singletonList(edge));
+		assertEquals(Long.valueOf(1L), row.get("degree", Long.class));
+	}
+
+	/**
+	 * Like the DEGREE() function of the equation functions bundle, reads the
+	 * adjacency of a network that no table cell reflects.
+	 */
+	private static final class Degree extends AbstractFunction {
+		private final CyNetwork network;
+
+		Degree(final CyNetwork network) {
+			super(new ArgDescriptor[] { new ArgDescriptor(ArgType.INT, "node_ID", "An ID identifying a node.") });
+			this.network = network;
+		}
+
+		public String getName() { return "DEGREE"; }
+
+		public String getFunctionSummary() { return "Returns degree of a node."; }
+
+		public Class<?> getReturnType() { return Long.class; }
+
+		public Object evaluateFunction(final Object[] args) {
+			final CyNode node = network.getNode(FunctionUtil.getArgAsLong(args[0]));
+			return (Long)(long)network.getAdjacentEdgeList(node, CyEdge.Type.ANY).size();
+		}
+	}
+
+	private static Object findEvent(final DummyCyEventHelper deh, final Class<?> type) {
+		Object found = null;
+		for (final Object event : deh.getAllLastEvents()) {
+			if (type.isInstance(event)) {
+				assertNull("more than one " + type.getSimpleName(), found);
+				found = event;
+			}
+		}
+		return found;
+	}
 }
@@ -38,6 +38,7 @@ import org.cytoscape.model.internal.CyRootNetworkImpl;
 import org.cytoscape.model.internal.CyNetworkTableManagerImpl;
 import org.cytoscape.model.internal.CyTableFactoryImpl;
 import org.cytoscape.model.internal.CyTableManagerImpl;
+import org.cytoscape.model.internal.TopologyStorage;
 import org.cytoscape.model.subnetwork.CyRootNetwork;
 import org.cytoscape.model.subnetwork.CySubNetwork;
 import org.cytoscape.service.util.CyServiceRegistrar;
@@ -124,6 +125,11 @@ public class TestCyNetworkFactory {
 	}
 	
 	public static CyRootNetwork getPublicRootInstance(DummyCyEventHelper deh, SavePolicy policy) {	
+		return getPublicRootInstance(deh, policy, TopologyStorage.LINKED);
+	}
+
+	public static CyRootNetwork getPublicRootInstance(DummyCyEventHelper deh, SavePolicy policy,
+			TopologyStorage storage) {	
 		final CyNetworkTableManagerImpl ntm = new CyNetworkTableManagerImpl();
 		final CyTableManagerImpl tm = new CyTableManagerImpl(deh, ntm, new CyNetworkManagerImpl(deh));
 		
@@ -131,7 +137,7 @@ public class TestCyNetworkFactory {
 		final CyServiceRegistrar serviceRegistrar = mock(CyServiceRegistrar.class);
 		
 		final CyTableFactoryImpl tableFactory = new CyTableFactoryImpl(deh, interp, serviceRegistrar);
-		return new CyRootNetworkImpl(deh, tm, ntm, tableFactory, serviceRegistrar, true, policy);
+		return new CyRootNetworkImpl(deh, tm, ntm, tableFactory, serviceRegistrar, true, policy, storage);
 	}
 
 	public static CyRootNetwork getPrivateRootInstance() {	
@@ -0,0 +1,224 @@
+package org.cytoscape.model.subnetwork;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.cytoscape.event.DummyCyEventHelper;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNetworkManager;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.TestCyNetworkFactory;
+import org.cytoscape.model.events.AddedEdgesEvent;
+import org.cytoscape.model.events.AddedNodesEvent;
+import org.cytoscape.model.events.NetworkAddedEvent;
+import org.cytoscape.model.events.RowsCreatedEvent;
+import org.cytoscape.model.events.RowsSetEvent;
+import org.cytoscape.model.internal.CyRootNetworkImpl;
+import org.cytoscape.model.internal.CySubNetworkImpl;
+import org.cytoscape.model.internal.NetworkBatch;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class NetworkBatchTest {
+
+	private DummyCyEventHelper deh;
+	private CyRootNetworkImpl root;
+	private CySubNetwork sub;
+
+	@Before
+	public void setUp() {
+		deh = new DummyCyEventHelper(true);
+		root = (CyRootNetworkImpl) TestCyNetworkFactory.getPublicRootInstance(deh);
+		sub = root.addSubNetwork();
+		((CySubNetworkImpl) sub).handleEvent(new NetworkAddedEvent(mock(CyNetworkManager.class), sub));
+	}
+
+	@Test
+	public void testNothingChangesBeforeCommit() {
+		final NetworkBatch batch = root.beginBatch(sub);
+		final CyNode n1 = batch.addNode();
+		final CyNode n2 = batch.addNode();
+		batch.addEdge(n1, n2, true);
+
+		assertEquals(0, sub.getNodeCount());
+		assertFalse(root.containsNode(n1));
+		assertEquals(0, countEvents(AddedNodesEvent.class));
+	}
+
+	@Test
+	public void testCommitFiresOneEventPerKind() {
+		final NetworkBatch batch = root.beginBatch(sub);
+		final CyNode n1 = batch.addNode();
+		final CyNode n2 = batch.addNode();
+		final CyNode n3 = batch.addNode();
+		final CyEdge e1 = batch.addEdge(n1, n2, true);
+		final CyEdge e2 = batch.addEdge(n2, n3, false);
+		batch.set(n1, CyNetwork.NAME, "n1");
+		batch.set(e1, CyEdge.INTERACTION, "pp");
+		batch.commit();
+
+		assertEquals(3, sub.getNodeCount());
+		assertEquals(2, sub.getEdgeCount());
+		assertTrue(root.containsEdge(e2));
+		assertEquals("n1", sub.getRow(n1).get(CyNetwork.NAME, String.class));
+		assertEquals("pp", sub.getRow(e1).get(CyEdge.INTERACTION, String.class));
+		assertEquals(Boolean.FALSE, sub.getRow(e2).get(CyNetwork.SELECTED, Boolean.class));
+
+		assertEquals(1, countEvents(AddedNodesEvent.class));
+		assertEquals(1, countEvents(AddedEdgesEvent.class));
+		for (final Object event : deh.getAllLastEvents()) {
+			if (event instanceof AddedNodesEvent)
+				assertEquals(3, ((AddedNodesEvent) event).getPayloadCollection().size());
+			else if (event instanceof AddedEdgesEvent)
+				assertEquals(2, ((AddedEdgesEvent) event).getPayloadCollection().size());
+		}
+	}
+
+	@Test
+	public void testAddsExistingElementsAndRemoves() {
+		final CyNode r1 = root.addNode();
+		final CyNode r2 = root.addNode();
+		final CyEdge re = root.addEdge(r1, r2, true);
+		root.getRow(r1, CyRootNetwork.SHARED_ATTRS).set(CyRootNetwork.SHARED_NAME, "shared");
+
+		NetworkBatch batch = root.beginBatch(sub);
+		batch.addEdge(re);
+		final CyNode n = batch.addNode();
+		batch.addEdge(n, r1, true);
+		batch.commit();
+
+		assertEquals(3, sub.getNodeCount());
+		assertEquals(2, sub.getEdgeCount());
+		assertEquals("shared", sub.getRow(r1).get(CyNetwork.NAME, String.class));
+
+		batch = root.beginBatch(sub);
+		batch.removeNodes(Collections.singletonList(r1));
+		batch.commit();
+
+		assertEquals(2, sub.getNodeCount());
+		assertEquals(0, sub.getEdgeCount());
+		assertTrue(root.containsNode(r1));
+	}
+
+	@Test
+	public void testRowEventsBeforeAddedEvents() {
+		final NetworkBatch batch = root.beginBatch(sub);
+		final CyNode n1 = batch.addNode();
+		final CyNode n2 = batch.addNode();
+		batch.addEdge(n1, n2, true);
+		batch.set(n1, CyNetwork.NAME, "n1");
+		batch.commit();
+
+		final List<Object> events = new ArrayList<Object>(deh.getAllLastEvents());
+		final int created = indexOf(events, RowsCreatedEvent.class);
+		final int set = indexOf(events, RowsSetEvent.class);
+		assertTrue(created >= 0);
+		assertTrue(set >= 0);
+		assertTrue(created < indexOf(events, AddedNodesEvent.class));
+		assertTrue(set < indexOf(events, AddedNodesEvent.class));
+		assertTrue(set < indexOf(events, AddedEdgesEvent.class));
+	}
+
+	@Test
+	public void testFailedCommitIsRolledBack() {
+		final CyNode old = sub.addNode();
+		sub.getRow(old).set(CyNetwork.NAME, "old");
+		final int rootNodes = root.getNodeCount();
+		final int addedNodesEvents = countEvents(AddedNodesEvent.class);
+
+		final NetworkBatch batch = root.beginBatch(sub);
+		final CyNode n1 = batch.addNode();
+		final CyEdge e1 = batch.addEdge(n1, old, true);
+		batch.set(old, CyNetwork.NAME, "new");
+		batch.set(n1, CyNetwork.NAME, Integer.valueOf(1));
+		try {
+			batch.commit();
+			fail("a value of the wrong type must fail the commit");
+		} catch (IllegalArgumentException e) {
+			/* Intentionally empty. */
+		}
+
+		assertEquals(1, sub.getNodeCount());
+		assertEquals(0, sub.getEdgeCount());
+		assertFalse(sub.containsNode(n1));
+		assertFalse(root.containsNode(n1));
+		assertFalse(root.containsEdge(e1));
+		assertEquals(rootNodes, root.getNodeCount());
+		assertEquals("old", sub.getRow(old).get(CyNetwork.NAME, String.class));
+		assertFalse(sub.getDefaultNodeTable().rowExists(n1.getSUID()));
+		assertEquals(addedNodesEvents, countEvents(AddedNodesEvent.class));
+		assertEquals(0, countEvents(AddedEdgesEvent.class));
+		assertEquals(0, countEvents(RowsCreatedEvent.class));
+		assertEquals(0, countEvents(RowsSetEvent.class));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testEdgeToUnknownNode() {
+		final CyNode other = root.addNode();
+		root.beginBatch(sub).addEdge(other, other, true);
+	}
+
+	@Test
+	public void testCommitOnlyOnce() {
+		final NetworkBatch batch = root.beginBatch(sub);
+		batch.addNode();
+		batch.commit();
+		try {
+			batch.commit();
+			fail();
+		} catch (IllegalStateException e) {
+			/* Intentionally empty. */
+		}
+		assertEquals(1, sub.getNodeCount());
+	}
+
+	private static int indexOf(final List<Object> events, final Class<?> type) {
+		for (int i = 0; i < events.size(); i++)
+			if (type.isInstance(events.get(i)))
+				return i;
+		return -1;
+	}
+
+	private int countEvents(final Class<?> type) {
+		int count = 0;
+		for (final Object event : deh.getAllLastEvents())
+			if (type.isInstance(event))
+				count++;
+		return count;
+	}
+}
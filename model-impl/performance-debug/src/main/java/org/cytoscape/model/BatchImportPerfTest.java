@@ -0,0 +1,137 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl Performance Debug (model-impl-performance-debug)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.cytoscape.model.events.NetworkAddedEvent;
+import org.cytoscape.model.internal.CyRootNetworkImpl;
+import org.cytoscape.model.internal.CySubNetworkImpl;
+import org.cytoscape.model.internal.NetworkBatch;
+import org.cytoscape.model.subnetwork.CySubNetwork;
+
+
+/**
+ * Imports the same SIF-like interaction list into a registered network,
+ * once with one addNode/addEdge/CyRow.set call per element and once with a
+ * NetworkBatch, and reports the time taken by each.
+ */
+public class BatchImportPerfTest {
+
+	private final NetworkTestSupport testSupport;
+
+	public static void main(String[] args) {
+		final int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		final int edgeCount = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		final BatchImportPerfTest test = new BatchImportPerfTest();
+		// the first round only warms up the JIT
+		for (int round = 0; round < 2; round++) {
+			final long single = test.importSingle(nodeCount, edgeCount);
+			final long batched = test.importBatched(nodeCount, edgeCount);
+			if (round > 0)
+				System.out.println("nodes: " + nodeCount + " edges: " + edgeCount + "  single: " + single
+				                   + " ms  batch: " + batched + " ms");
+		}
+	}
+
+	public BatchImportPerfTest() {
+		testSupport = new NetworkTestSupport();
+	}
+
+	private CySubNetwork createRegisteredNetwork() {
+		final CySubNetwork network = (CySubNetwork) testSupport.getNetwork();
+		((CySubNetworkImpl) network).handleEvent(new NetworkAddedEvent(testSupport.getNetworkManager(), network));
+		return network;
+	}
+
+	private long importSingle(final int nodeCount, final int edgeCount) {
+		final CySubNetwork network = createRegisteredNetwork();
+		final Map<String, CyNode> nodes = new HashMap<String, CyNode>();
+		final Random rand = new Random(1234L);
+
+		final long start = System.currentTimeMillis();
+		for (int i = 0; i < edgeCount; i++) {
+			final String sourceName = "n" + rand.nextInt(nodeCount);
+			final String targetName = "n" + rand.nextInt(nodeCount);
+
+			CyNode source = nodes.get(sourceName);
+			if (source == null) {
+				source = network.addNode();
+				network.getRow(source).set(CyNetwork.NAME, sourceName);
+				nodes.put(sourceName, source);
+			}
+			CyNode target = nodes.get(targetName);
+			if (target == null) {
+				target = network.addNode();
+				network.getRow(target).set(CyNetwork.NAME, targetName);
+				nodes.put(targetName, target);
+			}
+
+			final CyEdge edge = network.addEdge(source, target, true);
+			final CyRow row = network.getRow(edge);
+			row.set(CyNetwork.NAME, sourceName + " (pp) " + targetName);
+			row.set(CyEdge.INTERACTION, "pp");
+		}
+
+		return System.currentTimeMillis() - start;
+	}
+
+	private long importBatched(final int nodeCount, final int edgeCount) {
+		final CySubNetwork network = createRegisteredNetwork();
+		final Map<String, CyNode> nodes = new HashMap<String, CyNode>();
+		final Random rand = new Random(1234L);
+
+		final long start = System.currentTimeMillis();
+		final NetworkBatch batch = ((CyRootNetworkImpl) network.getRootNetwork()).beginBatch(network);
+		for (int i = 0; i < edgeCount; i++) {
+			final String sourceName = "n" + rand.nextInt(nodeCount);
+			final String targetName = "n" + rand.nextInt(nodeCount);
+
+			CyNode source = nodes.get(sourceName);
+			if (source == null) {
+				source = batch.addNode();
+				batch.set(source, CyNetwork.NAME, sourceName);
+				nodes.put(sourceName, source);
+			}
+			CyNode target = nodes.get(targetName);
+			if (target == null) {
+				target = batch.addNode();
+				batch.set(target, CyNetwork.NAME, targetName);
+				nodes.put(targetName, target);
+			}
+
+			final CyEdge edge = batch.addEdge(source, target, true);
+			batch.set(edge, CyNetwork.NAME, sourceName + " (pp) " + targetName);
+			batch.set(edge, CyEdge.INTERACTION, "pp");
+		}
+		batch.commit();
+
+		return System.currentTimeMillis() - start;
+	}
+}
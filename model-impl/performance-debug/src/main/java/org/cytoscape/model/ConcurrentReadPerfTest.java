@@ -0,0 +1,129 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl Performance Debug (model-impl-performance-debug)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.cytoscape.model.internal.CyNetworkFactoryImpl;
+
+
+/**
+ * Compares topology read throughput of monitor based networks with
+ * networks that use lock-free snapshot reads, at 1, 4 and 16 reader threads.
+ */
+public class ConcurrentReadPerfTest {
+
+	private static final int NODE_COUNT = 50000;
+	private static final int EDGE_COUNT = 200000;
+	private static final int[] THREAD_COUNTS = { 1, 4, 16 };
+	private static final long RUN_MILLIS = 3000;
+
+	private final CyNetworkFactoryImpl netFactory;
+
+	public static void main(String[] args) throws InterruptedException {
+		new ConcurrentReadPerfTest().runTestLoop();
+	}
+
+	public ConcurrentReadPerfTest() {
+		NetworkTestSupport testSupport = new NetworkTestSupport();
+		netFactory = (CyNetworkFactoryImpl) testSupport.getNetworkFactory();
+	}
+
+	public void runTestLoop() throws InterruptedException {
+		for (final boolean concurrent : new boolean[] { false, true }) {
+			netFactory.setConcurrentTopology(concurrent);
+			final CyNetwork network = createNetwork();
+
+			for (final int threads : THREAD_COUNTS) {
+				final long reads = runReaders(network, threads);
+				System.out.println((concurrent ? "snapshot" : "monitor ") + " readers: " + threads
+				                   + "  reads/sec: " + (reads * 1000L / RUN_MILLIS));
+			}
+		}
+	}
+
+	private CyNetwork createNetwork() {
+		final CyNetwork network = netFactory.createNetwork();
+		final List<CyNode> nodes = new ArrayList<CyNode>(NODE_COUNT);
+		for (int i = 0; i < NODE_COUNT; i++)
+			nodes.add(network.addNode());
+
+		final Random rand = new Random(1234L);
+		for (int i = 0; i < EDGE_COUNT; i++) {
+			final CyNode source = nodes.get(rand.nextInt(NODE_COUNT));
+			final CyNode target = nodes.get(rand.nextInt(NODE_COUNT));
+			network.addEdge(source, target, (i & 1) == 0);
+		}
+
+		return network;
+	}
+
+	private long runReaders(final CyNetwork network, final int threadCount) throws InterruptedException {
+		final List<CyNode> nodes = network.getNodeList();
+		final AtomicLong totalReads = new AtomicLong();
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threadCount);
+		final long[] deadline = new long[1];
+
+		for (int t = 0; t < threadCount; t++) {
+			final Random rand = new Random(t);
+			new Thread(new Runnable() {
+				public void run() {
+					long reads = 0;
+					try {
+						start.await();
+						while (System.currentTimeMillis() < deadline[0]) {
+							final CyNode n = nodes.get(rand.nextInt(nodes.size()));
+							final CyNode m = nodes.get(rand.nextInt(nodes.size()));
+							network.getNodeCount();
+							for (final CyNode neighbor : network.getNeighborList(n, CyEdge.Type.ANY))
+								network.getConnectingEdgeList(n, neighbor, CyEdge.Type.ANY);
+							for (final CyEdge e : network.getAdjacentEdgeIterable(n, CyEdge.Type.OUTGOING))
+								e.getTarget();
+							network.containsEdge(n, m);
+							reads += 4;
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					} finally {
+						totalReads.addAndGet(reads);
+						done.countDown();
+					}
+				}
+			}).start();
+		}
+
+		deadline[0] = System.currentTimeMillis() + RUN_MILLIS;
+		start.countDown();
+		done.await();
+
+		return totalReads.get();
+	}
+}
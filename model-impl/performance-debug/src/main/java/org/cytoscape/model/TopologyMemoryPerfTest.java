@@ -0,0 +1,98 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl Performance Debug (model-impl-performance-debug)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.cytoscape.model.internal.CyNetworkFactoryImpl;
+import org.cytoscape.model.internal.CyRootNetworkImpl;
+import org.cytoscape.model.internal.TopologyStorage;
+import org.cytoscape.model.subnetwork.CySubNetwork;
+
+
+/**
+ * Builds the same random network with each topology storage and reports
+ * build time, estimated topology footprint and the measured heap growth.
+ */
+public class TopologyMemoryPerfTest {
+
+	private final CyNetworkFactoryImpl netFactory;
+
+	public static void main(String[] args) {
+		final int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		final int edgeCount = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		new TopologyMemoryPerfTest().runTestLoop(nodeCount, edgeCount);
+	}
+
+	public TopologyMemoryPerfTest() {
+		NetworkTestSupport testSupport = new NetworkTestSupport();
+		netFactory = (CyNetworkFactoryImpl) testSupport.getNetworkFactory();
+	}
+
+	public void runTestLoop(final int nodeCount, final int edgeCount) {
+		for (final TopologyStorage storage : TopologyStorage.values()) {
+			netFactory.setTopologyStorage(storage);
+
+			final long heapBefore = usedHeap();
+			final long startTime = System.currentTimeMillis();
+			final CyNetwork network = createNetwork(nodeCount, edgeCount);
+			final long endTime = System.currentTimeMillis();
+			final long heapAfter = usedHeap();
+
+			final CyRootNetworkImpl root = (CyRootNetworkImpl) ((CySubNetwork) network).getRootNetwork();
+			System.out.println(storage + " nodes: " + nodeCount + " edges: " + edgeCount
+			                   + "  build: " + (endTime - startTime) + " ms"
+			                   + "  topology estimate: " + (root.getTotalTopologyMemoryFootprint() >> 20) + " MB"
+			                   + "  heap growth (incl. tables): " + ((heapAfter - heapBefore) >> 20) + " MB");
+			network.getNodeCount(); // keep the network reachable until measured
+		}
+	}
+
+	private CyNetwork createNetwork(final int nodeCount, final int edgeCount) {
+		final CyNetwork network = netFactory.createNetwork();
+		final List<CyNode> nodes = new ArrayList<CyNode>(nodeCount);
+		for (int i = 0; i < nodeCount; i++)
+			nodes.add(network.addNode());
+
+		final Random rand = new Random(1234L);
+		for (int i = 0; i < edgeCount; i++) {
+			final CyNode source = nodes.get(rand.nextInt(nodeCount));
+			final CyNode target = nodes.get(rand.nextInt(nodeCount));
+			network.addEdge(source, target, true);
+		}
+
+		return network;
+	}
+
+	private static long usedHeap() {
+		final Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return rt.totalMemory() - rt.freeMemory();
+	}
+}
@@ -0,0 +1,117 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl Table Performance Debug (model-impl-table-performance-debug)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.Random;
+
+import org.cytoscape.model.internal.CyTableFactoryImpl;
+import org.cytoscape.model.internal.CyTableImpl;
+import org.cytoscape.model.internal.TableStorage;
+
+
+/**
+ * Compares the MAP and COLUMNAR table storage: memory per table and the
+ * time needed to fill the table, read every cell and scan for matches.
+ */
+public class TableStoragePerfTest {
+
+	private static final String[] COL_NAMES = new String[] {"a","b","c","d","e","f","g","h","i","j"};
+	private static final Class[] COL_TYPES = new Class[] {String.class, Integer.class, Long.class, Double.class, Boolean.class};
+	private static final int MATCHING = 100;
+
+	private final CyTableFactoryImpl tableFactory;
+
+	public static void main(String[] args) {
+		final int numRows = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		final TableStoragePerfTest test = new TableStoragePerfTest();
+		// the first round only warms up the JIT
+		for (int round = 0; round < 2; round++) {
+			for (final TableStorage storage : TableStorage.values())
+				test.testStorage(storage, numRows, round > 0);
+		}
+	}
+
+	public TableStoragePerfTest() {
+		tableFactory = (CyTableFactoryImpl) new TableTestSupport().getTableFactory();
+	}
+
+	private void testStorage(final TableStorage storage, final int numRows, final boolean print) {
+		tableFactory.setTableStorage(storage);
+		final CyTable table = tableFactory.createTable("homer", CyIdentifiable.SUID, Long.class, true, true);
+		for (int i = 0; i < COL_NAMES.length; i++)
+			table.createColumn(COL_NAMES[i], COL_TYPES[i % COL_TYPES.length], false);
+
+		final Random rand = new Random(numRows);
+		long start = System.nanoTime();
+		for (int i = 0; i < numRows; i++) {
+			final CyRow row = table.getRow(Long.valueOf(i));
+			for (int j = 0; j < COL_NAMES.length; j++)
+				row.set(COL_NAMES[j], getRandomValue(rand, COL_TYPES[j % COL_TYPES.length]));
+		}
+		final long fill = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		long checksum = 0;
+		for (final CyRow row : table.getAllRows()) {
+			for (int j = 0; j < COL_NAMES.length; j++) {
+				if (row.get(COL_NAMES[j], COL_TYPES[j % COL_TYPES.length]) != null)
+					checksum++;
+			}
+		}
+		final long read = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int j = 0; j < COL_NAMES.length; j++) {
+			if (COL_TYPES[j % COL_TYPES.length] == Integer.class) {
+				for (int x = 0; x < MATCHING; x++)
+					checksum += table.countMatchingRows(COL_NAMES[j], Integer.valueOf(x));
+			}
+		}
+		final long match = System.nanoTime() - start;
+
+		if (print) {
+			System.out.println(storage + ": fill " + fill / 1000000 + "ms, read " + read / 1000000
+			                   + "ms, match " + match / 1000000 + "ms, checksum " + checksum);
+			System.out.print(((CyTableImpl) table).getMemoryReport());
+		}
+	}
+
+	private static Object getRandomValue(final Random rand, final Class c) {
+		if ( c == Integer.class )
+			return Integer.valueOf( rand.nextInt(MATCHING) );
+		else if ( c == Long.class )
+			return Long.valueOf( rand.nextLong() );
+		else if ( c == Double.class )
+			return Double.valueOf( rand.nextDouble() );
+		else if ( c == Boolean.class )
+			return Boolean.valueOf( rand.nextBoolean() );
+		else if ( c == String.class )
+			return Integer.toString(rand.nextInt(1000));
+		else 
+			return null;
+	}
+}
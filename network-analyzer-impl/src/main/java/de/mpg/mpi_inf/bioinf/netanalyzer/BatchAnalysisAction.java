@@ -29,14 +29,10 @@ package de.mpg.mpi_inf.bioinf.netanalyzer;
 import java.awt.Frame;
 import java.awt.event.ActionEvent;
 import java.io.File;
-import java.io.FileFilter;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 
 import org.cytoscape.application.CyApplicationManager;
 import org.cytoscape.application.swing.CySwingApplication;
-import org.cytoscape.io.read.CyNetworkReader;
 import org.cytoscape.io.read.CyNetworkReaderManager;
 import org.cytoscape.model.CyNetworkManager;
 import org.slf4j.Logger;
@@ -90,7 +86,7 @@ public class BatchAnalysisAction extends NetAnalyzerAction {
 
 			// Step 2 - Run the analysis
 			if (inOutDirs != null) {
-				final List<File> files = getInputFiles(inOutDirs[0]);
+				final List<File> files = BatchAnalysisPipeline.getInputFiles(inOutDirs[0], cyNetworkViewReaderMgr);
 				if (files.size() > 0) {
 					final Interpretations ins = d1.getInterpretations();
 					final BatchNetworkAnalyzer analyzer = new BatchNetworkAnalyzer(inOutDirs[1], files, ins,netMgr,cyNetworkViewReaderMgr );
@@ -111,36 +107,6 @@ public class BatchAnalysisAction extends NetAnalyzerAction {
 		}
 	}
 
-	/**
-	 * Get all readable Network files from the input directory. These are all SIF, GML and XGMML files.
-	 * <p>
-	 * This method is called upon initialization only.
-	 * </p>
-	 * 
-	 * @param inputDir
-	 *            Input directory as selected by the user.
-	 * @return All readable Network files in the input directory, as a list of <code>File</code> instances.
-	 */
-	private List<File> getInputFiles(File inputDir) {
-		final FileFilter inputFileFilter = new FileFilter() {
-
-			public boolean accept(File aPathname) {
-				if (aPathname.isFile() && aPathname.canRead()) {
-					final String name = aPathname.getAbsolutePath();
-					CyNetworkReader reader =  cyNetworkViewReaderMgr.getReader(aPathname.toURI(), name); 
-					if (reader != null) {
-						return true;
-					}
-				}
-				return false;
-			}
-		};
-
-		final List<File> inputFiles = Arrays.asList(inputDir.listFiles(inputFileFilter));
-		Collections.sort(inputFiles);
-		return inputFiles;
-	}
-
 	/**
 	 * Unique ID for this version of this class. It is used in serialization.
 	 */
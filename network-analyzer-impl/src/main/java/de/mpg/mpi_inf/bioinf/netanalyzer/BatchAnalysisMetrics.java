@@ -0,0 +1,240 @@
+package de.mpg.mpi_inf.bioinf.netanalyzer;
+
+/*
+ * #%L
+ * Cytoscape NetworkAnalyzer Impl (network-analyzer-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013
+ *   Max Planck Institute for Informatics, Saarbruecken, Germany
+ *   The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timing and throughput counters of the stages of a {@link BatchAnalysisPipeline}.
+ * <p>
+ * All counters can be read while the pipeline is running.
+ * </p>
+ */
+public class BatchAnalysisMetrics {
+
+	/**
+	 * Stages of the batch analysis pipeline.
+	 */
+	public enum Stage {
+
+		/**
+		 * Parsing of an input file into a network.
+		 */
+		LOAD,
+
+		/**
+		 * Computation of the network parameters for one network interpretation.
+		 */
+		ANALYZE,
+
+		/**
+		 * Writing of the <code>.netstats</code> and node table files for one network interpretation.
+		 */
+		WRITE
+	}
+
+	/**
+	 * Initializes a new instance of <code>BatchAnalysisMetrics</code> with all counters set to zero.
+	 */
+	public BatchAnalysisMetrics() {
+		final int stageCount = Stage.values().length;
+		counts = new AtomicLongArray(stageCount);
+		times = new AtomicLongArray(stageCount);
+		maxTimes = new AtomicLongArray(stageCount);
+		startTime = 0;
+		endTime = 0;
+	}
+
+	/**
+	 * Gets the number of items processed by the given stage.
+	 *
+	 * @param aStage
+	 *            Stage of the pipeline.
+	 * @return Number of files loaded, or of interpretations analyzed or written, so far.
+	 */
+	public long getCount(Stage aStage) {
+		return counts.get(aStage.ordinal());
+	}
+
+	/**
+	 * Gets the total time spent in the given stage, summed over all threads.
+	 *
+	 * @param aStage
+	 *            Stage of the pipeline.
+	 * @return Time, in milliseconds, spent processing items in <code>aStage</code>.
+	 */
+	public long getTime(Stage aStage) {
+		return times.get(aStage.ordinal()) / NANOS_PER_MILLI;
+	}
+
+	/**
+	 * Gets the average time a single item spends in the given stage.
+	 *
+	 * @param aStage
+	 *            Stage of the pipeline.
+	 * @return Average time, in milliseconds, per item processed by <code>aStage</code>; <code>0</code> if no
+	 *         items have been processed yet.
+	 */
+	public double getAverageTime(Stage aStage) {
+		final long count = getCount(aStage);
+		if (count == 0) {
+			return 0;
+		}
+		return (double) times.get(aStage.ordinal()) / NANOS_PER_MILLI / count;
+	}
+
+	/**
+	 * Gets the longest time a single item has spent in the given stage.
+	 *
+	 * @param aStage
+	 *            Stage of the pipeline.
+	 * @return Maximum time, in milliseconds, per item processed by <code>aStage</code>.
+	 */
+	public long getMaxTime(Stage aStage) {
+		return maxTimes.get(aStage.ordinal()) / NANOS_PER_MILLI;
+	}
+
+	/**
+	 * Gets the throughput of the given stage measured over the wall-clock time of the pipeline.
+	 *
+	 * @param aStage
+	 *            Stage of the pipeline.
+	 * @return Number of items processed by <code>aStage</code> per second.
+	 */
+	public double getThroughput(Stage aStage) {
+		final long elapsed = getElapsedNanos();
+		if (elapsed <= 0) {
+			return 0;
+		}
+		return getCount(aStage) * 1e9 / elapsed;
+	}
+
+	/**
+	 * Gets the wall-clock time of the pipeline.
+	 *
+	 * @return Time, in milliseconds, since the pipeline was started, or its total running time if it has
+	 *         finished.
+	 */
+	public long getElapsedTime() {
+		return getElapsedNanos() / NANOS_PER_MILLI;
+	}
+
+	/**
+	 * Gets a one-line summary of all counters, suitable for logging.
+	 *
+	 * @return Summary of the stage counts, times and throughputs.
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder summary = new StringBuilder();
+		summary.append("elapsed ").append(getElapsedTime()).append(" ms");
+		for (final Stage stage : Stage.values()) {
+			summary.append("; ").append(stage.name().toLowerCase()).append(": ");
+			summary.append(getCount(stage)).append(" items, ");
+			summary.append(String.format("%.1f ms avg, ", getAverageTime(stage)));
+			summary.append(getMaxTime(stage)).append(" ms max, ");
+			summary.append(String.format("%.2f/s", getThroughput(stage)));
+		}
+		return summary.toString();
+	}
+
+	/**
+	 * Marks the start of the pipeline.
+	 */
+	void start() {
+		startTime = System.nanoTime();
+		endTime = 0;
+	}
+
+	/**
+	 * Marks the end of the pipeline.
+	 */
+	void stop() {
+		endTime = System.nanoTime();
+	}
+
+	/**
+	 * Records that an item has passed through the given stage.
+	 *
+	 * @param aStage
+	 *            Stage of the pipeline.
+	 * @param aNanos
+	 *            Time, in nanoseconds, the stage took to process the item.
+	 */
+	void record(Stage aStage, long aNanos) {
+		final int i = aStage.ordinal();
+		counts.incrementAndGet(i);
+		times.addAndGet(i, aNanos);
+		long max = maxTimes.get(i);
+		while (aNanos > max && !maxTimes.compareAndSet(i, max, aNanos)) {
+			max = maxTimes.get(i);
+		}
+	}
+
+	/**
+	 * Gets the wall-clock time of the pipeline in nanoseconds.
+	 *
+	 * @return Time, in nanoseconds, since the pipeline was started, or its total running time if it has
+	 *         finished; <code>0</code> if it has not been started.
+	 */
+	private long getElapsedNanos() {
+		if (startTime == 0) {
+			return 0;
+		}
+		return (endTime != 0 ? endTime : System.nanoTime()) - startTime;
+	}
+
+	/**
+	 * Number of nanoseconds in a millisecond.
+	 */
+	private static final long NANOS_PER_MILLI = 1000000L;
+
+	/**
+	 * Number of items processed, indexed by stage ordinal.
+	 */
+	private final AtomicLongArray counts;
+
+	/**
+	 * Total time in nanoseconds spent processing items, indexed by stage ordinal.
+	 */
+	private final AtomicLongArray times;
+
+	/**
+	 * Maximum time in nanoseconds spent processing a single item, indexed by stage ordinal.
+	 */
+	private final AtomicLongArray maxTimes;
+
+	/**
+	 * Value of {@link System#nanoTime()} when the pipeline was started.
+	 */
+	private volatile long startTime;
+
+	/**
+	 * Value of {@link System#nanoTime()} when the pipeline finished; <code>0</code> while it is running.
+	 */
+	private volatile long endTime;
+}
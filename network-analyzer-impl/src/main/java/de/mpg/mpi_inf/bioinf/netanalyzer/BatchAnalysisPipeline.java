@@ -0,0 +1,820 @@
+package de.mpg.mpi_inf.bioinf.netanalyzer;
+
+/*
+ * #%L
+ * Cytoscape NetworkAnalyzer Impl (network-analyzer-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013
+ *   Max Planck Institute for Informatics, Saarbruecken, Germany
+ *   The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileNotFoundException;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cytoscape.io.read.CyNetworkReader;
+import org.cytoscape.io.read.CyNetworkReaderManager;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNetworkManager;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.work.TaskMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.mpg.mpi_inf.bioinf.netanalyzer.BatchAnalysisMetrics.Stage;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.AnalysisError;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.Interpretations;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.Messages;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.NetworkAnalysisReport;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.NetworkInspection;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.NetworkInterpretation;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.NetworkStats;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.NetworkStatus;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.io.SettingsSerializer;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.io.StatsSerializer;
+
+/**
+ * Headless batch analysis of networks, processing several networks at the same time.
+ * <p>
+ * Every input file passes through three stages, each with a thread pool of its own: the file is
+ * loaded into a network, every accepted interpretation of the network is analyzed, and the results
+ * of each interpretation are written to the output directory as soon as they are computed. While one
+ * network is analyzed, others are loaded or have their results written. The interpretations of a
+ * single network are analyzed one after another, because every analysis overwrites the node table
+ * of the network.
+ * </p>
+ * <p>
+ * The number of networks held in memory is limited by a memory budget, for which the size of a
+ * loaded network is estimated from the size of its file. The time spent in each stage is collected
+ * in a {@link BatchAnalysisMetrics} instance.
+ * </p>
+ */
+public class BatchAnalysisPipeline {
+
+	/**
+	 * Initializes a new instance of <code>BatchAnalysisPipeline</code>.
+	 *
+	 * @param aOutputDir
+	 *            Output directory for the <code>.netstats</code> and node table files.
+	 * @param aInputFiles
+	 *            List of all input files for the analysis.
+	 * @param aInterpr
+	 *            Parameter specifying which interpretations to be applied to each network.
+	 * @param aNetMgr
+	 *            Network manager used to dispose of the loaded networks.
+	 * @param aReaderMgr
+	 *            Reader manager used to load the input files.
+	 * @param aThreads
+	 *            Number of threads in each stage of the pipeline; values smaller than <code>1</code> are
+	 *            treated as <code>1</code>.
+	 * @param aMemoryBudget
+	 *            Maximum estimated size, in megabytes, of all networks held in memory at the same time;
+	 *            values smaller than <code>1</code> are treated as <code>1</code>.
+	 */
+	public BatchAnalysisPipeline(File aOutputDir, List<File> aInputFiles, Interpretations aInterpr,
+			CyNetworkManager aNetMgr, CyNetworkReaderManager aReaderMgr, int aThreads, int aMemoryBudget) {
+		outputDir = aOutputDir;
+		inputFiles = aInputFiles;
+		interpretations = aInterpr;
+		netMgr = aNetMgr;
+		readerMgr = aReaderMgr;
+		threads = Math.max(1, aThreads);
+		memoryBudget = Math.max(1, aMemoryBudget);
+		metrics = new BatchAnalysisMetrics();
+		activeAnalyzers = new HashSet<NetworkAnalyzer>();
+		finishedCount = new AtomicInteger(0);
+		cancelled = false;
+	}
+
+	/**
+	 * Gets all readable network files in a directory, i.e. all files for which a network reader is
+	 * available.
+	 *
+	 * @param aInputDir
+	 *            Directory to be searched for network files.
+	 * @param aReaderMgr
+	 *            Reader manager to look up network readers from.
+	 * @return All readable network files in <code>aInputDir</code>, sorted by name.
+	 */
+	public static List<File> getInputFiles(File aInputDir, final CyNetworkReaderManager aReaderMgr) {
+		final FileFilter inputFileFilter = new FileFilter() {
+
+			public boolean accept(File aPathname) {
+				if (aPathname.isFile() && aPathname.canRead()) {
+					final String name = aPathname.getAbsolutePath();
+					CyNetworkReader reader = aReaderMgr.getReader(aPathname.toURI(), name);
+					if (reader != null) {
+						return true;
+					}
+				}
+				return false;
+			}
+		};
+
+		final File[] files = aInputDir.listFiles(inputFileFilter);
+		if (files == null) {
+			return new ArrayList<File>(0);
+		}
+		final List<File> inputFiles = Arrays.asList(files);
+		Collections.sort(inputFiles);
+		return inputFiles;
+	}
+
+	/**
+	 * Analyzes all input files and waits until the results are written.
+	 *
+	 * @param aMonitor
+	 *            Monitor to report the progress to; can be <code>null</code>.
+	 * @return List of reports describing the success or failure of the analysis of each network, in the
+	 *         order of the input files; the networks not analyzed because of cancellation are not reported.
+	 * @throws InterruptedException
+	 *             If the calling thread is interrupted while waiting for the pipeline.
+	 */
+	public List<NetworkAnalysisReport> run(TaskMonitor aMonitor) throws InterruptedException {
+		monitor = aMonitor;
+		final int fileCount = inputFiles.size();
+		final NetworkJob[] jobs = new NetworkJob[fileCount];
+		final CountDownLatch finished = new CountDownLatch(fileCount);
+		final Semaphore memory = new Semaphore(memoryBudget);
+		final Semaphore slots = new Semaphore(threads * 2);
+		loadPool = Executors.newFixedThreadPool(threads);
+		analysisPool = Executors.newFixedThreadPool(threads);
+		writePool = Executors.newFixedThreadPool(threads);
+		metrics.start();
+		try {
+			for (int i = 0; i < fileCount; ++i) {
+				final File inputFile = inputFiles.get(i);
+				final int permits = estimateSize(inputFile);
+				if (!cancelled) {
+					slots.acquire();
+					memory.acquire(permits);
+					if (cancelled) {
+						memory.release(permits);
+						slots.release();
+					}
+				}
+				if (cancelled) {
+					// Skip the remaining files
+					for (int j = i; j < fileCount; ++j) {
+						finished.countDown();
+					}
+					break;
+				}
+				jobs[i] = new NetworkJob(inputFile, permits, memory, slots, finished);
+				loadPool.execute(jobs[i].new LoadStage());
+			}
+			finished.await();
+		} finally {
+			loadPool.shutdownNow();
+			analysisPool.shutdownNow();
+			writePool.shutdownNow();
+			metrics.stop();
+		}
+
+		final List<NetworkAnalysisReport> reports = new ArrayList<NetworkAnalysisReport>(fileCount);
+		for (final NetworkJob job : jobs) {
+			if (job != null) {
+				reports.addAll(job.reports);
+			}
+		}
+		return reports;
+	}
+
+	/**
+	 * Cancels the batch analysis.
+	 * <p>
+	 * Networks being analyzed are cancelled, and no further files are loaded. The method {@link #run(TaskMonitor)}
+	 * returns once all stages currently running have stopped.
+	 * </p>
+	 */
+	public void cancel() {
+		cancelled = true;
+		synchronized (activeAnalyzers) {
+			for (final NetworkAnalyzer analyzer : activeAnalyzers) {
+				analyzer.cancel();
+			}
+		}
+	}
+
+	/**
+	 * Gets the timing and throughput counters of the pipeline stages.
+	 *
+	 * @return Metrics of this pipeline; the counters are updated while the pipeline is running.
+	 */
+	public BatchAnalysisMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Gets the number of input files whose processing is complete.
+	 *
+	 * @return Number of input files loaded, analyzed and written, or that have failed.
+	 */
+	public int getFinishedCount() {
+		return finishedCount.get();
+	}
+
+	/**
+	 * Gets the number of input files.
+	 *
+	 * @return Number of input files, i.e. networks to be analyzed.
+	 */
+	public int getInputFilesCount() {
+		return inputFiles.size();
+	}
+
+	/**
+	 * Filters the set of network interpretations based on the setting selected by the user.
+	 *
+	 * @param aInterprs
+	 *            All possible interpretations of the current network.
+	 * @param aAccepted
+	 *            Parameter specifying which interpretations are to be applied.
+	 * @return Array of all acceptable interpretations of the current network.
+	 */
+	static NetworkInterpretation[] filterInterpretations(NetworkInterpretation[] aInterprs,
+			Interpretations aAccepted) {
+		if (aAccepted != Interpretations.ALL) {
+			ArrayList<NetworkInterpretation> accepted = null;
+			for (int i = 0; i < aInterprs.length; i++) {
+				if ((aAccepted == Interpretations.DIRECTED) != aInterprs[i].isDirected()) {
+					if (accepted == null) {
+						accepted = new ArrayList<NetworkInterpretation>(aInterprs.length - 1);
+						for (int j = 0; j < i; j++) {
+							accepted.add(aInterprs[j]);
+						}
+					}
+				} else if (accepted != null) {
+					accepted.add(aInterprs[i]);
+				}
+			}
+			if (accepted != null) {
+				NetworkInterpretation[] result = new NetworkInterpretation[accepted.size()];
+				accepted.toArray(result);
+				return result;
+			}
+		}
+		return aInterprs;
+	}
+
+	/**
+	 * Gets the network interpretations from the network inspection.
+	 *
+	 * @param aInspection
+	 *            Network inspection.
+	 * @return Array with different network interpretations.
+	 */
+	static NetworkInterpretation[] getInterpretations(NetworkInspection aInspection) {
+		return NetworkStatus.getStatus(aInspection).getInterpretations();
+	}
+
+	/**
+	 * Creates an identifier of the network interpretation, to be appended to the names of the output files.
+	 *
+	 * @param aInterp
+	 *            Network Interpretation.
+	 * @return Identifier of the network interpretation, starting with <code>-d</code> for directed and
+	 *         <code>-u</code> for undirected interpretations.
+	 */
+	static String createID(NetworkInterpretation aInterp) {
+		String newName = "";
+		final boolean flag1 = aInterp.isDirected();
+		final boolean flag2 = aInterp.isIgnoreUSL();
+		final boolean flag3 = aInterp.isPaired();
+		if (flag1) {
+			newName += "-d";
+			if (flag2) {
+				newName += "-isl";
+			}
+		} else {
+			newName += "-u";
+			if (flag3) {
+				newName += "-cpe";
+			}
+		}
+		return newName;
+	}
+
+	/**
+	 * Save node attributes computed by NetworkAnalyzer for this network into a tab-delimited file with extension
+	 * "nattributes" (1st column corresponds to the node ids, each subsequent column contains the values of a node
+	 * attribute).
+	 * <p>
+	 * The rows are written through a buffer as they are read from the node table.
+	 * </p>
+	 *
+	 * @param aNetwork
+	 *            Target network.
+	 * @param aDir
+	 *            Flag indicating if the network interpretation is directed.
+	 * @param aOutputDir
+	 *            Output directory for writing files.
+	 * @param aExtendedName
+	 *            Name of the analyzed network including the current interpretation.
+	 * @return <code>true</code> if any node attributes where present and have been saved, and <code>false</code>
+	 *         otherwise.
+	 */
+	static boolean saveNodeAttributes(CyNetwork aNetwork, boolean aDir, File aOutputDir, String aExtendedName) {
+		// get node attributes computed in the last analysis run
+		final Set<String> netAnayzerAttr = aDir ? Messages.getDirNodeAttributes() : Messages
+				.getUndirNodeAttributes();
+		if (netAnayzerAttr.size() == 0) {
+			return false;
+		}
+		// save chosen node attributes in a file, 1st column corresponds to the node ids, each subsequent column
+		// contains the values of a node attribute
+		Writer writer = null;
+		try {
+			writer = new BufferedWriter(new FileWriter(new File(aOutputDir, aExtendedName + ".nattributes")));
+			writer.write("Node ID");
+			for (final String attr : netAnayzerAttr) {
+				writer.write("\t" + attr);
+			}
+			writer.write("\n");
+			for (final CyNode n : aNetwork.getNodeList()) {
+				final CyRow row = aNetwork.getRow(n);
+				writer.write(row.get("name", String.class));
+				for (final String attr : netAnayzerAttr) {
+					final Object attrValue = row.getRaw(attr);
+					if (attrValue != null) {
+						writer.write("\t" + attrValue.toString());
+					}
+				}
+				writer.write("\n");
+			}
+			writer.close();
+			writer = null;
+		} catch (IOException ex) {
+			// attributes file could not be written
+			return false;
+		} finally {
+			if (writer != null) {
+				try {
+					writer.close();
+				} catch (IOException ex) {
+					// Already failed; ignore
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Estimates the memory needed for the network loaded from the given file.
+	 *
+	 * @param aInputFile
+	 *            Input file.
+	 * @return Estimated size, in megabytes, of the loaded network, at least <code>1</code> and at most the
+	 *         memory budget, so that every file can be processed.
+	 */
+	private int estimateSize(File aInputFile) {
+		final long bytes = aInputFile.length() * BYTES_PER_FILE_BYTE;
+		final long megabytes = (bytes + BYTES_PER_MEGABYTE - 1) / BYTES_PER_MEGABYTE;
+		return (int) Math.max(1, Math.min(memoryBudget, megabytes));
+	}
+
+	/**
+	 * Reports the progress to the monitor, if one is set.
+	 */
+	private void updateProgress() {
+		final int done = finishedCount.incrementAndGet();
+		final TaskMonitor m = monitor;
+		if (m != null) {
+			synchronized (m) {
+				m.setProgress((double) done / inputFiles.size());
+			}
+		}
+	}
+
+	/**
+	 * Processing state of a single input file as it passes through the stages of the pipeline.
+	 */
+	private final class NetworkJob {
+
+		/**
+		 * Initializes a new instance of <code>NetworkJob</code>.
+		 *
+		 * @param aInputFile
+		 *            File to be loaded.
+		 * @param aPermits
+		 *            Megabytes of the memory budget acquired for this file.
+		 * @param aMemory
+		 *            Semaphore guarding the memory budget.
+		 * @param aSlots
+		 *            Semaphore guarding the number of networks processed at the same time.
+		 * @param aFinished
+		 *            Latch counting down the files still to be processed.
+		 */
+		public NetworkJob(File aInputFile, int aPermits, Semaphore aMemory, Semaphore aSlots,
+				CountDownLatch aFinished) {
+			inputFile = aInputFile;
+			permits = aPermits;
+			memory = aMemory;
+			slots = aSlots;
+			finished = aFinished;
+			reports = new ArrayList<NetworkAnalysisReport>(2);
+			network = null;
+			interprs = null;
+			current = 0;
+			done = false;
+		}
+
+		/**
+		 * Disposes of the loaded network, releases the memory reserved for it and marks the file as processed.
+		 */
+		private void finish() {
+			if (done) {
+				return;
+			}
+			done = true;
+			if (network != null) {
+				try {
+					netMgr.destroyNetwork(network);
+				} catch (Exception ex) {
+					// Network not registered or already removed; ignore
+				}
+				network = null;
+			}
+			memory.release(permits);
+			slots.release();
+			updateProgress();
+			finished.countDown();
+		}
+
+		/**
+		 * Loads the input file and inspects the network for its interpretations.
+		 */
+		private final class LoadStage extends PipelineStage {
+
+			public LoadStage() {
+				super(Stage.LOAD);
+			}
+
+			@Override
+			protected void process() throws Exception {
+				try {
+					if (!inputFile.isFile()) {
+						throw new RuntimeException();
+					}
+					final CyNetworkReader reader = readerMgr.getReader(inputFile.toURI(), inputFile.getName());
+					reader.run(new SilentTaskMonitor());
+					network = reader.getNetworks()[0];
+				} catch (Exception e) {
+					reports.add(new NetworkAnalysisReport(inputFile, null, AnalysisError.NETWORK_NOT_OPENED));
+					finish();
+					return;
+				}
+
+				NetworkInspection inspection = null;
+				try {
+					inspection = CyNetworkUtils.inspectNetwork(network);
+				} catch (IllegalArgumentException e) {
+					reports.add(new NetworkAnalysisReport(inputFile, null, AnalysisError.NETWORK_EMPTY));
+					finish();
+					return;
+				} catch (NullPointerException e) {
+					reports.add(new NetworkAnalysisReport(inputFile, null, AnalysisError.NETWORK_FILE_INVALID));
+					finish();
+					return;
+				}
+
+				interprs = filterInterpretations(getInterpretations(inspection), interpretations);
+				if (interprs.length == 0) {
+					finish();
+				} else {
+					analysisPool.execute(new AnalyzeStage());
+				}
+			}
+		}
+
+		/**
+		 * Analyzes the network for the current interpretation.
+		 */
+		private final class AnalyzeStage extends PipelineStage {
+
+			public AnalyzeStage() {
+				super(Stage.ANALYZE);
+			}
+
+			@Override
+			protected void process() {
+				final NetworkInterpretation interpretation = interprs[current];
+				NetworkAnalyzer analyzer = null;
+				try {
+					if (interpretation.isDirected()) {
+						analyzer = new DirNetworkAnalyzer(network, null, interpretation);
+					} else {
+						analyzer = new UndirNetworkAnalyzer(network, null, interpretation);
+					}
+					synchronized (activeAnalyzers) {
+						activeAnalyzers.add(analyzer);
+					}
+					if (!cancelled) {
+						analyzer.computeAll();
+					}
+				} catch (Exception e) {
+					reports.add(new NetworkAnalysisReport(inputFile, interpretation, AnalysisError.INTERNAL_ERROR));
+					next();
+					return;
+				} finally {
+					if (analyzer != null) {
+						synchronized (activeAnalyzers) {
+							activeAnalyzers.remove(analyzer);
+						}
+					}
+				}
+				if (cancelled) {
+					finish();
+					return;
+				}
+
+				final NetworkStats stats = analyzer.getStats();
+				final String networkName = network.getRow(network).get("name", String.class);
+				stats.setTitle(networkName + interpretation.getInterpretSuffix());
+				writePool.execute(new WriteStage(stats, networkName + createID(interpretation)));
+			}
+		}
+
+		/**
+		 * Writes the results of the current interpretation and moves on to the next one.
+		 */
+		private final class WriteStage extends PipelineStage {
+
+			public WriteStage(NetworkStats aStats, String aExtendedName) {
+				super(Stage.WRITE);
+				stats = aStats;
+				extendedName = aExtendedName;
+			}
+
+			@Override
+			protected void process() {
+				final NetworkInterpretation interpretation = interprs[current];
+				try {
+					if (SettingsSerializer.getPluginSettings().getUseNodeAttributes()) {
+						if (!saveNodeAttributes(network, interpretation.isDirected(), outputDir, extendedName)) {
+							logger.warn(inputFile.getName() + ": " + Messages.SM_ATTRIBUTESNOTSAVED.trim());
+						}
+					}
+					final File netstatFile = new File(outputDir, extendedName + ".netstats");
+					StatsSerializer.save(stats, netstatFile);
+					reports.add(new NetworkAnalysisReport(inputFile, interpretation, netstatFile));
+				} catch (SecurityException ex) {
+					reports.add(new NetworkAnalysisReport(inputFile, interpretation, AnalysisError.OUTPUT_NOT_CREATED));
+				} catch (FileNotFoundException ex) {
+					reports.add(new NetworkAnalysisReport(inputFile, interpretation, AnalysisError.OUTPUT_NOT_CREATED));
+				} catch (IOException e) {
+					reports.add(new NetworkAnalysisReport(inputFile, interpretation, AnalysisError.OUTPUT_IO_ERROR));
+				}
+				next();
+			}
+
+			/**
+			 * Parameters computed for the current interpretation.
+			 */
+			private final NetworkStats stats;
+
+			/**
+			 * Name of the network including the current interpretation.
+			 */
+			private final String extendedName;
+		}
+
+		/**
+		 * Passes the network on to the analysis of its next interpretation, or finishes the job if all
+		 * interpretations are done.
+		 */
+		private void next() {
+			if (++current < interprs.length && !cancelled) {
+				analysisPool.execute(new AnalyzeStage());
+			} else {
+				finish();
+			}
+		}
+
+		/**
+		 * Single step of the job, timed and guarded against unexpected errors.
+		 */
+		private abstract class PipelineStage implements Runnable {
+
+			public PipelineStage(Stage aStage) {
+				stage = aStage;
+			}
+
+			public final void run() {
+				final long start = System.nanoTime();
+				try {
+					process();
+				} catch (Throwable ex) {
+					logger.error(Messages.SM_LOGERROR + ": " + inputFile.getName(), ex);
+					reports.add(new NetworkAnalysisReport(inputFile, null, AnalysisError.INTERNAL_ERROR));
+					finish();
+				} finally {
+					metrics.record(stage, System.nanoTime() - start);
+				}
+			}
+
+			/**
+			 * Performs the step and hands the job over to the next stage, or finishes it.
+			 *
+			 * @throws Exception
+			 *             If an unexpected error occurs; the job is then finished.
+			 */
+			protected abstract void process() throws Exception;
+
+			/**
+			 * Stage the step belongs to.
+			 */
+			private final Stage stage;
+		}
+
+		/**
+		 * File from which the network is loaded.
+		 */
+		private final File inputFile;
+
+		/**
+		 * Megabytes of the memory budget acquired for this file.
+		 */
+		private final int permits;
+
+		/**
+		 * Semaphore guarding the memory budget.
+		 */
+		private final Semaphore memory;
+
+		/**
+		 * Semaphore guarding the number of networks processed at the same time.
+		 */
+		private final Semaphore slots;
+
+		/**
+		 * Latch counting down the files still to be processed.
+		 */
+		private final CountDownLatch finished;
+
+		/**
+		 * Reports on the analysis of this file. Only one stage of a job runs at any time, and stages are
+		 * handed over through the executors, so no further synchronization is needed.
+		 */
+		private final List<NetworkAnalysisReport> reports;
+
+		/**
+		 * Network loaded from the input file.
+		 */
+		private CyNetwork network;
+
+		/**
+		 * Interpretations of the network to be analyzed.
+		 */
+		private NetworkInterpretation[] interprs;
+
+		/**
+		 * Index of the interpretation currently analyzed or written.
+		 */
+		private int current;
+
+		/**
+		 * Flag indicating if the job is finished and its resources are released.
+		 */
+		private boolean done;
+	}
+
+	/**
+	 * Task monitor ignoring all messages of the network readers.
+	 */
+	private static final class SilentTaskMonitor implements TaskMonitor {
+
+		public void setTitle(String aTitle) {
+			// Network readers run in the background of the pipeline; ignore
+		}
+
+		public void setProgress(double aProgress) {
+			// Network readers run in the background of the pipeline; ignore
+		}
+
+		public void setStatusMessage(String aStatusMessage) {
+			// Network readers run in the background of the pipeline; ignore
+		}
+	}
+
+	private static final Logger logger = LoggerFactory.getLogger(BatchAnalysisPipeline.class);
+
+	/**
+	 * Estimated number of bytes a loaded network occupies in memory per byte of its file.
+	 */
+	private static final long BYTES_PER_FILE_BYTE = 16;
+
+	/**
+	 * Number of bytes in a megabyte.
+	 */
+	private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+
+	/**
+	 * Output directory for the <code>.netstats</code> and node table files.
+	 */
+	private final File outputDir;
+
+	/**
+	 * List of input files, that can be loaded in Cytoscape and analyzed by NetworkAnalyzer.
+	 */
+	private final List<File> inputFiles;
+
+	/**
+	 * Interpretations to applied for every loaded network.
+	 */
+	private final Interpretations interpretations;
+
+	/**
+	 * Network manager used to dispose of the loaded networks.
+	 */
+	private final CyNetworkManager netMgr;
+
+	/**
+	 * Reader manager used to load the input files.
+	 */
+	private final CyNetworkReaderManager readerMgr;
+
+	/**
+	 * Number of threads in each stage of the pipeline.
+	 */
+	private final int threads;
+
+	/**
+	 * Maximum estimated size, in megabytes, of all networks held in memory at the same time.
+	 */
+	private final int memoryBudget;
+
+	/**
+	 * Timing and throughput counters of the pipeline stages.
+	 */
+	private final BatchAnalysisMetrics metrics;
+
+	/**
+	 * Analyzers currently computing network parameters.
+	 */
+	private final Set<NetworkAnalyzer> activeAnalyzers;
+
+	/**
+	 * Number of input files whose processing is complete.
+	 */
+	private final AtomicInteger finishedCount;
+
+	/**
+	 * Flag indicating if the analysis has been canceled.
+	 */
+	private volatile boolean cancelled;
+
+	/**
+	 * Monitor the progress is reported to; can be <code>null</code>.
+	 */
+	private volatile TaskMonitor monitor;
+
+	/**
+	 * Thread pool loading the input files.
+	 */
+	private volatile ExecutorService loadPool;
+
+	/**
+	 * Thread pool analyzing the loaded networks.
+	 */
+	private volatile ExecutorService analysisPool;
+
+	/**
+	 * Thread pool writing the analysis results.
+	 */
+	private volatile ExecutorService writePool;
+}
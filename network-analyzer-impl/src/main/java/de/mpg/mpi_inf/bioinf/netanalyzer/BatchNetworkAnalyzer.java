@@ -29,18 +29,14 @@ package de.mpg.mpi_inf.bioinf.netanalyzer;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 import org.cytoscape.io.read.CyNetworkReader;
 import org.cytoscape.io.read.CyNetworkReaderManager;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNetworkManager;
-import org.cytoscape.model.CyNode;
 
 import de.mpg.mpi_inf.bioinf.netanalyzer.data.AnalysisError;
 import de.mpg.mpi_inf.bioinf.netanalyzer.data.Interpretations;
@@ -49,7 +45,6 @@ import de.mpg.mpi_inf.bioinf.netanalyzer.data.NetworkAnalysisReport;
 import de.mpg.mpi_inf.bioinf.netanalyzer.data.NetworkInspection;
 import de.mpg.mpi_inf.bioinf.netanalyzer.data.NetworkInterpretation;
 import de.mpg.mpi_inf.bioinf.netanalyzer.data.NetworkStats;
-import de.mpg.mpi_inf.bioinf.netanalyzer.data.NetworkStatus;
 import de.mpg.mpi_inf.bioinf.netanalyzer.data.io.SettingsSerializer;
 import de.mpg.mpi_inf.bioinf.netanalyzer.data.io.StatsSerializer;
 import de.mpg.mpi_inf.bioinf.netanalyzer.ui.BatchAnalysisDialog;
@@ -149,7 +144,8 @@ public class BatchNetworkAnalyzer extends SwingWorker {
 				continue;
 			}
 
-			final NetworkInterpretation[] interprs = filterInterpretations(getInterpretations(inspection));
+			final NetworkInterpretation[] interprs = BatchAnalysisPipeline.filterInterpretations(
+					BatchAnalysisPipeline.getInterpretations(inspection), interpretations);
 			final int intCount = interprs.length;
 			final int advance = PROGRESS_PER_NET / intCount;
 
@@ -187,10 +183,10 @@ public class BatchNetworkAnalyzer extends SwingWorker {
 
 					final String networkName = network.getRow(network).get("name",String.class);
 					stats.setTitle(networkName + interpretation.getInterpretSuffix());
-					final String extendedName = networkName + createID(interpretation);
+					final String extendedName = networkName + BatchAnalysisPipeline.createID(interpretation);
 					try {
 						if (SettingsSerializer.getPluginSettings().getUseNodeAttributes()) {
-							if (!saveNodeAttributes(network, interpretation.isDirected(), outputDir,
+							if (!BatchAnalysisPipeline.saveNodeAttributes(network, interpretation.isDirected(), outputDir,
 									extendedName)) {
 								writeLine(Messages.SM_ATTRIBUTESNOTSAVED);
 							}
@@ -227,96 +223,6 @@ public class BatchNetworkAnalyzer extends SwingWorker {
 		return null;
 	}
 
-	/**
-	 * Filters the set of network interpretations based on the setting selected by the user.
-	 * 
-	 * @param interprs
-	 *            All possible interpretations of the current network.
-	 * @return Array of all acceptable interpretations of the current network.
-	 * 
-	 * @see #interpretations
-	 */
-	private NetworkInterpretation[] filterInterpretations(NetworkInterpretation[] interprs) {
-		if (interpretations != Interpretations.ALL) {
-			ArrayList<NetworkInterpretation> accepted = null;
-			for (int i = 0; i < interprs.length; i++) {
-				if ((interpretations == Interpretations.DIRECTED) != interprs[i].isDirected()) {
-					if (accepted == null) {
-						accepted = new ArrayList<NetworkInterpretation>(interprs.length - 1);
-						for (int j = 0; j < i; j++) {
-							accepted.add(interprs[j]);
-						}
-					}
-				} else if (accepted != null) {
-					accepted.add(interprs[i]);
-				}
-			}
-			if (accepted != null) {
-				NetworkInterpretation[] result = new NetworkInterpretation[accepted.size()];
-				accepted.toArray(result);
-				return result;
-			}
-		}
-		return interprs;
-	}
-
-	/**
-	 * Save node attributes computed by NetworkAnalyzer for this network into a tab-delimited file with extension
-	 * "nattributes" (1st column corresponds to the node ids, each subsequent column contains the values of a node
-	 * attribute).
-	 * 
-	 * @param aNetwork
-	 *            Target network.
-	 * @param aDir
-	 *            Flag indicating if the network interpretation is directed.
-	 * @param aOutputDir
-	 *            Output directory for writing files as chosen by the user.
-	 * @param aExtendedName
-	 *            Name of the analyzed network including the current interpretation.
-	 * @return <code>true</code> if any node attributes where present and have been saved, and <code>false</code>
-	 *         otherwise.
-	 */
-	private boolean saveNodeAttributes(CyNetwork aNetwork, boolean aDir, File aOutputDir,
-			String aExtendedName) {
-		// get node attributes computed in the last analysis run
-		Set<String> netAnayzerAttr = new HashSet<String>();
-		if (aDir) {
-			netAnayzerAttr = Messages.getDirNodeAttributes();
-		} else {
-			netAnayzerAttr = Messages.getUndirNodeAttributes();
-		}
-		if (netAnayzerAttr.size() == 0) {
-			return false;
-
-		}
-		// save chosen node attributes in a file, 1st column corresponds to the node ids, each subsequent column
-		// contains the values of a node attribute
-		try {
-			final FileWriter writer = new FileWriter(new File(outputDir, aExtendedName + ".nattributes"));
-			writer.write("Node ID");
-			for (final String attr : netAnayzerAttr) {
-				writer.write("\t" + attr);
-			}
-			writer.write("\n");
-			for ( CyNode n : aNetwork.getNodeList()) {
-				final String id = aNetwork.getRow(n).get("name", String.class);
-				writer.write(id);
-				for (final String attr : netAnayzerAttr) {
-					final Object attrValue = aNetwork.getRow(n).getRaw(attr);
-					if (attrValue != null) {
-						writer.write("\t" + attrValue.toString());
-					}
-				}
-				writer.write("\n");
-			}
-			writer.close();
-		} catch (IOException ex) {
-			// attributes file could not be written
-			return false;
-		}
-		return true;
-	}
-
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -382,43 +288,6 @@ public class BatchNetworkAnalyzer extends SwingWorker {
 		dialog = aDialog;
 	}
 
-	/**
-	 * Creates an integer identifier of the network interpretation, where 1 means directed network and 0 - undirected.
-	 * 
-	 * @param aInterp
-	 *            Network Interpretation.
-	 * @return A String of the integer identifier of the network interpretation.
-	 */
-	private static String createID(NetworkInterpretation aInterp) {
-		String newName = "";
-		final boolean flag1 = aInterp.isDirected();
-		final boolean flag2 = aInterp.isIgnoreUSL();
-		final boolean flag3 = aInterp.isPaired();
-		if (flag1) {
-			newName += "-d";
-			if (flag2) {
-				newName += "-isl";
-			}
-		} else {
-			newName += "-u";
-			if (flag3) {
-				newName += "-cpe";
-			}
-		}
-		return newName;
-	}
-
-	/**
-	 * Gets the network interpretations from the network inspection.
-	 * 
-	 * @param inspection
-	 *            Network inspection.
-	 * @return Array with different network interpretations.
-	 */
-	private static NetworkInterpretation[] getInterpretations(NetworkInspection inspection) {
-		return NetworkStatus.getStatus(inspection).getInterpretations();
-	}
-
 	/**
 	 * Fixed integer estimating the analysis time of a single network.
 	 */
@@ -24,6 +24,8 @@ package de.mpg.mpi_inf.bioinf.netanalyzer;
  * #L%
  */
 
+import static org.cytoscape.work.ServiceProperties.COMMAND;
+import static org.cytoscape.work.ServiceProperties.COMMAND_NAMESPACE;
 import static org.cytoscape.work.ServiceProperties.ENABLE_FOR;
 import static org.cytoscape.work.ServiceProperties.ID;
 import static org.cytoscape.work.ServiceProperties.IN_TOOL_BAR;
@@ -51,10 +53,12 @@ import org.cytoscape.view.model.CyNetworkViewManager;
 import org.cytoscape.view.vizmap.VisualMappingFunctionFactory;
 import org.cytoscape.view.vizmap.VisualMappingManager;
 import org.cytoscape.view.vizmap.VisualStyleFactory;
+import org.cytoscape.work.TaskFactory;
 import org.cytoscape.work.swing.DialogTaskManager;
 import org.osgi.framework.BundleContext;
 
 import de.mpg.mpi_inf.bioinf.netanalyzer.task.AnalyzeNetworkByNetworkAnalyzerTaskFactory;
+import de.mpg.mpi_inf.bioinf.netanalyzer.task.BatchAnalyzeNetworksTaskFactory;
 import de.mpg.mpi_inf.bioinf.netanalyzer.ui.ResultPanelFactory;
 import de.mpg.mpi_inf.bioinf.netanalyzer.ui.VisualStyleBuilder;
 
@@ -112,6 +116,14 @@ public class CyActivator extends AbstractCyActivator {
 		Properties selectAllEdgesTaskFactoryProps = new Properties();
 		selectAllEdgesTaskFactoryProps.setProperty(ID, "analyzeNetworkByNetworkAnalyzerTaskFactory");
 		registerAllServices(bc,analyzeNetworkTaskFactory, selectAllEdgesTaskFactoryProps);
+
+		// Headless batch analysis, available to the command executor
+		BatchAnalyzeNetworksTaskFactory batchAnalyzeTaskFactory = new BatchAnalyzeNetworksTaskFactory(cyNetworkManagerServiceRef, cyNetworkViewReaderManagerServiceRef);
+		Properties batchAnalyzeTaskFactoryProps = new Properties();
+		batchAnalyzeTaskFactoryProps.setProperty(ID, "batchAnalyzeNetworksTaskFactory");
+		batchAnalyzeTaskFactoryProps.setProperty(COMMAND, "batch-analyze");
+		batchAnalyzeTaskFactoryProps.setProperty(COMMAND_NAMESPACE, "networkanalyzer");
+		registerService(bc,batchAnalyzeTaskFactory, TaskFactory.class, batchAnalyzeTaskFactoryProps);
 		
 		LoadNetstatsAction loadNetstatsAction = new LoadNetstatsAction(cyApplicationManagerServiceRef,cySwingApplicationServiceRef, viewManagerServiceRef, vsBuilder, vmmServiceRef, resultPanel);
 		MapParameterAction mapParameterAction = new MapParameterAction(cyApplicationManagerServiceRef,cySwingApplicationServiceRef, viewManagerServiceRef, vsBuilder, vmmServiceRef, analyzeNetworkAction);
@@ -31,11 +31,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
 
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNode;
@@ -49,8 +47,6 @@ import de.mpg.mpi_inf.bioinf.netanalyzer.data.LongHistogram;
 import de.mpg.mpi_inf.bioinf.netanalyzer.data.Messages;
 import de.mpg.mpi_inf.bioinf.netanalyzer.data.MutInteger;
 import de.mpg.mpi_inf.bioinf.netanalyzer.data.NetworkInterpretation;
-import de.mpg.mpi_inf.bioinf.netanalyzer.data.NodeBetweenInfo;
-import de.mpg.mpi_inf.bioinf.netanalyzer.data.PathLengthData;
 import de.mpg.mpi_inf.bioinf.netanalyzer.data.Points2D;
 import de.mpg.mpi_inf.bioinf.netanalyzer.data.SumCountPair;
 import de.mpg.mpi_inf.bioinf.netanalyzer.data.Utils;
@@ -85,16 +81,12 @@ public class DirNetworkAnalyzer extends NetworkAnalyzer {
 		}
 		nodeCount = stats.getInt("nodeCount");
 		this.sPathLengths = new long[nodeCount];
-		this.visited = new HashSet<CyNode>();
 		this.useNodeAttributes = SettingsSerializer.getPluginSettings().getUseNodeAttributes();
 		this.useEdgeAttributes = SettingsSerializer.getPluginSettings().getUseEdgeAttributes();
 		this.roundingDigits = 8;
 		this.numberOfIsolatedNodes = 0;
 		this.numberOfSelfLoops = 0;
 		this.multiEdgePartners = 0;
-		this.nodeBetweenness = new WeakHashMap<CyNode, NodeBetweenInfo>();
-		this.edgeBetweenness = new WeakHashMap<CyEdge, Double>();
-		this.stress = new HashMap<CyNode, Long>();
 		computeNB = true;
 		AttributeSetup.createDirectedNodeAttributes(aNetwork.getDefaultNodeTable());
 		AttributeSetup.createEdgeAttributes(aNetwork.getDefaultEdgeTable());
@@ -125,8 +117,6 @@ public class DirNetworkAnalyzer extends NetworkAnalyzer {
 		ArrayList<Point2D.Double> closenessCent = new ArrayList<Point2D.Double>(nodeCount);
 		// node betweenness
 		ArrayList<Point2D.Double> nodeBetweennessArray = new ArrayList<Point2D.Double>(nodeCount);
-		// average shortest path length
-		Map<CyNode, Double> aplMap = new HashMap<CyNode, Double>();
 		// stress
 		LogBinDistribution stressDist = new LogBinDistribution();
 		long outNeighbors = 0; // total number of out-neighbors
@@ -147,20 +137,14 @@ public class DirNetworkAnalyzer extends NetworkAnalyzer {
 			if (nodeSet != null) {
 				connNodes.retainAll(nodeSet);
 			} 
-			if (nodeSet == null && computeNB){
-				// Initialize parameter for node and edge betweenness calculation
-				// Clear elements of last component analyzed
-				nodeBetweenness.clear();
-				edgeBetweenness.clear();
-				// initialize betweenness map
-				for (CyNode n : connNodes) {
-					nodeBetweenness.put(n, new NodeBetweenInfo(0, -1, 0.0));
-					stress.put(n, Long.valueOf(0));
-				}
-			}
+			final List<CyNode> compNodes = new ArrayList<CyNode>(connNodes);
+			final int[] outNeighborCounts = new int[compNodes.size()];
 
-			for (final CyNode node : connNodes) {
-				++progress;
+			for (int i = 0; i < outNeighborCounts.length; ++i) {
+				final CyNode node = compNodes.get(i);
+				if (nodeSet != null) {
+					++progress;
+				}
 				final List<CyEdge> inEdges = getInEdges(node);
 				final List<CyEdge> outEdges = getOutEdges(node);
 				inDegreeDist.addObservation(inEdges.size());
@@ -244,38 +228,7 @@ public class DirNetworkAnalyzer extends NetworkAnalyzer {
 					network.getRow(node).set(Messages.getAttr("nco"), nco);
 				}
 
-				if (nodeSet == null) {
-					// Compute shortest path lengths
-					PathLengthData pathLengths = computeSP(node);
-					final int eccentricity = pathLengths.getMaxLength();
-					if (diameter < eccentricity) {
-						diameter = eccentricity;
-					}
-					if (0 < eccentricity && eccentricity < radius) {
-						radius = eccentricity;
-					}
-					final double apl = (pathLengths.getCount() > 0) ? pathLengths
-							.getAverageLength() : 0;
-					aplMap.put(node, Double.valueOf(apl));
-					final double closeness = (apl > 0.0) ? 1 / apl : 0.0;
-					closenessCent.add(new Point2D.Double(neighborCount, closeness));
-
-					if (useNodeAttributes) {
-						network.getRow(node).set(Messages.getAttr("spl"), eccentricity);
-						network.getRow(node).set(Messages.getAttr("apl"), Utils.roundTo(apl, roundingDigits));
-						network.getRow(node).set(Messages.getAttr("clc"), Utils.roundTo(closeness, roundingDigits));
-					}
-
-					// CyNode and edge betweenness calculation
-					if (computeNB) {
-						computeNBandEB(node);
-						// reset everything except the betweenness value
-						for (CyNode n : connNodes) {
-							NodeBetweenInfo nodeInfo = nodeBetweenness.get(n);
-							nodeInfo.reset();
-						}
-					}
-				}
+				outNeighborCounts[i] = neighborCount;
 
 				if (cancelled) {
 					analysisFinished();
@@ -283,18 +236,58 @@ public class DirNetworkAnalyzer extends NetworkAnalyzer {
 				}
 			}
 			
+			if (nodeSet != null) {
+				continue;
+			}
+
+			// Compute shortest path lengths, node and edge betweenness
+			final ShortestPathEngine engine = computeShortestPaths(compNodes,
+					CyEdge.Type.OUTGOING, computeNB, false);
+			if (engine == null) {
+				analysisFinished();
+				return;
+			}
+			if (computeNB && engine.isOverflow()) {
+				computeNB = false;
+			}
+			final long[] compPathLengths = engine.getPathLengths();
+			for (int i = 1; i < compPathLengths.length; ++i) {
+				sPathLengths[i] += compPathLengths[i];
+			}
+			sPathLengths[0] += compPathLengths.length;
+
+			for (int i = 0; i < outNeighborCounts.length; ++i) {
+				final CyNode node = compNodes.get(i);
+				final int eccentricity = engine.getEccentricity(i);
+				if (diameter < eccentricity) {
+					diameter = eccentricity;
+				}
+				if (0 < eccentricity && eccentricity < radius) {
+					radius = eccentricity;
+				}
+				final double apl = engine.getAverageLength(i);
+				final double closeness = (apl > 0.0) ? 1 / apl : 0.0;
+				closenessCent.add(new Point2D.Double(outNeighborCounts[i], closeness));
+
+				if (useNodeAttributes) {
+					network.getRow(node).set(Messages.getAttr("spl"), eccentricity);
+					network.getRow(node).set(Messages.getAttr("apl"), Utils.roundTo(apl, roundingDigits));
+					network.getRow(node).set(Messages.getAttr("clc"), Utils.roundTo(closeness, roundingDigits));
+				}
+			}
+
 			// Normalize and save betweenness and stress
-			if (nodeSet == null && computeNB) {
-				final double nNormFactor = computeNormFactor(nodeBetweenness.size());
-				for (final CyNode n : connNodes) {
-					final NodeBetweenInfo nbi = nodeBetweenness.get(n);
-					double nb = nbi.getBetweenness() * nNormFactor;
+			if (computeNB) {
+				final double nNormFactor = computeNormFactor(outNeighborCounts.length);
+				for (int i = 0; i < outNeighborCounts.length; ++i) {
+					final CyNode n = compNodes.get(i);
+					double nb = engine.getBetweenness(i) * nNormFactor;
 					final int connectivity = getNeighbors(n).size();
 					if (Double.isNaN(nb)) {
 						nb = 0.0;
 					}
 					nodeBetweennessArray.add(new Point2D.Double(connectivity, nb));
-					final long nodeStress = stress.get(n).longValue();
+					final long nodeStress = engine.getStress(i);
 					stressDist.addObservation(nodeStress);
 					if (useNodeAttributes) {
 						network.getRow(n).set(Messages.getAttr("nbt"), Utils.roundTo(nb, roundingDigits));
@@ -304,7 +297,7 @@ public class DirNetworkAnalyzer extends NetworkAnalyzer {
 
 				// Save edge betweenness
 				if (useEdgeAttributes) {
-					for (final Map.Entry<CyEdge, Double> betEntry : edgeBetweenness.entrySet()) {
+					for (final Map.Entry<CyEdge, Double> betEntry : engine.getEdgeBetweenness().entrySet()) {
 						double eb = betEntry.getValue().doubleValue();
 						if (Double.isNaN(eb)) {
 							eb = 0.0;
@@ -460,64 +453,6 @@ public class DirNetworkAnalyzer extends NetworkAnalyzer {
 		return getNeighbors(aNode, getInEdges(aNode), getOutEdges(aNode));
 	}
 
-	/**
-	 * Gets all out-neighbors of the given node.
-	 * 
-	 * @param aNode
-	 *            Node, whose out-neighbors are to be found.
-	 * @return <code>Set</code> of <code>Node</code> instances, containing all the out-neighbors of
-	 *         <code>aNode</code>; empty set if the specified node does not have outgoing edges.
-	 * @see CyNetworkUtils#getNeighbors(CyNetwork, Node, int[])
-	 */
-	private Set<CyNode> getOutNeighbors(CyNode aNode) {
-		return CyNetworkUtils.getNeighbors(network, aNode, getOutEdges(aNode));
-	}
-
-	/**
-	 * Computes the shortest path lengths from the given node to all other nodes in the network. As
-	 * a side effect, this method accumulates values in the field {@link #sPathLengths}.
-	 * <p>
-	 * This method uses a breadth-first traversal through the network, starting from the specified
-	 * node, in order to find all reachable nodes and accumulate their distances to
-	 * <code>aNode</code> in {@link #sPathLengths}.
-	 * </p>
-	 * 
-	 * @param aNode
-	 *            Starting node of the shortest paths to be found.
-	 * @return Data on the shortest path lengths from the current node to all other reachable nodes
-	 *         in the network.
-	 */
-	private PathLengthData computeSP(CyNode aNode) {
-		visited.clear();
-		visited.add(aNode);
-		LinkedList<CyNode> reachedNodes = new LinkedList<CyNode>();
-		reachedNodes.add(aNode);
-		reachedNodes.add(null); // marks a new level of BFS
-
-		PathLengthData result = new PathLengthData();
-		int spl = 1;
-		for (CyNode currentNode = reachedNodes.removeFirst(); !reachedNodes.isEmpty(); currentNode = reachedNodes
-				.removeFirst()) {
-			if (currentNode == null) {
-				// Next level of the BFS tree
-				spl++;
-				reachedNodes.add(null);
-			} else {
-				// Traverse next reached node
-				final Set<CyNode> neighbors = getOutNeighbors(currentNode);
-				for (final CyNode neighbor : neighbors) {
-					if (visited.add(neighbor)) {
-						sPathLengths[spl]++;
-						result.addSPL(spl);
-						reachedNodes.add(neighbor);
-					}
-				}
-			}
-		}
-		sPathLengths[0]++;
-		return result;
-	}
-
 	/**
 	 * Computes the average number of neighbors of the nodes in a given node set.
 	 * 
@@ -560,133 +495,6 @@ public class DirNetworkAnalyzer extends NetworkAnalyzer {
 		return (double) edgeCount / (neighborsCount * (neighborsCount - 1));
 	}
 
-	/**
-	 * Accumulates the node and edge betweenness of all nodes in a connected component. The node
-	 * betweenness is calculated using the algorithm of Brandes (U. Brandes: A Faster Algorithm for
-	 * Betweenness Centrality. Journal of Mathematical Sociology 25(2):163-177, 2001). The edge
-	 * betweenness is calculated as used by Newman and Girvan (M.E. Newman and M. Girvan: Finding
-	 * and Evaluating Community Structure in Networks. Phys. Rev. E Stat. Nonlin. Soft. Matter
-	 * Phys., 69, 026113.). In each run of this method a different source node is chosen and the
-	 * betweenness of all nodes is replaced by the new one. For the final result this method has to
-	 * be run for all nodes of the connected component.
-	 * 
-	 * This method uses a breadth-first search through the network, starting from a specified source
-	 * node, in order to find all paths to the other nodes in the network and to accumulate their
-	 * betweenness.
-	 * 
-	 * @param source
-	 *            CyNode where a run of breadth-first search is started, in order to accumulate the
-	 *            node and edge betweenness of all other nodes
-	 */
-	private void computeNBandEB(CyNode source) {
-		LinkedList<CyNode> done = new LinkedList<CyNode>();
-		LinkedList<CyNode> reached = new LinkedList<CyNode>();
-		HashMap<CyEdge, Double> edgeDependency = new HashMap<CyEdge, Double>();
-		HashMap<CyNode, Long> stressDependency = new HashMap<CyNode, Long>();
-
-		final NodeBetweenInfo sourceNBInfo = nodeBetweenness.get(source);
-		sourceNBInfo.setSource();
-		reached.add(source);
-		stressDependency.put(source, Long.valueOf(0));
-
-		// Use BFS to find shortest paths from source to all nodes in the network
-		while (!reached.isEmpty()) {
-			final CyNode current = reached.removeFirst();
-			done.addFirst(current);
-			final NodeBetweenInfo currentNBInfo = nodeBetweenness.get(current);
-			final Set<CyNode> neighbors = getOutNeighbors(current);
-			for (CyNode neighbor : neighbors) {
-				final NodeBetweenInfo neighborNBInfo = nodeBetweenness.get(neighbor);
-				final List<CyEdge> edges = network.getConnectingEdgeList(current,neighbor,CyEdge.Type.ANY);
-				final int expectSPLength = currentNBInfo.getSPLength() + 1;
-
-				if (neighborNBInfo.getSPLength() < 0) {
-					// Neighbor traversed for the first time
-					reached.add(neighbor);
-					neighborNBInfo.setSPLength(expectSPLength);
-					stressDependency.put(neighbor, Long.valueOf(0));
-				}
-				if (neighborNBInfo.getSPLength() == expectSPLength) {
-					// shortest path from current to neighbor found
-					neighborNBInfo.addSPCount(currentNBInfo.getSPCount());
-					neighborNBInfo.addPredecessor(current);
-					for (final CyEdge edge : edges) {
-						currentNBInfo.addOutedge(edge);
-					}
-					// check for long overflow
-					if (neighborNBInfo.getSPCount() < 0) {
-						computeNB = false;
-					}
-				}
-				for (final CyEdge edge : edges) {
-					edgeDependency.put(edge, 0.0);
-				}
-			}
-		}
-
-		// Return nodes in order of non-increasing distance from source
-		while (!done.isEmpty()) {
-			final CyNode current = done.removeFirst();
-			final NodeBetweenInfo currentNBInfo = nodeBetweenness.get(current);
-			if (currentNBInfo != null) {
-				final long currentStress = stressDependency.get(current).longValue();
-				while (!currentNBInfo.isEmptyPredecessors()) {
-					final CyNode predecessor = currentNBInfo.pullPredecessor();
-					final NodeBetweenInfo predecessorNBInfo = nodeBetweenness.get(predecessor);
-					predecessorNBInfo.addDependency((1.0 + currentNBInfo.getDependency())
-							* ((double) predecessorNBInfo.getSPCount() / (double) currentNBInfo
-									.getSPCount()));
-					// accumulate all sp count
-					final long oldStress = stressDependency.get(predecessor).longValue();
-					stressDependency.put(predecessor, new Long(oldStress + 1 + currentStress));
-					// accumulate edge betweenness
-					final List<CyEdge> edges = network.getConnectingEdgeList(predecessor,current, CyEdge.Type.ANY);
-					if (edges.size() != 0) {
-						final CyEdge compEdge = edges.get(0);
-						final LinkedList<CyEdge> currentedges = currentNBInfo.getOutEdges();
-						double oldbetweenness = 0.0;
-						double newbetweenness = 0.0;
-						for (final CyEdge edge : edges) {
-							Double betweenness = edgeBetweenness.get(edge);
-							if (betweenness != null) {
-								oldbetweenness = betweenness;
-								break;
-							}
-						}
-						// if the node is a leaf node in this search tree
-						if (currentedges.size() == 0) {
-							newbetweenness = (double) predecessorNBInfo.getSPCount()
-									/ (double) currentNBInfo.getSPCount();
-						} else {
-							double neighbourbetw = 0.0;
-							for (CyEdge neighbouredge : currentedges) {
-								if (!edges.contains(neighbouredge)) {
-									neighbourbetw += edgeDependency.get(neighbouredge)
-											.doubleValue();
-								}
-							}
-							newbetweenness = (1 + neighbourbetw)
-									* ((double) predecessorNBInfo.getSPCount() / (double) currentNBInfo
-											.getSPCount());
-						}
-						edgeDependency.put(compEdge, new Double(newbetweenness));
-						for (final CyEdge edge : edges) {							
-							edgeBetweenness.put(edge, new Double(newbetweenness + oldbetweenness));
-						}
-					}
-				}
-				// accumulate betweenness in each run
-				if (!current.equals(source)) {
-					currentNBInfo.addBetweenness(currentNBInfo.getDependency());
-					// accumulate number of shortest paths
-					final long allSpPaths = stress.get(current).longValue();
-					stress.put(current, new Long(allSpPaths + currentNBInfo.getSPCount()
-							* currentStress));
-				}
-			}
-		}
-	}
-
 	/**
 	 * Computes a normalization factor for node betweenness normalization.
 	 * 
@@ -724,14 +532,6 @@ public class DirNetworkAnalyzer extends NetworkAnalyzer {
 	 */
 	private long[] sPathLengths;
 
-	/**
-	 * Set of visited nodes.
-	 * <p>
-	 * This set is used exclusively by the method {@link #computeSP(CyNode)}.
-	 * </p>
-	 */
-	private final Set<CyNode> visited;
-
 	/**
 	 * Integer of how many nodes are in the network.
 	 * <p>
@@ -776,21 +576,4 @@ public class DirNetworkAnalyzer extends NetworkAnalyzer {
 	 * number of shortest paths exceeds the maximum long value.
 	 */
 	private boolean computeNB;
-	
-	/**
-	 * Map of all nodes with their respective node betweenness information, which stores information
-	 * needed for the node betweenness calculation
-	 */
-	private Map<CyNode, NodeBetweenInfo> nodeBetweenness;
-
-	/**
-	 * Map of all nodes with their respective edge betweenness
-	 */
-	private Map<CyEdge, Double> edgeBetweenness;
-
-	/**
-	 * Map of all nodes with their respective stress, i.e. number of shortest paths passing through
-	 * a node.
-	 */
-	private Map<CyNode, Long> stress;
 }
@@ -28,6 +28,7 @@ package de.mpg.mpi_inf.bioinf.netanalyzer;
 
 import java.awt.geom.Point2D;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -79,7 +80,8 @@ public abstract class NetworkAnalyzer {
 	 * @return Number of steps completed in the analysis process.
 	 */
 	public int getCurrentProgress() {
-		return progress;
+		final ShortestPathEngine engine = pathEngine;
+		return (engine != null) ? progress + engine.getProgress() : progress;
 	}
 
 	/**
@@ -105,6 +107,10 @@ public abstract class NetworkAnalyzer {
 	 */
 	public void cancel() {
 		cancelled = true;
+		final ShortestPathEngine engine = pathEngine;
+		if (engine != null) {
+			engine.cancel();
+		}
 	}
 
 	/**
@@ -182,6 +188,64 @@ public abstract class NetworkAnalyzer {
 		}
 	}
 
+	/**
+	 * Computes the shortest paths between all nodes of a connected component.
+	 * <p>
+	 * The breadth-first searches of the component run on all available processors. Every completed
+	 * search counts as a step of the analysis progress, and cancelling the analysis stops the
+	 * searches.
+	 * </p>
+	 * 
+	 * @param aNodes
+	 *            Nodes of the connected component.
+	 * @param aEdgeType
+	 *            Type of the edges followed from a node to its neighbors.
+	 * @param aBetweenness
+	 *            Flag indicating if node and edge betweenness and stress must be computed.
+	 * @param aSharedNeighbors
+	 *            Flag indicating if shared neighbors must be counted.
+	 * @return Engine holding the results of the computation; <code>null</code> if the analysis was
+	 *         cancelled.
+	 */
+	protected ShortestPathEngine computeShortestPaths(List<CyNode> aNodes, CyEdge.Type aEdgeType,
+			boolean aBetweenness, boolean aSharedNeighbors) {
+		final ShortestPathEngine engine = new ShortestPathEngine(network, aNodes, aEdgeType);
+		pathEngine = engine;
+		if (cancelled) {
+			engine.cancel();
+		}
+		final boolean completed = engine.compute(aBetweenness, aSharedNeighbors);
+		pathEngine = null;
+		progress += aNodes.size();
+		return completed ? engine : null;
+	}
+
+	/**
+	 * Adds source nodes to the sample of a shortest path engine and runs the searches from them.
+	 * <p>
+	 * Every completed search counts as a step of the analysis progress, and cancelling the
+	 * analysis stops the searches.
+	 * </p>
+	 * 
+	 * @param aEngine
+	 *            Engine prepared for sampling by
+	 *            {@link ShortestPathEngine#startSampling(boolean, boolean, java.util.Random)}.
+	 * @param aSampleSize
+	 *            Number of sampled nodes to be reached.
+	 * @return <code>true</code> if the searches completed; <code>false</code> if the analysis was
+	 *         cancelled.
+	 */
+	protected boolean sampleShortestPaths(ShortestPathEngine aEngine, int aSampleSize) {
+		pathEngine = aEngine;
+		if (cancelled) {
+			aEngine.cancel();
+		}
+		final boolean completed = aEngine.sample(aSampleSize - aEngine.getSampleCount());
+		pathEngine = null;
+		progress += aEngine.getProgress();
+		return completed;
+	}
+
 	/**
 	 * Adds a value in a mapping of integers and <code>SummCountPair</code>s.
 	 * <p>
@@ -319,7 +383,13 @@ public abstract class NetworkAnalyzer {
 	 * value of this flag should be checked at regular intervals.
 	 * </p>
 	 */
-	protected boolean cancelled;
+	protected volatile boolean cancelled;
+
+	/**
+	 * Engine computing the shortest paths of the connected component being analyzed;
+	 * <code>null</code> if no shortest paths are being computed.
+	 */
+	private volatile ShortestPathEngine pathEngine;
 
 	/**
 	 * Global <code>HashMap</code> for storing node attributes.
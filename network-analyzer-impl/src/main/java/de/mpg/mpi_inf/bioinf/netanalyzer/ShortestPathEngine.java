@@ -0,0 +1,822 @@
+package de.mpg.mpi_inf.bioinf.netanalyzer;
+
+/*
+ * #%L
+ * Cytoscape NetworkAnalyzer Impl (network-analyzer-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013
+ *   Max Planck Institute for Informatics, Saarbruecken, Germany
+ *   The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+
+/**
+ * Breadth-first search engine computing shortest path lengths, node and edge betweenness and
+ * stress for the nodes of a connected component.
+ * <p>
+ * The engine takes a snapshot of the component as adjacency arrays indexed by node ordinal, and
+ * runs one breadth-first search per source node on all available processors. Each thread sums
+ * its results in arrays of its own, which are added up when all searches are done. The
+ * betweenness values are calculated as by the algorithm of Brandes (U. Brandes: A Faster
+ * Algorithm for Betweenness Centrality. Journal of Mathematical Sociology 25(2):163-177, 2001),
+ * and the edge betweenness as used by Newman and Girvan (M.E. Newman and M. Girvan: Finding and
+ * Evaluating Community Structure in Networks. Phys. Rev. E Stat. Nonlin. Soft. Matter Phys., 69,
+ * 026113.).
+ * </p>
+ * <p>
+ * Instead of searching from all nodes, the engine can also search from a random sample of source
+ * nodes, growing the sample in steps (see {@link #startSampling(boolean, boolean, Random)}). The
+ * results are then estimates: the sums over the sampled sources are scaled up to the whole
+ * component, as proposed by Brandes and Pich (U. Brandes and C. Pich: Centrality Estimation in
+ * Large Networks. Int. J. Bifurcation and Chaos 17(7):2303-2318, 2007), and the average shortest
+ * path length of a node is estimated from its distances to the sampled sources, as proposed by
+ * Eppstein and Wang (D. Eppstein and J. Wang: Fast Approximation of Centrality. J. Graph
+ * Algorithms and Applications 8(1):39-45, 2004).
+ * </p>
+ * 
+ * @author Yassen Assenov
+ * @author Nadezhda Doncheva
+ */
+public class ShortestPathEngine {
+
+	/**
+	 * Initializes a new instance of <code>ShortestPathEngine</code>.
+	 * 
+	 * @param aNetwork
+	 *            Network that contains the nodes.
+	 * @param aNodes
+	 *            Nodes of a connected component of <code>aNetwork</code>. The position of a node
+	 *            in this list is its ordinal in the results of the engine.
+	 * @param aEdgeType
+	 *            Type of the edges followed from a node to its neighbors, as passed to
+	 *            {@link CyNetwork#getAdjacentEdgeList(CyNode, CyEdge.Type)}.
+	 */
+	public ShortestPathEngine(CyNetwork aNetwork, List<CyNode> aNodes, CyEdge.Type aEdgeType) {
+		network = aNetwork;
+		nodes = aNodes.toArray(new CyNode[aNodes.size()]);
+		nodeCount = nodes.length;
+		progress = new AtomicInteger();
+		createSnapshot(aEdgeType);
+	}
+
+	/**
+	 * Runs a breadth-first search from every node.
+	 * 
+	 * @param aBetweenness
+	 *            Flag indicating if node and edge betweenness and stress must be computed.
+	 * @param aSharedNeighbors
+	 *            Flag indicating if the number of neighbors that a node shares with the nodes at
+	 *            a distance of at most <code>2</code> must be counted.
+	 * @return <code>true</code> if the computation completed; <code>false</code> if it was
+	 *         cancelled.
+	 */
+	public boolean compute(boolean aBetweenness, boolean aSharedNeighbors) {
+		final int[] sources = new int[nodeCount];
+		for (int i = 0; i < nodeCount; ++i) {
+			sources[i] = i;
+		}
+		initSums(aBetweenness, aSharedNeighbors, false);
+		sourceOrder = sources;
+		if (!search(0, nodeCount)) {
+			return false;
+		}
+		sampleCount = nodeCount;
+		return true;
+	}
+
+	/**
+	 * Prepares the engine for searching from a random sample of source nodes. The searches are
+	 * run by subsequent calls to {@link #sample(int)}.
+	 * 
+	 * @param aBetweenness
+	 *            Flag indicating if node and edge betweenness and stress must be estimated.
+	 * @param aSharedNeighbors
+	 *            Flag indicating if the number of shared neighbors must be estimated.
+	 * @param aRandom
+	 *            Random number generator used to choose the sampled nodes.
+	 */
+	public void startSampling(boolean aBetweenness, boolean aSharedNeighbors, Random aRandom) {
+		final int[] sources = new int[nodeCount];
+		for (int i = 0; i < nodeCount; ++i) {
+			final int j = aRandom.nextInt(i + 1);
+			sources[i] = sources[j];
+			sources[j] = i;
+		}
+		initSums(aBetweenness, aSharedNeighbors, true);
+		sourceOrder = sources;
+		sampled = new boolean[nodeCount];
+		sampleCount = 0;
+	}
+
+	/**
+	 * Adds source nodes to the sample and runs breadth-first searches from them. The estimates
+	 * returned by this engine are updated when the searches complete.
+	 * 
+	 * @param aCount
+	 *            Number of source nodes to add to the sample.
+	 * @return <code>true</code> if the searches completed; <code>false</code> if they were
+	 *         cancelled.
+	 */
+	public boolean sample(int aCount) {
+		final int end = Math.min(nodeCount, sampleCount + aCount);
+		if (!search(sampleCount, end)) {
+			return false;
+		}
+		for (int i = sampleCount; i < end; ++i) {
+			sampled[sourceOrder[i]] = true;
+		}
+		sampleCount = end;
+		return true;
+	}
+
+	/**
+	 * Gets the number of source nodes whose searches are included in the results.
+	 * 
+	 * @return Number of source nodes searched from; equal to the number of nodes after a call to
+	 *         {@link #compute(boolean, boolean)}.
+	 */
+	public int getSampleCount() {
+		return sampleCount;
+	}
+
+	/**
+	 * Checks if the results of this engine are estimates from a sample of source nodes.
+	 * 
+	 * @return <code>true</code> if the searches started from a part of the nodes only;
+	 *         <code>false</code> if the results are exact.
+	 */
+	public boolean isEstimate() {
+		return sampleCount < nodeCount;
+	}
+
+	/**
+	 * Computes a bound for the error of the estimates, as given by Hoeffding's inequality for the
+	 * average of the sampled values, together with the union bound over all nodes.
+	 * <p>
+	 * With probability at least <code>aConfidence</code>, the estimated betweenness of every
+	 * node, normalized by <code>(n - 1)(n - 2)</code>, differs from the exact one by at most the
+	 * returned value multiplied by <code>n / (n - 1)</code>. The estimated average shortest path
+	 * length of every node differs by at most the returned value multiplied by the diameter of the
+	 * component.
+	 * </p>
+	 * 
+	 * @param aConfidence
+	 *            Probability that the bound holds, in the range <code>(0, 1)</code>.
+	 * @return Relative error bound of the estimates; <code>0</code> if the results are exact.
+	 */
+	public double getErrorBound(double aConfidence) {
+		if (!isEstimate()) {
+			return 0.0;
+		}
+		return Math.sqrt(Math.log(2 * nodeCount / (1 - aConfidence)) / (2.0 * sampleCount));
+	}
+
+	/**
+	 * Cancels the computation in progress.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Gets the number of breadth-first searches completed by the running call to
+	 * {@link #compute(boolean, boolean)} or {@link #sample(int)}.
+	 * 
+	 * @return Number of source nodes processed so far.
+	 */
+	public int getProgress() {
+		return progress.get();
+	}
+
+	/**
+	 * Gets the largest distance from a node to the nodes reachable from it.
+	 * <p>
+	 * When the results are estimates, the eccentricity of a node that is not in the sample is its
+	 * largest distance to a sampled node, which is a lower bound for the exact eccentricity.
+	 * </p>
+	 * 
+	 * @param aOrdinal
+	 *            Ordinal of the node.
+	 * @return Eccentricity of the node; <code>0</code> if no other nodes are reachable from it.
+	 */
+	public int getEccentricity(int aOrdinal) {
+		if (isEstimate() && !sampled[aOrdinal]) {
+			return targetEccentricities[aOrdinal];
+		}
+		return eccentricities[aOrdinal];
+	}
+
+	/**
+	 * Gets the average distance from a node to the nodes reachable from it.
+	 * <p>
+	 * When the results are estimates, the average shortest path length of a node that is not in
+	 * the sample is its average distance to the sampled nodes.
+	 * </p>
+	 * 
+	 * @param aOrdinal
+	 *            Ordinal of the node.
+	 * @return Average shortest path length of the node; <code>0</code> if no other nodes are
+	 *         reachable from it.
+	 */
+	public double getAverageLength(int aOrdinal) {
+		if (isEstimate() && !sampled[aOrdinal]) {
+			final int count = targetReachedCounts[aOrdinal];
+			return (count > 0) ? ((double) targetTotalLengths[aOrdinal]) / count : 0;
+		}
+		final int count = reachedCounts[aOrdinal];
+		return (count > 0) ? ((double) totalLengths[aOrdinal]) / count : 0;
+	}
+
+	/**
+	 * Gets the histogram of shortest path lengths.
+	 * 
+	 * @return Array whose <code>i</code>-th element is the number of shortest paths of length
+	 *         <code>i</code>, for <code>i &gt; 0</code>.
+	 */
+	public long[] getPathLengths() {
+		return scale(pathLengths);
+	}
+
+	/**
+	 * Gets the histogram of shared neighbors. Every pair of nodes at a distance of at most
+	 * <code>2</code> is counted twice, once from each node, and every other connected pair is
+	 * counted in the <code>0</code>-th element.
+	 * 
+	 * @return Array whose <code>i</code>-th element is the number of node pairs that share
+	 *         <code>i</code> neighbors; <code>null</code> if shared neighbors were not counted.
+	 */
+	public long[] getSharedNeighbors() {
+		return (sharedNeighbors != null) ? scale(sharedNeighbors) : null;
+	}
+
+	/**
+	 * Gets the node betweenness of a node, before normalization.
+	 * 
+	 * @param aOrdinal
+	 *            Ordinal of the node.
+	 * @return Sum of the dependencies of all source nodes on the node.
+	 */
+	public double getBetweenness(int aOrdinal) {
+		return betweenness[aOrdinal] * getScaleFactor();
+	}
+
+	/**
+	 * Gets the stress of a node, i.e. the number of shortest paths passing through it.
+	 * 
+	 * @param aOrdinal
+	 *            Ordinal of the node.
+	 * @return Stress of the node.
+	 */
+	public long getStress(int aOrdinal) {
+		return isEstimate() ? Math.round(stress[aOrdinal] * getScaleFactor()) : stress[aOrdinal];
+	}
+
+	/**
+	 * Checks if the number of shortest paths between two nodes exceeded the maximum long value.
+	 * In this case the betweenness and stress values are not valid.
+	 * 
+	 * @return <code>true</code> if the number of shortest paths overflowed.
+	 */
+	public boolean isOverflow() {
+		return overflow;
+	}
+
+	/**
+	 * Gets the edge betweenness of all edges that lie on a shortest path. All edges connecting
+	 * the same pair of nodes have the same betweenness.
+	 * 
+	 * @return Map of edges to their edge betweenness.
+	 */
+	public Map<CyEdge, Double> getEdgeBetweenness() {
+		final Map<CyEdge, Double> result = new HashMap<CyEdge, Double>();
+		final double factor = getScaleFactor();
+		for (int pair = 0; pair < pairCount; ++pair) {
+			if (pairReached[pair]) {
+				final Double value = Double.valueOf(pairBetweenness[pair] * factor);
+				final CyNode node1 = nodes[pairNodes[2 * pair]];
+				final CyNode node2 = nodes[pairNodes[2 * pair + 1]];
+				for (final CyEdge edge : network.getConnectingEdgeList(node1, node2, CyEdge.Type.ANY)) {
+					result.put(edge, value);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Creates the adjacency arrays of the node neighbors, and of the reverse relation, and
+	 * numbers the pairs of adjacent nodes.
+	 * 
+	 * @param aEdgeType
+	 *            Type of the edges followed from a node to its neighbors.
+	 */
+	private void createSnapshot(CyEdge.Type aEdgeType) {
+		final Map<CyNode, Integer> ordinals = new HashMap<CyNode, Integer>(nodeCount * 2);
+		for (int i = 0; i < nodeCount; ++i) {
+			ordinals.put(nodes[i], Integer.valueOf(i));
+		}
+
+		final Map<Long, Integer> pairs = new HashMap<Long, Integer>();
+		int[] adjacent = new int[16];
+		int[] adjacentPairs = new int[16];
+		int[] pairNodeArray = new int[16];
+		outStart = new int[nodeCount + 1];
+		int size = 0;
+		for (int i = 0; i < nodeCount; ++i) {
+			outStart[i] = size;
+			final Set<CyNode> neighbors = CyNetworkUtils.getNeighbors(network, nodes[i], network
+					.getAdjacentEdgeList(nodes[i], aEdgeType));
+			for (final CyNode neighbor : neighbors) {
+				final Integer ordinal = ordinals.get(neighbor);
+				if (ordinal == null) {
+					continue;
+				}
+				final int j = ordinal.intValue();
+				final Long key = Long.valueOf(Math.min(i, j) * (long) nodeCount + Math.max(i, j));
+				Integer pair = pairs.get(key);
+				if (pair == null) {
+					pair = Integer.valueOf(pairs.size());
+					pairs.put(key, pair);
+					if (pairNodeArray.length < 2 * pairs.size()) {
+						pairNodeArray = grow(pairNodeArray);
+					}
+					pairNodeArray[2 * pair.intValue()] = i;
+					pairNodeArray[2 * pair.intValue() + 1] = j;
+				}
+				if (adjacent.length == size) {
+					adjacent = grow(adjacent);
+					adjacentPairs = grow(adjacentPairs);
+				}
+				adjacent[size] = j;
+				adjacentPairs[size] = pair.intValue();
+				size++;
+			}
+		}
+		outStart[nodeCount] = size;
+		outNodes = adjacent;
+		outPairs = adjacentPairs;
+		pairCount = pairs.size();
+		pairNodes = pairNodeArray;
+
+		// Reverse relation, needed to find the predecessors of a node
+		inStart = new int[nodeCount + 1];
+		for (int k = 0; k < size; ++k) {
+			inStart[outNodes[k] + 1]++;
+		}
+		for (int i = 0; i < nodeCount; ++i) {
+			inStart[i + 1] += inStart[i];
+		}
+		inNodes = new int[size];
+		inPairs = new int[size];
+		final int[] next = new int[nodeCount];
+		System.arraycopy(inStart, 0, next, 0, nodeCount);
+		for (int i = 0; i < nodeCount; ++i) {
+			for (int k = outStart[i]; k < outStart[i + 1]; ++k) {
+				final int pos = next[outNodes[k]]++;
+				inNodes[pos] = i;
+				inPairs[pos] = outPairs[k];
+			}
+		}
+	}
+
+	/**
+	 * Creates the arrays that hold the results of the searches.
+	 */
+	private void initSums(boolean aBetweenness, boolean aSharedNeighbors, boolean aTargetSums) {
+		computeBetweenness = aBetweenness;
+		countShared = aSharedNeighbors;
+		sumTargets = aTargetSums;
+		eccentricities = new int[nodeCount];
+		reachedCounts = new int[nodeCount];
+		totalLengths = new long[nodeCount];
+		pathLengths = new long[nodeCount];
+		sharedNeighbors = aSharedNeighbors ? new long[nodeCount] : null;
+		betweenness = new double[nodeCount];
+		stress = new long[nodeCount];
+		pairBetweenness = new double[pairCount];
+		pairReached = new boolean[pairCount];
+		overflow = false;
+		if (aTargetSums) {
+			targetEccentricities = new int[nodeCount];
+			targetReachedCounts = new int[nodeCount];
+			targetTotalLengths = new long[nodeCount];
+		}
+	}
+
+	/**
+	 * Runs the breadth-first searches from the given range of {@link #sourceOrder} and adds their
+	 * results to the sums.
+	 * 
+	 * @return <code>true</code> if the searches completed; <code>false</code> if they were
+	 *         cancelled.
+	 */
+	private boolean search(int aFrom, int aTo) {
+		final int count = aTo - aFrom;
+		progress.set(0);
+		final int threadCount = (nodeCount < MIN_PARALLEL_NODES || count < 2) ? 1 : Math.min(
+				Runtime.getRuntime().availableProcessors(), count);
+		final Worker[] workers = new Worker[threadCount];
+		for (int i = 0; i < threadCount; ++i) {
+			workers[i] = new Worker(aFrom + i, aTo, threadCount);
+		}
+
+		if (threadCount == 1) {
+			workers[0].call();
+		} else {
+			final ExecutorService exec = Executors.newFixedThreadPool(threadCount);
+			try {
+				final Future<?>[] futures = new Future<?>[threadCount];
+				for (int i = 0; i < threadCount; ++i) {
+					futures[i] = exec.submit(workers[i]);
+				}
+				for (final Future<?> future : futures) {
+					future.get();
+				}
+			} catch (InterruptedException ex) {
+				cancelled = true;
+			} catch (ExecutionException ex) {
+				throw new InnerException(ex.getCause());
+			} finally {
+				exec.shutdownNow();
+			}
+		}
+
+		if (cancelled) {
+			return false;
+		}
+		reduce(workers);
+		return true;
+	}
+
+	/**
+	 * Adds the partial sums of the workers to the results.
+	 */
+	private void reduce(Worker[] aWorkers) {
+		for (final Worker worker : aWorkers) {
+			add(pathLengths, worker.pathLengths);
+			if (countShared) {
+				add(sharedNeighbors, worker.sharedNeighbors);
+			}
+			if (sumTargets) {
+				add(targetTotalLengths, worker.targetTotalLengths);
+				for (int i = 0; i < nodeCount; ++i) {
+					targetReachedCounts[i] += worker.targetReachedCounts[i];
+					targetEccentricities[i] = Math.max(targetEccentricities[i],
+							worker.targetEccentricities[i]);
+				}
+			}
+			if (computeBetweenness) {
+				overflow |= worker.overflow;
+				for (int i = 0; i < nodeCount; ++i) {
+					betweenness[i] += worker.betweenness[i];
+					stress[i] += worker.stress[i];
+				}
+				for (int pair = 0; pair < pairCount; ++pair) {
+					pairBetweenness[pair] += worker.pairBetweenness[pair];
+					pairReached[pair] |= worker.pairReached[pair];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the factor that scales sums over the sampled source nodes up to all nodes.
+	 */
+	private double getScaleFactor() {
+		return isEstimate() ? (double) nodeCount / sampleCount : 1.0;
+	}
+
+	private long[] scale(long[] aHistogram) {
+		if (!isEstimate()) {
+			return aHistogram;
+		}
+		final double factor = getScaleFactor();
+		final long[] result = new long[aHistogram.length];
+		for (int i = 0; i < result.length; ++i) {
+			result[i] = Math.round(aHistogram[i] * factor);
+		}
+		return result;
+	}
+
+	private static void add(long[] aSum, long[] aValues) {
+		for (int i = 0; i < aSum.length; ++i) {
+			aSum[i] += aValues[i];
+		}
+	}
+
+	private static int[] grow(int[] aArray) {
+		final int[] result = new int[aArray.length * 2];
+		System.arraycopy(aArray, 0, result, 0, aArray.length);
+		return result;
+	}
+
+	/**
+	 * Breadth-first searches from every <code>step</code>-th node of {@link #sourceOrder},
+	 * starting at position <code>first</code>, with sums of their own. Interleaving the sources
+	 * keeps the threads equally busy and the sums independent of timing.
+	 */
+	private final class Worker implements Callable<Void> {
+
+		Worker(int aFirst, int aEnd, int aStep) {
+			first = aFirst;
+			end = aEnd;
+			step = aStep;
+			dist = new int[nodeCount];
+			Arrays.fill(dist, -1);
+			order = new int[nodeCount];
+			pathLengths = new long[nodeCount];
+			if (countShared) {
+				marks = new int[nodeCount];
+				sharedNeighbors = new long[nodeCount];
+			}
+			if (sumTargets) {
+				targetEccentricities = new int[nodeCount];
+				targetReachedCounts = new int[nodeCount];
+				targetTotalLengths = new long[nodeCount];
+			}
+			if (computeBetweenness) {
+				sigma = new long[nodeCount];
+				delta = new double[nodeCount];
+				stressDependency = new long[nodeCount];
+				betweenness = new double[nodeCount];
+				stress = new long[nodeCount];
+				pairBetweenness = new double[pairCount];
+				pairReached = new boolean[pairCount];
+			}
+		}
+
+		public Void call() {
+			for (int i = first; i < end; i += step) {
+				if (cancelled) {
+					break;
+				}
+				search(sourceOrder[i]);
+				progress.incrementAndGet();
+			}
+			return null;
+		}
+
+		/**
+		 * Finds the shortest paths from the given node and accumulates its contributions.
+		 */
+		private void search(int aSource) {
+			final boolean nb = computeBetweenness && !overflow;
+			if (countShared) {
+				// Marks are source ordinals plus 1, so they never need to be cleared
+				for (int k = outStart[aSource]; k < outStart[aSource + 1]; ++k) {
+					marks[outNodes[k]] = aSource + 1;
+				}
+			}
+
+			dist[aSource] = 0;
+			order[0] = aSource;
+			if (nb) {
+				sigma[aSource] = 1;
+				delta[aSource] = 0.0;
+				stressDependency[aSource] = 0;
+			}
+			int head = 0;
+			int tail = 1;
+			int eccentricity = 0;
+			long totalLength = 0;
+			while (head < tail) {
+				final int current = order[head++];
+				final int nextDist = dist[current] + 1;
+				for (int k = outStart[current]; k < outStart[current + 1]; ++k) {
+					final int neighbor = outNodes[k];
+					if (dist[neighbor] < 0) {
+						// Neighbor traversed for the first time
+						dist[neighbor] = nextDist;
+						order[tail++] = neighbor;
+						pathLengths[nextDist]++;
+						totalLength += nextDist;
+						eccentricity = nextDist;
+						if (countShared) {
+							int snCount = 0;
+							if (nextDist <= 2) {
+								for (int l = outStart[neighbor]; l < outStart[neighbor + 1]; ++l) {
+									if (marks[outNodes[l]] == aSource + 1) {
+										snCount++;
+									}
+								}
+							}
+							sharedNeighbors[snCount]++;
+						}
+						if (sumTargets) {
+							targetReachedCounts[neighbor]++;
+							targetTotalLengths[neighbor] += nextDist;
+							if (targetEccentricities[neighbor] < nextDist) {
+								targetEccentricities[neighbor] = nextDist;
+							}
+						}
+						if (nb) {
+							sigma[neighbor] = 0;
+							delta[neighbor] = 0.0;
+							stressDependency[neighbor] = 0;
+						}
+					}
+					if (nb && dist[neighbor] == nextDist) {
+						// shortest path via current to neighbor found
+						sigma[neighbor] += sigma[current];
+						// check for long overflow
+						if (sigma[neighbor] < 0) {
+							overflow = true;
+						}
+					}
+				}
+			}
+			eccentricities[aSource] = eccentricity;
+			reachedCounts[aSource] = tail - 1;
+			totalLengths[aSource] = totalLength;
+
+			if (nb) {
+				// Return nodes in order of non-increasing distance from source
+				for (int i = tail - 1; i > 0; --i) {
+					final int current = order[i];
+					final int predDist = dist[current] - 1;
+					final long currentStress = stressDependency[current];
+					for (int k = inStart[current]; k < inStart[current + 1]; ++k) {
+						final int predecessor = inNodes[k];
+						if (dist[predecessor] != predDist) {
+							continue;
+						}
+						final double dependency = (1.0 + delta[current])
+								* ((double) sigma[predecessor] / (double) sigma[current]);
+						delta[predecessor] += dependency;
+						// accumulate all sp count
+						stressDependency[predecessor] += 1 + currentStress;
+						// accumulate edge betweenness
+						pairBetweenness[inPairs[k]] += dependency;
+						pairReached[inPairs[k]] = true;
+					}
+					betweenness[current] += delta[current];
+					// accumulate number of shortest paths
+					stress[current] += sigma[current] * currentStress;
+				}
+			}
+
+			for (int i = 0; i < tail; ++i) {
+				dist[order[i]] = -1;
+			}
+		}
+
+		private final int first;
+		private final int end;
+		private final int step;
+		private final int[] dist;
+		private final int[] order;
+		private int[] marks;
+		private long[] sigma;
+		private double[] delta;
+		private long[] stressDependency;
+		private boolean overflow;
+
+		final long[] pathLengths;
+		long[] sharedNeighbors;
+		int[] targetEccentricities;
+		int[] targetReachedCounts;
+		long[] targetTotalLengths;
+		double[] betweenness;
+		long[] stress;
+		double[] pairBetweenness;
+		boolean[] pairReached;
+	}
+
+	/**
+	 * Components with fewer nodes are searched on the calling thread.
+	 */
+	private static final int MIN_PARALLEL_NODES = 256;
+
+	/**
+	 * Network that contains the nodes.
+	 */
+	private final CyNetwork network;
+
+	/**
+	 * Nodes of the component, indexed by ordinal.
+	 */
+	private final CyNode[] nodes;
+
+	private final int nodeCount;
+
+	/**
+	 * Neighbors of the nodes: the neighbors of node <code>i</code> are
+	 * <code>outNodes[outStart[i]]</code> to <code>outNodes[outStart[i + 1] - 1]</code>, and
+	 * <code>outPairs</code> stores the numbers of the node pairs they form.
+	 */
+	private int[] outStart;
+
+	private int[] outNodes;
+
+	private int[] outPairs;
+
+	/**
+	 * Nodes that have a given node as neighbor, stored in the same way as the neighbors.
+	 */
+	private int[] inStart;
+
+	private int[] inNodes;
+
+	private int[] inPairs;
+
+	/**
+	 * Ordinals of the two nodes of every pair of adjacent nodes.
+	 */
+	private int[] pairNodes;
+
+	private int pairCount;
+
+	/**
+	 * Number of breadth-first searches completed.
+	 */
+	private final AtomicInteger progress;
+
+	/**
+	 * Flag indicating if the computation must stop.
+	 */
+	private volatile boolean cancelled;
+
+	private boolean computeBetweenness;
+
+	private boolean countShared;
+
+	/**
+	 * Flag indicating if the distances to every node are summed up, in order to estimate the
+	 * values of the nodes that are not sampled.
+	 */
+	private boolean sumTargets;
+
+	/**
+	 * Ordinals of the source nodes, in the order they are searched from.
+	 */
+	private int[] sourceOrder;
+
+	/**
+	 * Number of nodes at the start of {@link #sourceOrder} that have been searched from.
+	 */
+	private int sampleCount;
+
+	/**
+	 * Flags indicating which nodes have been searched from; <code>null</code> unless sampling.
+	 */
+	private boolean[] sampled;
+
+	private int[] eccentricities;
+
+	private int[] reachedCounts;
+
+	private long[] totalLengths;
+
+	private int[] targetEccentricities;
+
+	private int[] targetReachedCounts;
+
+	private long[] targetTotalLengths;
+
+	private long[] pathLengths;
+
+	private long[] sharedNeighbors;
+
+	private double[] betweenness;
+
+	private long[] stress;
+
+	private double[] pairBetweenness;
+
+	private boolean[] pairReached;
+
+	private boolean overflow;
+}
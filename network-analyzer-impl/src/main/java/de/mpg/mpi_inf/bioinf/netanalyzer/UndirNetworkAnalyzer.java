@@ -31,9 +31,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import org.cytoscape.model.CyNetwork;
@@ -48,8 +48,6 @@ import de.mpg.mpi_inf.bioinf.netanalyzer.data.LongHistogram;
 import de.mpg.mpi_inf.bioinf.netanalyzer.data.Messages;
 import de.mpg.mpi_inf.bioinf.netanalyzer.data.MutInteger;
 import de.mpg.mpi_inf.bioinf.netanalyzer.data.NetworkInterpretation;
-import de.mpg.mpi_inf.bioinf.netanalyzer.data.NodeBetweenInfo;
-import de.mpg.mpi_inf.bioinf.netanalyzer.data.PathLengthData;
 import de.mpg.mpi_inf.bioinf.netanalyzer.data.Points2D;
 import de.mpg.mpi_inf.bioinf.netanalyzer.data.SimpleUndirParams;
 import de.mpg.mpi_inf.bioinf.netanalyzer.data.SumCountPair;
@@ -86,12 +84,10 @@ public class UndirNetworkAnalyzer extends NetworkAnalyzer {
 		nodeCount = stats.getInt("nodeCount");
 		sPathLengths = new long[nodeCount];
 		sharedNeighborsHist = new long[nodeCount];
-		visited = new HashSet<CyNode>(nodeCount);
 		useNodeAttributes = SettingsSerializer.getPluginSettings().getUseNodeAttributes();
 		useEdgeAttributes = SettingsSerializer.getPluginSettings().getUseEdgeAttributes();
-		nodeBetweenness = new HashMap<CyNode, NodeBetweenInfo>();
-		edgeBetweenness = new HashMap<CyEdge, Double>();
-		stress = new HashMap<CyNode, Long>();
+		approximateCentralities = SettingsSerializer.getPluginSettings().getApproximateCentralities();
+		sampleSize = SettingsSerializer.getPluginSettings().getSampleSize();
 		roundingDigits = 8;
 		computeNB = true;
 		AttributeSetup.createUndirectedNodeAttributes(aNetwork.getDefaultNodeTable());
@@ -122,8 +118,6 @@ public class UndirNetworkAnalyzer extends NetworkAnalyzer {
 		ArrayList<Point2D.Double> nodeBetweennessArray = new ArrayList<Point2D.Double>(nodeCount);
 		// neighborhood connectivity
 		HashMap<Integer, SumCountPair> NCps = new HashMap<Integer, SumCountPair>();
-		// average shortest path length
-		Map<CyNode, Double> aplMap = new HashMap<CyNode, Double>();
 		// stress
 		LogBinDistribution stressDist = new LogBinDistribution();
 		// Compute number of connected components
@@ -138,22 +132,14 @@ public class UndirNetworkAnalyzer extends NetworkAnalyzer {
 			if (nodeSet != null) {
 				connNodes.retainAll(nodeSet);
 			} 
-			
-			// Initialize the parameters for node and edge betweenness calculation
-			if (nodeSet == null && computeNB) {
-				nodeBetweenness.clear();
-				edgeBetweenness.clear();
-				stress.clear();
-				aplMap.clear();
-				for (CyNode n : connNodes) {
-					nodeBetweenness.put(n, new NodeBetweenInfo(0, -1, 0.0));
-					stress.put(n, Long.valueOf(0));
-				}
-			}
+			final List<CyNode> compNodes = new ArrayList<CyNode>(connNodes);
+			final int[] neighborCounts = new int[compNodes.size()];
 
-			int componentDiameter = 0;
-			for (final CyNode node : connNodes) {
-				++progress;
+			for (int i = 0; i < neighborCounts.length; ++i) {
+				final CyNode node = compNodes.get(i);
+				if (nodeSet != null) {
+					++progress;
+				}
 				final List<CyEdge> incEdges = getIncidentEdges(node);
 				final Map<CyNode, MutInteger> neighborMap = CyNetworkUtils.getNeighborMap(network,
 						node, incEdges);
@@ -166,6 +152,7 @@ public class UndirNetworkAnalyzer extends NetworkAnalyzer {
 					network.getRow(node).set(Messages.getAttr("deg"),degree);
 				}
 				final int neighborCount = calcSimple(node, incEdges, neighborMap, params);
+				neighborCounts[i] = neighborCount;
 				if (maxConnectivity < neighborCount) {
 					maxConnectivity = neighborCount;
 				}
@@ -209,89 +196,76 @@ public class UndirNetworkAnalyzer extends NetworkAnalyzer {
 					analysisFinished();
 					return;
 				}
+			} // end node iteration
 
-				// Shortest path lengths computation
-				if (nodeSet != null) {
-					continue;
-				}
-				PathLengthData pathLengths = computeSPandSN(node);
-				final int eccentricity = pathLengths.getMaxLength();
+			if (nodeSet != null) {
+				continue;
+			}
+
+			// Shortest path lengths, shared neighbors, node and edge betweenness computation
+			final ShortestPathEngine engine;
+			if (approximateCentralities && compNodes.size() > sampleSize) {
+				engine = estimateShortestPaths(compNodes);
+			} else {
+				engine = computeShortestPaths(compNodes, getIncidentEdgeType(), computeNB, true);
+			}
+			if (engine == null) {
+				analysisFinished();
+				return;
+			}
+			if (computeNB && engine.isOverflow()) {
+				computeNB = false;
+			}
+			if (engine.isEstimate()) {
+				sampledNodes += engine.getSampleCount();
+				final int n = compNodes.size();
+				approxError = Math.max(approxError, engine.getErrorBound(CONFIDENCE) * n / (n - 1));
+			}
+			final long[] compPathLengths = engine.getPathLengths();
+			final long[] compSharedNeighbors = engine.getSharedNeighbors();
+			for (int i = 0; i < compPathLengths.length; ++i) {
+				sPathLengths[i] += compPathLengths[i];
+				sharedNeighborsHist[i] += compSharedNeighbors[i];
+			}
+
+			for (int i = 0; i < neighborCounts.length; ++i) {
+				final int eccentricity = engine.getEccentricity(i);
 				if (params.diameter < eccentricity) {
 					params.diameter = eccentricity;
 				}
 				if (0 < eccentricity && eccentricity < params.radius) {
 					params.radius = eccentricity;
 				}
-				if (componentDiameter < eccentricity) {
-					componentDiameter = eccentricity;
-				}
-				final double apl = (pathLengths.getCount() > 0) ? pathLengths.getAverageLength()
-						: 0;
-				aplMap.put(node, Double.valueOf(apl));
+				final double apl = engine.getAverageLength(i);
 				final double closeness = (apl > 0.0) ? 1 / apl : 0.0;
-				closenessCent.add(new Point2D.Double(neighborCount, closeness));
-
-				// Store max. and avg. shortest path lengths, and closeness in
-				// node attributes
-				if (useNodeAttributes) {
-					network.getRow(node).set( Messages.getAttr("spl"), eccentricity);
-					network.getRow(node).set( Messages.getAttr("apl"), Utils.roundTo(apl, roundingDigits));
-					network.getRow(node).set( Messages.getAttr("clc"), Utils.roundTo(closeness, roundingDigits));
-				}
-
-				// CyNode and edge betweenness calculation
-				if (computeNB) {
-					computeNBandEB(node);
-					// Reset everything except the betweenness value
-					for (final CyNode n : connNodes) {
-						NodeBetweenInfo nodeInfo = nodeBetweenness.get(n);
-						nodeInfo.reset();
-					}
-				}
+				closenessCent.add(new Point2D.Double(neighborCounts[i], closeness));
+			}
 
-				if (cancelled) {
-					analysisFinished();
-					return;
+			// Store shortest path lengths, closeness, radiality and node betweenness in node
+			// attributes
+			if (useNodeAttributes) {
+				saveCentralities(compNodes, engine);
+			}
+			if (computeNB) {
+				final double nNormFactor = computeNormFactor(neighborCounts.length);
+				for (int i = 0; i < neighborCounts.length; ++i) {
+					final CyNode n = compNodes.get(i);
+					final double nb = getNormalizedBetweenness(engine, i, nNormFactor);
+					final int degree = getDegree(n, getIncidentEdges(n));
+					nodeBetweennessArray.add(new Point2D.Double(degree, nb));
+					stressDist.addObservation(engine.getStress(i));
 				}
-			} // end node iteration
+			}
 
-			if (nodeSet == null) {
-				// Normalize and save node betweenness
-				final double nNormFactor = computeNormFactor(nodeBetweenness.size());
-				for (final CyNode n : connNodes) {
-					// Compute node radiality
-					final double rad = (componentDiameter + 1.0 - aplMap.get(n).doubleValue())
-							/ componentDiameter;
-					if (useNodeAttributes) {
-						network.getRow(n).set( Messages.getAttr("rad"), Utils.roundTo(rad, roundingDigits));
-					}
-					if (computeNB) {
-						final NodeBetweenInfo nbi = nodeBetweenness.get(n);
-						double nb = nbi.getBetweenness() * nNormFactor;
-						if (Double.isNaN(nb)) {
-							nb = 0.0;
-						}
-						final int degree = getDegree(n, getIncidentEdges(n));
-						nodeBetweennessArray.add(new Point2D.Double(degree, nb));
-						final long nodeStress = stress.get(n).longValue();
-						stressDist.addObservation(nodeStress);
-						if (useNodeAttributes) {
-							network.getRow(n).set( Messages.getAttr("nbt"), Utils.roundTo(nb, roundingDigits));
-							network.getRow(n).set( Messages.getAttr("stress"), nodeStress);
-						}
-					}
-				} // end iterate over nodes
-				
-				// Save edge betweenness
-				if (useEdgeAttributes && computeNB) {
-					for (final Map.Entry<CyEdge, Double> betEntry : edgeBetweenness.entrySet()) {
-						double eb = betEntry.getValue().doubleValue();
-						if (Double.isNaN(eb)) {
-							eb = 0.0;
-						}
-						network.getRow(betEntry.getKey()).set( Messages.getAttr("ebt"),
-								Utils.roundTo(eb, roundingDigits));
+			// Save edge betweenness
+			if (useEdgeAttributes && computeNB) {
+				for (final Map.Entry<CyEdge, Double> betEntry : engine.getEdgeBetweenness().entrySet()) {
+					double eb = betEntry.getValue().doubleValue();
+					if (Double.isNaN(eb)) {
+						eb = 0.0;
 					}
+					network.getRow(betEntry.getKey()).set( Messages.getAttr("ebt"),
+							Utils.roundTo(eb, roundingDigits));
 				}
 			}
 		} // end iteration over connected component
@@ -332,6 +306,10 @@ public class UndirNetworkAnalyzer extends NetworkAnalyzer {
 		stats.set("usn", params.unconnectedNodeCount);
 		stats.set("nsl", params.selfLoopCount);
 		stats.set("mnp", params.multiEdgePartners / 2);
+		if (sampledNodes > 0) {
+			stats.set("sampledNodes", sampledNodes);
+			stats.set("approxError", Utils.roundTo(approxError, roundingDigits));
+		}
 		if (interpr.isPaired()) {
 			stats.set("edgeCount", edgeCount / 2);
 		}
@@ -480,193 +458,91 @@ public class UndirNetworkAnalyzer extends NetworkAnalyzer {
 	}
 
 	/**
-	 * Computes the shortest path lengths from the given node to all other nodes in the network. In
-	 * addition, this method accumulates values in the {@link #sharedNeighborsHist} histogram.
-	 * <p>
-	 * This method stores the lengths found in the array {@link #sPathLengths}.<br/>
-	 * <code>sPathLengths[i] == 0</code> when i is the index of <code>aNode</code>.<br/>
-	 * <code>sPathLengths[i] == Integer.MAX_VALUE</code> when node i and <code>aNode</code> are
-	 * disconnected.<br/>
-	 * <code>sPathLengths[i] == d &gt; 0</code> when every shortest path between node i and
-	 * <code>aNode</code> contains <code>d</code> edges.
-	 * </p>
+	 * Estimates the shortest path lengths, shared neighbors, node and edge betweenness in a
+	 * connected component from a random sample of {@link #sampleSize} nodes.
 	 * <p>
-	 * This method uses a breadth-first traversal through the network, starting from the specified
-	 * node, in order to find all reachable nodes and accumulate their distances to
-	 * <code>aNode</code> in {@link #sPathLengths}.
+	 * The sample grows in steps, starting with {@link #INITIAL_SAMPLE_SIZE} nodes and doubling in
+	 * every step. The estimates of every step but the last one are stored in the node attributes,
+	 * so that they can be inspected while the analysis refines them.
 	 * </p>
 	 * 
-	 * @param aNode
-	 *            Starting node of the shortest paths to be found.
-	 * @return Data on the shortest path lengths from the current node to all other reachable nodes
-	 *         in the network.
+	 * @param aNodes
+	 *            Nodes of the connected component.
+	 * @return Engine holding the estimates from the full sample; <code>null</code> if the
+	 *         analysis was cancelled.
 	 */
-	private PathLengthData computeSPandSN(CyNode aNode) {
-		visited.clear();
-		visited.add(aNode);
-		Set<CyNode> nbs = null;
-		LinkedList<CyNode> reachedNodes = new LinkedList<CyNode>();
-		reachedNodes.add(aNode);
-		reachedNodes.add(null);
-		int currentDist = 1;
-		PathLengthData result = new PathLengthData();
-
-		for (CyNode currentNode = reachedNodes.removeFirst(); !reachedNodes.isEmpty(); currentNode = reachedNodes
-				.removeFirst()) {
-			if (currentNode == null) {
-				// Next level of the BFS tree
-				currentDist++;
-				reachedNodes.add(null);
-			} else {
-				// Traverse next reached node
-				final Set<CyNode> neighbors = getNeighbors(currentNode);
-				if (nbs == null) {
-					nbs = neighbors;
-				}
-				for (final CyNode neighbor : neighbors) {
-					if (visited.add(neighbor)) {
-						final int snCount = (currentDist > 2) ? 0 : countNeighborsIn(nbs, neighbor);
-						sharedNeighborsHist[snCount]++;
-						sPathLengths[currentDist]++;
-						result.addSPL(currentDist);
-						reachedNodes.add(neighbor);
-					}
-				}
+	private ShortestPathEngine estimateShortestPaths(List<CyNode> aNodes) {
+		final ShortestPathEngine engine = new ShortestPathEngine(network, aNodes,
+				getIncidentEdgeType());
+		engine.startSampling(computeNB, true, new Random());
+		int size = Math.min(INITIAL_SAMPLE_SIZE, sampleSize);
+		while (sampleShortestPaths(engine, size)) {
+			if (computeNB && engine.isOverflow()) {
+				computeNB = false;
+			}
+			if (size == sampleSize) {
+				// The searches from the nodes outside the sample are skipped
+				progress += aNodes.size() - size;
+				return engine;
 			}
+			if (useNodeAttributes) {
+				saveCentralities(aNodes, engine);
+			}
+			size = Math.min(size * 2, sampleSize);
 		}
-		return result;
+		return null;
 	}
 
 	/**
-	 * Accumulates the node and edge betweenness of all nodes in a connected component. The node
-	 * betweenness is calculate using the algorithm of Brandes (U. Brandes: A Faster Algorithm for
-	 * Betweenness Centrality. Journal of Mathematical Sociology 25(2):163-177, 2001). The edge
-	 * betweenness is calculated as used by Newman and Girvan (M.E. Newman and M. Girvan: Finding
-	 * and Evaluating Community Structure in Networks. Phys. Rev. E Stat. Nonlin. Soft. Matter
-	 * Phys., 69, 026113.). In each run of this method a different source node is chosen and the
-	 * betweenness of all nodes is replaced by the new one. For the final result this method has to
-	 * be run for all nodes of the connected component.
-	 * 
-	 * This method uses a breadth-first search through the network, starting from a specified source
-	 * node, in order to find all paths to the other nodes in the network and to accumulate their
-	 * betweenness.
+	 * Stores the eccentricity, average shortest path length, closeness, radiality, betweenness
+	 * and stress of the nodes in a connected component in node attributes.
 	 * 
-	 * @param source
-	 *            CyNode where a run of breadth-first search is started, in order to accumulate the
-	 *            node and edge betweenness of all other nodes
+	 * @param aNodes
+	 *            Nodes of the connected component.
+	 * @param aEngine
+	 *            Engine holding the shortest paths in the component.
 	 */
-	private void computeNBandEB(CyNode source) {
-		LinkedList<CyNode> done_nodes = new LinkedList<CyNode>();
-		LinkedList<CyNode> reached = new LinkedList<CyNode>();
-		HashMap<CyEdge, Double> edgeDependency = new HashMap<CyEdge, Double>();
-		HashMap<CyNode, Long> stressDependency = new HashMap<CyNode, Long>();
-
-		final NodeBetweenInfo sourceNBInfo = nodeBetweenness.get(source);
-		sourceNBInfo.setSource();
-		reached.add(source);
-		stressDependency.put(source, Long.valueOf(0));
-
-		// Use BFS to find shortest paths from source to all nodes in the
-		// network
-		while (!reached.isEmpty()) {
-			final CyNode current = reached.removeFirst();
-			done_nodes.addFirst(current);
-			final NodeBetweenInfo currentNBInfo = nodeBetweenness.get(current);
-			final Set<CyNode> neighbors = getNeighbors(current);
-			for (CyNode neighbor : neighbors) {
-				final NodeBetweenInfo neighborNBInfo = nodeBetweenness.get(neighbor);
-				final List<CyEdge> edges = network.getConnectingEdgeList(current,neighbor,CyEdge.Type.ANY);
-				final int expectSPLength = currentNBInfo.getSPLength() + 1;
-				if (neighborNBInfo.getSPLength() < 0) {
-					// Neighbor traversed for the first time
-					reached.add(neighbor);
-					neighborNBInfo.setSPLength(expectSPLength);
-					stressDependency.put(neighbor, Long.valueOf(0));
-				}
-				// shortest path via current to neighbor found
-				if (neighborNBInfo.getSPLength() == expectSPLength) {
-					neighborNBInfo.addSPCount(currentNBInfo.getSPCount());
-					// check for long overflow 
-					if (neighborNBInfo.getSPCount() < 0) {
-						computeNB = false;
-					}
-					// add predecessors and outgoing edges, needed for
-					// accumulation of betweenness scores
-					neighborNBInfo.addPredecessor(current);
-					for (final CyEdge edge : edges) {
-						currentNBInfo.addOutedge(edge);
-					}
-				}
-				// initialize edge dependency
-				for (final CyEdge edge : edges) {
-					edgeDependency.put(edge, new Double(0.0));
-				}
-			}
+	private void saveCentralities(List<CyNode> aNodes, ShortestPathEngine aEngine) {
+		int componentDiameter = 0;
+		for (int i = 0; i < aNodes.size(); ++i) {
+			componentDiameter = Math.max(componentDiameter, aEngine.getEccentricity(i));
 		}
-
-		// Return nodes in order of non-increasing distance from source
-		while (!done_nodes.isEmpty()) {
-			final CyNode current = done_nodes.removeFirst();
-			final NodeBetweenInfo currentNBInfo = nodeBetweenness.get(current);
-			if (currentNBInfo != null) {
-				final long currentStress = stressDependency.get(current).longValue();
-				while (!currentNBInfo.isEmptyPredecessors()) {
-					final CyNode predecessor = currentNBInfo.pullPredecessor();
-					final NodeBetweenInfo predecessorNBInfo = nodeBetweenness.get(predecessor);
-					predecessorNBInfo.addDependency((1.0 + currentNBInfo.getDependency())
-							* ((double) predecessorNBInfo.getSPCount() / (double) currentNBInfo
-									.getSPCount()));
-					// accumulate all sp count
-					final long oldStress = stressDependency.get(predecessor).longValue();
-					stressDependency.put(predecessor, new Long(oldStress + 1 + currentStress));
-					// accumulate edge betweenness
-					final List<CyEdge> edges = network.getConnectingEdgeList(predecessor,current,CyEdge.Type.ANY);
-					if (edges.size() != 0) {
-						final CyEdge compEdge = edges.get(0);
-						final LinkedList<CyEdge> currentedges = currentNBInfo.getOutEdges();
-						double oldbetweenness = 0.0;
-						double newbetweenness = 0.0;
-						for (final CyEdge edge : edges) {
-							Double betweenness = edgeBetweenness.get(edge);
-							if (betweenness != null) {
-								oldbetweenness = betweenness;
-								break;
-							}
-						}
-						// if the node is a leaf node in this search tree
-						if (currentedges.size() == 0) {
-							newbetweenness = (double) predecessorNBInfo.getSPCount()
-									/ (double) currentNBInfo.getSPCount();
-						} else {
-							double neighbourbetw = 0.0;
-							for (CyEdge neighbouredge : currentedges) {
-								if (!edges.contains(neighbouredge)) {
-									neighbourbetw += edgeDependency.get(neighbouredge)
-											.doubleValue();
-								}
-							}
-							newbetweenness = (1 + neighbourbetw)
-									* ((double) predecessorNBInfo.getSPCount() / (double) currentNBInfo
-											.getSPCount());
-						}
-						edgeDependency.put(compEdge, new Double(newbetweenness));
-						for (final CyEdge edge : edges) {
-							edgeBetweenness.put(edge, new Double(newbetweenness + oldbetweenness));
-						}
-					}
-				}
-				// accumulate node betweenness in each run
-				if (!current.equals(source)) {
-					currentNBInfo.addBetweenness(currentNBInfo.getDependency());
-					// accumulate number of shortest paths
-					final long allSpPaths = stress.get(current).longValue();
-					stress.put(current, new Long(allSpPaths + currentNBInfo.getSPCount()
-							* currentStress));
-				}
+		final double nNormFactor = computeNormFactor(aNodes.size());
+		for (int i = 0; i < aNodes.size(); ++i) {
+			final CyNode node = aNodes.get(i);
+			final double apl = aEngine.getAverageLength(i);
+			final double closeness = (apl > 0.0) ? 1 / apl : 0.0;
+			// Compute node radiality
+			final double rad = (componentDiameter + 1.0 - apl) / componentDiameter;
+			network.getRow(node).set( Messages.getAttr("spl"), aEngine.getEccentricity(i));
+			network.getRow(node).set( Messages.getAttr("apl"), Utils.roundTo(apl, roundingDigits));
+			network.getRow(node).set( Messages.getAttr("clc"), Utils.roundTo(closeness, roundingDigits));
+			network.getRow(node).set( Messages.getAttr("rad"), Utils.roundTo(rad, roundingDigits));
+			if (computeNB) {
+				final double nb = getNormalizedBetweenness(aEngine, i, nNormFactor);
+				network.getRow(node).set( Messages.getAttr("nbt"), Utils.roundTo(nb, roundingDigits));
+				network.getRow(node).set( Messages.getAttr("stress"), aEngine.getStress(i));
 			}
 		}
 	}
 
+	/**
+	 * Gets the normalized node betweenness of a node.
+	 * 
+	 * @param aEngine
+	 *            Engine holding the shortest paths in the connected component of the node.
+	 * @param aOrdinal
+	 *            Ordinal of the node in the engine.
+	 * @param aNormFactor
+	 *            Normalization factor for the connected component.
+	 * @return Node betweenness of the node, <code>0</code> if it is not defined.
+	 */
+	private double getNormalizedBetweenness(ShortestPathEngine aEngine, int aOrdinal,
+			double aNormFactor) {
+		final double nb = aEngine.getBetweenness(aOrdinal) * aNormFactor;
+		return Double.isNaN(nb) ? 0.0 : nb;
+	}
+
 	/**
 	 * Computes a normalization factor for node betweenness normalization.
 	 * 
@@ -694,21 +570,6 @@ public class UndirNetworkAnalyzer extends NetworkAnalyzer {
 		return (double) neighbors / aNodes.size();
 	}
 
-	/**
-	 * Counts the number of neighbors of the given node that occur in the given set of nodes.
-	 * 
-	 * @param aSet
-	 *            Set of nodes to be searched in.
-	 * @param aNode
-	 *            CyNode whose neighbors will be searched in <code>aSet</code>.
-	 * @return Number of nodes in <code>aSet</code> that are neighbors of <code>aNode</code>.
-	 */
-	private int countNeighborsIn(Set<CyNode> aSet, CyNode aNode) {
-		Set<CyNode> nbs = CyNetworkUtils.getNeighbors(network, aNode, getIncidentEdges(aNode));
-		nbs.retainAll(aSet);
-		return nbs.size();
-	}
-
 	/**
 	 * Computes the topological coefficient of the given node.
 	 * 
@@ -783,7 +644,16 @@ public class UndirNetworkAnalyzer extends NetworkAnalyzer {
 	 *         <code>aNode</code>.
 	 */
 	private List<CyEdge> getIncidentEdges(CyNode aNode) {
-		return network.getAdjacentEdgeList(aNode, (interpr.isPaired() ? CyEdge.Type.INCOMING : CyEdge.Type.ANY));
+		return network.getAdjacentEdgeList(aNode, getIncidentEdgeType());
+	}
+
+	/**
+	 * Gets the type of the edges considered incident on a node.
+	 * 
+	 * @return {@link CyEdge.Type#INCOMING} if the edges are paired; {@link CyEdge.Type#ANY} otherwise.
+	 */
+	private CyEdge.Type getIncidentEdgeType() {
+		return interpr.isPaired() ? CyEdge.Type.INCOMING : CyEdge.Type.ANY;
 	}
 
 	/**
@@ -817,14 +687,6 @@ public class UndirNetworkAnalyzer extends NetworkAnalyzer {
 	 */
 	private int roundingDigits;
 
-	/**
-	 * Set of visited nodes.
-	 * <p>
-	 * This set is used exclusively by the method {@link #computeSPandSN(CyNode)}.
-	 * </p>
-	 */
-	private final Set<CyNode> visited;
-
 	/**
 	 * Flag indicating if node(edge) betweenness and stress should be computed. It is set to false if the
 	 * number of shortest paths exceeds the maximum long value.
@@ -832,21 +694,36 @@ public class UndirNetworkAnalyzer extends NetworkAnalyzer {
 	private boolean computeNB;
 
 	/**
-	 * Map of all nodes with their respective node betweenness information, which stores information
-	 * needed for the node betweenness calculation.
+	 * Flag indicating if closeness, betweenness and stress of large connected components are
+	 * estimated from a sample of {@link #sampleSize} nodes.
+	 */
+	private boolean approximateCentralities;
+
+	/**
+	 * Number of nodes sampled in every connected component whose centralities are estimated.
 	 */
-	private Map<CyNode, NodeBetweenInfo> nodeBetweenness;
+	private int sampleSize;
 
 	/**
-	 * Map of all nodes with their respective edge betweenness.
+	 * Total number of sampled nodes in the connected components whose centralities are estimated.
 	 */
-	private Map<CyEdge, Double> edgeBetweenness;
+	private int sampledNodes;
 
 	/**
-	 * Map of all nodes with their respective stress, i.e. number of shortest paths passing through
-	 * a node.
+	 * Largest error bound of the estimated node betweenness over all connected components.
 	 */
-	private Map<CyNode, Long> stress;
+	private double approxError;
 
 	private int nodeCount;
+
+	/**
+	 * Number of nodes in the first sample of a connected component whose centralities are
+	 * estimated.
+	 */
+	private static final int INITIAL_SAMPLE_SIZE = 64;
+
+	/**
+	 * Probability that the reported error bound of estimated centralities holds.
+	 */
+	private static final double CONFIDENCE = 0.95;
 }
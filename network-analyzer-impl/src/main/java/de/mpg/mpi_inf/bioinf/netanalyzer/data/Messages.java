@@ -84,6 +84,8 @@ public abstract class Messages {
 		simpleParams.put("diameter", "Network diameter");
 		simpleParams.put("radius", "Network radius");
 		simpleParams.put("avSpl", "Characteristic path length");
+		simpleParams.put("sampledNodes", "Sampled nodes (estimated centralities)");
+		simpleParams.put("approxError", "Betweenness error bound (95% confidence)");
 		simpleParams.put("cc", "Clustering coefficient");
 		simpleParams.put("nsl", "Number of self-loops");
 		simpleParams.put("mnp", "Multi-edge node pairs");
@@ -584,6 +586,8 @@ public abstract class Messages {
 
 	public static final String SET_PREFIX = "SET_";
 
+	public static String SET_APPROXIMATECENTRALITIES = "Estimate centralities of large components from a sample of nodes";
+
 	public static String SET_BARCOLOR = "Color of bars";
 
 	public static String SET_BACKGROUNDCOLOR = "Background color for parameter visualization";
@@ -620,6 +624,8 @@ public abstract class Messages {
 
 	public static String SET_RANGEAXISLABEL = "Label of value axis";
 
+	public static String SET_SAMPLESIZE = "Number of sampled nodes";
+
 	public static String SET_SCIRCLE = "circle";
 
 	public static String SET_SCROSS = "cross";
@@ -68,6 +68,8 @@ public class NetworkStats {
 		"usn",
 		"nsl",
 		"mnp",
+		"sampledNodes",
+		"approxError",
 		"time"
 	};
 
@@ -158,6 +158,28 @@ public class PluginSettings extends Settings {
 		return useEdgeAttributes;
 	}
 
+	/**
+	 * Checks if closeness, betweenness and stress are estimated from a sample of nodes.
+	 * 
+	 * @return <code>true</code> if the analyzers must estimate centralities of connected components
+	 *         larger than the sample size, <code>false</code> if they must compute the exact values.
+	 * @see #getSampleSize()
+	 */
+	public boolean getApproximateCentralities() {
+		return approximateCentralities;
+	}
+
+	/**
+	 * Gets the number of nodes sampled for estimating centralities.
+	 * 
+	 * @return Number of source nodes, from which shortest paths are searched in a connected
+	 *         component when centralities are estimated.
+	 * @see #getApproximateCentralities()
+	 */
+	public int getSampleSize() {
+		return sampleSize;
+	}
+
 	/**
 	 * Gets the color of the background.
 	 * 
@@ -247,6 +269,32 @@ public class PluginSettings extends Settings {
 		useEdgeAttributes = anEdgeAttribute;
 	}
 
+	/**
+	 * Sets the value of the &quot;approximateCentralities&quot; flag.
+	 * <p>
+	 * This flag identifies if centralities are estimated from a sample of nodes.
+	 * </p>
+	 * 
+	 * @param aApproximate
+	 *            New value of the &quot;approximateCentralities&quot; flag.
+	 * @see #getApproximateCentralities()
+	 */
+	public void setApproximateCentralities(boolean aApproximate) {
+		approximateCentralities = aApproximate;
+	}
+
+	/**
+	 * Sets the number of nodes sampled for estimating centralities.
+	 * 
+	 * @param aSampleSize
+	 *            New sample size. Values smaller than <code>1</code> are replaced by
+	 *            <code>1</code>.
+	 * @see #getSampleSize()
+	 */
+	public void setSampleSize(int aSampleSize) {
+		sampleSize = Math.max(1, aSampleSize);
+	}
+
 	/**
 	 * Sets the background color to be used for visualizing network parameters.
 	 * 
@@ -346,6 +394,16 @@ public class PluginSettings extends Settings {
 	 */
 	static final String useEdgeAttributesTag = "edgeattributes";
 
+	/**
+	 * Name of the tag identifying the &quot;approximateCentralities&quot; flag.
+	 */
+	static final String approximateCentralitiesTag = "approxcentralities";
+
+	/**
+	 * Name of the tag identifying the sample size for estimating centralities.
+	 */
+	static final String sampleSizeTag = "samplesize";
+
 	/**
 	 * Name of the tag identifying the background color.
 	 */
@@ -416,6 +474,16 @@ public class PluginSettings extends Settings {
 	 */
 	boolean useEdgeAttributes;
 
+	/**
+	 * Flag indicating if centralities are estimated from a sample of nodes.
+	 */
+	boolean approximateCentralities;
+
+	/**
+	 * Number of nodes sampled for estimating centralities.
+	 */
+	int sampleSize;
+
 	/**
 	 * Color to be used for the background when visualizing network parameters.
 	 */
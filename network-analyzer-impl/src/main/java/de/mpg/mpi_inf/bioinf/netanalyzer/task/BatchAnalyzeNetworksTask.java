@@ -0,0 +1,117 @@
+package de.mpg.mpi_inf.bioinf.netanalyzer.task;
+
+/*
+ * #%L
+ * Cytoscape NetworkAnalyzer Impl (network-analyzer-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.io.File;
+import java.util.List;
+
+import org.cytoscape.io.read.CyNetworkReaderManager;
+import org.cytoscape.model.CyNetworkManager;
+import org.cytoscape.work.AbstractTask;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.Tunable;
+import org.cytoscape.work.util.ListSingleSelection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.mpg.mpi_inf.bioinf.netanalyzer.BatchAnalysisMetrics;
+import de.mpg.mpi_inf.bioinf.netanalyzer.BatchAnalysisPipeline;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.AnalysisError;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.Interpretations;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.NetworkAnalysisReport;
+
+/**
+ * Analyzes all network files in a directory without a user interface, writing the
+ * <code>.netstats</code> and node table files to an output directory.
+ */
+public class BatchAnalyzeNetworksTask extends AbstractTask {
+
+	private static final Logger logger = LoggerFactory.getLogger(BatchAnalyzeNetworksTask.class);
+
+	@Tunable(description = "Input directory", params = "input=true")
+	public File inputDir;
+
+	@Tunable(description = "Output directory", params = "input=false")
+	public File outputDir;
+
+	@Tunable(description = "Interpretations to apply")
+	public ListSingleSelection<Interpretations> interpretations = new ListSingleSelection<Interpretations>(
+			Interpretations.ALL, Interpretations.DIRECTED, Interpretations.UNDIRECTED);
+
+	@Tunable(description = "Number of threads per stage")
+	public int threads = Runtime.getRuntime().availableProcessors();
+
+	@Tunable(description = "Memory budget for loaded networks (MB)")
+	public int memoryBudget = (int) Math.max(1, Runtime.getRuntime().maxMemory() / (2 * 1024 * 1024));
+
+	private final CyNetworkManager netMgr;
+	private final CyNetworkReaderManager readerMgr;
+	private volatile BatchAnalysisPipeline pipeline;
+
+	public BatchAnalyzeNetworksTask(final CyNetworkManager netMgr, final CyNetworkReaderManager readerMgr) {
+		this.netMgr = netMgr;
+		this.readerMgr = readerMgr;
+	}
+
+	@Override
+	public void run(TaskMonitor taskMonitor) throws Exception {
+		if (inputDir == null || !inputDir.isDirectory())
+			throw new IllegalArgumentException("Input directory does not exist: " + inputDir);
+		if (outputDir == null || !(outputDir.isDirectory() || outputDir.mkdirs()))
+			throw new IllegalArgumentException("Output directory cannot be created: " + outputDir);
+
+		taskMonitor.setTitle("Batch Analysis of Networks");
+		taskMonitor.setProgress(0.0);
+		final List<File> files = BatchAnalysisPipeline.getInputFiles(inputDir, readerMgr);
+		taskMonitor.setStatusMessage("Analyzing " + files.size() + " network files from " + inputDir);
+
+		pipeline = new BatchAnalysisPipeline(outputDir, files, interpretations.getSelectedValue(), netMgr,
+				readerMgr, threads, memoryBudget);
+		if (cancelled)
+			return;
+		final List<NetworkAnalysisReport> reports = pipeline.run(taskMonitor);
+
+		int failed = 0;
+		for (final NetworkAnalysisReport report : reports) {
+			if (report.getError() != null) {
+				logger.warn("Analysis of " + report.getNetwork() + " failed: " + AnalysisError.getMessage(report.getError()));
+				failed++;
+			}
+		}
+		final BatchAnalysisMetrics metrics = pipeline.getMetrics();
+		logger.info("Batch analysis of " + files.size() + " network files: " + metrics);
+		taskMonitor.setStatusMessage((reports.size() - failed) + " results written to " + outputDir + ", "
+				+ failed + " failed; " + metrics);
+		taskMonitor.setProgress(1.0);
+	}
+
+	@Override
+	public void cancel() {
+		super.cancel();
+		final BatchAnalysisPipeline p = pipeline;
+		if (p != null)
+			p.cancel();
+	}
+}
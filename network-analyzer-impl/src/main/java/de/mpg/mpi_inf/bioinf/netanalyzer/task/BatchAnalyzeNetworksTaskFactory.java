@@ -0,0 +1,47 @@
+package de.mpg.mpi_inf.bioinf.netanalyzer.task;
+
+/*
+ * #%L
+ * Cytoscape NetworkAnalyzer Impl (network-analyzer-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import org.cytoscape.io.read.CyNetworkReaderManager;
+import org.cytoscape.model.CyNetworkManager;
+import org.cytoscape.work.AbstractTaskFactory;
+import org.cytoscape.work.TaskIterator;
+
+public class BatchAnalyzeNetworksTaskFactory extends AbstractTaskFactory {
+
+	private final CyNetworkManager netMgr;
+	private final CyNetworkReaderManager readerMgr;
+
+	public BatchAnalyzeNetworksTaskFactory(final CyNetworkManager netMgr, final CyNetworkReaderManager readerMgr) {
+		this.netMgr = netMgr;
+		this.readerMgr = readerMgr;
+	}
+
+	@Override
+	public TaskIterator createTaskIterator() {
+		return new TaskIterator(new BatchAnalyzeNetworksTask(netMgr, readerMgr));
+	}
+
+}
@@ -42,7 +42,9 @@ import javax.swing.JColorChooser;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JSpinner;
 import javax.swing.JTextField;
+import javax.swing.SpinnerNumberModel;
 import javax.swing.SwingConstants;
 
 import de.mpg.mpi_inf.bioinf.netanalyzer.InnerException;
@@ -121,8 +123,8 @@ public class SettingsPanel extends JPanel implements ActionListener {
 	 * 
 	 * @param aPropName Name of the property to get the value of.
 	 * @return Value of the property as instance of <code>Boolean</code>, <code>Color</code>,
-	 *         <code>PointShape</code> or <code>String</code>; <code>null</code> if the property could
-	 *         not be found.
+	 *         <code>Integer</code>, <code>PointShape</code> or <code>String</code>; <code>null</code>
+	 *         if the property could not be found.
 	 */
 	public Object getValueOf(String aPropName) {
 		Component[] comps = getComponents();
@@ -139,6 +141,8 @@ public class SettingsPanel extends JPanel implements ActionListener {
 					return ((JTextField) c).getText();
 				} else if (c instanceof JComboBox) {
 					return PointShape.parse(((JComboBox) c).getSelectedItem().toString());
+				} else if (c instanceof JSpinner) {
+					return ((JSpinner) c).getValue();
 				}
 			}
 		}
@@ -248,6 +252,8 @@ public class SettingsPanel extends JPanel implements ActionListener {
 					addColorInput(aPropName, (Color) aValue);
 				} else if (PointShape.class.getName().equals(typeName)) {
 					addPointShapeInput(aPropName, (PointShape) aValue);
+				} else if (int.class.getName().equals(typeName)) {
+					addIntegerInput(aPropName, (Integer) aValue);
 				}
 			}
 		} catch (Exception ex) {
@@ -322,6 +328,21 @@ public class SettingsPanel extends JPanel implements ActionListener {
 		lastColumn.fill = GridBagConstraints.HORIZONTAL;
 	}
 
+	/**
+	 * Creates a spinner to present a positive integer property.
+	 * 
+	 * @param aPropName Name of the property to be presented.
+	 * @param aValue Value of the property in the form of an <code>Integer</code> instance.
+	 */
+	private void addIntegerInput(String aPropName, Integer aValue) {
+		final JSpinner spinner = new JSpinner(new SpinnerNumberModel(aValue.intValue(), 1,
+				Integer.MAX_VALUE, 1));
+		spinner.setName(aPropName);
+		lastColumn.fill = GridBagConstraints.NONE;
+		add(spinner, lastColumn);
+		lastColumn.fill = GridBagConstraints.HORIZONTAL;
+	}
+
 	/**
 	 * Unique ID for this version of this class. It is used in serialization.
 	 */
@@ -0,0 +1,320 @@
+package de.mpg.mpi_inf.bioinf.netanalyzer;
+
+/*
+ * #%L
+ * Cytoscape NetworkAnalyzer Impl (network-analyzer-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013
+ *   Max Planck Institute for Informatics, Saarbruecken, Germany
+ *   The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cytoscape.io.read.CyNetworkReader;
+import org.cytoscape.io.read.CyNetworkReaderManager;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNetworkManager;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.NetworkTestSupport;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.work.AbstractTask;
+import org.cytoscape.work.TaskMonitor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import de.mpg.mpi_inf.bioinf.netanalyzer.BatchAnalysisMetrics.Stage;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.AnalysisError;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.Interpretations;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.NetworkAnalysisReport;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.io.SettingsSerializer;
+
+/**
+ * Runs the {@link BatchAnalysisPipeline} on small network files, each line of which is an edge given
+ * by the names of its two nodes.
+ */
+public class BatchAnalysisPipelineTest {
+
+	/**
+	 * Content of a file that cannot be parsed: the second line is not an edge.
+	 */
+	private static final String INVALID = "a b\nc\n";
+
+	/**
+	 * Name of the file whose reader cancels the pipeline.
+	 */
+	private static final String CANCELLING = "cancel";
+
+	private final NetworkTestSupport support = new NetworkTestSupport();
+
+	private File inputDir;
+	private File outputDir;
+	private CyNetworkReaderManager readerMgr;
+	private BatchAnalysisPipeline pipeline;
+
+	@BeforeClass
+	public static void initSettings() {
+		SettingsSerializer.initVisualSettings();
+		SettingsSerializer.getPluginSettings().setUseNodeAttributes(true);
+		SettingsSerializer.getPluginSettings().setApproximateCentralities(false);
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		inputDir = createTempDir("input");
+		outputDir = createTempDir("output");
+		readerMgr = mock(CyNetworkReaderManager.class);
+		when(readerMgr.getReader(any(URI.class), anyString())).thenAnswer(new Answer<CyNetworkReader>() {
+
+			public CyNetworkReader answer(InvocationOnMock invocation) throws Throwable {
+				return new EdgeListReader(new File((URI) invocation.getArguments()[0]));
+			}
+		});
+	}
+
+	@After
+	public void tearDown() {
+		delete(inputDir);
+		delete(outputDir);
+	}
+
+	@Test
+	public void testWritesResultsOfEveryFile() throws Exception {
+		final List<File> inputFiles = new ArrayList<File>();
+		for (int i = 0; i < 8; i++) {
+			inputFiles.add(writeNetwork("net" + i, createRing(5 + i)));
+		}
+
+		final List<NetworkAnalysisReport> reports = run(inputFiles, 2);
+
+		assertEquals(inputFiles.size(), pipeline.getFinishedCount());
+		final Map<File, List<NetworkAnalysisReport>> byFile = groupByFile(reports);
+		assertEquals(inputFiles.size(), byFile.size());
+		for (final File inputFile : inputFiles) {
+			final List<NetworkAnalysisReport> fileReports = byFile.get(inputFile);
+			assertFalse(fileReports.isEmpty());
+			for (final NetworkAnalysisReport report : fileReports) {
+				assertNull(report.getError());
+				assertTrue(report.getResultFile().length() > 0);
+				final String name = report.getResultFile().getName().replace(".netstats", "");
+				assertTrue(new File(outputDir, name + ".nattributes").length() > 0);
+			}
+		}
+
+		final BatchAnalysisMetrics metrics = pipeline.getMetrics();
+		assertEquals(inputFiles.size(), metrics.getCount(Stage.LOAD));
+		assertEquals(reports.size(), metrics.getCount(Stage.ANALYZE));
+		assertEquals(reports.size(), metrics.getCount(Stage.WRITE));
+	}
+
+	@Test
+	public void testParseFailureDoesNotStopOtherFiles() throws Exception {
+		final List<File> inputFiles = new ArrayList<File>();
+		inputFiles.add(writeNetwork("net0", createRing(6)));
+		inputFiles.add(writeNetwork("invalid", INVALID));
+		inputFiles.add(writeNetwork("net1", createRing(7)));
+		inputFiles.add(new File(inputDir, "missing"));
+		inputFiles.add(writeNetwork("net2", createRing(8)));
+
+		final List<NetworkAnalysisReport> reports = run(inputFiles, 2);
+
+		assertEquals(inputFiles.size(), pipeline.getFinishedCount());
+		final Map<File, List<NetworkAnalysisReport>> byFile = groupByFile(reports);
+		assertEquals(inputFiles.size(), byFile.size());
+		for (final File inputFile : inputFiles) {
+			final boolean valid = inputFile.getName().startsWith("net");
+			for (final NetworkAnalysisReport report : byFile.get(inputFile)) {
+				if (valid) {
+					assertNull(report.getError());
+					assertTrue(report.getResultFile().length() > 0);
+				} else {
+					assertEquals(AnalysisError.NETWORK_NOT_OPENED, report.getError());
+				}
+			}
+		}
+	}
+
+	@Test(timeout = 60000)
+	public void testCancelStopsThePipeline() throws Exception {
+		final List<File> inputFiles = new ArrayList<File>();
+		for (int i = 0; i < 4; i++) {
+			inputFiles.add(writeNetwork("net" + i, createRing(5 + i)));
+		}
+		final int cancelIndex = inputFiles.size();
+		inputFiles.add(writeNetwork(CANCELLING, createRing(5)));
+		for (int i = 4; i < 12; i++) {
+			inputFiles.add(writeNetwork("net" + i, createRing(5 + i)));
+		}
+
+		final List<NetworkAnalysisReport> reports = run(inputFiles, 1);
+
+		assertTrue(reports.size() < inputFiles.size());
+		final List<File> notAnalyzed = inputFiles.subList(cancelIndex, inputFiles.size());
+		for (final NetworkAnalysisReport report : reports) {
+			assertFalse(report.getNetwork().getName(), notAnalyzed.contains(report.getNetwork()));
+		}
+		for (final File inputFile : notAnalyzed) {
+			assertFalse(new File(outputDir, inputFile.getName() + "-u.netstats").exists());
+		}
+	}
+
+	private List<NetworkAnalysisReport> run(final List<File> aInputFiles, final int aThreads) throws Exception {
+		pipeline = new BatchAnalysisPipeline(outputDir, aInputFiles, Interpretations.ALL,
+				mock(CyNetworkManager.class), readerMgr, aThreads, 64);
+		return pipeline.run(null);
+	}
+
+	private static Map<File, List<NetworkAnalysisReport>> groupByFile(final List<NetworkAnalysisReport> aReports) {
+		final Map<File, List<NetworkAnalysisReport>> byFile = new HashMap<File, List<NetworkAnalysisReport>>();
+		for (final NetworkAnalysisReport report : aReports) {
+			List<NetworkAnalysisReport> fileReports = byFile.get(report.getNetwork());
+			if (fileReports == null) {
+				fileReports = new ArrayList<NetworkAnalysisReport>();
+				byFile.put(report.getNetwork(), fileReports);
+			}
+			fileReports.add(report);
+		}
+		return byFile;
+	}
+
+	/**
+	 * Creates the edge list of a ring with a chord, so that the nodes differ in their parameters.
+	 */
+	private static String createRing(final int aNodeCount) {
+		final StringBuilder edges = new StringBuilder();
+		for (int i = 0; i < aNodeCount; i++) {
+			edges.append("n").append(i).append(" n").append((i + 1) % aNodeCount).append("\n");
+		}
+		edges.append("n0 n").append(aNodeCount / 2).append("\n");
+		return edges.toString();
+	}
+
+	private File writeNetwork(final String aName, final String aContent) throws IOException {
+		final File file = new File(inputDir, aName);
+		final Writer writer = new FileWriter(file);
+		try {
+			writer.write(aContent);
+		} finally {
+			writer.close();
+		}
+		return file;
+	}
+
+	private static File createTempDir(final String aPrefix) throws IOException {
+		final File dir = File.createTempFile(aPrefix, "");
+		if (!dir.delete() || !dir.mkdir()) {
+			throw new IOException("Cannot create " + dir);
+		}
+		return dir;
+	}
+
+	private static void delete(final File aDir) {
+		final File[] files = aDir.listFiles();
+		if (files != null) {
+			for (final File file : files) {
+				file.delete();
+			}
+		}
+		aDir.delete();
+	}
+
+	/**
+	 * Reads a network from a file of edges, one per line. The reader of the file named
+	 * {@link #CANCELLING} cancels the pipeline after reading it.
+	 */
+	private final class EdgeListReader extends AbstractTask implements CyNetworkReader {
+
+		private final File file;
+		private CyNetwork network;
+
+		EdgeListReader(final File aFile) {
+			file = aFile;
+		}
+
+		public void run(TaskMonitor aMonitor) throws Exception {
+			final CyNetwork net;
+			// Readers run on several threads; the test support is not meant to be shared
+			synchronized (support) {
+				net = support.getNetwork();
+			}
+			net.getRow(net).set(CyNetwork.NAME, file.getName());
+			final Map<String, CyNode> nodes = new HashMap<String, CyNode>();
+			final BufferedReader reader = new BufferedReader(new FileReader(file));
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					final String[] names = line.trim().split("\\s+");
+					if (names.length != 2) {
+						throw new IOException("Not an edge: " + line);
+					}
+					net.addEdge(getNode(net, nodes, names[0]), getNode(net, nodes, names[1]), false);
+				}
+			} finally {
+				reader.close();
+			}
+			network = net;
+
+			if (file.getName().equals(CANCELLING)) {
+				pipeline.cancel();
+			}
+		}
+
+		private CyNode getNode(final CyNetwork aNetwork, final Map<String, CyNode> aNodes, final String aName) {
+			CyNode node = aNodes.get(aName);
+			if (node == null) {
+				node = aNetwork.addNode();
+				aNetwork.getRow(node).set(CyNetwork.NAME, aName);
+				aNodes.put(aName, node);
+			}
+			return node;
+		}
+
+		public CyNetwork[] getNetworks() {
+			return new CyNetwork[] { network };
+		}
+
+		public CyNetworkView buildCyNetworkView(CyNetwork aNetwork) {
+			return null;
+		}
+	}
+}
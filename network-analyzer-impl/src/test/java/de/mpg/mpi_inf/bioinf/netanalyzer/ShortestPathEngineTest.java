@@ -0,0 +1,603 @@
+package de.mpg.mpi_inf.bioinf.netanalyzer;
+
+/*
+ * #%L
+ * Cytoscape NetworkAnalyzer Impl (network-analyzer-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013
+ *   Max Planck Institute for Informatics, Saarbruecken, Germany
+ *   The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.NetworkTestSupport;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.Messages;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.NetworkInterpretation;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.NetworkStats;
+import de.mpg.mpi_inf.bioinf.netanalyzer.data.io.SettingsSerializer;
+
+/**
+ * Checks the {@link ShortestPathEngine} against the parameters computed from their definitions
+ * on random networks, and the analyzers running on it against values worked out by hand on small
+ * networks.
+ */
+public class ShortestPathEngineTest {
+
+	/**
+	 * Tolerance for double values. Betweenness sums are added in a different order by the engine,
+	 * and the node attributes are rounded to 8 decimals.
+	 */
+	private static final double DELTA = 1e-7;
+
+	/**
+	 * Tolerance for the normalized betweenness estimated from a quarter of the nodes.
+	 */
+	private static final double SAMPLED_BETWEENNESS_TOLERANCE = 0.02;
+
+	/**
+	 * Tolerance for the average shortest path length estimated from a quarter of the nodes,
+	 * relative to the exact value.
+	 */
+	private static final double SAMPLED_LENGTH_TOLERANCE = 0.1;
+
+	private static final long[] SEEDS = new long[] { 1, 2, 3, 4, 5 };
+
+	private final NetworkTestSupport support = new NetworkTestSupport();
+
+	@BeforeClass
+	public static void initSettings() {
+		SettingsSerializer.initVisualSettings();
+		SettingsSerializer.getPluginSettings().setUseNodeAttributes(true);
+		SettingsSerializer.getPluginSettings().setUseEdgeAttributes(true);
+		SettingsSerializer.getPluginSettings().setApproximateCentralities(false);
+	}
+
+	@Test
+	public void testUndirectedEdges() {
+		for (final long seed : SEEDS) {
+			assertMatchesDefinitions(seed, false, CyEdge.Type.ANY);
+		}
+	}
+
+	@Test
+	public void testDirectedEdgesAsUndirected() {
+		for (final long seed : SEEDS) {
+			assertMatchesDefinitions(seed, true, CyEdge.Type.ANY);
+		}
+	}
+
+	@Test
+	public void testDirectedEdgesAsPaired() {
+		for (final long seed : SEEDS) {
+			assertMatchesDefinitions(seed, true, CyEdge.Type.INCOMING);
+		}
+	}
+
+	@Test
+	public void testDirectedEdges() {
+		for (final long seed : SEEDS) {
+			assertMatchesDefinitions(seed, true, CyEdge.Type.OUTGOING);
+		}
+	}
+
+	@Test
+	public void testEngineOnPath() {
+		final CyNetwork network = support.getNetwork();
+		final CyNode[] nodes = new CyNode[4];
+		for (int i = 0; i < nodes.length; ++i) {
+			nodes[i] = network.addNode();
+		}
+		for (int i = 1; i < nodes.length; ++i) {
+			network.addEdge(nodes[i - 1], nodes[i], false);
+		}
+		// A multi-edge and a self-loop do not change the shortest paths
+		network.addEdge(nodes[0], nodes[1], false);
+		network.addEdge(nodes[2], nodes[2], false);
+
+		final ShortestPathEngine engine = new ShortestPathEngine(network, Arrays.asList(nodes),
+				CyEdge.Type.ANY);
+		assertTrue(engine.compute(true, true));
+		assertEquals(3, engine.getEccentricity(0));
+		assertEquals(2, engine.getEccentricity(1));
+		assertEquals(2.0, engine.getAverageLength(0), 0.0);
+		assertEquals(4.0 / 3.0, engine.getAverageLength(1), 0.0);
+		// Paths 0-2, 0-3 and 1-3 run through 1 or 2, counted from both ends
+		assertEquals(4.0, engine.getBetweenness(1), 0.0);
+		assertEquals(4.0, engine.getBetweenness(2), 0.0);
+		assertEquals(0.0, engine.getBetweenness(0), 0.0);
+		assertEquals(4, engine.getStress(1));
+		final long[] lengths = engine.getPathLengths();
+		assertEquals(6, lengths[1]);
+		assertEquals(4, lengths[2]);
+		assertEquals(2, lengths[3]);
+	}
+
+	@Test
+	public void testUndirectedAnalyzer() {
+		// A triangle a-b-c with the tail c-d-e, a second edge c-d and a self-loop on e
+		final CyNetwork network = support.getNetwork();
+		final CyNode[] nodes = addNodes(network, 5);
+		final CyEdge ab = network.addEdge(nodes[0], nodes[1], false);
+		final CyEdge ac = network.addEdge(nodes[0], nodes[2], false);
+		network.addEdge(nodes[1], nodes[2], false);
+		final CyEdge cd = network.addEdge(nodes[2], nodes[3], false);
+		final CyEdge cd2 = network.addEdge(nodes[3], nodes[2], false);
+		final CyEdge de = network.addEdge(nodes[3], nodes[4], false);
+		final CyEdge ee = network.addEdge(nodes[4], nodes[4], false);
+
+		final NetworkAnalyzer analyzer = new UndirNetworkAnalyzer(network, null,
+				new NetworkInterpretation(null, false, false));
+		analyzer.computeAll();
+
+		final int[] eccentricities = new int[] { 3, 3, 2, 2, 3 };
+		final double[] lengths = new double[] { 7 / 4.0, 7 / 4.0, 5 / 4.0, 6 / 4.0, 9 / 4.0 };
+		// Paths between {a, b} and {d, e} run through c, paths from {a, b, c} to e through d
+		final long[] stress = new long[] { 0, 0, 8, 6, 0 };
+		for (int i = 0; i < nodes.length; ++i) {
+			assertAttribute(network, nodes[i], "spl", eccentricities[i]);
+			assertAttribute(network, nodes[i], "apl", lengths[i]);
+			assertAttribute(network, nodes[i], "clc", 1 / lengths[i]);
+			assertAttribute(network, nodes[i], "rad", (4 - lengths[i]) / 3);
+			assertAttribute(network, nodes[i], "nbt", stress[i] / 12.0);
+			assertAttribute(network, nodes[i], "stress", stress[i]);
+		}
+		assertAttribute(network, ab, "ebt", 2);
+		assertAttribute(network, ac, "ebt", 6);
+		assertAttribute(network, cd, "ebt", 12);
+		assertAttribute(network, cd2, "ebt", 12);
+		assertAttribute(network, de, "ebt", 8);
+		assertNull(network.getRow(ee).getRaw(Messages.getAttr("ebt")));
+
+		final NetworkStats stats = analyzer.getStats();
+		assertEquals(Integer.valueOf(3), stats.get("diameter"));
+		assertEquals(Integer.valueOf(2), stats.get("radius"));
+		assertEquals(Long.valueOf(20), stats.get("connPairs"));
+		assertEquals(34 / 20.0, ((Double) stats.get("avSpl")).doubleValue(), DELTA);
+	}
+
+	@Test
+	public void testDirectedAnalyzer() {
+		// A cycle a->b->c->a with the tail c->d, a second edge a->b and a self-loop on d
+		final CyNetwork network = support.getNetwork();
+		final CyNode[] nodes = addNodes(network, 4);
+		final CyEdge ab = network.addEdge(nodes[0], nodes[1], true);
+		final CyEdge bc = network.addEdge(nodes[1], nodes[2], true);
+		final CyEdge ca = network.addEdge(nodes[2], nodes[0], true);
+		final CyEdge cd = network.addEdge(nodes[2], nodes[3], true);
+		final CyEdge ab2 = network.addEdge(nodes[0], nodes[1], true);
+		network.addEdge(nodes[3], nodes[3], true);
+
+		final NetworkAnalyzer analyzer = new DirNetworkAnalyzer(network, null,
+				new NetworkInterpretation(null, true, false));
+		analyzer.computeAll();
+
+		final int[] eccentricities = new int[] { 3, 2, 2, 0 };
+		final double[] lengths = new double[] { 2, 5 / 3.0, 4 / 3.0, 0 };
+		// a->c runs through b, a->d through b and c, b->a and b->d through c, c->b through a
+		final long[] stress = new long[] { 1, 2, 3, 0 };
+		for (int i = 0; i < nodes.length; ++i) {
+			assertAttribute(network, nodes[i], "spl", eccentricities[i]);
+			assertAttribute(network, nodes[i], "apl", lengths[i]);
+			assertAttribute(network, nodes[i], "clc", (lengths[i] > 0) ? 1 / lengths[i] : 0);
+			assertAttribute(network, nodes[i], "nbt", stress[i] / 6.0);
+			assertAttribute(network, nodes[i], "stress", stress[i]);
+		}
+		assertAttribute(network, ab, "ebt", 4);
+		assertAttribute(network, ab2, "ebt", 4);
+		assertAttribute(network, bc, "ebt", 5);
+		assertAttribute(network, ca, "ebt", 3);
+		assertAttribute(network, cd, "ebt", 3);
+
+		final NetworkStats stats = analyzer.getStats();
+		assertEquals(Integer.valueOf(3), stats.get("diameter"));
+		assertEquals(Integer.valueOf(2), stats.get("radius"));
+		assertEquals(Long.valueOf(9), stats.get("connPairs"));
+		assertEquals(15 / 9.0, ((Double) stats.get("avSpl")).doubleValue(), DELTA);
+	}
+
+	@Test
+	public void testSamplingAllNodesIsExact() {
+		final CyNetwork network = support.getNetwork();
+		addComponent(network, new Random(1), 60, 150, false);
+		final List<CyNode> nodes = network.getNodeList();
+		final int nodeCount = nodes.size();
+
+		final ShortestPathEngine exact = new ShortestPathEngine(network, nodes, CyEdge.Type.ANY);
+		assertTrue(exact.compute(true, true));
+		final ShortestPathEngine sampled = new ShortestPathEngine(network, nodes, CyEdge.Type.ANY);
+		sampled.startSampling(true, true, new Random(2));
+		// Grow the sample in uneven steps, as the analyzers do
+		while (sampled.getSampleCount() < nodeCount) {
+			assertTrue(sampled.isEstimate());
+			assertTrue(sampled.sample(7));
+		}
+
+		assertFalse(sampled.isEstimate());
+		assertEquals(0.0, sampled.getErrorBound(0.95), 0.0);
+		for (int i = 0; i < nodeCount; ++i) {
+			assertEquals(exact.getEccentricity(i), sampled.getEccentricity(i));
+			assertEquals(exact.getAverageLength(i), sampled.getAverageLength(i), 0.0);
+			assertEquals(exact.getBetweenness(i), sampled.getBetweenness(i),
+					DELTA * Math.max(1.0, exact.getBetweenness(i)));
+			assertEquals(exact.getStress(i), sampled.getStress(i));
+		}
+		assertArrayEquals(exact.getPathLengths(), sampled.getPathLengths());
+		assertArrayEquals(exact.getSharedNeighbors(), sampled.getSharedNeighbors());
+		final Map<CyEdge, Double> exactEdges = exact.getEdgeBetweenness();
+		final Map<CyEdge, Double> sampledEdges = sampled.getEdgeBetweenness();
+		assertEquals(exactEdges.keySet(), sampledEdges.keySet());
+		for (final Map.Entry<CyEdge, Double> entry : exactEdges.entrySet()) {
+			final double expected = entry.getValue().doubleValue();
+			assertEquals(expected, sampledEdges.get(entry.getKey()).doubleValue(),
+					DELTA * Math.max(1.0, expected));
+		}
+	}
+
+	@Test
+	public void testSampledEstimatesAreClose() {
+		final CyNetwork network = support.getNetwork();
+		addComponent(network, new Random(3), 1000, 2500, false);
+		final List<CyNode> nodes = network.getNodeList();
+		final int nodeCount = nodes.size();
+
+		final ShortestPathEngine exact = new ShortestPathEngine(network, nodes, CyEdge.Type.ANY);
+		assertTrue(exact.compute(true, false));
+		final ShortestPathEngine sampled = new ShortestPathEngine(network, nodes, CyEdge.Type.ANY);
+		sampled.startSampling(true, false, new Random(4));
+		assertTrue(sampled.sample(250));
+		assertTrue(sampled.isEstimate());
+		assertEquals(250, sampled.getSampleCount());
+
+		int diameter = 0;
+		for (int i = 0; i < nodeCount; ++i) {
+			diameter = Math.max(diameter, exact.getEccentricity(i));
+		}
+		// The bound holds with the given probability; the observed errors are several times smaller
+		final double bound = sampled.getErrorBound(0.99);
+		final double norm = (nodeCount - 1.0) * (nodeCount - 2.0);
+		for (int i = 0; i < nodeCount; ++i) {
+			final double betweennessError = Math.abs(sampled.getBetweenness(i) - exact.getBetweenness(i)) / norm;
+			assertTrue("betweenness of node " + i, betweennessError <= bound * nodeCount / (nodeCount - 1.0));
+			assertTrue("betweenness of node " + i, betweennessError < SAMPLED_BETWEENNESS_TOLERANCE);
+
+			final double lengthError = Math.abs(sampled.getAverageLength(i) - exact.getAverageLength(i));
+			assertTrue("average length of node " + i, lengthError <= bound * diameter);
+			assertTrue("average length of node " + i,
+					lengthError < SAMPLED_LENGTH_TOLERANCE * exact.getAverageLength(i));
+			assertTrue("eccentricity of node " + i, sampled.getEccentricity(i) <= exact.getEccentricity(i));
+		}
+	}
+
+	/**
+	 * Runs the engine on all nodes of a random network and checks every result against the
+	 * {@link Reference}.
+	 */
+	private void assertMatchesDefinitions(long aSeed, boolean aDirectedEdges, CyEdge.Type aEdgeType) {
+		final CyNetwork network = createNetwork(aSeed, aDirectedEdges);
+		final List<CyNode> nodes = network.getNodeList();
+		final ShortestPathEngine engine = new ShortestPathEngine(network, nodes, aEdgeType);
+		assertTrue(engine.compute(true, true));
+		final Reference reference = new Reference(network, nodes, aEdgeType);
+
+		final String context = "seed " + aSeed + ", " + aEdgeType;
+		for (int i = 0; i < nodes.size(); ++i) {
+			final String node = context + ", node " + i;
+			assertEquals(node, reference.getEccentricity(i), engine.getEccentricity(i));
+			assertEquals(node, reference.getAverageLength(i), engine.getAverageLength(i), DELTA);
+			final double betweenness = reference.getBetweenness(i);
+			assertEquals(node, betweenness, engine.getBetweenness(i), DELTA * Math.max(1.0, betweenness));
+			assertEquals(node, reference.getStress(i), engine.getStress(i));
+		}
+		assertArrayEquals(context, reference.getPathLengths(), engine.getPathLengths());
+		assertArrayEquals(context, reference.getSharedNeighbors(), engine.getSharedNeighbors());
+
+		// Every edge between two distinct nodes is followed in one direction at least
+		final Map<CyEdge, Double> edgeBetweenness = engine.getEdgeBetweenness();
+		int edgeCount = 0;
+		for (final CyEdge edge : network.getEdgeList()) {
+			if (edge.getSource() == edge.getTarget()) {
+				continue;
+			}
+			final double expected = reference.getEdgeBetweenness(edge);
+			assertEquals(context + ", edge " + edge.getSUID(), expected,
+					edgeBetweenness.get(edge).doubleValue(), DELTA * Math.max(1.0, expected));
+			edgeCount++;
+		}
+		assertEquals(context, edgeCount, edgeBetweenness.size());
+	}
+
+	/**
+	 * Creates a random network with two larger components, a pair of nodes and isolated nodes. Some
+	 * node pairs are connected by several edges, in both directions, and some nodes have
+	 * self-loops. The same seed always gives the same network, with nodes and edges in the same
+	 * order.
+	 */
+	private CyNetwork createNetwork(long aSeed, boolean aDirected) {
+		final Random random = new Random(aSeed);
+		final CyNetwork network = support.getNetwork();
+		addComponent(network, random, 30, 60, aDirected);
+		addComponent(network, random, 20, 25, aDirected);
+		addComponent(network, random, 2, 1, aDirected);
+		for (int i = 0; i < 3; ++i) {
+			network.addNode();
+		}
+
+		final List<CyNode> nodes = network.getNodeList();
+		final List<CyEdge> edges = network.getEdgeList();
+		for (int i = 0; i < 8; ++i) {
+			final CyNode node = nodes.get(random.nextInt(nodes.size()));
+			network.addEdge(node, node, aDirected);
+		}
+		for (int i = 0; i < 10; ++i) {
+			final CyEdge edge = edges.get(random.nextInt(edges.size()));
+			if (random.nextBoolean()) {
+				network.addEdge(edge.getSource(), edge.getTarget(), aDirected);
+			} else {
+				network.addEdge(edge.getTarget(), edge.getSource(), aDirected);
+			}
+		}
+		return network;
+	}
+
+	/**
+	 * Adds a random tree with the given number of nodes, and extra random edges between them.
+	 */
+	private void addComponent(CyNetwork aNetwork, Random aRandom, int aNodeCount, int aEdgeCount,
+			boolean aDirected) {
+		final CyNode[] nodes = new CyNode[aNodeCount];
+		for (int i = 0; i < aNodeCount; ++i) {
+			nodes[i] = aNetwork.addNode();
+			if (i > 0) {
+				final CyNode other = nodes[aRandom.nextInt(i)];
+				if (aRandom.nextBoolean()) {
+					aNetwork.addEdge(nodes[i], other, aDirected);
+				} else {
+					aNetwork.addEdge(other, nodes[i], aDirected);
+				}
+			}
+		}
+		for (int i = aNodeCount - 1; i < aEdgeCount; ++i) {
+			final CyNode source = nodes[aRandom.nextInt(aNodeCount)];
+			final CyNode target = nodes[aRandom.nextInt(aNodeCount)];
+			if (source != target) {
+				aNetwork.addEdge(source, target, aDirected);
+			}
+		}
+	}
+
+	private static CyNode[] addNodes(CyNetwork aNetwork, int aCount) {
+		final CyNode[] nodes = new CyNode[aCount];
+		for (int i = 0; i < aCount; ++i) {
+			nodes[i] = aNetwork.addNode();
+		}
+		return nodes;
+	}
+
+	/**
+	 * Checks the value of a numeric attribute written by an analyzer.
+	 */
+	private static void assertAttribute(CyNetwork aNetwork, CyIdentifiable aObject, String aID,
+			double aExpected) {
+		final Object value = aNetwork.getRow(aObject).getRaw(Messages.getAttr(aID));
+		assertEquals(aID + " of " + aObject.getSUID(), aExpected, ((Number) value).doubleValue(), DELTA);
+	}
+
+	/**
+	 * Shortest path parameters computed from their definitions, using the distances and the
+	 * numbers of shortest paths between all pairs of nodes. A pair <code>(s, t)</code> contributes
+	 * <code>sigma(s, v) sigma(v, t) / sigma(s, t)</code> to the betweenness of every node
+	 * <code>v</code> on a shortest path from <code>s</code> to <code>t</code>.
+	 */
+	private static final class Reference {
+
+		Reference(CyNetwork aNetwork, List<CyNode> aNodes, CyEdge.Type aEdgeType) {
+			nodeCount = aNodes.size();
+			ordinals = new HashMap<CyNode, Integer>();
+			for (int i = 0; i < nodeCount; ++i) {
+				ordinals.put(aNodes.get(i), Integer.valueOf(i));
+			}
+			adjacent = new boolean[nodeCount][nodeCount];
+			for (int i = 0; i < nodeCount; ++i) {
+				final CyNode node = aNodes.get(i);
+				final Set<CyNode> neighbors = CyNetworkUtils.getNeighbors(aNetwork, node,
+						aNetwork.getAdjacentEdgeList(node, aEdgeType));
+				for (final CyNode neighbor : neighbors) {
+					adjacent[i][ordinals.get(neighbor).intValue()] = true;
+				}
+			}
+
+			dist = new int[nodeCount][nodeCount];
+			sigma = new long[nodeCount][nodeCount];
+			final int[] queue = new int[nodeCount];
+			for (int s = 0; s < nodeCount; ++s) {
+				Arrays.fill(dist[s], -1);
+				dist[s][s] = 0;
+				sigma[s][s] = 1;
+				queue[0] = s;
+				int tail = 1;
+				for (int head = 0; head < tail; ++head) {
+					final int u = queue[head];
+					for (int w = 0; w < nodeCount; ++w) {
+						if (!adjacent[u][w]) {
+							continue;
+						}
+						if (dist[s][w] < 0) {
+							dist[s][w] = dist[s][u] + 1;
+							queue[tail++] = w;
+						}
+						if (dist[s][w] == dist[s][u] + 1) {
+							sigma[s][w] += sigma[s][u];
+						}
+					}
+				}
+			}
+		}
+
+		int getEccentricity(int aNode) {
+			int eccentricity = 0;
+			for (int t = 0; t < nodeCount; ++t) {
+				eccentricity = Math.max(eccentricity, dist[aNode][t]);
+			}
+			return eccentricity;
+		}
+
+		double getAverageLength(int aNode) {
+			int count = 0;
+			long total = 0;
+			for (int t = 0; t < nodeCount; ++t) {
+				if (dist[aNode][t] > 0) {
+					count++;
+					total += dist[aNode][t];
+				}
+			}
+			return (count > 0) ? ((double) total) / count : 0;
+		}
+
+		long[] getPathLengths() {
+			final long[] lengths = new long[nodeCount];
+			for (int s = 0; s < nodeCount; ++s) {
+				for (int t = 0; t < nodeCount; ++t) {
+					if (dist[s][t] > 0) {
+						lengths[dist[s][t]]++;
+					}
+				}
+			}
+			return lengths;
+		}
+
+		/**
+		 * Counts the neighbors that every node shares with the nodes at a distance of at most
+		 * <code>2</code>; other reachable nodes count as sharing none.
+		 */
+		long[] getSharedNeighbors() {
+			final long[] shared = new long[nodeCount];
+			for (int s = 0; s < nodeCount; ++s) {
+				for (int t = 0; t < nodeCount; ++t) {
+					if (dist[s][t] <= 0) {
+						continue;
+					}
+					int count = 0;
+					if (dist[s][t] <= 2) {
+						for (int w = 0; w < nodeCount; ++w) {
+							if (adjacent[s][w] && adjacent[t][w]) {
+								count++;
+							}
+						}
+					}
+					shared[count]++;
+				}
+			}
+			return shared;
+		}
+
+		double getBetweenness(int aNode) {
+			double betweenness = 0;
+			for (int s = 0; s < nodeCount; ++s) {
+				for (int t = 0; t < nodeCount; ++t) {
+					if (s != aNode && t != aNode && onShortestPath(s, aNode, t)) {
+						betweenness += ((double) sigma[s][aNode] * sigma[aNode][t]) / sigma[s][t];
+					}
+				}
+			}
+			return betweenness;
+		}
+
+		long getStress(int aNode) {
+			long stress = 0;
+			for (int s = 0; s < nodeCount; ++s) {
+				for (int t = 0; t < nodeCount; ++t) {
+					if (s != aNode && t != aNode && onShortestPath(s, aNode, t)) {
+						stress += sigma[s][aNode] * sigma[aNode][t];
+					}
+				}
+			}
+			return stress;
+		}
+
+		/**
+		 * Gets the betweenness of the node pair of an edge, summed over the directions in which
+		 * the pair is adjacent.
+		 */
+		double getEdgeBetweenness(CyEdge aEdge) {
+			final int u = ordinals.get(aEdge.getSource()).intValue();
+			final int w = ordinals.get(aEdge.getTarget()).intValue();
+			return getArcBetweenness(u, w) + getArcBetweenness(w, u);
+		}
+
+		private double getArcBetweenness(int aFrom, int aTo) {
+			if (!adjacent[aFrom][aTo]) {
+				return 0;
+			}
+			double betweenness = 0;
+			for (int s = 0; s < nodeCount; ++s) {
+				for (int t = 0; t < nodeCount; ++t) {
+					if (dist[s][aFrom] >= 0 && dist[aTo][t] >= 0
+							&& dist[s][t] == dist[s][aFrom] + 1 + dist[aTo][t]) {
+						betweenness += ((double) sigma[s][aFrom] * sigma[aTo][t]) / sigma[s][t];
+					}
+				}
+			}
+			return betweenness;
+		}
+
+		private boolean onShortestPath(int aSource, int aNode, int aTarget) {
+			return aSource != aTarget && dist[aSource][aNode] > 0 && dist[aNode][aTarget] > 0
+					&& dist[aSource][aTarget] == dist[aSource][aNode] + dist[aNode][aTarget];
+		}
+
+		private final int nodeCount;
+
+		private final Map<CyNode, Integer> ordinals;
+
+		/**
+		 * Flags indicating if the second node is a neighbor of the first one.
+		 */
+		private final boolean[][] adjacent;
+
+		/**
+		 * Distances between all pairs of nodes; <code>-1</code> if the second node is not
+		 * reachable from the first one.
+		 */
+		private final int[][] dist;
+
+		/**
+		 * Numbers of shortest paths between all pairs of nodes.
+		 */
+		private final long[][] sigma;
+	}
+}
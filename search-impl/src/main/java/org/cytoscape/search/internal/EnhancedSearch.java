@@ -26,7 +26,6 @@ package org.cytoscape.search.internal;
 
 
 import org.cytoscape.model.CyNetwork;
-import org.apache.lucene.store.RAMDirectory;
 
 public interface EnhancedSearch {
 
@@ -51,7 +50,7 @@ public interface EnhancedSearch {
 	 * @param network        CyNetwork object
 	 * @return               the index for this network
 	 */
-	RAMDirectory getNetworkIndex(CyNetwork network);
+	EnhancedSearchIndex getNetworkIndex(CyNetwork network);
 
 	/**
 	 * Gets the indexing status of a specified network.
@@ -62,12 +61,13 @@ public interface EnhancedSearch {
 	String getNetworkIndexStatus(CyNetwork network);
 
 	/**
-	 * Sets the index for the specified network.
+	 * Sets the index for the specified network. An index previously set for
+	 * this network is closed.
 	 * 
 	 * @param network        CyNetwork object
 	 * @param index          the index that suits this network
 	 */
-	void setNetworkIndex(CyNetwork network, RAMDirectory index);
+	void setNetworkIndex(CyNetwork network, EnhancedSearchIndex index);
 
 	/**
 	 * Sets the indexing status of the specified network.
@@ -26,7 +26,10 @@ package org.cytoscape.search.internal;
 
 
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -35,6 +38,9 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.NumericField;
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.RAMDirectory;
 import org.apache.lucene.util.Version;
 import org.cytoscape.model.CyEdge;
@@ -46,51 +52,237 @@ import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyTableUtil;
 import org.cytoscape.search.internal.util.EnhancedSearchUtils;
 import org.cytoscape.work.TaskMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
+/**
+ * The search index of a single network.  The index is built once and then kept
+ * up to date incrementally: the search manager reports the nodes and edges whose
+ * rows were set, that were added or that are being removed, and {@link #update}
+ * re-indexes only those graph objects before the next query is executed.
+ */
 public class EnhancedSearchIndex {
-	RAMDirectory idx;
-	final TaskMonitor taskMonitor;
-	// Index the given network
-	public EnhancedSearchIndex(final CyNetwork network, final TaskMonitor taskMonitor) {
+
+	/**
+	 * The name of the system property that, when set to a directory, makes the
+	 * indexes be written below that directory instead of being held on the heap.
+	 * The files are memory mapped where the platform supports it and are deleted
+	 * when the index is closed.
+	 */
+	public static final String INDEX_DIRECTORY_PROPERTY = "cytoscape.search.index.dir";
+
+	/**
+	 * The fraction of the network's graph objects above which pending changes are
+	 * applied by rebuilding the index rather than by replacing single documents.
+	 */
+	private static final double REBUILD_RATIO = 0.5;
+
+	private static final Logger logger = LoggerFactory.getLogger(EnhancedSearchIndex.class);
+
+	private final CyNetwork network;
+	private final Directory idx;
+	private final File indexDir;
+	private final IndexWriter writer;
+
+	// Graph objects to re-index on the next update, guarded by "this"
+	private Set<Long> changedNodes = new HashSet<Long>();
+	private Set<Long> changedEdges = new HashSet<Long>();
+	// Graph objects that are about to be removed from the network, guarded by "this"
+	private final Set<Long> removingNodes = new HashSet<Long>();
+	private final Set<Long> removingEdges = new HashSet<Long>();
+	private boolean rebuildRequired = true;
+
+	// Serializes updates, so that queries only ever see committed states
+	private final Object writeLock = new Object();
+	private int updateCount;
+	private int rebuildCount;
+	private int lastUpdateSize;
+	private long lastUpdateTime;
+	private long totalUpdateTime;
+
+	/**
+	 * Creates an empty index for the given network.  The documents are added by the
+	 * first call to {@link #update}.
+	 */
+	public EnhancedSearchIndex(final CyNetwork network) {
 		if(network == null)
 			throw new NullPointerException("Network is null.");
-		this.taskMonitor = taskMonitor;
-		// Construct a RAMDirectory to hold the in-memory representation of the index.		
-		idx = new RAMDirectory();
-		BuildIndex(idx, network);
-	}
-
-	private void BuildIndex(RAMDirectory idx, CyNetwork network) {
+		this.network = network;
 
+		final String baseDir = System.getProperty(INDEX_DIRECTORY_PROPERTY);
 		try {
-			// Make a writer to create the index
-			IndexWriter writer = new IndexWriter(idx, new StandardAnalyzer(Version.LUCENE_30), 
+			if (baseDir == null || baseDir.trim().length() == 0) {
+				// Construct a RAMDirectory to hold the in-memory representation of the index.
+				indexDir = null;
+				idx = new RAMDirectory();
+			} else {
+				indexDir = new File(baseDir.trim(), "network-" + network.getSUID());
+				idx = FSDirectory.open(indexDir);
+			}
+			writer = new IndexWriter(idx, new StandardAnalyzer(Version.LUCENE_30), true,
 					IndexWriter.MaxFieldLength.UNLIMITED);
+		} catch (IOException ioe) {
+			throw new IllegalStateException("Could not create the search index of network " + network.getSUID(), ioe);
+		}
+	}
 
-			// Add a document for each graph object - node and edge
-			List<CyNode> nodeList = network.getNodeList();
-			
-			this.taskMonitor.setProgress(0.1);
-			for (CyNode cyNode : nodeList) {
-				writer.addDocument(createDocument(network, cyNode, EnhancedSearch.NODE_TYPE, cyNode.getSUID()));
+	public CyNetwork getNetwork() {
+		return network;
+	}
+
+	/**
+	 * Marks the given nodes for re-indexing.
+	 */
+	public synchronized void nodesChanged(final Collection<Long> suids) {
+		changedNodes.addAll(suids);
+	}
+
+	/**
+	 * Marks the given edges for re-indexing.
+	 */
+	public synchronized void edgesChanged(final Collection<Long> suids) {
+		changedEdges.addAll(suids);
+	}
+
+	/**
+	 * Records nodes that are about to be removed, together with their adjacent edges,
+	 * which are removed with them.  The documents are only dropped after the
+	 * removal has happened; see {@link #removalsCompleted()}.
+	 */
+	public synchronized void nodesAboutToBeRemoved(final Collection<CyNode> nodes) {
+		for (final CyNode node : nodes) {
+			removingNodes.add(node.getSUID());
+			for (final CyEdge edge : network.getAdjacentEdgeList(node, CyEdge.Type.ANY))
+				removingEdges.add(edge.getSUID());
+		}
+	}
+
+	/**
+	 * Records edges that are about to be removed.
+	 */
+	public synchronized void edgesAboutToBeRemoved(final Collection<CyEdge> edges) {
+		for (final CyEdge edge : edges)
+			removingEdges.add(edge.getSUID());
+	}
+
+	/**
+	 * Marks the graph objects recorded as being removed for re-indexing, which drops
+	 * their documents on the next update.
+	 */
+	public synchronized void removalsCompleted() {
+		changedNodes.addAll(removingNodes);
+		changedEdges.addAll(removingEdges);
+		removingNodes.clear();
+		removingEdges.clear();
+	}
+
+	/**
+	 * Requests a rebuild of the whole index on the next update, which is needed
+	 * when columns are renamed or deleted.
+	 */
+	public synchronized void invalidate() {
+		rebuildRequired = true;
+	}
+
+	/**
+	 * Returns true if the next update has changes to apply.
+	 */
+	public synchronized boolean isUpdateRequired() {
+		return rebuildRequired || !changedNodes.isEmpty() || !changedEdges.isEmpty();
+	}
+
+	/**
+	 * Applies all pending changes to the index and commits them.  Only the changed
+	 * graph objects are re-indexed, unless a rebuild was requested or most of the
+	 * network changed.
+	 */
+	public void update(final TaskMonitor taskMonitor) {
+		synchronized (writeLock) {
+			final Set<Long> nodes;
+			final Set<Long> edges;
+			boolean rebuild;
+			synchronized (this) {
+				nodes = changedNodes;
+				edges = changedEdges;
+				rebuild = rebuildRequired;
+				changedNodes = new HashSet<Long>();
+				changedEdges = new HashSet<Long>();
+				rebuildRequired = false;
 			}
-			this.taskMonitor.setProgress(0.6);
-		
-			List<CyEdge> edgeList = network.getEdgeList();
-			for (CyEdge cyEdge : edgeList) {
-				writer.addDocument(createDocument(network, cyEdge, EnhancedSearch.EDGE_TYPE, cyEdge.getSUID()));
+
+			if (!rebuild && nodes.isEmpty() && edges.isEmpty())
+				return;
+
+			final long start = System.currentTimeMillis();
+			final int changes = nodes.size() + edges.size();
+			if (changes > REBUILD_RATIO * (network.getNodeCount() + network.getEdgeCount()))
+				rebuild = true;
+
+			try {
+				if (rebuild) {
+					BuildIndex(taskMonitor);
+					rebuildCount++;
+				} else {
+					updateDocuments(nodes, edges, taskMonitor);
+				}
+				writer.commit();
+			} catch (IOException ioe) {
+				// Make sure the next update starts from a clean index.
+				invalidate();
+				throw new IllegalStateException("Could not update the search index of network " + network.getSUID(), ioe);
 			}
 
-			// Optimize and close the writer to finish building the index
-			writer.optimize();
-			writer.close();
+			lastUpdateTime = System.currentTimeMillis() - start;
+			lastUpdateSize = rebuild ? (network.getNodeCount() + network.getEdgeCount()) : changes;
+			totalUpdateTime += lastUpdateTime;
+			updateCount++;
+			taskMonitor.setProgress(0.95);
 
-		} catch (IOException ioe) {
-			ioe.printStackTrace();
+			if (logger.isDebugEnabled())
+				logger.debug((rebuild ? "Rebuilt" : "Updated") + " search index: " + getStatistics());
+		}
+	}
+
+	private void BuildIndex(final TaskMonitor taskMonitor) throws IOException {
+		writer.deleteAll();
+
+		// Add a document for each graph object - node and edge
+		List<CyNode> nodeList = network.getNodeList();
+
+		taskMonitor.setProgress(0.1);
+		for (CyNode cyNode : nodeList) {
+			writer.addDocument(createDocument(network, cyNode, EnhancedSearch.NODE_TYPE, cyNode.getSUID()));
+		}
+		taskMonitor.setProgress(0.6);
+
+		List<CyEdge> edgeList = network.getEdgeList();
+		for (CyEdge cyEdge : edgeList) {
+			writer.addDocument(createDocument(network, cyEdge, EnhancedSearch.EDGE_TYPE, cyEdge.getSUID()));
+		}
+
+		// Optimize the index, since it is likely to be searched many times
+		writer.optimize();
+	}
+
+	private void updateDocuments(final Set<Long> nodes, final Set<Long> edges, final TaskMonitor taskMonitor)
+		throws IOException
+	{
+		taskMonitor.setProgress(0.1);
+		for (final Long suid : nodes) {
+			writer.deleteDocuments(new Term(EnhancedSearch.INDEX_FIELD, suid.toString()));
+			final CyNode node = network.getNode(suid);
+			if (node != null)
+				writer.addDocument(createDocument(network, node, EnhancedSearch.NODE_TYPE, suid));
 		}
-		this.taskMonitor.setProgress(0.95);
+		taskMonitor.setProgress(0.6);
 
+		for (final Long suid : edges) {
+			writer.deleteDocuments(new Term(EnhancedSearch.INDEX_FIELD, suid.toString()));
+			final CyEdge edge = network.getEdge(suid);
+			if (edge != null)
+				writer.addDocument(createDocument(network, edge, EnhancedSearch.EDGE_TYPE, suid));
+		}
 	}
 
 	/**
@@ -163,7 +355,120 @@ public class EnhancedSearchIndex {
 		return doc;
 	}
 
-	public RAMDirectory getIndex() {
+	/**
+	 * Returns the directory holding the committed index, for searching.
+	 */
+	public Directory getIndex() {
 		return idx;
 	}
+
+	/**
+	 * Returns the number of documents in the index.
+	 */
+	public int getDocumentCount() {
+		synchronized (writeLock) {
+			try {
+				return writer.numDocs();
+			} catch (IOException ioe) {
+				logger.warn("Could not count the documents of the search index", ioe);
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * Returns the size of the index files in bytes.
+	 */
+	public long getSizeInBytes() {
+		synchronized (writeLock) {
+			long size = 0;
+			try {
+				for (final String file : idx.listAll())
+					size += idx.fileLength(file);
+			} catch (IOException ioe) {
+				logger.warn("Could not determine the size of the search index", ioe);
+				return -1;
+			}
+			return size;
+		}
+	}
+
+	/**
+	 * Returns the number of updates, including rebuilds, applied to the index.
+	 */
+	public int getUpdateCount() {
+		synchronized (writeLock) {
+			return updateCount;
+		}
+	}
+
+	/**
+	 * Returns the number of times the whole index was rebuilt.
+	 */
+	public int getRebuildCount() {
+		synchronized (writeLock) {
+			return rebuildCount;
+		}
+	}
+
+	/**
+	 * Returns the number of graph objects re-indexed by the last update.
+	 */
+	public int getLastUpdateSize() {
+		synchronized (writeLock) {
+			return lastUpdateSize;
+		}
+	}
+
+	/**
+	 * Returns the duration of the last update in milliseconds.
+	 */
+	public long getLastUpdateTime() {
+		synchronized (writeLock) {
+			return lastUpdateTime;
+		}
+	}
+
+	/**
+	 * Returns the mean duration of the updates in milliseconds.
+	 */
+	public double getMeanUpdateTime() {
+		synchronized (writeLock) {
+			return updateCount == 0 ? 0.0 : (double) totalUpdateTime / updateCount;
+		}
+	}
+
+	/**
+	 * Returns a one-line summary of the index size and update latency.
+	 */
+	public String getStatistics() {
+		return "network=" + network.getSUID() + ", documents=" + getDocumentCount()
+			+ ", bytes=" + getSizeInBytes() + ", updates=" + getUpdateCount()
+			+ ", rebuilds=" + getRebuildCount() + ", lastUpdateSize=" + getLastUpdateSize()
+			+ ", lastUpdateMs=" + getLastUpdateTime() + ", meanUpdateMs=" + getMeanUpdateTime();
+	}
+
+	/**
+	 * Releases the index.  Indexes written to disk are deleted.
+	 */
+	public void close() {
+		synchronized (writeLock) {
+			try {
+				writer.close();
+			} catch (IOException ioe) {
+				logger.warn("Could not close the search index of network " + network.getSUID(), ioe);
+			}
+			try {
+				if (indexDir != null) {
+					for (final String file : idx.listAll())
+						idx.deleteFile(file);
+				}
+				idx.close();
+			} catch (IOException ioe) {
+				logger.warn("Could not delete the search index of network " + network.getSUID(), ioe);
+			}
+			if (indexDir != null)
+				indexDir.delete();
+		}
+	}
 }
@@ -25,14 +25,22 @@ package org.cytoscape.search.internal;
  */
 
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 
-import org.apache.lucene.store.RAMDirectory;
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.subnetwork.CyRootNetwork;
+import org.cytoscape.model.subnetwork.CySubNetwork;
 
 public class EnhancedSearchManager implements EnhancedSearch {
 	// Keeps the index for each network
-	private HashMap networkIndexMap = new HashMap();
+	private HashMap<CyNetwork, EnhancedSearchIndex> networkIndexMap = new HashMap<CyNetwork, EnhancedSearchIndex>();
 
 	// Keeps indexing status of each network
 	private HashMap networkIndexStatusMap = new HashMap();
@@ -48,8 +56,10 @@ public class EnhancedSearchManager implements EnhancedSearch {
 	 * @param network        CyNetwork object
 	 */
 	public synchronized void removeNetworkIndex(CyNetwork network) {
-		networkIndexMap.remove(network);
+		final EnhancedSearchIndex index = networkIndexMap.remove(network);
 		networkIndexStatusMap.remove(network);
+		if (index != null)
+			index.close();
 	}
 
 	/**
@@ -58,8 +68,8 @@ public class EnhancedSearchManager implements EnhancedSearch {
 	 * @param network        CyNetwork object
 	 * @return               the index for this network
 	 */
-	public synchronized RAMDirectory getNetworkIndex(CyNetwork network) {
-		return (RAMDirectory) networkIndexMap.get(network);
+	public synchronized EnhancedSearchIndex getNetworkIndex(CyNetwork network) {
+		return networkIndexMap.get(network);
 	}
 
 	/**
@@ -73,14 +83,17 @@ public class EnhancedSearchManager implements EnhancedSearch {
 	}
 
 	/**
-	 * Sets the index for the specified network.
+	 * Sets the index for the specified network. An index previously set for
+	 * this network is closed.
 	 * 
 	 * @param network        CyNetwork object
 	 * @param index          the index that suits this network
 	 */
-	public synchronized void setNetworkIndex(CyNetwork network, RAMDirectory index) {
-		networkIndexMap.put(network, index);
+	public synchronized void setNetworkIndex(CyNetwork network, EnhancedSearchIndex index) {
+		final EnhancedSearchIndex oldIndex = networkIndexMap.put(network, index);
 		networkIndexStatusMap.put(network, INDEX_SET);
+		if (oldIndex != null && oldIndex != index)
+			oldIndex.close();
 	}
 
 	/**
@@ -97,11 +110,113 @@ public class EnhancedSearchManager implements EnhancedSearch {
 		}
 	}	
 
+	/**
+	 * Marks the nodes or edges with the given SUIDs for re-indexing in every
+	 * index whose network uses the given table.
+	 * 
+	 * @param table          the table in which rows were set
+	 * @param suids          the SUIDs of the rows that were set
+	 */
+	public synchronized void rowsChanged(CyTable table, Collection<Long> suids) {
+		for (final EnhancedSearchIndex index : networkIndexMap.values()) {
+			final CyNetwork network = index.getNetwork();
+			if (usesTable(network, CyNode.class, table))
+				index.nodesChanged(suids);
+			else if (usesTable(network, CyEdge.class, table))
+				index.edgesChanged(suids);
+		}
+	}
+
+	/**
+	 * Requests a rebuild of every index whose network uses the given table,
+	 * because one of its columns was renamed or deleted.
+	 * 
+	 * @param table          the table whose columns changed
+	 */
+	public synchronized void columnsChanged(CyTable table) {
+		for (final EnhancedSearchIndex index : networkIndexMap.values()) {
+			final CyNetwork network = index.getNetwork();
+			if (usesTable(network, CyNode.class, table) || usesTable(network, CyEdge.class, table))
+				index.invalidate();
+		}
+	}
+
+	/**
+	 * Marks nodes that were added to a network for indexing.
+	 */
+	public synchronized void nodesAdded(CyNetwork network, Collection<CyNode> nodes) {
+		final EnhancedSearchIndex index = networkIndexMap.get(network);
+		if (index != null)
+			index.nodesChanged(getSUIDs(nodes));
+	}
+
+	/**
+	 * Marks edges that were added to a network for indexing.
+	 */
+	public synchronized void edgesAdded(CyNetwork network, Collection<CyEdge> edges) {
+		final EnhancedSearchIndex index = networkIndexMap.get(network);
+		if (index != null)
+			index.edgesChanged(getSUIDs(edges));
+	}
+
+	/**
+	 * Records nodes that are about to be removed from a network.
+	 */
+	public synchronized void nodesAboutToBeRemoved(CyNetwork network, Collection<CyNode> nodes) {
+		final EnhancedSearchIndex index = networkIndexMap.get(network);
+		if (index != null)
+			index.nodesAboutToBeRemoved(nodes);
+	}
+
+	/**
+	 * Records edges that are about to be removed from a network.
+	 */
+	public synchronized void edgesAboutToBeRemoved(CyNetwork network, Collection<CyEdge> edges) {
+		final EnhancedSearchIndex index = networkIndexMap.get(network);
+		if (index != null)
+			index.edgesAboutToBeRemoved(edges);
+	}
+
+	/**
+	 * Marks the nodes and edges recorded as being removed from a network for
+	 * removal from its index.
+	 */
+	public synchronized void removalsCompleted(CyNetwork network) {
+		final EnhancedSearchIndex index = networkIndexMap.get(network);
+		if (index != null)
+			index.removalsCompleted();
+	}
+
 	/**
 	 * Set the state of the Manger to its original 
 	 */
-	public void clear(){
+	public synchronized void clear(){
+		for (final EnhancedSearchIndex index : networkIndexMap.values())
+			index.close();
 		networkIndexMap.clear();
 		networkIndexStatusMap.clear();
 	}
+
+	// Returns true if the rows of the network's nodes or edges live in the given
+	// table, either directly or through the shared table of its root network.
+	private static boolean usesTable(final CyNetwork network, final Class<? extends CyIdentifiable> type,
+	                                 final CyTable table) {
+		if (network.getTable(type, CyNetwork.DEFAULT_ATTRS) == table)
+			return true;
+		if (network instanceof CySubNetwork) {
+			final CyRootNetwork root = ((CySubNetwork) network).getRootNetwork();
+			if (type == CyNode.class)
+				return root.getSharedNodeTable() == table;
+			else
+				return root.getSharedEdgeTable() == table;
+		}
+		return false;
+	}
+
+	private static List<Long> getSUIDs(final Collection<? extends CyIdentifiable> objects) {
+		final List<Long> suids = new ArrayList<Long>(objects.size());
+		for (final CyIdentifiable object : objects)
+			suids.add(object.getSUID());
+		return suids;
+	}
 }
@@ -33,6 +33,7 @@ import org.cytoscape.application.events.SetCurrentNetworkViewEvent;
 import org.cytoscape.application.events.SetCurrentNetworkViewListener;
 import org.cytoscape.application.swing.AbstractToolBarComponent;
 import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.events.NetworkAboutToBeDestroyedEvent;
 import org.cytoscape.model.events.NetworkAboutToBeDestroyedListener;
@@ -46,23 +47,35 @@ import org.cytoscape.model.events.RowsSetListener;
 import org.cytoscape.model.events.RowsSetEvent;
 import org.cytoscape.model.events.ColumnDeletedListener;
 import org.cytoscape.model.events.ColumnDeletedEvent;
+import org.cytoscape.model.events.ColumnNameChangedEvent;
+import org.cytoscape.model.events.ColumnNameChangedListener;
+import org.cytoscape.model.events.AddedNodesEvent;
+import org.cytoscape.model.events.AddedNodesListener;
+import org.cytoscape.model.events.AddedEdgesEvent;
+import org.cytoscape.model.events.AddedEdgesListener;
+import org.cytoscape.model.events.AboutToRemoveNodesEvent;
+import org.cytoscape.model.events.AboutToRemoveNodesListener;
+import org.cytoscape.model.events.AboutToRemoveEdgesEvent;
+import org.cytoscape.model.events.AboutToRemoveEdgesListener;
 import org.cytoscape.model.events.RemovedNodesEvent;
 import org.cytoscape.model.events.RemovedNodesListener;
 import org.cytoscape.model.events.RemovedEdgesListener;
 import org.cytoscape.model.events.RemovedEdgesEvent;
 import org.cytoscape.model.events.RowSetRecord;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.Set;
 
 
 public class EnhancedSearchPlugin extends AbstractToolBarComponent
 	implements SetCurrentNetworkViewListener, NetworkAboutToBeDestroyedListener,
-	           SessionLoadedListener,RowsSetListener, ColumnDeletedListener, RemovedNodesListener, RemovedEdgesListener
+	           SessionLoadedListener,RowsSetListener, ColumnDeletedListener, ColumnNameChangedListener,
+	           AddedNodesListener, AddedEdgesListener, AboutToRemoveNodesListener, AboutToRemoveEdgesListener,
+	           RemovedNodesListener, RemovedEdgesListener
 {
 	private final EnhancedSearchManager searchMgr;
 	private final EnhancedSearchPanel searchPnl; 
 	static CyEventHelper eventHelper;
-	public static boolean attributeChanged = false;
 	
 	public EnhancedSearchPlugin(final CySwingApplication desktopApp,
 	                            final CyApplicationManager appManager, 
@@ -107,7 +120,12 @@ public class EnhancedSearchPlugin extends AbstractToolBarComponent
 	
 	@Override	
 	public void handleEvent(ColumnDeletedEvent e){
-		this.attributeChanged = true;
+		searchMgr.columnsChanged(e.getSource());
+	}
+
+	@Override	
+	public void handleEvent(ColumnNameChangedEvent e){
+		searchMgr.columnsChanged(e.getSource());
 	}
 	
 	@Override
@@ -115,23 +133,47 @@ public class EnhancedSearchPlugin extends AbstractToolBarComponent
 		
 		Collection<RowSetRecord> records = e.getPayloadCollection();
 
-		Iterator<RowSetRecord> it= records.iterator();
-		while (it.hasNext()){
+		// Only re-index the rows that were set
+		Set<Long> suids = new HashSet<Long>();
+		for (RowSetRecord record : records){
 			// Ignore the change of selection attribute 
-			if (!it.next().getColumn().equalsIgnoreCase("selected")){
-				this.attributeChanged = true;
-				break;
+			if (!record.getColumn().equalsIgnoreCase("selected")){
+				Long suid = record.getRow().get(CyIdentifiable.SUID, Long.class);
+				if (suid != null)
+					suids.add(suid);
 			}			
 		}		
+		if (!suids.isEmpty())
+			searchMgr.rowsChanged(e.getSource(), suids);
+	}
+
+	@Override	
+	public void handleEvent(AddedNodesEvent e){
+		searchMgr.nodesAdded(e.getSource(), e.getPayloadCollection());
+	}
+
+	@Override	
+	public void handleEvent(AddedEdgesEvent e){
+		searchMgr.edgesAdded(e.getSource(), e.getPayloadCollection());
+	}
+
+	@Override	
+	public void handleEvent(AboutToRemoveNodesEvent e){
+		searchMgr.nodesAboutToBeRemoved(e.getSource(), e.getNodes());
+	}
+
+	@Override	
+	public void handleEvent(AboutToRemoveEdgesEvent e){
+		searchMgr.edgesAboutToBeRemoved(e.getSource(), e.getEdges());
 	}
 	
 	@Override	
 	public void handleEvent(RemovedNodesEvent e){
-		this.attributeChanged = true;
+		searchMgr.removalsCompleted(e.getSource());
 	}
 
 	@Override	
 	public void handleEvent(RemovedEdgesEvent e){
-		this.attributeChanged = true;
+		searchMgr.removalsCompleted(e.getSource());
 	}
 }
@@ -39,7 +39,7 @@ import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Searcher;
 import org.apache.lucene.search.Query;
-import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.store.Directory;
 import org.apache.lucene.queryParser.ParseException;
 import org.apache.lucene.util.Version;
 
@@ -55,12 +55,12 @@ public class EnhancedSearchQuery {
 	
 	private static final Logger logger = LoggerFactory.getLogger(EnhancedSearchQuery.class);
 	
-	private final RAMDirectory idx;
+	private final Directory idx;
 	private final CyNetwork network;
 	private IdentifiersCollector hitCollector = null;
 	private Searcher searcher = null;
 
-	public EnhancedSearchQuery(CyNetwork network, RAMDirectory index) {
+	public EnhancedSearchQuery(CyNetwork network, Directory index) {
 		this.network = network;
 		this.idx = index;
 	}
@@ -72,7 +72,7 @@ public class EnhancedSearchQuery {
 			// Define attribute fields in which the search is to be carried on
 			AttributeFields attFields = new AttributeFields(network);
 
-			// Build an IndexSearcher using the in-memory index
+			// Build an IndexSearcher using the last committed state of the index
 			searcher = new IndexSearcher(idx);
 			queryString = EnhancedSearchUtils.queryToLowerCase(queryString);
 			
@@ -101,7 +101,7 @@ public class EnhancedSearchQuery {
 		try {
 			// Execute query
 			Query query = queryParser.parse(queryString);
-			hitCollector = new IdentifiersCollector(searcher);
+			hitCollector = new IdentifiersCollector();
 			searcher.search(query, hitCollector);		    
 		} catch (final ParseException pe) {
 			// Parse exceptions occur when colon appear in the query in an
@@ -165,14 +165,12 @@ public class EnhancedSearchQuery {
 
 class IdentifiersCollector extends Collector {
 
-	private Searcher searcher;
+	// The reader of the segment being searched; document numbers passed to
+	// collect() are relative to it
+	private IndexReader reader;
 
 	public ArrayList<String> nodeHitsIdentifiers = new ArrayList<String>();
 	public ArrayList<String> edgeHitsIdentifiers = new ArrayList<String>();
-
-	public IdentifiersCollector(Searcher searcher) {
-		this.searcher = searcher;
-	}
 	
 	public int getNodeHitCount() {
 		return nodeHitsIdentifiers.size();
@@ -194,7 +192,7 @@ class IdentifiersCollector extends Collector {
 
 	public void collect(int id) {		
 		try {
-			Document doc = searcher.doc(id);
+			Document doc = reader.document(id);
 			String currID = doc.get(EnhancedSearch.INDEX_FIELD);
 			String currType = doc.get(EnhancedSearch.TYPE_FIELD);
 			
@@ -209,6 +207,7 @@ class IdentifiersCollector extends Collector {
 	}
 
 	public void setNextReader(IndexReader reader, int docBase) {
+		this.reader = reader;
 	}
 
 	public void setScorer(Scorer scorer) {
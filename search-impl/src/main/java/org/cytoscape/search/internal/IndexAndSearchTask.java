@@ -34,7 +34,6 @@ import java.util.List;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 
-import org.apache.lucene.store.RAMDirectory;
 import org.cytoscape.application.CyApplicationManager;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNetwork;
@@ -84,30 +83,32 @@ public class IndexAndSearchTask extends AbstractNetworkTask {
 		// Give the task a title.
 		taskMonitor.setTitle("Searching the network");
 
-		// Index the given network or use existing index
-		RAMDirectory idx = null;
+		// Index the given network or bring the existing index up to date
+		EnhancedSearchIndex indexHandler = null;
 
 		final String status = enhancedSearch.getNetworkIndexStatus(network);
 		logger.debug("Index status = " + status);
 		
-		if (status != null && status.equalsIgnoreCase(EnhancedSearch.INDEX_SET) && !EnhancedSearchPlugin.attributeChanged)
-		{
-			idx = enhancedSearch.getNetworkIndex(network);
-		}
-		else {
+		if (status != null && status.equalsIgnoreCase(EnhancedSearch.INDEX_SET))
+			indexHandler = enhancedSearch.getNetworkIndex(network);
+
+		if (indexHandler == null) {
 			taskMonitor.setStatusMessage("Indexing network");
-			final EnhancedSearchIndex indexHandler = new EnhancedSearchIndex(network, taskMonitor);
-			idx = indexHandler.getIndex();
-			enhancedSearch.setNetworkIndex(network, idx);
-			EnhancedSearchPlugin.attributeChanged = false;
+			indexHandler = new EnhancedSearchIndex(network);
+			// Register the index before building it, so that changes made while
+			// it is being built are applied by the next update.
+			enhancedSearch.setNetworkIndex(network, indexHandler);
+		} else if (indexHandler.isUpdateRequired()) {
+			taskMonitor.setStatusMessage("Updating index");
 		}
+		indexHandler.update(taskMonitor);
 
 		if (interrupted)
 			return;
 
 		// Execute query
 		taskMonitor.setStatusMessage("Executing query");
-		EnhancedSearchQuery queryHandler = new EnhancedSearchQuery(network, idx);
+		EnhancedSearchQuery queryHandler = new EnhancedSearchQuery(network, indexHandler.getIndex());
 		queryHandler.executeQuery(query);
 
 		if (interrupted)
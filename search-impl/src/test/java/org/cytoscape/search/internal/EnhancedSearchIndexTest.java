@@ -0,0 +1,246 @@
+package org.cytoscape.search.internal;
+
+/*
+ * #%L
+ * Cytoscape Search Impl (search-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.NetworkTestSupport;
+import org.cytoscape.work.TaskMonitor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EnhancedSearchIndexTest {
+
+	private static final int NODE_COUNT = 10;
+
+	private final NetworkTestSupport support = new NetworkTestSupport();
+
+	private CyNetwork network;
+	private List<CyNode> nodes;
+	private List<CyEdge> edges;
+	private EnhancedSearchIndex index;
+
+	@Before
+	public void setUp() {
+		network = support.getNetwork();
+		nodes = new ArrayList<CyNode>();
+		edges = new ArrayList<CyEdge>();
+		for (int i = 0; i < NODE_COUNT; i++) {
+			final CyNode node = network.addNode();
+			network.getRow(node).set(CyNetwork.NAME, "node" + i);
+			nodes.add(node);
+		}
+		for (int i = 1; i < NODE_COUNT; i++) {
+			final CyEdge edge = network.addEdge(nodes.get(i - 1), nodes.get(i), false);
+			network.getRow(edge).set(CyNetwork.NAME, "edge" + i);
+			edges.add(edge);
+		}
+
+		index = new EnhancedSearchIndex(network);
+		index.update(new SilentTaskMonitor());
+	}
+
+	@After
+	public void tearDown() {
+		index.close();
+	}
+
+	@Test
+	public void testFirstUpdateIndexesAllGraphObjects() {
+		assertEquals(2 * NODE_COUNT - 1, index.getDocumentCount());
+		assertEquals(1, index.getRebuildCount());
+		assertEquals(1, index.getUpdateCount());
+		assertFalse(index.isUpdateRequired());
+		assertEquals(Collections.singletonList(suid(nodes.get(3))), searchNodes("name:node3"));
+		assertEquals(Collections.singletonList(suid(edges.get(4))), searchEdges("name:edge5"));
+	}
+
+	@Test
+	public void testChangedRowIsReindexed() {
+		final CyNode node = nodes.get(3);
+		network.getRow(node).set(CyNetwork.NAME, "renamed");
+		index.nodesChanged(Collections.singleton(node.getSUID()));
+		assertTrue(index.isUpdateRequired());
+
+		index.update(new SilentTaskMonitor());
+
+		assertEquals(Collections.singletonList(suid(node)), searchNodes("name:renamed"));
+		assertTrue(searchNodes("name:node3").isEmpty());
+		assertEquals(2 * NODE_COUNT - 1, index.getDocumentCount());
+		assertEquals(1, index.getLastUpdateSize());
+		assertEquals(1, index.getRebuildCount());
+		assertEquals(2, index.getUpdateCount());
+	}
+
+	@Test
+	public void testUnchangedIndexIsNotUpdated() {
+		index.update(new SilentTaskMonitor());
+		assertEquals(1, index.getUpdateCount());
+	}
+
+	@Test
+	public void testAddedGraphObjectsAreIndexed() {
+		final CyNode node = network.addNode();
+		network.getRow(node).set(CyNetwork.NAME, "added");
+		final CyEdge edge = network.addEdge(nodes.get(0), node, false);
+		network.getRow(edge).set(CyNetwork.NAME, "addededge");
+		index.nodesChanged(Collections.singleton(node.getSUID()));
+		index.edgesChanged(Collections.singleton(edge.getSUID()));
+
+		index.update(new SilentTaskMonitor());
+
+		assertEquals(Collections.singletonList(suid(node)), searchNodes("name:added"));
+		assertEquals(Collections.singletonList(suid(edge)), searchEdges("name:addededge"));
+		assertEquals(2 * NODE_COUNT + 1, index.getDocumentCount());
+		assertEquals(2, index.getLastUpdateSize());
+		assertEquals(1, index.getRebuildCount());
+	}
+
+	@Test
+	public void testRemovedNodeIsDroppedWithItsEdges() {
+		final CyNode node = nodes.get(3);
+		final List<CyNode> removed = Collections.singletonList(node);
+		index.nodesAboutToBeRemoved(removed);
+		network.removeNodes(removed);
+		// Nothing changes until the removal has happened
+		assertFalse(index.isUpdateRequired());
+		index.removalsCompleted();
+
+		index.update(new SilentTaskMonitor());
+
+		assertTrue(searchNodes("name:node3").isEmpty());
+		assertTrue(searchEdges("name:edge3").isEmpty());
+		assertTrue(searchEdges("name:edge4").isEmpty());
+		assertEquals(2 * NODE_COUNT - 4, index.getDocumentCount());
+		assertEquals(3, index.getLastUpdateSize());
+		assertEquals(1, index.getRebuildCount());
+	}
+
+	@Test
+	public void testRemovedEdgeIsDropped() {
+		final List<CyEdge> removed = Collections.singletonList(edges.get(0));
+		index.edgesAboutToBeRemoved(removed);
+		network.removeEdges(removed);
+		index.removalsCompleted();
+
+		index.update(new SilentTaskMonitor());
+
+		assertTrue(searchEdges("name:edge1").isEmpty());
+		assertEquals(2 * NODE_COUNT - 2, index.getDocumentCount());
+	}
+
+	@Test
+	public void testMostlyChangedNetworkIsRebuilt() {
+		final List<Long> suids = new ArrayList<Long>();
+		for (final CyNode node : nodes) {
+			network.getRow(node).set(CyNetwork.NAME, "renamed" + suids.size());
+			suids.add(node.getSUID());
+		}
+		for (final CyEdge edge : edges)
+			suids.add(edge.getSUID());
+		index.nodesChanged(suids.subList(0, NODE_COUNT));
+		index.edgesChanged(suids.subList(NODE_COUNT, suids.size()));
+
+		index.update(new SilentTaskMonitor());
+
+		assertEquals(2, index.getRebuildCount());
+		assertEquals(Collections.singletonList(suid(nodes.get(0))), searchNodes("name:renamed0"));
+		assertEquals(2 * NODE_COUNT - 1, index.getDocumentCount());
+	}
+
+	@Test
+	public void testInvalidatedIndexIsRebuilt() {
+		index.invalidate();
+		assertTrue(index.isUpdateRequired());
+
+		index.update(new SilentTaskMonitor());
+
+		assertEquals(2, index.getRebuildCount());
+		assertEquals(2 * NODE_COUNT - 1, index.getDocumentCount());
+	}
+
+	@Test
+	public void testIndexOnDiskIsDeletedOnClose() throws IOException {
+		final File baseDir = File.createTempFile("search", "");
+		assertTrue(baseDir.delete() && baseDir.mkdir());
+		System.setProperty(EnhancedSearchIndex.INDEX_DIRECTORY_PROPERTY, baseDir.getPath());
+		try {
+			final EnhancedSearchIndex diskIndex = new EnhancedSearchIndex(network);
+			diskIndex.update(new SilentTaskMonitor());
+			final File indexDir = new File(baseDir, "network-" + network.getSUID());
+			assertTrue(indexDir.list().length > 0);
+			assertTrue(diskIndex.getSizeInBytes() > 0);
+			assertEquals(2 * NODE_COUNT - 1, diskIndex.getDocumentCount());
+
+			diskIndex.close();
+			assertFalse(indexDir.exists());
+		} finally {
+			System.clearProperty(EnhancedSearchIndex.INDEX_DIRECTORY_PROPERTY);
+			baseDir.delete();
+		}
+	}
+
+	private List<String> searchNodes(final String query) {
+		final EnhancedSearchQuery search = new EnhancedSearchQuery(network, index.getIndex());
+		search.executeQuery(query);
+		return search.getNodeHits();
+	}
+
+	private List<String> searchEdges(final String query) {
+		final EnhancedSearchQuery search = new EnhancedSearchQuery(network, index.getIndex());
+		search.executeQuery(query);
+		return search.getEdgeHits();
+	}
+
+	private static String suid(final CyNode node) {
+		return node.getSUID().toString();
+	}
+
+	private static String suid(final CyEdge edge) {
+		return edge.getSUID().toString();
+	}
+
+	static final class SilentTaskMonitor implements TaskMonitor {
+		public void setTitle(String title) {
+		}
+
+		public void setProgress(double progress) {
+		}
+
+		public void setStatusMessage(String statusMessage) {
+		}
+	}
+}
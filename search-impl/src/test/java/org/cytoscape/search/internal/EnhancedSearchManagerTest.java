@@ -0,0 +1,152 @@
+package org.cytoscape.search.internal;
+
+/*
+ * #%L
+ * Cytoscape Search Impl (search-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.NetworkTestSupport;
+import org.cytoscape.model.subnetwork.CyRootNetwork;
+import org.cytoscape.model.subnetwork.CySubNetwork;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EnhancedSearchManagerTest {
+
+	private final NetworkTestSupport support = new NetworkTestSupport();
+
+	private EnhancedSearchManager manager;
+	private CyNetwork network;
+	private CyNetwork otherNetwork;
+	private EnhancedSearchIndex index;
+	private EnhancedSearchIndex otherIndex;
+	private CyNode node;
+	private CyEdge edge;
+
+	@Before
+	public void setUp() {
+		network = support.getNetwork();
+		node = network.addNode();
+		edge = network.addEdge(node, network.addNode(), false);
+		// Enough unchanged nodes for small changes to be applied incrementally
+		for (int i = 0; i < 10; i++)
+			network.addNode();
+		otherNetwork = support.getNetwork();
+		otherNetwork.addNode();
+
+		manager = new EnhancedSearchManager();
+		index = createIndex(network);
+		otherIndex = createIndex(otherNetwork);
+	}
+
+	@After
+	public void tearDown() {
+		manager.clear();
+	}
+
+	@Test
+	public void testNodeRowsChangeOnlyTheirNetwork() {
+		manager.rowsChanged(network.getDefaultNodeTable(), Collections.singleton(node.getSUID()));
+
+		assertTrue(index.isUpdateRequired());
+		assertFalse(otherIndex.isUpdateRequired());
+		index.update(new EnhancedSearchIndexTest.SilentTaskMonitor());
+		assertEquals(1, index.getLastUpdateSize());
+		assertEquals(1, index.getRebuildCount());
+	}
+
+	@Test
+	public void testSharedTableRowsChangeTheirNetwork() {
+		final CyRootNetwork root = ((CySubNetwork) network).getRootNetwork();
+		manager.rowsChanged(root.getSharedEdgeTable(), Collections.singleton(edge.getSUID()));
+
+		assertTrue(index.isUpdateRequired());
+		assertFalse(otherIndex.isUpdateRequired());
+	}
+
+	@Test
+	public void testColumnChangeInvalidatesTheIndex() {
+		manager.columnsChanged(network.getDefaultEdgeTable());
+
+		assertTrue(index.isUpdateRequired());
+		assertFalse(otherIndex.isUpdateRequired());
+		index.update(new EnhancedSearchIndexTest.SilentTaskMonitor());
+		assertEquals(2, index.getRebuildCount());
+	}
+
+	@Test
+	public void testAddedAndRemovedGraphObjectsReachTheirIndex() {
+		final CyNode added = network.addNode();
+		manager.nodesAdded(network, Collections.singletonList(added));
+		assertTrue(index.isUpdateRequired());
+		assertFalse(otherIndex.isUpdateRequired());
+		index.update(new EnhancedSearchIndexTest.SilentTaskMonitor());
+		assertEquals(14, index.getDocumentCount());
+
+		final List<CyNode> removed = Collections.singletonList(node);
+		manager.nodesAboutToBeRemoved(network, removed);
+		network.removeNodes(removed);
+		manager.removalsCompleted(network);
+		index.update(new EnhancedSearchIndexTest.SilentTaskMonitor());
+		// The node and its edge are gone
+		assertEquals(12, index.getDocumentCount());
+		assertEquals(1, index.getRebuildCount());
+	}
+
+	@Test
+	public void testEventsForNetworksWithoutIndexAreIgnored() {
+		final CyNetwork unindexed = support.getNetwork();
+		manager.nodesAdded(unindexed, Collections.singletonList(unindexed.addNode()));
+		manager.rowsChanged(unindexed.getDefaultNodeTable(), Collections.<Long>emptySet());
+
+		assertFalse(index.isUpdateRequired());
+		assertFalse(otherIndex.isUpdateRequired());
+	}
+
+	@Test
+	public void testIndexesCanBeReplacedAndRemoved() {
+		final EnhancedSearchIndex replacement = new EnhancedSearchIndex(network);
+		manager.setNetworkIndex(network, replacement);
+		assertSame(replacement, manager.getNetworkIndex(network));
+
+		manager.removeNetworkIndex(otherNetwork);
+		assertNull(manager.getNetworkIndex(otherNetwork));
+		assertNull(manager.getNetworkIndexStatus(otherNetwork));
+	}
+
+	private EnhancedSearchIndex createIndex(final CyNetwork network) {
+		final EnhancedSearchIndex index = new EnhancedSearchIndex(network);
+		index.update(new EnhancedSearchIndexTest.SilentTaskMonitor());
+		manager.setNetworkIndex(network, index);
+		return index;
+	}
+}
@@ -34,18 +34,15 @@ import org.cytoscape.application.CyApplicationManager;
 import org.cytoscape.internal.view.NetworkViewManager;
 import org.cytoscape.model.CyColumn;
 import org.cytoscape.model.CyEdge;
-import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNode;
 import org.cytoscape.model.CyRow;
-import org.cytoscape.model.VirtualColumnInfo;
 import org.cytoscape.model.events.RowSetRecord;
 import org.cytoscape.model.events.RowsSetEvent;
 import org.cytoscape.model.events.RowsSetListener;
 import org.cytoscape.view.model.CyNetworkView;
 import org.cytoscape.view.model.CyNetworkViewManager;
 import org.cytoscape.view.model.View;
-import org.cytoscape.view.model.VisualProperty;
 import org.cytoscape.view.vizmap.VisualMappingFunction;
 import org.cytoscape.view.vizmap.VisualMappingManager;
 import org.cytoscape.view.vizmap.VisualStyle;
@@ -62,8 +59,6 @@ public class RowsSetViewUpdater implements RowsSetListener {
 	private final NetworkViewManager viewManager;
 	private final RowViewTracker tracker;
 
-	private VisualMappingFunction<?, ?> targetFunction;
-
 	public RowsSetViewUpdater(final CyApplicationManager am, final CyNetworkViewManager vm,
 			final VisualMappingManager vmm, final RowViewTracker tracker, final NetworkViewManager viewManager) {
 		this.am = am;
@@ -74,9 +69,9 @@ public class RowsSetViewUpdater implements RowsSetListener {
 	}
 
 	/**
-	 * Called whenever {@link CyRow}s are changed. Will attempt to set the
-	 * visual property on the view with the new value that has been set in the
-	 * row.
+	 * Called whenever {@link CyRow}s are changed. Marks the other views that
+	 * use the same visual style for update when a mapped virtual column of the
+	 * current view has changed.
 	 * 
 	 * @param RowsSetEvent
 	 *            The event to be processed.
@@ -91,9 +86,6 @@ public class RowsSetViewUpdater implements RowsSetListener {
 	}
 
 	private final void updateView(final RowsSetEvent e) {
-		boolean refreshView = false;
-		boolean refreshOtherViews = false;
-		
 		final CyNetwork network = am.getCurrentNetwork();
 		if (network == null)
 			return;
@@ -106,81 +98,68 @@ public class RowsSetViewUpdater implements RowsSetListener {
 		else
 			networkView = views.iterator().next();
 
+		// The mapped values of the changed rows are re-applied to the view
+		// by the VizMap implementation as soon as the rows are set; only
+		// views that see the change through virtual columns are left here.
 		final VisualStyle vs = vmm.getVisualStyle(networkView);
 		Map<CyRow, View<?>> rowViewMap = tracker.getRowViewMap(networkView);
+		boolean refreshOtherViews = false;
 		
 		for (final RowSetRecord record : e.getPayloadCollection()) {
 			final CyRow row = record.getRow();
 			final String columnName = record.getColumn();
 			final CyColumn column = row.getTable().getColumn(columnName);
 			
-			if (column == null)
+			if (column == null || !column.getVirtualColumnInfo().isVirtual())
 				continue;
 			
-			final VirtualColumnInfo virtualColInfo = column.getVirtualColumnInfo();
-			final boolean virtual = virtualColInfo.isVirtual();
 			final View<?> v = rowViewMap.get(row);
 
 			if (v == null)
 				continue;
 
-			VisualProperty<?> vp = null;
+			boolean mapped = false;
 
 			if (v.getModel() instanceof CyNode) {
 				final CyNode node = (CyNode) v.getModel();
-				if (network.containsNode(node))
-					vp = getVPfromVS(vs, columnName);
+				mapped = network.containsNode(node) && isMapped(vs, columnName);
 			} else if (v.getModel() instanceof CyEdge) {
 				final CyEdge edge = (CyEdge) v.getModel();
-				if (network.containsEdge(edge))
-					vp = getVPfromVS(vs, columnName);
+				mapped = network.containsEdge(edge) && isMapped(vs, columnName);
 			} else {
 				// FIXME: NETWORK?
 			}
 
-			if (vp != null) {
-				targetFunction.apply(record.getRow(), (View<? extends CyIdentifiable>) v);
-				refreshView = true;
-				
-				// If virtual, it may be used in other networks.
-				if(virtual)
-					refreshOtherViews = true;
+			// If virtual, it may be used in other networks.
+			if (mapped) {
+				refreshOtherViews = true;
+				break;
 			}
 		}
 
-		if (refreshView) {
-			vs.apply(networkView);
-			networkView.updateView();
-			
-			if (refreshOtherViews) {
-				// Check other views. If update is required, set the flag.
-				for (final CyNetworkView view : vm.getNetworkViewSet()) {
-					if (view == networkView)
-						continue;
-
-					final VisualStyle style = vmm.getVisualStyle(view);
-					if (style == vs) {
-						// Same style is in use. Need to apply.
-						viewManager.setUpdateFlag(view);
-					}
+		if (refreshOtherViews) {
+			// Check other views. If update is required, set the flag.
+			for (final CyNetworkView view : vm.getNetworkViewSet()) {
+				if (view == networkView)
+					continue;
+
+				final VisualStyle style = vmm.getVisualStyle(view);
+				if (style == vs) {
+					// Same style is in use. Need to apply.
+					viewManager.setUpdateFlag(view);
 				}
 			}
 		}
 	}
 
-	// Check if the columnName is the name of mapping attribute in visualStyle,
-	// If yes, return the VisualProperty associated with this columnName
-	private VisualProperty<?> getVPfromVS(VisualStyle vs, String columnName) {
-		VisualProperty<?> vp = null;
+	// Check if the columnName is the name of mapping attribute in visualStyle
+	private boolean isMapped(VisualStyle vs, String columnName) {
 		final Collection<VisualMappingFunction<?, ?>> vmfs = vs.getAllVisualMappingFunctions();
 
 		for (final VisualMappingFunction<?, ?> f : vmfs) {
-			if (f.getMappingColumnName().equalsIgnoreCase(columnName)) {
-				vp = f.getVisualProperty();
-				targetFunction = f;
-				break;
-			}
+			if (f.getMappingColumnName().equalsIgnoreCase(columnName))
+				return true;
 		}
-		return vp;
+		return false;
 	}
 }
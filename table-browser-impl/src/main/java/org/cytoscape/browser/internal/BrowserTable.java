@@ -65,6 +65,7 @@ import javax.swing.JPopupMenu;
 import javax.swing.JTable;
 import javax.swing.KeyStroke;
 import javax.swing.ListSelectionModel;
+import javax.swing.RowSorter;
 import javax.swing.RowSorter.SortKey;
 import javax.swing.SwingUtilities;
 import javax.swing.TransferHandler;
@@ -82,7 +83,6 @@ import org.cytoscape.browser.internal.util.TableBrowserUtil;
 import org.cytoscape.equations.EquationCompiler;
 import org.cytoscape.event.CyEventHelper;
 import org.cytoscape.model.CyColumn;
-import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyRow;
 import org.cytoscape.model.CyTable;
@@ -158,21 +158,19 @@ public class BrowserTable extends JTable implements MouseListener, ActionListene
  		BrowserTableColumnModel columnModel = new BrowserTableColumnModel();
 		setColumnModel(columnModel);
 		
-		TableRowSorter<TableModel> sorter = new TableRowSorter<TableModel>(dataModel);
-		setRowSorter(sorter);
-
 		if (!(dataModel instanceof BrowserTableModel)) {
+			setRowSorter(new TableRowSorter<TableModel>(dataModel));
 			return;
 		}
 		
 		BrowserTableModel model = (BrowserTableModel) dataModel;
+		// Sorts in the background, so large tables never block the EDT
+		setRowSorter(new BrowserTableRowSorter(model));
+
 		for (int i = 0; i < model.getColumnCount(); i++) {
 			TableColumn tableColumn = new TableColumn(i);
 			tableColumn.setHeaderValue(model.getColumnName(i));
 			columnModel.addColumn(tableColumn);
-			
-			CyColumn column = model.getColumnByModelIndex(i);
-			sorter.setComparator(i, new ValidatedObjectAndEditStringComparator(column.getType()));
 		}
 		
 	}
@@ -757,7 +755,6 @@ public class BrowserTable extends JTable implements MouseListener, ActionListene
 		return columnModel.isColumnVisible(column);
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public void handleEvent(final ColumnCreatedEvent e) {
 		BrowserTableModel model = (BrowserTableModel) getModel();
@@ -766,7 +763,7 @@ public class BrowserTable extends JTable implements MouseListener, ActionListene
 		if (e.getSource() != dataTable)
 			return;
 		
-		TableRowSorter<BrowserTableModel> sorter = (TableRowSorter<BrowserTableModel>) getRowSorter();
+		RowSorter<? extends TableModel> sorter = getRowSorter();
 		List<? extends SortKey> sortKeys = sorter.getSortKeys();
 
 		model.fireTableStructureChanged();
@@ -780,8 +777,6 @@ public class BrowserTable extends JTable implements MouseListener, ActionListene
 		newCol.setHeaderValue(e.getColumnName());
 		addColumn(newCol);
 
-		CyColumn column = model.getColumnByModelIndex(colIndex);
-		sorter.setComparator(colIndex, new ValidatedObjectAndEditStringComparator(column.getType()));
 		sorter.setSortKeys(sortKeys);
 
 	}
@@ -795,7 +790,7 @@ public class BrowserTable extends JTable implements MouseListener, ActionListene
 		if (e.getSource() != dataTable)
 			return;
 		
-		TableRowSorter<BrowserTableModel> sorter = (TableRowSorter<BrowserTableModel>) getRowSorter();
+		RowSorter<? extends TableModel> sorter = getRowSorter();
 		List<? extends SortKey> sortKeys = new ArrayList<SortKey>(sorter.getSortKeys());
 
 		model.fireTableStructureChanged();
@@ -869,23 +864,24 @@ public class BrowserTable extends JTable implements MouseListener, ActionListene
 		if (e.getSource() != dataTable)
 			return;		
 
+		final Collection<RowSetRecord> rows = e.getPayloadCollection();
+		final boolean selectionChanged = model.updateSelectedRows(rows);
+
 		if (!model.isShowAll()) {
-			model.clearSelectedRows();
 			boolean foundANonSelectedColumnName = false;
-			for (final RowSetRecord rowSet : e.getPayloadCollection()) {
+			for (final RowSetRecord rowSet : rows) {
 				if (!rowSet.getColumn().equals(CyNetwork.SELECTED)) {
 					foundANonSelectedColumnName = true;
 					break;
 				}
 			}
 			if (!foundANonSelectedColumnName) {
-				model.fireTableDataChanged();
+				if (selectionChanged)
+					model.fireTableDataChanged();
 				return;
 			}
 		}
 
-		final Collection<RowSetRecord> rows = e.getPayloadCollection();
-
 		synchronized (this) {
 			if (!model.isShowAll()) {
 				model.fireTableDataChanged();
@@ -906,40 +902,25 @@ public class BrowserTable extends JTable implements MouseListener, ActionListene
 		BrowserTableModel model = (BrowserTableModel) getModel();
 		CyTable dataTable = model.getDataTable();
 
-		final Map<Long, Boolean> suidMapSelected = new HashMap<Long, Boolean>();
-		final Map<Long, Boolean> suidMapUnselected = new HashMap<Long, Boolean>();
-
-		for(RowSetRecord rowSetRecord : rows) {
-			if(rowSetRecord.getColumn().equals(CyNetwork.SELECTED)){
-				if(((Boolean)rowSetRecord.getValue()) == true){
-					suidMapSelected.put(rowSetRecord.getRow().get(CyIdentifiable.SUID, Long.class), (Boolean) rowSetRecord.getValue());
-				}
-				else{
-					suidMapUnselected.put(rowSetRecord.getRow().get(CyIdentifiable.SUID, Long.class), (Boolean) rowSetRecord.getValue());
-				}
-			}
-		}
-
 		final String pKeyName = dataTable.getPrimaryKey().getName();
-		final int rowCount = getRowCount();
-		for(int i=0; i<rowCount; i++) {
-			//getting the row from data table solves the problem with hidden or moved SUID column. However, since the rows might be sorted we need to convert the index to model
-			int modelRow = convertRowIndexToModel(i);
-			final ValidatedObjectAndEditString tableKey = (ValidatedObjectAndEditString) model.getValueAt(modelRow, pKeyName );
-			Long pk = null;
-			try{
-				// TODO: Temp fix: is it a requirement that all CyTables have a Long SUID column as PK?
-				pk = Long.parseLong(tableKey.getEditString());
-			} catch (NumberFormatException nfe) {
-				System.out.println("Error parsing long from table " + getName() + ": " + nfe.getMessage());
-			}
-			if(pk != null) {
-				if (suidMapSelected.keySet().contains(pk)){
-					addRowSelectionInterval(i, i);
-				}else if (suidMapUnselected.keySet().contains(pk)){
-					removeRowSelectionInterval(i, i);
-				}
-			}
+		final int rowCount = model.getRowCount();
+		for (final RowSetRecord rowSetRecord : rows) {
+			if (!rowSetRecord.getColumn().equals(CyNetwork.SELECTED))
+				continue;
+
+			// look the row up by its primary key instead of scanning the whole table
+			final int modelRow = model.getRowIndex(rowSetRecord.getRow().getRaw(pKeyName));
+			if (modelRow < 0 || modelRow >= rowCount)
+				continue;
+
+			final int viewRow = convertRowIndexToView(modelRow);
+			if (viewRow < 0)
+				continue;
+
+			if (Boolean.TRUE.equals(rowSetRecord.getValue()))
+				addRowSelectionInterval(viewRow, viewRow);
+			else
+				removeRowSelectionInterval(viewRow, viewRow);
 		}
 	}
 }
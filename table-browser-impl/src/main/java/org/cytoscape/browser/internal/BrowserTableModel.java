@@ -26,6 +26,7 @@ package org.cytoscape.browser.internal;
 
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -44,6 +45,7 @@ import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyRow;
 import org.cytoscape.model.CyTable;
 import org.cytoscape.model.CyTableManager;
+import org.cytoscape.model.events.RowSetRecord;
 import org.cytoscape.model.events.RowsCreatedEvent;
 import org.cytoscape.model.events.RowsCreatedListener;
 
@@ -52,6 +54,14 @@ public final class BrowserTableModel extends AbstractTableModel implements RowsC
 
 	private static final long serialVersionUID = -517521404005631245L;
 
+	// Number of slots in the cell cache; a power of two comfortably larger than the cells of a viewport
+	private static final int CELL_CACHE_SIZE = 8192;
+
+	// Primary keys are stored in pages of 2^PAGE_SHIFT rows so adding rows never copies the keys
+	private static final int PAGE_SHIFT = 12;
+	private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+
 	private final CyTable dataTable;
 	private final Class<? extends CyIdentifiable> tableType;
 	private final EquationCompiler compiler;
@@ -62,12 +72,20 @@ public final class BrowserTableModel extends AbstractTableModel implements RowsC
 	private boolean regularViewMode;
 
 	private List<String> attrNames;
-	
-	private Collection<CyRow> selectedRows = null;
 
-	private Object[] rowIndexToPrimaryKey;
+	private Object[][] rowIndexToPrimaryKey;
 	private int maxRowIndex;
+	private final Map<Object, Integer> primaryKeyToRowIndex;
+
+	// Indices (into rowIndexToPrimaryKey) of the selected rows, maintained from RowsSetEvents once initialized
+	private final BitSet selectedRowIndices;
+	private boolean selectedRowIndicesInitialized;
+
+	// Compact array of the set bits of selectedRowIndices; null when it has to be rebuilt
+	private int[] selectedRowIndexArray;
 
+	// Direct-mapped cache of the values shown in the cells painted last
+	private final CachedCell[] cellCache;
 
 
 	public BrowserTableModel(final CyTable dataTable, final Class<? extends CyIdentifiable> tableType, final EquationCompiler compiler,
@@ -82,11 +100,37 @@ public final class BrowserTableModel extends AbstractTableModel implements RowsC
 		
 		// add each row to an array to allow fast lookup from an index
 		final Collection<CyRow> rows = dataTable.getAllRows();
-		this.rowIndexToPrimaryKey = new Object[rows.size()]; 
+		this.rowIndexToPrimaryKey = new Object[(rows.size() >> PAGE_SHIFT) + 1][];
+		this.primaryKeyToRowIndex = new HashMap<Object, Integer>(rows.size() * 4 / 3 + 1);
 		this.maxRowIndex = 0;
 		final String primaryKey = dataTable.getPrimaryKey().getName();
 		for ( CyRow row : rows ) 
-			rowIndexToPrimaryKey[maxRowIndex++] = row.getRaw(primaryKey);
+			addRowIndex(row.getRaw(primaryKey));
+
+		this.selectedRowIndices = new BitSet(maxRowIndex);
+		this.selectedRowIndicesInitialized = false;
+		this.selectedRowIndexArray = null;
+		this.cellCache = new CachedCell[CELL_CACHE_SIZE];
+	}
+
+	private void addRowIndex(final Object primaryKey) {
+		final int page = maxRowIndex >> PAGE_SHIFT;
+		if (page == rowIndexToPrimaryKey.length) {
+			final Object[][] newPages = new Object[page * 2][];
+			System.arraycopy(rowIndexToPrimaryKey, 0, newPages, 0, page);
+			rowIndexToPrimaryKey = newPages;
+		}
+		if (rowIndexToPrimaryKey[page] == null)
+			rowIndexToPrimaryKey[page] = new Object[PAGE_SIZE];
+
+		primaryKeyToRowIndex.put(primaryKey, maxRowIndex);
+		rowIndexToPrimaryKey[page][maxRowIndex & PAGE_MASK] = primaryKey;
+		maxRowIndex++;
+	}
+
+	// also called by the row sorter while it reads its keys in the background
+	private synchronized Object getPrimaryKey(final int rowIndex) {
+		return rowIndexToPrimaryKey[rowIndex >> PAGE_SHIFT][rowIndex & PAGE_MASK];
 	}
 
 	private List<String> getAttributeNames(CyTable table) {
@@ -120,9 +164,9 @@ public final class BrowserTableModel extends AbstractTableModel implements RowsC
 
 		// Show selection mode OR all rows
 		if (regularViewMode)
-			return dataTable.getMatchingRows(CyNetwork.SELECTED, Boolean.TRUE).size();
+			return getSelectedRowIndexArray().length;
 		else
-			return dataTable.getRowCount();
+			return Math.min(dataTable.getRowCount(), getIndexedRowCount());
 
 	}
 
@@ -135,7 +179,7 @@ public final class BrowserTableModel extends AbstractTableModel implements RowsC
 
 	public Object getValueAt(final int rowIndex, final String columnName) {
 		final CyRow row = getCyRow(rowIndex);
-		return getValidatedObjectAndEditString(row, columnName);
+		return getCachedValue(rowIndex, row, columnName);
 	}
 
 	@Override
@@ -143,7 +187,7 @@ public final class BrowserTableModel extends AbstractTableModel implements RowsC
 		final String columnName = getColumnName(columnIndex);
 		final CyRow row = getCyRow(rowIndex);	
 		
-		return getValidatedObjectAndEditString(row, columnName);
+		return getCachedValue(rowIndex, row, columnName);
 	}
 
 	CyColumn getColumn(final int columnIndex)  {
@@ -160,25 +204,121 @@ public final class BrowserTableModel extends AbstractTableModel implements RowsC
 
 	public CyRow getCyRow(final int rowIndex) {
 		if (regularViewMode) {
-			if (selectedRows == null)
-				selectedRows = dataTable.getMatchingRows(CyNetwork.SELECTED, true);
-
-			int count = 0;
-			CyRow cyRow = null;
-			for (final CyRow selectedRow : selectedRows) {
-				if (count == rowIndex) {
-					cyRow = selectedRow;
-					break;
-				}
-				++count;
-			}
+			final int[] selectedRowIndexArray = getSelectedRowIndexArray();
+			if (rowIndex < 0 || rowIndex >= selectedRowIndexArray.length)
+				return null;
 
-			return cyRow;
+			return dataTable.getRow(getPrimaryKey(selectedRowIndexArray[rowIndex]));
 		} else {
-			return dataTable.getRow(rowIndexToPrimaryKey[rowIndex]);
+			if (rowIndex < 0 || rowIndex >= getIndexedRowCount())
+				return null;
+
+			return dataTable.getRow(getPrimaryKey(rowIndex));
 		}
 	}
 
+	private synchronized int getIndexedRowCount() {
+		return maxRowIndex;
+	}
+
+	/**
+	 * Returns the index of the row with the given primary key in "show all" mode, or -1 if the table has
+	 * no such row.
+	 */
+	synchronized int getRowIndex(final Object primaryKey) {
+		final Integer rowIndex = primaryKeyToRowIndex.get(primaryKey);
+		return rowIndex == null ? -1 : rowIndex;
+	}
+
+	/**
+	 * Returns the indices (into the rows of "show all" mode) of the selected rows in ascending order. The
+	 * selection is read from the table the first time only; afterwards it is kept up to date by
+	 * {@link #updateSelectedRows(Collection)}.
+	 */
+	private synchronized int[] getSelectedRowIndexArray() {
+		if (!selectedRowIndicesInitialized) {
+			selectedRowIndices.clear();
+			final String primaryKey = dataTable.getPrimaryKey().getName();
+			for (final CyRow row : dataTable.getMatchingRows(CyNetwork.SELECTED, Boolean.TRUE)) {
+				final Integer rowIndex = primaryKeyToRowIndex.get(row.getRaw(primaryKey));
+				if (rowIndex != null)
+					selectedRowIndices.set(rowIndex);
+			}
+			selectedRowIndicesInitialized = true;
+			selectedRowIndexArray = null;
+		}
+
+		if (selectedRowIndexArray == null) {
+			final int[] indices = new int[selectedRowIndices.cardinality()];
+			int i = 0;
+			for (int rowIndex = selectedRowIndices.nextSetBit(0); rowIndex >= 0;
+			     rowIndex = selectedRowIndices.nextSetBit(rowIndex + 1))
+				indices[i++] = rowIndex;
+			selectedRowIndexArray = indices;
+		}
+
+		return selectedRowIndexArray;
+	}
+
+	/**
+	 * Applies the changes of the "selected" column to the selection index.
+	 * @return true if the selection of any row has changed
+	 */
+	synchronized boolean updateSelectedRows(final Collection<RowSetRecord> records) {
+		if (!selectedRowIndicesInitialized)
+			return false;
+
+		final String primaryKey = dataTable.getPrimaryKey().getName();
+		boolean changed = false;
+		for (final RowSetRecord record : records) {
+			if (!record.getColumn().equals(CyNetwork.SELECTED))
+				continue;
+
+			final Integer rowIndex = primaryKeyToRowIndex.get(record.getRow().getRaw(primaryKey));
+			if (rowIndex == null)
+				continue;
+
+			final boolean selected = Boolean.TRUE.equals(record.getValue());
+			if (selectedRowIndices.get(rowIndex) != selected) {
+				selectedRowIndices.set(rowIndex, selected);
+				changed = true;
+			}
+		}
+
+		if (changed)
+			selectedRowIndexArray = null;
+
+		return changed;
+	}
+
+	/**
+	 * Returns the value of a cell, reusing the value created when the cell was last painted as long as
+	 * the raw value of the cell is unchanged.  Equations are always evaluated again.
+	 */
+	private ValidatedObjectAndEditString getCachedValue(final int rowIndex, final CyRow row,
+	                                                    final String columnName)
+	{
+		if (row == null)
+			return null;
+
+		final Object raw = row.getRaw(columnName);
+		if (raw == null || raw instanceof Equation)
+			return getValidatedObjectAndEditString(row, columnName);
+
+		int hash = rowIndex * 0x9E3779B9 + columnName.hashCode();
+		hash ^= hash >>> 16;
+		final int slot = hash & (CELL_CACHE_SIZE - 1);
+
+		final CachedCell cell = cellCache[slot];
+		if (cell != null && cell.row == row && cell.raw == raw && cell.columnName.equals(columnName))
+			return cell.value;
+
+		final ValidatedObjectAndEditString value = getValidatedObjectAndEditString(row, columnName);
+		cellCache[slot] = new CachedCell(row, columnName, raw, value);
+
+		return value;
+	}
+
 
 	private ValidatedObjectAndEditString getValidatedObjectAndEditString(final CyRow row,
 			final String columnName)
@@ -264,7 +404,7 @@ public final class BrowserTableModel extends AbstractTableModel implements RowsC
 		}
 	}
 
-	private static Object getColumnValue(final CyRow row, final String columnName) {
+	static Object getColumnValue(final CyRow row, final String columnName) {
 		final CyColumn column = row.getTable().getColumn(columnName);
 		if (column.getType() == List.class) {
 			final Class<?> listElementType = column.getListElementType();
@@ -279,16 +419,31 @@ public final class BrowserTableModel extends AbstractTableModel implements RowsC
 		if(!e.getSource().equals(this.dataTable))
 			return ;
 
-		selectedRows = null;
-
-		// add new rows to rowIndexToPrimaryKey array
-		Object[] newRowIndex = new Object[rowIndexToPrimaryKey.length + e.getPayloadCollection().size()];
-		System.arraycopy(rowIndexToPrimaryKey,0,newRowIndex,0,rowIndexToPrimaryKey.length);
-		rowIndexToPrimaryKey = newRowIndex;
-		for ( Object pk : e.getPayloadCollection() )
-			rowIndexToPrimaryKey[maxRowIndex++] = pk;
+		// append the new rows to the row index; only the rows in the visible window are read afterwards
+		final int firstNewRowIndex = maxRowIndex;
+		boolean selectionChanged = false;
+		final CyColumn selectedColumn = dataTable.getColumn(CyNetwork.SELECTED);
+		final boolean checkSelected = selectedRowIndicesInitialized && selectedColumn != null
+			&& selectedColumn.getType() == Boolean.class;
+		for ( Object pk : e.getPayloadCollection() ) {
+			if (primaryKeyToRowIndex.containsKey(pk))
+				continue;
+
+			// new rows may already be selected
+			if (checkSelected && Boolean.TRUE.equals(dataTable.getRow(pk).get(CyNetwork.SELECTED, Boolean.class))) {
+				selectedRowIndices.set(maxRowIndex);
+				selectedRowIndexArray = null;
+				selectionChanged = true;
+			}
+			addRowIndex(pk);
+		}
 
-		fireTableDataChanged();
+		if (regularViewMode) {
+			if (selectionChanged)
+				fireTableDataChanged();
+		} else if (maxRowIndex > firstNewRowIndex) {
+			fireTableRowsInserted(firstNewRowIndex, maxRowIndex - 1);
+		}
 	}
 
 	/**
@@ -466,10 +621,6 @@ public final class BrowserTableModel extends AbstractTableModel implements RowsC
 		return column.isPrimaryKey();
 	}
 
-	void clearSelectedRows() {
-		selectedRows = null;
-	}
-
 	void setColumnName(int index, String name) {
 		attrNames.set(index, name);
 	}
@@ -485,4 +636,19 @@ public final class BrowserTableModel extends AbstractTableModel implements RowsC
 	public Class<? extends CyIdentifiable> getTableType() {
 		return tableType;
 	}
+
+	private static final class CachedCell {
+		final CyRow row;
+		final String columnName;
+		final Object raw;
+		final ValidatedObjectAndEditString value;
+
+		CachedCell(final CyRow row, final String columnName, final Object raw,
+		           final ValidatedObjectAndEditString value) {
+			this.row = row;
+			this.columnName = columnName;
+			this.raw = raw;
+			this.value = value;
+		}
+	}
 }
@@ -0,0 +1,567 @@
+package org.cytoscape.browser.internal;
+
+/*
+ * #%L
+ * Cytoscape Table Browser Impl (table-browser-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.SwingWorker;
+
+import org.cytoscape.equations.Equation;
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Row sorter for the table browser that sorts on a background thread.
+ * <p>
+ * Instead of comparing the cell values the model creates for painting, the sorter copies the
+ * values of each sort column into a primitive array (long, double or String, depending on the
+ * column type) and sorts an array of row indices over it.  The result is kept as a permutation
+ * array.  Until a sort has finished the rows are shown in their previous order, and rows added to
+ * the model in the meantime are shown at the end, so the event dispatch thread never waits for a
+ * sort.  Empty cells come first, then cells whose equation could not be evaluated, then the values;
+ * booleans sort true before false and strings ignore case.
+ */
+final class BrowserTableRowSorter extends RowSorter<BrowserTableModel> {
+
+	private static final Logger logger = LoggerFactory.getLogger(BrowserTableRowSorter.class);
+
+	private static final int MAX_SORT_KEYS = 3;
+
+	// Ranks of the cells of a sort column
+	private static final byte RANK_EMPTY = 0;
+	private static final byte RANK_ERROR = 1;
+	private static final byte RANK_VALUE = 2;
+
+	// Runs shorter than this are sorted by insertion sort
+	private static final int INSERTION_SORT_THRESHOLD = 32;
+
+	// How many rows are read between checks for a cancelled sort
+	private static final int CANCEL_CHECK_INTERVAL = 8192;
+
+	private final BrowserTableModel model;
+
+	private List<SortKey> sortKeys;
+
+	// Maps view to model indices for the first viewToModel.length rows; null if the rows are not sorted
+	private int[] viewToModel;
+
+	// Inverse of viewToModel, built on demand
+	private int[] modelToView;
+
+	private SortWorker worker;
+
+	BrowserTableRowSorter(final BrowserTableModel model) {
+		this.model = model;
+		this.sortKeys = Collections.emptyList();
+	}
+
+	@Override
+	public BrowserTableModel getModel() {
+		return model;
+	}
+
+	@Override
+	public void toggleSortOrder(final int column) {
+		checkColumn(column);
+
+		final List<SortKey> keys = new ArrayList<SortKey>(sortKeys);
+		int index;
+		for (index = keys.size() - 1; index >= 0; index--) {
+			if (keys.get(index).getColumn() == column)
+				break;
+		}
+
+		if (index == -1) {
+			// Key doesn't exist
+			keys.add(0, new SortKey(column, SortOrder.ASCENDING));
+		} else if (index == 0) {
+			// It's the primary sorting key, toggle it
+			final SortOrder order = keys.get(0).getSortOrder() == SortOrder.ASCENDING ? SortOrder.DESCENDING
+			                                                                          : SortOrder.ASCENDING;
+			keys.set(0, new SortKey(column, order));
+		} else {
+			// It's not the first, but was sorted on, remove old entry, insert as first with ascending.
+			keys.remove(index);
+			keys.add(0, new SortKey(column, SortOrder.ASCENDING));
+		}
+
+		if (keys.size() > MAX_SORT_KEYS)
+			keys.subList(MAX_SORT_KEYS, keys.size()).clear();
+
+		setSortKeys(keys);
+	}
+
+	@Override
+	public int convertRowIndexToModel(final int index) {
+		if (index < 0 || index >= getViewRowCount())
+			throw new IndexOutOfBoundsException("Invalid index");
+
+		if (viewToModel == null || index >= viewToModel.length)
+			return index;
+
+		return viewToModel[index];
+	}
+
+	@Override
+	public int convertRowIndexToView(final int index) {
+		if (index < 0 || index >= getModelRowCount())
+			throw new IndexOutOfBoundsException("Invalid index");
+
+		if (viewToModel == null || index >= viewToModel.length)
+			return index;
+
+		if (modelToView == null) {
+			final int[] inverse = new int[viewToModel.length];
+			for (int i = 0; i < viewToModel.length; i++)
+				inverse[viewToModel[i]] = i;
+			modelToView = inverse;
+		}
+
+		return modelToView[index];
+	}
+
+	@Override
+	public void setSortKeys(final List<? extends SortKey> keys) {
+		final List<SortKey> newKeys;
+		if (keys == null || keys.isEmpty()) {
+			newKeys = Collections.emptyList();
+		} else {
+			final int columnCount = model.getColumnCount();
+			newKeys = new ArrayList<SortKey>(keys.size());
+			for (final SortKey key : keys) {
+				if (key == null || key.getColumn() < 0 || key.getColumn() >= columnCount)
+					throw new IllegalArgumentException("Invalid SortKey");
+				newKeys.add(key);
+			}
+		}
+
+		if (newKeys.equals(sortKeys))
+			return;
+
+		sortKeys = Collections.unmodifiableList(newKeys);
+		fireSortOrderChanged();
+		sort();
+	}
+
+	@Override
+	public List<? extends SortKey> getSortKeys() {
+		return sortKeys;
+	}
+
+	@Override
+	public int getViewRowCount() {
+		return getModelRowCount();
+	}
+
+	@Override
+	public int getModelRowCount() {
+		final int rowCount = model.getRowCount();
+		if (viewToModel != null && viewToModel.length > rowCount)
+			adaptToRowCount(rowCount);
+
+		return rowCount;
+	}
+
+	@Override
+	public void modelStructureChanged() {
+		// Same as DefaultRowSorter: the columns may have changed, so the sort keys are dropped.
+		cancelSort();
+		viewToModel = null;
+		modelToView = null;
+		if (!sortKeys.isEmpty()) {
+			sortKeys = Collections.emptyList();
+			fireSortOrderChanged();
+		}
+	}
+
+	@Override
+	public void allRowsChanged() {
+		rowsChanged();
+	}
+
+	@Override
+	public void rowsInserted(final int firstRow, final int endRow) {
+		rowsChanged();
+	}
+
+	@Override
+	public void rowsDeleted(final int firstRow, final int endRow) {
+		rowsChanged();
+	}
+
+	@Override
+	public void rowsUpdated(final int firstRow, final int endRow) {
+		if (!sortKeys.isEmpty())
+			sort();
+	}
+
+	@Override
+	public void rowsUpdated(final int firstRow, final int endRow, final int column) {
+		for (final SortKey key : sortKeys) {
+			if (key.getColumn() == column) {
+				sort();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns true while a sort is running in the background.
+	 */
+	boolean isSorting() {
+		return worker != null;
+	}
+
+	private void rowsChanged() {
+		adaptToRowCount(model.getRowCount());
+		if (!sortKeys.isEmpty())
+			sort();
+	}
+
+	/**
+	 * Keeps the current order valid for a changed number of rows: indices of rows that no longer
+	 * exist are dropped, and new rows are placed at the end until the next sort has finished.
+	 */
+	private void adaptToRowCount(final int rowCount) {
+		if (viewToModel == null || viewToModel.length == rowCount)
+			return;
+
+		final int[] adapted = new int[rowCount];
+		int size = 0;
+		for (final int modelIndex : viewToModel) {
+			if (modelIndex < rowCount)
+				adapted[size++] = modelIndex;
+		}
+		for (int modelIndex = viewToModel.length; size < rowCount; modelIndex++)
+			adapted[size++] = modelIndex;
+
+		viewToModel = adapted;
+		modelToView = null;
+	}
+
+	private void checkColumn(final int column) {
+		if (column < 0 || column >= model.getColumnCount())
+			throw new IndexOutOfBoundsException("column beyond range of TableModel");
+	}
+
+	private void cancelSort() {
+		if (worker != null) {
+			worker.cancel(false);
+			worker = null;
+		}
+	}
+
+	/**
+	 * Starts sorting the rows by the current sort keys in the background, replacing any sort still running.
+	 */
+	private void sort() {
+		cancelSort();
+
+		if (sortKeys.isEmpty()) {
+			if (viewToModel != null)
+				installOrder(null);
+			return;
+		}
+
+		// Read the column names and types now; the columns may change while the sort is running.
+		final List<SortColumn> columns = new ArrayList<SortColumn>(sortKeys.size());
+		for (final SortKey key : sortKeys) {
+			if (key.getSortOrder() == SortOrder.UNSORTED)
+				continue;
+
+			final CyColumn column = model.getColumnByModelIndex(key.getColumn());
+			if (column != null)
+				columns.add(new SortColumn(column.getName(), column.getType(),
+				                           key.getSortOrder() == SortOrder.DESCENDING));
+		}
+
+		worker = new SortWorker(columns, model.getRowCount());
+		worker.execute();
+	}
+
+	private void installOrder(final int[] newViewToModel) {
+		final int[] lastViewToModel;
+		if (viewToModel != null) {
+			lastViewToModel = viewToModel;
+		} else {
+			lastViewToModel = new int[model.getRowCount()];
+			for (int i = 0; i < lastViewToModel.length; i++)
+				lastViewToModel[i] = i;
+		}
+
+		viewToModel = newViewToModel;
+		modelToView = null;
+		adaptToRowCount(model.getRowCount());
+		fireRowSorterChanged(lastViewToModel);
+	}
+
+	/**
+	 * Returns the order of the first rowCount rows of the model by the given columns, or null if
+	 * the sort has been cancelled.
+	 */
+	static int[] sortRows(final BrowserTableModel model, final List<SortColumn> columns, final int rowCount,
+	                      final SwingWorker<?, ?> worker)
+	{
+		int[] order = new int[rowCount];
+		for (int i = 0; i < rowCount; i++)
+			order[i] = i;
+
+		// The sort is stable, so sorting by the least significant key first gives the order by all keys.
+		int[] buffer = new int[rowCount];
+		for (int k = columns.size() - 1; k >= 0; k--) {
+			final RowKeys keys = readKeys(model, columns.get(k), rowCount, worker);
+			if (keys == null)
+				return null;
+
+			mergeSort(order, buffer, 0, rowCount, keys);
+			if (worker != null && worker.isCancelled())
+				return null;
+		}
+
+		return order;
+	}
+
+	private static RowKeys readKeys(final BrowserTableModel model, final SortColumn column, final int rowCount,
+	                                final SwingWorker<?, ?> worker)
+	{
+		final Class<?> type = column.type;
+		final boolean isLong = type == Long.class || type == Integer.class || type == Boolean.class;
+		final boolean isDouble = type == Double.class;
+
+		final byte[] ranks = new byte[rowCount];
+		final long[] longs = isLong ? new long[rowCount] : null;
+		final double[] doubles = isDouble ? new double[rowCount] : null;
+		final String[] strings = isLong || isDouble ? null : new String[rowCount];
+
+		for (int i = 0; i < rowCount; i++) {
+			if (worker != null && i % CANCEL_CHECK_INTERVAL == 0 && worker.isCancelled())
+				return null;
+
+			final CyRow row = model.getCyRow(i);
+			final Object raw = row == null ? null : row.getRaw(column.name);
+			if (raw == null) {
+				ranks[i] = RANK_EMPTY;
+				continue;
+			}
+
+			final Object value = raw instanceof Equation ? BrowserTableModel.getColumnValue(row, column.name) : raw;
+			if (value == null) {
+				ranks[i] = RANK_ERROR;
+			} else if (isLong) {
+				if (value instanceof Boolean)
+					longs[i] = ((Boolean) value) ? 0 : 1; // true first, as before
+				else if (value instanceof Number)
+					longs[i] = ((Number) value).longValue();
+				else {
+					ranks[i] = RANK_ERROR;
+					continue;
+				}
+				ranks[i] = RANK_VALUE;
+			} else if (isDouble) {
+				if (!(value instanceof Number)) {
+					ranks[i] = RANK_ERROR;
+					continue;
+				}
+				doubles[i] = ((Number) value).doubleValue();
+				ranks[i] = RANK_VALUE;
+			} else {
+				strings[i] = value.toString();
+				ranks[i] = RANK_VALUE;
+			}
+		}
+
+		if (isLong)
+			return new LongRowKeys(ranks, column.descending, longs);
+		if (isDouble)
+			return new DoubleRowKeys(ranks, column.descending, doubles);
+		return new StringRowKeys(ranks, column.descending, strings);
+	}
+
+	/**
+	 * Stable sort of order[from, to) by the given keys, using buffer as scratch space.
+	 */
+	private static void mergeSort(final int[] order, final int[] buffer, final int from, final int to,
+	                              final RowKeys keys)
+	{
+		final int length = to - from;
+		if (length < INSERTION_SORT_THRESHOLD) {
+			for (int i = from + 1; i < to; i++) {
+				final int row = order[i];
+				int j = i - 1;
+				while (j >= from && keys.compare(order[j], row) > 0) {
+					order[j + 1] = order[j];
+					j--;
+				}
+				order[j + 1] = row;
+			}
+			return;
+		}
+
+		final int middle = (from + to) >>> 1;
+		mergeSort(order, buffer, from, middle, keys);
+		mergeSort(order, buffer, middle, to, keys);
+
+		// Already in order
+		if (keys.compare(order[middle - 1], order[middle]) <= 0)
+			return;
+
+		System.arraycopy(order, from, buffer, from, length);
+		int left = from;
+		int right = middle;
+		for (int i = from; i < to; i++) {
+			if (right >= to || (left < middle && keys.compare(buffer[left], buffer[right]) <= 0))
+				order[i] = buffer[left++];
+			else
+				order[i] = buffer[right++];
+		}
+	}
+
+	static final class SortColumn {
+		final String name;
+		final Class<?> type;
+		final boolean descending;
+
+		SortColumn(final String name, final Class<?> type, final boolean descending) {
+			this.name = name;
+			this.type = type;
+			this.descending = descending;
+		}
+	}
+
+	/**
+	 * The keys of one sort column, indexed by model row.
+	 */
+	private static abstract class RowKeys {
+		private final byte[] ranks;
+		private final boolean descending;
+
+		RowKeys(final byte[] ranks, final boolean descending) {
+			this.ranks = ranks;
+			this.descending = descending;
+		}
+
+		final int compare(final int row1, final int row2) {
+			int result = ranks[row1] - ranks[row2];
+			if (result == 0 && ranks[row1] == RANK_VALUE)
+				result = compareValues(row1, row2);
+
+			return descending ? -result : result;
+		}
+
+		abstract int compareValues(final int row1, final int row2);
+	}
+
+	private static final class LongRowKeys extends RowKeys {
+		private final long[] values;
+
+		LongRowKeys(final byte[] ranks, final boolean descending, final long[] values) {
+			super(ranks, descending);
+			this.values = values;
+		}
+
+		@Override
+		int compareValues(final int row1, final int row2) {
+			final long l1 = values[row1];
+			final long l2 = values[row2];
+			if (l1 < l2)
+				return -1;
+			return l1 > l2 ? +1 : 0;
+		}
+	}
+
+	private static final class DoubleRowKeys extends RowKeys {
+		private final double[] values;
+
+		DoubleRowKeys(final byte[] ranks, final boolean descending, final double[] values) {
+			super(ranks, descending);
+			this.values = values;
+		}
+
+		@Override
+		int compareValues(final int row1, final int row2) {
+			final double d1 = values[row1];
+			final double d2 = values[row2];
+			if (d1 < d2)
+				return -1;
+			return d1 > d2 ? +1 : 0;
+		}
+	}
+
+	private static final class StringRowKeys extends RowKeys {
+		private final String[] values;
+
+		StringRowKeys(final byte[] ranks, final boolean descending, final String[] values) {
+			super(ranks, descending);
+			this.values = values;
+		}
+
+		@Override
+		int compareValues(final int row1, final int row2) {
+			return values[row1].compareToIgnoreCase(values[row2]);
+		}
+	}
+
+	private final class SortWorker extends SwingWorker<int[], Void> {
+		private final List<SortColumn> columns;
+		private final int rowCount;
+
+		SortWorker(final List<SortColumn> columns, final int rowCount) {
+			this.columns = columns;
+			this.rowCount = rowCount;
+		}
+
+		@Override
+		protected int[] doInBackground() {
+			return sortRows(model, columns, rowCount, this);
+		}
+
+		@Override
+		protected void done() {
+			// A newer sort has replaced this one
+			if (worker != this || isCancelled())
+				return;
+
+			worker = null;
+			try {
+				final int[] order = get();
+				if (order != null)
+					installOrder(order);
+			} catch (InterruptedException e) {
+				logger.warn("Sorting the table was interrupted", e);
+			} catch (ExecutionException e) {
+				logger.warn("Could not sort the table", e.getCause());
+			}
+		}
+	}
+}
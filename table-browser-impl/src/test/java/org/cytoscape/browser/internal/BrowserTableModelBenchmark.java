@@ -0,0 +1,140 @@
+package org.cytoscape.browser.internal;
+
+/*
+ * #%L
+ * Cytoscape Table Browser Impl (table-browser-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.cytoscape.equations.EquationCompiler;
+import org.cytoscape.equations.Interpreter;
+import org.cytoscape.event.DummyCyEventHelper;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.CyTableManager;
+import org.cytoscape.model.SavePolicy;
+import org.cytoscape.model.events.RowsCreatedEvent;
+import org.cytoscape.model.internal.CyTableImpl;
+
+
+/**
+ * Measures the table browser model on a large table: creating the model, reading the cells of a
+ * visible window of rows, appending rows and sorting by each column type.
+ * Run with the number of rows as the only argument; the default is one million.
+ */
+public class BrowserTableModelBenchmark {
+
+	private static final String[] COL_NAMES = new String[] {CyNetwork.NAME, "degree", "weight", "flag"};
+	private static final Class[] COL_TYPES = new Class[] {String.class, Integer.class, Double.class, Boolean.class};
+	private static final int VISIBLE_ROWS = 50;
+	private static final int WINDOWS = 1000;
+	private static final int APPENDED_ROWS = 10000;
+
+	public static void main(String[] args) {
+		final int numRows = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		final BrowserTableModelBenchmark benchmark = new BrowserTableModelBenchmark();
+		// the first round only warms up the JIT
+		for (int round = 0; round < 2; round++)
+			benchmark.run(numRows, round > 0);
+	}
+
+	private void run(final int numRows, final boolean print) {
+		final CyTable table = new CyTableImpl("benchmark", CyNetwork.SUID, Long.class, true, true,
+		                                      SavePolicy.DO_NOT_SAVE, new DummyCyEventHelper(),
+		                                      mock(Interpreter.class), numRows);
+		for (int i = 0; i < COL_NAMES.length; i++)
+			table.createColumn(COL_NAMES[i], COL_TYPES[i], false);
+
+		final Random rand = new Random(numRows);
+		for (int i = 0; i < numRows; i++) {
+			final CyRow row = table.getRow(Long.valueOf(i));
+			for (int j = 0; j < COL_NAMES.length; j++)
+				row.set(COL_NAMES[j], getRandomValue(rand, COL_TYPES[j]));
+		}
+
+		long start = System.nanoTime();
+		final BrowserTableModel model = new BrowserTableModel(table, CyNode.class, mock(EquationCompiler.class),
+		                                                      mock(CyTableManager.class));
+		model.setShowAll(true);
+		final long create = System.nanoTime() - start;
+
+		// scroll to random windows, reading every visible cell like the renderer does
+		start = System.nanoTime();
+		long checksum = 0;
+		for (int w = 0; w < WINDOWS; w++) {
+			final int first = rand.nextInt(numRows - VISIBLE_ROWS);
+			for (int i = first; i < first + VISIBLE_ROWS; i++) {
+				for (int j = 0; j < model.getColumnCount(); j++) {
+					if (model.getValueAt(i, j) != null)
+						checksum++;
+				}
+			}
+		}
+		final long scroll = System.nanoTime() - start;
+
+		final List<Object> newKeys = new ArrayList<Object>(APPENDED_ROWS);
+		for (int i = numRows; i < numRows + APPENDED_ROWS; i++) {
+			table.getRow(Long.valueOf(i));
+			newKeys.add(Long.valueOf(i));
+		}
+		start = System.nanoTime();
+		model.handleEvent(new RowsCreatedEvent(table, newKeys));
+		final long append = System.nanoTime() - start;
+
+		final StringBuilder sorts = new StringBuilder();
+		for (int j = 0; j < COL_NAMES.length; j++) {
+			final List<BrowserTableRowSorter.SortColumn> columns = new ArrayList<BrowserTableRowSorter.SortColumn>();
+			columns.add(new BrowserTableRowSorter.SortColumn(COL_NAMES[j], COL_TYPES[j], false));
+			start = System.nanoTime();
+			final int[] order = BrowserTableRowSorter.sortRows(model, columns, model.getRowCount(), null);
+			checksum += order[0];
+			sorts.append(", sort ").append(COL_TYPES[j].getSimpleName()).append(" ")
+			     .append((System.nanoTime() - start) / 1000000).append("ms");
+		}
+
+		if (print) {
+			System.out.println(numRows + " rows: create " + create / 1000000 + "ms, scroll " + WINDOWS
+			                   + " windows " + scroll / 1000000 + "ms, append " + APPENDED_ROWS + " rows "
+			                   + append / 1000000 + "ms" + sorts + ", checksum " + checksum);
+		}
+	}
+
+	private static Object getRandomValue(final Random rand, final Class c) {
+		if ( c == Integer.class )
+			return Integer.valueOf( rand.nextInt(1000) );
+		else if ( c == Double.class )
+			return Double.valueOf( rand.nextDouble() );
+		else if ( c == Boolean.class )
+			return Boolean.valueOf( rand.nextBoolean() );
+		else if ( c == String.class )
+			return "node " + rand.nextInt(1000000);
+		else
+			return null;
+	}
+}
@@ -45,6 +45,7 @@ import org.cytoscape.model.CyTable;
 import org.cytoscape.model.CyTableManager;
 import org.cytoscape.model.SavePolicy;
 import org.cytoscape.model.events.RowSetRecord;
+import org.cytoscape.model.events.RowsCreatedEvent;
 import org.cytoscape.model.events.RowsSetEvent;
 import org.cytoscape.model.internal.CyTableImpl;
 import org.cytoscape.util.swing.OpenBrowser;
@@ -220,13 +221,17 @@ public class BrowserTableTest {
 		
 		
 		table.getRow((long)1).set(CyNetwork.SELECTED, true);
-		assertEquals(1, browserTable.getRowCount());
-		
-		btm.setShowAll(true);
 		RowSetRecord rsc = new RowSetRecord  (table.getRow((long)1), CyNetwork.SELECTED, (Object) true , (Object) true );
 		List<RowSetRecord> rscs = new ArrayList<RowSetRecord>();
 		rscs.add(rsc);
+
+		// the selected-only view is maintained from the RowsSetEvents
+		browserTable.handleEvent(new RowsSetEvent(table, rscs));
+		assertEquals(1, browserTable.getRowCount());
+		assertEquals(table.getRow((long)1), btm.getCyRow(0));
+		assertEquals(null, btm.getCyRow(1));
 		
+		btm.setShowAll(true);
 		browserTable.handleEvent(new RowsSetEvent(table, rscs));
 		assertEquals(1, browserTable.getSelectedRowCount());
 
@@ -254,4 +259,71 @@ public class BrowserTableTest {
 		assertEquals(3, browserTable.getSelectedRowCount());
 
 	}
+
+	@Test
+	public void testSelectedRowIndex(){
+		btm.setShowAll(false);
+		assertEquals(0, btm.getRowCount());
+
+		List<RowSetRecord> rscs = new ArrayList<RowSetRecord>();
+		for (long id = 3; id >= 1; id--) {
+			table.getRow(id).set(CyNetwork.SELECTED, true);
+			rscs.add(new RowSetRecord(table.getRow(id), CyNetwork.SELECTED, (Object) true, (Object) true));
+		}
+		browserTable.handleEvent(new RowsSetEvent(table, rscs));
+		assertEquals(3, btm.getRowCount());
+
+		// selected rows keep the order of the table, not the order of the events
+		for (int i = 1; i < 3; i++)
+			assertTrue(btm.getRowIndex(btm.getCyRow(i - 1).getRaw(CyNetwork.SUID)) < btm.getRowIndex(btm.getCyRow(i).getRaw(CyNetwork.SUID)));
+
+		table.getRow((long)2).set(CyNetwork.SELECTED, false);
+		rscs = new ArrayList<RowSetRecord>();
+		rscs.add(new RowSetRecord(table.getRow((long)2), CyNetwork.SELECTED, (Object) false, (Object) false));
+		browserTable.handleEvent(new RowsSetEvent(table, rscs));
+		assertEquals(2, btm.getRowCount());
+		assertFalse(table.getRow((long)2).equals(btm.getCyRow(0)));
+		assertFalse(table.getRow((long)2).equals(btm.getCyRow(1)));
+
+		// a newly created row that is already selected shows up without a rescan
+		table.getRow((long)4).set(CyNetwork.SELECTED, true);
+		List<Object> newKeys = new ArrayList<Object>();
+		newKeys.add((long)4);
+		btm.handleEvent(new RowsCreatedEvent(table, newKeys));
+		assertEquals(3, btm.getRowCount());
+		assertEquals(table.getRow((long)4), btm.getCyRow(2));
+	}
+
+	@Test
+	public void testCellValueCache(){
+		btm.setShowAll(true);
+		int nameIndex = btm.mapColumnNameToColumnIndex(CyNetwork.NAME);
+		int rowIndex = btm.getRowIndex((long)1);
+
+		Object first = btm.getValueAt(rowIndex, nameIndex);
+		assertTrue(first == btm.getValueAt(rowIndex, nameIndex));
+
+		table.getRow((long)1).set(CyNetwork.NAME, "renamed");
+		assertEquals("renamed", ((ValidatedObjectAndEditString) btm.getValueAt(rowIndex, nameIndex)).getValidatedObject());
+	}
+
+	@Test
+	public void testSortRows(){
+		btm.setShowAll(true);
+		// row 2 has no shared name, so it comes first
+		List<BrowserTableRowSorter.SortColumn> columns = new ArrayList<BrowserTableRowSorter.SortColumn>();
+		columns.add(new BrowserTableRowSorter.SortColumn(SHARED_NAME, String.class, false));
+		int[] order = BrowserTableRowSorter.sortRows(btm, columns, btm.getRowCount(), null);
+		assertEquals(3, order.length);
+		assertEquals(table.getRow((long)2), btm.getCyRow(order[0]));
+		assertEquals(table.getRow((long)3), btm.getCyRow(order[1]));
+		assertEquals(table.getRow((long)1), btm.getCyRow(order[2]));
+
+		columns.clear();
+		columns.add(new BrowserTableRowSorter.SortColumn(CyNetwork.SUID, Long.class, true));
+		order = BrowserTableRowSorter.sortRows(btm, columns, btm.getRowCount(), null);
+		assertEquals(table.getRow((long)3), btm.getCyRow(order[0]));
+		assertEquals(table.getRow((long)2), btm.getCyRow(order[1]));
+		assertEquals(table.getRow((long)1), btm.getCyRow(order[2]));
+	}
 }
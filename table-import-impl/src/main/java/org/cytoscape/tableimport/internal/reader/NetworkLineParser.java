@@ -31,6 +31,7 @@ import org.cytoscape.tableimport.internal.util.AttributeTypes;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -101,9 +102,10 @@ public class NetworkLineParser {
 
 		//edge = Cytoscape.getCyEdge(source, target, Semantics.INTERACTION, interaction, true, true);
 		CyEdge edge = network.addEdge(source, target, true);
-		network.getRow(edge).set("interaction", interaction);
+		final CyRow edgeRow = network.getRow(edge);
+		edgeRow.set("interaction", interaction);
 		String edgeName = network.getRow(source).get("name", String.class)+ " ("+interaction+") "+ network.getRow(target).get("name", String.class);
-		network.getRow(edge).set("name", edgeName);
+		edgeRow.set("name", edgeName);
 
 		edgeList.add(edge.getSUID());
 
@@ -132,7 +134,8 @@ public class NetworkLineParser {
 				// node does not exist yet, create it
 				node = network.addNode();
 				network.getRow(node).set("name", parts[nodeIndex]);
-				this.nMap.put(parts[nodeIndex], this.rootNetwork.getNode(node.getSUID()));
+				// Nodes of a subnetwork are the root network's nodes, no lookup needed.
+				this.nMap.put(parts[nodeIndex], node);
 			}
 			else {// already existed in parent network
 				CyNode parentNode = this.nMap.get(parts[nodeIndex]);
@@ -149,20 +152,21 @@ public class NetworkLineParser {
 	}
 
 	private void addEdgeAttributes(final CyEdge edge, final String[] parts) {
+		final CyRow row = network.getRow(edge);
 		for (int i = 0; i < parts.length; i++) {
 			if ((i != nmp.getSourceIndex()) && (i != nmp.getTargetIndex())
 			    && (i != nmp.getInteractionIndex()) && parts[i] != null ) {
 				if ((nmp.getImportFlag().length > i) && (nmp.getImportFlag()[i] == true)) {
-					mapAttribute(edge, parts[i].trim(), i);
+					mapAttribute(row, parts[i].trim(), i);
 				}
 			}
 		}
 	}
 
-	private void createColumn(final CyEdge edge, final String attributeName, Class<?> theType){
+	private void createColumn(final CyRow row, final String attributeName, Class<?> theType){
 		// If attribute does not exist, create it
-		if (network.getRow(edge).getTable().getColumn(attributeName) == null)
-			network.getRow(edge).getTable().createColumn(attributeName, theType, false);
+		if (row.getTable().getColumn(attributeName) == null)
+			row.getTable().createColumn(attributeName, theType, false);
 	}
 
 	/**
@@ -173,7 +177,7 @@ public class NetworkLineParser {
 	 * @param index
 	 */
 	//private void mapAttribute(final String key, final String entry, final int index) {
-	private void mapAttribute(final CyEdge edge, final String entry, final int index) {
+	private void mapAttribute(final CyRow row, final String entry, final int index) {
 
 		Byte type = nmp.getAttributeTypes()[index];
 
@@ -185,31 +189,31 @@ public class NetworkLineParser {
 			case AttributeTypes.TYPE_BOOLEAN:
 				//nmp.getAttributes()
 				//   .setAttribute(key, nmp.getAttributeNames()[index], new Boolean(entry));
-				createColumn(edge, nmp.getAttributeNames()[index],Boolean.class);
-				network.getRow(edge).set(nmp.getAttributeNames()[index], new Boolean(entry));
+				createColumn(row, nmp.getAttributeNames()[index],Boolean.class);
+				row.set(nmp.getAttributeNames()[index], new Boolean(entry));
 
 				break;
 
 			case AttributeTypes.TYPE_INTEGER:
 				//nmp.getAttributes()
 				//   .setAttribute(key, nmp.getAttributeNames()[index], new Integer(entry));
-				createColumn(edge, nmp.getAttributeNames()[index],Integer.class);
-				network.getRow(edge).set(nmp.getAttributeNames()[index], new Integer(entry));
+				createColumn(row, nmp.getAttributeNames()[index],Integer.class);
+				row.set(nmp.getAttributeNames()[index], new Integer(entry));
 
 				break;
 
 			case AttributeTypes.TYPE_FLOATING:
 				//nmp.getAttributes()
 				//   .setAttribute(key, nmp.getAttributeNames()[index], new Double(entry));
-				createColumn(edge, nmp.getAttributeNames()[index],Double.class);
-				network.getRow(edge).set(nmp.getAttributeNames()[index], new Double(entry));
+				createColumn(row, nmp.getAttributeNames()[index],Double.class);
+				row.set(nmp.getAttributeNames()[index], new Double(entry));
 
 				break;
 
 			case AttributeTypes.TYPE_STRING:
 				//nmp.getAttributes().setAttribute(key, nmp.getAttributeNames()[index], entry);
-				createColumn(edge, nmp.getAttributeNames()[index],String.class);
-				network.getRow(edge).set(nmp.getAttributeNames()[index], entry.trim());
+				createColumn(row, nmp.getAttributeNames()[index],String.class);
+				row.set(nmp.getAttributeNames()[index], entry.trim());
 
 				break;
 
@@ -218,18 +222,18 @@ public class NetworkLineParser {
 				Byte elementType = nmp.getListAttributeTypes()[index];
 				
 				// If the column does not exist, create it
-				if (network.getRow(edge).getTable().getColumn(nmp.getAttributeNames()[index]) == null) {
+				if (row.getTable().getColumn(nmp.getAttributeNames()[index]) == null) {
 					if (elementType == AttributeTypes.TYPE_BOOLEAN){
-						network.getRow(edge).getTable().createListColumn(nmp.getAttributeNames()[index], Boolean.class, false);
+						row.getTable().createListColumn(nmp.getAttributeNames()[index], Boolean.class, false);
 					}
 					else if (elementType == AttributeTypes.TYPE_INTEGER) {
-						network.getRow(edge).getTable().createListColumn(nmp.getAttributeNames()[index], Integer.class, false);
+						row.getTable().createListColumn(nmp.getAttributeNames()[index], Integer.class, false);
 					}
 					else if (elementType == AttributeTypes.TYPE_FLOATING) {
-						network.getRow(edge).getTable().createListColumn(nmp.getAttributeNames()[index], Double.class, false);
+						row.getTable().createListColumn(nmp.getAttributeNames()[index], Double.class, false);
 					}
 					else { // TYPE_STRING or undefined
-						network.getRow(edge).getTable().createListColumn(nmp.getAttributeNames()[index], String.class, false);
+						row.getTable().createListColumn(nmp.getAttributeNames()[index], String.class, false);
 					}
 				}
 				
@@ -240,7 +244,7 @@ public class NetworkLineParser {
 				//List curList = nmp.getAttributes()
 		        //          .getListAttribute(key, nmp.getAttributeNames()[index]);
 
-				List curList = network.getRow(edge).get(nmp.getAttributeNames()[index], List.class);
+				List curList = row.get(nmp.getAttributeNames()[index], List.class);
 
 				if (curList == null) {
 					curList = new ArrayList();
@@ -249,7 +253,7 @@ public class NetworkLineParser {
 				curList.addAll(buildList(entry, elementType));
 
 				//nmp.getAttributes().setListAttribute(key, nmp.getAttributeNames()[index], curList);
-				network.getRow(edge).set(nmp.getAttributeNames()[index], curList);
+				row.set(nmp.getAttributeNames()[index], curList);
 				
 				break;
 
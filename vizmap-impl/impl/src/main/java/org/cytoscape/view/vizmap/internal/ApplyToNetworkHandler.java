@@ -24,9 +24,11 @@ package org.cytoscape.view.vizmap.internal;
  * #L%
  */
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
@@ -74,10 +76,14 @@ public class ApplyToNetworkHandler extends AbstractApplyHandler<CyNetwork> {
 
 		final Map<VisualProperty<?>, VisualPropertyDependency<?>> dependencyMap = applyDependencies(netView);
 		
+		// Large view sets are evaluated in ranges on this pool; see ColumnMappingApplier
+		final ExecutorService rangeExe = Executors.newCachedThreadPool();
+		final ColumnMappingApplier applier = new ColumnMappingApplier(rangeExe, Runtime.getRuntime().availableProcessors());
+		
 		ExecutorService exe = Executors.newCachedThreadPool();
-		exe.submit(new ApplyMappingsTask(netView, nodeViews, lexManager.getNodeVisualProperties(), dependencyMap));
-		exe.submit(new ApplyMappingsTask(netView, edgeViews, lexManager.getEdgeVisualProperties(), dependencyMap));
-		exe.submit(new ApplyMappingsTask(netView, networkViewSet, lexManager.getNetworkVisualProperties(), dependencyMap));
+		exe.submit(new ApplyMappingsTask(netView, nodeViews, lexManager.getNodeVisualProperties(), dependencyMap, applier));
+		exe.submit(new ApplyMappingsTask(netView, edgeViews, lexManager.getEdgeVisualProperties(), dependencyMap, applier));
+		exe.submit(new ApplyMappingsTask(netView, networkViewSet, lexManager.getNetworkVisualProperties(), dependencyMap, applier));
 		
 		try {
 			exe.shutdown();
@@ -85,11 +91,86 @@ public class ApplyToNetworkHandler extends AbstractApplyHandler<CyNetwork> {
 		} catch (Exception ex) {
 			logger.warn("Create apply operation failed.", ex);
 		} finally {
-
+			rangeExe.shutdown();
 		}
 	}
 	
 
+	/**
+	 * Re-evaluates only the mappings on the given columns, and only for the
+	 * given views, all of which must be of the given target type.  Where a
+	 * mapping gives no value, the view gets the style default, which is what
+	 * a full apply() would show.  Dependencies are handled as in apply(), so
+	 * the views end up as after a full apply() as long as nothing else has
+	 * changed since the last one.
+	 * 
+	 * @param columnNames the changed column names, in lower case
+	 * @return true if at least one mapping uses one of the columns
+	 */
+	boolean applyColumns(final CyNetworkView netView, final Class<? extends CyIdentifiable> targetType,
+			final Collection<? extends View<? extends CyIdentifiable>> views, final Set<String> columnNames) {
+		final Map<VisualProperty<?>, VisualPropertyDependency<?>> dependencyMap = 
+				new HashMap<VisualProperty<?>, VisualPropertyDependency<?>>();
+		
+		for (final VisualPropertyDependency<?> dep : style.getAllVisualPropertyDependencies()) {
+			dependencyMap.put(dep.getParentVisualProperty(), dep);
+			
+			if (dep.isDependencyEnabled()) {
+				for (final VisualProperty<?> vp : dep.getVisualProperties())
+					dependencyMap.put(vp, dep);
+			}
+		}
+		
+		final List<VisualProperty<?>> mappedVPs = new ArrayList<VisualProperty<?>>();
+		final List<VisualMappingFunction<?, ?>> mappings = new ArrayList<VisualMappingFunction<?, ?>>();
+		final List<Object> defaultValues = new ArrayList<Object>();
+		
+		for (final VisualMappingFunction<?, ?> mapping : style.getAllVisualMappingFunctions()) {
+			final VisualProperty<?> vp = mapping.getVisualProperty();
+			
+			if (vp.getTargetDataType() != targetType
+					|| !columnNames.contains(mapping.getMappingColumnName().toLowerCase()))
+				continue;
+			
+			final VisualPropertyDependency<?> dep = dependencyMap.get(vp);
+			
+			if (dep == null) {
+				mappedVPs.add(vp);
+				mappings.add(mapping);
+				defaultValues.add(getDefaultValue(vp));
+			} else if (dep.isDependencyEnabled() && dep.getParentVisualProperty() == vp) {
+				// Same as applyDependencies(): the parent mapping and default drive all the dependent properties
+				final Object defaultValue = getDefaultValue(vp);
+				
+				for (final VisualProperty<?> depVP : dep.getVisualProperties()) {
+					mappedVPs.add(depVP);
+					mappings.add(mapping);
+					defaultValues.add(defaultValue);
+				}
+				mappedVPs.add(vp);
+				mappings.add(mapping);
+				defaultValues.add(defaultValue);
+			}
+		}
+		
+		if (mappings.isEmpty())
+			return false;
+		
+		// Deltas are small, so evaluate them on the calling thread
+		new ColumnMappingApplier(null, 1).apply(netView.getModel(), views, mappedVPs, mappings, defaultValues);
+		
+		return true;
+	}
+
+	/**
+	 * Returns the value a full apply() sets as the view default of the given visual property.
+	 */
+	private Object getDefaultValue(final VisualProperty<?> vp) {
+		final Object defaultValue = style.getDefaultValue(vp);
+		
+		return defaultValue != null ? defaultValue : vp.getDefault();
+	}
+
 	private void applyDefaultsInParallel(final CyNetworkView netView, final Collection<VisualProperty<?>> vps, final VisualLexicon lex) {
 		final ExecutorService exe = Executors.newCachedThreadPool();
 		
@@ -141,19 +222,25 @@ public class ApplyToNetworkHandler extends AbstractApplyHandler<CyNetwork> {
 		private final Collection<? extends View<? extends CyIdentifiable>> views;
 		private final Collection<VisualProperty<?>> visualProperties;
 		private final Map<VisualProperty<?>, VisualPropertyDependency<?>> dependencyMap;
+		private final ColumnMappingApplier applier;
 		
 		ApplyMappingsTask(final CyNetworkView netView,
 				final Collection<? extends View<? extends CyIdentifiable>> views,
 				final Collection<VisualProperty<?>> visualProperties,
-				final Map<VisualProperty<?>, VisualPropertyDependency<?>> dependencyMap) {
+				final Map<VisualProperty<?>, VisualPropertyDependency<?>> dependencyMap,
+				final ColumnMappingApplier applier) {
 			this.netView = netView;
 			this.views = views;
 			this.visualProperties = visualProperties;
 			this.dependencyMap = dependencyMap;
+			this.applier = applier;
 		}
 		
 		@Override
 		public void run() {
+			final List<VisualProperty<?>> mappedVPs = new ArrayList<VisualProperty<?>>();
+			final List<VisualMappingFunction<?, ?>> mappings = new ArrayList<VisualMappingFunction<?, ?>>();
+			
 			for (VisualProperty<?> vp : visualProperties) {
 				final VisualPropertyDependency<?> dep = dependencyMap.get(vp);
 				
@@ -163,16 +250,12 @@ public class ApplyToNetworkHandler extends AbstractApplyHandler<CyNetwork> {
 				final VisualMappingFunction<?, ?> mapping = style.getVisualMappingFunction(vp);
 
 				if (mapping != null) {
-					final CyNetwork net = netView.getModel();
-
-					for (final View<? extends CyIdentifiable> v : views) {
-						Object value = mapping.getMappedValue(net.getRow(v.getModel()));
-						
-						if (value != null)
-							v.setVisualProperty(vp, value);
-					}
+					mappedVPs.add(vp);
+					mappings.add(mapping);
 				}
 			}
+			
+			applier.apply(netView.getModel(), views, mappedVPs, mappings);
 		}
 	}
 	
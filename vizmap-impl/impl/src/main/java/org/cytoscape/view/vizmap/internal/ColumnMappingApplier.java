@@ -0,0 +1,232 @@
+package org.cytoscape.view.vizmap.internal;
+
+/*
+ * #%L
+ * Cytoscape VizMap Impl (vizmap-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.view.model.View;
+import org.cytoscape.view.model.VisualProperty;
+import org.cytoscape.view.vizmap.VisualMappingFunction;
+import org.cytoscape.view.vizmap.internal.mappings.MappedColumn;
+import org.cytoscape.view.vizmap.internal.mappings.VectorizedMapping;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies a set of mappings to many views of the same kind.  The rows of the
+ * views are looked up once, every mapped column is read once into a
+ * {@link MappedColumn}, and the mappings are evaluated over those arrays.
+ * Large view sets are split into ranges that are evaluated concurrently.
+ * The results are written back to the views on the calling thread, one
+ * visual property after the other, as before.
+ */
+final class ColumnMappingApplier {
+
+	private static final Logger logger = LoggerFactory.getLogger(ColumnMappingApplier.class);
+
+	/** Views are not split into ranges smaller than this. */
+	static final int MIN_RANGE_SIZE = 2000;
+
+	private final ExecutorService executor;
+	private final int maxRanges;
+
+	/**
+	 * @param executor runs all ranges but the last one, which is evaluated on
+	 *        the calling thread; may be null to evaluate everything on the
+	 *        calling thread
+	 * @param maxRanges the maximum number of ranges to split the views into
+	 */
+	ColumnMappingApplier(final ExecutorService executor, final int maxRanges) {
+		this.executor = executor;
+		this.maxRanges = executor == null ? 1 : Math.max(1, maxRanges);
+	}
+
+	/**
+	 * Evaluates the mappings for all views and sets the non-null results.
+	 * 
+	 * @param vps the visual properties to set
+	 * @param mappings the mapping of each visual property, at the same index
+	 */
+	void apply(final CyNetwork net, final Collection<? extends View<? extends CyIdentifiable>> views,
+			final List<VisualProperty<?>> vps, final List<VisualMappingFunction<?, ?>> mappings) {
+		apply(net, views, vps, mappings, null);
+	}
+
+	/**
+	 * Evaluates the mappings for all views and sets the results.
+	 * 
+	 * @param vps the visual properties to set
+	 * @param mappings the mapping of each visual property, at the same index
+	 * @param nullValues the value to set, for each visual property at the same
+	 *        index, where its mapping returns null; if nullValues is null, such
+	 *        views are left unchanged
+	 */
+	@SuppressWarnings("unchecked")
+	void apply(final CyNetwork net, final Collection<? extends View<? extends CyIdentifiable>> views,
+			final List<VisualProperty<?>> vps, final List<VisualMappingFunction<?, ?>> mappings,
+			final List<?> nullValues) {
+		final int size = views.size();
+		final int mappingCount = mappings.size();
+
+		if (size == 0 || mappingCount == 0)
+			return;
+
+		final View<? extends CyIdentifiable>[] viewArray = views.toArray(new View[size]);
+		final CyRow[] rows = new CyRow[size];
+		final CyRow firstRow = net.getRow(viewArray[0].getModel());
+		final CyTable table = firstRow == null ? null : firstRow.getTable();
+
+		// Mappings on the same column share one copy of its values.
+		final Map<String, MappedColumn> columnMap = new HashMap<String, MappedColumn>();
+		final MappedColumn[] mappingColumns = new MappedColumn[mappingCount];
+
+		for (int m = 0; m < mappingCount; m++) {
+			final VisualMappingFunction<?, ?> mapping = mappings.get(m);
+
+			if (!(mapping instanceof VectorizedMapping) || table == null)
+				continue;
+
+			final String columnName = mapping.getMappingColumnName();
+			MappedColumn mappedColumn = columnMap.get(columnName);
+
+			if (mappedColumn == null) {
+				final CyColumn column = table.getColumn(columnName);
+
+				if (column == null)
+					continue; // Nothing to map, as with getMappedValue()
+
+				final Class<?> listType = column.getType() == List.class ? column.getListElementType() : null;
+				mappedColumn = new MappedColumn(columnName, column.getType(), listType, size);
+				columnMap.put(columnName, mappedColumn);
+			}
+
+			mappingColumns[m] = mappedColumn;
+		}
+
+		final MappedColumn[] columns = columnMap.values().toArray(new MappedColumn[columnMap.size()]);
+		final Object[][] results = new Object[mappingCount][size];
+
+		final int rangeCount = Math.max(1, Math.min(maxRanges, size / MIN_RANGE_SIZE));
+		final int rangeSize = (size + rangeCount - 1) / rangeCount;
+		final List<Future<?>> futures = new ArrayList<Future<?>>(rangeCount - 1);
+
+		for (int from = 0; from < size; from += rangeSize) {
+			final int to = Math.min(size, from + rangeSize);
+			final EvaluateRangeTask task = new EvaluateRangeTask(net, viewArray, rows, columns, mappings,
+					mappingColumns, results, from, to);
+
+			if (to < size)
+				futures.add(executor.submit(task));
+			else
+				task.run();
+		}
+
+		try {
+			for (final Future<?> future : futures)
+				future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			logger.warn("Apply mappings was interrupted.", e);
+			return;
+		} catch (ExecutionException e) {
+			logger.warn("Could not evaluate mappings.", e.getCause());
+			return;
+		}
+
+		for (int m = 0; m < mappingCount; m++) {
+			final VisualProperty<?> vp = vps.get(m);
+			final Object[] values = results[m];
+			final Object nullValue = nullValues == null ? null : nullValues.get(m);
+
+			for (int i = 0; i < size; i++) {
+				final Object value = values[i] != null ? values[i] : nullValue;
+
+				if (value != null)
+					viewArray[i].setVisualProperty(vp, value);
+			}
+		}
+	}
+
+	private static final class EvaluateRangeTask implements Runnable {
+
+		private final CyNetwork net;
+		private final View<? extends CyIdentifiable>[] views;
+		private final CyRow[] rows;
+		private final MappedColumn[] columns;
+		private final List<VisualMappingFunction<?, ?>> mappings;
+		private final MappedColumn[] mappingColumns;
+		private final Object[][] results;
+		private final int from;
+		private final int to;
+
+		EvaluateRangeTask(final CyNetwork net, final View<? extends CyIdentifiable>[] views, final CyRow[] rows,
+				final MappedColumn[] columns, final List<VisualMappingFunction<?, ?>> mappings,
+				final MappedColumn[] mappingColumns, final Object[][] results, final int from, final int to) {
+			this.net = net;
+			this.views = views;
+			this.rows = rows;
+			this.columns = columns;
+			this.mappings = mappings;
+			this.mappingColumns = mappingColumns;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public void run() {
+			for (int i = from; i < to; i++)
+				rows[i] = net.getRow(views[i].getModel());
+
+			for (final MappedColumn column : columns)
+				column.read(rows, from, to);
+
+			for (int m = 0; m < mappingColumns.length; m++) {
+				final VisualMappingFunction<?, ?> mapping = mappings.get(m);
+				final Object[] values = results[m];
+
+				if (mapping instanceof VectorizedMapping) {
+					if (mappingColumns[m] != null)
+						((VectorizedMapping<?>) mapping).getMappedValues(mappingColumns[m], from, to, values);
+				} else {
+					for (int i = from; i < to; i++)
+						values[i] = mapping.getMappedValue(rows[i]);
+				}
+			}
+		}
+	}
+}
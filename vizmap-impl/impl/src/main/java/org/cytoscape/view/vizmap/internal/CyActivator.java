@@ -27,8 +27,10 @@ package org.cytoscape.view.vizmap.internal;
 import java.util.Properties;
 
 import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.model.events.RowsSetListener;
 import org.cytoscape.service.util.AbstractCyActivator;
 import org.cytoscape.service.util.CyServiceRegistrar;
+import org.cytoscape.view.model.CyNetworkViewManager;
 import org.cytoscape.view.presentation.RenderingEngineFactory;
 import org.cytoscape.view.vizmap.VisualMappingFunctionFactory;
 import org.cytoscape.view.vizmap.VisualStyleFactory;
@@ -60,6 +62,10 @@ public class CyActivator extends AbstractCyActivator {
 				visualStyleFactory, visualLexiconManager);
 		
 		registerAllServices(bc, visualMappingManager, new Properties());
+		
+		CyNetworkViewManager cyNetworkViewManagerServiceRef = getService(bc, CyNetworkViewManager.class);
+		RowsSetStyleUpdater rowsSetStyleUpdater = new RowsSetStyleUpdater(visualMappingManager, cyNetworkViewManagerServiceRef);
+		registerService(bc, rowsSetStyleUpdater, RowsSetListener.class, new Properties());
 		registerService(bc, visualStyleFactory, VisualStyleFactory.class, new Properties());
 
 		Properties discreteMappingFactoryProps = new Properties();
@@ -0,0 +1,179 @@
+package org.cytoscape.view.vizmap.internal;
+
+/*
+ * #%L
+ * Cytoscape VizMap Impl (vizmap-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.events.RowSetRecord;
+import org.cytoscape.model.events.RowsSetEvent;
+import org.cytoscape.model.events.RowsSetListener;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.CyNetworkViewManager;
+import org.cytoscape.view.model.View;
+import org.cytoscape.view.vizmap.VisualMappingFunction;
+import org.cytoscape.view.vizmap.VisualMappingManager;
+import org.cytoscape.view.vizmap.VisualStyle;
+
+/**
+ * Keeps network views in sync with their visual style when table values
+ * change.  Only the mappings on the changed columns are evaluated, and only
+ * for the views of the changed rows, so the work is proportional to the
+ * size of the change instead of the size of the network.  Events that touch
+ * no mapped column return before any row is read.
+ */
+public class RowsSetStyleUpdater implements RowsSetListener {
+
+	private final VisualMappingManager vmm;
+	private final CyNetworkViewManager viewManager;
+
+	public RowsSetStyleUpdater(final VisualMappingManager vmm, final CyNetworkViewManager viewManager) {
+		if (vmm == null)
+			throw new NullPointerException("VisualMappingManager is null.");
+		if (viewManager == null)
+			throw new NullPointerException("CyNetworkViewManager is null.");
+
+		this.vmm = vmm;
+		this.viewManager = viewManager;
+	}
+
+	@Override
+	public void handleEvent(final RowsSetEvent e) {
+		final CyTable table = e.getSource();
+		final Collection<RowSetRecord> records = e.getPayloadCollection();
+
+		if (records.isEmpty())
+			return;
+
+		Set<String> columnNames = null;
+		Set<Long> suids = null;
+
+		for (final CyNetworkView netView : viewManager.getNetworkViewSet()) {
+			final CyNetwork net = netView.getModel();
+			final Class<? extends CyIdentifiable> targetType;
+
+			if (table == net.getDefaultNodeTable())
+				targetType = CyNode.class;
+			else if (table == net.getDefaultEdgeTable())
+				targetType = CyEdge.class;
+			else if (table == net.getDefaultNetworkTable())
+				targetType = CyNetwork.class;
+			else
+				continue;
+
+			final VisualStyle style = vmm.getVisualStyle(netView);
+
+			if (!(style instanceof VisualStyleImpl))
+				continue;
+
+			if (columnNames == null) {
+				columnNames = new HashSet<String>();
+
+				for (final RowSetRecord record : records)
+					columnNames.add(record.getColumn().toLowerCase());
+			}
+
+			// Most events, e.g. selection changes, touch no mapped column
+			if (!isMapped(style, targetType, columnNames))
+				continue;
+
+			// Decode the rows once; several views may share the same table.
+			if (suids == null) {
+				suids = new HashSet<Long>();
+
+				for (final RowSetRecord record : records) {
+					final CyRow row = record.getRow();
+					suids.add(row.get(CyIdentifiable.SUID, Long.class));
+				}
+			}
+
+			final List<View<? extends CyIdentifiable>> views = getViews(netView, targetType, suids);
+
+			if (views.isEmpty())
+				continue;
+
+			if (((VisualStyleImpl) style).applyColumns(netView, targetType, views, columnNames))
+				netView.updateView();
+		}
+	}
+
+	/**
+	 * Returns true if the style maps a property of the given target type to one of the given columns.
+	 */
+	private static boolean isMapped(final VisualStyle style, final Class<? extends CyIdentifiable> targetType,
+			final Set<String> columnNames) {
+		for (final VisualMappingFunction<?, ?> mapping : style.getAllVisualMappingFunctions()) {
+			if (mapping.getVisualProperty().getTargetDataType() == targetType
+					&& columnNames.contains(mapping.getMappingColumnName().toLowerCase()))
+				return true;
+		}
+
+		return false;
+	}
+
+	private static List<View<? extends CyIdentifiable>> getViews(final CyNetworkView netView,
+			final Class<? extends CyIdentifiable> targetType, final Set<Long> suids) {
+		final CyNetwork net = netView.getModel();
+
+		if (targetType == CyNetwork.class) {
+			if (suids.contains(net.getSUID()))
+				return Collections.<View<? extends CyIdentifiable>>singletonList(netView);
+			else
+				return Collections.emptyList();
+		}
+
+		final List<View<? extends CyIdentifiable>> views = new ArrayList<View<? extends CyIdentifiable>>(suids.size());
+
+		for (final Long suid : suids) {
+			if (suid == null)
+				continue;
+
+			final View<? extends CyIdentifiable> view;
+
+			if (targetType == CyNode.class) {
+				final CyNode node = net.getNode(suid);
+				view = node == null ? null : netView.getNodeView(node);
+			} else {
+				final CyEdge edge = net.getEdge(suid);
+				view = edge == null ? null : netView.getEdgeView(edge);
+			}
+
+			if (view != null)
+				views.add(view);
+		}
+
+		return views;
+	}
+}
@@ -173,6 +173,19 @@ public class VisualStyleImpl implements VisualStyle, VisualMappingFunctionChange
 		handler.apply(row, view);
 	}
 
+	/**
+	 * Re-applies the mappings on the given columns to the given views only.
+	 * 
+	 * @param targetType the type of the views' model: CyNode, CyEdge or CyNetwork
+	 * @param columnNames the names of the changed columns, in lower case
+	 * @return true if any mapping of this style uses one of the columns
+	 */
+	boolean applyColumns(final CyNetworkView networkView, final Class<? extends CyIdentifiable> targetType,
+			final Collection<? extends View<? extends CyIdentifiable>> views, final Set<String> columnNames) {
+		final ApplyToNetworkHandler networkViewHandler = (ApplyToNetworkHandler) applyHandlersMap.get(CyNetwork.class);
+		return networkViewHandler.applyColumns(networkView, targetType, views, columnNames);
+	}
+
 	@Override
 	public String getTitle() {
 		return title;
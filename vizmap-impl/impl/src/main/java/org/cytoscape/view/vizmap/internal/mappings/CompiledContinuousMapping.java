@@ -0,0 +1,312 @@
+package org.cytoscape.view.vizmap.internal.mappings;
+
+/*
+ * #%L
+ * Cytoscape VizMap Impl (vizmap-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.cytoscape.view.vizmap.internal.mappings.interpolators.Interpolator;
+import org.cytoscape.view.vizmap.internal.mappings.interpolators.LinearNumberToColorInterpolator;
+import org.cytoscape.view.vizmap.internal.mappings.interpolators.LinearNumberToNumberInterpolator;
+import org.cytoscape.view.vizmap.mappings.BoundaryRangeValues;
+import org.cytoscape.view.vizmap.mappings.ContinuousMappingPoint;
+
+/**
+ * An immutable snapshot of the points of a {@link ContinuousMappingImpl},
+ * laid out for fast evaluation: the point values are sorted into a double
+ * array that is binary searched, and number and color ranges are
+ * interpolated on primitives (colors packed as ARGB ints).  Optionally, the
+ * values between the first and last point are precomputed into a lookup
+ * table of evenly spaced buckets.
+ */
+final class CompiledContinuousMapping<K, V> {
+
+	private static final int GENERIC = 0;
+	private static final int NUMBER = 1;
+	private static final int COLOR = 2;
+
+	// Lookup table entry for buckets that must be evaluated exactly
+	private static final Object EXACT = new Object();
+
+	private final int version;
+	private final int size;
+	private final double[] domain;
+	private final Object[] keys;
+	private final Object[] lesserValues;
+	private final Object[] equalValues;
+	private final Object[] greaterValues;
+
+	private final Interpolator<K, V> interpolator;
+	private final int kind;
+
+	// For interval i, between point i - 1 and point i.  Only used for NUMBER and COLOR.
+	private final boolean[] nullInterval;
+	private final double[] lowerNumbers;
+	private final double[] upperNumbers;
+	private final int[] lowerColors;
+	private final int[] upperColors;
+
+	private final Object[] lookupTable;
+	private final double lookupScale;
+
+	/**
+	 * @param points the points of the mapping, in any order
+	 * @param interpolator the interpolator of the mapping, used for ranges that
+	 *        are neither numbers nor colors
+	 * @param lookupTableSize the number of lookup table buckets, 0 for none
+	 * @param version the version of the points, as counted by the mapping
+	 */
+	CompiledContinuousMapping(final List<ContinuousMappingPoint<K, V>> points, final Interpolator<K, V> interpolator,
+			final int lookupTableSize, final int version) {
+		if (lookupTableSize < 0)
+			throw new IllegalArgumentException("lookupTableSize must not be negative: " + lookupTableSize);
+
+		final List<ContinuousMappingPoint<K, V>> sorted = new ArrayList<ContinuousMappingPoint<K, V>>(points.size());
+
+		for (final ContinuousMappingPoint<K, V> point : points) {
+			if (point.getValue() != null && point.getRange() != null)
+				sorted.add(point);
+		}
+
+		// Stable, so points with the same value keep their order
+		Collections.sort(sorted, new Comparator<ContinuousMappingPoint<K, V>>() {
+			@Override
+			public int compare(final ContinuousMappingPoint<K, V> p1, final ContinuousMappingPoint<K, V> p2) {
+				return Double.compare(toDouble(p1.getValue()), toDouble(p2.getValue()));
+			}
+		});
+
+		this.version = version;
+		size = sorted.size();
+		domain = new double[size];
+		keys = new Object[size];
+		lesserValues = new Object[size];
+		equalValues = new Object[size];
+		greaterValues = new Object[size];
+
+		for (int i = 0; i < size; i++) {
+			final ContinuousMappingPoint<K, V> point = sorted.get(i);
+			final BoundaryRangeValues<V> range = point.getRange();
+			keys[i] = point.getValue();
+			domain[i] = toDouble(point.getValue());
+			lesserValues[i] = range.lesserValue;
+			equalValues[i] = range.equalValue;
+			greaterValues[i] = range.greaterValue;
+		}
+
+		this.interpolator = interpolator;
+		this.kind = getKind(interpolator);
+
+		nullInterval = new boolean[size];
+
+		if (kind == NUMBER) {
+			lowerNumbers = new double[size];
+			upperNumbers = new double[size];
+			lowerColors = null;
+			upperColors = null;
+
+			for (int i = 1; i < size; i++) {
+				final Object lower = greaterValues[i - 1];
+				final Object upper = lesserValues[i];
+				nullInterval[i] = lower == null || upper == null;
+
+				if (!nullInterval[i]) {
+					lowerNumbers[i] = ((Number) lower).doubleValue();
+					upperNumbers[i] = ((Number) upper).doubleValue();
+				}
+			}
+		} else if (kind == COLOR) {
+			lowerNumbers = null;
+			upperNumbers = null;
+			lowerColors = new int[size];
+			upperColors = new int[size];
+
+			for (int i = 1; i < size; i++) {
+				final Object lower = greaterValues[i - 1];
+				final Object upper = lesserValues[i];
+				nullInterval[i] = lower == null || upper == null;
+
+				if (!nullInterval[i]) {
+					lowerColors[i] = ((Color) lower).getRGB();
+					upperColors[i] = ((Color) upper).getRGB();
+				}
+			}
+		} else {
+			lowerNumbers = null;
+			upperNumbers = null;
+			lowerColors = null;
+			upperColors = null;
+		}
+
+		if (lookupTableSize > 1 && kind != GENERIC && size > 1 && domain[size - 1] > domain[0]) {
+			lookupTable = new Object[lookupTableSize];
+			lookupScale = (lookupTableSize - 1) / (domain[size - 1] - domain[0]);
+
+			for (int i = 0; i < lookupTableSize; i++) {
+				final double d = Math.min(domain[size - 1], domain[0] + i / lookupScale);
+				lookupTable[i] = evaluate(d, null);
+			}
+
+			// The range may jump at a point, so buckets around points are not shared
+			for (int i = 1; i < size - 1; i++) {
+				final int bucket = getBucket(domain[i]);
+
+				for (int b = Math.max(0, bucket - 1); b <= Math.min(lookupTableSize - 1, bucket + 1); b++)
+					lookupTable[b] = EXACT;
+			}
+		} else {
+			lookupTable = null;
+			lookupScale = 0.0;
+		}
+	}
+
+	/**
+	 * @return NUMBER or COLOR if all range values can be interpolated on
+	 *         primitives, GENERIC otherwise
+	 */
+	private int getKind(final Interpolator<K, V> interpolator) {
+		final int kind;
+
+		if (interpolator instanceof LinearNumberToNumberInterpolator)
+			kind = NUMBER;
+		else if (interpolator instanceof LinearNumberToColorInterpolator)
+			kind = COLOR;
+		else
+			return GENERIC;
+
+		// Ranges of another type are left to the interpolator, which decides what to do with them.
+		for (int i = 0; i < size; i++) {
+			if (!isKind(kind, lesserValues[i]) || !isKind(kind, greaterValues[i]))
+				return GENERIC;
+		}
+
+		return kind;
+	}
+
+	private static boolean isKind(final int kind, final Object value) {
+		if (value == null)
+			return true;
+		else if (kind == NUMBER)
+			return value instanceof Number;
+		else
+			return value instanceof Color;
+	}
+
+	private static double toDouble(final Object value) {
+		return ((Number) value).doubleValue();
+	}
+
+	int getVersion() {
+		return version;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	boolean hasLookupTable() {
+		return lookupTable != null;
+	}
+
+	/**
+	 * Maps a column value.
+	 * 
+	 * @param d the value as a double
+	 * @param key the value itself, which is passed to the interpolator
+	 * @return the mapped value, or null if there are no points
+	 */
+	@SuppressWarnings("unchecked")
+	V getRangeValue(final double d, final K key) {
+		if (size == 0)
+			return null;
+
+		if (lookupTable != null && d > domain[0] && d < domain[size - 1]) {
+			final Object value = lookupTable[getBucket(d)];
+
+			if (value != EXACT)
+				return (V) value;
+		}
+
+		return evaluate(d, key);
+	}
+
+	private int getBucket(final double d) {
+		return (int) ((d - domain[0]) * lookupScale + 0.5);
+	}
+
+	@SuppressWarnings("unchecked")
+	private V evaluate(final double d, final K key) {
+		final int last = size - 1;
+
+		// A NaN compares equal to everything, so it matches the first point as before
+		if (d < domain[0])
+			return (V) lesserValues[0];
+		else if (d == domain[0] || Double.isNaN(d))
+			return (V) equalValues[0];
+		else if (d > domain[last])
+			return (V) greaterValues[last];
+
+		if (interpolator == null)
+			return null;
+
+		int index = Arrays.binarySearch(domain, d);
+
+		if (index >= 0) {
+			// The first of several points with the same value wins
+			while (index > 0 && domain[index - 1] == d)
+				index--;
+
+			return (V) equalValues[index];
+		}
+
+		// The desired domain value is greater than the lower point and less
+		// than the upper point, so we want the "greater" value of the lower
+		// point and the "lesser" value of the upper one.
+		index = -index - 1;
+
+		if (kind != GENERIC && nullInterval[index])
+			return null;
+
+		final double lowerDomain = domain[index - 1];
+		final double upperDomain = domain[index];
+
+		if (kind == NUMBER) {
+			final double frac = (d - lowerDomain) / (upperDomain - lowerDomain);
+			return (V) Double.valueOf(LinearNumberToNumberInterpolator.interpolate(frac, lowerNumbers[index],
+					upperNumbers[index]));
+		} else if (kind == COLOR) {
+			final double frac = (d - lowerDomain) / (upperDomain - lowerDomain);
+			return (V) new Color(LinearNumberToColorInterpolator.interpolateArgb(frac, lowerColors[index],
+					upperColors[index]), true);
+		}
+
+		return interpolator.getRangeValue((K) keys[index - 1], (V) greaterValues[index - 1], (K) keys[index],
+				(V) lesserValues[index], key);
+	}
+}
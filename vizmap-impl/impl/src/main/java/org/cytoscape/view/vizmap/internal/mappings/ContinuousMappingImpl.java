@@ -28,8 +28,10 @@ package org.cytoscape.view.vizmap.internal.mappings;
 import java.awt.Color;
 import java.awt.Paint;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.cytoscape.event.CyEventHelper;
 import org.cytoscape.model.CyRow;
@@ -59,7 +61,8 @@ import org.cytoscape.view.vizmap.mappings.ContinuousMappingPoint;
  *            cytoscape.visual.mappings.continuous.README.txt.
  * 
  */
-public class ContinuousMappingImpl<K, V> extends AbstractVisualMappingFunction<K, V> implements ContinuousMapping<K, V> {
+public class ContinuousMappingImpl<K, V> extends AbstractVisualMappingFunction<K, V> implements ContinuousMapping<K, V>,
+		VectorizedMapping<V> {
 	
 	// used to interpolate between boundaries
 	private Interpolator<K, V> interpolator;
@@ -67,6 +70,14 @@ public class ContinuousMappingImpl<K, V> extends AbstractVisualMappingFunction<K
 	// Contains List of Data Points
 	private List<ContinuousMappingPoint<K, V>> points;
 
+	// Points are created with this, so that changing them invalidates the compiled form
+	private final CyEventHelper pointEventHelper;
+
+	// Evaluated form of the points; rebuilt on demand after any change
+	private volatile CompiledContinuousMapping<K, V> compiled;
+	private final AtomicInteger version = new AtomicInteger();
+	private volatile int lookupTableSize;
+
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public ContinuousMappingImpl(final String attrName, final Class<K> attrType, final VisualProperty<V> vp, final CyEventHelper eventHelper) {
 		super(attrName, attrType, vp, eventHelper);
@@ -76,6 +87,7 @@ public class ContinuousMappingImpl<K, V> extends AbstractVisualMappingFunction<K
 			throw new IllegalArgumentException("Column type should be Number.");
 		
 		this.points = new ArrayList<ContinuousMappingPoint<K, V>>();
+		this.pointEventHelper = new PointEventHelper(eventHelper, this);
 
 		// TODO FIXME use factory here.
 		// Create Interpolator
@@ -99,7 +111,8 @@ public class ContinuousMappingImpl<K, V> extends AbstractVisualMappingFunction<K
 
 	@Override
 	public void addPoint(K value, BoundaryRangeValues<V> brv) {
-		points.add(new ContinuousMappingPoint<K, V>(value, brv, this, eventHelper));
+		points.add(new ContinuousMappingPoint<K, V>(value, brv, this, pointEventHelper));
+		invalidate();
 		eventHelper.addEventPayload((VisualMappingFunction) this, new VisualMappingFunctionChangeRecord(),
 				VisualMappingFunctionChangedEvent.class);
 	}
@@ -107,6 +120,7 @@ public class ContinuousMappingImpl<K, V> extends AbstractVisualMappingFunction<K
 	@Override
 	public void removePoint(int index) {
 		points.remove(index);
+		invalidate();
 		eventHelper.addEventPayload((VisualMappingFunction) this, new VisualMappingFunctionChangeRecord(),
 				VisualMappingFunctionChangedEvent.class);
 	}
@@ -137,111 +151,70 @@ public class ContinuousMappingImpl<K, V> extends AbstractVisualMappingFunction<K
 
 			// In all cases, attribute value should be a number for continuous mapping.
 			final K attrValue = row.get(columnName, columnType);
-			value = getRangeValue(attrValue);
+
+			if (attrValue != null)
+				value = getCompiled().getRangeValue(((Number) attrValue).doubleValue(), attrValue);
 		}
 		
 		return value;
 	}
 
-	private V getRangeValue(K domainValue) {
-		if(points.isEmpty())
-			return null;
-		
-		ContinuousMappingPoint<K, V> firstPoint = points.get(0);
-		K minDomain = firstPoint.getValue();
-
-		// if given domain value is smaller than any in our list,
-		// return the range value for the smallest domain value we have.
-		int firstCmp = compareValues(domainValue, minDomain);
-
-		if (firstCmp <= 0) {
-			BoundaryRangeValues<V> bv = firstPoint.getRange();
+	@Override
+	@SuppressWarnings("unchecked")
+	public void getMappedValues(final MappedColumn column, final int from, final int to, final Object[] results) {
+		final CompiledContinuousMapping<K, V> c = getCompiled();
 
-			if (firstCmp < 0)
-				return bv.lesserValue;
-			else
-				return bv.equalValue;
+		if (c.isEmpty()) {
+			Arrays.fill(results, from, to, null);
+			return;
 		}
 
-		// if given domain value is larger than any in our Vector,
-		// return the range value for the largest domain value we have.
-		ContinuousMappingPoint<K, V> lastPoint = points.get(points.size() - 1);
-		K maxDomain = lastPoint.getValue();
-
-		if (compareValues(domainValue, maxDomain) > 0) {
-			BoundaryRangeValues<V> bv = lastPoint.getRange();
-
-			return bv.greaterValue;
+		for (int i = from; i < to; i++) {
+			if (column.isSet(i))
+				results[i] = c.getRangeValue(column.getNumber(i), (K) column.getValue(i));
+			else
+				results[i] = null;
 		}
+	}
 
-		// OK, it's somewhere in the middle, so find the boundaries and
-		// pass to our interpolator function. First check for a null
-		// interpolator function
-		if (this.interpolator == null)
-			return null;
-
-		// Note that the list of Points is sorted.
-		// Also, the case of the inValue equalling the smallest key was
-		// checked above.
-		ContinuousMappingPoint<K, V> currentPoint;
-		int index = 0;
-
-		for (index = 0; index < points.size(); index++) {
-			currentPoint = points.get(index);
-
-			K currentValue = currentPoint.getValue();
-			int cmpValue = compareValues(domainValue, currentValue);
-
-			if (cmpValue == 0) {
-				BoundaryRangeValues<V> bv = currentPoint.getRange();
+	/**
+	 * Sets the number of buckets of the lookup table that serves values
+	 * between the first and last point of number and color mappings.  All
+	 * values in a bucket are mapped to the value at its center, except next
+	 * to a point, which trades precision for speed on very hot mappings.  The
+	 * default, 0, turns the lookup table off.
+	 */
+	public void setLookupTableSize(final int lookupTableSize) {
+		if (lookupTableSize < 0)
+			throw new IllegalArgumentException("lookupTableSize must not be negative: " + lookupTableSize);
 
-				return bv.equalValue;
-			} else if (cmpValue < 0)
-				break;
-		}
+		this.lookupTableSize = lookupTableSize;
+		invalidate();
+	}
 
-		return getRangeValue(index, domainValue);
+	public int getLookupTableSize() {
+		return lookupTableSize;
 	}
 
 	/**
-	 * This is tricky. The desired domain value is greater than lowerDomain and
-	 * less than upperDomain. Therefore, we want the "greater" field of the
-	 * lower boundary value (because the desired domain value is greater) and
-	 * the "lesser" field of the upper boundary value (semantic difficulties).
+	 * Discards the compiled form of the points, which is rebuilt the next
+	 * time the mapping is evaluated.
 	 */
-	private V getRangeValue(int index, K domainValue) {
-		// Get Lower Domain and Range
-		ContinuousMappingPoint<K, V> lowerBound = points.get(index - 1);
-		K lowerDomain = lowerBound.getValue();
-		BoundaryRangeValues<V> lv = lowerBound.getRange();
-		V lowerRange = lv.greaterValue;
-
-		// Get Upper Domain and Range
-		ContinuousMappingPoint<K, V> upperBound = points.get(index);
-		K upperDomain = upperBound.getValue();
-		BoundaryRangeValues<V> gv = upperBound.getRange();
-		V upperRange = gv.lesserValue;
-		
-		V value = interpolator.getRangeValue(lowerDomain, lowerRange, upperDomain, upperRange, domainValue);
-		
-		return value;
+	void invalidate() {
+		version.incrementAndGet();
+		compiled = null;
 	}
 
-	/**
-	 * Helper function to compare Number objects. This is needed because Java
-	 * doesn't allow comparing, for example, Integer objects to Double objects.
-	 */
-	private int compareValues(K probe, K target) {
-		final Number n1 = (Number) probe;
-		final Number n2 = (Number) target;
-		double d1 = n1.doubleValue();
-		double d2 = n2.doubleValue();
-
-		if (d1 < d2)
-			return -1;
-		else if (d1 > d2)
-			return 1;
-		else
-			return 0;
+	CompiledContinuousMapping<K, V> getCompiled() {
+		CompiledContinuousMapping<K, V> c = compiled;
+		final int v = version.get();
+
+		// Also rebuild it if the points changed while it was compiled
+		if (c == null || c.getVersion() != v) {
+			c = new CompiledContinuousMapping<K, V>(points, interpolator, lookupTableSize, v);
+			compiled = c;
+		}
+
+		return c;
 	}
 }
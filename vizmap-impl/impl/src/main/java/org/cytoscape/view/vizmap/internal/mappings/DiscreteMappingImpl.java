@@ -44,7 +44,8 @@ import org.cytoscape.view.vizmap.mappings.DiscreteMapping;
  * data value is extracted from a bundle of attributes by using a specified data
  * attribute name.
  */
-public class DiscreteMappingImpl<K, V> extends AbstractVisualMappingFunction<K, V> implements DiscreteMapping<K, V> {
+public class DiscreteMappingImpl<K, V> extends AbstractVisualMappingFunction<K, V> implements DiscreteMapping<K, V>,
+		VectorizedMapping<V> {
 
 	// contains the actual map elements (sorted)
 	private final Map<K, V> attribute2visualMap;
@@ -102,6 +103,31 @@ public class DiscreteMappingImpl<K, V> extends AbstractVisualMappingFunction<K,
 		return value;
 	}
 
+	@Override
+	public void getMappedValues(final MappedColumn column, final int from, final int to, final Object[] results) {
+		final boolean isList = column.isList();
+
+		for (int i = from; i < to; i++) {
+			final Object attrValue = column.getValue(i);
+			V value = null;
+
+			if (attrValue != null) {
+				if (isList) {
+					for (Object item : (List<?>) attrValue) {
+						value = attribute2visualMap.get(item.toString());
+
+						if (value != null)
+							break;
+					}
+				} else {
+					value = attribute2visualMap.get(attrValue);
+				}
+			}
+
+			results[i] = value;
+		}
+	}
+
 	@Override
 	public V getMapValue(K key) {
 		return attribute2visualMap.get(key);
@@ -0,0 +1,125 @@
+package org.cytoscape.view.vizmap.internal.mappings;
+
+/*
+ * #%L
+ * Cytoscape VizMap Impl (vizmap-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import org.cytoscape.model.CyRow;
+
+/**
+ * The values of one table column for a series of rows.  The column is read
+ * once, and any number of mappings can then be evaluated over the arrays
+ * without going back to the rows.  Numeric columns are kept as doubles too.
+ */
+public final class MappedColumn {
+
+	private final String name;
+	private final Class<?> type;
+	private final Class<?> listElementType;
+	private final Object[] values;
+	private final double[] numbers;
+
+	/**
+	 * @param name the column name
+	 * @param type the column type
+	 * @param listElementType the element type if the column is a list column, otherwise null
+	 * @param size the number of rows that will be read
+	 */
+	public MappedColumn(final String name, final Class<?> type, final Class<?> listElementType, final int size) {
+		if (name == null)
+			throw new NullPointerException("name is null.");
+		if (type == null)
+			throw new NullPointerException("type is null.");
+
+		this.name = name;
+		this.type = type;
+		this.listElementType = listElementType;
+		this.values = new Object[size];
+		this.numbers = Number.class.isAssignableFrom(type) ? new double[size] : null;
+	}
+
+	/**
+	 * Reads the column from rows[from] to rows[to - 1] into the same indices
+	 * of this column.  Null rows are read as unset values.  Different ranges
+	 * may be read concurrently.
+	 */
+	public void read(final CyRow[] rows, final int from, final int to) {
+		for (int i = from; i < to; i++) {
+			final CyRow row = rows[i];
+			final Object value;
+
+			if (row == null)
+				value = null;
+			else if (listElementType != null)
+				value = row.getList(name, listElementType);
+			else
+				value = row.get(name, type);
+
+			values[i] = value;
+
+			if (numbers != null && value != null)
+				numbers[i] = ((Number) value).doubleValue();
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Class<?> getType() {
+		return type;
+	}
+
+	public int size() {
+		return values.length;
+	}
+
+	public boolean isSet(final int index) {
+		return values[index] != null;
+	}
+
+	/**
+	 * @return the value at the given index, or null if it is not set.
+	 */
+	public Object getValue(final int index) {
+		return values[index];
+	}
+
+	/**
+	 * @return the value at the given index as a double; only meaningful for
+	 *         numeric columns and set values.
+	 */
+	public double getNumber(final int index) {
+		if (numbers == null)
+			throw new IllegalStateException("Column \"" + name + "\" is not numeric.");
+
+		return numbers[index];
+	}
+
+	/**
+	 * @return true if the values are lists, read with {@link CyRow#getList(String, Class)}.
+	 */
+	public boolean isList() {
+		return listElementType != null;
+	}
+}
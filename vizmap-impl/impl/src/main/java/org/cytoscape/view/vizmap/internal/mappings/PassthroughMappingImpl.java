@@ -35,7 +35,7 @@ import org.cytoscape.view.vizmap.mappings.ValueTranslator;
 /**
  */
 public class PassthroughMappingImpl<K, V> extends AbstractVisualMappingFunction<K, V> implements
-		PassthroughMapping<K, V> {
+		PassthroughMapping<K, V>, VectorizedMapping<V> {
 
 	private final ValueTranslator<K, V> translator;
 
@@ -90,4 +90,26 @@ public class PassthroughMappingImpl<K, V> extends AbstractVisualMappingFunction<
 		
 		return null;
 	}
-}
\ No newline at end of file
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void getMappedValues(final MappedColumn column, final int from, final int to, final Object[] results) {
+		for (int i = from; i < to; i++) {
+			final Object tableValue = column.getValue(i);
+			Object value = null;
+
+			if (tableValue != null) {
+				try {
+					value = translator.translate((K) tableValue);
+				} catch (ClassCastException cce) {
+					// Invalid
+				}
+
+				if (value instanceof String)
+					value = vp.parseSerializableString((String) value);
+			}
+
+			results[i] = value;
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package org.cytoscape.view.vizmap.internal.mappings;
+
+/*
+ * #%L
+ * Cytoscape VizMap Impl (vizmap-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import org.cytoscape.event.CyEvent;
+import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.event.CyPayloadEvent;
+import org.cytoscape.view.vizmap.events.VisualMappingFunctionChangedEvent;
+
+/**
+ * The event helper given to the points of a {@link ContinuousMappingImpl}.
+ * When a point reports a change of its value or range, the mapping is
+ * invalidated right away, before the event is passed on to the real helper
+ * and delivered asynchronously.
+ */
+final class PointEventHelper implements CyEventHelper {
+
+	private final CyEventHelper eventHelper;
+	private final ContinuousMappingImpl<?, ?> mapping;
+
+	PointEventHelper(final CyEventHelper eventHelper, final ContinuousMappingImpl<?, ?> mapping) {
+		this.eventHelper = eventHelper;
+		this.mapping = mapping;
+	}
+
+	@Override
+	public <E extends CyEvent<?>> void fireEvent(final E event) {
+		eventHelper.fireEvent(event);
+	}
+
+	@Override
+	public <S, P, E extends CyPayloadEvent<S, P>> void addEventPayload(final S source, final P payload,
+			final Class<E> eventType) {
+		if (source == mapping && eventType == VisualMappingFunctionChangedEvent.class)
+			mapping.invalidate();
+
+		eventHelper.addEventPayload(source, payload, eventType);
+	}
+
+	@Override
+	public void flushPayloadEvents() {
+		eventHelper.flushPayloadEvents();
+	}
+
+	@Override
+	public void silenceEventSource(final Object eventSource) {
+		eventHelper.silenceEventSource(eventSource);
+	}
+
+	@Override
+	public void unsilenceEventSource(final Object eventSource) {
+		eventHelper.unsilenceEventSource(eventSource);
+	}
+}
@@ -0,0 +1,48 @@
+package org.cytoscape.view.vizmap.internal.mappings;
+
+/*
+ * #%L
+ * Cytoscape VizMap Impl (vizmap-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+/**
+ * A mapping that can be evaluated over a whole column of values at once,
+ * instead of one {@link org.cytoscape.model.CyRow} at a time.
+ * 
+ * @param <V> the type of the mapped visual property values
+ */
+public interface VectorizedMapping<V> {
+
+	/**
+	 * Maps column values from index from to to - 1, storing the results at the
+	 * same indices of the results array.  The result is the same as calling
+	 * getMappedValue(CyRow) for the row each value was read from, so it is
+	 * null when the value is not set or cannot be mapped.  Different ranges
+	 * may be evaluated concurrently.
+	 * 
+	 * @param column the values of the mapped column
+	 * @param from the first index, inclusive
+	 * @param to the last index, exclusive
+	 * @param results where the mapped values are stored
+	 */
+	void getMappedValues(MappedColumn column, int from, int to, Object[] results);
+}
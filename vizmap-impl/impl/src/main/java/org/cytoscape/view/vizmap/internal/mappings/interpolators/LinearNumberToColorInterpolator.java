@@ -50,17 +50,31 @@ public class LinearNumberToColorInterpolator extends LinearNumberInterpolator<Co
 	@Override
 	public Color getRangeValue(double frac, Color lowerRange,
         Color upperRange) {
+        return new Color(interpolateArgb(frac, lowerRange.getRGB(), upperRange.getRGB()), true);
+    }
+
+    /**
+     * Interpolates between two colors packed as ARGB ints, as returned by
+     * {@link Color#getRGB()}, without creating any objects.
+     *
+     * @return the interpolated color, packed the same way.
+     */
+    public static int interpolateArgb(final double frac, final int lowerArgb, final int upperArgb) {
+        final int alpha = interpolateComponent(frac, (lowerArgb >>> 24), (upperArgb >>> 24));
+        final int red = interpolateComponent(frac, (lowerArgb >> 16) & 0xFF, (upperArgb >> 16) & 0xFF);
+        final int green = interpolateComponent(frac, (lowerArgb >> 8) & 0xFF, (upperArgb >> 8) & 0xFF);
+        final int blue = interpolateComponent(frac, lowerArgb & 0xFF, upperArgb & 0xFF);
+
+        return (alpha << 24) | (red << 16) | (green << 8) | blue;
+    }
+
+    private static int interpolateComponent(final double frac, final int lower, final int upper) {
+        final int value = (int) Math.round(lower + (frac * (upper - lower)));
 
-        double red = lowerRange.getRed() +
-            (frac * (upperRange.getRed() - lowerRange.getRed()));
-        double green = lowerRange.getGreen() +
-            (frac * (upperRange.getGreen() - lowerRange.getGreen()));
-        double blue = lowerRange.getBlue() +
-            (frac * (upperRange.getBlue() - lowerRange.getBlue()));
-        double alpha = lowerRange.getAlpha() +
-            (frac * (upperRange.getAlpha() - lowerRange.getAlpha()));
+        // Same bounds as the Color constructor, which would reject anything else
+        if (value < 0 || value > 255)
+            throw new IllegalArgumentException("Color component out of range: " + value);
 
-        return new Color((int) Math.round(red), (int) Math.round(green),
-            (int) Math.round(blue), (int) Math.round(alpha));
+        return value;
     }
 }
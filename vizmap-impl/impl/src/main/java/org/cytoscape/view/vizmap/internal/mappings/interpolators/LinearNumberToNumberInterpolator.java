@@ -51,9 +51,13 @@ public class LinearNumberToNumberInterpolator extends
 	public Number getRangeValue(double frac, Number lowerRange,
 			Number upperRange) {
 
-		double lowerVal = lowerRange.doubleValue();
-		double upperVal = upperRange.doubleValue();
+		return interpolate(frac, lowerRange.doubleValue(), upperRange.doubleValue());
+	}
 
+	/**
+	 * Same as {@link #getRangeValue(double, Number, Number)}, on primitive values.
+	 */
+	public static double interpolate(final double frac, final double lowerVal, final double upperVal) {
 		return (frac * upperVal) + ((1.0 - frac) * lowerVal);
 	}
 }
@@ -0,0 +1,240 @@
+package org.cytoscape.view.vizmap.internal;
+
+/*
+ * #%L
+ * Cytoscape VizMap Impl (vizmap-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.awt.Color;
+import java.awt.Paint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.cytoscape.ding.NetworkViewTestSupport;
+import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.View;
+import org.cytoscape.view.model.VisualProperty;
+import org.cytoscape.view.presentation.property.BasicVisualLexicon;
+import org.cytoscape.view.vizmap.VisualMappingFunction;
+import org.cytoscape.view.vizmap.internal.mappings.ContinuousMappingImpl;
+import org.cytoscape.view.vizmap.internal.mappings.DiscreteMappingImpl;
+import org.cytoscape.view.vizmap.internal.mappings.PassthroughMappingImpl;
+import org.cytoscape.view.vizmap.internal.mappings.StringTranslator;
+import org.cytoscape.view.vizmap.mappings.BoundaryRangeValues;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ColumnMappingApplierTest {
+
+	private static final int NETWORK_SIZE = 20000;
+
+	private CyNetwork network;
+	private CyNetworkView networkView;
+	private List<VisualProperty<?>> vps;
+	private List<VisualMappingFunction<?, ?>> mappings;
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() throws Exception {
+		final NetworkViewTestSupport nvts = new NetworkViewTestSupport();
+		network = nvts.getNetworkFactory().createNetwork();
+
+		final CyTable nodeTable = network.getDefaultNodeTable();
+		nodeTable.createColumn("score", Double.class, false);
+		nodeTable.createColumn("type", String.class, false);
+		nodeTable.createListColumn("tags", String.class, false);
+
+		final String[] types = { "a", "b", "c", "d" };
+
+		for (int i = 0; i < NETWORK_SIZE; i++) {
+			final CyNode node = network.addNode();
+			final CyRow row = network.getRow(node);
+
+			// Leave some values unset
+			if (i % 7 != 0)
+				row.set("score", (double) (i % 150) - 25.0);
+			if (i % 5 != 0)
+				row.set("type", types[i % types.length]);
+			if (i % 3 != 0)
+				row.set("tags", Arrays.asList("x" + (i % 4), types[i % types.length]));
+		}
+
+		networkView = nvts.getNetworkViewFactory().createNetworkView(network);
+
+		final CyEventHelper eventHelper = mock(CyEventHelper.class);
+
+		final ContinuousMappingImpl<Double, Double> width = new ContinuousMappingImpl<Double, Double>("score",
+				Double.class, BasicVisualLexicon.NODE_WIDTH, eventHelper);
+		width.addPoint(0.0, new BoundaryRangeValues<Double>(1.0, 10.0, 10.0));
+		width.addPoint(50.0, new BoundaryRangeValues<Double>(30.0, 30.0, 30.0));
+		width.addPoint(100.0, new BoundaryRangeValues<Double>(50.0, 50.0, 200.0));
+
+		final ContinuousMappingImpl<Double, Paint> color = new ContinuousMappingImpl<Double, Paint>("score",
+				Double.class, BasicVisualLexicon.NODE_FILL_COLOR, eventHelper);
+		color.addPoint(0.0, new BoundaryRangeValues<Paint>(Color.BLACK, Color.BLUE, Color.BLUE));
+		color.addPoint(100.0, new BoundaryRangeValues<Paint>(Color.RED, Color.RED, Color.WHITE));
+
+		final DiscreteMappingImpl<String, Double> border = new DiscreteMappingImpl<String, Double>("type",
+				String.class, BasicVisualLexicon.NODE_BORDER_WIDTH, eventHelper);
+		border.putMapValue("a", 1.0);
+		border.putMapValue("b", 2.0);
+		border.putMapValue("c", 3.0);
+
+		final DiscreteMappingImpl<String, String> tooltip = new DiscreteMappingImpl<String, String>("tags",
+				String.class, BasicVisualLexicon.NODE_TOOLTIP, eventHelper);
+		tooltip.putMapValue("x1", "one");
+		tooltip.putMapValue("d", "dee");
+
+		final PassthroughMappingImpl<Object, String> label = new PassthroughMappingImpl<Object, String>("type",
+				Object.class, BasicVisualLexicon.NODE_LABEL, new StringTranslator(), eventHelper);
+
+		vps = new ArrayList<VisualProperty<?>>();
+		mappings = new ArrayList<VisualMappingFunction<?, ?>>();
+		add(width);
+		add(color);
+		add(border);
+		add(tooltip);
+		add(label);
+
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		executor.shutdown();
+	}
+
+	private void add(final VisualMappingFunction<?, ?> mapping) {
+		vps.add(mapping.getVisualProperty());
+		mappings.add(mapping);
+	}
+
+	@Test
+	public void testSameValuesAsRowByRow() {
+		final Map<View<CyNode>, Object[]> before = getValues();
+		final ColumnMappingApplier applier = new ColumnMappingApplier(executor, 4);
+		applier.apply(network, networkView.getNodeViews(), vps, mappings);
+
+		checkMappedValues(before);
+	}
+
+	@Test
+	public void testCallingThreadOnly() {
+		final Map<View<CyNode>, Object[]> before = getValues();
+		final ColumnMappingApplier applier = new ColumnMappingApplier(null, 4);
+		applier.apply(network, networkView.getNodeViews(), vps, mappings);
+
+		checkMappedValues(before);
+	}
+
+	private Map<View<CyNode>, Object[]> getValues() {
+		final Map<View<CyNode>, Object[]> values = new HashMap<View<CyNode>, Object[]>();
+
+		for (final View<CyNode> view : networkView.getNodeViews()) {
+			final Object[] viewValues = new Object[vps.size()];
+
+			for (int m = 0; m < vps.size(); m++)
+				viewValues[m] = view.getVisualProperty(vps.get(m));
+
+			values.put(view, viewValues);
+		}
+
+		return values;
+	}
+
+	private void checkMappedValues(final Map<View<CyNode>, Object[]> before) {
+		for (final View<CyNode> view : networkView.getNodeViews()) {
+			final CyRow row = network.getRow(view.getModel());
+
+			for (int m = 0; m < mappings.size(); m++) {
+				final VisualProperty<?> vp = vps.get(m);
+				Object expected = mappings.get(m).getMappedValue(row);
+
+				// Views keep their value when nothing is mapped
+				if (expected == null)
+					expected = before.get(view)[m];
+
+				assertEquals(vp.getDisplayName(), expected, view.getVisualProperty(vp));
+			}
+		}
+	}
+
+	/**
+	 * Compares the column-vectorized applier with the row-by-row loop that
+	 * ApplyToNetworkHandler used before.
+	 */
+	@Test
+	public void testApplyPerformance() {
+		final ColumnMappingApplier applier = new ColumnMappingApplier(executor,
+				Runtime.getRuntime().availableProcessors());
+
+		long rowByRow = 0;
+		long vectorized = 0;
+
+		final int repeat = 5;
+		for (int i = 0; i < repeat; i++) {
+			rowByRow += runRowByRow();
+			vectorized += runVectorized(applier);
+		}
+
+		System.out.println("* Apply " + mappings.size() + " mappings to " + NETWORK_SIZE + " nodes: row by row "
+				+ (rowByRow / repeat) + " msec, vectorized " + (vectorized / repeat) + " msec.");
+	}
+
+	private long runRowByRow() {
+		final long start = System.currentTimeMillis();
+
+		for (int m = 0; m < mappings.size(); m++) {
+			final VisualProperty<?> vp = vps.get(m);
+			final VisualMappingFunction<?, ?> mapping = mappings.get(m);
+
+			for (final View<CyNode> v : networkView.getNodeViews()) {
+				Object value = mapping.getMappedValue(network.getRow(v.getModel()));
+
+				if (value != null)
+					v.setVisualProperty(vp, value);
+			}
+		}
+
+		return System.currentTimeMillis() - start;
+	}
+
+	private long runVectorized(final ColumnMappingApplier applier) {
+		final long start = System.currentTimeMillis();
+		applier.apply(network, networkView.getNodeViews(), vps, mappings);
+		return System.currentTimeMillis() - start;
+	}
+}
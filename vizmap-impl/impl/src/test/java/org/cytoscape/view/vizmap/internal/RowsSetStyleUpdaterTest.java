@@ -0,0 +1,224 @@
+package org.cytoscape.view.vizmap.internal;
+
+/*
+ * #%L
+ * Cytoscape VizMap Impl (vizmap-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.cytoscape.ding.NetworkViewTestSupport;
+import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.events.RowSetRecord;
+import org.cytoscape.model.events.RowsSetEvent;
+import org.cytoscape.service.util.CyServiceRegistrar;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.CyNetworkViewManager;
+import org.cytoscape.view.model.View;
+import org.cytoscape.view.model.VisualLexicon;
+import org.cytoscape.view.model.VisualProperty;
+import org.cytoscape.view.presentation.property.BasicVisualLexicon;
+import org.cytoscape.view.presentation.property.NullVisualProperty;
+import org.cytoscape.view.vizmap.VisualMappingFunctionFactory;
+import org.cytoscape.view.vizmap.VisualMappingManager;
+import org.cytoscape.view.vizmap.VisualStyle;
+import org.cytoscape.view.vizmap.internal.mappings.ContinuousMappingImpl;
+import org.cytoscape.view.vizmap.internal.mappings.DiscreteMappingImpl;
+import org.cytoscape.view.vizmap.mappings.BoundaryRangeValues;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RowsSetStyleUpdaterTest {
+
+	private CyNetwork network;
+	private CyNetworkView networkView;
+	private CyTable nodeTable;
+	private CyNode node1;
+	private CyNode node2;
+	private VisualStyle style;
+	private RowsSetStyleUpdater updater;
+
+	@Before
+	public void setUp() throws Exception {
+		final NetworkViewTestSupport nvts = new NetworkViewTestSupport();
+		network = nvts.getNetworkFactory().createNetwork();
+		node1 = network.addNode();
+		node2 = network.addNode();
+
+		nodeTable = network.getDefaultNodeTable();
+		nodeTable.createColumn("score", Double.class, false);
+		nodeTable.createColumn("type", String.class, false);
+		nodeTable.createColumn("other", String.class, false);
+
+		networkView = nvts.getNetworkViewFactory().createNetworkView(network);
+
+		final NullVisualProperty minimalRoot = new NullVisualProperty("MINIMAL_ROOT", "Minimal Root Visual Property");
+		final BasicVisualLexicon minimalLex = new BasicVisualLexicon(minimalRoot);
+		final Set<VisualLexicon> lexSet = new HashSet<VisualLexicon>();
+		lexSet.add(minimalLex);
+		final VisualLexiconManager lexManager = mock(VisualLexiconManager.class);
+		when(lexManager.getAllVisualLexicon()).thenReturn(lexSet);
+		final Collection<VisualProperty<?>> nodeVP = minimalLex.getAllDescendants(BasicVisualLexicon.NODE);
+		when(lexManager.getNodeVisualProperties()).thenReturn(nodeVP);
+
+		final CyEventHelper eventHelper = mock(CyEventHelper.class);
+		final VisualStyleFactoryImpl visualStyleFactory = new VisualStyleFactoryImpl(lexManager,
+				mock(CyServiceRegistrar.class), mock(VisualMappingFunctionFactory.class), eventHelper);
+		style = visualStyleFactory.createVisualStyle("Style");
+		style.setDefaultValue(BasicVisualLexicon.NODE_WIDTH, 42.0);
+		style.setDefaultValue(BasicVisualLexicon.NODE_LABEL, "none");
+
+		final ContinuousMappingImpl<Double, Double> width = new ContinuousMappingImpl<Double, Double>("score",
+				Double.class, BasicVisualLexicon.NODE_WIDTH, eventHelper);
+		width.addPoint(0.0, new BoundaryRangeValues<Double>(10.0, 10.0, 10.0));
+		width.addPoint(100.0, new BoundaryRangeValues<Double>(110.0, 110.0, 110.0));
+		style.addVisualMappingFunction(width);
+
+		final DiscreteMappingImpl<String, String> label = new DiscreteMappingImpl<String, String>("type",
+				String.class, BasicVisualLexicon.NODE_LABEL, eventHelper);
+		label.putMapValue("a", "A");
+		label.putMapValue("b", "B");
+		style.addVisualMappingFunction(label);
+
+		final VisualMappingManager vmm = mock(VisualMappingManager.class);
+		when(vmm.getVisualStyle(networkView)).thenReturn(style);
+		final CyNetworkViewManager viewManager = mock(CyNetworkViewManager.class);
+		when(viewManager.getNetworkViewSet()).thenReturn(Collections.singleton(networkView));
+
+		updater = new RowsSetStyleUpdater(vmm, viewManager);
+	}
+
+	@Test
+	public void testOnlyChangedRowsAreUpdated() {
+		final Double width2 = networkView.getNodeView(node2).getVisualProperty(BasicVisualLexicon.NODE_WIDTH);
+		network.getRow(node1).set("score", 50.0);
+		network.getRow(node2).set("score", 100.0);
+
+		fireRowSet(node1, "score", 50.0);
+
+		assertEquals(Double.valueOf(60.0), networkView.getNodeView(node1).getVisualProperty(BasicVisualLexicon.NODE_WIDTH));
+		// No event for node2, so its view is left alone
+		assertEquals(width2, networkView.getNodeView(node2).getVisualProperty(BasicVisualLexicon.NODE_WIDTH));
+	}
+
+	@Test
+	public void testOnlyMappingsOnChangedColumnsAreUpdated() {
+		final Double width1 = networkView.getNodeView(node1).getVisualProperty(BasicVisualLexicon.NODE_WIDTH);
+		network.getRow(node1).set("score", 0.0);
+		network.getRow(node1).set("type", "a");
+
+		fireRowSet(node1, "type", "a");
+
+		assertEquals("A", networkView.getNodeView(node1).getVisualProperty(BasicVisualLexicon.NODE_LABEL));
+		assertEquals(width1, networkView.getNodeView(node1).getVisualProperty(BasicVisualLexicon.NODE_WIDTH));
+
+		// Unmapped column
+		network.getRow(node1).set("type", "b");
+		fireRowSet(node1, "other", "x");
+		assertEquals("A", networkView.getNodeView(node1).getVisualProperty(BasicVisualLexicon.NODE_LABEL));
+
+		// Column names are case insensitive
+		fireRowSet(node1, "TYPE", "b");
+		assertEquals("B", networkView.getNodeView(node1).getVisualProperty(BasicVisualLexicon.NODE_LABEL));
+	}
+
+	@Test
+	public void testRowsAreNotReadForUnmappedColumns() {
+		final CyRow row = mock(CyRow.class);
+		updater.handleEvent(new RowsSetEvent(nodeTable, Collections.singletonList(new RowSetRecord(
+				row, CyNetwork.SELECTED, true, true))));
+
+		verifyZeroInteractions(row);
+	}
+
+	@Test
+	public void testOtherTablesAreIgnored() {
+		final Double width1 = networkView.getNodeView(node1).getVisualProperty(BasicVisualLexicon.NODE_WIDTH);
+		network.getRow(node1).set("score", 100.0);
+
+		final CyTable otherTable = mock(CyTable.class);
+		updater.handleEvent(new RowsSetEvent(otherTable, Collections.singletonList(new RowSetRecord(
+				network.getRow(node1), "score", 100.0, 100.0))));
+
+		assertEquals(width1, networkView.getNodeView(node1).getVisualProperty(BasicVisualLexicon.NODE_WIDTH));
+	}
+
+	@Test
+	public void testNullValueRestoresDefault() {
+		network.getRow(node1).set("score", 50.0);
+		network.getRow(node2).set("score", 100.0);
+		style.apply(networkView);
+		assertEquals(Double.valueOf(60.0), networkView.getNodeView(node1).getVisualProperty(BasicVisualLexicon.NODE_WIDTH));
+
+		network.getRow(node1).set("score", null);
+		fireRowSet(node1, "score", null);
+
+		assertEquals(Double.valueOf(42.0), networkView.getNodeView(node1).getVisualProperty(BasicVisualLexicon.NODE_WIDTH));
+		assertMatchesFullApply(BasicVisualLexicon.NODE_WIDTH);
+	}
+
+	@Test
+	public void testUnmappedKeyRestoresDefault() {
+		network.getRow(node1).set("type", "a");
+		network.getRow(node2).set("type", "b");
+		style.apply(networkView);
+		assertEquals("A", networkView.getNodeView(node1).getVisualProperty(BasicVisualLexicon.NODE_LABEL));
+
+		network.getRow(node1).set("type", "c");
+		fireRowSet(node1, "type", "c");
+
+		assertEquals("none", networkView.getNodeView(node1).getVisualProperty(BasicVisualLexicon.NODE_LABEL));
+		assertMatchesFullApply(BasicVisualLexicon.NODE_LABEL);
+	}
+
+	/**
+	 * Checks that a full apply() leaves the given property of every node view as the incremental update set it.
+	 */
+	private void assertMatchesFullApply(final VisualProperty<?> vp) {
+		final Object value1 = networkView.getNodeView(node1).getVisualProperty(vp);
+		final Object value2 = networkView.getNodeView(node2).getVisualProperty(vp);
+
+		style.apply(networkView);
+
+		for (final View<CyNode> view : networkView.getNodeViews()) {
+			final Object expected = view.getModel() == node1 ? value1 : value2;
+			assertEquals(expected, view.getVisualProperty(vp));
+		}
+	}
+
+	private void fireRowSet(final CyNode node, final String column, final Object value) {
+		updater.handleEvent(new RowsSetEvent(nodeTable, Collections.singletonList(new RowSetRecord(
+				network.getRow(node), column, value, value))));
+	}
+}
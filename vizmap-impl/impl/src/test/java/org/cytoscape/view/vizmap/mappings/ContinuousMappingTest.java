@@ -0,0 +1,165 @@
+package org.cytoscape.view.vizmap.mappings;
+
+/*
+ * #%L
+ * Cytoscape VizMap Impl (vizmap-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Color;
+import java.awt.Paint;
+
+import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.view.presentation.property.BasicVisualLexicon;
+import org.cytoscape.view.vizmap.internal.mappings.ContinuousMappingImpl;
+import org.cytoscape.view.vizmap.internal.mappings.interpolators.LinearNumberToColorInterpolator;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ContinuousMappingTest {
+
+	private static final String ATTR_NAME = "score";
+
+	private CyEventHelper eventHelper;
+
+	@Before
+	public void setUp() throws Exception {
+		eventHelper = mock(CyEventHelper.class);
+	}
+
+	@Test
+	public void testNumberMapping() {
+		final ContinuousMappingImpl<Double, Double> mapping = createNumberMapping();
+
+		assertEquals(Double.valueOf(1.0), mapping.getMappedValue(row(-5.0)));
+		assertEquals(Double.valueOf(10.0), mapping.getMappedValue(row(0.0)));
+		assertEquals(Double.valueOf(20.0), mapping.getMappedValue(row(5.0)));
+		assertEquals(Double.valueOf(35.0), mapping.getMappedValue(row(10.0)));
+		assertEquals(Double.valueOf(50.0), mapping.getMappedValue(row(55.0)));
+		assertEquals(Double.valueOf(60.0), mapping.getMappedValue(row(100.0)));
+		assertEquals(Double.valueOf(99.0), mapping.getMappedValue(row(1000.0)));
+		assertNull(mapping.getMappedValue(row(null)));
+	}
+
+	@Test
+	public void testColorMapping() {
+		final ContinuousMappingImpl<Double, Paint> mapping = new ContinuousMappingImpl<Double, Paint>(ATTR_NAME,
+				Double.class, BasicVisualLexicon.NODE_FILL_COLOR, eventHelper);
+		final Color lower = new Color(10, 20, 30, 40);
+		final Color upper = new Color(250, 200, 150, 255);
+		mapping.addPoint(0.0, new BoundaryRangeValues<Paint>(Color.BLACK, lower, lower));
+		mapping.addPoint(1.0, new BoundaryRangeValues<Paint>(upper, upper, Color.WHITE));
+
+		final LinearNumberToColorInterpolator interpolator = new LinearNumberToColorInterpolator();
+
+		for (int i = 1; i < 100; i++) {
+			final double value = i / 100.0;
+			assertEquals(interpolator.getRangeValue(value, lower, upper), mapping.getMappedValue(row(value)));
+		}
+
+		assertEquals(Color.BLACK, mapping.getMappedValue(row(-1.0)));
+		assertEquals(Color.WHITE, mapping.getMappedValue(row(2.0)));
+	}
+
+	@Test
+	public void testUnsortedPoints() {
+		final ContinuousMappingImpl<Double, Double> mapping = new ContinuousMappingImpl<Double, Double>(ATTR_NAME,
+				Double.class, BasicVisualLexicon.NODE_SIZE, eventHelper);
+		mapping.addPoint(100.0, new BoundaryRangeValues<Double>(60.0, 60.0, 99.0));
+		mapping.addPoint(0.0, new BoundaryRangeValues<Double>(1.0, 10.0, 10.0));
+
+		assertEquals(Double.valueOf(1.0), mapping.getMappedValue(row(-1.0)));
+		assertEquals(Double.valueOf(35.0), mapping.getMappedValue(row(50.0)));
+		assertEquals(Double.valueOf(99.0), mapping.getMappedValue(row(101.0)));
+	}
+
+	@Test
+	public void testPointChangesInvalidateCompiledForm() {
+		final ContinuousMappingImpl<Double, Double> mapping = createNumberMapping();
+		assertEquals(Double.valueOf(50.0), mapping.getMappedValue(row(55.0)));
+
+		// Moving a point
+		mapping.getPoint(2).setValue(50.0);
+		assertEquals(Double.valueOf(60.0), mapping.getMappedValue(row(50.0)));
+		assertEquals(Double.valueOf(99.0), mapping.getMappedValue(row(55.0)));
+
+		// Changing its range
+		mapping.getPoint(2).setRange(new BoundaryRangeValues<Double>(40.0, 40.0, 40.0));
+		assertEquals(Double.valueOf(40.0), mapping.getMappedValue(row(50.0)));
+
+		// Adding and removing points
+		mapping.addPoint(200.0, new BoundaryRangeValues<Double>(0.0, 0.0, 0.0));
+		assertEquals(Double.valueOf(0.0), mapping.getMappedValue(row(200.0)));
+		mapping.removePoint(3);
+		assertEquals(Double.valueOf(40.0), mapping.getMappedValue(row(200.0)));
+	}
+
+	@Test
+	public void testLookupTable() {
+		final ContinuousMappingImpl<Double, Double> mapping = createNumberMapping();
+		mapping.setLookupTableSize(10001);
+		assertEquals(10001, mapping.getLookupTableSize());
+
+		final ContinuousMappingImpl<Double, Double> exact = createNumberMapping();
+
+		for (int i = -100; i <= 1100; i++) {
+			final double value = i / 10.0 + 0.003;
+			final Double expected = exact.getMappedValue(row(value));
+			assertEquals(expected, mapping.getMappedValue(row(value)), 0.02);
+		}
+
+		// Values outside of the points do not use the table
+		assertEquals(Double.valueOf(1.0), mapping.getMappedValue(row(-5.0)));
+		assertEquals(Double.valueOf(99.0), mapping.getMappedValue(row(1000.0)));
+
+		mapping.setLookupTableSize(0);
+		assertEquals(exact.getMappedValue(row(12.345)), mapping.getMappedValue(row(12.345)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeLookupTableSize() {
+		createNumberMapping().setLookupTableSize(-1);
+	}
+
+	private ContinuousMappingImpl<Double, Double> createNumberMapping() {
+		final ContinuousMappingImpl<Double, Double> mapping = new ContinuousMappingImpl<Double, Double>(ATTR_NAME,
+				Double.class, BasicVisualLexicon.NODE_SIZE, eventHelper);
+		mapping.addPoint(0.0, new BoundaryRangeValues<Double>(1.0, 10.0, 10.0));
+		mapping.addPoint(10.0, new BoundaryRangeValues<Double>(30.0, 35.0, 40.0));
+		mapping.addPoint(100.0, new BoundaryRangeValues<Double>(60.0, 60.0, 99.0));
+
+		return mapping;
+	}
+
+	private CyRow row(final Double value) {
+		final CyRow row = mock(CyRow.class);
+		when(row.isSet(ATTR_NAME)).thenReturn(value != null);
+		when(row.get(ATTR_NAME, Double.class)).thenReturn(value);
+
+		return row;
+	}
+}